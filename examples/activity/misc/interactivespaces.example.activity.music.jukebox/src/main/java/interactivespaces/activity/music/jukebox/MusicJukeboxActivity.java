@@ -43,6 +43,7 @@ import org.ros.node.ConnectedNode;
 
 import java.io.File;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The Music Jukebox activity.
@@ -56,6 +57,23 @@ public class MusicJukeboxActivity extends BaseRosActivity implements AudioJukebo
    */
   public static final String CONFIGURATION_MUSIC_JUKEBOX_MUSIC_REPOSITORY_BASE = "space.music.repository.base";
 
+  /**
+   * The configuration parameter name for how often to rescan the music folders for added, changed and removed files,
+   * in seconds. {@code 0} or less means the folders are only scanned at startup.
+   */
+  public static final String CONFIGURATION_MUSIC_JUKEBOX_MUSIC_REPOSITORY_RESCAN_INTERVAL =
+      "space.music.repository.rescan.interval";
+
+  /**
+   * The default value for {@link #CONFIGURATION_MUSIC_JUKEBOX_MUSIC_REPOSITORY_RESCAN_INTERVAL}.
+   */
+  public static final long MUSIC_REPOSITORY_RESCAN_INTERVAL_DEFAULT = 0;
+
+  /**
+   * The name of the file the music metadata index is kept in, in the permanent data directory.
+   */
+  public static final String MUSIC_REPOSITORY_INDEX_FILE_NAME = "music-index.json";
+
   /**
    * ROS topic name for jukebox control.
    */
@@ -177,6 +195,17 @@ public class MusicJukeboxActivity extends BaseRosActivity implements AudioJukebo
       musicRepository = new ScanningFileAudioRepository();
 
       musicRepository.setRepositoryBases(baseRespositories);
+      musicRepository.setIndexFile(new File(getActivityFilesystem().getPermanentDataDirectory(),
+          MUSIC_REPOSITORY_INDEX_FILE_NAME));
+
+      long rescanInterval =
+          configuration.getPropertyLong(CONFIGURATION_MUSIC_JUKEBOX_MUSIC_REPOSITORY_RESCAN_INTERVAL,
+              MUSIC_REPOSITORY_RESCAN_INTERVAL_DEFAULT);
+      if (rescanInterval > 0) {
+        musicRepository.setUpdateChecks(getSpaceEnvironment().getExecutorService(),
+            TimeUnit.SECONDS.toMillis(rescanInterval), getLog());
+      }
+
       addManagedResource(musicRepository);
     } else {
       throw new SimpleInteractiveSpacesException(String.format("No configuration parameter %s",
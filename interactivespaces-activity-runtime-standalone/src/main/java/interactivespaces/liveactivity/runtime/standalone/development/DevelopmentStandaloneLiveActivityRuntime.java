@@ -40,6 +40,7 @@ import interactivespaces.liveactivity.runtime.standalone.StandaloneLiveActivityI
 import interactivespaces.liveactivity.runtime.standalone.StandaloneLiveActivityInformationCollection;
 import interactivespaces.liveactivity.runtime.standalone.StandaloneLiveActivityStorageManager;
 import interactivespaces.liveactivity.runtime.standalone.StandaloneLocalLiveActivityRepository;
+import interactivespaces.liveactivity.runtime.standalone.messaging.LoadGenerator;
 import interactivespaces.liveactivity.runtime.standalone.messaging.StandaloneMessageRouter;
 import interactivespaces.system.InteractiveSpacesEnvironment;
 import interactivespaces.system.InteractiveSpacesSystemControl;
@@ -53,6 +54,7 @@ import interactivespaces.util.io.FileSupportImpl;
 import interactivespaces.util.resource.ManagedResource;
 import interactivespaces.util.resource.ManagedResources;
 
+import com.google.common.base.Splitter;
 import com.google.common.collect.Lists;
 
 import org.apache.commons.logging.Log;
@@ -158,6 +160,63 @@ public class DevelopmentStandaloneLiveActivityRuntime implements ManagedResource
    */
   public static final String CONFIGURATION_PROPERTY_SPACE_TEST_MESSAGES_FILTER = "space.test.messages.filter";
 
+  /**
+   * Configuration property for the format of traced messages, either {@code json} or {@code binary}.
+   */
+  public static final String CONFIGURATION_PROPERTY_SPACE_TEST_MESSAGES_CAPTURE_FORMAT =
+      "space.test.messages.capture.format";
+
+  /**
+   * Configuration property for the message playback speed as a multiple of the capture rate. {@code 0} plays as fast
+   * as possible.
+   */
+  public static final String CONFIGURATION_PROPERTY_SPACE_TEST_MESSAGES_PLAYBACK_SPEED =
+      "space.test.messages.playback.speed";
+
+  /**
+   * Configuration property for the time into the capture to start message playback at, in milliseconds.
+   */
+  public static final String CONFIGURATION_PROPERTY_SPACE_TEST_MESSAGES_PLAYBACK_SEEK =
+      "space.test.messages.playback.seek";
+
+  /**
+   * Configuration property for whether message playback starts over at the end of the capture.
+   */
+  public static final String CONFIGURATION_PROPERTY_SPACE_TEST_MESSAGES_PLAYBACK_LOOP =
+      "space.test.messages.playback.loop";
+
+  /**
+   * Configuration property for the rate to generate load at, in messages per second. Load is only generated if this is
+   * set.
+   */
+  public static final String CONFIGURATION_PROPERTY_SPACE_TEST_LOAD_RATE = "space.test.load.rate";
+
+  /**
+   * Configuration property for the size of generated message payloads, in characters.
+   */
+  public static final String CONFIGURATION_PROPERTY_SPACE_TEST_LOAD_SIZE = "space.test.load.size";
+
+  /**
+   * Configuration property for how long to generate load for, in milliseconds.
+   */
+  public static final String CONFIGURATION_PROPERTY_SPACE_TEST_LOAD_DURATION = "space.test.load.duration";
+
+  /**
+   * Configuration property for the routes to generate load on, separated by colons. All input routes are used if not
+   * set.
+   */
+  public static final String CONFIGURATION_PROPERTY_SPACE_TEST_LOAD_ROUTES = "space.test.load.routes";
+
+  /**
+   * Configuration property for a message capture to take generated load from instead of synthetic messages.
+   */
+  public static final String CONFIGURATION_PROPERTY_SPACE_TEST_LOAD_CAPTURE = "space.test.load.capture";
+
+  /**
+   * Configuration property for the file to write the load report to.
+   */
+  public static final String CONFIGURATION_PROPERTY_SPACE_TEST_LOAD_REPORT = "space.test.load.report";
+
   /**
    * The collection of information about the live activities to run.
    */
@@ -306,7 +365,8 @@ public class DevelopmentStandaloneLiveActivityRuntime implements ManagedResource
       prepareForMultipleActivityRun(activityRuntimeFolder, activitySourceFolder);
     }
 
-    SequentialEventQueue eventQueue = new SimpleSequentialEventQueue(spaceEnvironment, spaceEnvironment.getLog());
+    SequentialEventQueue eventQueue =
+        new SimpleSequentialEventQueue("standalone", spaceEnvironment, spaceEnvironment.getLog());
     managedResources.addResource(eventQueue);
 
     LoggingAlertStatusManager alertStatusManager = new LoggingAlertStatusManager(spaceEnvironment.getLog());
@@ -373,6 +433,7 @@ public class DevelopmentStandaloneLiveActivityRuntime implements ManagedResource
       startupActivities();
 
       startPlayback();
+      startLoadGeneration();
     } catch (Throwable e) {
       getLog().error("Error while running the standalone runner", e);
 
@@ -536,17 +597,61 @@ public class DevelopmentStandaloneLiveActivityRuntime implements ManagedResource
    * Start any trace playback.
    */
   public void startPlayback() {
+    double speed =
+        systemConfiguration.getPropertyDouble(CONFIGURATION_PROPERTY_SPACE_TEST_MESSAGES_PLAYBACK_SPEED, 1.0);
+    long seekTime = systemConfiguration.getPropertyLong(CONFIGURATION_PROPERTY_SPACE_TEST_MESSAGES_PLAYBACK_SEEK, 0L);
+    boolean loop =
+        systemConfiguration.getPropertyBoolean(CONFIGURATION_PROPERTY_SPACE_TEST_MESSAGES_PLAYBACK_LOOP, false);
+
     String traceRecvPath = systemConfiguration.getPropertyString(CONFIGURATION_PROPERTY_SPACE_TEST_MESSAGES_RECV);
     if (traceRecvPath != null) {
-      cecRouter.playback(traceRecvPath, false);
+      cecRouter.playback(traceRecvPath, false, speed, seekTime, loop);
     }
 
     String traceSendPath = systemConfiguration.getPropertyString(CONFIGURATION_PROPERTY_SPACE_TEST_MESSAGES_SEND);
     if (traceSendPath != null) {
-      cecRouter.playback(traceSendPath, true);
+      cecRouter.playback(traceSendPath, true, speed, seekTime, loop);
     }
   }
 
+  /**
+   * Start any load generation.
+   */
+  public void startLoadGeneration() {
+    Double rate = systemConfiguration.getPropertyDouble(CONFIGURATION_PROPERTY_SPACE_TEST_LOAD_RATE, null);
+    if (rate == null) {
+      return;
+    }
+    if (!LoadGenerator.isValidRate(rate)) {
+      SimpleInteractiveSpacesException.throwFormattedException("%s must be positive and finite, was %s",
+          CONFIGURATION_PROPERTY_SPACE_TEST_LOAD_RATE, rate);
+    }
+
+    LoadGenerator generator = new LoadGenerator(cecRouter, spaceEnvironment.getMetricsRegistry());
+    generator.setRate(rate);
+    generator.setMessageSize(systemConfiguration.getPropertyInteger(CONFIGURATION_PROPERTY_SPACE_TEST_LOAD_SIZE,
+        LoadGenerator.MESSAGE_SIZE_DEFAULT));
+    generator.setDuration(systemConfiguration.getPropertyLong(CONFIGURATION_PROPERTY_SPACE_TEST_LOAD_DURATION,
+        LoadGenerator.DURATION_DEFAULT));
+
+    String routes = systemConfiguration.getPropertyString(CONFIGURATION_PROPERTY_SPACE_TEST_LOAD_ROUTES);
+    if (routes != null) {
+      generator.setRoutes(Lists.newArrayList(Splitter.on(':').trimResults().omitEmptyStrings().split(routes)));
+    }
+
+    String capturePath = systemConfiguration.getPropertyString(CONFIGURATION_PROPERTY_SPACE_TEST_LOAD_CAPTURE);
+    if (capturePath != null) {
+      generator.setCaptureFile(fileSupport.newFile(capturePath));
+    }
+
+    String reportPath = systemConfiguration.getPropertyString(CONFIGURATION_PROPERTY_SPACE_TEST_LOAD_REPORT);
+    if (reportPath != null) {
+      generator.setReportFile(fileSupport.newFile(reportPath));
+    }
+
+    cecRouter.generateLoad(generator);
+  }
+
   /**
    * Startup all activities.
    */
@@ -561,6 +666,12 @@ public class DevelopmentStandaloneLiveActivityRuntime implements ManagedResource
       cecRouter.setTraceFilter(traceFilterPath);
     }
 
+    String captureFormat =
+        systemConfiguration.getPropertyString(CONFIGURATION_PROPERTY_SPACE_TEST_MESSAGES_CAPTURE_FORMAT);
+    if (captureFormat != null) {
+      cecRouter.setCaptureFormat(captureFormat);
+    }
+
     List<InstalledLiveActivity> installedLiveActivities = liveActivityRuntime.getAllInstalledLiveActivities();
     if (installedLiveActivities.size() == 0) {
       SimpleInteractiveSpacesException.throwFormattedException("No installed live activities found");
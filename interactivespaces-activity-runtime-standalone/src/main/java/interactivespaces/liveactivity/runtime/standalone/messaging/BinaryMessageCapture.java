@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.liveactivity.runtime.standalone.messaging;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * Constants and helpers for the binary message capture format.
+ *
+ * <p>
+ * A capture file starts with a header of the magic number, the format version, and the time the capture started in
+ * milliseconds since the epoch. It is followed by one record per message: the time the message was captured in
+ * milliseconds from the start of the capture, the length of the message, and the message as UTF-8 JSON. The time and
+ * length are written as variable length integers, 7 bits per byte, low bits first.
+ *
+ * <p>
+ * The index file sits next to the capture file. It holds pairs of a capture time and the file position of the first
+ * record at or after that time, at most one pair per {@link #INDEX_INTERVAL}, so a reader can seek to any time without
+ * reading the whole capture.
+ *
+ * @author Keith M. Hughes
+ */
+public final class BinaryMessageCapture {
+
+  /**
+   * The magic number at the start of every capture file, {@code ISMC}.
+   */
+  public static final int MAGIC = 0x49534d43;
+
+  /**
+   * The version of the capture format.
+   */
+  public static final int VERSION = 1;
+
+  /**
+   * The size of the capture file header, in bytes.
+   */
+  public static final int HEADER_SIZE = 4 + 1 + 8;
+
+  /**
+   * The extension for capture files.
+   */
+  public static final String FILE_EXTENSION_CAPTURE = ".capture";
+
+  /**
+   * The extension added to a capture file name to get the name of its index file.
+   */
+  public static final String FILE_EXTENSION_INDEX = ".index";
+
+  /**
+   * The minimum time between index entries, in milliseconds.
+   */
+  public static final long INDEX_INTERVAL = 1000;
+
+  /**
+   * The mask for the low 7 bits of a variable length integer byte.
+   */
+  private static final int VARIABLE_LENGTH_VALUE_MASK = 0x7f;
+
+  /**
+   * The bit set in a variable length integer byte when more bytes follow.
+   */
+  private static final int VARIABLE_LENGTH_CONTINUATION_BIT = 0x80;
+
+  /**
+   * Construct the helper.
+   */
+  private BinaryMessageCapture() {
+  }
+
+  /**
+   * Get the index file for a capture file.
+   *
+   * @param captureFile
+   *          the capture file
+   *
+   * @return the index file
+   */
+  public static File getIndexFile(File captureFile) {
+    return new File(captureFile.getParentFile(), captureFile.getName() + FILE_EXTENSION_INDEX);
+  }
+
+  /**
+   * Is a file a binary message capture?
+   *
+   * @param file
+   *          the file to check
+   *
+   * @return {@code true} if the file starts with the capture magic number
+   */
+  public static boolean isCapture(File file) {
+    DataInputStream input = null;
+    try {
+      input = new DataInputStream(new FileInputStream(file));
+      return input.readInt() == MAGIC;
+    } catch (IOException e) {
+      return false;
+    } finally {
+      if (input != null) {
+        try {
+          input.close();
+        } catch (IOException e) {
+          // Nothing to do if the check could not close.
+        }
+      }
+    }
+  }
+
+  /**
+   * Write a non-negative variable length integer.
+   *
+   * @param output
+   *          the stream to write to
+   * @param value
+   *          the value to write
+   *
+   * @throws IOException
+   *           the value could not be written
+   */
+  static void writeVariableLength(DataOutputStream output, long value) throws IOException {
+    while ((value & ~VARIABLE_LENGTH_VALUE_MASK) != 0) {
+      output.writeByte((int) (value & VARIABLE_LENGTH_VALUE_MASK) | VARIABLE_LENGTH_CONTINUATION_BIT);
+      value >>>= 7;
+    }
+    output.writeByte((int) value);
+  }
+
+  /**
+   * Read a non-negative variable length integer.
+   *
+   * @param input
+   *          the stream to read from
+   *
+   * @return the value read
+   *
+   * @throws IOException
+   *           the value could not be read, including an end of file part way through the value
+   */
+  static long readVariableLength(DataInputStream input) throws IOException {
+    long value = 0;
+    int shift = 0;
+    int b;
+    do {
+      b = input.readUnsignedByte();
+      value |= (long) (b & VARIABLE_LENGTH_VALUE_MASK) << shift;
+      shift += 7;
+    } while ((b & VARIABLE_LENGTH_CONTINUATION_BIT) != 0);
+
+    return value;
+  }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.liveactivity.runtime.standalone.messaging;
+
+import interactivespaces.InteractiveSpacesException;
+import interactivespaces.SimpleInteractiveSpacesException;
+import interactivespaces.liveactivity.runtime.standalone.messaging.MessageUtils.MessageMap;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import com.google.common.primitives.Longs;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A reader for a binary message capture.
+ *
+ * <p>
+ * The index file is used for seeking. If it is missing, the index is rebuilt by reading the capture once when the
+ * reader is opened. A record cut short at the end of the capture, such as from a writer which was never closed, ends
+ * the capture.
+ *
+ * @author Keith M. Hughes
+ */
+public class BinaryMessageCaptureReader implements MessageCaptureReader {
+
+  /**
+   * The capture file.
+   */
+  private final File captureFile;
+
+  /**
+   * The open capture file.
+   */
+  private final RandomAccessFile file;
+
+  /**
+   * The time the capture started, in milliseconds since the epoch.
+   */
+  private final long startTime;
+
+  /**
+   * The capture times of the index entries, in milliseconds from the start of the capture.
+   */
+  private long[] indexTimes;
+
+  /**
+   * The file positions of the index entries.
+   */
+  private long[] indexPositions;
+
+  /**
+   * The stream records are read from.
+   */
+  private DataInputStream input;
+
+  /**
+   * Counts the bytes read since the stream was positioned.
+   */
+  private CountingInputStream inputCounter;
+
+  /**
+   * The file position the stream was positioned at.
+   */
+  private long inputBasePosition;
+
+  /**
+   * A message read while seeking which has not been returned yet, or {@code null} if none.
+   */
+  private CapturedMessage pendingMessage;
+
+  /**
+   * Construct a new reader.
+   *
+   * @param captureFile
+   *          the capture file
+   */
+  public BinaryMessageCaptureReader(File captureFile) {
+    this.captureFile = captureFile;
+
+    try {
+      file = new RandomAccessFile(captureFile, "r");
+      if (file.readInt() != BinaryMessageCapture.MAGIC) {
+        throw new SimpleInteractiveSpacesException("Not a binary message capture: " + captureFile.getAbsolutePath());
+      }
+      int version = file.readUnsignedByte();
+      if (version != BinaryMessageCapture.VERSION) {
+        throw new SimpleInteractiveSpacesException(String.format(
+            "Unsupported binary message capture version %d: %s", version, captureFile.getAbsolutePath()));
+      }
+      startTime = file.readLong();
+
+      if (!readIndex()) {
+        buildIndex();
+      }
+
+      positionAt(BinaryMessageCapture.HEADER_SIZE);
+    } catch (IOException e) {
+      throw new InteractiveSpacesException("Could not open binary message capture " + captureFile.getAbsolutePath(),
+          e);
+    }
+  }
+
+  /**
+   * Get the time the capture started.
+   *
+   * @return the start time, in milliseconds since the epoch
+   */
+  public long getStartTime() {
+    return startTime;
+  }
+
+  @Override
+  public CapturedMessage readMessage() {
+    if (pendingMessage != null) {
+      CapturedMessage message = pendingMessage;
+      pendingMessage = null;
+
+      return message;
+    }
+
+    try {
+      return readRecord();
+    } catch (IOException e) {
+      throw new InteractiveSpacesException("Could not read binary message capture " + captureFile.getAbsolutePath(),
+          e);
+    }
+  }
+
+  @Override
+  public void seek(long time) {
+    int entry = Arrays.binarySearch(indexTimes, time);
+    if (entry < 0) {
+      // Not an exact match, so take the last entry before the time.
+      entry = -entry - 2;
+    }
+
+    try {
+      positionAt(entry >= 0 ? indexPositions[entry] : BinaryMessageCapture.HEADER_SIZE);
+
+      CapturedMessage message;
+      do {
+        message = readRecord();
+      } while (message != null && message.getTime() < time);
+
+      pendingMessage = message;
+    } catch (IOException e) {
+      throw new InteractiveSpacesException("Could not seek binary message capture " + captureFile.getAbsolutePath(),
+          e);
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      file.close();
+    } catch (IOException e) {
+      // Nothing to do if the capture could not close.
+    }
+  }
+
+  /**
+   * Position the record stream at a file position.
+   *
+   * @param position
+   *          the file position
+   *
+   * @throws IOException
+   *           the stream could not be positioned
+   */
+  private void positionAt(long position) throws IOException {
+    file.getChannel().position(position);
+    inputCounter = new CountingInputStream(new BufferedInputStream(Channels.newInputStream(file.getChannel())));
+    input = new DataInputStream(inputCounter);
+    inputBasePosition = position;
+    pendingMessage = null;
+  }
+
+  /**
+   * Read the next record from the record stream.
+   *
+   * @return the message in the record, or {@code null} if the end of the capture has been reached
+   *
+   * @throws IOException
+   *           the record could not be read
+   */
+  private CapturedMessage readRecord() throws IOException {
+    try {
+      long time = BinaryMessageCapture.readVariableLength(input);
+      byte[] payload = new byte[(int) BinaryMessageCapture.readVariableLength(input)];
+      input.readFully(payload);
+
+      return new CapturedMessage(time, MessageMap.fromString(new String(payload, Charsets.UTF_8)));
+    } catch (EOFException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Read the index file.
+   *
+   * @return {@code true} if the index file could be read
+   */
+  private boolean readIndex() {
+    File indexFile = BinaryMessageCapture.getIndexFile(captureFile);
+    if (!indexFile.isFile()) {
+      return false;
+    }
+
+    List<Long> times = new ArrayList<Long>();
+    List<Long> positions = new ArrayList<Long>();
+    DataInputStream indexInput = null;
+    try {
+      indexInput = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+      long captureLength = file.length();
+      while (true) {
+        long time;
+        long position;
+        try {
+          time = indexInput.readLong();
+          position = indexInput.readLong();
+        } catch (EOFException e) {
+          break;
+        }
+
+        // Entries past the end of the capture are from a writer which did not finish.
+        if (position >= captureLength) {
+          break;
+        }
+        times.add(time);
+        positions.add(position);
+      }
+    } catch (IOException e) {
+      return false;
+    } finally {
+      if (indexInput != null) {
+        try {
+          indexInput.close();
+        } catch (IOException e) {
+          // Nothing to do if the index could not close.
+        }
+      }
+    }
+
+    indexTimes = Longs.toArray(times);
+    indexPositions = Longs.toArray(positions);
+
+    return true;
+  }
+
+  /**
+   * Build the index by reading the whole capture.
+   *
+   * @throws IOException
+   *           the capture could not be read
+   */
+  private void buildIndex() throws IOException {
+    List<Long> times = new ArrayList<Long>();
+    List<Long> positions = new ArrayList<Long>();
+
+    positionAt(BinaryMessageCapture.HEADER_SIZE);
+    long nextIndexTime = 0;
+    try {
+      while (true) {
+        long position = inputBasePosition + inputCounter.getCount();
+        long time = BinaryMessageCapture.readVariableLength(input);
+        ByteStreams.skipFully(input, BinaryMessageCapture.readVariableLength(input));
+
+        if (times.isEmpty() || time >= nextIndexTime) {
+          times.add(time);
+          positions.add(position);
+          nextIndexTime = time + BinaryMessageCapture.INDEX_INTERVAL;
+        }
+      }
+    } catch (EOFException e) {
+      // The end of the capture has been reached.
+    }
+
+    indexTimes = Longs.toArray(times);
+    indexPositions = Longs.toArray(positions);
+  }
+}
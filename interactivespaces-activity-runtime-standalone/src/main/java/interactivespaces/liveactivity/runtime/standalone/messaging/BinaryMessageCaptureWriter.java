@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.liveactivity.runtime.standalone.messaging;
+
+import interactivespaces.liveactivity.runtime.standalone.messaging.MessageUtils.MessageMap;
+import interactivespaces.util.data.json.JsonMapper;
+import interactivespaces.util.data.json.StandardJsonMapper;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.CountingOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * A writer for a binary message capture and its index.
+ *
+ * <p>
+ * The capture is flushed every time an index entry is written, so at most {@link BinaryMessageCapture#INDEX_INTERVAL}
+ * of messages is lost if the writer is never closed.
+ *
+ * @author Keith M. Hughes
+ */
+public class BinaryMessageCaptureWriter implements Closeable {
+
+  /**
+   * Json mapper for message conversion.
+   */
+  private static final JsonMapper MAPPER = StandardJsonMapper.INSTANCE;
+
+  /**
+   * The time the capture started, in milliseconds since the epoch.
+   */
+  private final long startTime;
+
+  /**
+   * Counts the bytes written to the capture, giving the position of the next record.
+   */
+  private final CountingOutputStream captureCounter;
+
+  /**
+   * The stream for the capture.
+   */
+  private final DataOutputStream captureOutput;
+
+  /**
+   * The stream for the index.
+   */
+  private final DataOutputStream indexOutput;
+
+  /**
+   * The time of the last message written, in milliseconds from the start of the capture.
+   */
+  private long lastTime;
+
+  /**
+   * The earliest time at which the next index entry can be written, in milliseconds from the start of the capture.
+   */
+  private long nextIndexTime;
+
+  /**
+   * Construct a new writer. Any existing capture in the file is replaced.
+   *
+   * @param captureFile
+   *          the file to write the capture to
+   * @param startTime
+   *          the time the capture starts, in milliseconds since the epoch
+   *
+   * @throws IOException
+   *           the capture files could not be created
+   */
+  public BinaryMessageCaptureWriter(File captureFile, long startTime) throws IOException {
+    this.startTime = startTime;
+
+    captureCounter = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(captureFile)));
+    captureOutput = new DataOutputStream(captureCounter);
+    indexOutput =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+            BinaryMessageCapture.getIndexFile(captureFile))));
+
+    captureOutput.writeInt(BinaryMessageCapture.MAGIC);
+    captureOutput.writeByte(BinaryMessageCapture.VERSION);
+    captureOutput.writeLong(startTime);
+  }
+
+  /**
+   * Write a message to the capture.
+   *
+   * @param time
+   *          the time the message was captured, in milliseconds since the epoch
+   * @param message
+   *          the message
+   *
+   * @throws IOException
+   *           the message could not be written
+   */
+  public synchronized void writeMessage(long time, MessageMap message) throws IOException {
+    // Keep capture times ordered so that the index can be searched.
+    lastTime = Math.max(lastTime, time - startTime);
+
+    if (lastTime >= nextIndexTime) {
+      captureOutput.flush();
+
+      indexOutput.writeLong(lastTime);
+      indexOutput.writeLong(captureCounter.getCount());
+      indexOutput.flush();
+
+      nextIndexTime = lastTime + BinaryMessageCapture.INDEX_INTERVAL;
+    }
+
+    byte[] payload = MAPPER.toString(message).getBytes(Charsets.UTF_8);
+    BinaryMessageCapture.writeVariableLength(captureOutput, lastTime);
+    BinaryMessageCapture.writeVariableLength(captureOutput, payload.length);
+    captureOutput.write(payload);
+  }
+
+  /**
+   * Flush everything written so far to the capture files.
+   *
+   * @throws IOException
+   *           the capture could not be flushed
+   */
+  public synchronized void flush() throws IOException {
+    captureOutput.flush();
+    indexOutput.flush();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      captureOutput.close();
+    } finally {
+      indexOutput.close();
+    }
+  }
+}
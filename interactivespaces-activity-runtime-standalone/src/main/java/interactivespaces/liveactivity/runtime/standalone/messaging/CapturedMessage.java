@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.liveactivity.runtime.standalone.messaging;
+
+import interactivespaces.liveactivity.runtime.standalone.messaging.MessageUtils.MessageMap;
+
+/**
+ * A message read from a capture, with the time it was captured.
+ *
+ * @author Keith M. Hughes
+ */
+public class CapturedMessage {
+
+  /**
+   * The time the message was captured, in milliseconds from the start of the capture.
+   */
+  private final long time;
+
+  /**
+   * The message.
+   */
+  private final MessageMap message;
+
+  /**
+   * Construct a new captured message.
+   *
+   * @param time
+   *          the time the message was captured, in milliseconds from the start of the capture
+   * @param message
+   *          the message
+   */
+  public CapturedMessage(long time, MessageMap message) {
+    this.time = time;
+    this.message = message;
+  }
+
+  /**
+   * Get the time the message was captured.
+   *
+   * @return the time, in milliseconds from the start of the capture
+   */
+  public long getTime() {
+    return time;
+  }
+
+  /**
+   * Get the message.
+   *
+   * @return the message
+   */
+  public MessageMap getMessage() {
+    return message;
+  }
+}
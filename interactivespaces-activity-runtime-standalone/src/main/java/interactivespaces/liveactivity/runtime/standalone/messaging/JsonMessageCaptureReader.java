@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.liveactivity.runtime.standalone.messaging;
+
+import interactivespaces.InteractiveSpacesException;
+import interactivespaces.SimpleInteractiveSpacesException;
+import interactivespaces.liveactivity.runtime.standalone.messaging.MessageUtils.MessageMap;
+
+import com.google.common.io.Closeables;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * A reader for a capture of JSON messages, one per line, each with the delay since the previous message.
+ *
+ * <p>
+ * The capture has no index, so seeking reads from the start of the capture.
+ *
+ * @author Keith M. Hughes
+ */
+public class JsonMessageCaptureReader implements MessageCaptureReader {
+
+  /**
+   * The capture file.
+   */
+  private final File captureFile;
+
+  /**
+   * Reader for the capture.
+   */
+  private BufferedReader reader;
+
+  /**
+   * The time of the last message read, in milliseconds from the start of the capture.
+   */
+  private long time;
+
+  /**
+   * A message read while seeking which has not been returned yet, or {@code null} if none.
+   */
+  private CapturedMessage pendingMessage;
+
+  /**
+   * Construct a new reader.
+   *
+   * @param captureFile
+   *          the capture file
+   */
+  public JsonMessageCaptureReader(File captureFile) {
+    this.captureFile = captureFile;
+
+    open();
+  }
+
+  @Override
+  public CapturedMessage readMessage() {
+    if (pendingMessage != null) {
+      CapturedMessage message = pendingMessage;
+      pendingMessage = null;
+
+      return message;
+    }
+
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (line.startsWith("#") || line.isEmpty()) {
+          continue;
+        }
+
+        MessageMap messageObject = MessageMap.fromString(line);
+        Object timeDelay = messageObject.get(StandaloneMessageRouter.TIME_DELAY_KEY);
+        if (!(timeDelay instanceof Integer)) {
+          throw new SimpleInteractiveSpacesException(String.format("Message must have an Integer field '%s': %s",
+              StandaloneMessageRouter.TIME_DELAY_KEY, messageObject));
+        }
+        time += (Integer) timeDelay;
+
+        return new CapturedMessage(time, messageObject);
+      }
+
+      return null;
+    } catch (IOException e) {
+      throw new InteractiveSpacesException("Could not read message capture " + captureFile.getAbsolutePath(), e);
+    }
+  }
+
+  @Override
+  public void seek(long seekTime) {
+    close();
+    open();
+
+    CapturedMessage message;
+    do {
+      message = readMessage();
+    } while (message != null && message.getTime() < seekTime);
+
+    pendingMessage = message;
+  }
+
+  @Override
+  public void close() {
+    Closeables.closeQuietly(reader);
+  }
+
+  /**
+   * Open the capture at its start.
+   */
+  private void open() {
+    try {
+      reader = new BufferedReader(new FileReader(captureFile));
+      time = 0;
+      pendingMessage = null;
+    } catch (IOException e) {
+      throw new InteractiveSpacesException("Could not open message capture " + captureFile.getAbsolutePath(), e);
+    }
+  }
+}
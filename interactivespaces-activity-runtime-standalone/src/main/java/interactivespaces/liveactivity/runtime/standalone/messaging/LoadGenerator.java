@@ -0,0 +1,599 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.liveactivity.runtime.standalone.messaging;
+
+import interactivespaces.SimpleInteractiveSpacesException;
+import interactivespaces.activity.component.route.MessageRouterSupportedMessageTypes;
+import interactivespaces.liveactivity.runtime.standalone.messaging.MessageUtils.MessageMap;
+import interactivespaces.util.data.json.JsonMapper;
+import interactivespaces.util.data.json.StandardJsonMapper;
+import interactivespaces.util.io.FileSupport;
+import interactivespaces.util.io.FileSupportImpl;
+import interactivespaces.util.metrics.Histogram;
+import interactivespaces.util.metrics.LogLinearHistogram;
+import interactivespaces.util.metrics.MetricsRegistry;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A runner that injects route messages into the message router at a controlled rate and reports how the activity kept
+ * up.
+ *
+ * <p>
+ * Messages are either synthetic, with a payload of a given size, sent round robin across the input routes, or are
+ * taken from a message capture and sent on their captured routes. Either way they are sent at the configured rate
+ * rather than the captured rate.
+ *
+ * <p>
+ * Messages are handed to the activity on the generator thread, so the time to deliver a message is the activity's
+ * processing time for it. The backlog is the number of messages which were due to be sent but had not been, because
+ * the activity was still processing earlier ones. A backlog which keeps growing means the rate is above what the
+ * activity can sustain.
+ *
+ * <p>
+ * The report is written as JSON. Latencies are in nanoseconds. Captured messages without a route are counted as
+ * errors by the router and their latencies are reported under {@link #REPORT_ROUTE_NONE}.
+ *
+ * @author Keith M. Hughes
+ */
+public class LoadGenerator implements Runnable {
+
+  /**
+   * Default rate messages are sent at, in messages per second across all routes.
+   */
+  public static final double RATE_DEFAULT = 100;
+
+  /**
+   * Default size of synthetic message payloads, in characters.
+   */
+  public static final int MESSAGE_SIZE_DEFAULT = 100;
+
+  /**
+   * Default length of the run, in milliseconds.
+   */
+  public static final long DURATION_DEFAULT = 10000;
+
+  /**
+   * Default name of the report file, placed in the activity log directory.
+   */
+  public static final String REPORT_FILE_NAME_DEFAULT = "load-report.json";
+
+  /**
+   * Report field for the activity UUID.
+   */
+  public static final String REPORT_FIELD_ACTIVITY = "activity";
+
+  /**
+   * Report field for the requested rate.
+   */
+  public static final String REPORT_FIELD_RATE_TARGET = "rateTarget";
+
+  /**
+   * Report field for the rate achieved.
+   */
+  public static final String REPORT_FIELD_RATE_ACHIEVED = "rateAchieved";
+
+  /**
+   * Report field for the number of messages sent.
+   */
+  public static final String REPORT_FIELD_MESSAGES = "messages";
+
+  /**
+   * Report field for the number of messages the activity failed to process.
+   */
+  public static final String REPORT_FIELD_ERRORS = "errors";
+
+  /**
+   * Report field for the length of the run, in milliseconds.
+   */
+  public static final String REPORT_FIELD_DURATION = "duration";
+
+  /**
+   * Report field for the processing latency across all routes.
+   */
+  public static final String REPORT_FIELD_LATENCY = "latency";
+
+  /**
+   * Report field for the processing latency of each route.
+   */
+  public static final String REPORT_FIELD_ROUTES = "routes";
+
+  /**
+   * Report field for the backlog statistics.
+   */
+  public static final String REPORT_FIELD_BACKLOG = "backlog";
+
+  /**
+   * Report field for the garbage collections during the run.
+   */
+  public static final String REPORT_FIELD_GC = "gc";
+
+  /**
+   * Report field for a count of garbage collections.
+   */
+  public static final String REPORT_FIELD_GC_COUNT = "count";
+
+  /**
+   * Report field for the time spent in garbage collections, in milliseconds.
+   */
+  public static final String REPORT_FIELD_GC_TIME = "time";
+
+  /**
+   * Report field for the space metrics at the end of the run.
+   */
+  public static final String REPORT_FIELD_METRICS = "metrics";
+
+  /**
+   * Key for the sequence number in a synthetic message.
+   */
+  public static final String SYNTHETIC_MESSAGE_KEY_SEQUENCE = "sequence";
+
+  /**
+   * Key for the payload in a synthetic message.
+   */
+  public static final String SYNTHETIC_MESSAGE_KEY_PAYLOAD = "payload";
+
+  /**
+   * The name the latencies of messages without a route are reported under.
+   */
+  public static final String REPORT_ROUTE_NONE = "<none>";
+
+  /**
+   * How long to wait for the activity to register its input routes, in milliseconds.
+   */
+  private static final long ROUTES_WAIT_TIME = 30000;
+
+  /**
+   * How often to check whether the activity has registered its input routes, in milliseconds.
+   */
+  private static final long ROUTES_POLL_TIME = 100;
+
+  /**
+   * The JSON mapper.
+   */
+  private static final JsonMapper MAPPER = StandardJsonMapper.INSTANCE;
+
+  /**
+   * The file support to use.
+   */
+  private final FileSupport fileSupport = FileSupportImpl.INSTANCE;
+
+  /**
+   * The router to inject messages into.
+   */
+  private final StandaloneMessageRouter router;
+
+  /**
+   * The metrics registry to include in the report.
+   */
+  private final MetricsRegistry metricsRegistry;
+
+  /**
+   * The rate to send messages at, in messages per second.
+   */
+  private double rate = RATE_DEFAULT;
+
+  /**
+   * The size of synthetic message payloads, in characters.
+   */
+  private int messageSize = MESSAGE_SIZE_DEFAULT;
+
+  /**
+   * The length of the run, in milliseconds.
+   */
+  private long duration = DURATION_DEFAULT;
+
+  /**
+   * The routes to send synthetic messages on, empty for all input routes of the activity.
+   */
+  private List<String> routes = Lists.newArrayList();
+
+  /**
+   * The capture to take messages from, {@code null} for synthetic messages.
+   */
+  private File captureFile;
+
+  /**
+   * The file to write the report to, {@code null} for the default.
+   */
+  private File reportFile;
+
+  /**
+   * {@code true} while the generator should keep running.
+   */
+  private volatile boolean running = true;
+
+  /**
+   * Construct a new load generator.
+   *
+   * @param router
+   *          the router to inject messages into
+   * @param metricsRegistry
+   *          the metrics registry to include in the report
+   */
+  public LoadGenerator(StandaloneMessageRouter router, MetricsRegistry metricsRegistry) {
+    this.router = router;
+    this.metricsRegistry = metricsRegistry;
+  }
+
+  @Override
+  public void run() {
+    try {
+      List<String> sendRoutes = getSendRoutes();
+      if (sendRoutes.isEmpty() && captureFile == null) {
+        router.handleError("No input routes to generate load on", null);
+        return;
+      }
+
+      Map<String, Object> report = generateLoad(sendRoutes);
+      if (report != null) {
+        writeReport(report);
+        router.injectionFinished();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      router.handleError("While generating load", e);
+    }
+  }
+
+  /**
+   * Stop the load generator.
+   */
+  public void stop() {
+    running = false;
+  }
+
+  /**
+   * Get the routes to send synthetic messages on, waiting for the activity to register its routes if necessary.
+   *
+   * @return the routes
+   *
+   * @throws InterruptedException
+   *           the wait was interrupted
+   */
+  private List<String> getSendRoutes() throws InterruptedException {
+    if (!routes.isEmpty()) {
+      return routes;
+    }
+
+    long waitEnd = System.currentTimeMillis() + ROUTES_WAIT_TIME;
+    while (running && router.getInputRoutes().isEmpty() && System.currentTimeMillis() < waitEnd) {
+      Thread.sleep(ROUTES_POLL_TIME);
+    }
+
+    return Lists.newArrayList(router.getInputRoutes());
+  }
+
+  /**
+   * Send messages for the length of the run.
+   *
+   * @param sendRoutes
+   *          the routes to send synthetic messages on
+   *
+   * @return the report, or {@code null} if the generator was stopped
+   *
+   * @throws InterruptedException
+   *           the run was interrupted
+   */
+  private Map<String, Object> generateLoad(List<String> sendRoutes) throws InterruptedException {
+    router.getLog().info(
+        String.format("Generating load at %.1f messages/sec for %d msecs on %s", rate, duration,
+            captureFile != null ? captureFile : sendRoutes));
+
+    MessageCaptureReader captureReader = null;
+    if (captureFile != null) {
+      captureReader =
+          BinaryMessageCapture.isCapture(captureFile) ? new BinaryMessageCaptureReader(captureFile)
+              : new JsonMessageCaptureReader(captureFile);
+    }
+    String payload = Strings.repeat("x", messageSize);
+
+    Histogram latency = new LogLinearHistogram();
+    Map<String, Histogram> routeLatencies = Maps.newTreeMap();
+    long backlogMax = 0;
+    long backlogTotal = 0;
+    long errors = 0;
+    Map<String, long[]> gcStart = getGarbageCollections();
+
+    // Rates above a billion messages a second are just sent as fast as possible.
+    long periodNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+    long startTime = System.nanoTime();
+    long endTime = startTime + TimeUnit.MILLISECONDS.toNanos(duration);
+    long sequence = 0;
+    try {
+      while (running) {
+        long sendTime = startTime + sequence * periodNanos;
+        if (sendTime >= endTime) {
+          break;
+        }
+
+        long now = System.nanoTime();
+        if (now >= endTime) {
+          // The activity fell so far behind that the run is over before the message was due.
+          break;
+        }
+        if (sendTime > now) {
+          TimeUnit.NANOSECONDS.sleep(sendTime - now);
+        } else {
+          long backlog = (now - sendTime) / periodNanos;
+          backlogMax = Math.max(backlogMax, backlog);
+          backlogTotal += backlog;
+        }
+
+        MessageMap message;
+        if (captureReader != null) {
+          message = readCapturedMessage(captureReader);
+          if (message == null) {
+            router.handleError("Load capture has no messages: " + captureFile.getAbsolutePath(), null);
+            return null;
+          }
+        } else {
+          message = newSyntheticMessage(sendRoutes.get((int) (sequence % sendRoutes.size())), sequence, payload);
+        }
+        String route = (String) message.get("route");
+        if (route == null) {
+          route = REPORT_ROUTE_NONE;
+        }
+
+        long processStart = System.nanoTime();
+        try {
+          router.processMessage(message, false);
+        } catch (Exception e) {
+          errors++;
+        }
+        long processTime = System.nanoTime() - processStart;
+
+        latency.record(processTime);
+        Histogram routeLatency = routeLatencies.get(route);
+        if (routeLatency == null) {
+          routeLatency = new LogLinearHistogram();
+          routeLatencies.put(route, routeLatency);
+        }
+        routeLatency.record(processTime);
+
+        sequence++;
+      }
+    } finally {
+      if (captureReader != null) {
+        captureReader.close();
+      }
+    }
+
+    if (!running) {
+      return null;
+    }
+
+    long elapsed = System.nanoTime() - startTime;
+
+    Map<String, Object> report = Maps.newLinkedHashMap();
+    report.put(REPORT_FIELD_ACTIVITY, router.getComponentContext().getActivity().getUuid());
+    report.put(REPORT_FIELD_RATE_TARGET, rate);
+    report.put(REPORT_FIELD_RATE_ACHIEVED, sequence / (elapsed / (double) TimeUnit.SECONDS.toNanos(1)));
+    report.put(REPORT_FIELD_MESSAGES, sequence);
+    report.put(REPORT_FIELD_ERRORS, errors);
+    report.put(REPORT_FIELD_DURATION, TimeUnit.NANOSECONDS.toMillis(elapsed));
+    report.put(REPORT_FIELD_LATENCY, latency.getStatistics());
+
+    Map<String, Object> routesReport = Maps.newTreeMap();
+    for (Map.Entry<String, Histogram> entry : routeLatencies.entrySet()) {
+      routesReport.put(entry.getKey(), entry.getValue().getStatistics());
+    }
+    report.put(REPORT_FIELD_ROUTES, routesReport);
+
+    Map<String, Object> backlogReport = Maps.newLinkedHashMap();
+    backlogReport.put("max", backlogMax);
+    backlogReport.put("mean", sequence > 0 ? backlogTotal / (double) sequence : 0.0);
+    report.put(REPORT_FIELD_BACKLOG, backlogReport);
+
+    report.put(REPORT_FIELD_GC, getGarbageCollectionReport(gcStart, getGarbageCollections()));
+    report.put(REPORT_FIELD_METRICS, metricsRegistry.getSnapshot());
+
+    return report;
+  }
+
+  /**
+   * Read the next message from a capture, starting over at the end.
+   *
+   * @param captureReader
+   *          the reader for the capture
+   *
+   * @return the next message, or {@code null} if the capture has no messages
+   */
+  private MessageMap readCapturedMessage(MessageCaptureReader captureReader) {
+    CapturedMessage captured = captureReader.readMessage();
+    if (captured == null) {
+      captureReader.seek(0);
+      captured = captureReader.readMessage();
+    }
+
+    return captured != null ? captured.getMessage() : null;
+  }
+
+  /**
+   * Create a new synthetic message.
+   *
+   * @param route
+   *          the route for the message
+   * @param sequence
+   *          the sequence number of the message
+   * @param payload
+   *          the payload for the message
+   *
+   * @return the message
+   */
+  private MessageMap newSyntheticMessage(String route, long sequence, String payload) {
+    Map<String, Object> content = Maps.newHashMap();
+    content.put(SYNTHETIC_MESSAGE_KEY_SEQUENCE, sequence);
+    content.put(SYNTHETIC_MESSAGE_KEY_PAYLOAD, payload);
+
+    MessageMap message = new MessageMap();
+    message.put("route", route);
+    message.put("type", MessageRouterSupportedMessageTypes.JSON_MESSAGE_TYPE);
+    message.put(StandaloneMessageRouter.MESSAGE_KEY, content);
+
+    return message;
+  }
+
+  /**
+   * Get the garbage collections so far.
+   *
+   * @return the count and time of collections for each collector, indexed by collector name
+   */
+  private Map<String, long[]> getGarbageCollections() {
+    Map<String, long[]> collections = Maps.newTreeMap();
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      collections.put(collector.getName(), new long[] { collector.getCollectionCount(),
+          collector.getCollectionTime() });
+    }
+
+    return collections;
+  }
+
+  /**
+   * Get the report of garbage collections between two points.
+   *
+   * @param start
+   *          the collections at the start
+   * @param end
+   *          the collections at the end
+   *
+   * @return the report for each collector, indexed by collector name
+   */
+  private Map<String, Object> getGarbageCollectionReport(Map<String, long[]> start, Map<String, long[]> end) {
+    Map<String, Object> report = Maps.newTreeMap();
+    for (Map.Entry<String, long[]> entry : end.entrySet()) {
+      long[] startCollections = start.get(entry.getKey());
+      if (startCollections == null) {
+        startCollections = new long[2];
+      }
+
+      Map<String, Object> collectorReport = Maps.newLinkedHashMap();
+      collectorReport.put(REPORT_FIELD_GC_COUNT, entry.getValue()[0] - startCollections[0]);
+      collectorReport.put(REPORT_FIELD_GC_TIME, entry.getValue()[1] - startCollections[1]);
+      report.put(entry.getKey(), collectorReport);
+    }
+
+    return report;
+  }
+
+  /**
+   * Write the report.
+   *
+   * @param report
+   *          the report
+   */
+  private void writeReport(Map<String, Object> report) {
+    File file = reportFile;
+    if (file == null) {
+      file =
+          new File(router.getComponentContext().getActivity().getActivityFilesystem().getLogDirectory(),
+              REPORT_FILE_NAME_DEFAULT);
+    }
+
+    fileSupport.writeFile(file, MAPPER.toString(report));
+    router.getLog().info(
+        String.format("Load generation report written to %s: %s", file.getAbsolutePath(),
+            MAPPER.toString(report.get(REPORT_FIELD_LATENCY))));
+  }
+
+  /**
+   * Set the rate to send messages at.
+   *
+   * @param rate
+   *          the rate, in messages per second across all routes, must be positive and finite
+   */
+  public void setRate(double rate) {
+    if (!isValidRate(rate)) {
+      SimpleInteractiveSpacesException.throwFormattedException("Load generation rate must be positive and finite: %s",
+          rate);
+    }
+
+    this.rate = rate;
+  }
+
+  /**
+   * Can a rate be used by a load generator?
+   *
+   * @param rate
+   *          the rate, in messages per second
+   *
+   * @return {@code true} if the rate is positive and finite
+   */
+  public static boolean isValidRate(double rate) {
+    return rate > 0 && !Double.isInfinite(rate) && !Double.isNaN(rate);
+  }
+
+  /**
+   * Set the size of synthetic message payloads.
+   *
+   * @param messageSize
+   *          the size, in characters
+   */
+  public void setMessageSize(int messageSize) {
+    this.messageSize = messageSize;
+  }
+
+  /**
+   * Set the length of the run.
+   *
+   * @param duration
+   *          the length, in milliseconds
+   */
+  public void setDuration(long duration) {
+    this.duration = duration;
+  }
+
+  /**
+   * Set the routes to send synthetic messages on.
+   *
+   * @param routes
+   *          the routes, empty for all input routes of the activity
+   */
+  public void setRoutes(List<String> routes) {
+    this.routes = Lists.newArrayList(routes);
+  }
+
+  /**
+   * Set the capture to take messages from.
+   *
+   * @param captureFile
+   *          the capture, either binary or JSON lines, {@code null} for synthetic messages
+   */
+  public void setCaptureFile(File captureFile) {
+    this.captureFile = captureFile;
+  }
+
+  /**
+   * Set the file to write the report to.
+   *
+   * @param reportFile
+   *          the report file, {@code null} for {@link #REPORT_FILE_NAME_DEFAULT} in the activity log directory
+   */
+  public void setReportFile(File reportFile) {
+    this.reportFile = reportFile;
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.liveactivity.runtime.standalone.messaging;
+
+import java.io.Closeable;
+
+/**
+ * A reader for a capture of route messages.
+ *
+ * @author Keith M. Hughes
+ */
+public interface MessageCaptureReader extends Closeable {
+
+  /**
+   * Read the next message from the capture.
+   *
+   * @return the next message, or {@code null} if there are no more messages
+   */
+  CapturedMessage readMessage();
+
+  /**
+   * Position the reader so the next message read is the first one captured at or after a given time.
+   *
+   * @param time
+   *          the time, in milliseconds from the start of the capture
+   */
+  void seek(long time);
+
+  @Override
+  void close();
+}
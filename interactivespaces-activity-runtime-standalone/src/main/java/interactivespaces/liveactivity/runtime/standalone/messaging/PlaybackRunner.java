@@ -16,19 +16,17 @@
 
 package interactivespaces.liveactivity.runtime.standalone.messaging;
 
-import interactivespaces.InteractiveSpacesException;
-import interactivespaces.SimpleInteractiveSpacesException;
-import interactivespaces.liveactivity.runtime.standalone.messaging.MessageUtils.MessageMap;
-
-import com.google.common.io.Closeables;
-
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A runner that plays back messages into the message router.
  *
+ * <p>
+ * Messages are scheduled against their capture times rather than the delay since the previous message, so playback
+ * does not drift however long the capture is. Playback can be sped up or slowed down, start part way into the capture,
+ * and loop.
+ *
  * @author Trevor Pering
  */
 class PlaybackRunner implements Runnable {
@@ -38,6 +36,11 @@ class PlaybackRunner implements Runnable {
    */
   public static final int DEFAULT_FINISH_DELAY_MS = 1000;
 
+  /**
+   * The playback speed which plays messages at the rate they were captured.
+   */
+  public static final double PLAYBACK_SPEED_REAL_TIME = 1.0;
+
   /**
    * File containing playback messages.
    */
@@ -46,7 +49,7 @@ class PlaybackRunner implements Runnable {
   /**
    * Reader for processing messages.
    */
-  private final BufferedReader playbackReader;
+  private final MessageCaptureReader playbackReader;
 
   /**
    * {@code true} if messages should be played back on a route.
@@ -59,7 +62,28 @@ class PlaybackRunner implements Runnable {
   private final StandaloneMessageRouter standaloneMessageRouter;
 
   /**
-   * Create a new playback runner.
+   * The playback speed as a multiple of the capture rate. Anything {@code 0} or less plays messages as fast as
+   * possible.
+   */
+  private final double speed;
+
+  /**
+   * The time into the capture to start playback at, in milliseconds.
+   */
+  private final long seekTime;
+
+  /**
+   * {@code true} if playback should start over when the end of the capture is reached.
+   */
+  private final boolean loop;
+
+  /**
+   * {@code true} while the runner should keep playing.
+   */
+  private volatile boolean running = true;
+
+  /**
+   * Create a new playback runner which plays the whole capture once in real time.
    *
    * @param standaloneMessageRouter
    *          router to use for playback
@@ -69,62 +93,124 @@ class PlaybackRunner implements Runnable {
    *          {@code true} if messages should be played back on a route
    */
   public PlaybackRunner(StandaloneMessageRouter standaloneMessageRouter, File playbackFile, boolean onRoute) {
+    this(standaloneMessageRouter, playbackFile, onRoute, PLAYBACK_SPEED_REAL_TIME, 0, false);
+  }
+
+  /**
+   * Create a new playback runner.
+   *
+   * @param standaloneMessageRouter
+   *          router to use for playback
+   * @param playbackFile
+   *          file containing messages, either a binary capture or JSON lines
+   * @param onRoute
+   *          {@code true} if messages should be played back on a route
+   * @param speed
+   *          the playback speed as a multiple of the capture rate, {@code 0} or less to play as fast as possible
+   * @param seekTime
+   *          the time into the capture to start playback at, in milliseconds
+   * @param loop
+   *          {@code true} if playback should start over when the end of the capture is reached
+   */
+  public PlaybackRunner(StandaloneMessageRouter standaloneMessageRouter, File playbackFile, boolean onRoute,
+      double speed, long seekTime, boolean loop) {
     this.standaloneMessageRouter = standaloneMessageRouter;
     this.playbackFile = playbackFile;
     this.onRoute = onRoute;
-    try {
-      playbackReader = new BufferedReader(new FileReader(playbackFile));
-    } catch (Exception e) {
-      throw new InteractiveSpacesException("Could not create playback runner", e);
-    }
+    this.speed = speed;
+    this.seekTime = seekTime;
+    this.loop = loop;
+
+    playbackReader =
+        BinaryMessageCapture.isCapture(playbackFile) ? new BinaryMessageCaptureReader(playbackFile)
+            : new JsonMessageCaptureReader(playbackFile);
   }
 
   @Override
   public void run() {
     try {
-      String line;
-      while ((line = playbackReader.readLine()) != null) {
-        try {
-          line = line.trim();
-          if (line.startsWith("#") || line.isEmpty()) {
-            continue;
-          }
-          MessageMap messageObject = MessageMap.fromString(line);
-          Object timeDelay = messageObject.get(StandaloneMessageRouter.TIME_DELAY_KEY);
-          if (!(timeDelay instanceof Integer)) {
-            throw new SimpleInteractiveSpacesException(String.format("Message must have an Integer field '%s': %s",
-                StandaloneMessageRouter.TIME_DELAY_KEY, messageObject));
-          }
-          long deltaTime = (Integer) timeDelay;
-          standaloneMessageRouter.getLog().debug(String.format("Playback next message in %dms...", deltaTime));
-          Thread.sleep(deltaTime);
-          standaloneMessageRouter.getLog().debug("Playback message " + line);
-          standaloneMessageRouter.processMessage(messageObject, onRoute);
-        } catch (Exception e) {
-          standaloneMessageRouter.handleError("While processing playback record", e);
+      boolean playing = true;
+      while (playing) {
+        int played = playCapture();
+        playing = loop && running;
+        if (playing && played == 0) {
+          // Another pass would play nothing too, so looping would just spin.
+          standaloneMessageRouter.getLog().warn(
+              String.format("No messages played from %s, not looping.", playbackFile.getAbsolutePath()));
+          playing = false;
         }
       }
       playbackReader.close();
 
       // Let last messages clear system.
       long finishDelayMs = DEFAULT_FINISH_DELAY_MS;
-      while (finishDelayMs > 0) {
+      while (running && finishDelayMs > 0) {
         standaloneMessageRouter.getLog().info(
             String.format("Done with playback, waiting %sms for completion.", finishDelayMs));
         Thread.sleep(finishDelayMs);
         finishDelayMs = standaloneMessageRouter.getFinishDelta();
       }
 
-      standaloneMessageRouter.injectionFinished();
+      if (running) {
+        standaloneMessageRouter.injectionFinished();
+      }
     } catch (Exception e) {
       standaloneMessageRouter.handleError("While processing playback file " + playbackFile.getAbsolutePath(), e);
     }
   }
 
+  /**
+   * Play the capture once from the seek time.
+   *
+   * <p>
+   * The pass ends early if a message cannot be read, since the reader may not be able to get past it.
+   *
+   * @return the number of messages played
+   *
+   * @throws InterruptedException
+   *           the playback was interrupted
+   */
+  private int playCapture() throws InterruptedException {
+    playbackReader.seek(seekTime);
+    long playbackStart = System.nanoTime();
+
+    int played = 0;
+    while (running) {
+      CapturedMessage message;
+      try {
+        message = playbackReader.readMessage();
+        if (message == null) {
+          break;
+        }
+      } catch (Exception e) {
+        standaloneMessageRouter.handleError("While reading playback record, ending playback pass", e);
+        break;
+      }
+
+      if (speed > 0) {
+        long playbackTime =
+            playbackStart + (long) (TimeUnit.MILLISECONDS.toNanos(message.getTime() - seekTime) / speed);
+        long delay = playbackTime - System.nanoTime();
+        if (delay > 0) {
+          TimeUnit.NANOSECONDS.sleep(delay);
+        }
+      }
+
+      try {
+        standaloneMessageRouter.processMessage(message.getMessage(), onRoute);
+      } catch (Exception e) {
+        standaloneMessageRouter.handleError("While processing playback record", e);
+      }
+      played++;
+    }
+
+    return played;
+  }
+
   /**
    * Stop the playback runner.
    */
   public void stop() {
-    Closeables.closeQuietly(playbackReader);
+    running = false;
   }
 }
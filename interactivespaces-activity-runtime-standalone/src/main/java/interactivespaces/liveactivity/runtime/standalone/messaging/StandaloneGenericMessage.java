@@ -35,6 +35,11 @@ public class StandaloneGenericMessage implements GenericMessage {
    */
   private String message;
 
+  /**
+   * The route latency trace for the message.
+   */
+  private String trace = "";
+
   @Override
   public String getType() {
     return type;
@@ -55,6 +60,16 @@ public class StandaloneGenericMessage implements GenericMessage {
     this.message = message;
   }
 
+  @Override
+  public String getTrace() {
+    return trace;
+  }
+
+  @Override
+  public void setTrace(String trace) {
+    this.trace = trace;
+  }
+
   @Override
   public RawMessage toRawMessage() {
     throw new UnsupportedOperationException();
@@ -38,9 +38,11 @@ import com.google.common.collect.Sets;
 
 import interactivespaces_msgs.GenericMessage;
 import org.apache.commons.logging.Log;
+import org.ros.node.topic.TransportHints;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.Map;
 import java.util.Set;
@@ -77,6 +79,26 @@ public class StandaloneMessageRouter extends BaseRosMessageRouterActivityCompone
    */
   public static final String MESSAGE_KEY = "message";
 
+  /**
+   * Capture format for JSON lines with the delay since the previous message.
+   */
+  public static final String CAPTURE_FORMAT_JSON = "json";
+
+  /**
+   * Capture format for the indexed binary capture.
+   */
+  public static final String CAPTURE_FORMAT_BINARY = "binary";
+
+  /**
+   * Base name of the file for tracing received messages.
+   */
+  public static final String TRACE_FILE_NAME_RECEIVE = "messages.recv";
+
+  /**
+   * Base name of the file for tracing sent messages.
+   */
+  public static final String TRACE_FILE_NAME_SEND = "messages.send";
+
   /**
    * Router for, well, route messages.
    */
@@ -112,6 +134,21 @@ public class StandaloneMessageRouter extends BaseRosMessageRouterActivityCompone
    */
   private PrintWriter sendTraceWriter;
 
+  /**
+   * {@code true} if traced messages are written as a binary capture rather than JSON lines.
+   */
+  private boolean binaryCapture;
+
+  /**
+   * Binary capture of received messages.
+   */
+  private BinaryMessageCaptureWriter receiveCaptureWriter;
+
+  /**
+   * Binary capture of sent messages.
+   */
+  private BinaryMessageCaptureWriter sendCaptureWriter;
+
   /**
    * Runner for checking produced messages.
    */
@@ -122,6 +159,16 @@ public class StandaloneMessageRouter extends BaseRosMessageRouterActivityCompone
    */
   private PlaybackRunner playbackRunner;
 
+  /**
+   * Generator for load on the activity.
+   */
+  private LoadGenerator loadGenerator;
+
+  /**
+   * {@code true} if the load generator has been started.
+   */
+  private boolean loadGeneratorStarted;
+
   /**
    * The activity that this router is supporting.
    */
@@ -196,6 +243,17 @@ public class StandaloneMessageRouter extends BaseRosMessageRouterActivityCompone
     if (playbackRunner != null) {
       getComponentContext().getActivity().getSpaceEnvironment().getExecutorService().submit(playbackRunner);
     }
+    startLoadGenerator();
+  }
+
+  /**
+   * Start the load generator, if there is one and the router is running.
+   */
+  private synchronized void startLoadGenerator() {
+    if (loadGenerator != null && !loadGeneratorStarted && isComponentRunning()) {
+      loadGeneratorStarted = true;
+      getComponentContext().getActivity().getSpaceEnvironment().getExecutorService().submit(loadGenerator);
+    }
   }
 
   /**
@@ -217,10 +275,15 @@ public class StandaloneMessageRouter extends BaseRosMessageRouterActivityCompone
       if (playbackRunner != null) {
         playbackRunner.stop();
       }
+      if (loadGenerator != null) {
+        loadGenerator.stop();
+      }
+      closeTraceWriters();
     } finally {
       activity = null;
       listener = null;
       playbackRunner = null;
+      loadGenerator = null;
     }
   }
 
@@ -244,11 +307,22 @@ public class StandaloneMessageRouter extends BaseRosMessageRouterActivityCompone
       });
 
       if (!messageWhiteList.isEmpty()) {
-        final boolean autoFlush = true;
-        File receiveTraceFile = new File(activity.getActivityFilesystem().getLogDirectory(), "messages.recv");
-        receiveTraceWriter = new PrintWriter(new FileOutputStream(receiveTraceFile), autoFlush);
-        File sendTraceFile = new File(activity.getActivityFilesystem().getLogDirectory(), "messages.send");
-        sendTraceWriter = new PrintWriter(new FileOutputStream(sendTraceFile), autoFlush);
+        File logDirectory = activity.getActivityFilesystem().getLogDirectory();
+        if (binaryCapture) {
+          long startTime = getCurrentTimestamp();
+          receiveCaptureWriter =
+              new BinaryMessageCaptureWriter(new File(logDirectory, TRACE_FILE_NAME_RECEIVE
+                  + BinaryMessageCapture.FILE_EXTENSION_CAPTURE), startTime);
+          sendCaptureWriter =
+              new BinaryMessageCaptureWriter(new File(logDirectory, TRACE_FILE_NAME_SEND
+                  + BinaryMessageCapture.FILE_EXTENSION_CAPTURE), startTime);
+        } else {
+          final boolean autoFlush = true;
+          File receiveTraceFile = new File(logDirectory, TRACE_FILE_NAME_RECEIVE);
+          receiveTraceWriter = new PrintWriter(new FileOutputStream(receiveTraceFile), autoFlush);
+          File sendTraceFile = new File(logDirectory, TRACE_FILE_NAME_SEND);
+          sendTraceWriter = new PrintWriter(new FileOutputStream(sendTraceFile), autoFlush);
+        }
       }
     } catch (Exception e) {
       throw new SimpleInteractiveSpacesException("While creating standalone message route", e);
@@ -318,6 +392,15 @@ public class StandaloneMessageRouter extends BaseRosMessageRouterActivityCompone
     traceMessage.remove(SOURCE_UUID_KEY);
     traceMessage.remove(SEGMENT_KEY);
 
+    if (binaryCapture) {
+      try {
+        (isSend ? sendCaptureWriter : receiveCaptureWriter).writeMessage(getCurrentTimestamp(), traceMessage);
+      } catch (IOException e) {
+        throw new SimpleInteractiveSpacesException("While writing message capture", e);
+      }
+      return;
+    }
+
     PrintWriter traceWriter = isSend ? sendTraceWriter : receiveTraceWriter;
     long now = getCurrentTimestamp();
     int timeIndex = isSend ? 0 : 1;
@@ -329,6 +412,33 @@ public class StandaloneMessageRouter extends BaseRosMessageRouterActivityCompone
     traceWriter.println(MAPPER.toString(traceMessage));
   }
 
+  /**
+   * Close all message trace writers.
+   */
+  private void closeTraceWriters() {
+    if (receiveTraceWriter != null) {
+      receiveTraceWriter.close();
+      receiveTraceWriter = null;
+    }
+    if (sendTraceWriter != null) {
+      sendTraceWriter.close();
+      sendTraceWriter = null;
+    }
+    try {
+      if (receiveCaptureWriter != null) {
+        receiveCaptureWriter.close();
+      }
+      if (sendCaptureWriter != null) {
+        sendCaptureWriter.close();
+      }
+    } catch (IOException e) {
+      getLog().error("Could not close message capture", e);
+    } finally {
+      receiveCaptureWriter = null;
+      sendCaptureWriter = null;
+    }
+  }
+
   /**
    * Make a trace message.
    *
@@ -425,10 +535,44 @@ public class StandaloneMessageRouter extends BaseRosMessageRouterActivityCompone
    *          {@code true} if messages should be sent out on a route
    */
   public void playback(String playbackPath, boolean onRoute) {
+    playback(playbackPath, onRoute, PlaybackRunner.PLAYBACK_SPEED_REAL_TIME, 0, false);
+  }
+
+  /**
+   * Setup message playback.
+   *
+   * @param playbackPath
+   *          path of file containing playback messages, either a binary capture or JSON lines
+   * @param onRoute
+   *          {@code true} if messages should be sent out on a route
+   * @param speed
+   *          the playback speed as a multiple of the capture rate, {@code 0} or less to play as fast as possible
+   * @param seekTime
+   *          the time into the capture to start playback at, in milliseconds
+   * @param loop
+   *          {@code true} if playback should start over when the end of the capture is reached
+   */
+  public void playback(String playbackPath, boolean onRoute, double speed, long seekTime, boolean loop) {
     if (playbackRunner != null) {
       throw new InteractiveSpacesException("Multiple playback runners activated");
     }
-    playbackRunner = new PlaybackRunner(this, new File(playbackPath), onRoute);
+    playbackRunner = new PlaybackRunner(this, new File(playbackPath), onRoute, speed, seekTime, loop);
+  }
+
+  /**
+   * Setup load generation.
+   *
+   * @param generator
+   *          the generator for the load
+   */
+  public synchronized void generateLoad(LoadGenerator generator) {
+    if (loadGenerator != null) {
+      throw new InteractiveSpacesException("Multiple load generators activated");
+    }
+    loadGenerator = generator;
+
+    // The activity may already have started up.
+    startLoadGenerator();
   }
 
   /**
@@ -485,6 +629,22 @@ public class StandaloneMessageRouter extends BaseRosMessageRouterActivityCompone
     messageWhiteList = MessageUtils.readMessageList(traceFilterFile);
   }
 
+  /**
+   * Set the format traced messages are written in.
+   *
+   * @param captureFormat
+   *          either {@link #CAPTURE_FORMAT_JSON} or {@link #CAPTURE_FORMAT_BINARY}
+   */
+  public void setCaptureFormat(String captureFormat) {
+    if (CAPTURE_FORMAT_BINARY.equals(captureFormat)) {
+      binaryCapture = true;
+    } else if (CAPTURE_FORMAT_JSON.equals(captureFormat)) {
+      binaryCapture = false;
+    } else {
+      throw new SimpleInteractiveSpacesException("Unknown message capture format " + captureFormat);
+    }
+  }
+
   /**
    * Get the finish time delta from current time until a finish check should be performed.
    *
@@ -543,6 +703,12 @@ public class StandaloneMessageRouter extends BaseRosMessageRouterActivityCompone
     }
   }
 
+  @Override
+  public void registerInputChannelTopic(String inputChannelId, Set<String> topicNames, TransportHints transportHints) {
+    // The standalone router has only one transport, so the hints do not apply.
+    registerInputChannelTopic(inputChannelId, topicNames);
+  }
+
   @Override
   public synchronized void clearAllChannelTopics() {
     getComponentContext().getActivity().getLog().warn("Clearing all channel topics");
@@ -565,6 +731,15 @@ public class StandaloneMessageRouter extends BaseRosMessageRouterActivityCompone
     return Sets.newHashSet(inputRoutesToChannels.keySet());
   }
 
+  /**
+   * Get the routes the activity has registered for input.
+   *
+   * @return the input routes
+   */
+  Set<String> getInputRoutes() {
+    return inputRoutesToChannels.keySet();
+  }
+
   /**
    * A route message publisher for the standalone publisher.
    *
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.liveactivity.runtime.standalone.messaging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import interactivespaces.liveactivity.runtime.standalone.messaging.MessageUtils.MessageMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+/**
+ * Tests for the binary message capture writer and reader.
+ *
+ * @author Keith M. Hughes
+ */
+public class BinaryMessageCaptureTest {
+
+  private static final long START_TIME = 1000000;
+
+  private File captureFile;
+
+  @Before
+  public void setup() throws Exception {
+    captureFile = File.createTempFile("messages", BinaryMessageCapture.FILE_EXTENSION_CAPTURE);
+  }
+
+  @After
+  public void cleanup() {
+    captureFile.delete();
+    BinaryMessageCapture.getIndexFile(captureFile).delete();
+  }
+
+  /**
+   * Test that messages are read back in order with their times.
+   */
+  @Test
+  public void testRoundTrip() throws Exception {
+    writeCapture(100, 250);
+
+    assertTrue(BinaryMessageCapture.isCapture(captureFile));
+
+    BinaryMessageCaptureReader reader = new BinaryMessageCaptureReader(captureFile);
+    try {
+      assertEquals(START_TIME, reader.getStartTime());
+      for (int i = 0; i < 100; i++) {
+        CapturedMessage message = reader.readMessage();
+        assertEquals(i * 250L, message.getTime());
+        assertEquals("route" + (i % 3), message.getMessage().get("route"));
+        assertEquals(i, message.getMessage().get("message"));
+      }
+      assertNull(reader.readMessage());
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Test seeking with the index and with an index rebuilt from the capture.
+   */
+  @Test
+  public void testSeek() throws Exception {
+    writeCapture(100, 250);
+    assertSeek();
+
+    assertTrue(BinaryMessageCapture.getIndexFile(captureFile).delete());
+    assertSeek();
+  }
+
+  /**
+   * Test that a record cut short ends the capture.
+   */
+  @Test
+  public void testTruncated() throws Exception {
+    writeCapture(10, 250);
+
+    RandomAccessFile file = new RandomAccessFile(captureFile, "rw");
+    file.setLength(file.length() - 2);
+    file.close();
+
+    BinaryMessageCaptureReader reader = new BinaryMessageCaptureReader(captureFile);
+    try {
+      int count = 0;
+      while (reader.readMessage() != null) {
+        count++;
+      }
+      assertEquals(9, count);
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Test that a non-capture file is recognized.
+   */
+  @Test
+  public void testNotCapture() throws Exception {
+    assertFalse(BinaryMessageCapture.isCapture(captureFile));
+  }
+
+  /**
+   * Seek to several times in the capture and check the message found.
+   */
+  private void assertSeek() {
+    BinaryMessageCaptureReader reader = new BinaryMessageCaptureReader(captureFile);
+    try {
+      reader.seek(10000);
+      assertEquals(10000, reader.readMessage().getTime());
+      assertEquals(10250, reader.readMessage().getTime());
+
+      reader.seek(3100);
+      assertEquals(3250, reader.readMessage().getTime());
+
+      reader.seek(0);
+      assertEquals(0, reader.readMessage().getTime());
+
+      reader.seek(100000);
+      assertNull(reader.readMessage());
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Write a capture.
+   *
+   * @param numberMessages
+   *          the number of messages to write
+   * @param interval
+   *          the time between messages, in milliseconds
+   */
+  private void writeCapture(int numberMessages, long interval) throws Exception {
+    BinaryMessageCaptureWriter writer = new BinaryMessageCaptureWriter(captureFile, START_TIME);
+    try {
+      for (int i = 0; i < numberMessages; i++) {
+        MessageMap message = new MessageMap();
+        message.put("route", "route" + (i % 3));
+        message.put("type", "json");
+        message.put("message", i);
+        writer.writeMessage(START_TIME + i * interval, message);
+      }
+    } finally {
+      writer.close();
+    }
+  }
+}
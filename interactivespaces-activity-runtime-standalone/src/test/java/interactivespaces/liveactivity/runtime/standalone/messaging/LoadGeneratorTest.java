@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.liveactivity.runtime.standalone.messaging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import interactivespaces.SimpleInteractiveSpacesException;
+import interactivespaces.activity.SupportedActivity;
+import interactivespaces.activity.component.ActivityComponentContext;
+import interactivespaces.activity.component.route.MessageRouterSupportedMessageTypes;
+import interactivespaces.liveactivity.runtime.standalone.messaging.MessageUtils.MessageMap;
+import interactivespaces.util.data.json.JsonMapper;
+import interactivespaces.util.data.json.StandardJsonMapper;
+import interactivespaces.util.io.FileSupport;
+import interactivespaces.util.io.FileSupportImpl;
+import interactivespaces.util.metrics.Histogram;
+import interactivespaces.util.metrics.StandardMetricsRegistry;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.apache.commons.logging.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for the {@link LoadGenerator}.
+ *
+ * @author Keith M. Hughes
+ */
+public class LoadGeneratorTest {
+
+  private static final JsonMapper MAPPER = StandardJsonMapper.INSTANCE;
+
+  private final FileSupport fileSupport = FileSupportImpl.INSTANCE;
+
+  private File baseDir;
+
+  private File reportFile;
+
+  private StandaloneMessageRouter router;
+
+  private AtomicLong numberMessagesProcessed;
+
+  private LoadGenerator generator;
+
+  @Before
+  public void setup() {
+    baseDir = fileSupport.createTempDirectory(new File(System.getProperty("java.io.tmpdir")), "load");
+    reportFile = new File(baseDir, LoadGenerator.REPORT_FILE_NAME_DEFAULT);
+
+    SupportedActivity activity = mock(SupportedActivity.class);
+    when(activity.getUuid()).thenReturn("activity");
+    ActivityComponentContext componentContext = mock(ActivityComponentContext.class);
+    when(componentContext.<SupportedActivity> getActivity()).thenReturn(activity);
+
+    router = mock(StandaloneMessageRouter.class);
+    when(router.getLog()).thenReturn(mock(Log.class));
+    when(router.getComponentContext()).thenReturn(componentContext);
+
+    // Behave like the real router, which rejects messages without a route.
+    numberMessagesProcessed = new AtomicLong();
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        numberMessagesProcessed.incrementAndGet();
+        if (((MessageMap) invocation.getArguments()[0]).get("route") == null) {
+          throw new IllegalStateException("Missing route in message");
+        }
+        return null;
+      }
+    }).when(router).processMessage(any(MessageMap.class), anyBoolean());
+
+    generator = new LoadGenerator(router, new StandardMetricsRegistry());
+    generator.setReportFile(reportFile);
+  }
+
+  @After
+  public void cleanup() {
+    fileSupport.deleteDirectoryContents(baseDir);
+    fileSupport.delete(baseDir);
+  }
+
+  /**
+   * Test that messages are sent at the requested rate, round robin across the routes, and the report adds up.
+   */
+  @Test
+  public void testRatePacing() {
+    generator.setRate(200);
+    generator.setDuration(500);
+    generator.setRoutes(Lists.newArrayList("a", "b"));
+
+    Map<String, Object> report = runGenerator();
+
+    // A slow machine can lose the last message or so to the end of the run.
+    long messages = getLong(report, LoadGenerator.REPORT_FIELD_MESSAGES);
+    assertTrue("Messages sent was " + messages, messages >= 95 && messages <= 100);
+    assertEquals(messages, numberMessagesProcessed.get());
+    assertEquals(0, getLong(report, LoadGenerator.REPORT_FIELD_ERRORS));
+    double rateAchieved = ((Number) report.get(LoadGenerator.REPORT_FIELD_RATE_ACHIEVED)).doubleValue();
+    assertTrue("Rate achieved was " + rateAchieved, rateAchieved > 150 && rateAchieved < 250);
+    assertTrue(getLong(report, LoadGenerator.REPORT_FIELD_DURATION) >= 450);
+
+    Map<String, Object> latency = getMap(report, LoadGenerator.REPORT_FIELD_LATENCY);
+    assertEquals(messages, getLong(latency, Histogram.STATISTICS_FIELD_COUNT));
+    Map<String, Object> routes = getMap(report, LoadGenerator.REPORT_FIELD_ROUTES);
+    assertEquals(2, routes.size());
+    assertEquals((messages + 1) / 2, getLong(getMap(routes, "a"), Histogram.STATISTICS_FIELD_COUNT));
+    assertEquals(messages / 2, getLong(getMap(routes, "b"), Histogram.STATISTICS_FIELD_COUNT));
+  }
+
+  /**
+   * Test that captured messages without a route are counted as errors and do not stop the run.
+   */
+  @Test
+  public void testCapturedMessageWithoutRoute() {
+    File captureFile = new File(baseDir, "capture.json");
+    fileSupport.writeFile(captureFile, newCapturedMessage("a") + "\n" + newCapturedMessage(null) + "\n");
+    generator.setCaptureFile(captureFile);
+    when(router.getInputRoutes()).thenReturn(Sets.newHashSet("a"));
+    generator.setRate(100);
+    generator.setDuration(200);
+
+    Map<String, Object> report = runGenerator();
+
+    // The capture alternates between the two messages.
+    long messages = getLong(report, LoadGenerator.REPORT_FIELD_MESSAGES);
+    assertTrue(messages > 1);
+    assertEquals(messages / 2, getLong(report, LoadGenerator.REPORT_FIELD_ERRORS));
+    Map<String, Object> routes = getMap(report, LoadGenerator.REPORT_FIELD_ROUTES);
+    assertEquals((messages + 1) / 2, getLong(getMap(routes, "a"), Histogram.STATISTICS_FIELD_COUNT));
+    Map<String, Object> noRoute = getMap(routes, LoadGenerator.REPORT_ROUTE_NONE);
+    assertEquals(messages / 2, getLong(noRoute, Histogram.STATISTICS_FIELD_COUNT));
+  }
+
+  /**
+   * Test that a rate too high to pace still sends messages rather than dividing by zero.
+   */
+  @Test
+  public void testUnpaceableRate() {
+    generator.setRate(1e12);
+    generator.setDuration(20);
+    generator.setRoutes(Lists.newArrayList("a"));
+
+    Map<String, Object> report = runGenerator();
+
+    assertTrue(getLong(report, LoadGenerator.REPORT_FIELD_MESSAGES) > 0);
+    assertEquals(numberMessagesProcessed.get(), getLong(report, LoadGenerator.REPORT_FIELD_MESSAGES));
+  }
+
+  /**
+   * Test that rates which cannot be paced are rejected.
+   */
+  @Test
+  public void testInvalidRates() {
+    for (double rate : new double[] { 0, -1, Double.NaN, Double.POSITIVE_INFINITY }) {
+      try {
+        generator.setRate(rate);
+        fail("Rate " + rate + " was accepted");
+      } catch (SimpleInteractiveSpacesException e) {
+        // Expected.
+      }
+    }
+  }
+
+  /**
+   * Run the generator and read its report.
+   *
+   * @return the report
+   */
+  private Map<String, Object> runGenerator() {
+    generator.run();
+
+    verify(router, never()).handleError(anyString(), any(Throwable.class));
+    verify(router).injectionFinished();
+
+    return MAPPER.parseObject(fileSupport.readFile(reportFile));
+  }
+
+  /**
+   * Create a line of a JSON message capture.
+   *
+   * @param route
+   *          the route for the message, can be {@code null}
+   *
+   * @return the line
+   */
+  private String newCapturedMessage(String route) {
+    Map<String, Object> message = Maps.newHashMap();
+    message.put(StandaloneMessageRouter.TIME_DELAY_KEY, 10);
+    if (route != null) {
+      message.put("route", route);
+    }
+    message.put("type", MessageRouterSupportedMessageTypes.JSON_MESSAGE_TYPE);
+    message.put(StandaloneMessageRouter.MESSAGE_KEY, Maps.newHashMap());
+
+    return MAPPER.toString(message);
+  }
+
+  /**
+   * Get a number from a map as a long.
+   *
+   * @param map
+   *          the map
+   * @param key
+   *          the key of the number
+   *
+   * @return the number
+   */
+  private long getLong(Map<String, Object> map, String key) {
+    return ((Number) map.get(key)).longValue();
+  }
+
+  /**
+   * Get a map from a map.
+   *
+   * @param map
+   *          the map
+   * @param key
+   *          the key of the map
+   *
+   * @return the map
+   */
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> getMap(Map<String, Object> map, String key) {
+    return (Map<String, Object>) map.get(key);
+  }
+}
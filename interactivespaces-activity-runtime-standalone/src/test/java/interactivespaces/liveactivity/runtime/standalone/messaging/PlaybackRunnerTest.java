@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.liveactivity.runtime.standalone.messaging;
+
+import static org.junit.Assert.assertFalse;
+
+import interactivespaces.liveactivity.runtime.standalone.messaging.MessageUtils.MessageMap;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.io.Files;
+
+import org.apache.commons.logging.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.File;
+
+/**
+ * Tests for the {@link PlaybackRunner}.
+ *
+ * @author Keith M. Hughes
+ */
+public class PlaybackRunnerTest {
+
+  private File captureFile;
+
+  private StandaloneMessageRouter router;
+
+  @Before
+  public void setup() throws Exception {
+    captureFile = File.createTempFile("messages", ".json");
+
+    router = Mockito.mock(StandaloneMessageRouter.class);
+    Mockito.when(router.getLog()).thenReturn(Mockito.mock(Log.class));
+    Mockito.when(router.getFinishDelta()).thenReturn(0L);
+  }
+
+  @After
+  public void cleanup() {
+    captureFile.delete();
+  }
+
+  /**
+   * Test that looping an empty capture finishes instead of spinning.
+   */
+  @Test
+  public void testLoopEmptyCapture() throws Exception {
+    writeCapture("# No messages");
+
+    play(0, true);
+
+    Mockito.verify(router).injectionFinished();
+  }
+
+  /**
+   * Test that looping with a seek past the end of the capture finishes instead of spinning.
+   */
+  @Test
+  public void testLoopSeekPastEnd() throws Exception {
+    writeCapture("{\"delay\": 0, \"route\": \"a\"}", "{\"delay\": 100, \"route\": \"a\"}");
+
+    play(10000, true);
+
+    Mockito.verify(router, Mockito.never()).processMessage(Mockito.any(MessageMap.class), Mockito.anyBoolean());
+    Mockito.verify(router).injectionFinished();
+  }
+
+  /**
+   * Test that a message which cannot be read ends the playback pass.
+   */
+  @Test
+  public void testReadErrorEndsPass() throws Exception {
+    writeCapture("{\"delay\": 0, \"route\": \"a\"}", "{\"route\": \"a\"}", "{\"delay\": 0, \"route\": \"a\"}");
+
+    play(0, false);
+
+    Mockito.verify(router, Mockito.times(1)).processMessage(Mockito.any(MessageMap.class), Mockito.anyBoolean());
+    Mockito.verify(router).handleError(Mockito.anyString(), Mockito.any(Throwable.class));
+    Mockito.verify(router).injectionFinished();
+  }
+
+  /**
+   * Play the capture as fast as possible and wait for the runner to finish.
+   *
+   * @param seekTime
+   *          the time into the capture to start playback at, in milliseconds
+   * @param loop
+   *          {@code true} if playback should loop
+   */
+  private void play(long seekTime, boolean loop) throws Exception {
+    PlaybackRunner runner = new PlaybackRunner(router, captureFile, false, 0, seekTime, loop);
+    Thread thread = new Thread(runner);
+    thread.start();
+    thread.join(5000);
+
+    runner.stop();
+    assertFalse("Playback did not finish", thread.isAlive());
+  }
+
+  /**
+   * Write a JSON capture.
+   *
+   * @param lines
+   *          the lines of the capture
+   */
+  private void writeCapture(String... lines) throws Exception {
+    Files.write(Joiner.on('\n').join(lines), captureFile, Charsets.UTF_8);
+  }
+}
@@ -32,4 +32,9 @@ public class BaseLiveActivityRuntimeListener implements LiveActivityRuntimeListe
   public void onLiveActivityRuntimeShutdown(LiveActivityRuntime runtime) {
     // Default is do nothing
   }
+
+  @Override
+  public void onLiveActivityStartupTime(LiveActivityRuntime runtime, LiveActivityRunner runner, long startupTime) {
+    // Default is do nothing
+  }
 }
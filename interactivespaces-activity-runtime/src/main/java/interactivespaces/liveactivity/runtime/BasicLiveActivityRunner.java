@@ -374,6 +374,11 @@ public class BasicLiveActivityRunner implements LiveActivityRunner {
     return activityWrapper;
   }
 
+  @Override
+  public LiveActivityConfiguration getConfiguration() {
+    return configuration;
+  }
+
   /**
    * Get the instance lock.
    *
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.liveactivity.runtime;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.apache.commons.logging.Log;
+
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Performs an action on a collection of live activity runners, running independent runners concurrently while
+ * respecting ordering constraints between them.
+ *
+ * <p>
+ * A runner is only handed to the action once the action has completed for every runner it depends on. Dependencies
+ * on runners which are not part of the collection are ignored. If the dependencies contain a cycle, the cycle is
+ * logged and broken by performing the action on the blocked runners in their original order.
+ *
+ * <p>
+ * With a parallelism of {@code 1} the action is performed in the calling thread.
+ *
+ * @author Keith M. Hughes
+ */
+public class DependencyOrderedLiveActivityExecutor {
+
+  /**
+   * An action to perform on a live activity runner.
+   *
+   * @author Keith M. Hughes
+   */
+  public interface LiveActivityRunnerAction {
+
+    /**
+     * Perform the action.
+     *
+     * @param runner
+     *          the runner to perform the action on
+     */
+    void perform(LiveActivityRunner runner);
+  }
+
+  /**
+   * The executor service for running actions concurrently.
+   */
+  private final ExecutorService executorService;
+
+  /**
+   * The maximum number of actions which can be running at the same time.
+   */
+  private final int parallelism;
+
+  /**
+   * The log to use.
+   */
+  private final Log log;
+
+  /**
+   * Construct a new executor.
+   *
+   * @param executorService
+   *          the executor service for running actions concurrently
+   * @param parallelism
+   *          the maximum number of actions which can be running at the same time
+   * @param log
+   *          the log to use
+   */
+  public DependencyOrderedLiveActivityExecutor(ExecutorService executorService, int parallelism, Log log) {
+    this.executorService = executorService;
+    this.parallelism = Math.max(1, parallelism);
+    this.log = log;
+  }
+
+  /**
+   * Perform an action on all runners, waiting until the action has completed for every runner.
+   *
+   * @param runners
+   *          the runners to perform the action on
+   * @param dependencies
+   *          map of runner UUID to the UUIDs of the runners the action must complete for first, runners without
+   *          dependencies need not be in the map
+   * @param action
+   *          the action to perform
+   *
+   * @throws InterruptedException
+   *           the wait for the actions was interrupted
+   */
+  public void execute(Collection<LiveActivityRunner> runners, Map<String, Set<String>> dependencies,
+      final LiveActivityRunnerAction action) throws InterruptedException {
+    Map<String, LiveActivityRunner> members = Maps.newLinkedHashMap();
+    for (LiveActivityRunner runner : runners) {
+      members.put(runner.getUuid(), runner);
+    }
+
+    Map<String, Integer> blockingCounts = Maps.newHashMap();
+    Map<String, List<String>> dependents = Maps.newHashMap();
+    Deque<String> ready = Lists.newLinkedList();
+    for (String uuid : members.keySet()) {
+      int blockingCount = 0;
+      Set<String> runnerDependencies = dependencies.get(uuid);
+      if (runnerDependencies != null) {
+        for (String dependency : runnerDependencies) {
+          if (!dependency.equals(uuid) && members.containsKey(dependency)) {
+            blockingCount++;
+            List<String> dependencyDependents = dependents.get(dependency);
+            if (dependencyDependents == null) {
+              dependencyDependents = Lists.newArrayList();
+              dependents.put(dependency, dependencyDependents);
+            }
+            dependencyDependents.add(uuid);
+          }
+        }
+      }
+
+      blockingCounts.put(uuid, blockingCount);
+      if (blockingCount == 0) {
+        ready.add(uuid);
+      }
+    }
+
+    final BlockingQueue<String> completed = new LinkedBlockingQueue<String>();
+    int numberInProgress = 0;
+    int numberRemaining = members.size();
+    while (numberRemaining > 0) {
+      while (numberInProgress < parallelism && !ready.isEmpty()) {
+        final String uuid = ready.removeFirst();
+        final LiveActivityRunner runner = members.get(uuid);
+        blockingCounts.remove(uuid);
+        numberInProgress++;
+
+        Runnable task = new Runnable() {
+          @Override
+          public void run() {
+            try {
+              action.perform(runner);
+            } catch (Throwable e) {
+              log.error(String.format("Error while performing action on live activity %s", uuid), e);
+            } finally {
+              completed.add(uuid);
+            }
+          }
+        };
+        if (parallelism == 1) {
+          task.run();
+        } else {
+          executorService.submit(task);
+        }
+      }
+
+      if (numberInProgress == 0) {
+        // Nothing can run, so whatever is left is in a dependency cycle.
+        String blocked = null;
+        for (String uuid : members.keySet()) {
+          if (blockingCounts.containsKey(uuid)) {
+            blocked = uuid;
+            break;
+          }
+        }
+        log.error(String.format("Live activities %s have cyclic ordering constraints, ignoring the constraints of %s",
+            blockingCounts.keySet(), blocked));
+        ready.add(blocked);
+        continue;
+      }
+
+      String finished = completed.take();
+      numberInProgress--;
+      numberRemaining--;
+
+      List<String> finishedDependents = dependents.get(finished);
+      if (finishedDependents != null) {
+        for (String dependent : finishedDependents) {
+          Integer blockingCount = blockingCounts.get(dependent);
+          if (blockingCount != null) {
+            blockingCount--;
+            blockingCounts.put(dependent, blockingCount);
+            if (blockingCount == 0) {
+              ready.add(dependent);
+            }
+          }
+        }
+      }
+    }
+  }
+}
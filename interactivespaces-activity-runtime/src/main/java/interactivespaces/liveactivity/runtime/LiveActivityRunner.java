@@ -21,6 +21,7 @@ import interactivespaces.activity.ActivityControl;
 import interactivespaces.activity.ActivityState;
 import interactivespaces.activity.ActivityStatus;
 import interactivespaces.liveactivity.runtime.activity.wrapper.ActivityWrapper;
+import interactivespaces.liveactivity.runtime.configuration.LiveActivityConfiguration;
 
 import java.util.Map;
 
@@ -105,6 +106,13 @@ public interface LiveActivityRunner extends ActivityControl {
    */
   ActivityWrapper getActivityWrapper();
 
+  /**
+   * Get the configuration for the live activity in the runner.
+   *
+   * @return the configuration
+   */
+  LiveActivityConfiguration getConfiguration();
+
   /**
    * Get the display name for the live activity in the runner.
    *
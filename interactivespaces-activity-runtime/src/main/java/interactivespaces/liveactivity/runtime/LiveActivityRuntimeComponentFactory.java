@@ -19,6 +19,7 @@ package interactivespaces.liveactivity.runtime;
 import interactivespaces.activity.binary.NativeActivityRunnerFactory;
 import interactivespaces.activity.component.ActivityComponentFactory;
 import interactivespaces.service.ServiceRegistry;
+import interactivespaces.util.data.resource.ResourceSignature;
 
 /**
  * A factory for creating various components for a live activity runtime.
@@ -51,6 +52,17 @@ public interface LiveActivityRuntimeComponentFactory {
    */
   ActivityComponentFactory newActivityComponentFactory();
 
+  /**
+   * Get the signature calculator used for live activity bundles.
+   *
+   * <p>
+   * The same instance is returned on every call, so signatures calculated when an activity is installed are available
+   * when it is loaded.
+   *
+   * @return the bundle signature calculator
+   */
+  ResourceSignature getActivityBundleSignature();
+
   /**
    * Register and startup core components.
    *
@@ -38,4 +38,16 @@ public interface LiveActivityRuntimeListener {
    *        the runtime that has shut down
    */
   void onLiveActivityRuntimeShutdown(LiveActivityRuntime runtime);
+
+  /**
+   * A live activity startup attempt has completed as part of starting up all activities.
+   *
+   * @param runtime
+   *        the runtime the live activity is running in
+   * @param runner
+   *        the runner for the live activity
+   * @param startupTime
+   *        how long the startup attempt took, in milliseconds
+   */
+  void onLiveActivityStartupTime(LiveActivityRuntime runtime, LiveActivityRunner runner, long startupTime);
 }
@@ -27,6 +27,7 @@ import interactivespaces.activity.BaseActivityRuntime;
 import interactivespaces.activity.configuration.ActivityConfiguration;
 import interactivespaces.activity.execution.ActivityExecutionContext;
 import interactivespaces.configuration.Configuration;
+import interactivespaces.liveactivity.runtime.activity.wrapper.internal.interactivespaces.InteractiveSpacesNativeActivityWrapperFactory;
 import interactivespaces.liveactivity.runtime.alert.AlertStatusManager;
 import interactivespaces.liveactivity.runtime.configuration.LiveActivityConfiguration;
 import interactivespaces.liveactivity.runtime.configuration.LiveActivityConfigurationManager;
@@ -40,6 +41,7 @@ import interactivespaces.liveactivity.runtime.repository.LocalLiveActivityReposi
 import interactivespaces.system.InteractiveSpacesEnvironment;
 import interactivespaces.system.InteractiveSpacesFilesystem;
 import interactivespaces.util.concurrency.SequentialEventQueue;
+import interactivespaces.util.data.resource.ResourceSignature;
 import interactivespaces.util.statemachine.simplegoal.SimpleGoalStateTransition;
 import interactivespaces.util.statemachine.simplegoal.SimpleGoalStateTransition.TransitionResult;
 import interactivespaces.util.statemachine.simplegoal.SimpleGoalStateTransitioner;
@@ -48,12 +50,15 @@ import interactivespaces.util.statemachine.simplegoal.SimpleGoalStateTransitione
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 import org.apache.commons.logging.Log;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * The standard implementation of a {@link LiveActivityRuntime}.
@@ -63,6 +68,18 @@ import java.util.Map;
 public class StandardLiveActivityRuntime extends BaseActivityRuntime implements LiveActivityRuntime,
     LiveActivityRunnerListener {
 
+  /**
+   * Configuration property giving how many live activities can be started or shut down at the same time when all
+   * activities are started or shut down.
+   */
+  public static final String CONFIGURATION_ACTIVITY_STARTUP_PARALLELISM =
+      "interactivespaces.controller.activity.startup.parallelism";
+
+  /**
+   * The default number of live activities which can be started or shut down at the same time.
+   */
+  public static final int CONFIGURATION_ACTIVITY_STARTUP_PARALLELISM_DEFAULT = 1;
+
   /**
    * The factory for live activity runners.
    */
@@ -274,17 +291,130 @@ public class StandardLiveActivityRuntime extends BaseActivityRuntime implements
 
   @Override
   public void startupAllActivities() {
-    for (LiveActivityRunner app : getAllActiveActivities()) {
-      attemptActivityStartup(app);
-    }
+    Collection<LiveActivityRunner> runners = getAllActiveActivities();
+
+    DependencyOrderedLiveActivityExecutor.LiveActivityRunnerAction action =
+        new DependencyOrderedLiveActivityExecutor.LiveActivityRunnerAction() {
+          @Override
+          public void perform(LiveActivityRunner runner) {
+            long start = System.currentTimeMillis();
+            attemptActivityStartup(runner);
+            notifyLiveActivityStartupTime(runner, System.currentTimeMillis() - start);
+          }
+        };
+
+    executeInDependencyOrder(runners, getActivityStartupDependencies(runners), action);
   }
 
   @Override
   public void shutdownAllActivities() {
     getSpaceEnvironment().getLog().info("Shutting down all activities");
 
-    for (LiveActivityRunner app : getAllActiveActivities()) {
-      attemptActivityShutdown(app);
+    Collection<LiveActivityRunner> runners = getAllActiveActivities();
+
+    // Activities are shut down in the reverse of their startup order.
+    Map<String, Set<String>> shutdownDependencies = Maps.newHashMap();
+    for (Map.Entry<String, Set<String>> entry : getActivityStartupDependencies(runners).entrySet()) {
+      for (String dependency : entry.getValue()) {
+        Set<String> dependents = shutdownDependencies.get(dependency);
+        if (dependents == null) {
+          dependents = Sets.newHashSet();
+          shutdownDependencies.put(dependency, dependents);
+        }
+        dependents.add(entry.getKey());
+      }
+    }
+
+    DependencyOrderedLiveActivityExecutor.LiveActivityRunnerAction action =
+        new DependencyOrderedLiveActivityExecutor.LiveActivityRunnerAction() {
+          @Override
+          public void perform(LiveActivityRunner runner) {
+            attemptActivityShutdown(runner);
+          }
+        };
+
+    executeInDependencyOrder(runners, shutdownDependencies, action);
+  }
+
+  /**
+   * Perform an action on a collection of runners, respecting the ordering between them.
+   *
+   * <p>
+   * The number of actions run at the same time is given by {@link #CONFIGURATION_ACTIVITY_STARTUP_PARALLELISM}.
+   *
+   * @param runners
+   *          the runners
+   * @param dependencies
+   *          map of runner UUID to the UUIDs of the runners the action must complete for first
+   * @param action
+   *          the action to perform
+   */
+  private void executeInDependencyOrder(Collection<LiveActivityRunner> runners,
+      Map<String, Set<String>> dependencies, DependencyOrderedLiveActivityExecutor.LiveActivityRunnerAction action) {
+    if (runners.isEmpty()) {
+      return;
+    }
+
+    int parallelism =
+        getSpaceEnvironment().getSystemConfiguration().getPropertyInteger(CONFIGURATION_ACTIVITY_STARTUP_PARALLELISM,
+            CONFIGURATION_ACTIVITY_STARTUP_PARALLELISM_DEFAULT);
+
+    try {
+      new DependencyOrderedLiveActivityExecutor(getSpaceEnvironment().getExecutorService(), parallelism,
+          getSpaceEnvironment().getLog()).execute(runners, dependencies, action);
+    } catch (InterruptedException e) {
+      getSpaceEnvironment().getLog().warn("Interrupted while waiting for live activities");
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Get the startup ordering constraints for a collection of runners.
+   *
+   * @param runners
+   *          the runners
+   *
+   * @return map of runner UUID to the UUIDs of the live activities which must be started before it
+   */
+  private Map<String, Set<String>> getActivityStartupDependencies(Collection<LiveActivityRunner> runners) {
+    Map<String, Set<String>> dependencies = Maps.newHashMap();
+    for (LiveActivityRunner runner : runners) {
+      LiveActivityConfiguration configuration = runner.getConfiguration();
+      if (configuration == null) {
+        continue;
+      }
+
+      String startupAfter =
+          configuration.getPropertyString(ActivityConfiguration.CONFIGURATION_ACTIVITY_STARTUP_AFTER);
+      if (startupAfter != null) {
+        Set<String> runnerDependencies = Sets.newHashSet();
+        for (String uuid : startupAfter.split("[\\s,]+")) {
+          if (!uuid.isEmpty()) {
+            runnerDependencies.add(uuid);
+          }
+        }
+        dependencies.put(runner.getUuid(), runnerDependencies);
+      }
+    }
+
+    return dependencies;
+  }
+
+  /**
+   * Tell all runtime listeners how long a live activity took to start up.
+   *
+   * @param runner
+   *          the runner for the live activity
+   * @param startupTime
+   *          how long the startup took, in milliseconds
+   */
+  private void notifyLiveActivityStartupTime(LiveActivityRunner runner, long startupTime) {
+    for (LiveActivityRuntimeListener listener : runtimeListeners) {
+      try {
+        listener.onLiveActivityStartupTime(this, runner, startupTime);
+      } catch (Throwable e) {
+        getSpaceEnvironment().getLog().error("Error on live activity runtime onLiveActivityStartupTime call", e);
+      }
     }
   }
 
@@ -883,11 +1013,40 @@ public class StandardLiveActivityRuntime extends BaseActivityRuntime implements
   /**
    * The activity installer is signaling an install.
    *
+   * <p>
+   * The signature of an Interactive Spaces native activity bundle is calculated now, so that it doesn't need to be
+   * calculated when the activity is started.
+   *
    * @param uuid
    *          UUID of the installed activity.
    */
   private void handleActivityInstall(String uuid) {
-    // Nothing to do right now
+    try {
+      InstalledLiveActivity liveActivity = liveActivityRepository.getInstalledLiveActivityByUuid(uuid);
+      ResourceSignature bundleSignature = liveActivityRuntimeComponentFactory.getActivityBundleSignature();
+      if (liveActivity == null || bundleSignature == null) {
+        return;
+      }
+
+      InternalLiveActivityFilesystem activityFilesystem = liveActivityStorageManager.getActivityFilesystem(uuid);
+      LiveActivityConfiguration activityConfiguration =
+          configurationManager.newLiveActivityConfiguration(liveActivity, activityFilesystem);
+      activityConfiguration.load();
+
+      String activityType = activityConfiguration.getPropertyString(ActivityConfiguration.CONFIGURATION_ACTIVITY_TYPE);
+      String executable =
+          activityConfiguration.getPropertyString(ActivityConfiguration.CONFIGURATION_ACTIVITY_EXECUTABLE);
+      if (activityType != null && executable != null
+          && activityType.toLowerCase().startsWith(InteractiveSpacesNativeActivityWrapperFactory.ACTIVITY_TYPE_NAME)) {
+        File bundleFile = new File(activityFilesystem.getInstallDirectory(), executable);
+        if (bundleFile.isFile()) {
+          bundleSignature.getBundleSignature(bundleFile);
+        }
+      }
+    } catch (Throwable e) {
+      getSpaceEnvironment().getLog().warn(
+          String.format("Could not calculate the bundle signature of installed live activity %s", uuid), e);
+    }
   }
 
   /**
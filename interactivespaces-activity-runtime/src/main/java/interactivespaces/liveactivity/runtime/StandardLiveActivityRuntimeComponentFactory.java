@@ -39,9 +39,14 @@ import interactivespaces.service.web.client.internal.netty.NettyWebSocketClientS
 import interactivespaces.service.web.server.WebServerService;
 import interactivespaces.service.web.server.internal.netty.NettyWebServerService;
 import interactivespaces.system.InteractiveSpacesEnvironment;
+import interactivespaces.util.data.resource.CachingResourceSignature;
+import interactivespaces.util.data.resource.MessageDigestResourceSignature;
+import interactivespaces.util.data.resource.ResourceSignature;
 
 import org.osgi.framework.BundleContext;
 
+import java.io.File;
+
 /**
  * A factory for creating various components for a live activity runtime.
  *
@@ -52,6 +57,18 @@ import org.osgi.framework.BundleContext;
  */
 public class StandardLiveActivityRuntimeComponentFactory implements LiveActivityRuntimeComponentFactory {
 
+  /**
+   * Configuration property giving the location of the activity bundle signature index, relative to the install
+   * directory.
+   */
+  public static final String CONFIGURATION_ACTIVITY_SIGNATURE_INDEX =
+      "interactivespaces.controller.activity.signature.index";
+
+  /**
+   * The default location of the activity bundle signature index, relative to the install directory.
+   */
+  public static final String CONFIGURATION_ACTIVITY_SIGNATURE_INDEX_DEFAULT = "controller/activities/signatures.json";
+
   /**
    * Run under a space environment.
    */
@@ -72,6 +89,11 @@ public class StandardLiveActivityRuntimeComponentFactory implements LiveActivity
    */
   private WebSocketClientService webSocketClientService;
 
+  /**
+   * The signature calculator for activity bundles.
+   */
+  private ResourceSignature activityBundleSignature;
+
   /**
    * Construct a new factory.
    *
@@ -98,7 +120,7 @@ public class StandardLiveActivityRuntimeComponentFactory implements LiveActivity
     liveActivityRunnerFactory.registerActivityWrapperFactory(new WebActivityWrapperFactory());
     liveActivityRunnerFactory.registerActivityWrapperFactory(new TopicBridgeActivityWrapperFactory());
     liveActivityRunnerFactory.registerActivityWrapperFactory(new InteractiveSpacesNativeActivityWrapperFactory(
-        bundleContext));
+        bundleContext, getActivityBundleSignature()));
 
     return liveActivityRunnerFactory;
   }
@@ -131,6 +153,20 @@ public class StandardLiveActivityRuntimeComponentFactory implements LiveActivity
     return factory;
   }
 
+  @Override
+  public synchronized ResourceSignature getActivityBundleSignature() {
+    if (activityBundleSignature == null) {
+      String indexPath =
+          spaceEnvironment.getSystemConfiguration().getPropertyString(CONFIGURATION_ACTIVITY_SIGNATURE_INDEX,
+              CONFIGURATION_ACTIVITY_SIGNATURE_INDEX_DEFAULT);
+      File indexFile = new File(spaceEnvironment.getFilesystem().getInstallDirectory(), indexPath);
+      activityBundleSignature =
+          new CachingResourceSignature(new MessageDigestResourceSignature(), indexFile, spaceEnvironment.getLog());
+    }
+
+    return activityBundleSignature;
+  }
+
   @Override
   public void registerCoreServices(ServiceRegistry serviceRegistry) {
     webServerService = new NettyWebServerService();
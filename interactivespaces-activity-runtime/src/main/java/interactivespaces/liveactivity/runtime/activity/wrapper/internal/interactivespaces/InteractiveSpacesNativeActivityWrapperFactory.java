@@ -57,7 +57,19 @@ public class InteractiveSpacesNativeActivityWrapperFactory extends BaseActivityW
    *          the OSGi bundle context for the factory
    */
   public InteractiveSpacesNativeActivityWrapperFactory(BundleContext bundleContext) {
-    this.bundleComparer = new MessageDigestResourceSignature();
+    this(bundleContext, new MessageDigestResourceSignature());
+  }
+
+  /**
+   * Construct a new IS native activity wrapper factory.
+   *
+   * @param bundleContext
+   *          the OSGi bundle context for the factory
+   * @param bundleComparer
+   *          the signature calculator for activity bundles
+   */
+  public InteractiveSpacesNativeActivityWrapperFactory(BundleContext bundleContext, ResourceSignature bundleComparer) {
+    this.bundleComparer = bundleComparer;
     this.bundleLoader = new SimpleLiveActivityBundleLoader(bundleContext, bundleComparer);
   }
 
@@ -74,8 +74,7 @@ public class SimpleLiveActivityBundleLoader implements LiveActivityBundleLoader
   }
 
   @Override
-  public synchronized Class<?> getBundleClass(File bundleFile, String bundleName, Version bundleVersion,
-      String className) {
+  public Class<?> getBundleClass(File bundleFile, String bundleName, Version bundleVersion, String className) {
     if (!fileSupport.isFile(bundleFile)) {
       throw new SimpleInteractiveSpacesException(String.format("Could not find bundle file %s",
           fileSupport.getAbsolutePath(bundleFile)));
@@ -83,13 +82,21 @@ public class SimpleLiveActivityBundleLoader implements LiveActivityBundleLoader
 
     NamedVersionedResource bundleId = new NamedVersionedResource(bundleName, bundleVersion);
 
-    NativeInteractiveSpacesLiveActivityOsgiBundle liveActivityBundle = loadedBundles.get(bundleId);
-    if (liveActivityBundle == null) {
-      liveActivityBundle = new NativeInteractiveSpacesLiveActivityOsgiBundle(loadingBundleContext, bundleSignature);
-      loadedBundles.put(bundleId, liveActivityBundle);
+    // Only finding the bundle holder needs the global lock. Signing and loading the bundle is locked per bundle so
+    // that independent activities can be loaded at the same time.
+    NativeInteractiveSpacesLiveActivityOsgiBundle liveActivityBundle;
+    synchronized (loadedBundles) {
+      liveActivityBundle = loadedBundles.get(bundleId);
+      if (liveActivityBundle == null) {
+        liveActivityBundle = new NativeInteractiveSpacesLiveActivityOsgiBundle(loadingBundleContext, bundleSignature);
+        loadedBundles.put(bundleId, liveActivityBundle);
+      }
     }
 
-    Bundle bundle = liveActivityBundle.getBundle(bundleFile);
+    Bundle bundle;
+    synchronized (liveActivityBundle) {
+      bundle = liveActivityBundle.getBundle(bundleFile);
+    }
 
     try {
       return bundle.loadClass(className);
@@ -105,7 +112,9 @@ public class SimpleLiveActivityBundleLoader implements LiveActivityBundleLoader
    */
   @VisibleForTesting
   int getNumberEntries() {
-    return loadedBundles.size();
+    synchronized (loadedBundles) {
+      return loadedBundles.size();
+    }
   }
 
   /**
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.liveactivity.runtime.monitor.internal;
+
+import interactivespaces.messaging.route.RouteLatencyCollector;
+import interactivespaces.service.web.server.HttpRequest;
+import interactivespaces.service.web.server.HttpResponse;
+import interactivespaces.util.data.json.JsonMapper;
+import interactivespaces.util.data.json.StandardJsonMapper;
+import interactivespaces.util.web.CommonMimeTypes;
+
+import com.google.common.base.Charsets;
+
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * The runtime monitor plugin which gives the latency report of the traced routes of the runtime as JSON.
+ *
+ * @author Keith M. Hughes
+ */
+public class RouteLatencyLiveActivityRuntimeMonitorPlugin extends BaseLiveActivityRuntimeMonitorPlugin {
+
+  /**
+   * The URL prefix for accessing the route latency report.
+   */
+  private static final String URL_PREFIX_ROUTES = "/routes";
+
+  /**
+   * The JSON mapper.
+   */
+  private static final JsonMapper MAPPER = StandardJsonMapper.INSTANCE;
+
+  @Override
+  public String getUrlPrefix() {
+    return URL_PREFIX_ROUTES;
+  }
+
+  @Override
+  protected void onHandleRequest(HttpRequest request, HttpResponse response, String fullPath) throws Throwable {
+    RouteLatencyCollector collector =
+        new RouteLatencyCollector(getMonitorService().getLiveActivityRuntime().getSpaceEnvironment()
+            .getMetricsRegistry());
+    Map<String, Map<String, Object>> report = collector.getReport();
+
+    response.setContentType(CommonMimeTypes.MIME_TYPE_APPLICATION_JSON);
+    OutputStream outputStream = response.getOutputStream();
+    outputStream.write(MAPPER.toString(report).getBytes(Charsets.UTF_8));
+  }
+}
@@ -135,5 +135,7 @@ public class StandardRemoteLiveActivityRuntimeMonitorService implements RemoteLi
     addPlugin(new ScreenshotLiveActivityRuntimeMonitorPlugin());
     addPlugin(new RuntimeLiveActivityRuntimeMonitorPlugin());
     addPlugin(new LiveActivityLiveActivityRuntimeMonitorPlugin());
+    addPlugin(new MetricsLiveActivityRuntimeMonitorPlugin());
+    addPlugin(new RouteLatencyLiveActivityRuntimeMonitorPlugin());
   }
 }
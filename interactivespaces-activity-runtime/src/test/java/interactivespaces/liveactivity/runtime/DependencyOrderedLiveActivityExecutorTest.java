@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.liveactivity.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.apache.commons.logging.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for the {@link DependencyOrderedLiveActivityExecutor}.
+ *
+ * @author Keith M. Hughes
+ */
+public class DependencyOrderedLiveActivityExecutorTest {
+
+  private ExecutorService executorService;
+
+  private Log log;
+
+  private List<String> completed;
+
+  private AtomicInteger numberRunning;
+
+  private AtomicInteger maximumRunning;
+
+  private DependencyOrderedLiveActivityExecutor.LiveActivityRunnerAction action;
+
+  @Before
+  public void setup() {
+    executorService = Executors.newCachedThreadPool();
+    log = mock(Log.class);
+
+    completed = Collections.synchronizedList(Lists.<String> newArrayList());
+    numberRunning = new AtomicInteger();
+    maximumRunning = new AtomicInteger();
+
+    action = new DependencyOrderedLiveActivityExecutor.LiveActivityRunnerAction() {
+      @Override
+      public void perform(LiveActivityRunner runner) {
+        int running = numberRunning.incrementAndGet();
+        synchronized (maximumRunning) {
+          maximumRunning.set(Math.max(maximumRunning.get(), running));
+        }
+        try {
+          Thread.sleep(50);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        numberRunning.decrementAndGet();
+        completed.add(runner.getUuid());
+      }
+    };
+  }
+
+  @After
+  public void cleanup() {
+    executorService.shutdownNow();
+  }
+
+  /**
+   * Test that no more than the allowed number of actions run at the same time.
+   */
+  @Test
+  public void testParallelismBounded() throws Exception {
+    List<LiveActivityRunner> runners = newRunners("a", "b", "c", "d", "e");
+
+    new DependencyOrderedLiveActivityExecutor(executorService, 2, log).execute(runners,
+        Maps.<String, Set<String>> newHashMap(), action);
+
+    assertEquals(5, completed.size());
+    assertEquals(2, maximumRunning.get());
+  }
+
+  /**
+   * Test that an action only runs once the actions for its dependencies are complete.
+   */
+  @Test
+  public void testDependencyOrder() throws Exception {
+    List<LiveActivityRunner> runners = newRunners("d", "c", "b", "a");
+    Map<String, Set<String>> dependencies = Maps.newHashMap();
+    dependencies.put("c", Sets.newHashSet("a", "b"));
+    dependencies.put("d", Sets.newHashSet("c", "missing"));
+
+    new DependencyOrderedLiveActivityExecutor(executorService, 4, log).execute(runners, dependencies, action);
+
+    assertEquals(4, completed.size());
+    assertEquals(2, maximumRunning.get());
+    assertTrue(completed.indexOf("c") > completed.indexOf("a"));
+    assertTrue(completed.indexOf("c") > completed.indexOf("b"));
+    assertEquals("d", completed.get(3));
+  }
+
+  /**
+   * Test that a parallelism of one runs everything in order in the calling thread.
+   */
+  @Test
+  public void testSequential() throws Exception {
+    List<LiveActivityRunner> runners = newRunners("b", "a", "c");
+    Map<String, Set<String>> dependencies = Maps.newHashMap();
+    dependencies.put("b", Sets.newHashSet("a"));
+
+    new DependencyOrderedLiveActivityExecutor(null, 1, log).execute(runners, dependencies, action);
+
+    assertEquals(Lists.newArrayList("a", "c", "b"), completed);
+  }
+
+  /**
+   * Test that a dependency cycle is broken and logged.
+   */
+  @Test
+  public void testCycle() throws Exception {
+    List<LiveActivityRunner> runners = newRunners("a", "b", "c");
+    Map<String, Set<String>> dependencies = Maps.newHashMap();
+    dependencies.put("a", Sets.newHashSet("b"));
+    dependencies.put("b", Sets.newHashSet("a"));
+
+    new DependencyOrderedLiveActivityExecutor(executorService, 4, log).execute(runners, dependencies, action);
+
+    assertEquals(Lists.newArrayList("c", "a", "b"), completed);
+    verify(log).error(anyString());
+  }
+
+  /**
+   * Create mock runners.
+   *
+   * @param uuids
+   *          the UUIDs of the runners
+   *
+   * @return the runners, in the same order as the UUIDs
+   */
+  private List<LiveActivityRunner> newRunners(String... uuids) {
+    List<LiveActivityRunner> runners = Lists.newArrayList();
+    for (String uuid : uuids) {
+      LiveActivityRunner runner = mock(LiveActivityRunner.class);
+      when(runner.getUuid()).thenReturn(uuid);
+      runners.add(runner);
+    }
+
+    return runners;
+  }
+}
@@ -27,6 +27,7 @@ import interactivespaces.activity.Activity;
 import interactivespaces.activity.ActivityState;
 import interactivespaces.activity.ActivityStatus;
 import interactivespaces.activity.binary.NativeActivityRunnerFactory;
+import interactivespaces.configuration.Configuration;
 import interactivespaces.liveactivity.runtime.alert.AlertStatusManager;
 import interactivespaces.liveactivity.runtime.configuration.LiveActivityConfiguration;
 import interactivespaces.liveactivity.runtime.configuration.LiveActivityConfigurationManager;
@@ -65,6 +66,7 @@ public class StandardLiveActivityRuntimeTest {
   private LiveActivityStorageManager liveActivityStorageManager;
   private LiveActivityLogFactory liveActivityLogFactory;
   private InteractiveSpacesEnvironment spaceEnvironment;
+  private Configuration systemConfiguration;
   private ServiceRegistry serviceRegistry;
   private AlertStatusManager alertStatusManager;
   private LiveActivityRunnerSampler liveActivityRunnerSampler;
@@ -99,6 +101,9 @@ public class StandardLiveActivityRuntimeTest {
     when(spaceEnvironment.getLog()).thenReturn(log);
     when(spaceEnvironment.getTimeProvider()).thenReturn(timeProvider);
 
+    systemConfiguration = mock(Configuration.class);
+    when(spaceEnvironment.getSystemConfiguration()).thenReturn(systemConfiguration);
+
     serviceRegistry = mock(ServiceRegistry.class);
     when(spaceEnvironment.getServiceRegistry()).thenReturn(serviceRegistry);
 
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.controller.runtime;
+
+import interactivespaces.activity.ActivityStatus;
+
+import com.google.common.collect.Maps;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Numbers the live activity status changes of a space controller so that a master can follow the status of the
+ * controller from the changes alone.
+ *
+ * <p>
+ * Every status change is given the next sequence number. The journal remembers the latest status of every live
+ * activity, so the changes since any earlier sequence number can be given without a full status of the controller.
+ *
+ * <p>
+ * Sequence numbers start over every time the controller starts, so the journal also has a session ID which is
+ * different for every run of the controller.
+ *
+ * @author Keith M. Hughes
+ */
+public class LiveActivityStatusJournal {
+
+  /**
+   * The ID for this run of the controller.
+   */
+  private final long sessionId;
+
+  /**
+   * The sequence number of the last recorded status change.
+   */
+  private long sequenceNumber;
+
+  /**
+   * The latest status change for each live activity, keyed by the live activity UUID.
+   */
+  private final Map<String, StatusChange> latestChanges = Maps.newHashMap();
+
+  /**
+   * Construct a new journal with a session ID based on the current time.
+   */
+  public LiveActivityStatusJournal() {
+    this(System.currentTimeMillis());
+  }
+
+  /**
+   * Construct a new journal.
+   *
+   * @param sessionId
+   *          the ID for this run of the controller
+   */
+  public LiveActivityStatusJournal(long sessionId) {
+    this.sessionId = sessionId;
+  }
+
+  /**
+   * Get the ID for this run of the controller.
+   *
+   * @return the session ID
+   */
+  public long getSessionId() {
+    return sessionId;
+  }
+
+  /**
+   * Get the sequence number of the last recorded status change.
+   *
+   * @return the sequence number, {@code 0} if nothing has been recorded
+   */
+  public synchronized long getSequenceNumber() {
+    return sequenceNumber;
+  }
+
+  /**
+   * Record a status change of a live activity.
+   *
+   * @param uuid
+   *          UUID of the live activity
+   * @param status
+   *          the new status of the live activity
+   *
+   * @return the sequence number given to the change
+   */
+  public synchronized long record(String uuid, ActivityStatus status) {
+    sequenceNumber++;
+    latestChanges.put(uuid, new StatusChange(sequenceNumber, status));
+
+    return sequenceNumber;
+  }
+
+  /**
+   * Forget a live activity, for instance because it has been deleted.
+   *
+   * @param uuid
+   *          UUID of the live activity
+   */
+  public synchronized void remove(String uuid) {
+    latestChanges.remove(uuid);
+  }
+
+  /**
+   * Get the latest status of every live activity which has changed since an earlier status.
+   *
+   * @param sessionId
+   *          the session ID of the earlier status
+   * @param baseSequenceNumber
+   *          the sequence number of the earlier status
+   *
+   * @return the latest statuses keyed by live activity UUID, or {@code null} if the changes can't be given because the
+   *         earlier status is from another session or is ahead of the journal
+   */
+  public synchronized Map<String, ActivityStatus> getChangesSince(long sessionId, long baseSequenceNumber) {
+    if (sessionId != this.sessionId || baseSequenceNumber > sequenceNumber || baseSequenceNumber < 0) {
+      return null;
+    }
+
+    if (baseSequenceNumber == sequenceNumber) {
+      return Collections.emptyMap();
+    }
+
+    Map<String, ActivityStatus> changes = Maps.newHashMap();
+    for (Map.Entry<String, StatusChange> entry : latestChanges.entrySet()) {
+      StatusChange change = entry.getValue();
+      if (change.sequenceNumber > baseSequenceNumber) {
+        changes.put(entry.getKey(), change.status);
+      }
+    }
+
+    return changes;
+  }
+
+  /**
+   * A status change of a live activity.
+   *
+   * @author Keith M. Hughes
+   */
+  private static class StatusChange {
+
+    /**
+     * The sequence number of the change.
+     */
+    private final long sequenceNumber;
+
+    /**
+     * The new status.
+     */
+    private final ActivityStatus status;
+
+    /**
+     * Construct a new status change.
+     *
+     * @param sequenceNumber
+     *          the sequence number of the change
+     * @param status
+     *          the new status
+     */
+    public StatusChange(long sequenceNumber, ActivityStatus status) {
+      this.sequenceNumber = sequenceNumber;
+      this.status = status;
+    }
+  }
+}
@@ -158,7 +158,8 @@ public class OsgiControllerActivator extends InteractiveSpacesServiceOsgiBundleA
         new StandardSpaceControllerConfigurationManager(spaceEnvironment);
     addManagedResource(spaceControllerConfigurationManager);
 
-    SequentialEventQueue eventQueue = new SimpleSequentialEventQueue(spaceEnvironment, spaceEnvironment.getLog());
+    SequentialEventQueue eventQueue =
+        new SimpleSequentialEventQueue("controller", spaceEnvironment, spaceEnvironment.getLog());
     addManagedResource(eventQueue);
 
     LoggingAlertStatusManager alertStatusManager = new LoggingAlertStatusManager(spaceEnvironment.getLog());
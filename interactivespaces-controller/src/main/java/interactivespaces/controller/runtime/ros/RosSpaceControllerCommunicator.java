@@ -29,6 +29,7 @@ import interactivespaces.container.resource.deployment.ContainerResourceDeployme
 import interactivespaces.container.resource.deployment.ContainerResourceDeploymentQueryResponse;
 import interactivespaces.controller.SpaceControllerStatus;
 import interactivespaces.controller.common.ros.RosSpaceControllerConstants;
+import interactivespaces.controller.runtime.LiveActivityStatusJournal;
 import interactivespaces.controller.runtime.SpaceControllerCommunicator;
 import interactivespaces.controller.runtime.SpaceControllerControl;
 import interactivespaces.controller.runtime.SpaceControllerDataOperation;
@@ -53,6 +54,8 @@ import interactivespaces_msgs.ContainerResourceCommitResponseMessage;
 import interactivespaces_msgs.ContainerResourceQueryRequestMessage;
 import interactivespaces_msgs.ContainerResourceQueryResponseMessage;
 import interactivespaces_msgs.ControllerDataRequest;
+import interactivespaces_msgs.ControllerDeltaStatus;
+import interactivespaces_msgs.ControllerDeltaStatusRequest;
 import interactivespaces_msgs.ControllerFullStatus;
 import interactivespaces_msgs.ControllerRequest;
 import interactivespaces_msgs.ControllerStatus;
@@ -132,14 +135,19 @@ public class RosSpaceControllerCommunicator implements SpaceControllerCommunicat
   private MessageSerializer<ControllerFullStatus> controllerFullStatusMessageSerializer;
 
   /**
-   * ROS message deserializer for live activity runtime requests.
+   * A ROS message serializer for controller delta status messages.
    */
-  private MessageDeserializer<LiveActivityRuntimeRequest> liveActivityRuntimeRequestDeserializer;
+  private MessageSerializer<ControllerDeltaStatus> controllerDeltaStatusMessageSerializer;
 
   /**
-   * ROS message serializer for live activity runtime statuses.
+   * ROS message deserializer for controller delta status requests.
    */
-  private MessageSerializer<LiveActivityRuntimeStatus> liveActivityRuntimeStatusSerializer;
+  private MessageDeserializer<ControllerDeltaStatusRequest> controllerDeltaStatusRequestDeserializer;
+
+  /**
+   * ROS message deserializer for live activity runtime requests.
+   */
+  private MessageDeserializer<LiveActivityRuntimeRequest> liveActivityRuntimeRequestDeserializer;
 
   /**
    * ROS message deserializer for live activity deployment requests.
@@ -196,6 +204,11 @@ public class RosSpaceControllerCommunicator implements SpaceControllerCommunicat
    */
   private InteractiveSpacesEnvironment spaceEnvironment;
 
+  /**
+   * The journal giving sequence numbers to live activity status changes.
+   */
+  private final LiveActivityStatusJournal statusJournal = new LiveActivityStatusJournal();
+
   /**
    * Create a new space controller communicator.
    *
@@ -249,12 +262,15 @@ public class RosSpaceControllerCommunicator implements SpaceControllerCommunicat
     controllerFullStatusMessageSerializer =
         messageSerializationFactory.newMessageSerializer(ControllerFullStatus._TYPE);
 
+    controllerDeltaStatusMessageSerializer =
+        messageSerializationFactory.newMessageSerializer(ControllerDeltaStatus._TYPE);
+
+    controllerDeltaStatusRequestDeserializer =
+        messageSerializationFactory.newMessageDeserializer(ControllerDeltaStatusRequest._TYPE);
+
     liveActivityRuntimeRequestDeserializer =
         messageSerializationFactory.newMessageDeserializer(LiveActivityRuntimeRequest._TYPE);
 
-    liveActivityRuntimeStatusSerializer =
-        messageSerializationFactory.newMessageSerializer(LiveActivityRuntimeStatus._TYPE);
-
     liveActivityDeployStatusSerializer =
         messageSerializationFactory.newMessageSerializer(LiveActivityDeployStatus._TYPE);
 
@@ -326,6 +342,11 @@ public class RosSpaceControllerCommunicator implements SpaceControllerCommunicat
 
         break;
 
+      case ControllerRequest.OPERATION_CONTROLLER_DELTA_STATUS:
+        publishControllerDeltaStatus(controllerDeltaStatusRequestDeserializer.deserialize(request.getPayload()));
+
+        break;
+
       case ControllerRequest.OPERATION_CONTROLLER_SHUTDOWN_ACTIVITIES:
         controllerControl.shutdownAllLiveActivities();
 
@@ -475,6 +496,11 @@ public class RosSpaceControllerCommunicator implements SpaceControllerCommunicat
     fullStatus.setDescription(controllerInfo.getDescription());
     fullStatus.setHostId(controllerInfo.getHostId());
 
+    // Taken before the live activities are examined, any change made while they are examined will also be sent as a
+    // change after this sequence number.
+    fullStatus.setSessionId(statusJournal.getSessionId());
+    fullStatus.setSequenceNumber(statusJournal.getSequenceNumber());
+
     for (InstalledLiveActivity activity : controllerControl.getAllInstalledLiveActivities()) {
       LiveActivityRuntimeStatus cas = rosMessageFactory.newFromType(LiveActivityRuntimeStatus._TYPE);
       cas.setUuid(activity.getUuid());
@@ -512,6 +538,59 @@ public class RosSpaceControllerCommunicator implements SpaceControllerCommunicat
         controllerFullStatusMessageSerializer.serialize(fullStatus));
   }
 
+  /**
+   * Create and publish the live activity status changes since an earlier status of the controller.
+   *
+   * <p>
+   * A full status is published if the changes can't be given, for instance because the earlier status was from a
+   * previous run of the controller.
+   *
+   * @param request
+   *          the request giving the earlier status
+   */
+  private void publishControllerDeltaStatus(ControllerDeltaStatusRequest request) {
+    synchronized (statusJournal) {
+      Map<String, ActivityStatus> changes =
+          statusJournal.getChangesSince(request.getSessionId(), request.getSequenceNumber());
+      if (changes == null) {
+        spaceEnvironment.getLog().info(
+            String.format("Delta status requested from session %d sequence %d, sending full status instead",
+                request.getSessionId(), request.getSequenceNumber()));
+        publishControllerFullStatus();
+
+        return;
+      }
+
+      ControllerDeltaStatus deltaStatus =
+          newControllerDeltaStatus(request.getSequenceNumber(), statusJournal.getSequenceNumber());
+      for (Map.Entry<String, ActivityStatus> change : changes.entrySet()) {
+        deltaStatus.getLiveActivityStatuses().add(newLiveActivityRuntimeStatus(change.getKey(), change.getValue()));
+      }
+
+      publishControllerStatus(ControllerStatus.STATUS_CONTROLLER_DELTA_STATUS,
+          controllerDeltaStatusMessageSerializer.serialize(deltaStatus));
+    }
+  }
+
+  /**
+   * Create a new {@link ControllerDeltaStatus} for this controller's session.
+   *
+   * @param baseSequenceNumber
+   *          the sequence number of the status the changes are relative to
+   * @param sequenceNumber
+   *          the sequence number of the last change in the status
+   *
+   * @return a newly created delta status with no live activity statuses
+   */
+  private ControllerDeltaStatus newControllerDeltaStatus(long baseSequenceNumber, long sequenceNumber) {
+    ControllerDeltaStatus deltaStatus = rosMessageFactory.newFromType(ControllerDeltaStatus._TYPE);
+    deltaStatus.setSessionId(statusJournal.getSessionId());
+    deltaStatus.setBaseSequenceNumber(baseSequenceNumber);
+    deltaStatus.setSequenceNumber(sequenceNumber);
+
+    return deltaStatus;
+  }
+
   @Override
   public void publishControllerDataStatus(SpaceControllerDataOperation type, SpaceControllerStatus statusCode,
       Exception e) {
@@ -577,6 +656,10 @@ public class RosSpaceControllerCommunicator implements SpaceControllerCommunicat
         controllerControl.deleteLiveActivity(controllerDeleteRequest);
     LiveActivityDeleteStatus deleteStatus = getLiveActivityDeleteStatus(controllerDeleteResponse);
 
+    if (controllerDeleteResponse.getStatus() == SpaceControllerLiveActivityDeleteResponse.STATUS_SUCCESS) {
+      statusJournal.remove(controllerDeleteResponse.getUuid());
+    }
+
     ChannelBuffer payload = liveActivityDeleteStatusSerializer.serialize(deleteStatus);
 
     publishControllerStatus(ControllerStatus.STATUS_CONTROLLER_ACTIVITY_DELETE, payload);
@@ -734,27 +817,49 @@ public class RosSpaceControllerCommunicator implements SpaceControllerCommunicat
   @Override
   public void publishActivityStatus(String uuid, ActivityStatus astatus) {
     try {
-      LiveActivityRuntimeStatus status = rosMessageFactory.newFromType(LiveActivityRuntimeStatus._TYPE);
-      status.setUuid(uuid);
-      status.setStatus(translateActivityState(astatus.getState()));
-      String exceptionDetail = astatus.getExceptionAsString();
-      if (exceptionDetail != null) {
-        status.setStatusDetail(exceptionDetail);
-      }
+      // Changes must be published in the order of their sequence numbers, otherwise the master sees a gap.
+      synchronized (statusJournal) {
+        long sequenceNumber = statusJournal.record(uuid, astatus);
 
-      String description = astatus.getDescription();
-      if (description != null) {
-        status.setStatusDetail(astatus.getDescription());
-      }
+        ControllerDeltaStatus deltaStatus = newControllerDeltaStatus(sequenceNumber - 1, sequenceNumber);
+        deltaStatus.getLiveActivityStatuses().add(newLiveActivityRuntimeStatus(uuid, astatus));
 
-      publishControllerStatus(ControllerStatus.STATUS_CONTROLLER_LIVE_ACTIVITY_RUNTIME_STATUS,
-          liveActivityRuntimeStatusSerializer.serialize(status));
+        publishControllerStatus(ControllerStatus.STATUS_CONTROLLER_DELTA_STATUS,
+            controllerDeltaStatusMessageSerializer.serialize(deltaStatus));
+      }
     } catch (Exception e) {
       spaceEnvironment.getLog().error(
           String.format("Could not publish Status change %s for Live Activity %s\n", uuid, astatus), e);
     }
   }
 
+  /**
+   * Create a new {@link LiveActivityRuntimeStatus} for a live activity status.
+   *
+   * @param uuid
+   *          UUID of the live activity
+   * @param astatus
+   *          the status of the live activity
+   *
+   * @return a newly created runtime status message
+   */
+  private LiveActivityRuntimeStatus newLiveActivityRuntimeStatus(String uuid, ActivityStatus astatus) {
+    LiveActivityRuntimeStatus status = rosMessageFactory.newFromType(LiveActivityRuntimeStatus._TYPE);
+    status.setUuid(uuid);
+    status.setStatus(translateActivityState(astatus.getState()));
+    String exceptionDetail = astatus.getExceptionAsString();
+    if (exceptionDetail != null) {
+      status.setStatusDetail(exceptionDetail);
+    }
+
+    String description = astatus.getDescription();
+    if (description != null) {
+      status.setStatusDetail(astatus.getDescription());
+    }
+
+    return status;
+  }
+
   /**
    * Publish a controller status update with a payload.
    *
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.controller.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import interactivespaces.activity.ActivityState;
+import interactivespaces.activity.ActivityStatus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+/**
+ * Tests for the {@link LiveActivityStatusJournal}.
+ *
+ * @author Keith M. Hughes
+ */
+public class LiveActivityStatusJournalTest {
+
+  private LiveActivityStatusJournal journal;
+
+  @Before
+  public void setup() {
+    journal = new LiveActivityStatusJournal(10);
+  }
+
+  /**
+   * Test that every change gets the next sequence number.
+   */
+  @Test
+  public void testSequenceNumbers() {
+    assertEquals(0, journal.getSequenceNumber());
+    assertEquals(1, journal.record("a", new ActivityStatus(ActivityState.RUNNING, null)));
+    assertEquals(2, journal.record("b", new ActivityStatus(ActivityState.RUNNING, null)));
+    assertEquals(2, journal.getSequenceNumber());
+  }
+
+  /**
+   * Test that only the latest status of the activities changed since a sequence number are given.
+   */
+  @Test
+  public void testChangesSince() {
+    journal.record("a", new ActivityStatus(ActivityState.RUNNING, null));
+    journal.record("b", new ActivityStatus(ActivityState.RUNNING, null));
+    ActivityStatus active = new ActivityStatus(ActivityState.ACTIVE, null);
+    journal.record("b", active);
+    ActivityStatus crashed = new ActivityStatus(ActivityState.CRASHED, null);
+    journal.record("c", crashed);
+
+    Map<String, ActivityStatus> changes = journal.getChangesSince(10, 2);
+    assertEquals(2, changes.size());
+    assertEquals(active, changes.get("b"));
+    assertEquals(crashed, changes.get("c"));
+
+    assertTrue(journal.getChangesSince(10, 4).isEmpty());
+    assertEquals(3, journal.getChangesSince(10, 0).size());
+  }
+
+  /**
+   * Test that changes can't be given for another session or an unknown sequence number.
+   */
+  @Test
+  public void testChangesUnavailable() {
+    journal.record("a", new ActivityStatus(ActivityState.RUNNING, null));
+
+    assertNull(journal.getChangesSince(11, 0));
+    assertNull(journal.getChangesSince(10, 2));
+  }
+}
@@ -21,6 +21,7 @@ import interactivespaces.SimpleInteractiveSpacesException;
 import interactivespaces.activity.SupportedActivity;
 import interactivespaces.util.InteractiveSpacesUtilities;
 import interactivespaces.util.graph.DependencyResolver;
+import interactivespaces.util.metrics.MetricsRegistry;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -104,6 +105,15 @@ public class ActivityComponentContext {
     return (T) activity;
   }
 
+  /**
+   * Get the metrics registry for the components.
+   *
+   * @return the metrics registry of the space environment the activity is running in
+   */
+  public MetricsRegistry getMetricsRegistry() {
+    return activity.getSpaceEnvironment().getMetricsRegistry();
+  }
+
   /**
    * Get the component factory for this context.
    *
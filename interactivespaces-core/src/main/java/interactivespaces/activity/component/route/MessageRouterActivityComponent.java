@@ -57,6 +57,21 @@ public interface MessageRouterActivityComponent<T> extends ActivityComponent {
    */
   String CONFIGURATION_ROUTE_OUTPUT_TOPIC_PREFIX = "space.activity.route.output.";
 
+  /**
+   * Configuration property for how often messages which start a chain are sampled for route latency tracing. A value
+   * of {@code N} traces every {@code N}th message, {@code 0} traces none.
+   *
+   * <p>
+   * Route latencies are recorded in the metrics registry, so they are only reported when metrics are enabled with
+   * {@link interactivespaces.system.InteractiveSpacesEnvironment#CONFIGURATION_METRICS_ENABLE}.
+   */
+  String CONFIGURATION_ROUTE_TRACE_SAMPLE_INTERVAL = "space.activity.route.trace.sample.interval";
+
+  /**
+   * The default value for {@link #CONFIGURATION_ROUTE_TRACE_SAMPLE_INTERVAL}.
+   */
+  int CONFIGURATION_VALUE_ROUTE_TRACE_SAMPLE_INTERVAL_DEFAULT = 0;
+
   /**
    * Get the node name for the router.
    *
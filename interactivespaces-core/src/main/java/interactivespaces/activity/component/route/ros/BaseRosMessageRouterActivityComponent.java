@@ -12,6 +12,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 import org.ros.namespace.GraphName;
+import org.ros.node.topic.TransportHints;
 
 import java.util.List;
 import java.util.Set;
@@ -120,7 +121,8 @@ public abstract class BaseRosMessageRouterActivityComponent<T> extends BaseActiv
         if (!inputName.isEmpty()) {
           String inputTopicNames =
               configuration.getRequiredPropertyString(CONFIGURATION_ROUTE_INPUT_TOPIC_PREFIX + inputName);
-          registerInputChannelTopic(inputName, parseTopicNames(inputTopicNames));
+          registerInputChannelTopic(inputName, parseTopicNames(inputTopicNames),
+              getInputTransportHints(configuration, inputName));
         }
       }
     }
@@ -155,6 +157,41 @@ public abstract class BaseRosMessageRouterActivityComponent<T> extends BaseActiv
     onPostStartupComponent();
   }
 
+  /**
+   * Get the transport hints for an input route from the configuration.
+   *
+   * @param configuration
+   *          the configuration of the activity
+   * @param inputName
+   *          the name of the input route
+   *
+   * @return the transport hints for the route
+   */
+  protected TransportHints getInputTransportHints(Configuration configuration, String inputName) {
+    TransportHints transportHints = new TransportHints();
+
+    String transport =
+        configuration.getPropertyString(CONFIGURATION_ROUTE_INPUT_TRANSPORT_PREFIX + inputName,
+            CONFIGURATION_VALUE_TRANSPORT_TCP).trim();
+    if (CONFIGURATION_VALUE_TRANSPORT_UDP.equalsIgnoreCase(transport)) {
+      transportHints.udp();
+      Integer datagramSize =
+          configuration.getPropertyInteger(CONFIGURATION_ROUTE_INPUT_DATAGRAM_SIZE_PREFIX + inputName, null);
+      if (datagramSize != null) {
+        transportHints.maxDatagramSize(datagramSize);
+      }
+    } else if (!CONFIGURATION_VALUE_TRANSPORT_TCP.equalsIgnoreCase(transport)) {
+      throw new SimpleInteractiveSpacesException(String.format("Unknown transport %s for input route %s", transport,
+          inputName));
+    }
+
+    if (configuration.getPropertyBoolean(CONFIGURATION_ROUTE_INPUT_INTRAPROCESS_PREFIX + inputName, false)) {
+      transportHints.intraProcess();
+    }
+
+    return transportHints;
+  }
+
   /**
    * Parse topic names out of a string.
    *
@@ -24,8 +24,15 @@ import interactivespaces.activity.impl.StatusDetail;
 import interactivespaces.configuration.Configuration;
 import interactivespaces.messaging.route.InternalRouteMessagePublisher;
 import interactivespaces.messaging.route.RouteMessagePublisher;
+import interactivespaces.messaging.route.RouteMessageTraceAccessor;
+import interactivespaces.messaging.route.RouteTrace;
 import interactivespaces.messaging.route.ros.RosRouteMessagePublisher;
+import interactivespaces.system.InteractiveSpacesEnvironment;
 import interactivespaces.time.TimeProvider;
+import interactivespaces.util.metrics.Counter;
+import interactivespaces.util.metrics.Gauge;
+import interactivespaces.util.metrics.MetricsRegistry;
+import interactivespaces.util.metrics.Timer;
 import interactivespaces.util.ros.BasePublisherListener;
 import interactivespaces.util.ros.BaseSubscriberListener;
 import interactivespaces.util.ros.RosPublishers;
@@ -34,6 +41,7 @@ import interactivespaces.util.ros.StandardRosPublishers;
 import interactivespaces.util.ros.StandardRosSubscribers;
 
 import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
@@ -45,6 +53,7 @@ import org.ros.node.topic.Publisher;
 import org.ros.node.topic.PublisherListener;
 import org.ros.node.topic.Subscriber;
 import org.ros.node.topic.SubscriberListener;
+import org.ros.node.topic.TransportHints;
 
 import java.util.List;
 import java.util.Map;
@@ -62,6 +71,26 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public class BasicRosMessageRouterActivityComponent<T> extends BaseRosMessageRouterActivityComponent<T> {
 
+  /**
+   * Prefix for the names of the route metrics. It is followed by the activity UUID.
+   */
+  public static final String METRIC_NAME_PREFIX = "activity.";
+
+  /**
+   * Metric name component for the timer of input route message handling. It is followed by the channel ID.
+   */
+  public static final String METRIC_NAME_COMPONENT_ROUTE_INPUT = ".route.input.";
+
+  /**
+   * Metric name component for the counter of output route messages. It is followed by the channel ID.
+   */
+  public static final String METRIC_NAME_COMPONENT_ROUTE_OUTPUT = ".route.output.";
+
+  /**
+   * Metric name suffix for the gauge of messages queued for writing on an output route.
+   */
+  public static final String METRIC_NAME_SUFFIX_QUEUE = ".queue";
+
   /**
    * The ROS activity component this component requires.
    */
@@ -110,6 +139,47 @@ public class BasicRosMessageRouterActivityComponent<T> extends BaseRosMessageRou
    */
   private InternalRouteMessagePublisher<T> messageFactory;
 
+  /**
+   * The metrics registry for the route metrics.
+   */
+  private MetricsRegistry metricsRegistry;
+
+  /**
+   * The timers for handling messages on each input channel, indexed by channel ID.
+   */
+  private final Map<String, Timer> inputTimers = Maps.newConcurrentMap();
+
+  /**
+   * The counters for messages written on each output channel, indexed by channel ID.
+   */
+  private final Map<String, Counter> outputCounters = Maps.newConcurrentMap();
+
+  /**
+   * The names of the route latency histograms recorded by this component, so they can be removed on shutdown.
+   */
+  private final Set<String> routeMetricNames = Sets.newConcurrentHashSet();
+
+  /**
+   * Access to the route latency traces in messages, {@code null} if messages of this type cannot be traced.
+   */
+  private final RouteMessageTraceAccessor<T> traceAccessor;
+
+  /**
+   * How often messages which start a chain are sampled for tracing, {@code 0} if none are.
+   */
+  private int traceSampleInterval;
+
+  /**
+   * The number of messages which started a chain, used for sampling.
+   */
+  private final AtomicLong traceSampleCount = new AtomicLong();
+
+  /**
+   * The trace of the input message currently being handled by the thread, so that output messages written by the
+   * handler continue the chain.
+   */
+  private final ThreadLocal<RouteTrace> currentTrace = new ThreadLocal<RouteTrace>();
+
   /**
    * A creator for handler invocation IDs.
    */
@@ -144,8 +214,24 @@ public class BasicRosMessageRouterActivityComponent<T> extends BaseRosMessageRou
    *          the listener for message events
    */
   public BasicRosMessageRouterActivityComponent(String rosMessageType, RoutableInputMessageListener<T> messageListener) {
+    this(rosMessageType, messageListener, null);
+  }
+
+  /**
+   * Construct a new ROS message router activity component which can trace route latencies.
+   *
+   * @param rosMessageType
+   *          the ROS message type for the route
+   * @param messageListener
+   *          the listener for message events
+   * @param traceAccessor
+   *          access to the route latency traces in messages, can be {@code null} if messages cannot be traced
+   */
+  public BasicRosMessageRouterActivityComponent(String rosMessageType, RoutableInputMessageListener<T> messageListener,
+      RouteMessageTraceAccessor<T> traceAccessor) {
     this.rosMessageType = rosMessageType;
     this.messageListener = messageListener;
+    this.traceAccessor = traceAccessor;
   }
 
   @Override
@@ -166,6 +252,15 @@ public class BasicRosMessageRouterActivityComponent<T> extends BaseRosMessageRou
   @Override
   protected void onConfigureComponent(Configuration configuration) {
     rosActivityComponent = componentContext.getRequiredActivityComponent(RosActivityComponent.COMPONENT_NAME);
+    metricsRegistry = componentContext.getMetricsRegistry();
+    traceSampleInterval =
+        configuration.getPropertyInteger(CONFIGURATION_ROUTE_TRACE_SAMPLE_INTERVAL,
+            CONFIGURATION_VALUE_ROUTE_TRACE_SAMPLE_INTERVAL_DEFAULT);
+    if (traceSampleInterval > 0 && !metricsRegistry.isEnabled()) {
+      componentContext.getActivity().getLog().warn(String.format(
+          "Route tracing is on but metrics are disabled, so no route latencies will be reported. Set %s to true.",
+          InteractiveSpacesEnvironment.CONFIGURATION_METRICS_ENABLE));
+    }
   }
 
   @Override
@@ -184,6 +279,11 @@ public class BasicRosMessageRouterActivityComponent<T> extends BaseRosMessageRou
 
     clearAllChannelTopics();
 
+    for (String routeMetricName : routeMetricNames) {
+      metricsRegistry.unregister(routeMetricName);
+    }
+    routeMetricNames.clear();
+
     if (log.isInfoEnabled()) {
       log.info(String.format("ROS message router activity component shut down in %d msecs", System.currentTimeMillis()
           - timeStart));
@@ -218,7 +318,7 @@ public class BasicRosMessageRouterActivityComponent<T> extends BaseRosMessageRou
       throw new SimpleInteractiveSpacesException("Output channel already registered: " + channelId);
     }
 
-    RosPublishers<T> publishers = new StandardRosPublishers<T>(getComponentContext().getActivity().getLog());
+    final RosPublishers<T> publishers = new StandardRosPublishers<T>(getComponentContext().getActivity().getLog());
     publishers.addPublisherListener(publisherListener);
     publishers.addPublishers(rosActivityComponent.getNode(), rosMessageType, topicNames, latch);
 
@@ -227,6 +327,15 @@ public class BasicRosMessageRouterActivityComponent<T> extends BaseRosMessageRou
     outputs.put(channelId, routeMessagePublisher);
     outputTopics.put(channelId, Joiner.on(CONFIGURATION_VALUES_SEPARATOR).join(topicNames));
 
+    String metricName = getMetricName(METRIC_NAME_COMPONENT_ROUTE_OUTPUT, channelId);
+    outputCounters.put(channelId, metricsRegistry.getCounter(metricName));
+    metricsRegistry.registerGauge(metricName + METRIC_NAME_SUFFIX_QUEUE, new Gauge() {
+      @Override
+      public long getValue() {
+        return publishers.getNumberOfQueuedMessages();
+      }
+    });
+
     // Only matters that we get one. They are all for the same
     // message type, so will take the last one.
     messageFactory = routeMessagePublisher;
@@ -235,8 +344,14 @@ public class BasicRosMessageRouterActivityComponent<T> extends BaseRosMessageRou
   }
 
   @Override
-  public synchronized void registerInputChannelTopic(final String channelId, Set<String> topicNames)
+  public synchronized void registerInputChannelTopic(String channelId, Set<String> topicNames)
       throws InteractiveSpacesException {
+    registerInputChannelTopic(channelId, topicNames, new TransportHints());
+  }
+
+  @Override
+  public synchronized void registerInputChannelTopic(final String channelId, Set<String> topicNames,
+      TransportHints transportHints) throws InteractiveSpacesException {
     if (inputs.containsKey(channelId)) {
       throw new SimpleInteractiveSpacesException("Input channel already registered: " + channelId);
     }
@@ -252,7 +367,7 @@ public class BasicRosMessageRouterActivityComponent<T> extends BaseRosMessageRou
       public void onNewMessage(T message) {
         handleNewIncomingMessage(channelId, message);
       }
-    });
+    }, transportHints);
   }
 
   @Override
@@ -263,11 +378,22 @@ public class BasicRosMessageRouterActivityComponent<T> extends BaseRosMessageRou
     inputs.clear();
     inputTopics.clear();
 
+    for (String channelId : inputTimers.keySet()) {
+      metricsRegistry.unregister(getMetricName(METRIC_NAME_COMPONENT_ROUTE_INPUT, channelId));
+    }
+    inputTimers.clear();
+
     for (InternalRouteMessagePublisher<T> output : outputs.values()) {
       output.shutdown();
     }
+    for (String channelId : outputs.keySet()) {
+      String metricName = getMetricName(METRIC_NAME_COMPONENT_ROUTE_OUTPUT, channelId);
+      metricsRegistry.unregister(metricName);
+      metricsRegistry.unregisterGauge(metricName + METRIC_NAME_SUFFIX_QUEUE);
+    }
     outputs.clear();
     outputTopics.clear();
+    outputCounters.clear();
   }
 
   /**
@@ -283,27 +409,50 @@ public class BasicRosMessageRouterActivityComponent<T> extends BaseRosMessageRou
       return;
     }
 
+    RouteTrace trace = null;
     try {
       getComponentContext().enterHandler();
 
       TimeProvider timeProvider = getComponentContext().getActivity().getSpaceEnvironment().getTimeProvider();
-      long start = timeProvider.getCurrentTime();
-      String handlerInvocationId = newHandlerInvocationId();
+
+      if (traceAccessor != null) {
+        trace = RouteTrace.decode(traceAccessor.getTrace(message));
+        if (trace != null) {
+          recordRouteLatency(trace, channelId, timeProvider.getCurrentTime());
+          currentTrace.set(trace);
+        }
+      }
+
       Log log = getComponentContext().getActivity().getLog();
-      if (log.isDebugEnabled()) {
+      boolean debug = log.isDebugEnabled();
+      long start = 0;
+      String handlerInvocationId = null;
+      if (debug) {
+        start = timeProvider.getCurrentTime();
+        handlerInvocationId = newHandlerInvocationId();
         log.debug(String.format("Entering ROS route message handler invocation %s", handlerInvocationId));
       }
 
       // Send the message out to the listener.
-      messageListener.onNewRoutableInputMessage(channelId, message);
+      Timer timer = getInputTimer(channelId);
+      long timerStart = timer.start();
+      try {
+        messageListener.onNewRoutableInputMessage(channelId, message);
+      } finally {
+        timer.stop(timerStart);
+      }
 
-      if (log.isDebugEnabled()) {
+      if (debug) {
         log.debug(String.format("Exiting ROS route message handler invocation %s in %d msecs", handlerInvocationId,
             timeProvider.getCurrentTime() - start));
       }
     } catch (Throwable e) {
       handleError(String.format("Error after receiving routing message for channel %s", channelId), e);
     } finally {
+      if (trace != null) {
+        currentTrace.remove();
+      }
+
       getComponentContext().exitHandler();
     }
   }
@@ -316,8 +465,20 @@ public class BasicRosMessageRouterActivityComponent<T> extends BaseRosMessageRou
       if (outputChannelId != null) {
         final RouteMessagePublisher<T> output = outputs.get(outputChannelId);
         if (output != null) {
-          output.writeOutputMessage(message);
-
+          T outputMessage = message;
+          if (traceAccessor != null) {
+            String trace = getOutputTrace(outputChannelId);
+            if (!trace.equals(Strings.nullToEmpty(traceAccessor.getTrace(message)))) {
+              outputMessage = traceAccessor.withTrace(message, trace);
+            }
+          }
+
+          output.writeOutputMessage(outputMessage);
+
+          Counter counter = outputCounters.get(outputChannelId);
+          if (counter != null) {
+            counter.increment();
+          }
         } else {
           handleError(String.format("Unknown route output channel %s. Message dropped.", outputChannelId), null);
         }
@@ -331,6 +492,80 @@ public class BasicRosMessageRouterActivityComponent<T> extends BaseRosMessageRou
     }
   }
 
+  /**
+   * Record the latency of a traced message arriving on an input channel.
+   *
+   * @param trace
+   *          the trace of the message
+   * @param channelId
+   *          ID of the input channel
+   * @param currentTime
+   *          the current time, in milliseconds since the epoch
+   */
+  private void recordRouteLatency(RouteTrace trace, String channelId, long currentTime) {
+    String routeName = trace.getRouteName(RouteTrace.newHop(getComponentContext().getActivity().getName(), channelId));
+    String metricName = RouteTrace.METRIC_NAME_PREFIX + routeName;
+    routeMetricNames.add(metricName);
+    metricsRegistry.getHistogram(metricName).record(currentTime - trace.getOriginTime());
+  }
+
+  /**
+   * Get the encoded trace for a message being written on an output channel.
+   *
+   * <p>
+   * A message written while handling a traced input message continues the chain of the input message. Otherwise the
+   * message starts a new chain, which is traced if it is sampled.
+   *
+   * @param channelId
+   *          ID of the output channel
+   *
+   * @return the encoded trace
+   */
+  private String getOutputTrace(String channelId) {
+    RouteTrace trace = currentTrace.get();
+    if (trace != null) {
+      trace = trace.addHop(RouteTrace.newHop(getComponentContext().getActivity().getName(), channelId));
+    } else if (traceSampleInterval > 0 && traceSampleCount.getAndIncrement() % traceSampleInterval == 0) {
+      trace =
+          RouteTrace.newTrace(getComponentContext().getActivity().getSpaceEnvironment().getTimeProvider()
+              .getCurrentTime(), RouteTrace.newHop(getComponentContext().getActivity().getName(), channelId));
+    }
+
+    return trace != null ? trace.encode() : RouteTrace.TRACE_NONE;
+  }
+
+  /**
+   * Get the timer for handling messages on an input channel.
+   *
+   * @param channelId
+   *          ID of the input channel
+   *
+   * @return the timer for the channel
+   */
+  private Timer getInputTimer(String channelId) {
+    Timer timer = inputTimers.get(channelId);
+    if (timer == null) {
+      timer = metricsRegistry.getTimer(getMetricName(METRIC_NAME_COMPONENT_ROUTE_INPUT, channelId));
+      inputTimers.put(channelId, timer);
+    }
+
+    return timer;
+  }
+
+  /**
+   * Get the name of a route metric.
+   *
+   * @param nameComponent
+   *          the metric name component giving the kind of route metric
+   * @param channelId
+   *          ID of the route channel
+   *
+   * @return the metric name
+   */
+  private String getMetricName(String nameComponent, String channelId) {
+    return METRIC_NAME_PREFIX + getComponentContext().getActivity().getUuid() + nameComponent + channelId;
+  }
+
   /**
    * Create a new handler invocation ID.
    *
@@ -16,13 +16,17 @@
 
 package interactivespaces.activity.component.route.ros;
 
+import interactivespaces.InteractiveSpacesException;
 import interactivespaces.activity.component.ActivityComponent;
 import interactivespaces.activity.component.ros.RosActivityComponent;
 import interactivespaces.activity.component.route.MessageRouterActivityComponent;
 
 import com.google.common.collect.ImmutableList;
 
+import org.ros.node.topic.TransportHints;
+
 import java.util.List;
+import java.util.Set;
 
 /**
  * An {@link ActivityComponent} instance which supports multiple named message topics which can send and receive a given
@@ -49,4 +53,48 @@ public interface RosMessageRouterActivityComponent<T> extends MessageRouterActiv
    * Dependencies for the component.
    */
   List<String> BASE_COMPONENT_DEPENDENCIES = ImmutableList.of(RosActivityComponent.COMPONENT_NAME);
+
+  /**
+   * Configuration property prefix for the transport of an input route, the input name is appended.
+   */
+  String CONFIGURATION_ROUTE_INPUT_TRANSPORT_PREFIX = "space.activity.route.input.transport.";
+
+  /**
+   * Configuration property prefix for the maximum UDP datagram size of an input route, the input name is appended.
+   */
+  String CONFIGURATION_ROUTE_INPUT_DATAGRAM_SIZE_PREFIX = "space.activity.route.input.datagram.size.";
+
+  /**
+   * Configuration property prefix for whether an input route takes messages from publishers in the same process
+   * without serialization, the input name is appended. Defaults to {@code false}, since the route's listeners are then
+   * handed the published message instance itself.
+   */
+  String CONFIGURATION_ROUTE_INPUT_INTRAPROCESS_PREFIX = "space.activity.route.input.intraprocess.";
+
+  /**
+   * Input route transport value for TCP, the default.
+   */
+  String CONFIGURATION_VALUE_TRANSPORT_TCP = "tcp";
+
+  /**
+   * Input route transport value for UDP. Messages can be lost, so only use for high rate topics where that is
+   * acceptable.
+   */
+  String CONFIGURATION_VALUE_TRANSPORT_UDP = "udp";
+
+  /**
+   * Register a new input topic channel.
+   *
+   * @param inputChannelId
+   *          input channel ID
+   * @param topicNames
+   *          input topic names
+   * @param transportHints
+   *          how the input topics should be received
+   *
+   * @throws InteractiveSpacesException
+   *           the input name has been used before
+   */
+  void registerInputChannelTopic(String inputChannelId, Set<String> topicNames, TransportHints transportHints)
+      throws InteractiveSpacesException;
 }
@@ -42,6 +42,15 @@ public class ActivityConfiguration {
    */
   public static final String CONFIGURATION_ACTIVITY_TYPE = "space.activity.type";
 
+  /**
+   * Configuration property giving the UUIDs of live activities which must be
+   * started before this activity when all activities are started together.
+   *
+   * <p>
+   * UUIDs are separated by commas or whitespace.
+   */
+  public static final String CONFIGURATION_ACTIVITY_STARTUP_AFTER = "space.activity.startup.after";
+
   /**
    * Configuration property which will give the activity's installation directory.
    */
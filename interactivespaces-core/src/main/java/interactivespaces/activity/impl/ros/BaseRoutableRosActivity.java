@@ -21,6 +21,7 @@ import interactivespaces.activity.component.route.RoutableInputMessageListener;
 import interactivespaces.activity.component.route.ros.BasicRosMessageRouterActivityComponent;
 import interactivespaces.activity.component.route.ros.RosMessageRouterActivityComponent;
 import interactivespaces.activity.execution.ActivityMethodInvocation;
+import interactivespaces.messaging.route.RouteMessageTraceAccessor;
 import interactivespaces.util.data.json.JsonBuilder;
 import interactivespaces.util.data.json.JsonMapper;
 import interactivespaces.util.data.json.StandardJsonMapper;
@@ -59,6 +60,21 @@ public class BaseRoutableRosActivity extends BaseRosActivity {
               public void onNewRoutableInputMessage(String channelName, GenericMessage message) {
                 handleRoutableInputMessage(channelName, message);
               }
+            }, new RouteMessageTraceAccessor<GenericMessage>() {
+              @Override
+              public String getTrace(GenericMessage message) {
+                return message.getTrace();
+              }
+
+              @Override
+              public GenericMessage withTrace(GenericMessage message, String trace) {
+                GenericMessage tracedMessage = router.newMessage();
+                tracedMessage.setType(message.getType());
+                tracedMessage.setMessage(message.getMessage());
+                tracedMessage.setTrace(trace);
+
+                return tracedMessage;
+              }
             }));
   }
 
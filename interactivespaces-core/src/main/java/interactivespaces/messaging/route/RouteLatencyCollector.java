@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.messaging.route;
+
+import interactivespaces.util.metrics.Histogram;
+import interactivespaces.util.metrics.MetricsRegistry;
+
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+
+/**
+ * Collects the route latency histograms recorded by all activities sharing a metrics registry into a per-route report.
+ *
+ * <p>
+ * Route latencies are recorded in the metrics registry, so the report is always empty unless metrics are enabled with
+ * {@link interactivespaces.system.InteractiveSpacesEnvironment#CONFIGURATION_METRICS_ENABLE}.
+ *
+ * @author Keith M. Hughes
+ */
+public class RouteLatencyCollector {
+
+  /**
+   * Report field for the number of traced messages which took the route.
+   */
+  public static final String REPORT_FIELD_COUNT = "count";
+
+  /**
+   * Report field for the median latency of the route, in milliseconds.
+   */
+  public static final String REPORT_FIELD_P50 = "p50";
+
+  /**
+   * Report field for the 99th percentile latency of the route, in milliseconds.
+   */
+  public static final String REPORT_FIELD_P99 = "p99";
+
+  /**
+   * Report field for the maximum latency of the route, in milliseconds.
+   */
+  public static final String REPORT_FIELD_MAX = "max";
+
+  /**
+   * The metrics registry the route latencies are recorded in.
+   */
+  private final MetricsRegistry metricsRegistry;
+
+  /**
+   * Construct a new collector.
+   *
+   * @param metricsRegistry
+   *          the metrics registry the route latencies are recorded in
+   */
+  public RouteLatencyCollector(MetricsRegistry metricsRegistry) {
+    this.metricsRegistry = metricsRegistry;
+  }
+
+  /**
+   * Get the latency report for all routes.
+   *
+   * @return the report for each route, indexed by route name and sorted by it
+   */
+  public Map<String, Map<String, Object>> getReport() {
+    Map<String, Map<String, Object>> report = Maps.newTreeMap();
+
+    for (Map.Entry<String, Histogram> entry : metricsRegistry.getHistograms(RouteTrace.METRIC_NAME_PREFIX).entrySet()) {
+      Map<String, Object> statistics = entry.getValue().getStatistics();
+
+      Map<String, Object> routeReport = Maps.newLinkedHashMap();
+      routeReport.put(REPORT_FIELD_COUNT, statistics.get(Histogram.STATISTICS_FIELD_COUNT));
+      routeReport.put(REPORT_FIELD_P50, statistics.get(Histogram.STATISTICS_FIELD_P50));
+      routeReport.put(REPORT_FIELD_P99, statistics.get(Histogram.STATISTICS_FIELD_P99));
+      routeReport.put(REPORT_FIELD_MAX, statistics.get(Histogram.STATISTICS_FIELD_MAX));
+
+      report.put(entry.getKey().substring(RouteTrace.METRIC_NAME_PREFIX.length()), routeReport);
+    }
+
+    return report;
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.messaging.route;
+
+/**
+ * Access to the route latency trace carried in a route message.
+ *
+ * @param <T>
+ *          the type of route messages
+ *
+ * @author Keith M. Hughes
+ */
+public interface RouteMessageTraceAccessor<T> {
+
+  /**
+   * Get the encoded trace from a message.
+   *
+   * @param message
+   *          the message
+   *
+   * @return the encoded trace, can be {@code null} or empty if the message is not being traced
+   */
+  String getTrace(T message);
+
+  /**
+   * Get a message with the contents of a message and a new encoded trace.
+   *
+   * <p>
+   * The message given still belongs to its writer and can be serialized after the write returns, so it must not be
+   * modified. A copy carrying the trace is returned instead.
+   *
+   * @param message
+   *          the message
+   * @param trace
+   *          the encoded trace, empty if the message is not being traced
+   *
+   * @return a copy of the message carrying the trace
+   */
+  T withTrace(T message, String trace);
+}
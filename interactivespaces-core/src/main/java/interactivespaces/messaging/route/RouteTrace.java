@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.messaging.route;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * The latency trace of a route message as it travels across activities.
+ *
+ * <p>
+ * A trace is only carried by messages which have been sampled for tracing, so the presence of a trace is the sampling
+ * flag. It holds the time the first message of the chain was written and the list of hops, one for each output route
+ * the chain was written on. The encoded form is {@code originTime;hop,hop,...}.
+ *
+ * <p>
+ * Latencies are computed from wall clock times on different hosts, so they are only as good as the clock
+ * synchronization between those hosts.
+ *
+ * <p>
+ * Instances are immutable.
+ *
+ * @author Keith M. Hughes
+ */
+public final class RouteTrace {
+
+  /**
+   * The encoded form of a message which is not being traced.
+   */
+  public static final String TRACE_NONE = "";
+
+  /**
+   * Prefix for the names of the route latency histograms. It is followed by the route name.
+   */
+  public static final String METRIC_NAME_PREFIX = "route.latency.";
+
+  /**
+   * The separator between the hops of a route name.
+   */
+  public static final String ROUTE_NAME_HOP_SEPARATOR = ">";
+
+  /**
+   * The separator between the activity and the channel of a hop.
+   */
+  public static final String HOP_CHANNEL_SEPARATOR = ":";
+
+  /**
+   * The maximum number of hops in a trace. Chains longer than this, such as route loops, stop being traced.
+   */
+  public static final int HOPS_MAXIMUM = 16;
+
+  /**
+   * The separator between the fields of an encoded trace.
+   */
+  private static final char FIELD_SEPARATOR = ';';
+
+  /**
+   * The separator between the hops of an encoded trace.
+   */
+  private static final char HOP_SEPARATOR = ',';
+
+  /**
+   * Matcher for the characters which cannot appear in a hop.
+   */
+  private static final CharMatcher HOP_RESERVED_CHARACTERS = CharMatcher.anyOf(";,>");
+
+  /**
+   * The replacement for reserved characters in a hop.
+   */
+  private static final char HOP_RESERVED_CHARACTER_REPLACEMENT = '_';
+
+  /**
+   * The time the traced chain of messages started, in milliseconds since the epoch.
+   */
+  private final long originTime;
+
+  /**
+   * The hops of the trace, in the order they were taken.
+   */
+  private final List<String> hops;
+
+  /**
+   * Create a new trace for a message which starts a chain.
+   *
+   * @param originTime
+   *          the time the message is being written, in milliseconds since the epoch
+   * @param hop
+   *          the hop the message is being written on
+   *
+   * @return the new trace
+   */
+  public static RouteTrace newTrace(long originTime, String hop) {
+    return new RouteTrace(originTime, ImmutableList.of(hop));
+  }
+
+  /**
+   * Get the hop for a channel of an activity.
+   *
+   * @param activityName
+   *          name of the activity
+   * @param channelId
+   *          ID of the route channel
+   *
+   * @return the hop
+   */
+  public static String newHop(String activityName, String channelId) {
+    return HOP_RESERVED_CHARACTERS.replaceFrom(activityName + HOP_CHANNEL_SEPARATOR + channelId,
+        HOP_RESERVED_CHARACTER_REPLACEMENT);
+  }
+
+  /**
+   * Decode a trace.
+   *
+   * @param encoded
+   *          the encoded trace, can be {@code null}
+   *
+   * @return the trace, or {@code null} if there was no trace or it could not be decoded
+   */
+  public static RouteTrace decode(String encoded) {
+    if (encoded == null || encoded.isEmpty()) {
+      return null;
+    }
+
+    int separator = encoded.indexOf(FIELD_SEPARATOR);
+    if (separator <= 0 || separator == encoded.length() - 1) {
+      return null;
+    }
+
+    try {
+      long originTime = Long.parseLong(encoded.substring(0, separator));
+      List<String> hops = Splitter.on(HOP_SEPARATOR).splitToList(encoded.substring(separator + 1));
+
+      return new RouteTrace(originTime, ImmutableList.copyOf(hops));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Construct a new trace.
+   *
+   * @param originTime
+   *          the time the traced chain of messages started
+   * @param hops
+   *          the hops of the trace
+   */
+  private RouteTrace(long originTime, List<String> hops) {
+    this.originTime = originTime;
+    this.hops = hops;
+  }
+
+  /**
+   * Get the time the traced chain of messages started.
+   *
+   * @return the time, in milliseconds since the epoch
+   */
+  public long getOriginTime() {
+    return originTime;
+  }
+
+  /**
+   * Get the hops of the trace.
+   *
+   * @return the hops, in the order they were taken
+   */
+  public List<String> getHops() {
+    return hops;
+  }
+
+  /**
+   * Get a new trace with a hop added to this one.
+   *
+   * @param hop
+   *          the hop to add
+   *
+   * @return the new trace, or {@code null} if the trace already has the maximum number of hops
+   */
+  public RouteTrace addHop(String hop) {
+    if (hops.size() >= HOPS_MAXIMUM) {
+      return null;
+    }
+
+    return new RouteTrace(originTime, ImmutableList.<String> builder().addAll(hops).add(hop).build());
+  }
+
+  /**
+   * Get the name of the route taken by the trace to a destination.
+   *
+   * @param destination
+   *          the hop the trace arrived at
+   *
+   * @return the route name
+   */
+  public String getRouteName(String destination) {
+    return Joiner.on(ROUTE_NAME_HOP_SEPARATOR).join(hops) + ROUTE_NAME_HOP_SEPARATOR + destination;
+  }
+
+  /**
+   * Encode the trace for placing in a message.
+   *
+   * @return the encoded trace
+   */
+  public String encode() {
+    StringBuilder builder = new StringBuilder().append(originTime).append(FIELD_SEPARATOR);
+    return Joiner.on(HOP_SEPARATOR).appendTo(builder, hops).toString();
+  }
+
+  @Override
+  public String toString() {
+    return "RouteTrace [originTime=" + originTime + ", hops=" + hops + "]";
+  }
+}
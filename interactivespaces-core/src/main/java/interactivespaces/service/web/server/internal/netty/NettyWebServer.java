@@ -28,6 +28,10 @@ import interactivespaces.service.web.server.HttpStaticContentRequestHandler;
 import interactivespaces.service.web.server.WebResourceAccessManager;
 import interactivespaces.service.web.server.WebServer;
 import interactivespaces.service.web.server.WebServerWebSocketHandlerFactory;
+import interactivespaces.util.metrics.Counter;
+import interactivespaces.util.metrics.DisabledMetricsRegistry;
+import interactivespaces.util.metrics.MetricsRegistry;
+import interactivespaces.util.metrics.Timer;
 import interactivespaces.util.web.MimeResolver;
 
 import com.google.common.collect.Lists;
@@ -64,6 +68,26 @@ import java.util.concurrent.ScheduledExecutorService;
  */
 public class NettyWebServer implements WebServer {
 
+  /**
+   * Prefix for the names of the server metrics. It is followed by the server name.
+   */
+  public static final String METRIC_NAME_PREFIX = "webserver.";
+
+  /**
+   * Metric name suffix for the timer of HTTP request handling.
+   */
+  public static final String METRIC_NAME_SUFFIX_HTTP_REQUEST = ".http.request";
+
+  /**
+   * Metric name suffix for the counter of web socket messages received.
+   */
+  public static final String METRIC_NAME_SUFFIX_WEBSOCKET_RECEIVE = ".websocket.receive";
+
+  /**
+   * Metric name suffix for the counter of web socket messages sent.
+   */
+  public static final String METRIC_NAME_SUFFIX_WEBSOCKET_SEND = ".websocket.send";
+
   /**
    * Name of the server.
    */
@@ -115,6 +139,26 @@ public class NettyWebServer implements WebServer {
    */
   private Log log;
 
+  /**
+   * The registry for the server metrics.
+   */
+  private MetricsRegistry metricsRegistry = DisabledMetricsRegistry.INSTANCE;
+
+  /**
+   * The timer for HTTP request handling.
+   */
+  private Timer httpRequestTimer;
+
+  /**
+   * The counter for web socket messages received.
+   */
+  private Counter webSocketReceiveCounter;
+
+  /**
+   * The counter for web socket messages sent.
+   */
+  private Counter webSocketSendCounter;
+
   /**
    * Bootstrap for the server.
    */
@@ -200,6 +244,11 @@ public class NettyWebServer implements WebServer {
 
     allChannels = new DefaultChannelGroup(serverName);
 
+    String metricNamePrefix = getMetricNamePrefix();
+    httpRequestTimer = metricsRegistry.getTimer(metricNamePrefix + METRIC_NAME_SUFFIX_HTTP_REQUEST);
+    webSocketReceiveCounter = metricsRegistry.getCounter(metricNamePrefix + METRIC_NAME_SUFFIX_WEBSOCKET_RECEIVE);
+    webSocketSendCounter = metricsRegistry.getCounter(metricNamePrefix + METRIC_NAME_SUFFIX_WEBSOCKET_SEND);
+
     channelFactory = new NioServerSocketChannelFactory(bossThreadPool, workerThreadPool);
 
     bootstrap = new ServerBootstrap(channelFactory);
@@ -265,6 +314,20 @@ public class NettyWebServer implements WebServer {
       bootstrap.shutdown();
       bootstrap = null;
     }
+
+    String metricNamePrefix = getMetricNamePrefix();
+    metricsRegistry.unregister(metricNamePrefix + METRIC_NAME_SUFFIX_HTTP_REQUEST);
+    metricsRegistry.unregister(metricNamePrefix + METRIC_NAME_SUFFIX_WEBSOCKET_RECEIVE);
+    metricsRegistry.unregister(metricNamePrefix + METRIC_NAME_SUFFIX_WEBSOCKET_SEND);
+  }
+
+  /**
+   * Get the prefix for the names of the metrics of this server.
+   *
+   * @return the metric name prefix
+   */
+  private String getMetricNamePrefix() {
+    return METRIC_NAME_PREFIX + serverName;
   }
 
   @Override
@@ -487,4 +550,44 @@ public class NettyWebServer implements WebServer {
   public Log getLog() {
     return log;
   }
+
+  /**
+   * Set the registry for the server metrics.
+   *
+   * <p>
+   * This must be called before the server is started.
+   *
+   * @param metricsRegistry
+   *          the metrics registry
+   */
+  public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+    this.metricsRegistry = metricsRegistry;
+  }
+
+  /**
+   * Get the timer for HTTP request handling.
+   *
+   * @return the timer
+   */
+  Timer getHttpRequestTimer() {
+    return httpRequestTimer;
+  }
+
+  /**
+   * Get the counter for web socket messages received.
+   *
+   * @return the counter
+   */
+  Counter getWebSocketReceiveCounter() {
+    return webSocketReceiveCounter;
+  }
+
+  /**
+   * Get the counter for web socket messages sent.
+   *
+   * @return the counter
+   */
+  Counter getWebSocketSendCounter() {
+    return webSocketSendCounter;
+  }
 }
@@ -34,6 +34,7 @@ import interactivespaces.service.web.server.HttpFileUploadListener;
 import interactivespaces.service.web.server.WebResourceAccessManager;
 import interactivespaces.service.web.server.WebServer;
 import interactivespaces.service.web.server.WebServerWebSocketHandlerFactory;
+import interactivespaces.util.metrics.Timer;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
@@ -234,7 +235,13 @@ public class NettyWebServerHandler extends SimpleChannelUpstreamHandler {
   public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
     Object msg = e.getMessage();
     if (msg instanceof HttpRequest) {
-      handleHttpRequest(ctx, (HttpRequest) msg);
+      Timer timer = webServer.getHttpRequestTimer();
+      long timerStart = timer.start();
+      try {
+        handleHttpRequest(ctx, (HttpRequest) msg);
+      } finally {
+        timer.stop(timerStart);
+      }
     } else if (msg instanceof WebSocketFrame) {
       handleWebSocketFrame(ctx, (WebSocketFrame) msg);
     } else if (msg instanceof HttpChunk) {
@@ -469,7 +476,7 @@ public class NettyWebServerHandler extends SimpleChannelUpstreamHandler {
         public void operationComplete(ChannelFuture future) throws Exception {
           NettyWebServerWebSocketConnection connection =
               new NettyWebServerWebSocketConnection(channel, user, handshaker, webSocketHandlerFactory, accessManager,
-                  webServer.getLog());
+                  webServer.getWebSocketReceiveCounter(), webServer.getWebSocketSendCounter(), webServer.getLog());
           webSocketConnections.put(channel.getId(), connection);
 
           connection.getHandler().onConnect();
@@ -93,7 +93,8 @@ public class NettyWebServerService extends BaseWebServerService {
   public synchronized WebServer newWebServer(Log log) {
     ScheduledExecutorService threadPool = getSpaceEnvironment().getExecutorService();
 
-    WebServer server = new NettyWebServer(threadPool, threadPool, log);
+    NettyWebServer server = new NettyWebServer(threadPool, threadPool, log);
+    server.setMetricsRegistry(getSpaceEnvironment().getMetricsRegistry());
     server.setDefaultMimeResolver(getDefaultHttpMimeResolver());
 
     addServer(server);
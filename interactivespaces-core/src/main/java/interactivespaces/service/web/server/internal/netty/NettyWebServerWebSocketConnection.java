@@ -22,6 +22,7 @@ import interactivespaces.service.web.server.WebResourceAccessManager;
 import interactivespaces.service.web.server.WebServerWebSocketHandlerFactory;
 import interactivespaces.util.data.json.JsonMapper;
 import interactivespaces.util.data.json.StandardJsonMapper;
+import interactivespaces.util.metrics.Counter;
 
 import org.apache.commons.logging.Log;
 import org.jboss.netty.channel.Channel;
@@ -76,6 +77,16 @@ public class NettyWebServerWebSocketConnection implements WebSocketConnection {
    */
   private WebResourceAccessManager accessManager;
 
+  /**
+   * The counter for messages received.
+   */
+  private Counter receiveCounter;
+
+  /**
+   * The counter for messages sent.
+   */
+  private Counter sendCounter;
+
   /**
    * All continuation data seen to date.
    */
@@ -94,14 +105,21 @@ public class NettyWebServerWebSocketConnection implements WebSocketConnection {
    *          the factory for creating web socket handlers
    * @param accessManager
    *          the access manager for web resources
+   * @param receiveCounter
+   *          the counter for messages received
+   * @param sendCounter
+   *          the counter for messages sent
    * @param log
    *          the logger for the connection
    */
   public NettyWebServerWebSocketConnection(Channel channel, String user, WebSocketServerHandshaker handshaker,
-      WebServerWebSocketHandlerFactory handlerFactory, WebResourceAccessManager accessManager, Log log) {
+      WebServerWebSocketHandlerFactory handlerFactory, WebResourceAccessManager accessManager, Counter receiveCounter,
+      Counter sendCounter, Log log) {
     this.channel = channel;
     this.handshaker = handshaker;
     this.accessManager = accessManager;
+    this.receiveCounter = receiveCounter;
+    this.sendCounter = sendCounter;
     this.log = log;
     this.user = user;
     handler = handlerFactory.newWebSocketHandler(this);
@@ -217,6 +235,8 @@ public class NettyWebServerWebSocketConnection implements WebSocketConnection {
    *          the complete data of the message
    */
   private void handleTextData(String textData) {
+    receiveCounter.increment();
+
     if (accessManager != null) {
       if (!accessManager.allowWebsocketCall(getUser(), textData)) {
         return;
@@ -233,6 +253,7 @@ public class NettyWebServerWebSocketConnection implements WebSocketConnection {
   public void writeDataAsJson(Object data) {
     try {
       channel.write(new TextWebSocketFrame(MAPPER.toString(data)));
+      sendCounter.increment();
     } catch (Exception e) {
       log.error("Could not write JSON object on web socket", e);
     }
@@ -242,6 +263,7 @@ public class NettyWebServerWebSocketConnection implements WebSocketConnection {
   public void writeDataAsString(String data) {
     try {
       channel.write(new TextWebSocketFrame(data));
+      sendCounter.increment();
     } catch (Exception e) {
       log.error("Could not write string data on web socket", e);
     }
@@ -21,6 +21,7 @@ import interactivespaces.service.ServiceRegistry;
 import interactivespaces.system.core.configuration.CoreConfiguration;
 import interactivespaces.system.core.logging.LoggingProvider;
 import interactivespaces.time.TimeProvider;
+import interactivespaces.util.metrics.MetricsRegistry;
 
 import org.apache.commons.logging.Log;
 
@@ -116,6 +117,17 @@ public interface InteractiveSpacesEnvironment {
    */
   String CONFIGURATION_VALUE_PROVIDER_TIME_DEFAULT = CONFIGURATION_VALUE_PROVIDER_TIME_LOCAL;
 
+  /**
+   * Configuration property which is {@code true} if metrics should be
+   * recorded.
+   */
+  String CONFIGURATION_METRICS_ENABLE = "interactivespaces.metrics.enable";
+
+  /**
+   * The default value for whether metrics should be recorded.
+   */
+  boolean CONFIGURATION_VALUE_METRICS_ENABLE_DEFAULT = false;
+
   /**
    * Configuration property giving the location of the system's permanent data
    * directory.
@@ -244,6 +256,16 @@ public interface InteractiveSpacesEnvironment {
    */
   TimeProvider getTimeProvider();
 
+  /**
+   * Get the metrics registry.
+   *
+   * <p>
+   * The registry records nothing if metrics are not enabled.
+   *
+   * @return the metrics registry
+   */
+  MetricsRegistry getMetricsRegistry();
+
   /**
    * Get the service registry.
    *
@@ -19,6 +19,7 @@ package interactivespaces.system;
 import interactivespaces.configuration.Configuration;
 import interactivespaces.system.core.logging.LoggingProvider;
 import interactivespaces.time.TimeProvider;
+import interactivespaces.util.metrics.MetricsRegistry;
 
 import java.util.concurrent.ScheduledExecutorService;
 
@@ -88,4 +89,12 @@ public interface InternalInteractiveSpacesEnvironment {
    *          the logging provider
    */
   void setLoggingProvider(LoggingProvider loggingProvider);
+
+  /**
+   * Set the metrics registry.
+   *
+   * @param metricsRegistry
+   *          the metrics registry
+   */
+  void setMetricsRegistry(MetricsRegistry metricsRegistry);
 }
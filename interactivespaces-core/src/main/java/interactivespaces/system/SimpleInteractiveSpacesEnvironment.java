@@ -19,6 +19,8 @@ package interactivespaces.system;
 import interactivespaces.configuration.Configuration;
 import interactivespaces.service.ServiceRegistry;
 import interactivespaces.time.TimeProvider;
+import interactivespaces.util.metrics.DisabledMetricsRegistry;
+import interactivespaces.util.metrics.MetricsRegistry;
 
 import com.google.common.collect.Maps;
 
@@ -67,6 +69,11 @@ public class SimpleInteractiveSpacesEnvironment implements InteractiveSpacesEnvi
    */
   private TimeProvider timeProvider;
 
+  /**
+   * The metrics registry.
+   */
+  private MetricsRegistry metricsRegistry = DisabledMetricsRegistry.INSTANCE;
+
   /**
    * Simple value map.
    */
@@ -115,6 +122,11 @@ public class SimpleInteractiveSpacesEnvironment implements InteractiveSpacesEnvi
     return timeProvider;
   }
 
+  @Override
+  public MetricsRegistry getMetricsRegistry() {
+    return metricsRegistry;
+  }
+
   @Override
   public ServiceRegistry getServiceRegistry() {
     return serviceRegistry;
@@ -183,4 +195,12 @@ public class SimpleInteractiveSpacesEnvironment implements InteractiveSpacesEnvi
   public void setTimeProvider(TimeProvider timeProvider) {
     this.timeProvider = timeProvider;
   }
+
+  /**
+   * @param metricsRegistry
+   *          the metrics registry to set
+   */
+  public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+    this.metricsRegistry = metricsRegistry;
+  }
 }
@@ -22,6 +22,8 @@ import interactivespaces.service.ServiceRegistry;
 import interactivespaces.service.SimpleServiceRegistry;
 import interactivespaces.time.SettableTimeProvider;
 import interactivespaces.time.TimeProvider;
+import interactivespaces.util.metrics.DisabledMetricsRegistry;
+import interactivespaces.util.metrics.MetricsRegistry;
 import interactivespaces.util.resource.ManagedResource;
 import interactivespaces.util.resource.ManagedResources;
 
@@ -95,6 +97,11 @@ public final class StandaloneInteractiveSpacesEnvironment implements Interactive
    */
   private TimeProvider timeProvider;
 
+  /**
+   * The metrics registry.
+   */
+  private MetricsRegistry metricsRegistry = DisabledMetricsRegistry.INSTANCE;
+
   /**
    * Simple value map.
    */
@@ -154,6 +161,11 @@ public final class StandaloneInteractiveSpacesEnvironment implements Interactive
     return timeProvider;
   }
 
+  @Override
+  public MetricsRegistry getMetricsRegistry() {
+    return metricsRegistry;
+  }
+
   @Override
   public ServiceRegistry getServiceRegistry() {
     return serviceRegistry;
@@ -213,6 +225,16 @@ public final class StandaloneInteractiveSpacesEnvironment implements Interactive
     this.timeProvider = timeProvider;
   }
 
+  /**
+   * Set the metrics registry to use, metrics are not recorded by default.
+   *
+   * @param metricsRegistry
+   *          the metrics registry
+   */
+  public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+    this.metricsRegistry = metricsRegistry;
+  }
+
   /**
    * Add a managed resource.
    *
@@ -0,0 +1,457 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.concurrency;
+
+import interactivespaces.system.InteractiveSpacesEnvironment;
+import interactivespaces.util.metrics.Counter;
+import interactivespaces.util.metrics.Gauge;
+import interactivespaces.util.metrics.MetricsRegistry;
+import interactivespaces.util.metrics.Timer;
+
+import com.google.common.base.Preconditions;
+
+import org.apache.commons.logging.Log;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An event queue which will run its event handlers in First in, First Out order from a bounded ring buffer.
+ *
+ * <p>
+ * Any number of threads can add events without taking a lock, a single thread runs them. The running thread takes
+ * events off in batches, freeing their slots in the buffer before running them. How the running thread waits for new
+ * events is set by the {@link WaitStrategy}.
+ *
+ * <p>
+ * The buffer has a fixed capacity. {@link #offerEvent(Runnable)} tells the producer the queue is full by returning
+ * {@code false}, {@link #addEvent(Runnable)} waits for room. An event added from an event running on the queue is
+ * dropped if the queue is full, since waiting would never end.
+ *
+ * <p>
+ * While running, the depth of the queue is available as the gauge {@code eventqueue.<name>.depth}, the time taken by
+ * each event as the timer {@code eventqueue.<name>.event}, and the number of times a producer found the queue full as
+ * the counter {@code eventqueue.<name>.full} in the metrics registry of the space environment.
+ *
+ * @author Keith M. Hughes
+ */
+public class RingBufferSequentialEventQueue implements SequentialEventQueue {
+
+  /**
+   * How the thread running events waits for new events.
+   *
+   * @author Keith M. Hughes
+   */
+  public enum WaitStrategy {
+
+    /**
+     * Sleep until a producer wakes the thread up. Uses no processor time while idle, but producers pay for the wake
+     * up.
+     */
+    BLOCK,
+
+    /**
+     * Sleep for a short time and check again. Producers never wake the thread up, at the cost of latency while idle.
+     */
+    PARK,
+
+    /**
+     * Keep checking. Has the lowest latency, but uses a whole processor even when idle.
+     */
+    SPIN
+  }
+
+  /**
+   * The default capacity of the queue.
+   */
+  public static final int CAPACITY_DEFAULT = 4096;
+
+  /**
+   * The default maximum number of events taken off the queue at once.
+   */
+  public static final int MAX_BATCH_SIZE_DEFAULT = 256;
+
+  /**
+   * Metric name suffix for the counter of producers finding the queue full.
+   */
+  public static final String METRIC_NAME_SUFFIX_FULL = ".full";
+
+  /**
+   * How long a waiting thread parks each time, in nanoseconds.
+   */
+  public static final long PARK_TIME_DEFAULT = TimeUnit.MICROSECONDS.toNanos(50);
+
+  /**
+   * The slots of the ring buffer. An empty slot is {@code null}.
+   */
+  private final AtomicReferenceArray<Runnable> slots;
+
+  /**
+   * Mask for turning a sequence number into a slot index.
+   */
+  private final int mask;
+
+  /**
+   * The sequence number of the next slot a producer will claim.
+   */
+  private final AtomicLong tail = new AtomicLong();
+
+  /**
+   * The sequence number of the next slot the consumer will take. Only written by the consumer.
+   */
+  private final AtomicLong head = new AtomicLong();
+
+  /**
+   * The events taken off the queue in the current batch.
+   */
+  private final Runnable[] batch;
+
+  /**
+   * How the consumer waits for events.
+   */
+  private final WaitStrategy waitStrategy;
+
+  /**
+   * {@code true} if the consumer is waiting to be woken up by a producer.
+   */
+  private volatile boolean consumerWaiting;
+
+  /**
+   * The thread running events, {@code null} if there is none.
+   */
+  private volatile Thread consumerThread;
+
+  /**
+   * {@code true} if the queue has been shut down.
+   */
+  private volatile boolean shutdown;
+
+  /**
+   * The queue future, used for shutting the queue down.
+   */
+  private Future<?> queueFuture;
+
+  /**
+   * The space environment to run under.
+   */
+  private final InteractiveSpacesEnvironment spaceEnvironment;
+
+  /**
+   * The name of the queue, used for its metrics.
+   */
+  private final String name;
+
+  /**
+   * The timer for event processing.
+   */
+  private Timer eventTimer;
+
+  /**
+   * The counter of producers finding the queue full.
+   */
+  private volatile Counter fullCounter;
+
+  /**
+   * The logger for errors.
+   */
+  private final Log log;
+
+  /**
+   * Construct a new event queue with the default capacity, batch size, and a blocking wait.
+   *
+   * @param name
+   *          the name of the queue
+   * @param spaceEnvironment
+   *          the space environment the queue will use
+   * @param log
+   *          the logger to use
+   */
+  public RingBufferSequentialEventQueue(String name, InteractiveSpacesEnvironment spaceEnvironment, Log log) {
+    this(name, CAPACITY_DEFAULT, MAX_BATCH_SIZE_DEFAULT, WaitStrategy.BLOCK, spaceEnvironment, log);
+  }
+
+  /**
+   * Construct a new event queue.
+   *
+   * @param name
+   *          the name of the queue
+   * @param capacity
+   *          the number of events the queue can hold, is rounded up to a power of two
+   * @param maxBatchSize
+   *          the maximum number of events taken off the queue at once
+   * @param waitStrategy
+   *          how the thread running events waits for new events
+   * @param spaceEnvironment
+   *          the space environment the queue will use
+   * @param log
+   *          the logger to use
+   */
+  public RingBufferSequentialEventQueue(String name, int capacity, int maxBatchSize, WaitStrategy waitStrategy,
+      InteractiveSpacesEnvironment spaceEnvironment, Log log) {
+    Preconditions.checkArgument(capacity > 0 && capacity <= (1 << 30), "Capacity %s out of range", capacity);
+    Preconditions.checkArgument(maxBatchSize > 0, "Maximum batch size %s must be positive", maxBatchSize);
+
+    int size = Integer.highestOneBit(capacity);
+    if (size < capacity) {
+      size <<= 1;
+    }
+    slots = new AtomicReferenceArray<Runnable>(size);
+    mask = size - 1;
+    batch = new Runnable[Math.min(maxBatchSize, size)];
+
+    this.name = name;
+    this.waitStrategy = waitStrategy;
+    this.spaceEnvironment = spaceEnvironment;
+    this.log = log;
+  }
+
+  @Override
+  public synchronized void startup() {
+    MetricsRegistry metricsRegistry = spaceEnvironment.getMetricsRegistry();
+    String metricNamePrefix = SimpleSequentialEventQueue.METRIC_NAME_PREFIX + name;
+    eventTimer = metricsRegistry.getTimer(metricNamePrefix + SimpleSequentialEventQueue.METRIC_NAME_SUFFIX_EVENT);
+    fullCounter = metricsRegistry.getCounter(metricNamePrefix + METRIC_NAME_SUFFIX_FULL);
+    metricsRegistry.registerGauge(metricNamePrefix + SimpleSequentialEventQueue.METRIC_NAME_SUFFIX_DEPTH,
+        new Gauge() {
+          @Override
+          public long getValue() {
+            return getSize();
+          }
+        });
+
+    shutdown = false;
+    queueFuture = spaceEnvironment.getExecutorService().submit(new Runnable() {
+      @Override
+      public void run() {
+        processEvents();
+      }
+    });
+  }
+
+  @Override
+  public synchronized void shutdown() {
+    if (queueFuture != null) {
+      shutdown = true;
+      queueFuture.cancel(true);
+      queueFuture = null;
+
+      spaceEnvironment.getMetricsRegistry().unregisterGauge(
+          SimpleSequentialEventQueue.METRIC_NAME_PREFIX + name + SimpleSequentialEventQueue.METRIC_NAME_SUFFIX_DEPTH);
+    }
+  }
+
+  /**
+   * Add a new event to the queue, waiting for room if the queue is full.
+   *
+   * <p>
+   * The event is dropped if the queue is shut down while waiting, or the queue is full and the event is being added by
+   * an event running on the queue.
+   *
+   * @param event
+   *          the new event
+   */
+  @Override
+  public void addEvent(Runnable event) {
+    if (tryAddEvent(event)) {
+      return;
+    }
+
+    countFull();
+    do {
+      if (shutdown) {
+        return;
+      }
+      if (Thread.currentThread() == consumerThread) {
+        log.error(String.format("Event queue %s is full, dropping event added from the queue thread", name));
+        return;
+      }
+
+      LockSupport.parkNanos(PARK_TIME_DEFAULT);
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+    } while (!tryAddEvent(event));
+  }
+
+  /**
+   * Add a new event to the queue if there is room.
+   *
+   * @param event
+   *          the new event
+   *
+   * @return {@code true} if the event was added, {@code false} if the queue was full
+   */
+  public boolean offerEvent(Runnable event) {
+    if (tryAddEvent(event)) {
+      return true;
+    }
+
+    countFull();
+    return false;
+  }
+
+  /**
+   * Add a new event to the queue if there is room.
+   *
+   * @param event
+   *          the new event
+   *
+   * @return {@code true} if the event was added, {@code false} if the queue was full
+   */
+  private boolean tryAddEvent(Runnable event) {
+    Preconditions.checkNotNull(event, "Event cannot be null");
+
+    long sequence;
+    do {
+      sequence = tail.get();
+      if (sequence - head.get() > mask) {
+        return false;
+      }
+    } while (!tail.compareAndSet(sequence, sequence + 1));
+
+    slots.set((int) (sequence & mask), event);
+
+    if (consumerWaiting) {
+      consumerWaiting = false;
+      LockSupport.unpark(consumerThread);
+    }
+
+    return true;
+  }
+
+  /**
+   * Count a producer finding the queue full.
+   */
+  private void countFull() {
+    Counter counter = fullCounter;
+    if (counter != null) {
+      counter.increment();
+    }
+  }
+
+  /**
+   * Get the number of events in the queue.
+   *
+   * @return the number of events
+   */
+  public int getSize() {
+    return (int) Math.max(0, tail.get() - head.get());
+  }
+
+  /**
+   * Get the number of events which can be added before the queue is full.
+   *
+   * @return the remaining capacity
+   */
+  public int getRemainingCapacity() {
+    return getCapacity() - getSize();
+  }
+
+  /**
+   * Get the number of events the queue can hold.
+   *
+   * @return the capacity
+   */
+  public int getCapacity() {
+    return mask + 1;
+  }
+
+  /**
+   * Process events until the event processing thread is interrupted.
+   */
+  private void processEvents() {
+    consumerThread = Thread.currentThread();
+    try {
+      while (!Thread.interrupted()) {
+        if (processNextBatch() == 0) {
+          waitForEvents();
+        }
+      }
+    } finally {
+      consumerWaiting = false;
+      consumerThread = null;
+    }
+  }
+
+  /**
+   * Take the next batch of events off the queue and run them.
+   *
+   * @return the number of events run
+   */
+  private int processNextBatch() {
+    long sequence = head.get();
+    int batchSize = 0;
+    while (batchSize < batch.length) {
+      int index = (int) (sequence & mask);
+      Runnable event = slots.get(index);
+      if (event == null) {
+        break;
+      }
+
+      slots.lazySet(index, null);
+      batch[batchSize++] = event;
+      sequence++;
+    }
+
+    if (batchSize > 0) {
+      head.lazySet(sequence);
+
+      for (int i = 0; i < batchSize; i++) {
+        Runnable event = batch[i];
+        batch[i] = null;
+        try {
+          long timerStart = eventTimer.start();
+          event.run();
+          eventTimer.stop(timerStart);
+        } catch (Exception e) {
+          log.error("Error during event processing", e);
+        }
+      }
+    }
+
+    return batchSize;
+  }
+
+  /**
+   * Wait for an event to be added, or the thread to be interrupted.
+   */
+  private void waitForEvents() {
+    int index = (int) (head.get() & mask);
+
+    switch (waitStrategy) {
+      case BLOCK:
+        consumerWaiting = true;
+        // A producer may have added an event before seeing the consumer was waiting.
+        if (slots.get(index) == null) {
+          LockSupport.park(this);
+        }
+        consumerWaiting = false;
+        break;
+
+      case PARK:
+        LockSupport.parkNanos(this, PARK_TIME_DEFAULT);
+        break;
+
+      default:
+        // Spin.
+        break;
+    }
+  }
+}
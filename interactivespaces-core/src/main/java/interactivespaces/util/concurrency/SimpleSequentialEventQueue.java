@@ -17,6 +17,9 @@
 package interactivespaces.util.concurrency;
 
 import interactivespaces.system.InteractiveSpacesEnvironment;
+import interactivespaces.util.metrics.Gauge;
+import interactivespaces.util.metrics.MetricsRegistry;
+import interactivespaces.util.metrics.Timer;
 
 import org.apache.commons.logging.Log;
 
@@ -27,10 +30,34 @@ import java.util.concurrent.LinkedBlockingQueue;
 /**
  * An event queue which will run its event handlers in First in, First Out order.
  *
+ * <p>
+ * While running, the depth of the queue is available as the gauge {@code eventqueue.<name>.depth} and the time taken by
+ * each event as the timer {@code eventqueue.<name>.event} in the metrics registry of the space environment.
+ *
  * @author Keith M. Hughes
  */
 public class SimpleSequentialEventQueue implements SequentialEventQueue {
 
+  /**
+   * The name of a queue when none is given.
+   */
+  public static final String QUEUE_NAME_DEFAULT = "sequential";
+
+  /**
+   * Prefix for the names of the queue metrics. It is followed by the queue name.
+   */
+  public static final String METRIC_NAME_PREFIX = "eventqueue.";
+
+  /**
+   * Metric name suffix for the gauge of the queue depth.
+   */
+  public static final String METRIC_NAME_SUFFIX_DEPTH = ".depth";
+
+  /**
+   * Metric name suffix for the timer of event processing.
+   */
+  public static final String METRIC_NAME_SUFFIX_EVENT = ".event";
+
   /**
    * The list of events to process.
    */
@@ -46,13 +73,23 @@ public class SimpleSequentialEventQueue implements SequentialEventQueue {
    */
   private InteractiveSpacesEnvironment spaceEnvironment;
 
+  /**
+   * The name of the queue, used for its metrics.
+   */
+  private final String name;
+
+  /**
+   * The timer for event processing.
+   */
+  private Timer eventTimer;
+
   /**
    * The logger for errors.
    */
   private Log log;
 
   /**
-   * Construct a new event queue.
+   * Construct a new event queue with the default name.
    *
    * @param spaceEnvironment
    *          the space environment the queue will use
@@ -60,12 +97,36 @@ public class SimpleSequentialEventQueue implements SequentialEventQueue {
    *          the logger to use
    */
   public SimpleSequentialEventQueue(InteractiveSpacesEnvironment spaceEnvironment, Log log) {
+    this(QUEUE_NAME_DEFAULT, spaceEnvironment, log);
+  }
+
+  /**
+   * Construct a new event queue.
+   *
+   * @param name
+   *          the name of the queue
+   * @param spaceEnvironment
+   *          the space environment the queue will use
+   * @param log
+   *          the logger to use
+   */
+  public SimpleSequentialEventQueue(String name, InteractiveSpacesEnvironment spaceEnvironment, Log log) {
+    this.name = name;
     this.spaceEnvironment = spaceEnvironment;
     this.log = log;
   }
 
   @Override
   public void startup() {
+    MetricsRegistry metricsRegistry = spaceEnvironment.getMetricsRegistry();
+    eventTimer = metricsRegistry.getTimer(METRIC_NAME_PREFIX + name + METRIC_NAME_SUFFIX_EVENT);
+    metricsRegistry.registerGauge(METRIC_NAME_PREFIX + name + METRIC_NAME_SUFFIX_DEPTH, new Gauge() {
+      @Override
+      public long getValue() {
+        return events.size();
+      }
+    });
+
     queueFuture = spaceEnvironment.getExecutorService().submit(new Runnable() {
       @Override
       public void run() {
@@ -81,6 +142,8 @@ public class SimpleSequentialEventQueue implements SequentialEventQueue {
       queueFuture = null;
 
       events.clear();
+
+      spaceEnvironment.getMetricsRegistry().unregisterGauge(METRIC_NAME_PREFIX + name + METRIC_NAME_SUFFIX_DEPTH);
     }
   }
 
@@ -116,7 +179,9 @@ public class SimpleSequentialEventQueue implements SequentialEventQueue {
     try {
       Runnable event = events.take();
 
+      long timerStart = eventTimer.start();
       event.run();
+      eventTimer.stop(timerStart);
     } catch (InterruptedException e) {
       throw e;
     } catch (Exception e) {
@@ -33,6 +33,11 @@ public class CsvColumnSource implements ColumnSource {
    */
   private int pos = 0;
 
+  /**
+   * {@code true} if the line has not been read up to its final column.
+   */
+  private boolean moreColumns;
+
   /**
    * Buffer for building up the data.
    */
@@ -47,12 +52,32 @@ public class CsvColumnSource implements ColumnSource {
   public void setLine(String line) {
     this.line = line;
     pos = 0;
+    moreColumns = true;
+  }
+
+  /**
+   * Are there more columns in the line?
+   *
+   * @return {@code true} if there are more columns
+   */
+  public boolean hasMoreColumns() {
+    return moreColumns;
   }
 
   @Override
   public String getColumn() {
     builder.setLength(0);
 
+    if (pos >= line.length()) {
+      // An empty final column.
+      pos++;
+      moreColumns = false;
+      return "";
+    }
+
+    // Only a separator after this column means there is another one.
+    boolean endedOnSeparator = false;
+
     char c = line.charAt(pos);
     boolean quoted = c == '"';
     if (quoted)
@@ -60,6 +85,7 @@ public class CsvColumnSource implements ColumnSource {
     for (; pos < line.length(); pos++) {
       c = line.charAt(pos);
       if (c == ',' && !quoted) {
+        endedOnSeparator = true;
         break;
       }
 
@@ -80,6 +106,7 @@ public class CsvColumnSource implements ColumnSource {
 
               // skip over quote
               pos++;
+              endedOnSeparator = line.charAt(pos) == ',';
 
               break;
             }
@@ -98,6 +125,7 @@ public class CsvColumnSource implements ColumnSource {
     // need to move on, or this doesn't matter as we are at the end of
     // the string.
     pos++;
+    moreColumns = endedOnSeparator;
 
     return new String(builder.toString());
   }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.data.columnar;
+
+/**
+ * The types of columns in a columnar file.
+ *
+ * @author Keith M. Hughes
+ */
+public enum ColumnType {
+
+  /**
+   * 32 bit signed integers.
+   */
+  INT(1),
+
+  /**
+   * 64 bit signed integers.
+   */
+  LONG(2),
+
+  /**
+   * 64 bit floating point numbers.
+   */
+  DOUBLE(3),
+
+  /**
+   * Strings, stored as UTF-8.
+   */
+  STRING(4);
+
+  /**
+   * The code for the type in a columnar file.
+   */
+  private final int code;
+
+  /**
+   * Construct a column type.
+   *
+   * @param code
+   *          the code for the type in a columnar file
+   */
+  private ColumnType(int code) {
+    this.code = code;
+  }
+
+  /**
+   * Get the code for the type in a columnar file.
+   *
+   * @return the code
+   */
+  public int getCode() {
+    return code;
+  }
+
+  /**
+   * Get the column type for a code.
+   *
+   * @param code
+   *          the code for the type in a columnar file
+   *
+   * @return the column type, or {@code null} if the code is not known
+   */
+  public static ColumnType fromCode(int code) {
+    for (ColumnType type : values()) {
+      if (type.code == code) {
+        return type;
+      }
+    }
+
+    return null;
+  }
+}
@@ -0,0 +1,467 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.data.columnar;
+
+import interactivespaces.InteractiveSpacesException;
+import interactivespaces.SimpleInteractiveSpacesException;
+import interactivespaces.util.io.FileSupport;
+import interactivespaces.util.io.FileSupportImpl;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A memory mapped file of typed columns.
+ *
+ * <p>
+ * The file is written by a {@link ColumnarFileWriter}. Each column has a name, a {@link ColumnType}, and its own
+ * number of values, so a file can hold a table whose columns all have the same length, or related arrays of
+ * different lengths.
+ *
+ * <p>
+ * Values are read straight from the mapped file. Numeric columns can be read a value at a time without boxing, or
+ * as a whole through a read-only buffer view. Only the parts of the file which are read are brought into memory, and
+ * the data does not count against the Java heap.
+ *
+ * <p>
+ * Files must be smaller than 2GB. Instances are safe to share between threads.
+ *
+ * <h2>File format</h2>
+ *
+ * <p>
+ * All numbers are little endian. The file starts with the magic number {@link #MAGIC}, the format version, and the
+ * number of columns. For each column follows the length of its UTF-8 name as a short, the name, the type code as a
+ * byte, the number of values as an int, and the offset of the column data in the file as a long. Column data starts
+ * on an 8 byte boundary. Numeric columns are arrays of values. String columns are an array of {@code length + 1} int
+ * offsets into the UTF-8 bytes of the strings, which follow the offsets.
+ *
+ * @author Keith M. Hughes
+ */
+public class ColumnarFile {
+
+  /**
+   * The magic number which starts a columnar file.
+   */
+  public static final int MAGIC = 0x49534346;
+
+  /**
+   * The current version of the file format.
+   */
+  public static final int VERSION = 1;
+
+  /**
+   * The byte order of columnar files.
+   */
+  public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+  /**
+   * The file support to use.
+   */
+  private final FileSupport fileSupport = FileSupportImpl.INSTANCE;
+
+  /**
+   * The file which was mapped.
+   */
+  private final File file;
+
+  /**
+   * The mapped file.
+   */
+  private final ByteBuffer buffer;
+
+  /**
+   * The names of the columns.
+   */
+  private final String[] names;
+
+  /**
+   * The types of the columns.
+   */
+  private final ColumnType[] types;
+
+  /**
+   * The number of values in each column.
+   */
+  private final int[] lengths;
+
+  /**
+   * The view of each {@link ColumnType#INT} column, or of the string offsets of each {@link ColumnType#STRING}
+   * column.
+   */
+  private final IntBuffer[] intColumns;
+
+  /**
+   * The view of each {@link ColumnType#LONG} column.
+   */
+  private final LongBuffer[] longColumns;
+
+  /**
+   * The view of each {@link ColumnType#DOUBLE} column.
+   */
+  private final DoubleBuffer[] doubleColumns;
+
+  /**
+   * Position in the file of the string bytes of each {@link ColumnType#STRING} column.
+   */
+  private final int[] stringDataPositions;
+
+  /**
+   * Map of column names to their indices.
+   */
+  private final Map<String, Integer> columnIndices = Maps.newHashMap();
+
+  /**
+   * Map a columnar file.
+   *
+   * @param file
+   *          the file
+   *
+   * @throws InteractiveSpacesException
+   *           the file could not be read or is not a columnar file
+   */
+  public ColumnarFile(File file) throws InteractiveSpacesException {
+    this.file = file;
+
+    RandomAccessFile randomAccessFile = null;
+    try {
+      randomAccessFile = new RandomAccessFile(file, "r");
+      FileChannel channel = randomAccessFile.getChannel();
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new SimpleInteractiveSpacesException(String.format("Columnar file %s is too large to map",
+            file.getAbsolutePath()));
+      }
+
+      // The mapping stays valid after the channel is closed.
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(BYTE_ORDER);
+    } catch (InteractiveSpacesException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new InteractiveSpacesException(String.format("Unable to map columnar file %s", file.getAbsolutePath()),
+          e);
+    } finally {
+      fileSupport.close(randomAccessFile, false);
+    }
+
+    try {
+      if (buffer.getInt() != MAGIC) {
+        throw new SimpleInteractiveSpacesException(String.format("File %s is not a columnar file",
+            file.getAbsolutePath()));
+      }
+      int version = buffer.getInt();
+      if (version != VERSION) {
+        throw new SimpleInteractiveSpacesException(String.format("Columnar file %s has unsupported version %d",
+            file.getAbsolutePath(), version));
+      }
+
+      int numberColumns = buffer.getInt();
+      names = new String[numberColumns];
+      types = new ColumnType[numberColumns];
+      lengths = new int[numberColumns];
+      intColumns = new IntBuffer[numberColumns];
+      longColumns = new LongBuffer[numberColumns];
+      doubleColumns = new DoubleBuffer[numberColumns];
+      stringDataPositions = new int[numberColumns];
+
+      for (int column = 0; column < numberColumns; column++) {
+        byte[] name = new byte[buffer.getShort() & 0xffff];
+        buffer.get(name);
+        names[column] = new String(name, Charsets.UTF_8);
+        columnIndices.put(names[column], column);
+
+        int typeCode = buffer.get();
+        types[column] = ColumnType.fromCode(typeCode);
+        if (types[column] == null) {
+          throw new SimpleInteractiveSpacesException(String.format("Column %s of columnar file %s has unknown type %d",
+              names[column], file.getAbsolutePath(), typeCode));
+        }
+        lengths[column] = buffer.getInt();
+        mapColumn(column, (int) buffer.getLong());
+      }
+    } catch (RuntimeException e) {
+      if (e instanceof InteractiveSpacesException) {
+        throw e;
+      }
+      throw new SimpleInteractiveSpacesException(String.format("Columnar file %s is corrupt", file.getAbsolutePath()),
+          e);
+    }
+  }
+
+  /**
+   * Get the file which was mapped.
+   *
+   * @return the file
+   */
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * Get the number of columns.
+   *
+   * @return the number of columns
+   */
+  public int getColumnCount() {
+    return names.length;
+  }
+
+  /**
+   * Get the name of a column.
+   *
+   * @param column
+   *          index of the column
+   *
+   * @return the name of the column
+   */
+  public String getColumnName(int column) {
+    return names[column];
+  }
+
+  /**
+   * Get the type of a column.
+   *
+   * @param column
+   *          index of the column
+   *
+   * @return the type of the column
+   */
+  public ColumnType getColumnType(int column) {
+    return types[column];
+  }
+
+  /**
+   * Get the number of values in a column.
+   *
+   * @param column
+   *          index of the column
+   *
+   * @return the number of values
+   */
+  public int getColumnLength(int column) {
+    return lengths[column];
+  }
+
+  /**
+   * Get the index of a column.
+   *
+   * @param name
+   *          name of the column
+   *
+   * @return the index of the column, or {@code -1} if there is no such column
+   */
+  public int getColumnIndex(String name) {
+    Integer column = columnIndices.get(name);
+
+    return (column != null) ? column : -1;
+  }
+
+  /**
+   * Get the names of the columns, mapped to their indices.
+   *
+   * @return the column indices
+   */
+  public Map<String, Integer> getColumnIndices() {
+    return Collections.unmodifiableMap(columnIndices);
+  }
+
+  /**
+   * Get a value from an {@link ColumnType#INT} column.
+   *
+   * @param column
+   *          index of the column
+   * @param row
+   *          index of the value
+   *
+   * @return the value
+   */
+  public int getInt(int column, int row) {
+    checkType(column, ColumnType.INT);
+
+    return intColumns[column].get(row);
+  }
+
+  /**
+   * Get a value from a {@link ColumnType#LONG} column.
+   *
+   * @param column
+   *          index of the column
+   * @param row
+   *          index of the value
+   *
+   * @return the value
+   */
+  public long getLong(int column, int row) {
+    checkType(column, ColumnType.LONG);
+
+    return longColumns[column].get(row);
+  }
+
+  /**
+   * Get a value from a {@link ColumnType#DOUBLE} column.
+   *
+   * @param column
+   *          index of the column
+   * @param row
+   *          index of the value
+   *
+   * @return the value
+   */
+  public double getDouble(int column, int row) {
+    checkType(column, ColumnType.DOUBLE);
+
+    return doubleColumns[column].get(row);
+  }
+
+  /**
+   * Get a value from a {@link ColumnType#STRING} column.
+   *
+   * @param column
+   *          index of the column
+   * @param row
+   *          index of the value
+   *
+   * @return the value
+   */
+  public String getString(int column, int row) {
+    checkType(column, ColumnType.STRING);
+
+    IntBuffer offsets = intColumns[column];
+    int start = offsets.get(row);
+    byte[] bytes = new byte[offsets.get(row + 1) - start];
+    ByteBuffer data = buffer.duplicate();
+    data.position(stringDataPositions[column] + start);
+    data.get(bytes);
+
+    return new String(bytes, Charsets.UTF_8);
+  }
+
+  /**
+   * Get a read-only view of an {@link ColumnType#INT} column.
+   *
+   * @param column
+   *          index of the column
+   *
+   * @return the view, with its own position and limit
+   */
+  public IntBuffer getIntColumn(int column) {
+    checkType(column, ColumnType.INT);
+
+    return intColumns[column].duplicate();
+  }
+
+  /**
+   * Get a read-only view of a {@link ColumnType#LONG} column.
+   *
+   * @param column
+   *          index of the column
+   *
+   * @return the view, with its own position and limit
+   */
+  public LongBuffer getLongColumn(int column) {
+    checkType(column, ColumnType.LONG);
+
+    return longColumns[column].duplicate();
+  }
+
+  /**
+   * Get a read-only view of a {@link ColumnType#DOUBLE} column.
+   *
+   * @param column
+   *          index of the column
+   *
+   * @return the view, with its own position and limit
+   */
+  public DoubleBuffer getDoubleColumn(int column) {
+    checkType(column, ColumnType.DOUBLE);
+
+    return doubleColumns[column].duplicate();
+  }
+
+  /**
+   * Create the view of a column.
+   *
+   * @param column
+   *          index of the column
+   * @param position
+   *          position of the column data in the file
+   */
+  private void mapColumn(int column, int position) {
+    int length = lengths[column];
+    switch (types[column]) {
+      case INT:
+        intColumns[column] = slice(position, length * 4).asIntBuffer();
+        break;
+
+      case LONG:
+        longColumns[column] = slice(position, length * 8).asLongBuffer();
+        break;
+
+      case DOUBLE:
+        doubleColumns[column] = slice(position, length * 8).asDoubleBuffer();
+        break;
+
+      default:
+        int offsetsSize = (length + 1) * 4;
+        intColumns[column] = slice(position, offsetsSize).asIntBuffer();
+        stringDataPositions[column] = position + offsetsSize;
+        break;
+    }
+  }
+
+  /**
+   * Get part of the mapped file as a separate buffer.
+   *
+   * @param position
+   *          position of the part in the file
+   * @param size
+   *          size of the part in bytes
+   *
+   * @return the part
+   */
+  private ByteBuffer slice(int position, int size) {
+    ByteBuffer slice = buffer.duplicate();
+    slice.position(position);
+    slice.limit(position + size);
+
+    return slice.slice().order(BYTE_ORDER);
+  }
+
+  /**
+   * Make sure a column has the expected type.
+   *
+   * @param column
+   *          index of the column
+   * @param type
+   *          the expected type
+   */
+  private void checkType(int column, ColumnType type) {
+    if (types[column] != type) {
+      throw new SimpleInteractiveSpacesException(String.format("Column %s of columnar file %s is %s, not %s",
+          names[column], file.getAbsolutePath(), types[column], type));
+    }
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.data.columnar;
+
+import interactivespaces.SimpleInteractiveSpacesException;
+import interactivespaces.util.data.ColumnSource;
+import interactivespaces.util.data.ColumnSourceHandler;
+import interactivespaces.util.data.CsvColumnSource;
+import interactivespaces.util.io.BasicCsvReader;
+import interactivespaces.util.io.CsvReader;
+import interactivespaces.util.sampling.ColumnarFileSampledDataLoader;
+import interactivespaces.util.sampling.ColumnarFileSampledDataSequenceLoader;
+import interactivespaces.util.sampling.JsonFileSampledDataLoader;
+import interactivespaces.util.sampling.JsonFileSampledDataSequenceLoader;
+import interactivespaces.util.sampling.SampledDataCollection;
+import interactivespaces.util.sampling.SampledDataSequence;
+
+import com.google.common.collect.Lists;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Converts CSV files and JSON sampled data files to {@link ColumnarFile}s.
+ *
+ * <p>
+ * Can also be run from the command line with arguments {@code csv|samples|sequence input-file output-file}.
+ *
+ * @author Keith M. Hughes
+ */
+public class ColumnarFileConverter {
+
+  /**
+   * Command line conversion type for CSV files.
+   */
+  public static final String CONVERSION_TYPE_CSV = "csv";
+
+  /**
+   * Command line conversion type for JSON sampled data collection files.
+   */
+  public static final String CONVERSION_TYPE_SAMPLES = "samples";
+
+  /**
+   * Command line conversion type for JSON sampled data sequence files.
+   */
+  public static final String CONVERSION_TYPE_SEQUENCE = "sequence";
+
+  /**
+   * Convert a file from the command line.
+   *
+   * @param args
+   *          the conversion type, the input file, and the output file
+   */
+  public static void main(String[] args) {
+    if (args.length != 3) {
+      System.err.format("Usage: %s %s|%s|%s input-file output-file%n", ColumnarFileConverter.class.getName(),
+          CONVERSION_TYPE_CSV, CONVERSION_TYPE_SAMPLES, CONVERSION_TYPE_SEQUENCE);
+      System.exit(1);
+    }
+
+    ColumnarFileConverter converter = new ColumnarFileConverter();
+    File inputFile = new File(args[1]);
+    File outputFile = new File(args[2]);
+    if (CONVERSION_TYPE_CSV.equals(args[0])) {
+      converter.convertCsv(inputFile, outputFile);
+    } else if (CONVERSION_TYPE_SAMPLES.equals(args[0])) {
+      converter.convertSampledData(inputFile, outputFile);
+    } else if (CONVERSION_TYPE_SEQUENCE.equals(args[0])) {
+      converter.convertSampledDataSequence(inputFile, outputFile);
+    } else {
+      System.err.format("Unknown conversion type %s%n", args[0]);
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Convert a CSV file to a columnar file.
+   *
+   * <p>
+   * The first line of the CSV file gives the column names. A column whose values are all integers becomes an
+   * {@link ColumnType#INT} or {@link ColumnType#LONG} column, one whose values are all numbers a
+   * {@link ColumnType#DOUBLE} column, and any other a {@link ColumnType#STRING} column.
+   *
+   * @param csvFile
+   *          the CSV file
+   * @param columnarFile
+   *          the columnar file to write
+   */
+  public void convertCsv(File csvFile, File columnarFile) {
+    final List<String> names = Lists.newArrayList();
+    final List<List<String>> columns = Lists.newArrayList();
+
+    CsvReader reader = new BasicCsvReader();
+    reader.process(csvFile, new ColumnSourceHandler() {
+      @Override
+      public void processColumns(ColumnSource lineReader) {
+        CsvColumnSource columnSource = (CsvColumnSource) lineReader;
+        if (names.isEmpty()) {
+          while (columnSource.hasMoreColumns()) {
+            names.add(columnSource.getColumn());
+            columns.add(Lists.<String>newArrayList());
+          }
+        } else {
+          for (List<String> column : columns) {
+            column.add(columnSource.hasMoreColumns() ? columnSource.getColumn() : "");
+          }
+        }
+      }
+    }, false);
+
+    if (names.isEmpty()) {
+      throw new SimpleInteractiveSpacesException(String.format("CSV file %s has no header line",
+          csvFile.getAbsolutePath()));
+    }
+
+    ColumnarFileWriter writer = new ColumnarFileWriter();
+    for (int i = 0; i < names.size(); i++) {
+      addCsvColumn(writer, names.get(i), columns.get(i));
+    }
+    writer.write(columnarFile);
+  }
+
+  /**
+   * Convert a JSON sampled data collection file to a columnar file.
+   *
+   * @param jsonFile
+   *          the file written by a {@link JsonFileSampledDataLoader}
+   * @param columnarFile
+   *          the file to write for a {@link ColumnarFileSampledDataLoader}
+   */
+  public void convertSampledData(File jsonFile, File columnarFile) {
+    SampledDataCollection data = new SampledDataCollection();
+    new JsonFileSampledDataLoader().load(jsonFile, data);
+    new ColumnarFileSampledDataLoader().save(columnarFile, data);
+  }
+
+  /**
+   * Convert a JSON sampled data sequence file to a columnar file.
+   *
+   * @param jsonFile
+   *          the file written by a {@link JsonFileSampledDataSequenceLoader}
+   * @param columnarFile
+   *          the file to write for a {@link ColumnarFileSampledDataSequenceLoader}
+   */
+  public void convertSampledDataSequence(File jsonFile, File columnarFile) {
+    SampledDataSequence sequence = new SampledDataSequence();
+    new JsonFileSampledDataSequenceLoader().load(jsonFile, sequence);
+    new ColumnarFileSampledDataSequenceLoader().save(columnarFile, sequence);
+  }
+
+  /**
+   * Add a CSV column to a columnar file with the narrowest type which holds all its values.
+   *
+   * @param writer
+   *          the columnar file writer
+   * @param name
+   *          name of the column
+   * @param values
+   *          the values of the column
+   */
+  private void addCsvColumn(ColumnarFileWriter writer, String name, List<String> values) {
+    int numberValues = values.size();
+
+    try {
+      int[] intValues = new int[numberValues];
+      for (int i = 0; i < numberValues; i++) {
+        intValues[i] = Integer.parseInt(values.get(i).trim());
+      }
+      writer.addIntColumn(name, intValues);
+      return;
+    } catch (NumberFormatException e) {
+      // Not all ints.
+    }
+
+    try {
+      long[] longValues = new long[numberValues];
+      for (int i = 0; i < numberValues; i++) {
+        longValues[i] = Long.parseLong(values.get(i).trim());
+      }
+      writer.addLongColumn(name, longValues);
+      return;
+    } catch (NumberFormatException e) {
+      // Not all longs.
+    }
+
+    try {
+      double[] doubleValues = new double[numberValues];
+      for (int i = 0; i < numberValues; i++) {
+        doubleValues[i] = Double.parseDouble(values.get(i).trim());
+      }
+      writer.addDoubleColumn(name, doubleValues);
+      return;
+    } catch (NumberFormatException e) {
+      // Not all numbers.
+    }
+
+    writer.addStringColumn(name, values.toArray(new String[numberValues]));
+  }
+}
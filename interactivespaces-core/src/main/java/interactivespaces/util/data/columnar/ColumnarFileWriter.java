@@ -0,0 +1,363 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.data.columnar;
+
+import interactivespaces.InteractiveSpacesException;
+import interactivespaces.SimpleInteractiveSpacesException;
+import interactivespaces.util.io.FileSupport;
+import interactivespaces.util.io.FileSupportImpl;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Writes a {@link ColumnarFile}.
+ *
+ * <p>
+ * Columns are added in the order they should appear in the file and then all written at once.
+ *
+ * @author Keith M. Hughes
+ */
+public class ColumnarFileWriter {
+
+  /**
+   * The alignment of column data in the file.
+   */
+  private static final int DATA_ALIGNMENT = 8;
+
+  /**
+   * The suffix for the temporary file the columns are written to before it replaces the file.
+   */
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+  /**
+   * The file support to use.
+   */
+  private final FileSupport fileSupport = FileSupportImpl.INSTANCE;
+
+  /**
+   * The columns to write.
+   */
+  private final List<Column> columns = Lists.newArrayList();
+
+  /**
+   * Add an {@link ColumnType#INT} column.
+   *
+   * @param name
+   *          name of the column
+   * @param values
+   *          the values of the column
+   *
+   * @return this writer
+   */
+  public ColumnarFileWriter addIntColumn(String name, int[] values) {
+    return addColumn(name, ColumnType.INT, values, values.length, values.length * 4);
+  }
+
+  /**
+   * Add a {@link ColumnType#LONG} column.
+   *
+   * @param name
+   *          name of the column
+   * @param values
+   *          the values of the column
+   *
+   * @return this writer
+   */
+  public ColumnarFileWriter addLongColumn(String name, long[] values) {
+    return addColumn(name, ColumnType.LONG, values, values.length, values.length * 8);
+  }
+
+  /**
+   * Add a {@link ColumnType#DOUBLE} column.
+   *
+   * @param name
+   *          name of the column
+   * @param values
+   *          the values of the column
+   *
+   * @return this writer
+   */
+  public ColumnarFileWriter addDoubleColumn(String name, double[] values) {
+    return addColumn(name, ColumnType.DOUBLE, values, values.length, values.length * 8);
+  }
+
+  /**
+   * Add a {@link ColumnType#STRING} column.
+   *
+   * @param name
+   *          name of the column
+   * @param values
+   *          the values of the column, {@code null} values are written as empty strings
+   *
+   * @return this writer
+   */
+  public ColumnarFileWriter addStringColumn(String name, String[] values) {
+    byte[][] encoded = new byte[values.length][];
+    int size = (values.length + 1) * 4;
+    for (int i = 0; i < values.length; i++) {
+      encoded[i] = (values[i] != null) ? values[i].getBytes(Charsets.UTF_8) : new byte[0];
+      size += encoded[i].length;
+    }
+
+    return addColumn(name, ColumnType.STRING, encoded, values.length, size);
+  }
+
+  /**
+   * Write the columns to a file.
+   *
+   * <p>
+   * The columns are written to a temporary file next to the file, which is then renamed over it. A file which is
+   * already mapped by a {@link ColumnarFile} is never truncated under its reader.
+   *
+   * @param file
+   *          the file to write
+   *
+   * @throws InteractiveSpacesException
+   *           the file could not be written
+   */
+  public void write(File file) throws InteractiveSpacesException {
+    List<byte[]> encodedNames = Lists.newArrayList();
+    long headerSize = 3 * 4;
+    for (Column column : columns) {
+      byte[] name = column.name.getBytes(Charsets.UTF_8);
+      encodedNames.add(name);
+      headerSize += 2 + name.length + 1 + 4 + 8;
+    }
+
+    long position = align(headerSize);
+    long[] positions = new long[columns.size()];
+    for (int i = 0; i < positions.length; i++) {
+      positions[i] = position;
+      position = align(position + columns.get(i).size);
+    }
+    if (position > Integer.MAX_VALUE) {
+      throw new SimpleInteractiveSpacesException(String.format("Columnar file %s would be too large",
+          file.getAbsolutePath()));
+    }
+
+    File tempFile = null;
+    FileOutputStream out = null;
+    try {
+      tempFile =
+          File.createTempFile("." + file.getName() + ".", TEMP_FILE_SUFFIX, file.getAbsoluteFile().getParentFile());
+      out = new FileOutputStream(tempFile);
+      FileChannel channel = out.getChannel();
+
+      ByteBuffer header = newBuffer((int) align(headerSize));
+      header.putInt(ColumnarFile.MAGIC);
+      header.putInt(ColumnarFile.VERSION);
+      header.putInt(columns.size());
+      for (int i = 0; i < positions.length; i++) {
+        Column column = columns.get(i);
+        byte[] name = encodedNames.get(i);
+        header.putShort((short) name.length);
+        header.put(name);
+        header.put((byte) column.type.getCode());
+        header.putInt(column.length);
+        header.putLong(positions[i]);
+      }
+      writeBuffer(channel, header);
+
+      for (Column column : columns) {
+        ByteBuffer data = newBuffer((int) align(column.size));
+        column.write(data);
+        writeBuffer(channel, data);
+      }
+
+      out.close();
+      out = null;
+
+      Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      fileSupport.close(out, false);
+      if (tempFile != null) {
+        fileSupport.delete(tempFile);
+      }
+      throw new InteractiveSpacesException(String.format("Unable to write columnar file %s", file.getAbsolutePath()),
+          e);
+    }
+  }
+
+  /**
+   * Add a column.
+   *
+   * @param name
+   *          name of the column
+   * @param type
+   *          type of the column
+   * @param values
+   *          the array of values for the column
+   * @param length
+   *          the number of values
+   * @param size
+   *          the size of the column data in bytes
+   *
+   * @return this writer
+   */
+  private ColumnarFileWriter addColumn(String name, ColumnType type, Object values, int length, long size) {
+    if (name.getBytes(Charsets.UTF_8).length > 0xffff) {
+      throw new SimpleInteractiveSpacesException(String.format("Column name %s is too long", name));
+    }
+
+    columns.add(new Column(name, type, values, length, size));
+
+    return this;
+  }
+
+  /**
+   * Create a buffer in the byte order of columnar files.
+   *
+   * @param size
+   *          size of the buffer
+   *
+   * @return the buffer
+   */
+  private ByteBuffer newBuffer(int size) {
+    return ByteBuffer.allocate(size).order(ColumnarFile.BYTE_ORDER);
+  }
+
+  /**
+   * Write the whole of a buffer, including any padding after its position.
+   *
+   * @param channel
+   *          the channel to write to
+   * @param buffer
+   *          the buffer to write
+   *
+   * @throws IOException
+   *           the buffer could not be written
+   */
+  private void writeBuffer(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.clear();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /**
+   * Round a size up to the alignment of column data.
+   *
+   * @param size
+   *          the size
+   *
+   * @return the aligned size
+   */
+  private static long align(long size) {
+    return (size + DATA_ALIGNMENT - 1) & ~(DATA_ALIGNMENT - 1);
+  }
+
+  /**
+   * A column to be written.
+   *
+   * @author Keith M. Hughes
+   */
+  private static class Column {
+
+    /**
+     * The name of the column.
+     */
+    private final String name;
+
+    /**
+     * The type of the column.
+     */
+    private final ColumnType type;
+
+    /**
+     * The array of values, UTF-8 encoded for string columns.
+     */
+    private final Object values;
+
+    /**
+     * The number of values.
+     */
+    private final int length;
+
+    /**
+     * The size of the column data in bytes.
+     */
+    private final long size;
+
+    /**
+     * Construct a column.
+     *
+     * @param name
+     *          the name of the column
+     * @param type
+     *          the type of the column
+     * @param values
+     *          the array of values
+     * @param length
+     *          the number of values
+     * @param size
+     *          the size of the column data in bytes
+     */
+    public Column(String name, ColumnType type, Object values, int length, long size) {
+      this.name = name;
+      this.type = type;
+      this.values = values;
+      this.length = length;
+      this.size = size;
+    }
+
+    /**
+     * Write the column data into a buffer.
+     *
+     * @param buffer
+     *          the buffer
+     */
+    public void write(ByteBuffer buffer) {
+      switch (type) {
+        case INT:
+          buffer.asIntBuffer().put((int[]) values);
+          break;
+
+        case LONG:
+          buffer.asLongBuffer().put((long[]) values);
+          break;
+
+        case DOUBLE:
+          buffer.asDoubleBuffer().put((double[]) values);
+          break;
+
+        default:
+          byte[][] strings = (byte[][]) values;
+          int offset = 0;
+          buffer.putInt(offset);
+          for (byte[] string : strings) {
+            offset += string.length;
+            buffer.putInt(offset);
+          }
+          for (byte[] string : strings) {
+            buffer.put(string);
+          }
+          break;
+      }
+    }
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.data.dynamic;
+
+import com.google.common.base.Preconditions;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/**
+ * Superclass of the dynamic object classes generated by {@link InterfaceMap#getGeneratedFactory(Class)}.
+ *
+ * <p>
+ * The generated getters and setters call {@link #get(String, int)} and {@link #set(String, Object)} directly, so there
+ * is no reflection or method name parsing on a call. Calls to {@code hashCode()} and {@code toString()} are delegated
+ * to the backing map, and equality is the same as for proxy dynamic objects.
+ *
+ * <p>
+ * This class is public only so that generated classes in other class loaders can extend it.
+ *
+ * @author Keith M. Hughes
+ */
+public abstract class BackingMapDynamicObject {
+
+  /**
+   * The state of the object. Keys are JavaBean property names.
+   */
+  private final Map<String, Object> backingMap;
+
+  /**
+   * The interface this object implements.
+   */
+  private final Class<?> interfaceClass;
+
+  /**
+   * The generic types of the getters, indexed by getter index.
+   */
+  private final Type[] getterGenericTypes;
+
+  /**
+   * The raw types of the getters, indexed by getter index.
+   */
+  private final Class<?>[] getterTypes;
+
+  /**
+   * Constructor.
+   *
+   * @param backingMap
+   *          the map that will reflect the state of the object
+   * @param interfaceClass
+   *          the interface this object implements
+   * @param getterGenericTypes
+   *          the generic types of the getters, indexed by getter index
+   * @param getterTypes
+   *          the raw types of the getters, indexed by getter index
+   */
+  protected BackingMapDynamicObject(Map<String, Object> backingMap, Class<?> interfaceClass,
+      Type[] getterGenericTypes, Class<?>[] getterTypes) {
+    this.backingMap = Preconditions.checkNotNull(backingMap);
+    this.interfaceClass = interfaceClass;
+    this.getterGenericTypes = getterGenericTypes;
+    this.getterTypes = getterTypes;
+  }
+
+  /**
+   * Get the state of this object.
+   *
+   * @return map holding the values of this object's properties
+   */
+  public final Map<String, Object> getBackingMap() {
+    return backingMap;
+  }
+
+  /**
+   * Get the interface this object implements.
+   *
+   * @return the interface
+   */
+  public final Class<?> getInterfaceClass() {
+    return interfaceClass;
+  }
+
+  /**
+   * Get the value of a property, converted to the getter type.
+   *
+   * @param property
+   *          the property name
+   * @param getterIndex
+   *          index of the getter
+   *
+   * @return the converted value
+   */
+  protected final Object get(String property, int getterIndex) {
+    return Conversions.convert(getterGenericTypes[getterIndex], getterTypes[getterIndex], backingMap.get(property),
+        true);
+  }
+
+  /**
+   * Set the value of a property.
+   *
+   * @param property
+   *          the property name
+   * @param value
+   *          the new value, {@code null} removes the property
+   */
+  protected final void set(String property, Object value) {
+    if (value == null) {
+      // NOTE: backingMap may not support null values,
+      // so here we remove the entry instead of putting null
+      backingMap.remove(property);
+    } else if (InterfaceMap.isDynamicObject(value)) {
+      backingMap.put(property, InterfaceMap.getBackingMap(value));
+    } else {
+      backingMap.put(property, value);
+    }
+  }
+
+  @Override
+  public final boolean equals(Object object) {
+    return InterfaceMap.isDynamicObject(object)
+        && interfaceClass.getName().equals(InterfaceMap.getClass(object).getName())
+        && backingMap.equals(InterfaceMap.getBackingMap(object));
+  }
+
+  @Override
+  public final int hashCode() {
+    return backingMap.hashCode();
+  }
+
+  @Override
+  public final String toString() {
+    return backingMap.toString();
+  }
+}
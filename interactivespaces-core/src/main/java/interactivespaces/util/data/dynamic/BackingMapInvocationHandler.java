@@ -16,9 +16,6 @@
 
 package interactivespaces.util.data.dynamic;
 
-import static java.lang.reflect.Proxy.getInvocationHandler;
-import static java.lang.reflect.Proxy.isProxyClass;
-
 import com.google.common.base.Preconditions;
 
 import java.lang.reflect.InvocationHandler;
@@ -125,21 +122,16 @@ final class BackingMapInvocationHandler implements InvocationHandler {
       }
       if (args.length == 1 && methodName.equals(OBJECT_EQUALS_METHOD_NAME)
           && method.getParameterTypes()[0] == Object.class) {
-        if (args[0] != null && isProxyClass(args[0].getClass())) {
-          InvocationHandler handler = getInvocationHandler(args[0]);
-          return (handler instanceof BackingMapInvocationHandler)
-              && type.equals(((BackingMapInvocationHandler) handler).type)
-              && backingMap.equals(((BackingMapInvocationHandler) handler).backingMap);
-        }
-        return false;
+        return InterfaceMap.isDynamicObject(args[0]) && type.equals(InterfaceMap.getClass(args[0]).getName())
+            && backingMap.equals(InterfaceMap.getBackingMap(args[0]));
       }
       // NOTE: clone() is not supported (yet?). Other methods (except finalize()) are final.
     }
 
-    if (isGetter(method, args)) {
+    if (isGetter(method, args.length)) {
       return invokeGetter(method);
     }
-    if (isSetter(method, args)) {
+    if (isSetter(method, args.length)) {
       invokeSetter(method, args[0]);
       return null;
     }
@@ -178,14 +170,8 @@ final class BackingMapInvocationHandler implements InvocationHandler {
       // NOTE: backingMap may not support null values,
       // so here we remove the entry instead of putting null
       backingMap.remove(property);
-    } else if (isProxyClass(arg.getClass())) {
-      InvocationHandler handler = getInvocationHandler(arg);
-      if (handler instanceof BackingMapInvocationHandler) {
-        BackingMapInvocationHandler dynamicObject = (BackingMapInvocationHandler) handler;
-        backingMap.put(property, dynamicObject.backingMap);
-      } else {
-        backingMap.put(property, arg);
-      }
+    } else if (InterfaceMap.isDynamicObject(arg)) {
+      backingMap.put(property, InterfaceMap.getBackingMap(arg));
     } else {
       backingMap.put(property, arg);
     }
@@ -196,15 +182,15 @@ final class BackingMapInvocationHandler implements InvocationHandler {
    *
    * @param method
    *          setter method
-   * @param params
-   *          list of the method's parameters
+   * @param parameterCount
+   *          number of the method's parameters
    *
    * @return {@code true} if the given method looks like a setter
    *
    * @throws UnsupportedOperationException
    *           if the method has a setter-like name, but has number of parameters other than 1
    */
-  private static boolean isSetter(Method method, Object[] params) {
+  static boolean isSetter(Method method, int parameterCount) {
     if (!method.getName().startsWith(METHOD_PREFIX_SET)) {
       return false;
     }
@@ -214,7 +200,7 @@ final class BackingMapInvocationHandler implements InvocationHandler {
       throw new UnsupportedOperationException(String.format("Setter method must return void: %s.", method));
     }
 
-    if (params.length != 1) {
+    if (parameterCount != 1) {
       throw new UnsupportedOperationException(String.format("Setter method must have exactly 1 parameter: %s", method));
     }
 
@@ -226,15 +212,15 @@ final class BackingMapInvocationHandler implements InvocationHandler {
    *
    * @param method
    *          getter method
-   * @param params
-   *          list of the method's parameters
+   * @param parameterCount
+   *          number of the method's parameters
    *
    * @return {@code true} if the given method seems like a getter
    *
    * @throws UnsupportedOperationException
    *           if the method has a getter-like name, but has parameters
    */
-  private static boolean isGetter(Method method, Object[] params) {
+  static boolean isGetter(Method method, int parameterCount) {
     String name = method.getName();
     Class<?> returnType = method.getReturnType();
 
@@ -250,7 +236,7 @@ final class BackingMapInvocationHandler implements InvocationHandler {
           "Getter method must have a return type (not void or Void): %s", method));
     }
 
-    if (params.length != 0) {
+    if (parameterCount != 0) {
       throw new UnsupportedOperationException(String.format("Getter method must be parameterless: %s", method));
     }
 
@@ -268,7 +254,7 @@ final class BackingMapInvocationHandler implements InvocationHandler {
    * @throws UnsupportedOperationException
    *           if {@code methodName} does not represent a JavaBean property
    */
-  private static String getPropertyName(String methodName) {
+  static String getPropertyName(String methodName) {
     StringBuilder sb = new StringBuilder(methodName);
     // Strip 'is'/'get' or 'set'.
     if (methodName.startsWith(METHOD_PREFIX_GET) || methodName.startsWith(METHOD_PREFIX_SET)) {
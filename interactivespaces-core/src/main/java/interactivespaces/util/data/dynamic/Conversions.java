@@ -95,6 +95,26 @@ final class Conversions {
    * @return object of the given type
    */
   public static <T> T convert(Type expectedGenericType, Class<T> expectedType, Object object) {
+    return convert(expectedGenericType, expectedType, object, false);
+  }
+
+  /**
+   * Convert a given object to a given type. If conversion is impossible, throws an exception.
+   *
+   * @param expectedGenericType
+   *     expected generic type of the result
+   * @param expectedType
+   *     expected type of the result
+   * @param object
+   *     object to convert
+   * @param generated
+   *     {@code true} if maps should be converted to generated dynamic objects rather than proxies
+   * @param <T>
+   *     type of the result
+   *
+   * @return object of the given type
+   */
+  public static <T> T convert(Type expectedGenericType, Class<T> expectedType, Object object, boolean generated) {
     Object result = null;
     if (object == null) {
       if (!expectedType.isPrimitive()) {
@@ -107,16 +127,18 @@ final class Conversions {
     } else if (SIMPLE_TYPE_CONVERSIONS.containsKey(expectedType)) {
       result = SIMPLE_TYPE_CONVERSIONS.get(expectedType).apply(object);
     } else if (expectedType == List.class && object instanceof List) {
-      result = LIST_CONVERSION.convert(expectedGenericType, object);
+      result = LIST_CONVERSION.convert(expectedGenericType, object, generated);
     } else if (expectedType == Map.class && object instanceof Map) {
-      result = MAP_CONVERSION.convert(expectedGenericType, object);
+      result = MAP_CONVERSION.convert(expectedGenericType, object, generated);
     } else if (expectedType.isInstance(object)) {
       // Arbitrary object set in setter.
       result = object;
     } else if (expectedType.isInterface() && object instanceof Map) {
       @SuppressWarnings("unchecked")
       Map<String, Object> asMap = (Map) object;
-      result = InterfaceMap.createInstance(expectedType, asMap);
+      result =
+          generated ? InterfaceMap.createGeneratedInstance(expectedType, asMap) : InterfaceMap.createInstance(
+              expectedType, asMap);
     }
 
     return result != null
@@ -164,14 +186,17 @@ final class Conversions {
      *     target generic type
      * @param expectedType
      *     target raw type
+     * @param generated
+     *     {@code true} if maps should be converted to generated dynamic objects rather than proxies
      * @param <T>
      *     target type
      *
      * @return conversion
      */
-    public static <T> Function<Object, T> create(Type expectedGenericType, Class<T> expectedType) {
+    public static <T> Function<Object, T> create(Type expectedGenericType, Class<T> expectedType,
+        boolean generated) {
       if (SIMPLE_TYPE_CONVERSIONS.containsKey(expectedType) || expectedType.isInterface()) {
-        return new RecursiveConversion<T>(expectedGenericType, expectedType);
+        return new RecursiveConversion<T>(expectedGenericType, expectedType, generated);
       } else {
         throw new UnsupportedOperationException("Unsupported dynamic property type: " + expectedGenericType);
       }
@@ -187,6 +212,11 @@ final class Conversions {
      */
     private final Class<T> expectedType;
 
+    /**
+     * {@code true} if maps should be converted to generated dynamic objects rather than proxies.
+     */
+    private final boolean generated;
+
     /**
      * Construct a new recursive conversion.
      *
@@ -194,15 +224,18 @@ final class Conversions {
      *     target generic type
      * @param expectedType
      *     target raw type
+     * @param generated
+     *     {@code true} if maps should be converted to generated dynamic objects rather than proxies
      */
-    private RecursiveConversion(Type expectedGenericType, Class<T> expectedType) {
+    private RecursiveConversion(Type expectedGenericType, Class<T> expectedType, boolean generated) {
       this.expectedGenericType = expectedGenericType;
       this.expectedType = expectedType;
+      this.generated = generated;
     }
 
     @Override
     public T apply(Object input) {
-      return convert(expectedGenericType, expectedType, input);
+      return convert(expectedGenericType, expectedType, input, generated);
     }
   }
 
@@ -363,10 +396,12 @@ final class Conversions {
      *     target type
      * @param list
      *     list to convert
+     * @param generated
+     *     {@code true} if maps should be converted to generated dynamic objects rather than proxies
      *
      * @return list of the target type
      */
-    public Object convert(Type genericListType, Object list) {
+    public Object convert(Type genericListType, Object list, boolean generated) {
       checkArgument(list instanceof List<?>, "Not a list.");
 
       if (!(genericListType instanceof ParameterizedType)) {
@@ -386,7 +421,7 @@ final class Conversions {
         throw new UnsupportedOperationException("Wildcards are not supported: " + genericListType);
       }
 
-      Function<Object, ?> transformation = RecursiveConversion.create(genericElementType, elementType);
+      Function<Object, ?> transformation = RecursiveConversion.create(genericElementType, elementType, generated);
       // NOTE: ImmutableList disallows null elements.
       return ImmutableList.copyOf(Lists.transform((List<?>) list, transformation));
     }
@@ -405,10 +440,12 @@ final class Conversions {
      *     target type
      * @param map
      *     map to convert
+     * @param generated
+     *     {@code true} if maps should be converted to generated dynamic objects rather than proxies
      *
      * @return map of the target type
      */
-    public Object convert(Type genericMapType, Object map) {
+    public Object convert(Type genericMapType, Object map, boolean generated) {
       checkArgument(map instanceof Map<?, ?>, "Not a map.");
 
       if (!(genericMapType instanceof ParameterizedType)) {
@@ -433,7 +470,7 @@ final class Conversions {
         throw new UnsupportedOperationException("Wildcards are not supported: " + genericMapType);
       }
 
-      Function<Object, ?> transformation = RecursiveConversion.create(genericValueType, elementType);
+      Function<Object, ?> transformation = RecursiveConversion.create(genericValueType, elementType, generated);
       // NOTE: ImmutableMap disallows null values.
       return ImmutableMap.copyOf(Maps.transformValues((Map) map, transformation));
     }
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.data.dynamic;
+
+import java.util.Map;
+
+/**
+ * A factory for dynamic objects of a given interface.
+ *
+ * @param <T>
+ *          the interface of the dynamic objects
+ *
+ * @author Keith M. Hughes
+ */
+public interface DynamicObjectFactory<T> {
+
+  /**
+   * Create a new dynamic object backed by a given map.
+   *
+   * @param backingMap
+   *          backing map, the source of values
+   *
+   * @return the new dynamic object
+   *
+   * @throws java.lang.NullPointerException
+   *           if {@code backingMap} is {@code null}
+   */
+  T newInstance(Map<String, Object> backingMap);
+}
@@ -0,0 +1,484 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.data.dynamic;
+
+import interactivespaces.InteractiveSpacesException;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Primitives;
+
+import javassist.bytecode.AccessFlag;
+import javassist.bytecode.Bytecode;
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.ConstPool;
+import javassist.bytecode.MethodInfo;
+import javassist.bytecode.Opcode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A factory for dynamic objects of a class generated with Javassist.
+ *
+ * <p>
+ * The generated class extends {@link BackingMapDynamicObject}. Each getter and setter of the interface becomes a method
+ * calling {@link BackingMapDynamicObject#get(String, int)} or {@link BackingMapDynamicObject#set(String, Object)}
+ * with the property name worked out when the class is generated. The class file is written directly rather than
+ * compiled from source, so Javassist never has to read the JDK class files. Methods which are not valid getters or
+ * setters throw the same {@link UnsupportedOperationException} a proxy dynamic object would throw when they are called.
+ *
+ * <p>
+ * The generated class is defined in its own class loader, so it can only implement a public interface. See
+ * {@link #canGenerate(Class)}.
+ *
+ * @param <T>
+ *          the interface of the dynamic objects
+ *
+ * @author Keith M. Hughes
+ */
+final class GeneratedDynamicObjectFactory<T> implements DynamicObjectFactory<T> {
+
+  /**
+   * Suffix added to the interface name to give the name of the generated class.
+   */
+  private static final String GENERATED_CLASS_NAME_SUFFIX = "$$InterfaceMap";
+
+  /**
+   * Name of the superclass of the generated classes.
+   */
+  private static final String SUPERCLASS_NAME = BackingMapDynamicObject.class.getName();
+
+  /**
+   * Descriptor of the superclass constructor.
+   */
+  private static final String SUPERCLASS_CONSTRUCTOR_DESCRIPTOR =
+      "(Ljava/util/Map;Ljava/lang/Class;[Ljava/lang/reflect/Type;[Ljava/lang/Class;)V";
+
+  /**
+   * Number of parameters of the superclass constructor.
+   */
+  private static final int SUPERCLASS_CONSTRUCTOR_PARAMETER_COUNT = 4;
+
+  /**
+   * Maximum stack depth of the generated methods, which is reached by setters of {@code long} and {@code double}.
+   */
+  private static final int MAX_STACK = 5;
+
+  /**
+   * JVM descriptors of the primitive types.
+   */
+  private static final Map<Class<?>, String> PRIMITIVE_DESCRIPTORS = ImmutableMap.<Class<?>, String>builder()
+      .put(boolean.class, "Z").put(byte.class, "B").put(char.class, "C").put(short.class, "S").put(int.class, "I")
+      .put(long.class, "J").put(float.class, "F").put(double.class, "D").put(void.class, "V").build();
+
+  /**
+   * The interface of the dynamic objects.
+   */
+  private final Class<T> interfaceClass;
+
+  /**
+   * The constructor of the generated class.
+   */
+  private final Constructor<?> constructor;
+
+  /**
+   * The generic types of the getters, indexed by getter index.
+   */
+  private final Type[] getterGenericTypes;
+
+  /**
+   * The raw types of the getters, indexed by getter index.
+   */
+  private final Class<?>[] getterTypes;
+
+  /**
+   * Can a dynamic object class be generated for an interface?
+   *
+   * <p>
+   * The generated class lives in a class loader of its own, so the interface must be accessible from outside its
+   * package.
+   *
+   * @param interfaceClass
+   *          the interface
+   *
+   * @return {@code true} if a class can be generated for the interface
+   */
+  static boolean canGenerate(Class<?> interfaceClass) {
+    for (Class<?> enclosing = interfaceClass; enclosing != null; enclosing = enclosing.getEnclosingClass()) {
+      if (!Modifier.isPublic(enclosing.getModifiers())) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Generate the dynamic object class for an interface and create a factory for it.
+   *
+   * @param interfaceClass
+   *          the interface
+   * @param <T>
+   *          the interface
+   *
+   * @return the factory
+   *
+   * @throws IllegalArgumentException
+   *           if {@code interfaceClass} is not an interface, or a class can't be generated for it
+   */
+  static <T> GeneratedDynamicObjectFactory<T> newFactory(Class<T> interfaceClass) {
+    Preconditions.checkArgument(interfaceClass.isInterface(), "%s is not an interface", interfaceClass.getName());
+    Preconditions.checkArgument(canGenerate(interfaceClass), "Cannot generate a class for %s",
+        interfaceClass.getName());
+
+    String className = interfaceClass.getName() + GENERATED_CLASS_NAME_SUFFIX;
+    ClassFile classFile = new ClassFile(false, className, SUPERCLASS_NAME);
+    classFile.setMajorVersion(ClassFile.JAVA_5);
+    classFile.setAccessFlags(AccessFlag.PUBLIC | AccessFlag.FINAL | AccessFlag.SUPER);
+    classFile.setInterfaces(new String[] { interfaceClass.getName() });
+    ConstPool constPool = classFile.getConstPool();
+
+    List<Method> getters = Lists.newArrayList();
+    try {
+      classFile.addMethod(newConstructor(constPool));
+
+      Set<String> signatures = Sets.newHashSet();
+      for (Method method : interfaceClass.getMethods()) {
+        if (Modifier.isStatic(method.getModifiers()) || isObjectMethod(method)
+            || !signatures.add(method.getName() + getMethodDescriptor(method))) {
+          continue;
+        }
+
+        classFile.addMethod(newMethod(constPool, method, getters));
+      }
+
+      ByteArrayOutputStream bytecode = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytecode);
+      classFile.write(out);
+      out.close();
+
+      Class<?> clazz =
+          new GeneratedClassLoader(interfaceClass.getClassLoader(), BackingMapDynamicObject.class.getClassLoader())
+              .defineClass(className, bytecode.toByteArray());
+
+      return new GeneratedDynamicObjectFactory<T>(interfaceClass, clazz.getConstructors()[0], getters);
+    } catch (Exception e) {
+      throw new InteractiveSpacesException(String.format("Could not generate dynamic object class for %s",
+          interfaceClass.getName()), e);
+    }
+  }
+
+  /**
+   * Create the constructor of the generated class, which calls the {@link BackingMapDynamicObject} constructor.
+   *
+   * @param constPool
+   *          the constant pool of the generated class
+   *
+   * @return the constructor
+   */
+  private static MethodInfo newConstructor(ConstPool constPool) {
+    MethodInfo constructor = new MethodInfo(constPool, MethodInfo.nameInit, SUPERCLASS_CONSTRUCTOR_DESCRIPTOR);
+    constructor.setAccessFlags(AccessFlag.PUBLIC);
+
+    Bytecode code = new Bytecode(constPool, MAX_STACK, SUPERCLASS_CONSTRUCTOR_PARAMETER_COUNT + 1);
+    for (int i = 0; i <= SUPERCLASS_CONSTRUCTOR_PARAMETER_COUNT; i++) {
+      code.addAload(i);
+    }
+    code.addInvokespecial(SUPERCLASS_NAME, MethodInfo.nameInit, SUPERCLASS_CONSTRUCTOR_DESCRIPTOR);
+    code.addOpcode(Opcode.RETURN);
+    constructor.setCodeAttribute(code.toCodeAttribute());
+
+    return constructor;
+  }
+
+  /**
+   * Create the generated method for an interface method.
+   *
+   * @param constPool
+   *          the constant pool of the generated class
+   * @param method
+   *          the interface method
+   * @param getters
+   *          the getters so far, a getter method is added to the end
+   *
+   * @return the generated method
+   */
+  private static MethodInfo newMethod(ConstPool constPool, Method method, List<Method> getters) {
+    MethodInfo methodInfo = new MethodInfo(constPool, method.getName(), getMethodDescriptor(method));
+    methodInfo.setAccessFlags(AccessFlag.PUBLIC);
+
+    Class<?>[] parameterTypes = method.getParameterTypes();
+    int maxLocals = 1;
+    for (Class<?> parameterType : parameterTypes) {
+      maxLocals += (parameterType == long.class || parameterType == double.class) ? 2 : 1;
+    }
+    Bytecode code = new Bytecode(constPool, MAX_STACK, maxLocals);
+
+    try {
+      if (BackingMapInvocationHandler.isGetter(method, parameterTypes.length)) {
+        String property = BackingMapInvocationHandler.getPropertyName(method.getName());
+        getters.add(method);
+
+        code.addAload(0);
+        code.addLdc(property);
+        code.addIconst(getters.size() - 1);
+        code.addInvokevirtual(SUPERCLASS_NAME, "get", "(Ljava/lang/String;I)Ljava/lang/Object;");
+        addReturn(code, method.getReturnType());
+      } else if (BackingMapInvocationHandler.isSetter(method, parameterTypes.length)) {
+        String property = BackingMapInvocationHandler.getPropertyName(method.getName());
+
+        code.addAload(0);
+        code.addLdc(property);
+        addBoxedParameter(code, parameterTypes[0]);
+        code.addInvokevirtual(SUPERCLASS_NAME, "set", "(Ljava/lang/String;Ljava/lang/Object;)V");
+        code.addOpcode(Opcode.RETURN);
+      } else {
+        throw new UnsupportedOperationException(String.format("Method is neither a getter nor a setter: %s.",
+            method));
+      }
+    } catch (UnsupportedOperationException e) {
+      // Calls should fail the same way they do for a proxy.
+      code = new Bytecode(constPool, MAX_STACK, maxLocals);
+      code.addNew(UnsupportedOperationException.class.getName());
+      code.addOpcode(Opcode.DUP);
+      code.addLdc(e.getMessage());
+      code.addInvokespecial(UnsupportedOperationException.class.getName(), MethodInfo.nameInit,
+          "(Ljava/lang/String;)V");
+      code.addOpcode(Opcode.ATHROW);
+    }
+    methodInfo.setCodeAttribute(code.toCodeAttribute());
+
+    return methodInfo;
+  }
+
+  /**
+   * Add code to return the object on the top of the stack as a given type, unboxing primitives.
+   *
+   * @param code
+   *          the code to add to
+   * @param type
+   *          the return type
+   */
+  private static void addReturn(Bytecode code, Class<?> type) {
+    if (!type.isPrimitive()) {
+      if (type != Object.class) {
+        code.addCheckcast(getInternalName(type));
+      }
+      code.addOpcode(Opcode.ARETURN);
+      return;
+    }
+
+    Class<?> wrapper = Primitives.wrap(type);
+    code.addCheckcast(getInternalName(wrapper));
+    code.addInvokevirtual(wrapper.getName(), type.getName() + "Value", "()" + getDescriptor(type));
+    if (type == long.class) {
+      code.addOpcode(Opcode.LRETURN);
+    } else if (type == float.class) {
+      code.addOpcode(Opcode.FRETURN);
+    } else if (type == double.class) {
+      code.addOpcode(Opcode.DRETURN);
+    } else {
+      code.addOpcode(Opcode.IRETURN);
+    }
+  }
+
+  /**
+   * Add code to push the first method parameter as an object, boxing primitives.
+   *
+   * @param code
+   *          the code to add to
+   * @param type
+   *          the parameter type
+   */
+  private static void addBoxedParameter(Bytecode code, Class<?> type) {
+    if (!type.isPrimitive()) {
+      code.addAload(1);
+      return;
+    }
+
+    if (type == long.class) {
+      code.addLload(1);
+    } else if (type == float.class) {
+      code.addFload(1);
+    } else if (type == double.class) {
+      code.addDload(1);
+    } else {
+      code.addIload(1);
+    }
+    Class<?> wrapper = Primitives.wrap(type);
+    code.addInvokestatic(wrapper.getName(), "valueOf", "(" + getDescriptor(type) + ")" + getDescriptor(wrapper));
+  }
+
+  /**
+   * Get the JVM descriptor of a method.
+   *
+   * @param method
+   *          the method
+   *
+   * @return the descriptor
+   */
+  private static String getMethodDescriptor(Method method) {
+    StringBuilder descriptor = new StringBuilder("(");
+    for (Class<?> parameterType : method.getParameterTypes()) {
+      descriptor.append(getDescriptor(parameterType));
+    }
+
+    return descriptor.append(')').append(getDescriptor(method.getReturnType())).toString();
+  }
+
+  /**
+   * Get the JVM descriptor of a type.
+   *
+   * @param type
+   *          the type
+   *
+   * @return the descriptor
+   */
+  private static String getDescriptor(Class<?> type) {
+    if (type.isArray()) {
+      return "[" + getDescriptor(type.getComponentType());
+    }
+    if (type.isPrimitive()) {
+      return PRIMITIVE_DESCRIPTORS.get(type);
+    }
+
+    return "L" + getInternalName(type) + ";";
+  }
+
+  /**
+   * Get the name of a class as used by {@code checkcast}.
+   *
+   * @param type
+   *          the class
+   *
+   * @return the internal name
+   */
+  private static String getInternalName(Class<?> type) {
+    return type.isArray() ? getDescriptor(type) : type.getName().replace('.', '/');
+  }
+
+  /**
+   * Is a method one of the public methods of {@link Object}? These are implemented by
+   * {@link BackingMapDynamicObject}.
+   *
+   * @param method
+   *          the method
+   *
+   * @return {@code true} if the method is an {@link Object} method
+   */
+  private static boolean isObjectMethod(Method method) {
+    try {
+      Object.class.getMethod(method.getName(), method.getParameterTypes());
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Construct a new factory.
+   *
+   * @param interfaceClass
+   *          the interface of the dynamic objects
+   * @param constructor
+   *          the constructor of the generated class
+   * @param getters
+   *          the getters, in getter index order
+   */
+  private GeneratedDynamicObjectFactory(Class<T> interfaceClass, Constructor<?> constructor, List<Method> getters) {
+    this.interfaceClass = interfaceClass;
+    this.constructor = constructor;
+
+    getterGenericTypes = new Type[getters.size()];
+    getterTypes = new Class<?>[getters.size()];
+    for (int i = 0; i < getters.size(); i++) {
+      getterGenericTypes[i] = getters.get(i).getGenericReturnType();
+      getterTypes[i] = getters.get(i).getReturnType();
+    }
+  }
+
+  @Override
+  public T newInstance(Map<String, Object> backingMap) {
+    Preconditions.checkNotNull(backingMap);
+    try {
+      return interfaceClass.cast(constructor.newInstance(backingMap, interfaceClass, getterGenericTypes, getterTypes));
+    } catch (InvocationTargetException e) {
+      throw new InteractiveSpacesException(String.format("Could not create dynamic object for %s",
+          interfaceClass.getName()), e.getCause());
+    } catch (Exception e) {
+      throw new InteractiveSpacesException(String.format("Could not create dynamic object for %s",
+          interfaceClass.getName()), e);
+    }
+  }
+
+  /**
+   * The class loader for generated classes of public interfaces. Classes are found in the class loader of the
+   * interface, and then in the class loader of this package.
+   *
+   * @author Keith M. Hughes
+   */
+  private static final class GeneratedClassLoader extends ClassLoader {
+
+    /**
+     * The class loader of the dynamic object package.
+     */
+    private final ClassLoader dynamicClassLoader;
+
+    /**
+     * Construct a new class loader.
+     *
+     * @param interfaceClassLoader
+     *          the class loader of the interface
+     * @param dynamicClassLoader
+     *          the class loader of the dynamic object package
+     */
+    GeneratedClassLoader(ClassLoader interfaceClassLoader, ClassLoader dynamicClassLoader) {
+      super(interfaceClassLoader);
+      this.dynamicClassLoader = dynamicClassLoader;
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+      return dynamicClassLoader.loadClass(name);
+    }
+
+    /**
+     * Define a generated class.
+     *
+     * @param name
+     *          the name of the class
+     * @param bytecode
+     *          the bytecode of the class
+     *
+     * @return the class
+     */
+    Class<?> defineClass(String name, byte[] bytecode) {
+      return defineClass(name, bytecode, 0, bytecode.length);
+    }
+  }
+}
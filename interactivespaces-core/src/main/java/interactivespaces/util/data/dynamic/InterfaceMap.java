@@ -36,10 +36,30 @@ import java.util.Map;
  * <p/>
  * Primitive getters will throw an exception if the corresponding value is {@code null}.
  * One exception is primitive {@code boolean} getter, which in this case will return {@code false}.
+ * <p/>
+ * Dynamic objects are either proxies, from {@link #createInstance(Class, Map)}, or instances of classes generated for
+ * the interface, from {@link #createGeneratedInstance(Class, Map)}. Generated objects are much faster to call, at the
+ * cost of generating a class the first time an interface is used. Both kinds behave the same and can be mixed freely.
+ * Interfaces which are not public always get proxies.
  *
  * @author Oleksandr Kelepko
  */
 public final class InterfaceMap {
+  /**
+   * Factories for generated dynamic objects, indexed by interface.
+   *
+   * <p>
+   * The factories are attached to their interfaces rather than held in a map, so a cached factory does not keep the
+   * class loader of an unloaded activity alive.
+   */
+  private static final ClassValue<DynamicObjectFactory<?>> GENERATED_FACTORIES =
+      new ClassValue<DynamicObjectFactory<?>>() {
+        @Override
+        protected DynamicObjectFactory<?> computeValue(Class<?> interfaceClass) {
+          return newGeneratedFactory(interfaceClass);
+        }
+      };
+
   /**
    * Prevent instantiation of the utility class.
    */
@@ -99,6 +119,78 @@ public final class InterfaceMap {
     return createInstance(interfaceClass, backingMap);
   }
 
+  /**
+   * Create an instance of a given interface, that is backed by a given map, using a class generated for the interface.
+   * See {@link #createInstance(Class, Map)} for the supported interfaces.
+   *
+   * @param interfaceClass
+   *          type of the object to create
+   * @param backingMap
+   *          backing map, the source of values
+   * @param <T>
+   *          type of the object to create
+   *
+   * @return instance of the {@code interfaceClass}, backed by {@code backingMap}
+   *
+   * @throws java.lang.IllegalArgumentException
+   *           if {@code interfaceClass} is not an interface
+   * @throws java.lang.NullPointerException
+   *           if any argument is {@code null}
+   */
+  public static <T> T createGeneratedInstance(Class<T> interfaceClass, Map<String, Object> backingMap) {
+    return getGeneratedFactory(interfaceClass).newInstance(backingMap);
+  }
+
+  /**
+   * Get the factory for generated dynamic objects of a given interface. The class is generated the first time the
+   * interface is asked for, after that the same factory is returned.
+   *
+   * <p>
+   * A class can only be generated for a public interface. Any other interface gets a factory for proxy dynamic
+   * objects.
+   *
+   * @param interfaceClass
+   *          type of the objects to create
+   * @param <T>
+   *          type of the objects to create
+   *
+   * @return the factory
+   *
+   * @throws java.lang.IllegalArgumentException
+   *           if {@code interfaceClass} is not an interface
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> DynamicObjectFactory<T> getGeneratedFactory(Class<T> interfaceClass) {
+    return (DynamicObjectFactory<T>) GENERATED_FACTORIES.get(interfaceClass);
+  }
+
+  /**
+   * Create a factory for dynamic objects of a generated class, or for proxy dynamic objects if no class can be
+   * generated for the interface.
+   *
+   * <p>
+   * Each generated class lives in a class loader of its own, so two threads racing to create a factory for the same
+   * interface both succeed and only one of the factories is kept.
+   *
+   * @param interfaceClass
+   *          type of the objects to create
+   * @param <T>
+   *          type of the objects to create
+   *
+   * @return the new factory
+   *
+   * @throws java.lang.IllegalArgumentException
+   *           if {@code interfaceClass} is not an interface
+   */
+  private static <T> DynamicObjectFactory<T> newGeneratedFactory(Class<T> interfaceClass) {
+    Preconditions.checkArgument(interfaceClass.isInterface(), "%s is not an interface", interfaceClass.getName());
+    if (GeneratedDynamicObjectFactory.canGenerate(interfaceClass)) {
+      return GeneratedDynamicObjectFactory.newFactory(interfaceClass);
+    } else {
+      return new ProxyDynamicObjectFactory<T>(interfaceClass);
+    }
+  }
+
   /**
    * Is this a dynamic object?
    *
@@ -111,6 +203,9 @@ public final class InterfaceMap {
     if (object == null) {
       return false;
     }
+    if (object instanceof BackingMapDynamicObject) {
+      return true;
+    }
     Class<?> c = object.getClass();
     if (isProxyClass(c)) {
       InvocationHandler handler = getInvocationHandler(object);
@@ -129,6 +224,9 @@ public final class InterfaceMap {
    */
   public static Class<?> getClass(Object dynamicObject) {
     Preconditions.checkArgument(isDynamicObject(dynamicObject), "Object must be DynamicObject");
+    if (dynamicObject instanceof BackingMapDynamicObject) {
+      return ((BackingMapDynamicObject) dynamicObject).getInterfaceClass();
+    }
     return dynamicObject.getClass().getInterfaces()[0];
   }
 
@@ -141,7 +239,43 @@ public final class InterfaceMap {
    * @return backing map for object
    */
   public static Map<String, Object> getBackingMap(Object dynamicObject) {
+    if (dynamicObject instanceof BackingMapDynamicObject) {
+      return ((BackingMapDynamicObject) dynamicObject).getBackingMap();
+    }
     InvocationHandler handler = getInvocationHandler(dynamicObject);
     return ((BackingMapInvocationHandler) handler).getBackingMap();
   }
+
+  /**
+   * A factory for proxy dynamic objects, for interfaces which a class can't be generated for.
+   *
+   * @param <T>
+   *          the interface of the dynamic objects
+   *
+   * @author Keith M. Hughes
+   */
+  private static final class ProxyDynamicObjectFactory<T> implements DynamicObjectFactory<T> {
+
+    /**
+     * The interface of the dynamic objects.
+     */
+    private final Class<T> interfaceClass;
+
+    /**
+     * Construct a new factory.
+     *
+     * @param interfaceClass
+     *          the interface of the dynamic objects
+     */
+    ProxyDynamicObjectFactory(Class<T> interfaceClass) {
+      this.interfaceClass = interfaceClass;
+    }
+
+    @Override
+    public T newInstance(Map<String, Object> backingMap) {
+      Preconditions.checkNotNull(backingMap);
+
+      return createInstance(interfaceClass, backingMap);
+    }
+  }
 }
@@ -273,7 +273,7 @@ public interface JsonNavigator {
    * Traverse a string-based path to a position in the object.
    *
    * <p>
-   * Not quite ready for prime time.
+   * The path is parsed on every call, use {@link JsonPath} for paths which are traversed many times.
    *
    * @param path
    *          the path string
@@ -284,4 +284,20 @@ public interface JsonNavigator {
    *           could not navigate
    */
   Object traversePath(String path) throws JsonInteractiveSpacesException;
+
+  /**
+   * Traverse a compiled path to a position in the object.
+   *
+   * <p>
+   * Relative paths start at the current position, absolute paths at the root.
+   *
+   * @param path
+   *          the compiled path
+   *
+   * @return the final object
+   *
+   * @throws JsonInteractiveSpacesException
+   *           could not navigate
+   */
+  Object traversePath(JsonPath path) throws JsonInteractiveSpacesException;
 }
@@ -0,0 +1,669 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.data.json;
+
+import com.google.common.collect.Lists;
+
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A path into a JSON object which is parsed once and can then be evaluated many times.
+ *
+ * <p>
+ * Paths have the syntax of {@link JsonNavigator#traversePath(String)}. Elements are separated by periods. An element
+ * is either the name of a property of an object, an array index such as {@code [2]}, or {@code $} for the root. For
+ * example, {@code data.skeletons.[0].id}.
+ *
+ * <p>
+ * A path can be evaluated against a map, a {@link JsonNavigator}, or a streaming Jackson parser. A parser is only read
+ * as far as the value at the end of the path, and only that value is turned into Java objects.
+ *
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ *
+ * @author Keith M. Hughes
+ */
+public final class JsonPath {
+
+  /**
+   * The path element for the root.
+   */
+  public static final String PATH_ELEMENT_ROOT = "$";
+
+  /**
+   * The separator between path elements.
+   */
+  public static final String PATH_ELEMENT_SEPARATOR_REGEX = "\\.";
+
+  /**
+   * Mapper for turning the value at the end of a path in a parser into Java objects.
+   */
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /**
+   * The path as it was given.
+   */
+  private final String path;
+
+  /**
+   * {@code true} if the path starts at the root rather than the current position.
+   */
+  private final boolean absolute;
+
+  /**
+   * The property name of each element, {@code null} for array index elements.
+   */
+  private final String[] names;
+
+  /**
+   * The array index of each element, only meaningful for array index elements.
+   */
+  private final int[] indices;
+
+  /**
+   * Construct a compiled path.
+   *
+   * @param path
+   *          the path as it was given
+   * @param absolute
+   *          {@code true} if the path starts at the root
+   * @param names
+   *          the property name of each element, {@code null} for array index elements
+   * @param indices
+   *          the array index of each element
+   */
+  private JsonPath(String path, boolean absolute, String[] names, int[] indices) {
+    this.path = path;
+    this.absolute = absolute;
+    this.names = names;
+    this.indices = indices;
+  }
+
+  /**
+   * Compile a path.
+   *
+   * @param path
+   *          the path
+   *
+   * @return the compiled path
+   *
+   * @throws JsonInteractiveSpacesException
+   *           the path was not valid
+   */
+  public static JsonPath compile(String path) throws JsonInteractiveSpacesException {
+    List<String> names = Lists.newArrayList();
+    List<Integer> indices = Lists.newArrayList();
+    boolean absolute = false;
+
+    for (String rawElement : path.split(PATH_ELEMENT_SEPARATOR_REGEX)) {
+      String element = rawElement.trim();
+
+      if (element.isEmpty()) {
+        throw new JsonInteractiveSpacesException(String.format("Empty element in path %s", path));
+      }
+
+      if (element.equals(PATH_ELEMENT_ROOT)) {
+        // Everything before the root element is thrown away when the path is traversed.
+        names.clear();
+        indices.clear();
+        absolute = true;
+      } else if (element.startsWith("[")) {
+        if (!element.endsWith("]")) {
+          throw new JsonInteractiveSpacesException(String.format("Path element %s does not end in a ]", element));
+        }
+
+        try {
+          names.add(null);
+          indices.add(Integer.parseInt(element.substring(1, element.length() - 1)));
+        } catch (NumberFormatException e) {
+          throw new JsonInteractiveSpacesException(String.format("Path element %s is not an array index", element),
+              e);
+        }
+      } else {
+        names.add(element);
+        indices.add(-1);
+      }
+    }
+
+    int[] indexArray = new int[indices.size()];
+    for (int i = 0; i < indexArray.length; i++) {
+      indexArray[i] = indices.get(i);
+    }
+
+    return new JsonPath(path, absolute, names.toArray(new String[names.size()]), indexArray);
+  }
+
+  /**
+   * Get the path as it was given.
+   *
+   * @return the path
+   */
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * Does the path start at the root rather than the current position?
+   *
+   * @return {@code true} if the path is absolute
+   */
+  public boolean isAbsolute() {
+    return absolute;
+  }
+
+  /**
+   * Evaluate the path against an object, which is both the root and the starting position.
+   *
+   * @param object
+   *          the object
+   *
+   * @return the value at the end of the path, or {@code null} if the final element is not there
+   *
+   * @throws JsonInteractiveSpacesException
+   *           the path could not be followed
+   */
+  public Object evaluate(Map<String, Object> object) throws JsonInteractiveSpacesException {
+    return evaluate(object, object);
+  }
+
+  /**
+   * Evaluate the path against a navigator, starting at the navigator's current position.
+   *
+   * @param navigator
+   *          the navigator
+   *
+   * @return the value at the end of the path, or {@code null} if the final element is not there
+   *
+   * @throws JsonInteractiveSpacesException
+   *           the path could not be followed
+   */
+  public Object evaluate(JsonNavigator navigator) throws JsonInteractiveSpacesException {
+    return navigator.traversePath(this);
+  }
+
+  /**
+   * Evaluate the path against a parser.
+   *
+   * <p>
+   * The parser must either not have been started or be positioned at the start of the object or array the path starts
+   * from. It is left just after the value at the end of the path, or at the end of the object or array which did not
+   * contain the final element.
+   *
+   * @param parser
+   *          the parser
+   *
+   * @return the value at the end of the path, or {@code null} if the final element is not there
+   *
+   * @throws JsonInteractiveSpacesException
+   *           the path could not be followed or the JSON could not be read
+   */
+  public Object evaluate(JsonParser parser) throws JsonInteractiveSpacesException {
+    try {
+      JsonToken token = parser.getCurrentToken();
+      if (token == null) {
+        token = parser.nextToken();
+      }
+
+      for (int i = 0; i < names.length; i++) {
+        String name = names[i];
+        if (name != null) {
+          if (token == JsonToken.START_OBJECT) {
+            token = findProperty(parser, name);
+          } else if (token == JsonToken.START_ARRAY) {
+            throw new JsonInteractiveSpacesException("Attempt to use an name index in an array");
+          } else {
+            throw new JsonInteractiveSpacesException("Non array or object in the middle of a path");
+          }
+        } else {
+          if (token == JsonToken.START_ARRAY) {
+            token = findIndex(parser, indices[i]);
+          } else if (token == JsonToken.START_OBJECT) {
+            throw new JsonInteractiveSpacesException("Attempt to use an array index in an object");
+          } else {
+            throw new JsonInteractiveSpacesException("Non array or object in the middle of a path");
+          }
+        }
+
+        if (token == null) {
+          if (i == names.length - 1) {
+            return null;
+          } else {
+            throw new JsonInteractiveSpacesException("Non array or object in the middle of a path");
+          }
+        }
+      }
+
+      return readValue(parser, token);
+    } catch (IOException e) {
+      throw new JsonInteractiveSpacesException(String.format("Could not read JSON for path %s", path), e);
+    }
+  }
+
+  /**
+   * Evaluate several paths in one pass over a parser.
+   *
+   * <p>
+   * This is much faster than evaluating each path with its own parser when several fields are needed from the same
+   * JSON. All paths start at the object or array the parser starts at, whether or not they are absolute. The parser
+   * is read only as far as the last value needed.
+   *
+   * @param parser
+   *          the parser, which must either not have been started or be positioned at the start of an object or array
+   * @param paths
+   *          the paths
+   *
+   * @return the value at the end of each path, in the same order as the paths, {@code null} for any path whose final
+   *         element is not there
+   *
+   * @throws JsonInteractiveSpacesException
+   *           a path could not be followed or the JSON could not be read
+   */
+  public static Object[] evaluate(JsonParser parser, JsonPath... paths) throws JsonInteractiveSpacesException {
+    StreamingEvaluation evaluation = new StreamingEvaluation(parser, paths);
+    try {
+      JsonToken token = parser.getCurrentToken();
+      if (token == null) {
+        token = parser.nextToken();
+      }
+
+      int[] active = new int[paths.length];
+      for (int i = 0; i < active.length; i++) {
+        active[i] = i;
+      }
+      evaluation.evaluate(token, active, active.length, 0);
+
+      return evaluation.results;
+    } catch (IOException e) {
+      throw new JsonInteractiveSpacesException("Could not read JSON for paths", e);
+    }
+  }
+
+  /**
+   * Evaluate the path.
+   *
+   * @param root
+   *          the root object
+   * @param current
+   *          the current position, either a map or a list
+   *
+   * @return the value at the end of the path
+   *
+   * @throws JsonInteractiveSpacesException
+   *           the path could not be followed
+   */
+  Object evaluate(Map<String, Object> root, Object current) throws JsonInteractiveSpacesException {
+    return evaluate(absolute ? root : current, 0);
+  }
+
+  /**
+   * Evaluate the remainder of the path.
+   *
+   * @param current
+   *          the current position
+   * @param start
+   *          the element of the path to start at
+   *
+   * @return the value at the end of the path
+   *
+   * @throws JsonInteractiveSpacesException
+   *           the path could not be followed
+   */
+  @SuppressWarnings("unchecked")
+  private Object evaluate(Object current, int start) throws JsonInteractiveSpacesException {
+    Object curObject = current;
+
+    for (int i = start; i < names.length; i++) {
+      String name = names[i];
+      if (name != null) {
+        if (curObject instanceof Map) {
+          curObject = ((Map<String, Object>) curObject).get(name);
+        } else if (curObject instanceof List) {
+          throw new JsonInteractiveSpacesException("Attempt to use an name index in an array");
+        } else {
+          throw new JsonInteractiveSpacesException("Non array or object in the middle of a path");
+        }
+      } else {
+        if (curObject instanceof List) {
+          List<Object> list = (List<Object>) curObject;
+          int index = indices[i];
+          if (index < 0 || index >= list.size()) {
+            throw new JsonInteractiveSpacesException(String.format("Array index %d out of range in path %s", index,
+                path));
+          }
+          curObject = list.get(index);
+        } else if (curObject instanceof Map) {
+          throw new JsonInteractiveSpacesException("Attempt to use an array index in an object");
+        } else {
+          throw new JsonInteractiveSpacesException("Non array or object in the middle of a path");
+        }
+      }
+    }
+
+    return curObject;
+  }
+
+  /**
+   * Move the parser to the value of a property of the object it is at the start of.
+   *
+   * @param parser
+   *          the parser, at the start of an object
+   * @param name
+   *          name of the property
+   *
+   * @return the first token of the value, or {@code null} if the object has no such property
+   *
+   * @throws IOException
+   *           the JSON could not be read
+   */
+  private JsonToken findProperty(JsonParser parser, String name) throws IOException {
+    JsonToken token;
+    while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+      String fieldName = parser.getCurrentName();
+      token = parser.nextToken();
+      if (name.equals(fieldName)) {
+        return token;
+      }
+      parser.skipChildren();
+    }
+
+    return null;
+  }
+
+  /**
+   * Move the parser to an item of the array it is at the start of.
+   *
+   * @param parser
+   *          the parser, at the start of an array
+   * @param index
+   *          index of the item
+   *
+   * @return the first token of the item
+   *
+   * @throws IOException
+   *           the JSON could not be read
+   * @throws JsonInteractiveSpacesException
+   *           the array is too short
+   */
+  private JsonToken findIndex(JsonParser parser, int index) throws IOException, JsonInteractiveSpacesException {
+    JsonToken token;
+    int position = 0;
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+      if (position++ == index) {
+        return token;
+      }
+      parser.skipChildren();
+    }
+
+    throw new JsonInteractiveSpacesException(String.format("Array index %d out of range in path %s", index, path));
+  }
+
+  /**
+   * Read the value the parser is at.
+   *
+   * @param parser
+   *          the parser
+   * @param token
+   *          the first token of the value
+   *
+   * @return the value, as the {@link JsonMapper} would give it
+   *
+   * @throws IOException
+   *           the JSON could not be read
+   */
+  private Object readValue(JsonParser parser, JsonToken token) throws IOException {
+    switch (token) {
+      case VALUE_STRING:
+        return parser.getText();
+      case VALUE_NUMBER_INT:
+        return parser.getNumberValue();
+      case VALUE_NUMBER_FLOAT:
+        return parser.getDoubleValue();
+      case VALUE_TRUE:
+        return Boolean.TRUE;
+      case VALUE_FALSE:
+        return Boolean.FALSE;
+      case VALUE_NULL:
+        return null;
+      default:
+        return MAPPER.readValue(parser, Object.class);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "JsonPath [path=" + path + "]";
+  }
+
+  /**
+   * The state of evaluating several paths in one pass over a parser.
+   *
+   * @author Keith M. Hughes
+   */
+  private static final class StreamingEvaluation {
+
+    /**
+     * The parser being read.
+     */
+    private final JsonParser parser;
+
+    /**
+     * The paths being evaluated.
+     */
+    private final JsonPath[] paths;
+
+    /**
+     * The value at the end of each path.
+     */
+    private final Object[] results;
+
+    /**
+     * The number of paths whose values have not been found yet.
+     */
+    private int unresolved;
+
+    /**
+     * Construct a new evaluation.
+     *
+     * @param parser
+     *          the parser being read
+     * @param paths
+     *          the paths being evaluated
+     */
+    private StreamingEvaluation(JsonParser parser, JsonPath[] paths) {
+      this.parser = parser;
+      this.paths = paths;
+      this.results = new Object[paths.length];
+      this.unresolved = paths.length;
+    }
+
+    /**
+     * Evaluate the paths which have reached the value the parser is at.
+     *
+     * @param token
+     *          the first token of the value
+     * @param active
+     *          the indices of the paths which have reached the value, only the first {@code numActive} are used
+     * @param numActive
+     *          the number of paths which have reached the value
+     * @param depth
+     *          the element of the paths which applies to the value
+     *
+     * @throws IOException
+     *           the JSON could not be read
+     * @throws JsonInteractiveSpacesException
+     *           a path could not be followed
+     */
+    private void evaluate(JsonToken token, int[] active, int numActive, int depth) throws IOException,
+        JsonInteractiveSpacesException {
+      boolean anyEnded = false;
+      for (int i = 0; i < numActive; i++) {
+        if (paths[active[i]].names.length == depth) {
+          anyEnded = true;
+          break;
+        }
+      }
+
+      if (anyEnded) {
+        // Read the whole value once and evaluate any paths going deeper against it.
+        Object value = paths[active[0]].readValue(parser, token);
+        for (int i = 0; i < numActive; i++) {
+          results[active[i]] = paths[active[i]].evaluate(value, depth);
+        }
+        unresolved -= numActive;
+      } else if (token == JsonToken.START_OBJECT) {
+        evaluateObject(active, numActive, depth);
+      } else if (token == JsonToken.START_ARRAY) {
+        evaluateArray(active, numActive, depth);
+      } else {
+        throw new JsonInteractiveSpacesException("Non array or object in the middle of a path");
+      }
+    }
+
+    /**
+     * Evaluate the paths which have reached the object the parser is at the start of.
+     *
+     * @param active
+     *          the indices of the paths which have reached the object
+     * @param numActive
+     *          the number of paths which have reached the object
+     * @param depth
+     *          the element of the paths which applies to the object
+     *
+     * @throws IOException
+     *           the JSON could not be read
+     * @throws JsonInteractiveSpacesException
+     *           a path could not be followed
+     */
+    private void evaluateObject(int[] active, int numActive, int depth) throws IOException,
+        JsonInteractiveSpacesException {
+      int[] matching = new int[numActive];
+      boolean[] found = new boolean[numActive];
+      for (int i = 0; i < numActive; i++) {
+        if (paths[active[i]].names[depth] == null) {
+          throw new JsonInteractiveSpacesException("Attempt to use an array index in an object");
+        }
+      }
+
+      while (unresolved > 0 && parser.nextToken() == JsonToken.FIELD_NAME) {
+        String fieldName = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+
+        int numMatching = 0;
+        for (int i = 0; i < numActive; i++) {
+          if (fieldName.equals(paths[active[i]].names[depth])) {
+            matching[numMatching++] = active[i];
+            found[i] = true;
+          }
+        }
+
+        if (numMatching > 0) {
+          evaluate(token, matching, numMatching, depth + 1);
+        } else {
+          parser.skipChildren();
+        }
+      }
+
+      if (unresolved > 0) {
+        for (int i = 0; i < numActive; i++) {
+          if (!found[i]) {
+            checkMissingFinal(active[i], depth);
+          }
+        }
+      }
+    }
+
+    /**
+     * Evaluate the paths which have reached the array the parser is at the start of.
+     *
+     * @param active
+     *          the indices of the paths which have reached the array
+     * @param numActive
+     *          the number of paths which have reached the array
+     * @param depth
+     *          the element of the paths which applies to the array
+     *
+     * @throws IOException
+     *           the JSON could not be read
+     * @throws JsonInteractiveSpacesException
+     *           a path could not be followed
+     */
+    private void evaluateArray(int[] active, int numActive, int depth) throws IOException,
+        JsonInteractiveSpacesException {
+      int[] matching = new int[numActive];
+      int numFound = 0;
+      for (int i = 0; i < numActive; i++) {
+        if (paths[active[i]].names[depth] != null) {
+          throw new JsonInteractiveSpacesException("Attempt to use an name index in an array");
+        }
+      }
+
+      JsonToken token;
+      int position = 0;
+      while (unresolved > 0 && (token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+        int numMatching = 0;
+        for (int i = 0; i < numActive; i++) {
+          if (paths[active[i]].indices[depth] == position) {
+            matching[numMatching++] = active[i];
+          }
+        }
+
+        if (numMatching > 0) {
+          numFound += numMatching;
+          evaluate(token, matching, numMatching, depth + 1);
+        } else {
+          parser.skipChildren();
+        }
+        position++;
+      }
+
+      if (unresolved > 0 && numFound < numActive) {
+        for (int i = 0; i < numActive; i++) {
+          int index = paths[active[i]].indices[depth];
+          if (index < 0 || index >= position) {
+            JsonPath path = paths[active[i]];
+            throw new JsonInteractiveSpacesException(String.format("Array index %d out of range in path %s", index,
+                path.path));
+          }
+        }
+      }
+    }
+
+    /**
+     * Check a path whose element was not in an object.
+     *
+     * @param pathIndex
+     *          index of the path
+     * @param depth
+     *          the element which was not found
+     *
+     * @throws JsonInteractiveSpacesException
+     *           the element was not the final element of the path
+     */
+    private void checkMissingFinal(int pathIndex, int depth) throws JsonInteractiveSpacesException {
+      if (depth < paths[pathIndex].names.length - 1) {
+        throw new JsonInteractiveSpacesException("Non array or object in the middle of a path");
+      }
+      unresolved--;
+    }
+  }
+}
@@ -349,54 +349,12 @@ public class StandardJsonNavigator implements JsonNavigator {
 
   @Override
   public Object traversePath(String path) {
-    Object curObject = null;
-
-    if (currentType == JsonType.OBJECT) {
-      curObject = currentObject;
-    } else {
-      curObject = currentArray;
-    }
-
-    String[] elements = path.split("\\.");
-
-    for (int i = 0; i < elements.length; i++) {
-      String element = elements[i].trim();
-
-      if (element.isEmpty()) {
-        throw new JsonInteractiveSpacesException(String.format("Empty element in path %s", path));
-      }
-
-      if (element.equals("$")) {
-        curObject = root;
-      } else if (element.startsWith("[")) {
-        if (curObject instanceof List) {
-          if (element.endsWith("]")) {
-            int index = Integer.parseInt(element.substring(1, element.length() - 1));
-
-            List<Object> objectList = checkedValue(curObject, path);
-            curObject = objectList.get(index);
-          } else {
-            throw new JsonInteractiveSpacesException(String.format("Path element %s does not end in a ]", element));
-          }
-        } else if (curObject instanceof Map) {
-          throw new JsonInteractiveSpacesException("Attempt to use an array index in an object");
-        } else if (i < elements.length) {
-          throw new JsonInteractiveSpacesException("Non array or object in the middle of a path");
-        }
-      } else {
-        // Have a result name
-        if (curObject instanceof Map) {
-          Map<String, Object> objectMap = checkedValue(curObject, path);
-          curObject = objectMap.get(element);
-        } else if (curObject instanceof List) {
-          throw new JsonInteractiveSpacesException("Attempt to use an name index in an array");
-        } else if (i < elements.length) {
-          throw new JsonInteractiveSpacesException("Non array or object in the middle of a path");
-        }
-      }
-    }
+    return traversePath(JsonPath.compile(path));
+  }
 
-    return curObject;
+  @Override
+  public Object traversePath(JsonPath path) {
+    return path.evaluate(root, (currentType == JsonType.OBJECT) ? currentObject : currentArray);
   }
 
   @Override
@@ -0,0 +1,731 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.data.persist;
+
+import interactivespaces.InteractiveSpacesException;
+import interactivespaces.util.data.json.JsonMapper;
+import interactivespaces.util.data.json.StandardJsonMapper;
+import interactivespaces.util.io.FileSupport;
+import interactivespaces.util.io.FileSupportImpl;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A concurrent JSON file which writes changes to an append-only journal.
+ *
+ * <p>
+ * The file consists of a snapshot, stored in the same format as {@link StandardConcurrentJsonFile}, and a journal
+ * file alongside it with the suffix {@link #JOURNAL_FILE_SUFFIX}. Each save appends a single line to the journal
+ * containing only the keys which have changed since the last save.
+ *
+ * <p>
+ * Saves from multiple threads are group committed. The first thread to reach the journal writes the changes of every
+ * thread waiting behind it in one write and one sync, so a burst of saves costs one disk flush rather than one per
+ * save.
+ *
+ * <p>
+ * When the journal grows past the compaction threshold, the current map is written to a temporary file which is then
+ * atomically renamed over the snapshot, and the journal is discarded. On load the snapshot is read and the journal is
+ * replayed on top of it. A partially written final journal record, such as one left by a crash, is discarded.
+ *
+ * <p>
+ * Only changes made through {@link #put(String, Object)}, {@link #putAll(Map)} and {@link #replaceAll(Map)} are
+ * journaled, and {@link #replaceAll(Map)} only journals the keys whose values are not equal to the current ones.
+ * Maps and lists are copied whenever a value goes into or comes out of the file. An object obtained through
+ * {@link #get(String)} or {@link #getAll()} which is modified in place must be put back into the file for the change
+ * to be saved, and is then compared with the value the file still holds.
+ *
+ * @author Keith M. Hughes
+ */
+public class JournaledConcurrentJsonFile implements ConcurrentJsonFile {
+
+  /**
+   * The suffix added to the file name for the journal file.
+   */
+  public static final String JOURNAL_FILE_SUFFIX = ".journal";
+
+  /**
+   * The suffix added to the file name for the temporary file used during compaction.
+   */
+  public static final String COMPACTION_FILE_SUFFIX = ".compact";
+
+  /**
+   * The default minimum size of the journal, in bytes, before compaction is considered.
+   */
+  public static final long JOURNAL_COMPACTION_MINIMUM_SIZE_DEFAULT = 64 * 1024;
+
+  /**
+   * The default multiple of the snapshot size the journal must reach before compaction is done.
+   */
+  public static final int JOURNAL_COMPACTION_SNAPSHOT_MULTIPLE_DEFAULT = 4;
+
+  /**
+   * Journal record field for the keys whose values have been set.
+   */
+  public static final String JOURNAL_RECORD_FIELD_PUT = "put";
+
+  /**
+   * Journal record field for the keys which have been removed.
+   */
+  public static final String JOURNAL_RECORD_FIELD_REMOVE = "remove";
+
+  /**
+   * The terminator for each record in the journal.
+   */
+  private static final byte JOURNAL_RECORD_TERMINATOR = '\n';
+
+  /**
+   * The JSON mapper.
+   */
+  private static final JsonMapper MAPPER = StandardJsonMapper.INSTANCE;
+
+  /**
+   * The file which stores the snapshot of the map.
+   */
+  private final File file;
+
+  /**
+   * The file which stores the journal.
+   */
+  private final File journalFile;
+
+  /**
+   * The file used to write a new snapshot before it replaces the old one.
+   */
+  private final File compactionFile;
+
+  /**
+   * The read/write lock for the map and the pending changes.
+   *
+   * <p>
+   * This lock will be fair between reader and writer threads.
+   */
+  private final ReadWriteLock rwlock = new ReentrantReadWriteLock(true);
+
+  /**
+   * The lock held by whichever thread is currently writing to the journal.
+   */
+  private final Lock commitLock = new ReentrantLock();
+
+  /**
+   * The map.
+   */
+  private Map<String, Object> map = Maps.newHashMap();
+
+  /**
+   * The keys which have been put since the last save.
+   */
+  private final Set<String> changedKeys = Sets.newLinkedHashSet();
+
+  /**
+   * The keys which have been removed since the last save.
+   */
+  private final Set<String> removedKeys = Sets.newLinkedHashSet();
+
+  /**
+   * The serialized journal records which have been saved but not yet written to the journal.
+   */
+  private final List<String> pendingRecords = Lists.newArrayList();
+
+  /**
+   * The sequence number of the most recent save.
+   */
+  private long savedSequence;
+
+  /**
+   * The sequence number of the most recent save which is safely in the journal.
+   *
+   * <p>
+   * Only modified while holding the {@link #commitLock}.
+   */
+  private volatile long committedSequence;
+
+  /**
+   * The current size of the journal, in bytes.
+   */
+  private long journalSize;
+
+  /**
+   * The size of the last snapshot, in bytes.
+   */
+  private long snapshotSize;
+
+  /**
+   * The minimum size of the journal, in bytes, before compaction is considered.
+   */
+  private long journalCompactionMinimumSize = JOURNAL_COMPACTION_MINIMUM_SIZE_DEFAULT;
+
+  /**
+   * The multiple of the snapshot size the journal must reach before compaction is done.
+   */
+  private int journalCompactionSnapshotMultiple = JOURNAL_COMPACTION_SNAPSHOT_MULTIPLE_DEFAULT;
+
+  /**
+   * {@code true} if journal writes should be synced to the storage device before a save completes.
+   */
+  private boolean syncOnCommit = true;
+
+  /**
+   * The file support for file operations.
+   */
+  private final FileSupport fileSupport = FileSupportImpl.INSTANCE;
+
+  /**
+   * Construct a new journaled file.
+   *
+   * @param file
+   *          the file system file for the snapshot, the journal will be placed next to it
+   */
+  public JournaledConcurrentJsonFile(File file) {
+    this.file = file;
+    this.journalFile = fileSupport.newFile(fileSupport.getParentFile(file), fileSupport.getName(file)
+        + JOURNAL_FILE_SUFFIX);
+    this.compactionFile = fileSupport.newFile(fileSupport.getParentFile(file), fileSupport.getName(file)
+        + COMPACTION_FILE_SUFFIX);
+  }
+
+  @Override
+  public boolean load() throws InteractiveSpacesException {
+    commitLock.lock();
+    try {
+      rwlock.writeLock().lock();
+      try {
+        // Anything left over from an interrupted compaction is incomplete and the old snapshot and journal still hold
+        // the data.
+        if (fileSupport.exists(compactionFile)) {
+          fileSupport.delete(compactionFile);
+        }
+
+        boolean snapshotExists = fileSupport.exists(file);
+        boolean journalExists = fileSupport.exists(journalFile);
+
+        Map<String, Object> newMap = Maps.newHashMap();
+        snapshotSize = 0;
+        if (snapshotExists) {
+          byte[] content = Files.readAllBytes(file.toPath());
+          newMap.putAll(MAPPER.parseObject(new String(content, Charsets.UTF_8)));
+          snapshotSize = content.length;
+        }
+
+        journalSize = 0;
+        if (journalExists) {
+          journalSize = replayJournal(newMap);
+        }
+
+        map = newMap;
+        changedKeys.clear();
+        removedKeys.clear();
+        pendingRecords.clear();
+        committedSequence = savedSequence;
+
+        return snapshotExists || journalExists;
+      } finally {
+        rwlock.writeLock().unlock();
+      }
+    } catch (InteractiveSpacesException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new InteractiveSpacesException(String.format("Could not read %s", file), e);
+    } finally {
+      commitLock.unlock();
+    }
+  }
+
+  @Override
+  public Object get(String key) {
+    rwlock.readLock().lock();
+    try {
+      return copyValue(map.get(key));
+    } finally {
+      rwlock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public Map<String, Object> getAll() {
+    rwlock.readLock().lock();
+    try {
+      return copyMap(map);
+    } finally {
+      rwlock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void save() throws InteractiveSpacesException {
+    long sequence;
+    rwlock.writeLock().lock();
+    try {
+      if (!changedKeys.isEmpty() || !removedKeys.isEmpty()) {
+        pendingRecords.add(createJournalRecord());
+        changedKeys.clear();
+        removedKeys.clear();
+        savedSequence++;
+      }
+
+      sequence = savedSequence;
+    } finally {
+      rwlock.writeLock().unlock();
+    }
+
+    commit(sequence);
+  }
+
+  @Override
+  public void replaceAll(Map<String, Object> newData) {
+    rwlock.writeLock().lock();
+    try {
+      for (String key : map.keySet()) {
+        if (!newData.containsKey(key)) {
+          removedKeys.add(key);
+          changedKeys.remove(key);
+        }
+      }
+      // Only keys whose values differ are journaled, so replacing the map with a mostly unchanged copy stays cheap.
+      for (Entry<String, Object> entry : newData.entrySet()) {
+        String key = entry.getKey();
+        Object value = entry.getValue();
+        if (!map.containsKey(key) || !Objects.equal(map.get(key), value)) {
+          putValue(key, value);
+        }
+      }
+
+      map.keySet().retainAll(newData.keySet());
+    } finally {
+      rwlock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void put(String key, Object value) {
+    rwlock.writeLock().lock();
+    try {
+      putValue(key, value);
+    } finally {
+      rwlock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void putAll(Map<String, Object> values) {
+    rwlock.writeLock().lock();
+    try {
+      for (Entry<String, Object> entry : values.entrySet()) {
+        putValue(entry.getKey(), entry.getValue());
+      }
+    } finally {
+      rwlock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Compact the journal into a new snapshot immediately, whatever its size.
+   *
+   * @throws InteractiveSpacesException
+   *           if there was an error while writing the files
+   */
+  public void compact() throws InteractiveSpacesException {
+    commitLock.lock();
+    try {
+      compactJournal();
+    } catch (IOException e) {
+      throw new InteractiveSpacesException(String.format("Could not compact %s", file), e);
+    } finally {
+      commitLock.unlock();
+    }
+  }
+
+  /**
+   * Delete the snapshot and journal from the file system and clear the map.
+   *
+   * @return {@code true} if there was anything on the file system to delete
+   *
+   * @throws InteractiveSpacesException
+   *           if there was an error while deleting the files
+   */
+  public boolean delete() throws InteractiveSpacesException {
+    commitLock.lock();
+    try {
+      rwlock.writeLock().lock();
+      try {
+        boolean existed = false;
+        for (File f : new File[] { file, journalFile, compactionFile }) {
+          if (fileSupport.exists(f)) {
+            fileSupport.delete(f);
+            existed = true;
+          }
+        }
+
+        map.clear();
+        changedKeys.clear();
+        removedKeys.clear();
+        pendingRecords.clear();
+        committedSequence = savedSequence;
+        journalSize = 0;
+        snapshotSize = 0;
+
+        return existed;
+      } finally {
+        rwlock.writeLock().unlock();
+      }
+    } finally {
+      commitLock.unlock();
+    }
+  }
+
+  /**
+   * Get the file which holds the journal.
+   *
+   * @return the journal file
+   */
+  public File getJournalFile() {
+    return journalFile;
+  }
+
+  /**
+   * Set the minimum size of the journal before compaction is considered.
+   *
+   * @param journalCompactionMinimumSize
+   *          the minimum size, in bytes
+   */
+  public void setJournalCompactionMinimumSize(long journalCompactionMinimumSize) {
+    this.journalCompactionMinimumSize = journalCompactionMinimumSize;
+  }
+
+  /**
+   * Set the multiple of the snapshot size the journal must grow to before it is compacted.
+   *
+   * @param journalCompactionSnapshotMultiple
+   *          the multiple of the snapshot size
+   */
+  public void setJournalCompactionSnapshotMultiple(int journalCompactionSnapshotMultiple) {
+    this.journalCompactionSnapshotMultiple = journalCompactionSnapshotMultiple;
+  }
+
+  /**
+   * Set whether journal writes are synced to the storage device before a save completes.
+   *
+   * <p>
+   * Turning syncing off makes saves much faster, but saves made just before a power failure or operating system crash
+   * may be lost. The file will still be readable.
+   *
+   * @param syncOnCommit
+   *          {@code true} if writes should be synced
+   */
+  public void setSyncOnCommit(boolean syncOnCommit) {
+    this.syncOnCommit = syncOnCommit;
+  }
+
+  /**
+   * Put a value into the map and mark it as changed.
+   *
+   * <p>
+   * The write lock must be held when this is called.
+   *
+   * @param key
+   *          the key of the value
+   * @param value
+   *          the value to associate with the key
+   */
+  private void putValue(String key, Object value) {
+    map.put(key, copyValue(value));
+    changedKeys.add(key);
+    removedKeys.remove(key);
+  }
+
+  /**
+   * Copy a map, copying any maps and lists inside it as well.
+   *
+   * @param source
+   *          the map to copy
+   *
+   * @return the copy
+   */
+  private static Map<String, Object> copyMap(Map<String, Object> source) {
+    Map<String, Object> copy = Maps.newHashMapWithExpectedSize(source.size());
+    for (Entry<String, Object> entry : source.entrySet()) {
+      copy.put(entry.getKey(), copyValue(entry.getValue()));
+    }
+
+    return copy;
+  }
+
+  /**
+   * Copy a value, copying any maps and lists inside it as well.
+   *
+   * <p>
+   * The map never shares maps or lists with its callers. Otherwise a caller changing a nested value it got from the
+   * map would also change the value {@link #replaceAll(Map)} compares against, and the change would never be
+   * journaled.
+   *
+   * @param value
+   *          the value to copy
+   *
+   * @return the copy, or the value itself if it is immutable
+   */
+  @SuppressWarnings("unchecked")
+  private static Object copyValue(Object value) {
+    if (value instanceof Map) {
+      return copyMap((Map<String, Object>) value);
+    } else if (value instanceof List) {
+      List<Object> source = (List<Object>) value;
+      List<Object> copy = Lists.newArrayListWithCapacity(source.size());
+      for (Object element : source) {
+        copy.add(copyValue(element));
+      }
+
+      return copy;
+    } else {
+      return value;
+    }
+  }
+
+  /**
+   * Create a journal record for all changes since the last save.
+   *
+   * <p>
+   * The write lock must be held when this is called.
+   *
+   * @return the serialized journal record
+   */
+  private String createJournalRecord() {
+    Map<String, Object> record = Maps.newHashMap();
+    if (!changedKeys.isEmpty()) {
+      Map<String, Object> puts = Maps.newHashMap();
+      for (String key : changedKeys) {
+        puts.put(key, map.get(key));
+      }
+      record.put(JOURNAL_RECORD_FIELD_PUT, puts);
+    }
+    if (!removedKeys.isEmpty()) {
+      record.put(JOURNAL_RECORD_FIELD_REMOVE, Lists.newArrayList(removedKeys));
+    }
+
+    return MAPPER.toString(record);
+  }
+
+  /**
+   * Make sure everything up to and including the given save is in the journal.
+   *
+   * <p>
+   * If another thread is already writing the journal, this thread waits for it. Once this thread gets its turn, if its
+   * save was carried by the previous writer there is nothing more to do. Otherwise it writes everything pending,
+   * including the saves of any threads now waiting behind it.
+   *
+   * @param sequence
+   *          the sequence number of the save
+   *
+   * @throws InteractiveSpacesException
+   *           if there was an error while writing the journal
+   */
+  private void commit(long sequence) throws InteractiveSpacesException {
+    if (committedSequence >= sequence) {
+      return;
+    }
+
+    commitLock.lock();
+    try {
+      if (committedSequence >= sequence) {
+        return;
+      }
+
+      List<String> records;
+      long lastSequence;
+      rwlock.writeLock().lock();
+      try {
+        records = Lists.newArrayList(pendingRecords);
+        pendingRecords.clear();
+        lastSequence = savedSequence;
+      } finally {
+        rwlock.writeLock().unlock();
+      }
+
+      appendToJournal(records);
+      committedSequence = lastSequence;
+
+      if (journalSize > Math.max(journalCompactionMinimumSize, snapshotSize * journalCompactionSnapshotMultiple)) {
+        compactJournal();
+      }
+    } catch (IOException e) {
+      throw new InteractiveSpacesException(String.format("Could not write journal for %s", file), e);
+    } finally {
+      commitLock.unlock();
+    }
+  }
+
+  /**
+   * Write a new snapshot and discard the journal.
+   *
+   * <p>
+   * The commit lock must be held when this is called.
+   *
+   * @throws IOException
+   *           the files could not be written
+   */
+  private void compactJournal() throws IOException {
+    List<String> records;
+    long lastSequence;
+    String snapshot;
+    rwlock.writeLock().lock();
+    try {
+      records = Lists.newArrayList(pendingRecords);
+      pendingRecords.clear();
+      lastSequence = savedSequence;
+      snapshot = MAPPER.toString(map);
+    } finally {
+      rwlock.writeLock().unlock();
+    }
+
+    // The pending records must reach the journal before the new snapshot replaces the old. If there is a crash between
+    // the rename and the journal being deleted, the complete journal will be replayed onto a snapshot which already
+    // contains its changes, which leaves the map unchanged.
+    appendToJournal(records);
+
+    byte[] snapshotBytes = snapshot.getBytes(Charsets.UTF_8);
+    FileOutputStream out = fileSupport.newFileOutputStream(compactionFile);
+    try {
+      out.write(snapshotBytes);
+      out.getChannel().force(true);
+    } finally {
+      fileSupport.close(out, false);
+    }
+
+    Files.move(compactionFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+
+    fileSupport.delete(journalFile);
+    journalSize = 0;
+    snapshotSize = snapshotBytes.length;
+    committedSequence = lastSequence;
+  }
+
+  /**
+   * Append records to the journal.
+   *
+   * <p>
+   * The commit lock must be held when this is called.
+   *
+   * @param records
+   *          the records to append
+   *
+   * @throws IOException
+   *           the journal could not be written
+   */
+  private void appendToJournal(Collection<String> records) throws IOException {
+    if (records.isEmpty()) {
+      return;
+    }
+
+    StringBuilder builder = new StringBuilder();
+    for (String record : records) {
+      builder.append(record).append((char) JOURNAL_RECORD_TERMINATOR);
+    }
+    byte[] bytes = builder.toString().getBytes(Charsets.UTF_8);
+
+    FileOutputStream out = fileSupport.newFileOutputStream(journalFile, true);
+    try {
+      out.write(bytes);
+      if (syncOnCommit) {
+        out.getChannel().force(false);
+      }
+    } finally {
+      fileSupport.close(out, false);
+    }
+
+    journalSize += bytes.length;
+  }
+
+  /**
+   * Replay the journal onto a map.
+   *
+   * <p>
+   * Replay stops at the first record which is incomplete or cannot be parsed, and the journal is truncated at that
+   * point so that later records are not appended after the damage.
+   *
+   * @param target
+   *          the map to apply the journal records to
+   *
+   * @return the size of the valid portion of the journal, in bytes
+   *
+   * @throws IOException
+   *           the journal could not be read or truncated
+   */
+  @SuppressWarnings("unchecked")
+  private long replayJournal(Map<String, Object> target) throws IOException {
+    byte[] journal = Files.readAllBytes(journalFile.toPath());
+
+    int recordStart = 0;
+    for (int i = 0; i < journal.length; i++) {
+      if (journal[i] != JOURNAL_RECORD_TERMINATOR) {
+        continue;
+      }
+
+      Map<String, Object> record;
+      try {
+        record = MAPPER.parseObject(new String(journal, recordStart, i - recordStart, Charsets.UTF_8));
+      } catch (InteractiveSpacesException e) {
+        break;
+      }
+      if (record == null) {
+        break;
+      }
+
+      Map<String, Object> puts = (Map<String, Object>) record.get(JOURNAL_RECORD_FIELD_PUT);
+      if (puts != null) {
+        target.putAll(puts);
+      }
+      List<String> removes = (List<String>) record.get(JOURNAL_RECORD_FIELD_REMOVE);
+      if (removes != null) {
+        target.keySet().removeAll(removes);
+      }
+
+      recordStart = i + 1;
+    }
+
+    if (recordStart < journal.length) {
+      RandomAccessFile raf = new RandomAccessFile(journalFile, "rw");
+      try {
+        raf.setLength(recordStart);
+        raf.getFD().sync();
+      } finally {
+        fileSupport.close(raf, false);
+      }
+    }
+
+    return recordStart;
+  }
+}
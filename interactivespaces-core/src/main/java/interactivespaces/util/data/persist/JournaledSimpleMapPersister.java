@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.data.persist;
+
+import interactivespaces.SimpleInteractiveSpacesException;
+import interactivespaces.util.io.FileSupport;
+import interactivespaces.util.io.FileSupportImpl;
+
+import com.google.common.collect.Maps;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * A {@link SimpleMapPersister} which persists each map in a {@link JournaledConcurrentJsonFile}.
+ *
+ * <p>
+ * Only the entries of a map which differ from what was last stored are written, and concurrent writes of the same map
+ * are group committed. Different maps can be written concurrently.
+ *
+ * <p>
+ * The snapshot files are compatible with {@link JsonSimpleMapPersister}, so a directory written by that persister can
+ * be read by this one.
+ *
+ * @author Keith M. Hughes
+ */
+public class JournaledSimpleMapPersister implements SimpleMapPersister {
+
+  /**
+   * The base directory where the map files will be stored.
+   */
+  private final File baseMapDirectory;
+
+  /**
+   * The files for all maps which have been read or written, indexed by map name.
+   */
+  private final Map<String, JournaledConcurrentJsonFile> mapFiles = Maps.newHashMap();
+
+  /**
+   * The file support for file operations.
+   */
+  private final FileSupport fileSupport = FileSupportImpl.INSTANCE;
+
+  /**
+   * Construct a new persister.
+   *
+   * @param baseMapDirectory
+   *          the base directory where the map files will be stored
+   */
+  public JournaledSimpleMapPersister(File baseMapDirectory) {
+    this.baseMapDirectory = baseMapDirectory;
+    if (!fileSupport.exists(baseMapDirectory)) {
+      if (!fileSupport.mkdirs(baseMapDirectory)) {
+        throw new SimpleInteractiveSpacesException(String.format("Could not create directory %s", baseMapDirectory));
+      }
+    }
+  }
+
+  @Override
+  public Map<String, Object> getMap(String name) {
+    JournaledConcurrentJsonFile mapFile;
+    synchronized (mapFiles) {
+      mapFile = mapFiles.get(name);
+      if (mapFile == null) {
+        mapFile = newMapFile(name);
+        if (!mapFile.load()) {
+          return null;
+        }
+
+        mapFiles.put(name, mapFile);
+      }
+    }
+
+    return mapFile.getAll();
+  }
+
+  @Override
+  public void putMap(String name, Map<String, Object> map) {
+    JournaledConcurrentJsonFile mapFile;
+    synchronized (mapFiles) {
+      mapFile = mapFiles.get(name);
+      if (mapFile == null) {
+        mapFile = newMapFile(name);
+        mapFile.load();
+
+        mapFiles.put(name, mapFile);
+      }
+    }
+
+    mapFile.replaceAll(map);
+    mapFile.save();
+  }
+
+  @Override
+  public boolean removeMap(String name) {
+    JournaledConcurrentJsonFile mapFile;
+    synchronized (mapFiles) {
+      mapFile = mapFiles.remove(name);
+      if (mapFile == null) {
+        mapFile = newMapFile(name);
+      }
+    }
+
+    return mapFile.delete();
+  }
+
+  /**
+   * Create the journaled file which stores a particular map.
+   *
+   * @param name
+   *          the name of the map
+   *
+   * @return the journaled file for the map
+   */
+  private JournaledConcurrentJsonFile newMapFile(String name) {
+    return new JournaledConcurrentJsonFile(fileSupport.newFile(baseMapDirectory, name + ".json"));
+  }
+}
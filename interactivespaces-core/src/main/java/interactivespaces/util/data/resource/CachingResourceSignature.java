@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.data.resource;
+
+import interactivespaces.InteractiveSpacesException;
+import interactivespaces.SimpleInteractiveSpacesException;
+import interactivespaces.util.data.persist.ConcurrentJsonFile;
+import interactivespaces.util.data.persist.JournaledConcurrentJsonFile;
+import interactivespaces.util.io.FileSupport;
+import interactivespaces.util.io.FileSupportImpl;
+
+import com.google.common.collect.Maps;
+
+import org.apache.commons.logging.Log;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+
+/**
+ * A resource signature which remembers the signatures it has calculated.
+ *
+ * <p>
+ * Signatures are indexed by the absolute path of the file, and an entry is only used if the size, modification time
+ * and file key (the inode on Unix systems) of the file are unchanged. Otherwise the signature is recalculated by the
+ * delegate signature and the index is updated.
+ *
+ * <p>
+ * If an index file is given, the index is persisted so that signatures survive restarts. The index is only a cache, so
+ * if it cannot be written the signature is still returned and only a warning is logged.
+ *
+ * @author Keith M. Hughes
+ */
+public class CachingResourceSignature implements ResourceSignature {
+
+  /**
+   * Index entry field for the file size.
+   */
+  public static final String INDEX_FIELD_SIZE = "size";
+
+  /**
+   * Index entry field for the file modification time.
+   */
+  public static final String INDEX_FIELD_MODIFIED = "modified";
+
+  /**
+   * Index entry field for the file key.
+   */
+  public static final String INDEX_FIELD_FILE_KEY = "fileKey";
+
+  /**
+   * Index entry field for the signature.
+   */
+  public static final String INDEX_FIELD_SIGNATURE = "signature";
+
+  /**
+   * The signature which actually calculates signatures.
+   */
+  private final ResourceSignature delegate;
+
+  /**
+   * The index of signatures, indexed by absolute file path.
+   */
+  private final Map<String, Map<String, Object>> index = Maps.newConcurrentMap();
+
+  /**
+   * The file the index is persisted in, {@code null} if the index is only kept in memory.
+   */
+  private final ConcurrentJsonFile indexFile;
+
+  /**
+   * The directory holding the index file, {@code null} if the index is only kept in memory.
+   */
+  private final File indexDirectory;
+
+  /**
+   * Logger for problems with the index file, {@code null} if the index is only kept in memory.
+   */
+  private final Log log;
+
+  /**
+   * The file support to use.
+   */
+  private final FileSupport fileSupport = FileSupportImpl.INSTANCE;
+
+  /**
+   * {@code true} if the index has been loaded.
+   */
+  private volatile boolean loaded;
+
+  /**
+   * Construct a signature cache which is only held in memory.
+   *
+   * @param delegate
+   *          the signature which calculates signatures
+   */
+  public CachingResourceSignature(ResourceSignature delegate) {
+    this.delegate = delegate;
+    this.indexFile = null;
+    this.indexDirectory = null;
+    this.log = null;
+  }
+
+  /**
+   * Construct a signature cache which is persisted in a file.
+   *
+   * @param delegate
+   *          the signature which calculates signatures
+   * @param indexFile
+   *          the file for storing the index
+   * @param log
+   *          the logger for problems with the index file
+   */
+  public CachingResourceSignature(ResourceSignature delegate, File indexFile, Log log) {
+    this.delegate = delegate;
+    this.indexFile = new JournaledConcurrentJsonFile(indexFile);
+    this.indexDirectory = fileSupport.getParentFile(indexFile.getAbsoluteFile());
+    this.log = log;
+  }
+
+  @Override
+  public String getBundleSignature(File bundleFile) {
+    loadIndex();
+
+    String path = bundleFile.getAbsolutePath();
+    BasicFileAttributes attributes = readAttributes(bundleFile);
+    String fileKey = getFileKey(attributes);
+
+    Map<String, Object> entry = index.get(path);
+    if (entry != null && matches(entry, attributes, fileKey)) {
+      return (String) entry.get(INDEX_FIELD_SIGNATURE);
+    }
+
+    String signature = delegate.getBundleSignature(bundleFile);
+
+    Map<String, Object> newEntry = Maps.newHashMap();
+    newEntry.put(INDEX_FIELD_SIZE, attributes.size());
+    newEntry.put(INDEX_FIELD_MODIFIED, attributes.lastModifiedTime().toMillis());
+    newEntry.put(INDEX_FIELD_FILE_KEY, fileKey);
+    newEntry.put(INDEX_FIELD_SIGNATURE, signature);
+    index.put(path, newEntry);
+    if (indexFile != null) {
+      saveIndexEntry(path, newEntry);
+    }
+
+    return signature;
+  }
+
+  /**
+   * Write an entry to the index file.
+   *
+   * <p>
+   * A failure is only logged, the entry stays in the in-memory index.
+   *
+   * @param path
+   *          the absolute path of the file
+   * @param entry
+   *          the index entry for the file
+   */
+  private void saveIndexEntry(String path, Map<String, Object> entry) {
+    try {
+      if (!fileSupport.exists(indexDirectory) && !fileSupport.mkdirs(indexDirectory)) {
+        throw new SimpleInteractiveSpacesException(String.format("Could not create directory %s",
+            indexDirectory.getAbsolutePath()));
+      }
+
+      indexFile.put(path, entry);
+      indexFile.save();
+    } catch (InteractiveSpacesException e) {
+      log.warn(String.format("Could not save the resource signature for %s, it will be calculated again next time",
+          path), e);
+    }
+  }
+
+  /**
+   * Load the index, if it hasn't been loaded already.
+   */
+  private void loadIndex() {
+    if (!loaded) {
+      synchronized (this) {
+        if (!loaded) {
+          if (indexFile != null) {
+            try {
+              indexFile.load();
+            } catch (InteractiveSpacesException e) {
+              // The index is only a cache, so if it can't be read every signature will just be calculated again.
+            }
+            for (Map.Entry<String, Object> entry : indexFile.getAll().entrySet()) {
+              if (entry.getValue() instanceof Map) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> value = (Map<String, Object>) entry.getValue();
+                index.put(entry.getKey(), value);
+              }
+            }
+          }
+          loaded = true;
+        }
+      }
+    }
+  }
+
+  /**
+   * Does an index entry match the current state of the file?
+   *
+   * @param entry
+   *          the index entry
+   * @param attributes
+   *          the current attributes of the file
+   * @param fileKey
+   *          the current file key of the file
+   *
+   * @return {@code true} if the entry is for the file in its current state
+   */
+  private boolean matches(Map<String, Object> entry, BasicFileAttributes attributes, String fileKey) {
+    Object size = entry.get(INDEX_FIELD_SIZE);
+    Object modified = entry.get(INDEX_FIELD_MODIFIED);
+
+    return size instanceof Number && ((Number) size).longValue() == attributes.size() && modified instanceof Number
+        && ((Number) modified).longValue() == attributes.lastModifiedTime().toMillis()
+        && fileKey.equals(entry.get(INDEX_FIELD_FILE_KEY)) && entry.get(INDEX_FIELD_SIGNATURE) != null;
+  }
+
+  /**
+   * Read the attributes of a file.
+   *
+   * @param file
+   *          the file
+   *
+   * @return the attributes
+   */
+  private BasicFileAttributes readAttributes(File file) {
+    try {
+      return Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+    } catch (Exception e) {
+      throw new SimpleInteractiveSpacesException(String.format("Could not read attributes of file %s",
+          file.getAbsolutePath()), e);
+    }
+  }
+
+  /**
+   * Get the file key from a set of file attributes.
+   *
+   * @param attributes
+   *          the file attributes
+   *
+   * @return the file key, or an empty string if the file system has no file keys
+   */
+  private String getFileKey(BasicFileAttributes attributes) {
+    Object fileKey = attributes.fileKey();
+
+    return (fileKey != null) ? fileKey.toString() : "";
+  }
+}
@@ -732,4 +732,16 @@ public interface FileSupport {
    * @return the new stream
    */
   FileOutputStream newFileOutputStream(File file);
+
+  /**
+   * Create a new file output stream for the requested file.
+   *
+   * @param file
+   *          the file
+   * @param append
+   *          {@code true} if bytes should be written to the end of the file rather than replacing its contents
+   *
+   * @return the new stream
+   */
+  FileOutputStream newFileOutputStream(File file, boolean append);
 }
@@ -661,8 +661,13 @@ public class FileSupportImpl implements FileSupport {
 
   @Override
   public FileOutputStream newFileOutputStream(File file) {
+    return newFileOutputStream(file, false);
+  }
+
+  @Override
+  public FileOutputStream newFileOutputStream(File file, boolean append) {
     try {
-      return new FileOutputStream(file);
+      return new FileOutputStream(file, append);
     } catch (FileNotFoundException e) {
       throw SimpleInteractiveSpacesException.newFormattedException(
           e, "Could not create a new file output stream for file %s", file.getAbsolutePath());
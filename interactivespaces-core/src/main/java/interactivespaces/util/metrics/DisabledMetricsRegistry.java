@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A metrics registry which records nothing.
+ *
+ * <p>
+ * Every metric handed out is the same immutable instance whose methods do nothing, timers do not even read the clock.
+ *
+ * @author Keith M. Hughes
+ */
+public final class DisabledMetricsRegistry implements MetricsRegistry {
+
+  /**
+   * The only instance of the registry.
+   */
+  public static final DisabledMetricsRegistry INSTANCE = new DisabledMetricsRegistry();
+
+  /**
+   * The metric handed out for every request.
+   */
+  private static final DisabledMetric METRIC = new DisabledMetric();
+
+  /**
+   * Construct the registry.
+   */
+  private DisabledMetricsRegistry() {
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return false;
+  }
+
+  @Override
+  public Counter getCounter(String name) {
+    return METRIC;
+  }
+
+  @Override
+  public Histogram getHistogram(String name) {
+    return METRIC;
+  }
+
+  @Override
+  public Map<String, Histogram> getHistograms(String namePrefix) {
+    return Collections.emptyMap();
+  }
+
+  @Override
+  public Timer getTimer(String name) {
+    return METRIC;
+  }
+
+  @Override
+  public void registerGauge(String name, Gauge gauge) {
+    // Nothing is recorded.
+  }
+
+  @Override
+  public void unregisterGauge(String name) {
+    // Nothing is recorded.
+  }
+
+  @Override
+  public void unregister(String name) {
+    // Nothing is recorded.
+  }
+
+  @Override
+  public Map<String, Object> getSnapshot() {
+    return Collections.emptyMap();
+  }
+
+  /**
+   * A metric which records nothing.
+   *
+   * @author Keith M. Hughes
+   */
+  private static final class DisabledMetric implements Counter, Histogram, Timer {
+
+    @Override
+    public void increment() {
+      // Nothing is recorded.
+    }
+
+    @Override
+    public void add(long amount) {
+      // Nothing is recorded.
+    }
+
+    @Override
+    public long start() {
+      return 0;
+    }
+
+    @Override
+    public void stop(long startTime) {
+      // Nothing is recorded.
+    }
+
+    @Override
+    public void record(long value) {
+      // Nothing is recorded.
+    }
+
+    @Override
+    public long getCount() {
+      return 0;
+    }
+
+    @Override
+    public long getValueAtPercentile(double percentile) {
+      return 0;
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+      return Collections.emptyMap();
+    }
+
+    @Override
+    public Histogram getHistogram() {
+      return this;
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.metrics;
+
+import java.util.Map;
+
+/**
+ * A metric which tracks the distribution of non-negative values.
+ *
+ * @author Keith M. Hughes
+ */
+public interface Histogram {
+
+  /**
+   * Statistics field for the number of values recorded.
+   */
+  String STATISTICS_FIELD_COUNT = "count";
+
+  /**
+   * Statistics field for the smallest value recorded.
+   */
+  String STATISTICS_FIELD_MIN = "min";
+
+  /**
+   * Statistics field for the largest value recorded.
+   */
+  String STATISTICS_FIELD_MAX = "max";
+
+  /**
+   * Statistics field for the mean of the values recorded.
+   */
+  String STATISTICS_FIELD_MEAN = "mean";
+
+  /**
+   * Statistics field for the median.
+   */
+  String STATISTICS_FIELD_P50 = "p50";
+
+  /**
+   * Statistics field for the 90th percentile.
+   */
+  String STATISTICS_FIELD_P90 = "p90";
+
+  /**
+   * Statistics field for the 99th percentile.
+   */
+  String STATISTICS_FIELD_P99 = "p99";
+
+  /**
+   * Statistics field for the 99.9th percentile.
+   */
+  String STATISTICS_FIELD_P999 = "p999";
+
+  /**
+   * Record a value.
+   *
+   * @param value
+   *          the value, negative values are recorded as {@code 0}
+   */
+  void record(long value);
+
+  /**
+   * Get the number of values recorded.
+   *
+   * @return the number of values
+   */
+  long getCount();
+
+  /**
+   * Get the value below which a given fraction of the recorded values fall.
+   *
+   * @param percentile
+   *          the percentile, from {@code 0} to {@code 100}
+   *
+   * @return the value at the percentile, or {@code 0} if nothing has been recorded
+   */
+  long getValueAtPercentile(double percentile);
+
+  /**
+   * Get the statistics of the histogram.
+   *
+   * @return a map of the {@code STATISTICS_FIELD_*} fields to their values
+   */
+  Map<String, Object> getStatistics();
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.metrics;
+
+import interactivespaces.SimpleInteractiveSpacesException;
+
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread safe histogram with a fixed relative precision over the entire range of {@code long} values.
+ *
+ * <p>
+ * Values are counted in buckets. Every power of two range is split into the same number of linear sub-buckets, so the
+ * width of a bucket grows with the values in it. With {@code n} sub-bucket bits values below {@code 2^(n+1)} are
+ * counted exactly and larger values are within {@code 1/2^n} of the true value. The memory used is fixed and
+ * recording a value is a few atomic increments, there is no locking.
+ *
+ * <p>
+ * Percentiles are reported as the highest value in the bucket they fall in, capped at the maximum value recorded.
+ *
+ * @author Keith M. Hughes
+ */
+public class LogLinearHistogram implements Histogram {
+
+  /**
+   * The default number of sub-bucket bits, giving a relative precision of about 3%.
+   */
+  public static final int SUB_BUCKET_BITS_DEFAULT = 5;
+
+  /**
+   * The smallest number of sub-bucket bits allowed.
+   */
+  public static final int SUB_BUCKET_BITS_MIN = 1;
+
+  /**
+   * The largest number of sub-bucket bits allowed.
+   */
+  public static final int SUB_BUCKET_BITS_MAX = 10;
+
+  /**
+   * The number of bits in a {@code long}.
+   */
+  private static final int LONG_BITS = 64;
+
+  /**
+   * The number of bits giving the number of sub-buckets per power of two.
+   */
+  private final int subBucketBits;
+
+  /**
+   * The number of sub-buckets per power of two.
+   */
+  private final int subBucketCount;
+
+  /**
+   * The counts for each bucket.
+   */
+  private final AtomicLongArray counts;
+
+  /**
+   * The number of values recorded.
+   */
+  private final AtomicLong count = new AtomicLong();
+
+  /**
+   * The sum of all values recorded.
+   */
+  private final AtomicLong sum = new AtomicLong();
+
+  /**
+   * The smallest value recorded.
+   */
+  private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+  /**
+   * The largest value recorded.
+   */
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Construct a histogram with the default precision.
+   */
+  public LogLinearHistogram() {
+    this(SUB_BUCKET_BITS_DEFAULT);
+  }
+
+  /**
+   * Construct a histogram.
+   *
+   * @param subBucketBits
+   *          the number of bits giving the number of sub-buckets per power of two
+   */
+  public LogLinearHistogram(int subBucketBits) {
+    if (subBucketBits < SUB_BUCKET_BITS_MIN || subBucketBits > SUB_BUCKET_BITS_MAX) {
+      throw new SimpleInteractiveSpacesException(String.format(
+          "Histogram sub-bucket bits must be between %d and %d, was %d", SUB_BUCKET_BITS_MIN, SUB_BUCKET_BITS_MAX,
+          subBucketBits));
+    }
+
+    this.subBucketBits = subBucketBits;
+    subBucketCount = 1 << subBucketBits;
+    counts = new AtomicLongArray((LONG_BITS - subBucketBits) << subBucketBits);
+  }
+
+  @Override
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+
+    counts.incrementAndGet(getBucketIndex(value));
+    count.incrementAndGet();
+    sum.addAndGet(value);
+
+    long currentMin = min.get();
+    while (value < currentMin && !min.compareAndSet(currentMin, value)) {
+      currentMin = min.get();
+    }
+
+    long currentMax = max.get();
+    while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+      currentMax = max.get();
+    }
+  }
+
+  @Override
+  public long getCount() {
+    return count.get();
+  }
+
+  @Override
+  public long getValueAtPercentile(double percentile) {
+    long total = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      total += counts.get(i);
+    }
+    if (total == 0) {
+      return 0;
+    }
+
+    long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * total));
+    long cumulative = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      cumulative += counts.get(i);
+      if (cumulative >= target) {
+        return Math.min(getBucketHighestValue(i), max.get());
+      }
+    }
+
+    return max.get();
+  }
+
+  @Override
+  public Map<String, Object> getStatistics() {
+    Map<String, Object> statistics = Maps.newLinkedHashMap();
+
+    long currentCount = count.get();
+    statistics.put(STATISTICS_FIELD_COUNT, currentCount);
+    statistics.put(STATISTICS_FIELD_MIN, (currentCount != 0) ? min.get() : 0L);
+    statistics.put(STATISTICS_FIELD_MAX, max.get());
+    statistics.put(STATISTICS_FIELD_MEAN, (currentCount != 0) ? (double) sum.get() / currentCount : 0.0);
+    statistics.put(STATISTICS_FIELD_P50, getValueAtPercentile(50.0));
+    statistics.put(STATISTICS_FIELD_P90, getValueAtPercentile(90.0));
+    statistics.put(STATISTICS_FIELD_P99, getValueAtPercentile(99.0));
+    statistics.put(STATISTICS_FIELD_P999, getValueAtPercentile(99.9));
+
+    return statistics;
+  }
+
+  /**
+   * Get the index of the bucket which counts a value.
+   *
+   * @param value
+   *          the non-negative value
+   *
+   * @return the bucket index
+   */
+  private int getBucketIndex(long value) {
+    if (value < subBucketCount) {
+      return (int) value;
+    }
+
+    int shift = (LONG_BITS - 1 - Long.numberOfLeadingZeros(value)) - subBucketBits;
+
+    return ((shift + 1) << subBucketBits) + (int) ((value >>> shift) & (subBucketCount - 1));
+  }
+
+  /**
+   * Get the highest value counted by a bucket.
+   *
+   * @param index
+   *          the bucket index
+   *
+   * @return the highest value counted by the bucket
+   */
+  private long getBucketHighestValue(int index) {
+    if (index < subBucketCount) {
+      return index;
+    }
+
+    int shift = (index >>> subBucketBits) - 1;
+    long lowestValue = (long) (subBucketCount + (index & (subBucketCount - 1))) << shift;
+
+    return lowestValue + (1L << shift) - 1;
+  }
+}
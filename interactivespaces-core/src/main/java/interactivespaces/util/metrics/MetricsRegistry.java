@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.metrics;
+
+import java.util.Map;
+
+/**
+ * A collection of named metrics.
+ *
+ * <p>
+ * Asking for a metric by a name which is already in use returns the existing metric, so metrics can be obtained
+ * wherever they are needed. Obtaining a metric involves a lookup, so hot paths should hold on to the metric instead of
+ * asking for it on every use.
+ *
+ * <p>
+ * Metric names are dot separated, e.g. {@code webserver.http.request}.
+ *
+ * @author Keith M. Hughes
+ */
+public interface MetricsRegistry {
+
+  /**
+   * Are metrics being recorded?
+   *
+   * <p>
+   * This only needs to be checked if getting the value to record is itself expensive.
+   *
+   * @return {@code true} if metrics are being recorded
+   */
+  boolean isEnabled();
+
+  /**
+   * Get a counter, creating it if necessary.
+   *
+   * @param name
+   *          the name of the counter
+   *
+   * @return the counter
+   */
+  Counter getCounter(String name);
+
+  /**
+   * Get a histogram, creating it if necessary.
+   *
+   * @param name
+   *          the name of the histogram
+   *
+   * @return the histogram
+   */
+  Histogram getHistogram(String name);
+
+  /**
+   * Get all histograms whose names start with a prefix.
+   *
+   * @param namePrefix
+   *          the prefix of the histogram names
+   *
+   * @return map of histogram name to histogram, sorted by name
+   */
+  Map<String, Histogram> getHistograms(String namePrefix);
+
+  /**
+   * Get a timer, creating it if necessary.
+   *
+   * @param name
+   *          the name of the timer
+   *
+   * @return the timer
+   */
+  Timer getTimer(String name);
+
+  /**
+   * Register a gauge, replacing any gauge already registered with the name.
+   *
+   * @param name
+   *          the name of the gauge
+   * @param gauge
+   *          the gauge
+   */
+  void registerGauge(String name, Gauge gauge);
+
+  /**
+   * Unregister a gauge.
+   *
+   * <p>
+   * Does nothing if there is no gauge with the name.
+   *
+   * @param name
+   *          the name of the gauge
+   */
+  void unregisterGauge(String name);
+
+  /**
+   * Unregister all counters, histograms, timers and gauges with a name.
+   *
+   * <p>
+   * Does nothing if there is no metric with the name.
+   *
+   * @param name
+   *          the name of the metric
+   */
+  void unregister(String name);
+
+  /**
+   * Get the current values of all metrics.
+   *
+   * <p>
+   * Counters and gauges are given as their value, histograms and timers as their statistics. Timer statistics are in
+   * nanoseconds.
+   *
+   * @return map of metric name to value, sorted by name
+   */
+  Map<String, Object> getSnapshot();
+}
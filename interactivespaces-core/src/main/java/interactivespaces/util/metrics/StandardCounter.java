@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread safe counter.
+ *
+ * @author Keith M. Hughes
+ */
+public class StandardCounter implements Counter {
+
+  /**
+   * The number of events counted.
+   */
+  private final AtomicLong count = new AtomicLong();
+
+  @Override
+  public void increment() {
+    count.incrementAndGet();
+  }
+
+  @Override
+  public void add(long amount) {
+    count.addAndGet(amount);
+  }
+
+  @Override
+  public long getCount() {
+    return count.get();
+  }
+}
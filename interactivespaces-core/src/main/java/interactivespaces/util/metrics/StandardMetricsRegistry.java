@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.metrics;
+
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A metrics registry which records metrics.
+ *
+ * @author Keith M. Hughes
+ */
+public class StandardMetricsRegistry implements MetricsRegistry {
+
+  /**
+   * The counters, indexed by name.
+   */
+  private final ConcurrentMap<String, Counter> counters = Maps.newConcurrentMap();
+
+  /**
+   * The histograms, indexed by name.
+   */
+  private final ConcurrentMap<String, Histogram> histograms = Maps.newConcurrentMap();
+
+  /**
+   * The timers, indexed by name.
+   */
+  private final ConcurrentMap<String, Timer> timers = Maps.newConcurrentMap();
+
+  /**
+   * The gauges, indexed by name.
+   */
+  private final ConcurrentMap<String, Gauge> gauges = Maps.newConcurrentMap();
+
+  @Override
+  public boolean isEnabled() {
+    return true;
+  }
+
+  @Override
+  public Counter getCounter(String name) {
+    Counter counter = counters.get(name);
+    if (counter == null) {
+      Counter newCounter = new StandardCounter();
+      counter = counters.putIfAbsent(name, newCounter);
+      if (counter == null) {
+        counter = newCounter;
+      }
+    }
+
+    return counter;
+  }
+
+  @Override
+  public Histogram getHistogram(String name) {
+    Histogram histogram = histograms.get(name);
+    if (histogram == null) {
+      Histogram newHistogram = new LogLinearHistogram();
+      histogram = histograms.putIfAbsent(name, newHistogram);
+      if (histogram == null) {
+        histogram = newHistogram;
+      }
+    }
+
+    return histogram;
+  }
+
+  @Override
+  public Map<String, Histogram> getHistograms(String namePrefix) {
+    Map<String, Histogram> matching = Maps.newTreeMap();
+    for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+      if (entry.getKey().startsWith(namePrefix)) {
+        matching.put(entry.getKey(), entry.getValue());
+      }
+    }
+
+    return matching;
+  }
+
+  @Override
+  public Timer getTimer(String name) {
+    Timer timer = timers.get(name);
+    if (timer == null) {
+      Timer newTimer = new StandardTimer();
+      timer = timers.putIfAbsent(name, newTimer);
+      if (timer == null) {
+        timer = newTimer;
+      }
+    }
+
+    return timer;
+  }
+
+  @Override
+  public void registerGauge(String name, Gauge gauge) {
+    gauges.put(name, gauge);
+  }
+
+  @Override
+  public void unregisterGauge(String name) {
+    gauges.remove(name);
+  }
+
+  @Override
+  public void unregister(String name) {
+    counters.remove(name);
+    histograms.remove(name);
+    timers.remove(name);
+    gauges.remove(name);
+  }
+
+  @Override
+  public Map<String, Object> getSnapshot() {
+    Map<String, Object> snapshot = Maps.newTreeMap();
+
+    for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+      snapshot.put(entry.getKey(), entry.getValue().getCount());
+    }
+    for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+      snapshot.put(entry.getKey(), entry.getValue().getValue());
+    }
+    for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+      snapshot.put(entry.getKey(), entry.getValue().getStatistics());
+    }
+    for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+      snapshot.put(entry.getKey(), entry.getValue().getHistogram().getStatistics());
+    }
+
+    return snapshot;
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.metrics;
+
+/**
+ * A timer which records durations from {@link System#nanoTime()} into a {@link LogLinearHistogram}.
+ *
+ * @author Keith M. Hughes
+ */
+public class StandardTimer implements Timer {
+
+  /**
+   * The histogram of durations.
+   */
+  private final Histogram histogram = new LogLinearHistogram();
+
+  @Override
+  public long start() {
+    return System.nanoTime();
+  }
+
+  @Override
+  public void stop(long startTime) {
+    histogram.record(System.nanoTime() - startTime);
+  }
+
+  @Override
+  public void record(long durationNanos) {
+    histogram.record(durationNanos);
+  }
+
+  @Override
+  public Histogram getHistogram() {
+    return histogram;
+  }
+}
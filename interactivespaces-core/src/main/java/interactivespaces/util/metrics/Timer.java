@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.metrics;
+
+/**
+ * A metric which tracks the distribution of durations, in nanoseconds.
+ *
+ * <p>
+ * Typical use is
+ *
+ * <pre>
+ * long start = timer.start();
+ * try {
+ *   ...
+ * } finally {
+ *   timer.stop(start);
+ * }
+ * </pre>
+ *
+ * @author Keith M. Hughes
+ */
+public interface Timer {
+
+  /**
+   * Start timing.
+   *
+   * @return the start time to give to {@link #stop(long)}
+   */
+  long start();
+
+  /**
+   * Stop timing and record the duration.
+   *
+   * @param startTime
+   *          the time returned by {@link #start()}
+   */
+  void stop(long startTime);
+
+  /**
+   * Record a duration.
+   *
+   * @param durationNanos
+   *          the duration, in nanoseconds
+   */
+  void record(long durationNanos);
+
+  /**
+   * Get the histogram of the recorded durations.
+   *
+   * @return the histogram, values are in nanoseconds
+   */
+  Histogram getHistogram();
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+/**
+ * Counters, gauges, histograms and timers for measuring a running container.
+ *
+ * <p>
+ * Metrics are obtained by name from the {@link interactivespaces.util.metrics.MetricsRegistry} of the space
+ * environment. When metrics are disabled the registry hands out shared metrics which do nothing, so instrumented code
+ * can record unconditionally.
+ *
+ * @author Keith M. Hughes
+ */
+package interactivespaces.util.metrics;
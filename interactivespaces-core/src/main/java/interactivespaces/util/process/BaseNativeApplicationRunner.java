@@ -55,6 +55,11 @@ public abstract class BaseNativeApplicationRunner implements NativeApplicationRu
    */
   public static final int RESTART_DURATION_MAXIMUM_DEFAULT = 10000;
 
+  /**
+   * The default number of milliseconds between resource samples when the process is supervised.
+   */
+  public static final long RESOURCE_SAMPLING_PERIOD_DEFAULT = 5000;
+
   /**
    * Process running the native app.
    */
@@ -94,6 +99,32 @@ public abstract class BaseNativeApplicationRunner implements NativeApplicationRu
    */
   private Process restartProcess;
 
+  /**
+   * {@code true} if processes should be supervised rather than polled.
+   */
+  private boolean processSupervision;
+
+  /**
+   * The number of milliseconds between resource samples when the process is supervised.
+   */
+  private long resourceSamplingPeriod = RESOURCE_SAMPLING_PERIOD_DEFAULT;
+
+  /**
+   * The supervisor for the running process.
+   *
+   * <p>
+   * Will be {@code null} if the process is not supervised.
+   */
+  private volatile NativeApplicationProcessSupervisor processSupervisor;
+
+  /**
+   * The supervisor for the process of a restart attempt.
+   *
+   * <p>
+   * Will be {@code null} if the process is not supervised or there is no restart being attempted.
+   */
+  private NativeApplicationProcessSupervisor restartProcessSupervisor;
+
   /**
    * The space environment.
    */
@@ -297,6 +328,7 @@ public abstract class BaseNativeApplicationRunner implements NativeApplicationRu
       }
 
       process = attemptRun(true);
+      processSupervisor = superviseProcess(process);
 
       handleApplicationRunning();
     } finally {
@@ -343,6 +375,53 @@ public abstract class BaseNativeApplicationRunner implements NativeApplicationRu
     }
   }
 
+  /**
+   * Start supervising a process, if supervision is enabled.
+   *
+   * @param newProcess
+   *          the process to supervise, can be {@code null}
+   *
+   * @return the supervisor for the process, or {@code null} if the process is not supervised
+   */
+  private NativeApplicationProcessSupervisor superviseProcess(Process newProcess) {
+    if (!processSupervision || newProcess == null) {
+      return null;
+    }
+
+    NativeApplicationProcessSupervisor supervisor =
+        new NativeApplicationProcessSupervisor(newProcess, this, newResourceSampler(newProcess), log);
+    supervisor.startup(spaceEnvironment.getExecutorService(), resourceSamplingPeriod);
+
+    return supervisor;
+  }
+
+  /**
+   * Stop supervising a process.
+   *
+   * @param supervisor
+   *          the supervisor to stop, can be {@code null}
+   */
+  private void stopSupervisor(NativeApplicationProcessSupervisor supervisor) {
+    if (supervisor != null) {
+      supervisor.shutdown();
+    }
+  }
+
+  /**
+   * Create a resource sampler for a newly started process.
+   *
+   * <p>
+   * Subclasses which know how to sample processes on their platform should override this. The default is no sampling.
+   *
+   * @param newProcess
+   *          the process which has been started
+   *
+   * @return the sampler, or {@code null} if the process cannot be sampled
+   */
+  protected NativeApplicationResourceSampler newResourceSampler(Process newProcess) {
+    return null;
+  }
+
   /**
    * Modify the process environment with the contents of the environment map.
    *
@@ -381,6 +460,9 @@ public abstract class BaseNativeApplicationRunner implements NativeApplicationRu
         // If there is a restarter, then there may have been an attempt at
         // restart which hasn't made it into the process instance variable yet.
         if (restartProcess != null) {
+          stopSupervisor(restartProcessSupervisor);
+          restartProcessSupervisor = null;
+
           restartProcess.destroy();
           restartProcess = null;
         }
@@ -388,9 +470,12 @@ public abstract class BaseNativeApplicationRunner implements NativeApplicationRu
 
       if (process != null) {
         // If the notifier is shutting the application down so we will wait for
-        // the next scan of isRunning().
+        // the next scan of isRunning(), or for the supervisor to see the exit.
         // Otherwise we will kill the process the impolite way.
         if (!handleApplicationShutdownRequested()) {
+          stopSupervisor(processSupervisor);
+          processSupervisor = null;
+
           process.destroy();
 
           process = null;
@@ -407,6 +492,19 @@ public abstract class BaseNativeApplicationRunner implements NativeApplicationRu
     processLock.lock();
     try {
       if (process != null) {
+        if (processSupervisor != null) {
+          // The supervisor drains the output streams, so all that is needed is to see if the waiter has seen an exit
+          // which it has not yet reported.
+          Integer exitValue = processSupervisor.getExitValue();
+          if (exitValue == null) {
+            return true;
+          }
+
+          processSupervisor = null;
+
+          return handleExitedProcess(exitValue);
+        }
+
         // The process was running normally. Sample to see if it is still
         // running.
         try {
@@ -414,20 +512,7 @@ public abstract class BaseNativeApplicationRunner implements NativeApplicationRu
 
           logProcessResultStreams();
 
-          boolean successfulShutdown = handleProcessExit(exitValue, commandLine);
-
-          // If restarter is working, the outside should be told
-          // that we are still "running" until the restarter punts.
-          if (startRestarter()) {
-            runnerState.set(NativeApplicationRunnerState.RESTARTING);
-            return true;
-          }
-
-          // No longer running, is OK that it isn't running or no restarter, so
-          // signal done.
-          handleApplicationShutdown(successfulShutdown ? NativeApplicationRunnerState.SHUTDOWN
-              : NativeApplicationRunnerState.CRASHED);
-          return false;
+          return handleExitedProcess(exitValue);
         } catch (IllegalThreadStateException e) {
           // Can't get exit value if process is still running.
 
@@ -441,6 +526,9 @@ public abstract class BaseNativeApplicationRunner implements NativeApplicationRu
       // restarter, if any.
       if (isRestarterActive()) {
         return true;
+      } else if (isFinalState(runnerState.get())) {
+        // The exit was already handled by a process supervisor.
+        return false;
       } else {
         handleApplicationShutdown(NativeApplicationRunnerState.CRASHED);
 
@@ -451,6 +539,111 @@ public abstract class BaseNativeApplicationRunner implements NativeApplicationRu
     }
   }
 
+  /**
+   * Handle the exit of the running process from a supervisor.
+   *
+   * @param supervisor
+   *          the supervisor of the process which exited
+   * @param exitValue
+   *          the exit value of the process
+   */
+  void handleSupervisedProcessExit(NativeApplicationProcessSupervisor supervisor, int exitValue) {
+    processLock.lock();
+    try {
+      // The exit of a process which is being shut down, or one which is part of a restart attempt, is handled
+      // elsewhere.
+      if (supervisor != processSupervisor) {
+        return;
+      }
+
+      processSupervisor = null;
+
+      handleExitedProcess(exitValue);
+    } finally {
+      processLock.unlock();
+    }
+  }
+
+  /**
+   * Handle a resource sample from a supervisor.
+   *
+   * @param supervisor
+   *          the supervisor of the process which was sampled
+   * @param sample
+   *          the resource sample
+   */
+  void handleResourceSample(NativeApplicationProcessSupervisor supervisor, NativeApplicationResourceSample sample) {
+    if (supervisor != processSupervisor) {
+      return;
+    }
+
+    for (NativeApplicationRunnerListener listener : listeners) {
+      try {
+        listener.onNativeApplicationRunnerResourceSample(this, sample);
+      } catch (Exception e) {
+        log.error("Error while notifying a listener about native application resource sample", e);
+      }
+    }
+
+    onResourceSample(supervisor.getProcess(), sample);
+  }
+
+  /**
+   * A resource sample has been taken of the running process.
+   *
+   * <p>
+   * This is called after all listeners have been notified. The default does nothing.
+   *
+   * @param sampledProcess
+   *          the process which was sampled
+   * @param sample
+   *          the resource sample
+   */
+  protected void onResourceSample(Process sampledProcess, NativeApplicationResourceSample sample) {
+    // Default is do nothing
+  }
+
+  /**
+   * The running process has exited, handle the exit and start a restart if there is a restart strategy.
+   *
+   * <p>
+   * The process lock must be held when this is called.
+   *
+   * @param exitValue
+   *          the exit value of the process
+   *
+   * @return {@code true} if a restart is being attempted, so the application is to be considered still running
+   */
+  private boolean handleExitedProcess(int exitValue) {
+    boolean successfulShutdown = handleProcessExit(exitValue, commandLine);
+
+    // If restarter is working, the outside should be told
+    // that we are still "running" until the restarter punts.
+    if (startRestarter()) {
+      runnerState.set(NativeApplicationRunnerState.RESTARTING);
+      return true;
+    }
+
+    // No longer running, is OK that it isn't running or no restarter, so
+    // signal done.
+    handleApplicationShutdown(successfulShutdown ? NativeApplicationRunnerState.SHUTDOWN
+        : NativeApplicationRunnerState.CRASHED);
+    return false;
+  }
+
+  /**
+   * Is the state one the runner can never leave?
+   *
+   * @param state
+   *          the state to check
+   *
+   * @return {@code true} if the state is final
+   */
+  private boolean isFinalState(NativeApplicationRunnerState state) {
+    return state == NativeApplicationRunnerState.SHUTDOWN || state == NativeApplicationRunnerState.CRASHED
+        || state == NativeApplicationRunnerState.RESTART_FAILED;
+  }
+
   @Override
   public NativeApplicationRunnerState getState() {
     return runnerState.get();
@@ -556,6 +749,7 @@ public abstract class BaseNativeApplicationRunner implements NativeApplicationRu
     processLock.lock();
     try {
       restartProcess = attemptRun(false);
+      restartProcessSupervisor = superviseProcess(restartProcess);
     } finally {
       processLock.unlock();
     }
@@ -565,7 +759,9 @@ public abstract class BaseNativeApplicationRunner implements NativeApplicationRu
   public boolean isRestarted() {
     processLock.lock();
     try {
-      if (restartProcess != null) {
+      if (restartProcessSupervisor != null) {
+        return !restartProcessSupervisor.isExited();
+      } else if (restartProcess != null) {
         try {
           restartProcess.exitValue();
 
@@ -589,13 +785,16 @@ public abstract class BaseNativeApplicationRunner implements NativeApplicationRu
     try {
       if (success) {
         process = restartProcess;
+        processSupervisor = restartProcessSupervisor;
         log.info("Native application restart successful");
         handleApplicationRunning();
       } else {
+        stopSupervisor(restartProcessSupervisor);
         handleApplicationShutdown(NativeApplicationRunnerState.RESTART_FAILED);
       }
 
       restartProcess = null;
+      restartProcessSupervisor = null;
       restarter = null;
     } finally {
       processLock.unlock();
@@ -622,6 +821,43 @@ public abstract class BaseNativeApplicationRunner implements NativeApplicationRu
     this.restartDurationMaximum = restartDurationMaximum;
   }
 
+  /**
+   * Set whether processes should be supervised.
+   *
+   * <p>
+   * A supervised process has a dedicated waiter which reports its exit as soon as it happens, its output streams are
+   * continually pumped into the log, and its resources are sampled if the platform supports it. Unsupervised processes
+   * are checked for exit and have their output read each time {@link #isRunning()} is called.
+   *
+   * <p>
+   * This must be set before the runner is started.
+   *
+   * @param processSupervision
+   *          {@code true} if processes should be supervised
+   */
+  public void setProcessSupervision(boolean processSupervision) {
+    this.processSupervision = processSupervision;
+  }
+
+  /**
+   * Is process supervision enabled?
+   *
+   * @return {@code true} if processes are supervised
+   */
+  public boolean isProcessSupervision() {
+    return processSupervision;
+  }
+
+  /**
+   * Set the time between resource samples of a supervised process.
+   *
+   * @param resourceSamplingPeriod
+   *          the sampling period in milliseconds, {@code 0} to disable sampling
+   */
+  public void setResourceSamplingPeriod(long resourceSamplingPeriod) {
+    this.resourceSamplingPeriod = resourceSamplingPeriod;
+  }
+
   @Override
   public void addNativeApplicationRunnerListener(NativeApplicationRunnerListener listener) {
     listeners.add(listener);
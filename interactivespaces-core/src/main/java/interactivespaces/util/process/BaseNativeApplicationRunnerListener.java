@@ -52,6 +52,12 @@ public class BaseNativeApplicationRunnerListener implements NativeApplicationRun
     // Default is do nothing
   }
 
+  @Override
+  public void onNativeApplicationRunnerResourceSample(NativeApplicationRunner runner,
+      NativeApplicationResourceSample sample) {
+    // Default is do nothing
+  }
+
   @Override
   public boolean onRestartAttempt(RestartStrategy<NativeApplicationRunner> strategy,
       NativeApplicationRunner restartable, boolean continueRestart) {
@@ -20,13 +20,26 @@ import interactivespaces.system.InteractiveSpacesEnvironment;
 
 import org.apache.commons.logging.Log;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
 /**
  * A {@link NativeApplicationRunner} for Linux systems.
  *
+ * <p>
+ * When process supervision is enabled, the process CPU usage, resident set size and open file descriptors are sampled
+ * from {@code /proc}. If a maximum resident set size is set, a process which grows past it is killed so that the
+ * restart strategy, if any, can start a fresh copy.
+ *
  * @author Keith M. Hughes
  */
 public class LinuxNativeApplicationRunner extends UnixNativeApplicationRunner {
 
+  /**
+   * The maximum resident set size, in bytes, before the process is killed. {@code 0} means no limit.
+   */
+  private volatile long residentSetSizeMaximum;
+
   /**
    * Create a new activity runner for linux.
    *
@@ -41,4 +54,67 @@ public class LinuxNativeApplicationRunner extends UnixNativeApplicationRunner {
       InteractiveSpacesEnvironment spaceEnvironment, Log log) {
     super(runnerParser, spaceEnvironment, log);
   }
+
+  /**
+   * Set the maximum resident set size for the process.
+   *
+   * <p>
+   * This is only enforced when process supervision is enabled, and is checked each time the process resources are
+   * sampled.
+   *
+   * @param residentSetSizeMaximum
+   *          the maximum resident set size, in bytes, {@code 0} for no limit
+   */
+  public void setResidentSetSizeMaximum(long residentSetSizeMaximum) {
+    this.residentSetSizeMaximum = residentSetSizeMaximum;
+  }
+
+  @Override
+  protected NativeApplicationResourceSampler newResourceSampler(Process newProcess) {
+    long pid = getProcessId(newProcess);
+    if (pid < 0) {
+      getLog().warn("Could not determine the process ID of the native application, resources will not be sampled");
+      return null;
+    }
+
+    return new LinuxProcResourceSampler(pid, getSpaceEnvironment().getTimeProvider());
+  }
+
+  @Override
+  protected void onResourceSample(Process sampledProcess, NativeApplicationResourceSample sample) {
+    long maximum = residentSetSizeMaximum;
+    if (maximum > 0 && sample.getResidentSetSize() > maximum) {
+      getLog().warn(
+          String.format("Native application process %d resident set size %d exceeds maximum %d, killing process",
+              sample.getPid(), sample.getResidentSetSize(), maximum));
+
+      sampledProcess.destroy();
+    }
+  }
+
+  /**
+   * Get the operating system process ID of a process.
+   *
+   * @param process
+   *          the process
+   *
+   * @return the process ID, or {@code -1} if it could not be determined
+   */
+  private long getProcessId(Process process) {
+    try {
+      // Java 9 and later have a public method.
+      Method pidMethod = Process.class.getMethod("pid");
+      return ((Number) pidMethod.invoke(process)).longValue();
+    } catch (Exception e) {
+      // Not available, try the private field in the JDK process implementation.
+    }
+
+    try {
+      Field pidField = process.getClass().getDeclaredField("pid");
+      pidField.setAccessible(true);
+      return ((Number) pidField.get(process)).longValue();
+    } catch (Exception e) {
+      return -1;
+    }
+  }
 }
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.process;
+
+import interactivespaces.time.TimeProvider;
+import interactivespaces.util.io.FileSupport;
+import interactivespaces.util.io.FileSupportImpl;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.io.File;
+
+/**
+ * A resource sampler which reads the Linux {@code /proc} file system.
+ *
+ * <p>
+ * CPU time is read from {@code /proc/<pid>/stat}, the resident set size from {@code /proc/<pid>/status}, and the open
+ * file descriptors are counted from {@code /proc/<pid>/fd}.
+ *
+ * @author Keith M. Hughes
+ */
+public class LinuxProcResourceSampler implements NativeApplicationResourceSampler {
+
+  /**
+   * The base of the process file system.
+   */
+  public static final String PROC_FILESYSTEM_BASE = "/proc";
+
+  /**
+   * The number of clock ticks per second used for CPU times in {@code /proc}.
+   *
+   * <p>
+   * This is the kernel {@code USER_HZ}, which is 100 on all mainstream Linux architectures.
+   */
+  public static final double CLOCK_TICKS_PER_SECOND = 100.0;
+
+  /**
+   * The index of the user CPU time field in the stat file, counting from the field after the command name.
+   */
+  public static final int STAT_FIELD_INDEX_UTIME = 11;
+
+  /**
+   * The index of the system CPU time field in the stat file, counting from the field after the command name.
+   */
+  public static final int STAT_FIELD_INDEX_STIME = 12;
+
+  /**
+   * The label for the resident set size in the status file.
+   */
+  public static final String STATUS_LABEL_RESIDENT_SET_SIZE = "VmRSS:";
+
+  /**
+   * The number of bytes in a kilobyte, as used in the status file.
+   */
+  public static final long BYTES_PER_KILOBYTE = 1024;
+
+  /**
+   * The process ID being sampled.
+   */
+  private final long pid;
+
+  /**
+   * The directory in the process file system for the process.
+   */
+  private final File procDirectory;
+
+  /**
+   * The time provider for sample timestamps.
+   */
+  private final TimeProvider timeProvider;
+
+  /**
+   * The CPU ticks used by the process at the previous sample, or a negative number if no previous sample.
+   */
+  private long previousCpuTicks = -1;
+
+  /**
+   * The value of {@link System#nanoTime()} at the previous sample.
+   */
+  private long previousSampleNanos;
+
+  /**
+   * The file support to use.
+   */
+  private final FileSupport fileSupport = FileSupportImpl.INSTANCE;
+
+  /**
+   * Construct a new sampler.
+   *
+   * @param pid
+   *          the process ID to sample
+   * @param timeProvider
+   *          the time provider for sample timestamps
+   */
+  public LinuxProcResourceSampler(long pid, TimeProvider timeProvider) {
+    this(pid, timeProvider, new File(PROC_FILESYSTEM_BASE));
+  }
+
+  /**
+   * Construct a new sampler reading a specific process file system.
+   *
+   * @param pid
+   *          the process ID to sample
+   * @param timeProvider
+   *          the time provider for sample timestamps
+   * @param procBase
+   *          the base directory of the process file system
+   */
+  @VisibleForTesting
+  LinuxProcResourceSampler(long pid, TimeProvider timeProvider, File procBase) {
+    this.pid = pid;
+    this.timeProvider = timeProvider;
+    this.procDirectory = fileSupport.newFile(procBase, Long.toString(pid));
+  }
+
+  @Override
+  public NativeApplicationResourceSample sample() {
+    if (!fileSupport.exists(procDirectory)) {
+      return null;
+    }
+
+    long now = System.nanoTime();
+    long cpuTicks = readCpuTicks();
+
+    double cpuUsage = -1.0;
+    if (cpuTicks >= 0 && previousCpuTicks >= 0 && now > previousSampleNanos) {
+      double elapsedSeconds = (now - previousSampleNanos) / 1e9;
+      cpuUsage = (cpuTicks - previousCpuTicks) / CLOCK_TICKS_PER_SECOND / elapsedSeconds;
+    }
+    previousCpuTicks = cpuTicks;
+    previousSampleNanos = now;
+
+    return new NativeApplicationResourceSample(pid, timeProvider.getCurrentTime(), cpuUsage, readResidentSetSize(),
+        countOpenFileDescriptors());
+  }
+
+  /**
+   * Read the total user and system CPU time used by the process.
+   *
+   * @return the CPU time in clock ticks, or a negative number if it could not be read
+   */
+  private long readCpuTicks() {
+    try {
+      String stat = fileSupport.readFile(fileSupport.newFile(procDirectory, "stat"));
+      return parseCpuTicks(stat);
+    } catch (Exception e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Parse the total CPU ticks from the contents of a stat file.
+   *
+   * @param stat
+   *          the contents of the stat file
+   *
+   * @return the CPU time in clock ticks
+   */
+  @VisibleForTesting
+  static long parseCpuTicks(String stat) {
+    // The command name is in parentheses and can contain spaces, so start after the last parenthesis.
+    String[] fields = stat.substring(stat.lastIndexOf(')') + 1).trim().split("\\s+");
+
+    return Long.parseLong(fields[STAT_FIELD_INDEX_UTIME]) + Long.parseLong(fields[STAT_FIELD_INDEX_STIME]);
+  }
+
+  /**
+   * Read the resident set size of the process.
+   *
+   * @return the resident set size in bytes, or {@link NativeApplicationResourceSample#UNAVAILABLE}
+   */
+  private long readResidentSetSize() {
+    try {
+      String status = fileSupport.readFile(fileSupport.newFile(procDirectory, "status"));
+      return parseResidentSetSize(status);
+    } catch (Exception e) {
+      return NativeApplicationResourceSample.UNAVAILABLE;
+    }
+  }
+
+  /**
+   * Parse the resident set size from the contents of a status file.
+   *
+   * @param status
+   *          the contents of the status file
+   *
+   * @return the resident set size in bytes, or {@link NativeApplicationResourceSample#UNAVAILABLE}
+   */
+  @VisibleForTesting
+  static long parseResidentSetSize(String status) {
+    for (String line : status.split("\n")) {
+      if (line.startsWith(STATUS_LABEL_RESIDENT_SET_SIZE)) {
+        String[] parts = line.substring(STATUS_LABEL_RESIDENT_SET_SIZE.length()).trim().split("\\s+");
+        return Long.parseLong(parts[0]) * BYTES_PER_KILOBYTE;
+      }
+    }
+
+    return NativeApplicationResourceSample.UNAVAILABLE;
+  }
+
+  /**
+   * Count the file descriptors the process has open.
+   *
+   * @return the number of open file descriptors, or {@link NativeApplicationResourceSample#UNAVAILABLE}
+   */
+  private long countOpenFileDescriptors() {
+    String[] descriptors = fileSupport.newFile(procDirectory, "fd").list();
+
+    return (descriptors != null) ? descriptors.length : NativeApplicationResourceSample.UNAVAILABLE;
+  }
+}
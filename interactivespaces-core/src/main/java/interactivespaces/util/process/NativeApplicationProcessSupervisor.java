@@ -0,0 +1,353 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.process;
+
+import com.google.common.base.Charsets;
+
+import org.apache.commons.logging.Log;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Supervises a single native process without polling.
+ *
+ * <p>
+ * A dedicated waiter blocks on the process until it exits and then reports the exit to the runner. The standard output
+ * and error streams are continually drained by line-oriented pumps into the runner log, so a chatty process can never
+ * block on a full pipe. Lines longer than {@link #OUTPUT_LINE_LENGTH_MAXIMUM} characters are split so that a process
+ * which never writes a newline cannot exhaust memory.
+ *
+ * <p>
+ * If a resource sampler is supplied, it is run periodically and the samples are handed to the runner.
+ *
+ * @author Keith M. Hughes
+ */
+public class NativeApplicationProcessSupervisor {
+
+  /**
+   * The maximum number of characters in a logged output line.
+   */
+  public static final int OUTPUT_LINE_LENGTH_MAXIMUM = 4096;
+
+  /**
+   * How long to wait for the output pumps to finish after the process exits, in milliseconds.
+   */
+  public static final long OUTPUT_DRAIN_TIMEOUT = 2000;
+
+  /**
+   * The prefix for all lines logged from the process output.
+   */
+  public static final String OUTPUT_LOG_PREFIX = "Native application runner: ";
+
+  /**
+   * The process being supervised.
+   */
+  private final Process process;
+
+  /**
+   * The runner to report the process exit and resource samples to.
+   */
+  private final BaseNativeApplicationRunner runner;
+
+  /**
+   * The sampler for process resources, can be {@code null}.
+   */
+  private final NativeApplicationResourceSampler resourceSampler;
+
+  /**
+   * The log for process output.
+   */
+  private final Log log;
+
+  /**
+   * The exit value of the process, {@code null} if it is still running.
+   */
+  private volatile Integer exitValue;
+
+  /**
+   * {@code true} if the supervisor has been stopped and should no longer report to the runner.
+   */
+  private volatile boolean stopped;
+
+  /**
+   * The future for the standard output pump.
+   */
+  private Future<?> outputPumpFuture;
+
+  /**
+   * The future for the standard error pump.
+   */
+  private Future<?> errorPumpFuture;
+
+  /**
+   * The future for the waiter.
+   */
+  private Future<?> waiterFuture;
+
+  /**
+   * The future for the resource sampler, can be {@code null}.
+   */
+  private Future<?> samplingFuture;
+
+  /**
+   * Construct a new supervisor.
+   *
+   * @param process
+   *          the process to supervise
+   * @param runner
+   *          the runner which launched the process
+   * @param resourceSampler
+   *          the sampler for process resources, can be {@code null}
+   * @param log
+   *          the log for process output
+   */
+  public NativeApplicationProcessSupervisor(Process process, BaseNativeApplicationRunner runner,
+      NativeApplicationResourceSampler resourceSampler, Log log) {
+    this.process = process;
+    this.runner = runner;
+    this.resourceSampler = resourceSampler;
+    this.log = log;
+  }
+
+  /**
+   * Start supervising the process.
+   *
+   * @param executorService
+   *          the executor service for the waiter, pumps, and sampler
+   * @param samplingPeriod
+   *          the time between resource samples, in milliseconds
+   */
+  public synchronized void startup(ScheduledExecutorService executorService, long samplingPeriod) {
+    outputPumpFuture = executorService.submit(new OutputPump(process.getInputStream(), false));
+    errorPumpFuture = executorService.submit(new OutputPump(process.getErrorStream(), true));
+    waiterFuture = executorService.submit(new Runnable() {
+      @Override
+      public void run() {
+        waitForExit();
+      }
+    });
+
+    if (resourceSampler != null && samplingPeriod > 0) {
+      samplingFuture = executorService.scheduleAtFixedRate(new Runnable() {
+        @Override
+        public void run() {
+          sampleResources();
+        }
+      }, samplingPeriod, samplingPeriod, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Stop supervising the process.
+   *
+   * <p>
+   * The runner will not be told about the exit of the process after this is called. The output pumps continue until
+   * the process streams close so that no output is lost.
+   */
+  public synchronized void shutdown() {
+    stopped = true;
+
+    if (samplingFuture != null) {
+      samplingFuture.cancel(true);
+      samplingFuture = null;
+    }
+    if (waiterFuture != null) {
+      waiterFuture.cancel(true);
+      waiterFuture = null;
+    }
+  }
+
+  /**
+   * Get the process being supervised.
+   *
+   * @return the process
+   */
+  public Process getProcess() {
+    return process;
+  }
+
+  /**
+   * Has the process exited?
+   *
+   * @return {@code true} if the process has exited
+   */
+  public boolean isExited() {
+    return exitValue != null;
+  }
+
+  /**
+   * Get the exit value of the process.
+   *
+   * @return the exit value, or {@code null} if the process is still running
+   */
+  public Integer getExitValue() {
+    return exitValue;
+  }
+
+  /**
+   * Wait for the process to exit and report it to the runner.
+   */
+  private void waitForExit() {
+    try {
+      int value = process.waitFor();
+
+      // Give the pumps a chance to log everything the process wrote before the exit is reported.
+      waitForPump(outputPumpFuture);
+      waitForPump(errorPumpFuture);
+
+      exitValue = value;
+
+      if (!stopped) {
+        runner.handleSupervisedProcessExit(this, value);
+      }
+    } catch (InterruptedException e) {
+      // Supervision was shut down.
+    } catch (Exception e) {
+      log.error("Error while waiting for native application process to exit", e);
+    } finally {
+      synchronized (this) {
+        if (samplingFuture != null) {
+          samplingFuture.cancel(false);
+          samplingFuture = null;
+        }
+      }
+    }
+  }
+
+  /**
+   * Wait for an output pump to complete.
+   *
+   * @param pumpFuture
+   *          the future for the pump
+   *
+   * @throws InterruptedException
+   *           the wait was interrupted
+   */
+  private void waitForPump(Future<?> pumpFuture) throws InterruptedException {
+    try {
+      pumpFuture.get(OUTPUT_DRAIN_TIMEOUT, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      throw e;
+    } catch (Exception e) {
+      // The pump is either broken or the stream is held open by a child process. Either way, stop waiting.
+    }
+  }
+
+  /**
+   * Take a resource sample and hand it to the runner.
+   */
+  private void sampleResources() {
+    if (stopped || exitValue != null) {
+      return;
+    }
+
+    try {
+      NativeApplicationResourceSample sample = resourceSampler.sample();
+      if (sample != null) {
+        runner.handleResourceSample(this, sample);
+      }
+    } catch (Exception e) {
+      log.error("Error while sampling native application resources", e);
+    }
+  }
+
+  /**
+   * A pump which copies a process output stream into the log a line at a time.
+   *
+   * @author Keith M. Hughes
+   */
+  private class OutputPump implements Runnable {
+
+    /**
+     * The stream being pumped.
+     */
+    private final InputStream stream;
+
+    /**
+     * {@code true} if the stream is the error stream.
+     */
+    private final boolean error;
+
+    /**
+     * Construct a new pump.
+     *
+     * @param stream
+     *          the stream to pump
+     * @param error
+     *          {@code true} if the stream is the error stream
+     */
+    public OutputPump(InputStream stream, boolean error) {
+      this.stream = stream;
+      this.error = error;
+    }
+
+    @Override
+    public void run() {
+      Reader reader = new InputStreamReader(stream, Charsets.UTF_8);
+      char[] buffer = new char[OUTPUT_LINE_LENGTH_MAXIMUM];
+      StringBuilder line = new StringBuilder(OUTPUT_LINE_LENGTH_MAXIMUM);
+      try {
+        int count;
+        while ((count = reader.read(buffer)) != -1) {
+          for (int i = 0; i < count; i++) {
+            char c = buffer[i];
+            if (c == '\n') {
+              logLine(line);
+            } else if (c != '\r') {
+              line.append(c);
+              if (line.length() >= OUTPUT_LINE_LENGTH_MAXIMUM) {
+                logLine(line);
+              }
+            }
+          }
+        }
+      } catch (Exception e) {
+        // The stream closes when the process is destroyed, which is not worth logging.
+      } finally {
+        if (line.length() > 0) {
+          logLine(line);
+        }
+        try {
+          reader.close();
+        } catch (Exception e) {
+          // Nothing to do.
+        }
+      }
+    }
+
+    /**
+     * Log a line of output and clear the line buffer.
+     *
+     * @param line
+     *          the line buffer
+     */
+    private void logLine(StringBuilder line) {
+      String message = OUTPUT_LOG_PREFIX + line;
+      if (error) {
+        log.error(message);
+      } else {
+        log.info(message);
+      }
+      line.setLength(0);
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.process;
+
+/**
+ * A sample of the operating system resources being used by a native application.
+ *
+ * @author Keith M. Hughes
+ */
+public class NativeApplicationResourceSample {
+
+  /**
+   * Value used for a resource measurement which is not available.
+   */
+  public static final long UNAVAILABLE = -1;
+
+  /**
+   * The operating system process ID of the application.
+   */
+  private final long pid;
+
+  /**
+   * When the sample was taken, in milliseconds since the epoch.
+   */
+  private final long timestamp;
+
+  /**
+   * The CPU usage since the previous sample, as a fraction of one core.
+   */
+  private final double cpuUsage;
+
+  /**
+   * The resident set size, in bytes.
+   */
+  private final long residentSetSize;
+
+  /**
+   * The number of open file descriptors.
+   */
+  private final long openFileDescriptors;
+
+  /**
+   * Construct a new sample.
+   *
+   * @param pid
+   *          the operating system process ID of the application
+   * @param timestamp
+   *          when the sample was taken, in milliseconds since the epoch
+   * @param cpuUsage
+   *          the CPU usage since the previous sample, as a fraction of one core, or a negative number if not available
+   * @param residentSetSize
+   *          the resident set size, in bytes, or {@link #UNAVAILABLE}
+   * @param openFileDescriptors
+   *          the number of open file descriptors, or {@link #UNAVAILABLE}
+   */
+  public NativeApplicationResourceSample(long pid, long timestamp, double cpuUsage, long residentSetSize,
+      long openFileDescriptors) {
+    this.pid = pid;
+    this.timestamp = timestamp;
+    this.cpuUsage = cpuUsage;
+    this.residentSetSize = residentSetSize;
+    this.openFileDescriptors = openFileDescriptors;
+  }
+
+  /**
+   * Get the operating system process ID of the application.
+   *
+   * @return the process ID
+   */
+  public long getPid() {
+    return pid;
+  }
+
+  /**
+   * Get when the sample was taken.
+   *
+   * @return the sample time, in milliseconds since the epoch
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * Get the CPU usage since the previous sample.
+   *
+   * <p>
+   * A value of {@code 1.0} means one core was fully busy. A multithreaded application can use more than one core.
+   *
+   * @return the CPU usage as a fraction of one core, or a negative number if not available
+   */
+  public double getCpuUsage() {
+    return cpuUsage;
+  }
+
+  /**
+   * Get the resident set size of the application.
+   *
+   * @return the resident set size, in bytes, or {@link #UNAVAILABLE}
+   */
+  public long getResidentSetSize() {
+    return residentSetSize;
+  }
+
+  /**
+   * Get the number of file descriptors the application has open.
+   *
+   * @return the number of open file descriptors, or {@link #UNAVAILABLE}
+   */
+  public long getOpenFileDescriptors() {
+    return openFileDescriptors;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "NativeApplicationResourceSample [pid=%d, timestamp=%d, cpuUsage=%.3f, residentSetSize=%d, "
+            + "openFileDescriptors=%d]", pid, timestamp, cpuUsage, residentSetSize, openFileDescriptors);
+  }
+}
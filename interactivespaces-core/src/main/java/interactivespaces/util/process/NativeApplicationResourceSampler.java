@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.process;
+
+/**
+ * Samples the operating system resources used by a single native process.
+ *
+ * <p>
+ * A sampler instance is tied to one process and may keep state between samples, for example to compute CPU usage.
+ *
+ * @author Keith M. Hughes
+ */
+public interface NativeApplicationResourceSampler {
+
+  /**
+   * Take a sample of the process resources.
+   *
+   * @return the sample, or {@code null} if the process can no longer be sampled
+   */
+  NativeApplicationResourceSample sample();
+}
@@ -80,4 +80,17 @@ public interface NativeApplicationRunnerListener extends RestartStrategyListener
    *          the runner
    */
   void onNativeApplicationRunnerStartupFailed(NativeApplicationRunner runner);
+
+  /**
+   * A sample has been taken of the resources used by the native application.
+   *
+   * <p>
+   * Samples are only taken when the runner is supervising its process and the platform supports sampling.
+   *
+   * @param runner
+   *          the runner
+   * @param sample
+   *          the resource sample
+   */
+  void onNativeApplicationRunnerResourceSample(NativeApplicationRunner runner, NativeApplicationResourceSample sample);
 }
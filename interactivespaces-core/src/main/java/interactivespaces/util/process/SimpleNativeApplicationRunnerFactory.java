@@ -17,6 +17,7 @@
 package interactivespaces.util.process;
 
 import interactivespaces.SimpleInteractiveSpacesException;
+import interactivespaces.configuration.Configuration;
 import interactivespaces.system.InteractiveSpacesEnvironment;
 
 import interactivespaces.system.core.configuration.CoreConfiguration;
@@ -29,6 +30,28 @@ import org.apache.commons.logging.Log;
  */
 public class SimpleNativeApplicationRunnerFactory implements NativeApplicationRunnerFactory {
 
+  /**
+   * Configuration property for enabling process supervision on Linux.
+   */
+  public static final String CONFIGURATION_NATIVE_SUPERVISION_ENABLE = "interactivespaces.native.supervision.enable";
+
+  /**
+   * The default value for {@link #CONFIGURATION_NATIVE_SUPERVISION_ENABLE}.
+   */
+  public static final boolean CONFIGURATION_NATIVE_SUPERVISION_ENABLE_DEFAULT = false;
+
+  /**
+   * Configuration property for the time between resource samples of supervised processes, in milliseconds.
+   */
+  public static final String CONFIGURATION_NATIVE_SUPERVISION_SAMPLING_PERIOD =
+      "interactivespaces.native.supervision.sampling.period";
+
+  /**
+   * Configuration property for the maximum resident set size of supervised processes, in bytes.
+   */
+  public static final String CONFIGURATION_NATIVE_SUPERVISION_RSS_MAXIMUM =
+      "interactivespaces.native.supervision.rss.maximum";
+
   /**
    * The parser for native applications.
    */
@@ -69,7 +92,10 @@ public class SimpleNativeApplicationRunnerFactory implements NativeApplicationRu
         CoreConfiguration.CONFIGURATION_INTERACTIVESPACES_PLATFORM_OS);
 
     if (CoreConfiguration.CONFIGURATION_VALUE_PLATFORM_OS_LINUX.equals(os)) {
-      return new LinuxNativeApplicationRunner(runnerParser, spaceEnvironment, log);
+      LinuxNativeApplicationRunner runner = new LinuxNativeApplicationRunner(runnerParser, spaceEnvironment, log);
+      configureLinuxSupervision(runner);
+
+      return runner;
     } else if (CoreConfiguration.CONFIGURATION_VALUE_PLATFORM_OS_OSX.equals(os)) {
       return new OsxNativeApplicationRunner(runnerParser, spaceEnvironment, log);
     } else if (CoreConfiguration.CONFIGURATION_VALUE_PLATFORM_OS_WINDOWS.equals(os)) {
@@ -78,4 +104,25 @@ public class SimpleNativeApplicationRunnerFactory implements NativeApplicationRu
       throw new SimpleInteractiveSpacesException("Cannot create native activity launcher. Unknown OS " + os);
     }
   }
+
+  /**
+   * Configure process supervision for a Linux runner from the system configuration.
+   *
+   * @param runner
+   *          the runner to configure
+   */
+  private void configureLinuxSupervision(LinuxNativeApplicationRunner runner) {
+    Configuration systemConfiguration = spaceEnvironment.getSystemConfiguration();
+    if (!systemConfiguration.getPropertyBoolean(CONFIGURATION_NATIVE_SUPERVISION_ENABLE,
+        CONFIGURATION_NATIVE_SUPERVISION_ENABLE_DEFAULT)) {
+      return;
+    }
+
+    runner.setProcessSupervision(true);
+    runner.setResourceSamplingPeriod(systemConfiguration.getPropertyLong(
+        CONFIGURATION_NATIVE_SUPERVISION_SAMPLING_PERIOD,
+        BaseNativeApplicationRunner.RESOURCE_SAMPLING_PERIOD_DEFAULT));
+    runner.setResidentSetSizeMaximum(systemConfiguration.getPropertyLong(CONFIGURATION_NATIVE_SUPERVISION_RSS_MAXIMUM,
+        0L));
+  }
 }
@@ -90,6 +90,13 @@ public interface RosPublishers<T> extends PublisherListener<T> {
    */
   T newMessage();
 
+  /**
+   * Get the number of published messages which have not yet been written to the network by any of the publishers.
+   *
+   * @return the number of messages waiting to be written
+   */
+  int getNumberOfQueuedMessages();
+
   /**
    * Shut down all publishers registered.
    *
@@ -19,6 +19,7 @@ package interactivespaces.util.ros;
 import org.ros.message.MessageListener;
 import org.ros.node.ConnectedNode;
 import org.ros.node.topic.SubscriberListener;
+import org.ros.node.topic.TransportHints;
 
 import java.util.Set;
 
@@ -57,6 +58,26 @@ public interface RosSubscribers<T> extends SubscriberListener<T> {
    */
   void addSubscribers(ConnectedNode node, String messageType, Set<String> topicNames, MessageListener<T> listener);
 
+  /**
+   * Add a series of subscribers to a node which receive their messages the way the transport hints ask for.
+   *
+   * <p>
+   * All topic names will be resolved using the ROS name resolver on the node.
+   *
+   * @param node
+   *          The node the subscribers will be added to.
+   * @param messageType
+   *          the message type for all of the subscribers
+   * @param topicNames
+   *          the topics to be subscribed to
+   * @param listener
+   *          The listener which all subscribers will call when a message is received.
+   * @param transportHints
+   *          how the subscribers would like to receive messages
+   */
+  void addSubscribers(ConnectedNode node, String messageType, Set<String> topicNames, MessageListener<T> listener,
+      TransportHints transportHints);
+
   /**
    * Shut down all subscribers registered.
    *
@@ -114,6 +114,16 @@ public class StandardRosPublishers<T> implements RosPublishers<T> {
     }
   }
 
+  @Override
+  public synchronized int getNumberOfQueuedMessages() {
+    int numberQueued = 0;
+    for (Publisher<T> publisher : publishers) {
+      numberQueued += publisher.getNumberOfQueuedMessages();
+    }
+
+    return numberQueued;
+  }
+
   @Override
   public synchronized void shutdown() {
     for (Publisher<T> publisher : publishers) {
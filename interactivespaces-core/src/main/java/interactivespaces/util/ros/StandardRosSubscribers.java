@@ -24,6 +24,7 @@ import org.ros.message.MessageListener;
 import org.ros.node.ConnectedNode;
 import org.ros.node.topic.Subscriber;
 import org.ros.node.topic.SubscriberListener;
+import org.ros.node.topic.TransportHints;
 
 import java.util.List;
 import java.util.Set;
@@ -75,10 +76,16 @@ public class StandardRosSubscribers<T> implements RosSubscribers<T> {
   @Override
   public synchronized void addSubscribers(ConnectedNode node, String messageType, Set<String> topicNames,
       MessageListener<T> listener) {
+    addSubscribers(node, messageType, topicNames, listener, new TransportHints());
+  }
+
+  @Override
+  public synchronized void addSubscribers(ConnectedNode node, String messageType, Set<String> topicNames,
+      MessageListener<T> listener, TransportHints transportHints) {
     log.debug("Adding topic subscribers");
     for (String topicName : topicNames) {
       log.debug(String.format("Adding subscriber topic %s", topicName));
-      Subscriber<T> newSubscriber = node.newSubscriber(topicName, messageType);
+      Subscriber<T> newSubscriber = node.newSubscriber(topicName, messageType, transportHints);
       log.debug(String.format("Added subscriber topic %s", topicName));
       newSubscriber.addSubscriberListener(this);
 
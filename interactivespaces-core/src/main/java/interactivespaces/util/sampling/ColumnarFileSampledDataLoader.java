@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.sampling;
+
+import interactivespaces.SimpleInteractiveSpacesException;
+import interactivespaces.util.data.columnar.ColumnType;
+import interactivespaces.util.data.columnar.ColumnarFile;
+import interactivespaces.util.data.columnar.ColumnarFileWriter;
+
+import java.io.File;
+import java.nio.IntBuffer;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * A {@link SampledDataLoader} which uses a memory mapped {@link ColumnarFile} for storage.
+ *
+ * <p>
+ * Each source is an int column of samples named after the source.
+ *
+ * @author Keith M. Hughes
+ */
+public class ColumnarFileSampledDataLoader implements SampledDataLoader {
+
+  @Override
+  public void save(File dataFile, Map<String, int[]> data) {
+    ColumnarFileWriter writer = new ColumnarFileWriter();
+    for (Entry<String, int[]> entry : data.entrySet()) {
+      writer.addIntColumn(entry.getKey(), entry.getValue());
+    }
+
+    writer.write(dataFile);
+  }
+
+  @Override
+  public void save(File dataFile, SampledDataCollection data) {
+    save(dataFile, data.getData());
+  }
+
+  @Override
+  public void load(File dataFile, Map<String, int[]> data) {
+    data.clear();
+
+    ColumnarFile file = new ColumnarFile(dataFile);
+    for (int column = 0; column < file.getColumnCount(); column++) {
+      if (file.getColumnType(column) != ColumnType.INT) {
+        throw new SimpleInteractiveSpacesException(String.format("Sampled data file %s has non-int column %s",
+            dataFile.getAbsolutePath(), file.getColumnName(column)));
+      }
+
+      IntBuffer samplesColumn = file.getIntColumn(column);
+      int[] samples = new int[samplesColumn.remaining()];
+      samplesColumn.get(samples);
+
+      data.put(file.getColumnName(column), samples);
+    }
+  }
+
+  @Override
+  public void load(File dataFile, SampledDataCollection data) {
+    load(dataFile, data.getData());
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.sampling;
+
+import interactivespaces.SimpleInteractiveSpacesException;
+import interactivespaces.util.data.columnar.ColumnarFile;
+import interactivespaces.util.data.columnar.ColumnarFileWriter;
+import interactivespaces.util.sampling.SampledDataSequence.SampledDataFrame;
+
+import java.io.File;
+import java.nio.IntBuffer;
+import java.util.List;
+
+/**
+ * A sampled data sequence loader which uses a memory mapped {@link ColumnarFile} for storage.
+ *
+ * <p>
+ * The file has a string column of frame sources, a long column of frame timestamps, and all samples of all frames in
+ * a single int column. A further int column gives the index in the samples column where each frame starts, with one
+ * more entry for the end of the last frame. Replay code can map the file itself and read samples straight from it.
+ *
+ * @author Keith M. Hughes
+ */
+public class ColumnarFileSampledDataSequenceLoader implements SampledDataSequenceLoader {
+
+  /**
+   * The name of the column of frame sources.
+   */
+  public static final String COLUMN_NAME_FRAME_SOURCE = "source";
+
+  /**
+   * The name of the column of frame timestamps.
+   */
+  public static final String COLUMN_NAME_FRAME_TIMESTAMP = "timestamp";
+
+  /**
+   * The name of the column of where each frame starts in the samples column.
+   */
+  public static final String COLUMN_NAME_FRAME_SAMPLES_START = "samplesStart";
+
+  /**
+   * The name of the column of the samples of all frames.
+   */
+  public static final String COLUMN_NAME_SAMPLES = "samples";
+
+  @Override
+  public void save(File dataFile, SampledDataSequence dataSequence) {
+    List<SampledDataFrame> frames = dataSequence.getFrames();
+    int numberFrames = frames.size();
+
+    String[] sources = new String[numberFrames];
+    long[] timestamps = new long[numberFrames];
+    int[] samplesStarts = new int[numberFrames + 1];
+    for (int frame = 0; frame < numberFrames; frame++) {
+      SampledDataFrame dataFrame = frames.get(frame);
+      sources[frame] = dataFrame.getSource();
+      timestamps[frame] = dataFrame.getTimestamp();
+      samplesStarts[frame + 1] = samplesStarts[frame] + dataFrame.getSamples().length;
+    }
+
+    int[] samples = new int[samplesStarts[numberFrames]];
+    for (int frame = 0; frame < numberFrames; frame++) {
+      int[] frameSamples = frames.get(frame).getSamples();
+      System.arraycopy(frameSamples, 0, samples, samplesStarts[frame], frameSamples.length);
+    }
+
+    new ColumnarFileWriter().addStringColumn(COLUMN_NAME_FRAME_SOURCE, sources)
+        .addLongColumn(COLUMN_NAME_FRAME_TIMESTAMP, timestamps)
+        .addIntColumn(COLUMN_NAME_FRAME_SAMPLES_START, samplesStarts).addIntColumn(COLUMN_NAME_SAMPLES, samples)
+        .write(dataFile);
+  }
+
+  @Override
+  public int load(File dataFile, SampledDataSequence dataSequence) {
+    dataSequence.reset();
+
+    ColumnarFile file = new ColumnarFile(dataFile);
+    int sourceColumn = getColumn(file, COLUMN_NAME_FRAME_SOURCE);
+    int timestampColumn = getColumn(file, COLUMN_NAME_FRAME_TIMESTAMP);
+    IntBuffer samplesStarts = file.getIntColumn(getColumn(file, COLUMN_NAME_FRAME_SAMPLES_START));
+    IntBuffer samples = file.getIntColumn(getColumn(file, COLUMN_NAME_SAMPLES));
+
+    int numberFrames = file.getColumnLength(sourceColumn);
+    for (int frame = 0; frame < numberFrames; frame++) {
+      int start = samplesStarts.get(frame);
+      int[] frameSamples = new int[samplesStarts.get(frame + 1) - start];
+      samples.position(start);
+      samples.get(frameSamples);
+
+      dataSequence.addFrame(file.getString(sourceColumn, frame), frameSamples,
+          file.getLong(timestampColumn, frame));
+    }
+
+    return numberFrames;
+  }
+
+  /**
+   * Get the index of a column which must be in the file.
+   *
+   * @param file
+   *          the file
+   * @param name
+   *          name of the column
+   *
+   * @return index of the column
+   */
+  private int getColumn(ColumnarFile file, String name) {
+    int column = file.getColumnIndex(name);
+    if (column == -1) {
+      throw new SimpleInteractiveSpacesException(String.format("Sampled data sequence file %s has no column %s",
+          file.getFile().getAbsolutePath(), name));
+    }
+
+    return column;
+  }
+}
@@ -23,16 +23,23 @@ import interactivespaces.activity.ros.RosActivity;
 import interactivespaces.configuration.Configuration;
 import interactivespaces.configuration.SimpleConfiguration;
 import interactivespaces.evaluation.SimpleExpressionEvaluator;
+import interactivespaces.messaging.route.RouteLatencyCollector;
+import interactivespaces.messaging.route.RouteMessageTraceAccessor;
 import interactivespaces.system.InteractiveSpacesEnvironment;
 import interactivespaces.time.SettableTimeProvider;
-import interactivespaces.time.TimeProvider;
+import interactivespaces.util.metrics.DisabledMetricsRegistry;
+import interactivespaces.util.metrics.MetricsRegistry;
+import interactivespaces.util.metrics.StandardMetricsRegistry;
 
 import org.apache.commons.logging.Log;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InOrder;
 import org.mockito.Mockito;
 
+import java.util.Map;
+
 /**
  * Tests for {@link BasicRosMessageRouterActivityComponent}.
  *
@@ -47,7 +54,8 @@ public class BasicRosMessageRouterActivityComponentTest {
   private Configuration configuration;
   private RosActivity activity;
   private InteractiveSpacesEnvironment spaceEnvironment;
-  private TimeProvider timeProvider;
+  private SettableTimeProvider timeProvider;
+  private MetricsRegistry metricsRegistry;
 
   private InOrder activityComponentContextInOrder;
 
@@ -65,6 +73,11 @@ public class BasicRosMessageRouterActivityComponentTest {
 
     activity = Mockito.mock(RosActivity.class);
     Mockito.when(activityComponentContext.getActivity()).thenReturn(activity);
+    Mockito.when(activity.getUuid()).thenReturn("activity");
+    Mockito.when(activity.getName()).thenReturn("display");
+
+    metricsRegistry = new StandardMetricsRegistry();
+    Mockito.when(activityComponentContext.getMetricsRegistry()).thenReturn(metricsRegistry);
 
     spaceEnvironment = Mockito.mock(InteractiveSpacesEnvironment.class);
     Mockito.when(activity.getSpaceEnvironment()).thenReturn(spaceEnvironment);
@@ -104,6 +117,8 @@ public class BasicRosMessageRouterActivityComponentTest {
 
     activityComponentContextInOrder.verify(activityComponentContext).enterHandler();
     activityComponentContextInOrder.verify(activityComponentContext).exitHandler();
+
+    Assert.assertEquals(1, metricsRegistry.getTimer("activity.activity.route.input.foo").getHistogram().getCount());
   }
 
   /**
@@ -133,6 +148,68 @@ public class BasicRosMessageRouterActivityComponentTest {
     activityComponentContextInOrder.verify(activityComponentContext).exitHandler();
 
     Mockito.verify(log, Mockito.times(1)).error(Mockito.anyString(), Mockito.eq(e));
+
+    Assert.assertEquals(1, metricsRegistry.getTimer("activity.activity.route.input.foo").getHistogram().getCount());
+  }
+
+  /**
+   * Test that the latency of a traced message is recorded for its route.
+   */
+  @Test
+  public void testHandlerTraced() {
+    component =
+        new BasicRosMessageRouterActivityComponent<String>("string", messageListener,
+            new RouteMessageTraceAccessor<String>() {
+              @Override
+              public String getTrace(String message) {
+                return message;
+              }
+
+              @Override
+              public String withTrace(String message, String trace) {
+                return trace;
+              }
+            });
+
+    configuration.setValue("space.activity.routes.inputs", "foo");
+    configuration.setValue("space.activity.route.input.foo", "bar");
+
+    component.setComponentContext(activityComponentContext);
+    component.configureComponent(configuration);
+
+    Mockito.when(activityComponentContext.canHandlerRun()).thenReturn(true);
+
+    timeProvider.setCurrentTime(1500);
+    component.handleNewIncomingMessage("foo", "1000;sensor:out");
+    component.handleNewIncomingMessage("foo", "");
+
+    Map<String, Map<String, Object>> report = new RouteLatencyCollector(metricsRegistry).getReport();
+    Assert.assertEquals(1, report.size());
+    Map<String, Object> routeReport = report.get("sensor:out>display:foo");
+    Assert.assertEquals(1L, routeReport.get(RouteLatencyCollector.REPORT_FIELD_COUNT));
+    Assert.assertEquals(500L, routeReport.get(RouteLatencyCollector.REPORT_FIELD_P50));
+
+    component.shutdownComponent();
+
+    Assert.assertTrue(new RouteLatencyCollector(metricsRegistry).getReport().isEmpty());
+    Assert.assertTrue(metricsRegistry.getSnapshot().isEmpty());
+  }
+
+  /**
+   * Test that turning on route tracing while metrics are disabled is warned about, since nothing will be reported.
+   */
+  @Test
+  public void testTracingWithoutMetricsWarns() {
+    Mockito.when(activityComponentContext.getMetricsRegistry()).thenReturn(DisabledMetricsRegistry.INSTANCE);
+
+    configuration.setValue("space.activity.routes.inputs", "foo");
+    configuration.setValue("space.activity.route.input.foo", "bar");
+    configuration.setValue("space.activity.route.trace.sample.interval", "10");
+
+    component.setComponentContext(activityComponentContext);
+    component.configureComponent(configuration);
+
+    Mockito.verify(log).warn(Mockito.contains(InteractiveSpacesEnvironment.CONFIGURATION_METRICS_ENABLE));
   }
 
   @Test
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.messaging.route;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link RouteTrace}.
+ *
+ * @author Keith M. Hughes
+ */
+public class RouteTraceTest {
+
+  /**
+   * Test that a trace survives being encoded and decoded as hops are added.
+   */
+  @Test
+  public void testEncodeDecode() {
+    RouteTrace trace = RouteTrace.newTrace(1234, RouteTrace.newHop("sensor", "out"));
+    trace = RouteTrace.decode(trace.encode()).addHop(RouteTrace.newHop("filter", "out"));
+
+    RouteTrace decoded = RouteTrace.decode(trace.encode());
+    assertEquals("1234;sensor:out,filter:out", trace.encode());
+    assertEquals(1234, decoded.getOriginTime());
+    assertEquals(Lists.newArrayList("sensor:out", "filter:out"), decoded.getHops());
+    assertEquals("sensor:out>filter:out>display:in", decoded.getRouteName(RouteTrace.newHop("display", "in")));
+  }
+
+  /**
+   * Test that reserved characters are removed from hops.
+   */
+  @Test
+  public void testHopReservedCharacters() {
+    assertEquals("a_b_c:d", RouteTrace.newHop("a;b,c", "d"));
+    assertEquals("a_b:c", RouteTrace.newHop("a>b", "c"));
+  }
+
+  /**
+   * Test that missing and malformed traces decode to nothing.
+   */
+  @Test
+  public void testDecodeNone() {
+    assertNull(RouteTrace.decode(null));
+    assertNull(RouteTrace.decode(RouteTrace.TRACE_NONE));
+    assertNull(RouteTrace.decode("1234"));
+    assertNull(RouteTrace.decode("1234;"));
+    assertNull(RouteTrace.decode("abc;sensor:out"));
+  }
+
+  /**
+   * Test that a trace stops once it has the maximum number of hops.
+   */
+  @Test
+  public void testMaximumHops() {
+    RouteTrace trace = RouteTrace.newTrace(0, "hop");
+    for (int i = 1; i < RouteTrace.HOPS_MAXIMUM; i++) {
+      trace = trace.addHop("hop");
+    }
+
+    assertEquals(RouteTrace.HOPS_MAXIMUM, trace.getHops().size());
+    assertNull(trace.addHop("hop"));
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.concurrency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import interactivespaces.system.InteractiveSpacesEnvironment;
+import interactivespaces.util.concurrency.RingBufferSequentialEventQueue.WaitStrategy;
+import interactivespaces.util.metrics.StandardMetricsRegistry;
+
+import com.google.common.collect.Lists;
+
+import org.apache.commons.logging.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.ros.concurrent.DefaultScheduledExecutorService;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for the {@link RingBufferSequentialEventQueue}.
+ *
+ * @author Keith M. Hughes
+ */
+public class RingBufferSequentialEventQueueTest {
+
+  private Log log;
+
+  private InteractiveSpacesEnvironment spaceEnvironment;
+
+  private ScheduledExecutorService executorService;
+
+  private RingBufferSequentialEventQueue queue;
+
+  @Before
+  public void setup() {
+    executorService = new DefaultScheduledExecutorService();
+
+    log = Mockito.mock(Log.class);
+    spaceEnvironment = Mockito.mock(InteractiveSpacesEnvironment.class);
+
+    Mockito.when(spaceEnvironment.getExecutorService()).thenReturn(executorService);
+    Mockito.when(spaceEnvironment.getMetricsRegistry()).thenReturn(new StandardMetricsRegistry());
+  }
+
+  @After
+  public void cleanup() {
+    if (queue != null) {
+      queue.shutdown();
+    }
+    executorService.shutdown();
+  }
+
+  /**
+   * Test that events from several producers all run, in order for each producer, with each wait strategy.
+   */
+  @Test
+  public void testOrderPerProducer() throws Exception {
+    for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+      queue = new RingBufferSequentialEventQueue("test", 64, 8, waitStrategy, spaceEnvironment, log);
+      queue.startup();
+
+      int numProducers = 4;
+      int numEvents = 10000;
+      final List<List<Integer>> results = Lists.newArrayList();
+      final CountDownLatch done = new CountDownLatch(numProducers * numEvents);
+      for (int p = 0; p < numProducers; p++) {
+        final List<Integer> result = Lists.newArrayList();
+        results.add(result);
+        startProducer(result, numEvents, done);
+      }
+
+      assertTrue(waitStrategy.toString(), done.await(10, TimeUnit.SECONDS));
+      for (List<Integer> result : results) {
+        List<Integer> sorted = Lists.newArrayList(result);
+        Collections.sort(sorted);
+        assertEquals(sorted, result);
+        assertEquals(numEvents, result.size());
+      }
+
+      queue.shutdown();
+    }
+  }
+
+  /**
+   * Test that a full queue refuses offered events until room is made.
+   */
+  @Test
+  public void testFull() throws Exception {
+    queue = new RingBufferSequentialEventQueue("test", 3, 2, WaitStrategy.BLOCK, spaceEnvironment, log);
+    assertEquals(4, queue.getCapacity());
+
+    final CountDownLatch done = new CountDownLatch(5);
+    Runnable event = new Runnable() {
+      @Override
+      public void run() {
+        done.countDown();
+      }
+    };
+    for (int i = 0; i < 4; i++) {
+      assertTrue(queue.offerEvent(event));
+    }
+    assertFalse(queue.offerEvent(event));
+    assertEquals(0, queue.getRemainingCapacity());
+
+    queue.startup();
+    queue.addEvent(event);
+
+    assertTrue(done.await(1, TimeUnit.SECONDS));
+  }
+
+  /**
+   * Test that an event added by an event on a full queue is dropped rather than waiting forever.
+   */
+  @Test
+  public void testFullFromQueueThread() throws Exception {
+    queue = new RingBufferSequentialEventQueue("test", 1, 1, WaitStrategy.BLOCK, spaceEnvironment, log);
+
+    final CountDownLatch done = new CountDownLatch(2);
+    final Runnable noop = new Runnable() {
+      @Override
+      public void run() {
+        done.countDown();
+      }
+    };
+    queue.addEvent(new Runnable() {
+      @Override
+      public void run() {
+        queue.addEvent(noop);
+        queue.addEvent(noop);
+        done.countDown();
+      }
+    });
+    queue.startup();
+
+    assertTrue(done.await(1, TimeUnit.SECONDS));
+    Mockito.verify(log).error(Mockito.anyString());
+  }
+
+  /**
+   * Start a producer which adds events recording their number.
+   *
+   * @param result
+   *          the list the numbers are recorded in
+   * @param numEvents
+   *          the number of events to add
+   * @param done
+   *          counted down as each event runs
+   */
+  private void startProducer(final List<Integer> result, final int numEvents, final CountDownLatch done) {
+    new Thread(new Runnable() {
+      @Override
+      public void run() {
+        for (int i = 0; i < numEvents; i++) {
+          final int number = i;
+          queue.addEvent(new Runnable() {
+            @Override
+            public void run() {
+              result.add(number);
+              done.countDown();
+            }
+          });
+        }
+      }
+    }).start();
+  }
+}
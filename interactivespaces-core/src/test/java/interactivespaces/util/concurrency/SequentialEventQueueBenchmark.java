@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.concurrency;
+
+import interactivespaces.system.InteractiveSpacesEnvironment;
+import interactivespaces.system.StandaloneInteractiveSpacesEnvironment;
+import interactivespaces.util.concurrency.RingBufferSequentialEventQueue.WaitStrategy;
+import interactivespaces.util.metrics.Histogram;
+import interactivespaces.util.metrics.LogLinearHistogram;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A benchmark comparing the throughput and latency of the event queues.
+ *
+ * <p>
+ * The throughput run has several producer threads adding events as fast as they can. The latency run has the same
+ * producers adding events with a pause between each, and measures the time from adding each event to running it. Each
+ * queue gets a warmup run which is not printed.
+ *
+ * <p>
+ * Run with optional arguments {@code producers events-per-producer}.
+ *
+ * @author Keith M. Hughes
+ */
+public class SequentialEventQueueBenchmark {
+
+  /**
+   * The pause between events in the latency run, in nanoseconds.
+   */
+  public static final long LATENCY_PAUSE = TimeUnit.MICROSECONDS.toNanos(20);
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args
+   *          the optional number of producers and events per producer
+   *
+   * @throws Exception
+   *           the benchmark failed
+   */
+  public static void main(String[] args) throws Exception {
+    int numProducers = (args.length > 0) ? Integer.parseInt(args[0]) : 4;
+    int numEvents = (args.length > 1) ? Integer.parseInt(args[1]) : 500000;
+
+    StandaloneInteractiveSpacesEnvironment spaceEnvironment =
+        StandaloneInteractiveSpacesEnvironment.newStandaloneInteractiveSpacesEnvironment();
+    try {
+      SequentialEventQueueBenchmark benchmark = new SequentialEventQueueBenchmark();
+
+      benchmark.run("simple", new SimpleSequentialEventQueue(spaceEnvironment, spaceEnvironment.getLog()),
+          numProducers, numEvents);
+      benchmark.run("accepting priority", new AcceptingPriorityAdapter(spaceEnvironment), numProducers, numEvents);
+      for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+        benchmark.run("ring buffer, " + waitStrategy.toString().toLowerCase(), new RingBufferSequentialEventQueue(
+            "benchmark", RingBufferSequentialEventQueue.CAPACITY_DEFAULT,
+            RingBufferSequentialEventQueue.MAX_BATCH_SIZE_DEFAULT, waitStrategy, spaceEnvironment,
+            spaceEnvironment.getLog()), numProducers, numEvents);
+      }
+    } finally {
+      spaceEnvironment.shutdown();
+    }
+  }
+
+  /**
+   * Run the throughput and latency benchmarks against a queue and print the results.
+   *
+   * @param name
+   *          the name of the queue
+   * @param queue
+   *          the queue
+   * @param numProducers
+   *          the number of producer threads
+   * @param numEvents
+   *          the number of events each producer adds
+   *
+   * @throws Exception
+   *           the run failed
+   */
+  public void run(String name, SequentialEventQueue queue, int numProducers, int numEvents) throws Exception {
+    queue.startup();
+    try {
+      runThroughput(queue, numProducers, numEvents);
+      long elapsed = runThroughput(queue, numProducers, numEvents);
+      long totalEvents = (long) numProducers * numEvents;
+      System.out.format("%-22s throughput %10d events in %8.1f ms, %12.1f events/sec%n", name, totalEvents,
+          elapsed / 1e6, totalEvents / (elapsed / 1e9));
+
+      int numLatencyEvents = numEvents / 10;
+      runLatency(queue, numProducers, numLatencyEvents);
+      Histogram latencies = runLatency(queue, numProducers, numLatencyEvents);
+      System.out.format("%-22s latency    p50 %8.1f us, p99 %8.1f us, p99.9 %8.1f us%n", name,
+          latencies.getValueAtPercentile(50.0) / 1e3, latencies.getValueAtPercentile(99.0) / 1e3,
+          latencies.getValueAtPercentile(99.9) / 1e3);
+    } finally {
+      queue.shutdown();
+    }
+  }
+
+  /**
+   * Have producers add events as fast as they can.
+   *
+   * @param queue
+   *          the queue
+   * @param numProducers
+   *          the number of producer threads
+   * @param numEvents
+   *          the number of events each producer adds
+   *
+   * @return the time taken for all events to run, in nanoseconds
+   *
+   * @throws InterruptedException
+   *           the benchmark was interrupted
+   */
+  public long runThroughput(final SequentialEventQueue queue, int numProducers, final int numEvents)
+      throws InterruptedException {
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(numProducers);
+    for (int p = 0; p < numProducers; p++) {
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          Runnable event = new Runnable() {
+            @Override
+            public void run() {
+              // Nothing to do.
+            }
+          };
+          Runnable lastEvent = new Runnable() {
+            @Override
+            public void run() {
+              done.countDown();
+            }
+          };
+
+          try {
+            start.await();
+            for (int i = 1; i < numEvents; i++) {
+              queue.addEvent(event);
+            }
+            queue.addEvent(lastEvent);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      }).start();
+    }
+
+    long startTime = System.nanoTime();
+    start.countDown();
+    done.await();
+
+    return System.nanoTime() - startTime;
+  }
+
+  /**
+   * Have producers add events with a pause between each and measure how long each event waits to run.
+   *
+   * @param queue
+   *          the queue
+   * @param numProducers
+   *          the number of producer threads
+   * @param numEvents
+   *          the number of events each producer adds
+   *
+   * @return the histogram of the time each event waited, in nanoseconds
+   *
+   * @throws InterruptedException
+   *           the benchmark was interrupted
+   */
+  public Histogram runLatency(final SequentialEventQueue queue, int numProducers, final int numEvents)
+      throws InterruptedException {
+    // Only the queue thread records in the histogram.
+    final Histogram latencies = new LogLinearHistogram();
+    final CountDownLatch done = new CountDownLatch(numProducers * numEvents);
+    for (int p = 0; p < numProducers; p++) {
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int i = 0; i < numEvents; i++) {
+            final long addTime = System.nanoTime();
+            queue.addEvent(new Runnable() {
+              @Override
+              public void run() {
+                latencies.record(System.nanoTime() - addTime);
+                done.countDown();
+              }
+            });
+            LockSupport.parkNanos(LATENCY_PAUSE);
+          }
+        }
+      }).start();
+    }
+
+    done.await();
+
+    return latencies;
+  }
+
+  /**
+   * Makes the {@link AcceptingPriorityEventQueue} look like a sequential event queue.
+   *
+   * @author Keith M. Hughes
+   */
+  private static class AcceptingPriorityAdapter implements SequentialEventQueue {
+
+    /**
+     * The queue being adapted.
+     */
+    private final AcceptingPriorityEventQueue queue;
+
+    /**
+     * Construct an adapter.
+     *
+     * @param spaceEnvironment
+     *          the space environment the queue will use
+     */
+    public AcceptingPriorityAdapter(InteractiveSpacesEnvironment spaceEnvironment) {
+      queue = new AcceptingPriorityEventQueue(spaceEnvironment, spaceEnvironment.getLog());
+    }
+
+    @Override
+    public void startup() {
+      queue.setAccepting(true);
+      queue.startup();
+    }
+
+    @Override
+    public void shutdown() {
+      queue.stopAcceptingAndShutdown();
+    }
+
+    @Override
+    public void addEvent(Runnable event) {
+      queue.addEvent(event);
+    }
+  }
+}
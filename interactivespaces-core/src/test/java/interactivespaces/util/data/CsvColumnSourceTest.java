@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.data;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Tests for the {@link CsvColumnSource}.
+ *
+ * @author Keith M. Hughes
+ */
+public class CsvColumnSourceTest {
+
+  /**
+   * Test plain columns.
+   */
+  @Test
+  public void testPlainColumns() {
+    assertEquals(Lists.newArrayList("a", "b", "c"), readColumns("a,b,c"));
+  }
+
+  /**
+   * Test that a quoted final column does not add an empty column.
+   */
+  @Test
+  public void testTrailingQuotedColumn() {
+    assertEquals(Lists.newArrayList("a", "b"), readColumns("a,\"b\""));
+    assertEquals(Lists.newArrayList("a", ""), readColumns("a,\"\""));
+  }
+
+  /**
+   * Test that an empty final column is read.
+   */
+  @Test
+  public void testTrailingEmptyColumn() {
+    assertEquals(Lists.newArrayList("a", ""), readColumns("a,"));
+    assertEquals(Lists.newArrayList("\"a\"", ""), readColumns("\"\"\"a\"\"\","));
+  }
+
+  /**
+   * Test quoted columns containing separators and quotes.
+   */
+  @Test
+  public void testQuotedColumns() {
+    assertEquals(Lists.newArrayList("x,\"y\"", "z"), readColumns("\"x,\"\"y\"\"\",z"));
+  }
+
+  /**
+   * Read all columns of a line.
+   *
+   * @param line
+   *          the line
+   *
+   * @return the columns
+   */
+  private List<String> readColumns(String line) {
+    CsvColumnSource columnSource = new CsvColumnSource();
+    columnSource.setLine(line);
+
+    List<String> columns = Lists.newArrayList();
+    while (columnSource.hasMoreColumns()) {
+      columns.add(columnSource.getColumn());
+    }
+
+    return columns;
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.data.columnar;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import interactivespaces.util.io.FileSupport;
+import interactivespaces.util.io.FileSupportImpl;
+import interactivespaces.util.sampling.ColumnarFileSampledDataSequenceLoader;
+import interactivespaces.util.sampling.JsonFileSampledDataSequenceLoader;
+import interactivespaces.util.sampling.SampledDataSequence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.IntBuffer;
+
+/**
+ * Tests for the {@link ColumnarFile}, {@link ColumnarFileWriter}, and {@link ColumnarFileConverter}.
+ *
+ * @author Keith M. Hughes
+ */
+public class ColumnarFileTest {
+
+  private final FileSupport fileSupport = FileSupportImpl.INSTANCE;
+
+  private File baseDir;
+
+  @Before
+  public void setup() {
+    baseDir = fileSupport.createTempDirectory(new File(System.getProperty("java.io.tmpdir")), "columnar");
+  }
+
+  @After
+  public void cleanup() {
+    fileSupport.deleteDirectoryContents(baseDir);
+    fileSupport.delete(baseDir);
+  }
+
+  /**
+   * Test that columns of every type and of different lengths are read back.
+   */
+  @Test
+  public void testRoundTrip() {
+    File file = new File(baseDir, "test.col");
+    new ColumnarFileWriter().addIntColumn("ints", new int[] { 1, -2, 3 })
+        .addStringColumn("strings", new String[] { "a", null, "\u00e9t\u00e9", "" })
+        .addLongColumn("longs", new long[] { Long.MAX_VALUE }).addDoubleColumn("doubles", new double[] { 1.5, -0.25 })
+        .write(file);
+
+    ColumnarFile columnarFile = new ColumnarFile(file);
+    assertEquals(4, columnarFile.getColumnCount());
+
+    int ints = columnarFile.getColumnIndex("ints");
+    assertEquals(ColumnType.INT, columnarFile.getColumnType(ints));
+    assertEquals(3, columnarFile.getColumnLength(ints));
+    assertEquals(-2, columnarFile.getInt(ints, 1));
+    IntBuffer intColumn = columnarFile.getIntColumn(ints);
+    assertEquals(3, intColumn.remaining());
+    assertEquals(3, intColumn.get(2));
+
+    int strings = columnarFile.getColumnIndex("strings");
+    assertEquals("a", columnarFile.getString(strings, 0));
+    assertEquals("", columnarFile.getString(strings, 1));
+    assertEquals("\u00e9t\u00e9", columnarFile.getString(strings, 2));
+    assertEquals("", columnarFile.getString(strings, 3));
+
+    assertEquals(Long.MAX_VALUE, columnarFile.getLong(columnarFile.getColumnIndex("longs"), 0));
+    assertEquals(-0.25, columnarFile.getDouble(columnarFile.getColumnIndex("doubles"), 1), 0);
+    assertEquals(-1, columnarFile.getColumnIndex("missing"));
+  }
+
+  /**
+   * Test that rewriting a file leaves a reader which already mapped it with its original contents.
+   */
+  @Test
+  public void testRewriteMappedFile() {
+    File file = new File(baseDir, "test.col");
+    new ColumnarFileWriter().addIntColumn("ints", new int[] { 1, 2, 3 }).write(file);
+    ColumnarFile original = new ColumnarFile(file);
+
+    new ColumnarFileWriter().addIntColumn("ints", new int[] { 4 }).write(file);
+
+    assertEquals(3, original.getColumnLength(0));
+    assertEquals(3, original.getInt(0, 2));
+    ColumnarFile rewritten = new ColumnarFile(file);
+    assertEquals(1, rewritten.getColumnLength(0));
+    assertEquals(4, rewritten.getInt(0, 0));
+    assertEquals(1, baseDir.listFiles().length);
+  }
+
+  /**
+   * Test that CSV columns get the narrowest type holding their values.
+   */
+  @Test
+  public void testConvertCsv() {
+    File csvFile = new File(baseDir, "test.csv");
+    fileSupport.writeFile(csvFile, "id,time,value,\"label\"\n1,10000000000,1.5,\"a, b\"\n2,2,3,\n");
+    File file = new File(baseDir, "test.col");
+    new ColumnarFileConverter().convertCsv(csvFile, file);
+
+    ColumnarFile columnarFile = new ColumnarFile(file);
+    assertEquals(4, columnarFile.getColumnCount());
+    assertEquals(3, columnarFile.getColumnIndex("label"));
+    assertEquals(ColumnType.INT, columnarFile.getColumnType(0));
+    assertEquals(ColumnType.LONG, columnarFile.getColumnType(1));
+    assertEquals(ColumnType.DOUBLE, columnarFile.getColumnType(2));
+    assertEquals(ColumnType.STRING, columnarFile.getColumnType(3));
+    assertEquals(2, columnarFile.getColumnLength(0));
+    assertEquals(10000000000L, columnarFile.getLong(1, 0));
+    assertEquals(3.0, columnarFile.getDouble(2, 1), 0);
+    assertEquals("a, b", columnarFile.getString(3, 0));
+    assertEquals("", columnarFile.getString(3, 1));
+  }
+
+  /**
+   * Test that a JSON sampled data sequence converts to the same sequence.
+   */
+  @Test
+  public void testConvertSampledDataSequence() {
+    SampledDataSequence sequence = new SampledDataSequence();
+    sequence.addFrame("left", new int[] { 1, 2, 3 }, 1000);
+    sequence.addFrame("right", new int[0], 1001);
+    sequence.addFrame("left", new int[] { 4 }, 1002);
+
+    File jsonFile = new File(baseDir, "sequence.json");
+    new JsonFileSampledDataSequenceLoader().save(jsonFile, sequence);
+    File file = new File(baseDir, "sequence.col");
+    new ColumnarFileConverter().convertSampledDataSequence(jsonFile, file);
+
+    SampledDataSequence loaded = new SampledDataSequence();
+    assertEquals(3, new ColumnarFileSampledDataSequenceLoader().load(file, loaded));
+    for (int i = 0; i < 3; i++) {
+      SampledDataSequence.SampledDataFrame expected = sequence.getFrames().get(i);
+      SampledDataSequence.SampledDataFrame actual = loaded.getFrames().get(i);
+      assertEquals(expected.getSource(), actual.getSource());
+      assertEquals(expected.getTimestamp(), actual.getTimestamp());
+      assertArrayEquals(expected.getSamples(), actual.getSamples());
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.data.columnar;
+
+import interactivespaces.util.io.FileSupport;
+import interactivespaces.util.io.FileSupportImpl;
+import interactivespaces.util.sampling.ColumnarFileSampledDataSequenceLoader;
+import interactivespaces.util.sampling.JsonFileSampledDataSequenceLoader;
+import interactivespaces.util.sampling.SampledDataSequence;
+import interactivespaces.util.sampling.SampledDataSequenceLoader;
+
+import java.io.File;
+import java.util.Random;
+
+/**
+ * A benchmark comparing loading a sampled data sequence from a JSON file and from a columnar file.
+ *
+ * <p>
+ * The sequence is made of frames of random samples, like a recording of a sensor grid. Each loader loads the sequence
+ * a number of times after a warmup load.
+ *
+ * <p>
+ * Run with optional arguments {@code frames samples-per-frame loads}.
+ *
+ * @author Keith M. Hughes
+ */
+public class ColumnarSampledDataBenchmark {
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args
+   *          the optional number of frames, samples per frame, and loads
+   */
+  public static void main(String[] args) {
+    int numFrames = (args.length > 0) ? Integer.parseInt(args[0]) : 10000;
+    int numSamples = (args.length > 1) ? Integer.parseInt(args[1]) : 64;
+    int numLoads = (args.length > 2) ? Integer.parseInt(args[2]) : 5;
+
+    SampledDataSequence sequence = new SampledDataSequence();
+    Random random = new Random(42);
+    for (int frame = 0; frame < numFrames; frame++) {
+      int[] samples = new int[numSamples];
+      for (int i = 0; i < numSamples; i++) {
+        samples[i] = random.nextInt(1024);
+      }
+      sequence.addFrame("sensor" + (frame % 4), samples, 1428430829000L + frame * 33);
+    }
+
+    FileSupport fileSupport = FileSupportImpl.INSTANCE;
+    File baseDir = fileSupport.createTempDirectory(new File(System.getProperty("java.io.tmpdir")), "columnarbench");
+    try {
+      ColumnarSampledDataBenchmark benchmark = new ColumnarSampledDataBenchmark();
+      benchmark.run("json", new JsonFileSampledDataSequenceLoader(), new File(baseDir, "sequence.json"), sequence,
+          numLoads);
+      benchmark.run("columnar", new ColumnarFileSampledDataSequenceLoader(), new File(baseDir, "sequence.col"),
+          sequence, numLoads);
+    } finally {
+      fileSupport.deleteDirectoryContents(baseDir);
+      fileSupport.delete(baseDir);
+    }
+  }
+
+  /**
+   * Save the sequence with a loader, time loading it, and print the results.
+   *
+   * @param name
+   *          the name of the run
+   * @param loader
+   *          the loader
+   * @param file
+   *          the file to save to
+   * @param sequence
+   *          the sequence
+   * @param numLoads
+   *          the number of loads to time
+   */
+  public void run(String name, SampledDataSequenceLoader loader, File file, SampledDataSequence sequence,
+      int numLoads) {
+    loader.save(file, sequence);
+
+    SampledDataSequence loaded = new SampledDataSequence();
+    loader.load(file, loaded);
+
+    long startTime = System.nanoTime();
+    for (int i = 0; i < numLoads; i++) {
+      loader.load(file, loaded);
+    }
+    long elapsed = System.nanoTime() - startTime;
+
+    System.out.format("%-10s file %10d bytes, %8.1f ms per load of %d frames%n", name, file.length(), elapsed / 1e6
+        / numLoads, loaded.getFrames().size());
+  }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.data.dynamic;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for dynamic objects created from generated classes.
+ *
+ * @author Keith M. Hughes
+ */
+public class GeneratedInterfaceMapTest {
+
+  final HashMap<String, Object> map = new HashMap<String, Object>();
+  final PossibleProperties q = InterfaceMap.createGeneratedInstance(PossibleProperties.class, map);
+
+  @Test
+  public void factory_cached() {
+    assertSame(InterfaceMap.getGeneratedFactory(PossibleProperties.class),
+        InterfaceMap.getGeneratedFactory(PossibleProperties.class));
+  }
+
+  @Test
+  public void factory_doesNotPinClassLoader() throws Exception {
+    ClassLoader loader = new IsolatingClassLoader(UnloadableProperties.class);
+    Class<?> interfaceClass = loader.loadClass(UnloadableProperties.class.getName());
+    assertNotSame(UnloadableProperties.class, interfaceClass);
+    assertTrue(InterfaceMap.getGeneratedFactory(interfaceClass).newInstance(map) instanceof BackingMapDynamicObject);
+
+    WeakReference<ClassLoader> loaderReference = new WeakReference<ClassLoader>(loader);
+    loader = null;
+    interfaceClass = null;
+    for (int i = 0; i < 100 && loaderReference.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(loaderReference.get());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void factory_notInterface_throwsException() {
+    InterfaceMap.getGeneratedFactory(HashMap.class);
+  }
+
+  @Test
+  public void isDynamicObject_true() {
+    assertTrue(InterfaceMap.isDynamicObject(q));
+    assertEquals(PossibleProperties.class, InterfaceMap.getClass(q));
+    assertSame(map, InterfaceMap.getBackingMap(q));
+  }
+
+  @Test
+  public void settersAndGetters_ok() {
+    q.setString("hello");
+    q.setLong(5L);
+    map.put("anotherLong", 7);
+    q.setDouble(null);
+    q.setStringList(asList("one", "two"));
+
+    assertEquals("hello", map.get("string"));
+    assertEquals("hello", q.getString());
+    assertEquals(Long.valueOf(5), q.getLong());
+    assertEquals(Long.valueOf(7), q.getAnotherLong());
+    assertNull(q.getDouble());
+    assertFalse(map.containsKey("double"));
+    assertEquals(asList("one", "two"), q.getStringList());
+  }
+
+  @Test
+  public void primitives_ok() {
+    PrimitiveProperties p = InterfaceMap.createGeneratedInstance(PrimitiveProperties.class, map);
+
+    assertFalse(p.isPrimitiveBoolean());
+    p.setPrimitiveBoolean(true);
+    assertTrue(p.isPrimitiveBoolean());
+
+    p.setPrimitiveInt(Integer.MAX_VALUE);
+    assertEquals(Integer.MAX_VALUE, map.get("primitiveInt"));
+    assertEquals(Integer.MAX_VALUE, p.getPrimitiveInt());
+
+    map.put("primitiveLong", 3);
+    assertEquals(3L, p.getPrimitiveLong());
+
+    p.setPrimitiveDouble(Math.PI);
+    assertEquals(Math.PI, p.getPrimitiveDouble(), 0.0);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void getPrimitiveInt_noValue_throwsException() {
+    q.getPrimitiveInt();
+  }
+
+  @Test
+  public void innerObjects_generated() {
+    JavaBeanProperties inner = InterfaceMap.createInstance(JavaBeanProperties.class);
+    inner.setString("inner");
+    q.setInner(inner);
+
+    assertSame(InterfaceMap.getBackingMap(inner), map.get("inner"));
+    JavaBeanProperties actual = q.getInner();
+    assertTrue(actual instanceof BackingMapDynamicObject);
+    assertEquals("inner", actual.getString());
+    assertEquals(inner, actual);
+
+    Map<String, Object> listElement = new HashMap<String, Object>();
+    listElement.put("string", "element");
+    map.put("listOfW", asList(listElement));
+    List<JavaBeanProperties> list = q.getListOfW();
+    assertEquals("element", list.get(0).getString());
+  }
+
+  @Test
+  public void equalsAndHashCode_sameAsProxy() {
+    InterfaceMapTest.setSomeValues(q);
+    PossibleProperties proxy = InterfaceMap.createInstance(PossibleProperties.class, new HashMap<String, Object>(map));
+    PossibleProperties generated =
+        InterfaceMap.createGeneratedInstance(PossibleProperties.class, new HashMap<String, Object>(map));
+
+    assertEquals(q, generated);
+    assertEquals(q, proxy);
+    assertEquals(proxy, q);
+    assertEquals(proxy.hashCode(), q.hashCode());
+    assertEquals(map.hashCode(), q.hashCode());
+    assertEquals(map.toString(), q.toString());
+    assertFalse(q.equals(null));
+
+    JavaBeanProperties otherType =
+        InterfaceMap.createGeneratedInstance(JavaBeanProperties.class, new HashMap<String, Object>(map));
+    assertFalse(q.equals(otherType));
+    assertFalse(otherType.equals(q));
+
+    InterfaceMapTest.setSomeOtherValues(generated);
+    assertFalse(q.equals(generated));
+  }
+
+  @Test
+  public void nonPublicInterface_proxy() {
+    HiddenProperties p = InterfaceMap.createGeneratedInstance(HiddenProperties.class, map);
+
+    p.setName("hidden");
+    assertEquals("hidden", map.get("name"));
+    assertEquals("hidden", p.getName());
+    assertTrue(Proxy.isProxyClass(p.getClass()));
+    assertFalse(GeneratedDynamicObjectFactory.canGenerate(HiddenProperties.class));
+  }
+
+  @Test
+  public void nonPublicInnerObject_proxy() {
+    Map<String, Object> inner = new HashMap<String, Object>();
+    inner.put("name", "inner");
+    map.put("hiddenList", asList(inner));
+
+    HiddenInnerProperties p = InterfaceMap.createGeneratedInstance(HiddenInnerProperties.class, map);
+
+    assertTrue(p instanceof BackingMapDynamicObject);
+    HiddenProperties hidden = p.getHiddenList().get(0);
+    assertTrue(Proxy.isProxyClass(hidden.getClass()));
+    assertEquals("inner", hidden.getName());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void generate_nonPublicInterface_throwsException() {
+    GeneratedDynamicObjectFactory.newFactory(HiddenProperties.class);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void setterReturnTypeIsNotVoid_throwsException() {
+    q.setterIsInvalid("hello");
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void doesNotStartWithIsGetSet_throwsException() {
+    q.size();
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void noPropertyName_throwsException() {
+    q.get();
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void nativeVoidReturnType_throwsException() {
+    q.getNativeVoid();
+  }
+
+  /**
+   * An interface which is not public, so no class can be generated for it.
+   */
+  interface HiddenProperties {
+    String getName();
+
+    void setName(String name);
+  }
+
+  /**
+   * A class loader which loads its own copy of a single class and delegates everything else.
+   */
+  private static class IsolatingClassLoader extends URLClassLoader {
+
+    /**
+     * Name of the class to load a copy of.
+     */
+    private final String className;
+
+    /**
+     * @param isolatedClass
+     *          the class to load a copy of
+     */
+    public IsolatingClassLoader(Class<?> isolatedClass) {
+      super(new URL[] { isolatedClass.getProtectionDomain().getCodeSource().getLocation() },
+          isolatedClass.getClassLoader());
+      this.className = isolatedClass.getName();
+    }
+
+    @Override
+    protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!name.equals(className)) {
+        return super.loadClass(name, resolve);
+      }
+
+      Class<?> loadedClass = findLoadedClass(name);
+      return loadedClass != null ? loadedClass : findClass(name);
+    }
+  }
+
+  /**
+   * A public interface with a property holding dynamic objects of an interface which is not public.
+   */
+  public interface HiddenInnerProperties {
+    List<HiddenProperties> getHiddenList();
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.data.dynamic;
+
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+
+/**
+ * A benchmark comparing the proxy and the generated dynamic objects of the {@link InterfaceMap}.
+ *
+ * <p>
+ * Each run creates a dynamic object on a map, then repeatedly sets and gets a string and an {@code int} property. A
+ * number of warmup rounds are run and thrown away before the measured rounds, so the JIT compiler has settled.
+ *
+ * <p>
+ * Run with optional arguments {@code rounds operations-per-round}.
+ *
+ * @author Keith M. Hughes
+ */
+public class InterfaceMapBenchmark {
+
+  /**
+   * The number of rounds run before measuring.
+   */
+  public static final int WARMUP_ROUNDS = 5;
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args
+   *          the optional number of rounds and operations per round
+   */
+  public static void main(String[] args) {
+    int numRounds = (args.length > 0) ? Integer.parseInt(args[0]) : 10;
+    int numOperations = (args.length > 1) ? Integer.parseInt(args[1]) : 1000000;
+
+    InterfaceMapBenchmark benchmark = new InterfaceMapBenchmark();
+    for (int round = -WARMUP_ROUNDS; round < numRounds; round++) {
+      boolean measured = round >= 0;
+      benchmark.run("proxy", InterfaceMap.createInstance(BenchmarkObject.class, newMap()), numOperations, measured);
+      benchmark.run("generated", InterfaceMap.createGeneratedInstance(BenchmarkObject.class, newMap()),
+          numOperations, measured);
+    }
+  }
+
+  /**
+   * Create a new backing map.
+   *
+   * @return the map
+   */
+  private static Map<String, Object> newMap() {
+    return Maps.newHashMap();
+  }
+
+  /**
+   * Run one round against a dynamic object and print the results.
+   *
+   * @param name
+   *          the name of the run
+   * @param object
+   *          the dynamic object
+   * @param numOperations
+   *          the number of set and get pairs to run
+   * @param print
+   *          {@code true} if the results should be printed
+   *
+   * @return a value depending on the properties read, so the reads cannot be optimized away
+   */
+  public long run(String name, BenchmarkObject object, int numOperations, boolean print) {
+    long total = 0;
+    long startTime = System.nanoTime();
+    for (int i = 0; i < numOperations; i++) {
+      object.setCount(i);
+      object.setName("name");
+      total += object.getCount() + object.getName().length();
+    }
+    long elapsed = System.nanoTime() - startTime;
+
+    if (print) {
+      System.out.format("%-10s %10d operations in %8.1f ms, %8.1f ns/operation%n", name, numOperations,
+          elapsed / 1e6, (double) elapsed / numOperations);
+    }
+
+    return total;
+  }
+
+  /**
+   * The dynamic object used in the benchmark.
+   *
+   * @author Keith M. Hughes
+   */
+  public interface BenchmarkObject {
+
+    /**
+     * Get the name.
+     *
+     * @return the name
+     */
+    String getName();
+
+    /**
+     * Set the name.
+     *
+     * @param name
+     *          the name
+     */
+    void setName(String name);
+
+    /**
+     * Get the count.
+     *
+     * @return the count
+     */
+    int getCount();
+
+    /**
+     * Set the count.
+     *
+     * @param count
+     *          the count
+     */
+    void setCount(int count);
+  }
+}
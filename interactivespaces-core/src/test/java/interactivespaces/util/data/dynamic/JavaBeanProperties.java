@@ -23,7 +23,7 @@ import java.util.List;
  *
  * @author Oleksandr Kelepko
  */
-interface JavaBeanProperties extends GenericProperty<Integer> {
+public interface JavaBeanProperties extends GenericProperty<Integer> {
 
   Integer getAnotherInt();
 
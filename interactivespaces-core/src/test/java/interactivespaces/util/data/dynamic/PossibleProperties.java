@@ -25,7 +25,7 @@ import java.util.Map;
  *
  * @author Oleksandr Kelepko
  */
-interface PossibleProperties extends JavaBeanProperties, InvalidProperties, PrimitiveProperties {
+public interface PossibleProperties extends JavaBeanProperties, InvalidProperties, PrimitiveProperties {
   List<JavaBeanProperties> getListOfW();
 
   Map<String, Object> getMap();
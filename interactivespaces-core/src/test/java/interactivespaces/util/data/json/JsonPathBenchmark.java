@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.data.json;
+
+import org.codehaus.jackson.JsonFactory;
+
+import java.util.Map;
+
+/**
+ * A benchmark comparing ways of pulling several fields out of a route message.
+ *
+ * <p>
+ * The message is typical of a sensor activity publishing skeleton positions. Each run pulls the same fields out of
+ * every message, either from the parsed map with {@link JsonNavigator#traversePath(String)} or with {@link JsonPath},
+ * or straight from the message string with streaming parsers, one per field or one for all fields. Warmup rounds are
+ * thrown away.
+ *
+ * <p>
+ * Run with optional arguments {@code rounds messages-per-round}.
+ *
+ * @author Keith M. Hughes
+ */
+public class JsonPathBenchmark {
+
+  /**
+   * The number of rounds run before measuring.
+   */
+  public static final int WARMUP_ROUNDS = 5;
+
+  /**
+   * The message the fields are pulled from.
+   */
+  public static final String MESSAGE = "{\"type\":\"skeleton\",\"timestamp\":1428430829000,"
+      + "\"source\":{\"host\":\"display-1\",\"activity\":\"kinect.tracker\"},\"data\":{\"sensor\":\"kinect1\","
+      + "\"frame\":1833,\"skeletons\":[{\"id\":4,\"tracked\":true,\"joints\":{\"head\":{\"x\":0.21,\"y\":0.73,"
+      + "\"z\":2.15},\"handLeft\":{\"x\":-0.31,\"y\":0.12,\"z\":2.01},\"handRight\":{\"x\":0.52,\"y\":0.18,"
+      + "\"z\":1.94}}}]}}";
+
+  /**
+   * The paths of the fields pulled out of every message.
+   */
+  public static final String[] PATHS = { "type", "data.sensor", "data.skeletons.[0].id",
+    "data.skeletons.[0].joints.head.x", "data.skeletons.[0].joints.handRight.z" };
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args
+   *          the optional number of rounds and messages per round
+   *
+   * @throws Exception
+   *           the benchmark failed
+   */
+  public static void main(String[] args) throws Exception {
+    int numRounds = (args.length > 0) ? Integer.parseInt(args[0]) : 10;
+    int numMessages = (args.length > 1) ? Integer.parseInt(args[1]) : 100000;
+
+    JsonPathBenchmark benchmark = new JsonPathBenchmark();
+    for (int round = -WARMUP_ROUNDS; round < numRounds; round++) {
+      boolean measured = round >= 0;
+      benchmark.print("parsed, string paths", benchmark.runStringPaths(numMessages), numMessages, measured);
+      benchmark.print("parsed, compiled", benchmark.runCompiled(numMessages), numMessages, measured);
+      benchmark.print("streaming, per path", benchmark.runStreaming(numMessages), numMessages, measured);
+      benchmark.print("streaming, one pass", benchmark.runStreamingOnePass(numMessages), numMessages, measured);
+    }
+  }
+
+  /**
+   * The mapper for parsing messages.
+   */
+  private final JsonMapper mapper = StandardJsonMapper.INSTANCE;
+
+  /**
+   * The factory for streaming parsers.
+   */
+  private final JsonFactory jsonFactory = new JsonFactory();
+
+  /**
+   * The compiled paths.
+   */
+  private final JsonPath[] compiledPaths;
+
+  /**
+   * A value depending on every field read, so the reads cannot be optimized away.
+   */
+  private int sink;
+
+  /**
+   * Construct a benchmark.
+   */
+  public JsonPathBenchmark() {
+    compiledPaths = new JsonPath[PATHS.length];
+    for (int i = 0; i < PATHS.length; i++) {
+      compiledPaths[i] = JsonPath.compile(PATHS[i]);
+    }
+  }
+
+  /**
+   * Parse each message and traverse the string paths with a navigator.
+   *
+   * @param numMessages
+   *          the number of messages
+   *
+   * @return the elapsed time in nanoseconds
+   */
+  public long runStringPaths(int numMessages) {
+    long startTime = System.nanoTime();
+    for (int i = 0; i < numMessages; i++) {
+      JsonNavigator navigator = new StandardJsonNavigator(mapper.parseObject(MESSAGE));
+      for (String path : PATHS) {
+        sink += navigator.traversePath(path).hashCode();
+      }
+    }
+
+    return System.nanoTime() - startTime;
+  }
+
+  /**
+   * Parse each message and evaluate the compiled paths against the map.
+   *
+   * @param numMessages
+   *          the number of messages
+   *
+   * @return the elapsed time in nanoseconds
+   */
+  public long runCompiled(int numMessages) {
+    long startTime = System.nanoTime();
+    for (int i = 0; i < numMessages; i++) {
+      Map<String, Object> message = mapper.parseObject(MESSAGE);
+      for (JsonPath path : compiledPaths) {
+        sink += path.evaluate(message).hashCode();
+      }
+    }
+
+    return System.nanoTime() - startTime;
+  }
+
+  /**
+   * Evaluate each compiled path against its own streaming parser over the message.
+   *
+   * @param numMessages
+   *          the number of messages
+   *
+   * @return the elapsed time in nanoseconds
+   *
+   * @throws Exception
+   *           a parser could not be created
+   */
+  public long runStreaming(int numMessages) throws Exception {
+    long startTime = System.nanoTime();
+    for (int i = 0; i < numMessages; i++) {
+      for (JsonPath path : compiledPaths) {
+        sink += path.evaluate(jsonFactory.createJsonParser(MESSAGE)).hashCode();
+      }
+    }
+
+    return System.nanoTime() - startTime;
+  }
+
+  /**
+   * Evaluate all compiled paths in one pass of a streaming parser over the message.
+   *
+   * @param numMessages
+   *          the number of messages
+   *
+   * @return the elapsed time in nanoseconds
+   *
+   * @throws Exception
+   *           a parser could not be created
+   */
+  public long runStreamingOnePass(int numMessages) throws Exception {
+    long startTime = System.nanoTime();
+    for (int i = 0; i < numMessages; i++) {
+      for (Object value : JsonPath.evaluate(jsonFactory.createJsonParser(MESSAGE), compiledPaths)) {
+        sink += value.hashCode();
+      }
+    }
+
+    return System.nanoTime() - startTime;
+  }
+
+  /**
+   * Print the results of a run.
+   *
+   * @param name
+   *          the name of the run
+   * @param elapsed
+   *          the elapsed time in nanoseconds
+   * @param numMessages
+   *          the number of messages
+   * @param print
+   *          {@code true} if the results should be printed
+   */
+  public void print(String name, long elapsed, int numMessages, boolean print) {
+    if (print) {
+      System.out.format("%-22s %8d messages in %8.1f ms, %10.1f messages/sec%n", name, numMessages, elapsed / 1e6,
+          numMessages / (elapsed / 1e9));
+    }
+  }
+}
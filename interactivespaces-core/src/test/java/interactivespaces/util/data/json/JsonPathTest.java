@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.data.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParser;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Tests for the {@link JsonPath}.
+ *
+ * @author Keith M. Hughes
+ */
+public class JsonPathTest {
+
+  /**
+   * The message the paths are evaluated against.
+   */
+  private static final String MESSAGE = "{\"type\":\"position\",\"data\":{\"sensor\":\"kinect1\","
+      + "\"skeletons\":[{\"id\":1,\"joints\":[1.5,2,3]},{\"id\":2,\"joints\":[4,5,6]}],\"active\":true}}";
+
+  /**
+   * The factory for parsers.
+   */
+  private final JsonFactory jsonFactory = new JsonFactory();
+
+  /**
+   * Test that a path gives the same results against a map, a navigator, and a parser.
+   *
+   * @throws Exception
+   *           a parser could not be created
+   */
+  @Test
+  public void testEvaluate() throws Exception {
+    assertAllEvaluate("position", "type");
+    assertAllEvaluate("kinect1", "data.sensor");
+    assertAllEvaluate(2, "data.skeletons.[1].id");
+    assertAllEvaluate(1.5, "data.skeletons.[0].joints.[0]");
+    assertAllEvaluate(Arrays.asList(4, 5, 6), "data.skeletons.[1].joints");
+    assertAllEvaluate(true, "data.active");
+    assertAllEvaluate(null, "data.missing");
+  }
+
+  /**
+   * Test evaluating several paths in one pass over a parser.
+   *
+   * @throws Exception
+   *           a parser could not be created
+   */
+  @Test
+  public void testEvaluateMultiple() throws Exception {
+    Object[] results =
+        JsonPath.evaluate(jsonFactory.createJsonParser(MESSAGE), JsonPath.compile("data.skeletons.[1].id"),
+            JsonPath.compile("type"), JsonPath.compile("data.missing"), JsonPath.compile("data.skeletons"),
+            JsonPath.compile("data.skeletons.[0].joints.[0]"), JsonPath.compile("$.data.sensor"));
+
+    Map<String, Object> message = StandardJsonMapper.INSTANCE.parseObject(MESSAGE);
+    assertEquals(Arrays.asList(2, "position", null, ((Map<?, ?>) message.get("data")).get("skeletons"), 1.5,
+        "kinect1"), Arrays.asList(results));
+
+    try {
+      JsonPath.evaluate(jsonFactory.createJsonParser(MESSAGE), JsonPath.compile("type"),
+          JsonPath.compile("data.skeletons.[5]"));
+      fail();
+    } catch (JsonInteractiveSpacesException e) {
+      // Expected
+    }
+  }
+
+  /**
+   * Test relative and absolute paths from a navigator below the root.
+   */
+  @Test
+  public void testNavigator() {
+    JsonNavigator navigator = new StandardJsonNavigator(StandardJsonMapper.INSTANCE.parseObject(MESSAGE));
+    navigator.down("data").down("skeletons");
+
+    assertEquals(2, JsonPath.compile("[1].id").evaluate(navigator));
+    assertEquals("position", JsonPath.compile("$.type").evaluate(navigator));
+  }
+
+  /**
+   * Test that paths which cannot be followed fail the same way for maps and parsers.
+   *
+   * @throws Exception
+   *           a parser could not be created
+   */
+  @Test
+  public void testInvalidTraversal() throws Exception {
+    Map<String, Object> message = StandardJsonMapper.INSTANCE.parseObject(MESSAGE);
+
+    for (String path : new String[] { "type.foo", "data.missing.foo", "data.[0]", "data.skeletons.id",
+        "data.skeletons.[5]" }) {
+      JsonPath compiled = JsonPath.compile(path);
+      try {
+        compiled.evaluate(message);
+        fail(path);
+      } catch (JsonInteractiveSpacesException e) {
+        // Expected
+      }
+      try {
+        compiled.evaluate(jsonFactory.createJsonParser(MESSAGE));
+        fail(path);
+      } catch (JsonInteractiveSpacesException e) {
+        // Expected
+      }
+    }
+  }
+
+  /**
+   * Test that badly formed paths are caught when compiled.
+   */
+  @Test
+  public void testInvalidPath() {
+    for (String path : new String[] { "data..sensor", "data.[1", "data.[x]" }) {
+      try {
+        JsonPath.compile(path);
+        fail(path);
+      } catch (JsonInteractiveSpacesException e) {
+        // Expected
+      }
+    }
+  }
+
+  /**
+   * Assert that a path evaluates to the expected value against a map, a navigator, and a parser.
+   *
+   * @param expected
+   *          the expected value
+   * @param path
+   *          the path
+   *
+   * @throws Exception
+   *           the parser could not be created
+   */
+  private void assertAllEvaluate(Object expected, String path) throws Exception {
+    JsonPath compiled = JsonPath.compile(path);
+    Map<String, Object> message = StandardJsonMapper.INSTANCE.parseObject(MESSAGE);
+
+    assertEquals(expected, compiled.evaluate(message));
+    assertEquals(expected, compiled.evaluate(new StandardJsonNavigator(message)));
+    assertEquals(expected, new StandardJsonNavigator(message).traversePath(path));
+
+    JsonParser parser = jsonFactory.createJsonParser(MESSAGE);
+    assertEquals(expected, compiled.evaluate(parser));
+  }
+}
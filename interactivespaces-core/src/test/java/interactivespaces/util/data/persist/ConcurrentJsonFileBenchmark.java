@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.data.persist;
+
+import interactivespaces.util.io.FileSupport;
+import interactivespaces.util.io.FileSupportImpl;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A benchmark comparing saves per second of the {@link StandardConcurrentJsonFile} and the
+ * {@link JournaledConcurrentJsonFile}.
+ *
+ * <p>
+ * Each thread repeatedly changes one key of a map which already holds a number of entries, and then saves. This is
+ * the pattern of an activity which persists its state every time something changes.
+ *
+ * <p>
+ * Run with optional arguments {@code threads saves-per-thread map-size}.
+ *
+ * @author Keith M. Hughes
+ */
+public class ConcurrentJsonFileBenchmark {
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args
+   *          the optional thread count, saves per thread, and map size
+   *
+   * @throws Exception
+   *           the benchmark failed
+   */
+  public static void main(String[] args) throws Exception {
+    int numThreads = (args.length > 0) ? Integer.parseInt(args[0]) : 8;
+    int numSaves = (args.length > 1) ? Integer.parseInt(args[1]) : 500;
+    int mapSize = (args.length > 2) ? Integer.parseInt(args[2]) : 1000;
+
+    FileSupport fileSupport = FileSupportImpl.INSTANCE;
+    File baseDir = fileSupport.createTempDirectory(new File(System.getProperty("java.io.tmpdir")), "jsonbench");
+    try {
+      ConcurrentJsonFileBenchmark benchmark = new ConcurrentJsonFileBenchmark();
+
+      benchmark.run("standard", new StandardConcurrentJsonFile(new File(baseDir, "standard.json")), numThreads,
+          numSaves, mapSize);
+
+      JournaledConcurrentJsonFile journaled = new JournaledConcurrentJsonFile(new File(baseDir, "journaled.json"));
+      benchmark.run("journaled, synced", journaled, numThreads, numSaves, mapSize);
+
+      JournaledConcurrentJsonFile journaledUnsynced =
+          new JournaledConcurrentJsonFile(new File(baseDir, "journaled-unsynced.json"));
+      journaledUnsynced.setSyncOnCommit(false);
+      benchmark.run("journaled, unsynced", journaledUnsynced, numThreads, numSaves, mapSize);
+    } finally {
+      fileSupport.deleteDirectoryContents(baseDir);
+      fileSupport.delete(baseDir);
+    }
+  }
+
+  /**
+   * Run the benchmark against a single file implementation and print the results.
+   *
+   * @param name
+   *          the name of the run
+   * @param jsonFile
+   *          the file to save to
+   * @param numThreads
+   *          the number of threads saving
+   * @param numSaves
+   *          the number of saves each thread makes
+   * @param mapSize
+   *          the number of entries in the map
+   *
+   * @throws Exception
+   *           the run failed
+   */
+  public void run(String name, final ConcurrentJsonFile jsonFile, int numThreads, final int numSaves, int mapSize)
+      throws Exception {
+    for (int i = 0; i < mapSize; i++) {
+      jsonFile.put("entry" + i, "value of entry " + i);
+    }
+    jsonFile.save();
+
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(numThreads);
+    for (int t = 0; t < numThreads; t++) {
+      final String key = "thread" + t;
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+            for (int i = 0; i < numSaves; i++) {
+              jsonFile.put(key, i);
+              jsonFile.save();
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            done.countDown();
+          }
+        }
+      }).start();
+    }
+
+    long startTime = System.nanoTime();
+    start.countDown();
+    done.await();
+    long elapsed = System.nanoTime() - startTime;
+
+    long totalSaves = (long) numThreads * numSaves;
+    System.out.format("%-20s %8d saves in %8.1f ms, %10.1f saves/sec%n", name, totalSaves, elapsed / 1e6, totalSaves
+        / (elapsed / 1e9));
+  }
+}
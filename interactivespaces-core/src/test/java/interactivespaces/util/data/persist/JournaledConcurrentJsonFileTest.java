@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.data.persist;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import interactivespaces.util.data.json.StandardJsonMapper;
+import interactivespaces.util.io.FileSupport;
+import interactivespaces.util.io.FileSupportImpl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests for the {@link JournaledConcurrentJsonFile}.
+ *
+ * @author Keith M. Hughes
+ */
+public class JournaledConcurrentJsonFileTest {
+
+  private FileSupport fileSupport = FileSupportImpl.INSTANCE;
+
+  private File baseDir;
+
+  private File file;
+
+  @Before
+  public void setup() {
+    baseDir = fileSupport.createTempDirectory(new File(System.getProperty("java.io.tmpdir")), "journal");
+    file = new File(baseDir, "test.json");
+  }
+
+  @After
+  public void cleanup() {
+    fileSupport.deleteDirectoryContents(baseDir);
+    fileSupport.delete(baseDir);
+  }
+
+  /**
+   * Test that saved values are read back, and a missing file is reported.
+   */
+  @Test
+  public void testSaveAndLoad() {
+    JournaledConcurrentJsonFile jsonFile = new JournaledConcurrentJsonFile(file);
+    assertFalse(jsonFile.load());
+
+    jsonFile.put("a", "1");
+    jsonFile.put("b", 2);
+    jsonFile.save();
+    jsonFile.put("a", "3");
+    jsonFile.save();
+
+    JournaledConcurrentJsonFile readFile = new JournaledConcurrentJsonFile(file);
+    assertTrue(readFile.load());
+    assertEquals("3", readFile.get("a"));
+    assertEquals(2, readFile.get("b"));
+  }
+
+  /**
+   * Test that replacing the map removes keys that are no longer present.
+   */
+  @Test
+  public void testReplaceAllRemovesKeys() {
+    JournaledConcurrentJsonFile jsonFile = new JournaledConcurrentJsonFile(file);
+    jsonFile.put("a", "1");
+    jsonFile.put("b", "2");
+    jsonFile.save();
+
+    Map<String, Object> newData = Maps.newHashMap();
+    newData.put("b", "4");
+    jsonFile.replaceAll(newData);
+    jsonFile.save();
+
+    JournaledConcurrentJsonFile readFile = new JournaledConcurrentJsonFile(file);
+    readFile.load();
+    assertEquals(newData, readFile.getAll());
+  }
+
+  /**
+   * Test that replacing the map only journals the keys which have changed.
+   */
+  @Test
+  public void testReplaceAllJournalsOnlyChanges() {
+    JournaledConcurrentJsonFile jsonFile = new JournaledConcurrentJsonFile(file);
+    jsonFile.put("a", "1");
+    jsonFile.put("b", "2");
+    jsonFile.put("c", "3");
+    jsonFile.save();
+
+    Map<String, Object> newData = Maps.newHashMap();
+    newData.put("a", "1");
+    newData.put("b", "5");
+    jsonFile.replaceAll(newData);
+    jsonFile.save();
+
+    File journalFile = new File(baseDir, "test.json" + JournaledConcurrentJsonFile.JOURNAL_FILE_SUFFIX);
+    String[] records = fileSupport.readFile(journalFile).split("\\n");
+    Map<String, Object> record = StandardJsonMapper.INSTANCE.parseObject(records[records.length - 1]);
+    Map<String, Object> expectedPuts = Maps.newHashMap();
+    expectedPuts.put("b", "5");
+    assertEquals(expectedPuts, record.get(JournaledConcurrentJsonFile.JOURNAL_RECORD_FIELD_PUT));
+    assertEquals(Lists.newArrayList("c"), record.get(JournaledConcurrentJsonFile.JOURNAL_RECORD_FIELD_REMOVE));
+  }
+
+  /**
+   * Test that a nested value changed in place in a map from the persister is saved when the map is put back.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testNestedChangeSaved() {
+    Map<String, Object> nested = Maps.newHashMap();
+    nested.put("x", "1");
+    Map<String, Object> map = Maps.newHashMap();
+    map.put("nested", nested);
+    map.put("list", Lists.newArrayList("a"));
+
+    JournaledSimpleMapPersister persister = new JournaledSimpleMapPersister(baseDir);
+    persister.putMap("nested", map);
+
+    Map<String, Object> read = persister.getMap("nested");
+    ((Map<String, Object>) read.get("nested")).put("x", "2");
+    ((List<Object>) read.get("list")).add("b");
+    persister.putMap("nested", read);
+
+    Map<String, Object> reloaded = new JournaledSimpleMapPersister(baseDir).getMap("nested");
+    assertEquals("2", ((Map<String, Object>) reloaded.get("nested")).get("x"));
+    assertEquals(Lists.newArrayList("a", "b"), reloaded.get("list"));
+
+    // Changing the map after putting it must not change what the persister holds either.
+    nested.put("x", "3");
+    persister.putMap("nested", map);
+    assertEquals("3", ((Map<String, Object>) new JournaledSimpleMapPersister(baseDir).getMap("nested").get("nested"))
+        .get("x"));
+  }
+
+  /**
+   * Test that a torn final journal record is discarded and that later saves are still readable.
+   */
+  @Test
+  public void testTornJournalRecovery() throws Exception {
+    JournaledConcurrentJsonFile jsonFile = new JournaledConcurrentJsonFile(file);
+    jsonFile.put("a", "1");
+    jsonFile.save();
+
+    FileOutputStream out = new FileOutputStream(jsonFile.getJournalFile(), true);
+    out.write("{\"put\":{\"a\":\"bad".getBytes());
+    out.close();
+
+    JournaledConcurrentJsonFile readFile = new JournaledConcurrentJsonFile(file);
+    readFile.load();
+    assertEquals("1", readFile.get("a"));
+
+    readFile.put("b", "2");
+    readFile.save();
+
+    JournaledConcurrentJsonFile rereadFile = new JournaledConcurrentJsonFile(file);
+    rereadFile.load();
+    assertEquals("1", rereadFile.get("a"));
+    assertEquals("2", rereadFile.get("b"));
+  }
+
+  /**
+   * Test that compaction writes a snapshot readable by the standard file and removes the journal.
+   */
+  @Test
+  public void testCompaction() {
+    JournaledConcurrentJsonFile jsonFile = new JournaledConcurrentJsonFile(file);
+    jsonFile.setJournalCompactionMinimumSize(1024);
+    for (int i = 0; i < 200; i++) {
+      jsonFile.put("key", i);
+      jsonFile.save();
+    }
+
+    assertTrue(jsonFile.getJournalFile().length() < 1024);
+
+    jsonFile.compact();
+    assertFalse(jsonFile.getJournalFile().exists());
+
+    StandardConcurrentJsonFile standardFile = new StandardConcurrentJsonFile(file);
+    standardFile.load();
+    assertEquals(199, standardFile.get("key"));
+  }
+
+  /**
+   * Test that concurrent saves from many threads are all persisted.
+   */
+  @Test
+  public void testConcurrentSaves() throws Exception {
+    final JournaledConcurrentJsonFile jsonFile = new JournaledConcurrentJsonFile(file);
+    jsonFile.setSyncOnCommit(false);
+
+    final int numThreads = 8;
+    final int numSaves = 100;
+    final CountDownLatch done = new CountDownLatch(numThreads);
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    for (int t = 0; t < numThreads; t++) {
+      final String key = "thread" + t;
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            for (int i = 0; i < numSaves; i++) {
+              jsonFile.put(key, i);
+              jsonFile.save();
+            }
+          } catch (Throwable e) {
+            failure.set(e);
+          } finally {
+            done.countDown();
+          }
+        }
+      }).start();
+    }
+    done.await();
+
+    assertNull(failure.get());
+
+    JournaledConcurrentJsonFile readFile = new JournaledConcurrentJsonFile(file);
+    readFile.load();
+    for (int t = 0; t < numThreads; t++) {
+      assertEquals(numSaves - 1, readFile.get("thread" + t));
+    }
+  }
+
+  /**
+   * Test that the persister reads maps written by the plain JSON persister.
+   */
+  @Test
+  public void testPersisterCompatibility() {
+    Map<String, Object> map = Maps.newHashMap();
+    map.put("foo", "bar");
+    new JsonSimpleMapPersister(baseDir).putMap("compat", map);
+
+    JournaledSimpleMapPersister persister = new JournaledSimpleMapPersister(baseDir);
+    assertEquals(map, persister.getMap("compat"));
+    assertNull(persister.getMap("missing"));
+
+    map.put("foo", "baz");
+    persister.putMap("compat", map);
+    assertEquals(map, new JournaledSimpleMapPersister(baseDir).getMap("compat"));
+
+    assertTrue(persister.removeMap("compat"));
+    assertNull(new JournaledSimpleMapPersister(baseDir).getMap("compat"));
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.data.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import interactivespaces.util.io.FileSupport;
+import interactivespaces.util.io.FileSupportImpl;
+
+import org.apache.commons.logging.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for the {@link CachingResourceSignature}.
+ *
+ * @author Keith M. Hughes
+ */
+public class CachingResourceSignatureTest {
+
+  private FileSupport fileSupport = FileSupportImpl.INSTANCE;
+
+  private File baseDir;
+
+  private File bundleFile;
+
+  private File indexFile;
+
+  private CountingResourceSignature delegate;
+
+  private Log log;
+
+  @Before
+  public void setup() {
+    baseDir = fileSupport.createTempDirectory(new File(System.getProperty("java.io.tmpdir")), "signature");
+    bundleFile = new File(baseDir, "bundle.jar");
+    indexFile = new File(baseDir, "signatures.json");
+    delegate = new CountingResourceSignature();
+    log = mock(Log.class);
+
+    fileSupport.writeFile(bundleFile, "first version");
+  }
+
+  @After
+  public void cleanup() {
+    fileSupport.deleteDirectoryContents(baseDir);
+    fileSupport.delete(baseDir);
+  }
+
+  /**
+   * Test that an unchanged file is only signed once.
+   */
+  @Test
+  public void testUnchangedFileCached() {
+    CachingResourceSignature signature = new CachingResourceSignature(delegate);
+
+    String first = signature.getBundleSignature(bundleFile);
+    String second = signature.getBundleSignature(bundleFile);
+
+    assertEquals(first, second);
+    assertEquals(1, delegate.count.get());
+  }
+
+  /**
+   * Test that a modified file is signed again.
+   */
+  @Test
+  public void testModifiedFileRecalculated() {
+    CachingResourceSignature signature = new CachingResourceSignature(delegate);
+
+    String first = signature.getBundleSignature(bundleFile);
+
+    fileSupport.writeFile(bundleFile, "the second version");
+    String second = signature.getBundleSignature(bundleFile);
+
+    assertFalse(first.equals(second));
+    assertEquals(2, delegate.count.get());
+  }
+
+  /**
+   * Test that signatures are read back from the index file by a new instance.
+   */
+  @Test
+  public void testIndexPersisted() {
+    String first = new CachingResourceSignature(delegate, indexFile, log).getBundleSignature(bundleFile);
+    String second = new CachingResourceSignature(delegate, indexFile, log).getBundleSignature(bundleFile);
+
+    assertEquals(first, second);
+    assertEquals(1, delegate.count.get());
+  }
+
+  /**
+   * Test that the directory for the index file is created if it is missing.
+   */
+  @Test
+  public void testIndexDirectoryCreated() {
+    File nestedIndexFile = new File(new File(baseDir, "missing"), "signatures.json");
+
+    new CachingResourceSignature(delegate, nestedIndexFile, log).getBundleSignature(bundleFile);
+
+    assertTrue(nestedIndexFile.getParentFile().isDirectory());
+    verify(log, never()).warn(anyString(), any(Throwable.class));
+  }
+
+  /**
+   * Test that the signature is still returned, and cached in memory, when the index file can't be written.
+   */
+  @Test
+  public void testIndexWriteFailure() {
+    File blocker = new File(baseDir, "blocker");
+    fileSupport.writeFile(blocker, "not a directory");
+    CachingResourceSignature signature =
+        new CachingResourceSignature(delegate, new File(blocker, "signatures.json"), log);
+
+    String first = signature.getBundleSignature(bundleFile);
+    String second = signature.getBundleSignature(bundleFile);
+
+    assertEquals(new MessageDigestResourceSignature().getBundleSignature(bundleFile), first);
+    assertEquals(first, second);
+    assertEquals(1, delegate.count.get());
+    verify(log).warn(anyString(), any(Throwable.class));
+  }
+
+  /**
+   * A resource signature which counts how often it is asked for a signature.
+   *
+   * @author Keith M. Hughes
+   */
+  private static class CountingResourceSignature implements ResourceSignature {
+
+    /**
+     * The number of signatures calculated.
+     */
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public String getBundleSignature(File bundleFile) {
+      count.incrementAndGet();
+
+      return new MessageDigestResourceSignature().getBundleSignature(bundleFile);
+    }
+  }
+}
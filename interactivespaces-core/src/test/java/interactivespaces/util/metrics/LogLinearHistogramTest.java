@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+/**
+ * Tests for the {@link LogLinearHistogram}.
+ *
+ * @author Keith M. Hughes
+ */
+public class LogLinearHistogramTest {
+
+  /**
+   * Test that small values are counted exactly.
+   */
+  @Test
+  public void testSmallValuesExact() {
+    LogLinearHistogram histogram = new LogLinearHistogram();
+    for (long value = 1; value <= 50; value++) {
+      histogram.record(value);
+    }
+
+    assertEquals(50, histogram.getCount());
+    assertEquals(25, histogram.getValueAtPercentile(50.0));
+    assertEquals(45, histogram.getValueAtPercentile(90.0));
+    assertEquals(50, histogram.getValueAtPercentile(100.0));
+    assertEquals(1, histogram.getValueAtPercentile(0.0));
+  }
+
+  /**
+   * Test that percentiles of large values are within the precision of the histogram.
+   */
+  @Test
+  public void testLargeValuesWithinPrecision() {
+    LogLinearHistogram histogram = new LogLinearHistogram();
+    for (long value = 1; value <= 100000; value++) {
+      histogram.record(value * 1000);
+    }
+
+    assertWithinPrecision(50000000L, histogram.getValueAtPercentile(50.0));
+    assertWithinPrecision(99000000L, histogram.getValueAtPercentile(99.0));
+    assertWithinPrecision(99900000L, histogram.getValueAtPercentile(99.9));
+    assertEquals(100000000L, histogram.getValueAtPercentile(100.0));
+  }
+
+  /**
+   * Test the statistics, including the extremes of the value range.
+   */
+  @Test
+  public void testStatistics() {
+    LogLinearHistogram histogram = new LogLinearHistogram();
+    histogram.record(-5);
+    histogram.record(Long.MAX_VALUE);
+
+    Map<String, Object> statistics = histogram.getStatistics();
+    assertEquals(2L, statistics.get(Histogram.STATISTICS_FIELD_COUNT));
+    assertEquals(0L, statistics.get(Histogram.STATISTICS_FIELD_MIN));
+    assertEquals(Long.MAX_VALUE, statistics.get(Histogram.STATISTICS_FIELD_MAX));
+    assertEquals(0L, statistics.get(Histogram.STATISTICS_FIELD_P50));
+    assertEquals(Long.MAX_VALUE, statistics.get(Histogram.STATISTICS_FIELD_P999));
+  }
+
+  /**
+   * Test that an empty histogram reports zeros.
+   */
+  @Test
+  public void testEmpty() {
+    LogLinearHistogram histogram = new LogLinearHistogram();
+
+    Map<String, Object> statistics = histogram.getStatistics();
+    assertEquals(0L, statistics.get(Histogram.STATISTICS_FIELD_COUNT));
+    assertEquals(0L, statistics.get(Histogram.STATISTICS_FIELD_MIN));
+    assertEquals(0L, statistics.get(Histogram.STATISTICS_FIELD_P99));
+  }
+
+  /**
+   * Assert that a value is no smaller than expected and no more than the histogram precision larger.
+   *
+   * @param expected
+   *          the expected value
+   * @param actual
+   *          the actual value
+   */
+  private void assertWithinPrecision(long expected, long actual) {
+    assertTrue(String.format("%d is not within precision of %d", actual, expected), actual >= expected
+        && actual <= expected + expected / (1 << LogLinearHistogram.SUB_BUCKET_BITS_DEFAULT));
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+/**
+ * Tests for the {@link StandardMetricsRegistry} and the {@link DisabledMetricsRegistry}.
+ *
+ * @author Keith M. Hughes
+ */
+public class StandardMetricsRegistryTest {
+
+  /**
+   * Test that metrics are shared by name and show up in the snapshot.
+   */
+  @Test
+  public void testSnapshot() {
+    MetricsRegistry registry = new StandardMetricsRegistry();
+
+    registry.getCounter("a.counter").increment();
+    registry.getCounter("a.counter").add(2);
+    registry.getTimer("a.timer").record(1000);
+    registry.registerGauge("a.gauge", new Gauge() {
+      @Override
+      public long getValue() {
+        return 42;
+      }
+    });
+
+    assertSame(registry.getTimer("a.timer"), registry.getTimer("a.timer"));
+
+    Map<String, Object> snapshot = registry.getSnapshot();
+    assertEquals(3L, snapshot.get("a.counter"));
+    assertEquals(42L, snapshot.get("a.gauge"));
+    @SuppressWarnings("unchecked")
+    Map<String, Object> timer = (Map<String, Object>) snapshot.get("a.timer");
+    assertEquals(1L, timer.get(Histogram.STATISTICS_FIELD_COUNT));
+
+    registry.unregisterGauge("a.gauge");
+    assertFalse(registry.getSnapshot().containsKey("a.gauge"));
+  }
+
+  /**
+   * Test that metrics of every kind can be unregistered.
+   */
+  @Test
+  public void testUnregister() {
+    MetricsRegistry registry = new StandardMetricsRegistry();
+
+    registry.getCounter("a.counter").increment();
+    registry.getHistogram("a.histogram").record(10);
+    registry.getTimer("a.timer").record(1000);
+    registry.getCounter("b.counter").increment();
+
+    registry.unregister("a.counter");
+    registry.unregister("a.histogram");
+    registry.unregister("a.timer");
+    registry.unregister("no.such.metric");
+
+    Map<String, Object> snapshot = registry.getSnapshot();
+    assertEquals(1, snapshot.size());
+    assertEquals(1L, snapshot.get("b.counter"));
+    assertEquals(0, registry.getCounter("a.counter").getCount());
+  }
+
+  /**
+   * Test that histograms can be looked up by name prefix.
+   */
+  @Test
+  public void testHistogramsByPrefix() {
+    MetricsRegistry registry = new StandardMetricsRegistry();
+
+    Histogram first = registry.getHistogram("route.latency.a");
+    Histogram second = registry.getHistogram("route.latency.b");
+    registry.getHistogram("other.histogram");
+    registry.getTimer("route.latency.timer");
+
+    Map<String, Histogram> histograms = registry.getHistograms("route.latency.");
+    assertEquals(2, histograms.size());
+    assertSame(first, histograms.get("route.latency.a"));
+    assertSame(second, histograms.get("route.latency.b"));
+  }
+
+  /**
+   * Test that the disabled registry records nothing.
+   */
+  @Test
+  public void testDisabled() {
+    MetricsRegistry registry = DisabledMetricsRegistry.INSTANCE;
+
+    Timer timer = registry.getTimer("a.timer");
+    timer.stop(timer.start());
+    registry.getCounter("a.counter").increment();
+
+    assertFalse(registry.isEnabled());
+    assertEquals(0, timer.getHistogram().getCount());
+    assertEquals(0, registry.getCounter("a.counter").getCount());
+    assertTrue(registry.getSnapshot().isEmpty());
+    assertTrue(registry.getHistograms("").isEmpty());
+  }
+}
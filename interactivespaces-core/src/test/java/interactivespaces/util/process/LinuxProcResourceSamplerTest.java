@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.util.process;
+
+import interactivespaces.system.InteractiveSpacesEnvironment;
+import interactivespaces.time.TimeProvider;
+
+import org.apache.commons.logging.Log;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for the {@link LinuxProcResourceSampler} and supervised process runners.
+ *
+ * @author Keith M. Hughes
+ */
+public class LinuxProcResourceSamplerTest {
+
+  /**
+   * Test parsing CPU ticks from a stat line whose command name contains spaces and parentheses.
+   */
+  @Test
+  public void testParseCpuTicks() {
+    String stat = "1234 (my (odd) app) S 1 1234 1234 0 -1 4194560 100 0 0 0 250 50 0 0 20 0 4 0 100 1000 200";
+
+    Assert.assertEquals(300, LinuxProcResourceSampler.parseCpuTicks(stat));
+  }
+
+  /**
+   * Test parsing the resident set size from a status file.
+   */
+  @Test
+  public void testParseResidentSetSize() {
+    String status = "Name:\tchrome\nVmPeak:\t  900000 kB\nVmRSS:\t  123456 kB\nThreads:\t4\n";
+
+    Assert.assertEquals(123456L * 1024, LinuxProcResourceSampler.parseResidentSetSize(status));
+    Assert.assertEquals(NativeApplicationResourceSample.UNAVAILABLE,
+        LinuxProcResourceSampler.parseResidentSetSize("Name:\tzombie\n"));
+  }
+
+  /**
+   * Test that a supervised process has its output logged and its exit reported without anyone polling.
+   */
+  @Test
+  public void testSupervisedExit() throws Exception {
+    if (!new java.io.File("/bin/sh").exists()) {
+      return;
+    }
+
+    ScheduledExecutorService executorService = Executors.newScheduledThreadPool(4);
+    try {
+      InteractiveSpacesEnvironment spaceEnvironment = Mockito.mock(InteractiveSpacesEnvironment.class);
+      Mockito.when(spaceEnvironment.getExecutorService()).thenReturn(executorService);
+      Mockito.when(spaceEnvironment.getTimeProvider()).thenReturn(Mockito.mock(TimeProvider.class));
+      Log log = Mockito.mock(Log.class);
+
+      LinuxNativeApplicationRunner runner =
+          new LinuxNativeApplicationRunner(new StandardNativeApplicationRunnerParser(), spaceEnvironment, log);
+      runner.setProcessSupervision(true);
+      runner.setExecutablePath("/bin/sh");
+      runner.addCommandArguments("-c", "echo hello; echo oops 1>&2; exit 3");
+
+      final CountDownLatch shutdown = new CountDownLatch(1);
+      runner.addNativeApplicationRunnerListener(new BaseNativeApplicationRunnerListener() {
+        @Override
+        public void onNativeApplicationRunnerShutdown(NativeApplicationRunner runner) {
+          shutdown.countDown();
+        }
+      });
+
+      runner.startup();
+
+      Assert.assertTrue(shutdown.await(5, TimeUnit.SECONDS));
+      Assert.assertEquals(NativeApplicationRunner.NativeApplicationRunnerState.CRASHED, runner.getState());
+      Assert.assertFalse(runner.isRunning());
+      Assert.assertEquals(NativeApplicationRunner.NativeApplicationRunnerState.CRASHED, runner.getState());
+
+      Mockito.verify(log).info(NativeApplicationProcessSupervisor.OUTPUT_LOG_PREFIX + "hello");
+      Mockito.verify(log).error(NativeApplicationProcessSupervisor.OUTPUT_LOG_PREFIX + "oops");
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+}
@@ -798,6 +798,8 @@ public class InteractiveSpacesFrameworkBootstrap {
           }
         } catch (Exception ex) {
           loggingProvider.getLog().error("Error stopping framework", ex);
+        } finally {
+          loggingProvider.shutdown();
         }
       }
     });
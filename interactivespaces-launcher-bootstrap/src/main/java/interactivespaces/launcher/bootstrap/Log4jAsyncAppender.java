@@ -0,0 +1,540 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.launcher.bootstrap;
+
+import org.apache.log4j.Appender;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.helpers.AppenderAttachableImpl;
+import org.apache.log4j.spi.AppenderAttachable;
+import org.apache.log4j.spi.Filter;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Log4J appender which hands events to a bounded buffer and writes them to its attached appenders from a
+ * background thread, so that the threads doing the logging never wait on file I/O.
+ *
+ * <p>
+ * Events are written in batches. Attached appenders which are {@link Flushable} are flushed once per batch rather than
+ * once per event.
+ *
+ * <p>
+ * What happens when the buffer is full is decided by the {@link OverflowPolicy}. Dropped events are counted and a
+ * warning giving the count is written to the attached appenders once there is room again.
+ *
+ * @author Keith M. Hughes
+ */
+public class Log4jAsyncAppender extends AppenderSkeleton implements AppenderAttachable {
+
+  /**
+   * The default number of events the buffer can hold.
+   */
+  public static final int BUFFER_SIZE_DEFAULT = 8192;
+
+  /**
+   * The default maximum number of events written in a single batch.
+   */
+  public static final int BATCH_SIZE_DEFAULT = 256;
+
+  /**
+   * How long the writer waits for an event before checking if it should stop, in milliseconds.
+   */
+  private static final long WRITER_POLL_TIME = 100;
+
+  /**
+   * How long to wait for the writer to finish the buffered events when closing, in milliseconds.
+   */
+  private static final long WRITER_CLOSE_WAIT_TIME = 5000;
+
+  /**
+   * The prefix for the name of the writer thread.
+   */
+  private static final String WRITER_THREAD_NAME_PREFIX = "interactivespaces-log-";
+
+  /**
+   * What to do with an event when the buffer is full.
+   *
+   * @author Keith M. Hughes
+   */
+  public enum OverflowPolicy {
+
+    /**
+     * Wait for room in the buffer.
+     */
+    BLOCK("block"),
+
+    /**
+     * Drop events below {@link Level#INFO}, wait for room for all others.
+     */
+    DROP_DEBUG("drop-debug"),
+
+    /**
+     * Drop any event.
+     */
+    DROP_ALL("drop-all");
+
+    /**
+     * The name of the policy used in configurations.
+     */
+    private final String configurationName;
+
+    /**
+     * Construct a policy.
+     *
+     * @param configurationName
+     *          the name of the policy used in configurations
+     */
+    private OverflowPolicy(String configurationName) {
+      this.configurationName = configurationName;
+    }
+
+    /**
+     * Get the name of the policy used in configurations.
+     *
+     * @return the configuration name
+     */
+    public String getConfigurationName() {
+      return configurationName;
+    }
+
+    /**
+     * Get the policy for a configuration name.
+     *
+     * @param configurationName
+     *          the configuration name, case is ignored
+     *
+     * @return the policy, or {@code null} if there is no policy with the name
+     */
+    public static OverflowPolicy fromConfigurationName(String configurationName) {
+      for (OverflowPolicy policy : values()) {
+        if (policy.configurationName.equalsIgnoreCase(configurationName)) {
+          return policy;
+        }
+      }
+
+      return null;
+    }
+  }
+
+  /**
+   * The appenders events are written to.
+   */
+  private final AppenderAttachableImpl appenders = new AppenderAttachableImpl();
+
+  /**
+   * The number of events the buffer can hold.
+   */
+  private int bufferSize = BUFFER_SIZE_DEFAULT;
+
+  /**
+   * The maximum number of events written in a single batch.
+   */
+  private int batchSize = BATCH_SIZE_DEFAULT;
+
+  /**
+   * What to do when the buffer is full.
+   */
+  private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_DEBUG;
+
+  /**
+   * {@code true} if the location of the logging call should be captured before the event is buffered.
+   */
+  private boolean locationInfo;
+
+  /**
+   * The buffer of events waiting to be written.
+   */
+  private volatile BlockingQueue<LoggingEvent> buffer;
+
+  /**
+   * {@code true} once the appender has started closing.
+   */
+  private volatile boolean closing;
+
+  /**
+   * The thread writing buffered events.
+   */
+  private Thread writerThread;
+
+  /**
+   * The number of events dropped because the buffer was full.
+   */
+  private final AtomicLong droppedEventCount = new AtomicLong();
+
+  /**
+   * The number of dropped events which has been reported in the log.
+   */
+  private long reportedDroppedEventCount;
+
+  @Override
+  public synchronized void activateOptions() {
+    if (buffer != null) {
+      return;
+    }
+
+    buffer = new ArrayBlockingQueue<LoggingEvent>(bufferSize);
+
+    writerThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        writeLoop();
+      }
+    }, WRITER_THREAD_NAME_PREFIX + getName());
+    writerThread.setDaemon(true);
+    writerThread.start();
+  }
+
+  /**
+   * Append an event.
+   *
+   * <p>
+   * Unlike the superclass this is not synchronized, the buffer handles concurrent callers.
+   *
+   * @param event
+   *          the event to append
+   */
+  @Override
+  public void doAppend(LoggingEvent event) {
+    if (closing) {
+      return;
+    }
+
+    if (!isAsSevereAsThreshold(event.getLevel())) {
+      return;
+    }
+
+    for (Filter filter = getFirstFilter(); filter != null; filter = filter.getNext()) {
+      int decision = filter.decide(event);
+      if (decision == Filter.DENY) {
+        return;
+      } else if (decision == Filter.ACCEPT) {
+        break;
+      }
+    }
+
+    append(event);
+  }
+
+  @Override
+  protected void append(LoggingEvent event) {
+    if (buffer == null) {
+      activateOptions();
+    }
+
+    // Capture everything which depends on the logging thread before the event changes threads.
+    event.getNDC();
+    event.getThreadName();
+    event.getMDCCopy();
+    event.getRenderedMessage();
+    event.getThrowableStrRep();
+    if (locationInfo) {
+      event.getLocationInformation();
+    }
+
+    if (buffer.offer(event)) {
+      return;
+    }
+
+    if (overflowPolicy == OverflowPolicy.DROP_ALL
+        || (overflowPolicy == OverflowPolicy.DROP_DEBUG && !event.getLevel().isGreaterOrEqual(Level.INFO))) {
+      droppedEventCount.incrementAndGet();
+      return;
+    }
+
+    try {
+      buffer.put(event);
+    } catch (InterruptedException e) {
+      droppedEventCount.incrementAndGet();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Write buffered events until the appender is closed and the buffer is empty.
+   */
+  private void writeLoop() {
+    List<LoggingEvent> batch = new ArrayList<LoggingEvent>(batchSize);
+    while (true) {
+      try {
+        LoggingEvent event = buffer.poll(WRITER_POLL_TIME, TimeUnit.MILLISECONDS);
+        if (event != null) {
+          batch.add(event);
+          buffer.drainTo(batch, batchSize - 1);
+          writeBatch(batch);
+          batch.clear();
+        } else if (closing) {
+          return;
+        }
+      } catch (InterruptedException e) {
+        return;
+      } catch (Throwable e) {
+        errorHandler.error("Error while writing buffered logging events", e instanceof Exception ? (Exception) e
+            : null, 0);
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * Write a batch of events to the attached appenders.
+   *
+   * @param batch
+   *          the events to write
+   */
+  private void writeBatch(List<LoggingEvent> batch) {
+    synchronized (appenders) {
+      reportDroppedEvents(batch.get(0));
+
+      for (LoggingEvent event : batch) {
+        appenders.appendLoopOnAppenders(event);
+      }
+
+      flushAppenders();
+    }
+  }
+
+  /**
+   * Write a warning about any events which have been dropped since the last report.
+   *
+   * @param nextEvent
+   *          the next event to be written, used for the logger of the warning
+   */
+  private void reportDroppedEvents(LoggingEvent nextEvent) {
+    long dropped = droppedEventCount.get();
+    if (dropped > reportedDroppedEventCount) {
+      String message =
+          String.format("Dropped %d logging events because the logging buffer was full",
+              dropped - reportedDroppedEventCount);
+      reportedDroppedEventCount = dropped;
+
+      Logger logger = Logger.getLogger(nextEvent.getLoggerName());
+      appenders.appendLoopOnAppenders(new LoggingEvent(Logger.class.getName(), logger, Level.WARN, message, null));
+    }
+  }
+
+  /**
+   * Flush all attached appenders which can be flushed.
+   */
+  private void flushAppenders() {
+    Enumeration<?> allAppenders = appenders.getAllAppenders();
+    if (allAppenders != null) {
+      while (allAppenders.hasMoreElements()) {
+        Object appender = allAppenders.nextElement();
+        if (appender instanceof Flushable) {
+          try {
+            ((Flushable) appender).flush();
+          } catch (IOException e) {
+            errorHandler.error("Error while flushing logging appender", e, 0);
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closing) {
+        return;
+      }
+      closing = true;
+      closed = true;
+    }
+
+    if (writerThread != null) {
+      try {
+        writerThread.join(WRITER_CLOSE_WAIT_TIME);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    synchronized (appenders) {
+      Enumeration<?> allAppenders = appenders.getAllAppenders();
+      if (allAppenders != null) {
+        while (allAppenders.hasMoreElements()) {
+          ((Appender) allAppenders.nextElement()).close();
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean requiresLayout() {
+    return false;
+  }
+
+  /**
+   * Get the number of events dropped because the buffer was full.
+   *
+   * @return the number of dropped events
+   */
+  public long getDroppedEventCount() {
+    return droppedEventCount.get();
+  }
+
+  /**
+   * Get the number of events waiting to be written.
+   *
+   * @return the number of buffered events
+   */
+  public int getBufferedEventCount() {
+    return buffer != null ? buffer.size() : 0;
+  }
+
+  /**
+   * Set the number of events the buffer can hold. Must be set before options are activated.
+   *
+   * @param bufferSize
+   *          the buffer size
+   */
+  public void setBufferSize(int bufferSize) {
+    this.bufferSize = Math.max(1, bufferSize);
+  }
+
+  /**
+   * Get the number of events the buffer can hold.
+   *
+   * @return the buffer size
+   */
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  /**
+   * Set the maximum number of events written in a single batch. Must be set before options are activated.
+   *
+   * @param batchSize
+   *          the batch size
+   */
+  public void setBatchSize(int batchSize) {
+    this.batchSize = Math.max(1, batchSize);
+  }
+
+  /**
+   * Get the maximum number of events written in a single batch.
+   *
+   * @return the batch size
+   */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Set what to do when the buffer is full.
+   *
+   * @param overflowPolicy
+   *          the configuration name of the policy
+   */
+  public void setOverflowPolicy(String overflowPolicy) {
+    OverflowPolicy policy = OverflowPolicy.fromConfigurationName(overflowPolicy);
+    if (policy != null) {
+      this.overflowPolicy = policy;
+    } else {
+      errorHandler.error(String.format("Unknown logging overflow policy %s, using %s", overflowPolicy,
+          this.overflowPolicy.getConfigurationName()));
+    }
+  }
+
+  /**
+   * Get the configuration name of what to do when the buffer is full.
+   *
+   * @return the configuration name of the overflow policy
+   */
+  public String getOverflowPolicy() {
+    return overflowPolicy.getConfigurationName();
+  }
+
+  /**
+   * Set whether the location of the logging call should be captured before the event is buffered. This is expensive.
+   *
+   * @param locationInfo
+   *          {@code true} if the location should be captured
+   */
+  public void setLocationInfo(boolean locationInfo) {
+    this.locationInfo = locationInfo;
+  }
+
+  /**
+   * Get whether the location of the logging call is captured before the event is buffered.
+   *
+   * @return {@code true} if the location is captured
+   */
+  public boolean getLocationInfo() {
+    return locationInfo;
+  }
+
+  @Override
+  public void addAppender(Appender appender) {
+    synchronized (appenders) {
+      appenders.addAppender(appender);
+    }
+  }
+
+  @Override
+  public Enumeration getAllAppenders() {
+    synchronized (appenders) {
+      return appenders.getAllAppenders();
+    }
+  }
+
+  @Override
+  public Appender getAppender(String name) {
+    synchronized (appenders) {
+      return appenders.getAppender(name);
+    }
+  }
+
+  @Override
+  public boolean isAttached(Appender appender) {
+    synchronized (appenders) {
+      return appenders.isAttached(appender);
+    }
+  }
+
+  @Override
+  public void removeAllAppenders() {
+    synchronized (appenders) {
+      appenders.removeAllAppenders();
+    }
+  }
+
+  @Override
+  public void removeAppender(Appender appender) {
+    synchronized (appenders) {
+      appenders.removeAppender(appender);
+    }
+  }
+
+  @Override
+  public void removeAppender(String name) {
+    synchronized (appenders) {
+      appenders.removeAppender(name);
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.launcher.bootstrap;
+
+import org.apache.log4j.Layout;
+import org.apache.log4j.RollingFileAppender;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * A rolling file appender whose buffered output can be flushed on demand.
+ *
+ * <p>
+ * Used with immediate flush turned off beneath a {@link Log4jAsyncAppender}, which flushes once per batch of events
+ * rather than once per event.
+ *
+ * @author Keith M. Hughes
+ */
+public class Log4jFlushableRollingFileAppender extends RollingFileAppender implements Flushable {
+
+  /**
+   * Construct an appender which is configured through its setters.
+   */
+  public Log4jFlushableRollingFileAppender() {
+  }
+
+  /**
+   * Construct an appender for a file.
+   *
+   * @param layout
+   *          the layout for the events
+   * @param filename
+   *          the file to write to
+   *
+   * @throws IOException
+   *           the file could not be opened
+   */
+  public Log4jFlushableRollingFileAppender(Layout layout, String filename) throws IOException {
+    super(layout, filename);
+  }
+
+  @Override
+  public synchronized void flush() {
+    if (qw != null) {
+      qw.flush();
+    }
+  }
+}
@@ -20,20 +20,26 @@ import interactivespaces.system.core.logging.LoggingProvider;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.impl.Log4JLogger;
+import org.apache.log4j.Appender;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 import org.apache.log4j.PatternLayout;
 import org.apache.log4j.PropertyConfigurator;
 import org.apache.log4j.RollingFileAppender;
+import org.apache.log4j.WriterAppender;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Logging provider using Log4J.
@@ -68,6 +74,32 @@ public class Log4jLoggingProvider implements LoggingProvider {
    */
   public static final String LOG4J_PROPERTY_CONVERSTION_PATTERN = "log4j.appender.stdout.layout.ConversionPattern";
 
+  /**
+   * The logging property for writing the container and activity logs asynchronously.
+   */
+  public static final String LOGGING_PROPERTY_ASYNC_ENABLE = "interactivespaces.logging.async.enable";
+
+  /**
+   * The logging property for the number of events an asynchronous log can buffer.
+   */
+  public static final String LOGGING_PROPERTY_ASYNC_BUFFER_SIZE = "interactivespaces.logging.async.buffer.size";
+
+  /**
+   * The logging property for the maximum number of events an asynchronous log writes in one batch.
+   */
+  public static final String LOGGING_PROPERTY_ASYNC_BATCH_SIZE = "interactivespaces.logging.async.batch.size";
+
+  /**
+   * The logging property for what an asynchronous log does when its buffer is full, one of {@code block},
+   * {@code drop-debug} or {@code drop-all}.
+   */
+  public static final String LOGGING_PROPERTY_ASYNC_OVERFLOW_POLICY = "interactivespaces.logging.async.overflow.policy";
+
+  /**
+   * The name of the asynchronous appender for the container log.
+   */
+  public static final String APPENDER_NAME_CONTAINER_ASYNC = "interactivespaces.async";
+
   /**
    * The map of logging levels to their log4j level.
    */
@@ -101,6 +133,16 @@ public class Log4jLoggingProvider implements LoggingProvider {
    */
   private Properties loggingProperties;
 
+  /**
+   * {@code true} if logs are written asynchronously.
+   */
+  private boolean asyncEnabled;
+
+  /**
+   * All asynchronous appenders created by the provider.
+   */
+  private final List<Log4jAsyncAppender> asyncAppenders = new CopyOnWriteArrayList<Log4jAsyncAppender>();
+
   /**
    * Configure the provider.
    *
@@ -126,6 +168,11 @@ public class Log4jLoggingProvider implements LoggingProvider {
       baseInteractiveSpacesLogger = Logger.getLogger(LOGGER_BASE_NAME);
 
       baseContainerLog = new Log4JLogger(baseInteractiveSpacesLogger);
+
+      asyncEnabled = Boolean.parseBoolean(loggingProperties.getProperty(LOGGING_PROPERTY_ASYNC_ENABLE));
+      if (asyncEnabled) {
+        makeLoggerAsync(baseInteractiveSpacesLogger, APPENDER_NAME_CONTAINER_ASYNC);
+      }
     } catch (FileNotFoundException e) {
       throw new RuntimeException(String.format("Unable to find container configuration %s",
           loggingPropertiesFile.getAbsolutePath()));
@@ -161,6 +208,101 @@ public class Log4jLoggingProvider implements LoggingProvider {
     throw new RuntimeException("Could not locate log4j logging configuration file");
   }
 
+  /**
+   * Move all appenders of a logger beneath a single asynchronous appender.
+   *
+   * @param logger
+   *          the logger
+   * @param appenderName
+   *          the name for the asynchronous appender
+   */
+  private void makeLoggerAsync(Logger logger, String appenderName) {
+    List<Appender> appenders = new ArrayList<Appender>();
+    Enumeration<?> allAppenders = logger.getAllAppenders();
+    while (allAppenders.hasMoreElements()) {
+      appenders.add((Appender) allAppenders.nextElement());
+    }
+    if (appenders.isEmpty()) {
+      return;
+    }
+
+    Log4jAsyncAppender asyncAppender = newAsyncAppender(appenderName);
+    for (Appender appender : appenders) {
+      logger.removeAppender(appender);
+
+      // Flushable appenders are flushed once per batch by the asynchronous appender.
+      if (appender instanceof Log4jFlushableRollingFileAppender) {
+        ((WriterAppender) appender).setImmediateFlush(false);
+      }
+      asyncAppender.addAppender(appender);
+    }
+    asyncAppender.activateOptions();
+
+    logger.addAppender(asyncAppender);
+  }
+
+  /**
+   * Create a new asynchronous appender configured from the logging properties.
+   *
+   * <p>
+   * Options have not been activated for the appender.
+   *
+   * @param appenderName
+   *          the name for the appender
+   *
+   * @return the new appender
+   */
+  private Log4jAsyncAppender newAsyncAppender(String appenderName) {
+    Log4jAsyncAppender asyncAppender = new Log4jAsyncAppender();
+    asyncAppender.setName(appenderName);
+    asyncAppender.setBufferSize(getIntegerLoggingProperty(LOGGING_PROPERTY_ASYNC_BUFFER_SIZE,
+        Log4jAsyncAppender.BUFFER_SIZE_DEFAULT));
+    asyncAppender.setBatchSize(getIntegerLoggingProperty(LOGGING_PROPERTY_ASYNC_BATCH_SIZE,
+        Log4jAsyncAppender.BATCH_SIZE_DEFAULT));
+    String overflowPolicy = loggingProperties.getProperty(LOGGING_PROPERTY_ASYNC_OVERFLOW_POLICY);
+    if (overflowPolicy != null) {
+      asyncAppender.setOverflowPolicy(overflowPolicy.trim());
+    }
+
+    asyncAppenders.add(asyncAppender);
+
+    return asyncAppender;
+  }
+
+  /**
+   * Get an integer logging property.
+   *
+   * @param property
+   *          name of the property
+   * @param defaultValue
+   *          the value to use if the property is missing or not an integer
+   *
+   * @return the value of the property
+   */
+  private int getIntegerLoggingProperty(String property, int defaultValue) {
+    String value = loggingProperties.getProperty(property);
+    if (value != null) {
+      try {
+        return Integer.parseInt(value.trim());
+      } catch (NumberFormatException e) {
+        baseContainerLog.error(String.format("Logging property %s has non-integer value %s, using %d", property,
+            value, defaultValue));
+      }
+    }
+
+    return defaultValue;
+  }
+
+  /**
+   * Shut the provider down, writing out anything buffered by asynchronous logs.
+   */
+  public void shutdown() {
+    for (Log4jAsyncAppender asyncAppender : asyncAppenders) {
+      asyncAppender.close();
+    }
+    asyncAppenders.clear();
+  }
+
   @Override
   public Log getLog() {
     return baseContainerLog;
@@ -178,13 +320,25 @@ public class Log4jLoggingProvider implements LoggingProvider {
     Logger logger = Logger.getLogger("interactivespaces." + logName);
     logger.setLevel(l);
 
-    if (filename != null) {
+    // The appender is named by its file so that asking for the same log again does not write every line twice.
+    if (filename != null && logger.getAppender(filename) == null) {
       // Create pattern layout
       PatternLayout layout = new PatternLayout();
       layout.setConversionPattern(loggingProperties.getProperty(LOG4J_PROPERTY_CONVERSTION_PATTERN));
       try {
-        RollingFileAppender fileAppender = new RollingFileAppender(layout, filename);
-        logger.addAppender(fileAppender);
+        if (asyncEnabled) {
+          Log4jFlushableRollingFileAppender fileAppender = new Log4jFlushableRollingFileAppender(layout, filename);
+          fileAppender.setImmediateFlush(false);
+
+          Log4jAsyncAppender asyncAppender = newAsyncAppender(filename);
+          asyncAppender.addAppender(fileAppender);
+          asyncAppender.activateOptions();
+          logger.addAppender(asyncAppender);
+        } else {
+          RollingFileAppender fileAppender = new RollingFileAppender(layout, filename);
+          fileAppender.setName(filename);
+          logger.addAppender(fileAppender);
+        }
       } catch (java.io.IOException e) {
         throw new RuntimeException(String.format("Error while creating a RollingFileAppender for %s", filename), e);
       }
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.launcher.bootstrap;
+
+import org.apache.log4j.Appender;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.RollingFileAppender;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A benchmark comparing throughput and caller latency of a synchronous {@link RollingFileAppender} and the
+ * {@link Log4jAsyncAppender}.
+ *
+ * <p>
+ * Each thread logs a number of messages as fast as it can, the pattern of an activity logging from a hot loop.
+ *
+ * <p>
+ * Run with optional arguments {@code threads messages-per-thread}.
+ *
+ * @author Keith M. Hughes
+ */
+public class Log4jAsyncAppenderBenchmark {
+
+  /**
+   * The layout pattern for the log files.
+   */
+  private static final String LAYOUT_PATTERN = "%-5p %d{ISO8601} %c [%t] - %m%n";
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args
+   *          the optional thread count and messages per thread
+   *
+   * @throws Exception
+   *           the benchmark failed
+   */
+  public static void main(String[] args) throws Exception {
+    int numThreads = (args.length > 0) ? Integer.parseInt(args[0]) : 4;
+    int numMessages = (args.length > 1) ? Integer.parseInt(args[1]) : 50000;
+
+    File baseDir = File.createTempFile("logbench", "");
+    baseDir.delete();
+    baseDir.mkdirs();
+    try {
+      Log4jAsyncAppenderBenchmark benchmark = new Log4jAsyncAppenderBenchmark();
+
+      benchmark.run("sync", new RollingFileAppender(new PatternLayout(LAYOUT_PATTERN), new File(baseDir,
+          "sync.log").getAbsolutePath()), numThreads, numMessages);
+      benchmark.run("async, block", newAsyncAppender(new File(baseDir, "block.log"), "block"), numThreads,
+          numMessages);
+      benchmark.run("async, drop-all", newAsyncAppender(new File(baseDir, "drop.log"), "drop-all"), numThreads,
+          numMessages);
+    } finally {
+      for (File file : baseDir.listFiles()) {
+        file.delete();
+      }
+      baseDir.delete();
+    }
+  }
+
+  /**
+   * Create an asynchronous appender writing to a file.
+   *
+   * @param file
+   *          the file to write to
+   * @param overflowPolicy
+   *          the overflow policy
+   *
+   * @return the appender
+   *
+   * @throws Exception
+   *           the appender could not be created
+   */
+  private static Log4jAsyncAppender newAsyncAppender(File file, String overflowPolicy) throws Exception {
+    Log4jFlushableRollingFileAppender fileAppender =
+        new Log4jFlushableRollingFileAppender(new PatternLayout(LAYOUT_PATTERN), file.getAbsolutePath());
+    fileAppender.setImmediateFlush(false);
+
+    Log4jAsyncAppender asyncAppender = new Log4jAsyncAppender();
+    asyncAppender.setName(file.getName());
+    asyncAppender.setOverflowPolicy(overflowPolicy);
+    asyncAppender.addAppender(fileAppender);
+    asyncAppender.activateOptions();
+
+    return asyncAppender;
+  }
+
+  /**
+   * Run the benchmark against a single appender and print the results.
+   *
+   * @param name
+   *          the name of the run
+   * @param appender
+   *          the appender to log to
+   * @param numThreads
+   *          the number of threads logging
+   * @param numMessages
+   *          the number of messages each thread logs
+   *
+   * @throws Exception
+   *           the run failed
+   */
+  public void run(String name, Appender appender, int numThreads, final int numMessages) throws Exception {
+    final Logger logger = Logger.getLogger("interactivespaces.benchmark." + name.replace(' ', '_'));
+    logger.setAdditivity(false);
+    logger.setLevel(Level.INFO);
+    logger.addAppender(appender);
+
+    final long[][] latencies = new long[numThreads][numMessages];
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(numThreads);
+    for (int t = 0; t < numThreads; t++) {
+      final long[] threadLatencies = latencies[t];
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+            for (int i = 0; i < numMessages; i++) {
+              long callStart = System.nanoTime();
+              logger.info("Processed message number " + i);
+              threadLatencies[i] = System.nanoTime() - callStart;
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            done.countDown();
+          }
+        }
+      }).start();
+    }
+
+    long startTime = System.nanoTime();
+    start.countDown();
+    done.await();
+    long elapsed = System.nanoTime() - startTime;
+
+    // Include the time to get everything buffered onto disk.
+    logger.removeAppender(appender);
+    appender.close();
+    long elapsedWritten = System.nanoTime() - startTime;
+
+    long[] allLatencies = new long[numThreads * numMessages];
+    for (int t = 0; t < numThreads; t++) {
+      System.arraycopy(latencies[t], 0, allLatencies, t * numMessages, numMessages);
+    }
+    Arrays.sort(allLatencies);
+
+    long totalMessages = (long) numThreads * numMessages;
+    String dropped = "";
+    if (appender instanceof Log4jAsyncAppender) {
+      dropped = String.format(", %d dropped", ((Log4jAsyncAppender) appender).getDroppedEventCount());
+    }
+    System.out.format("%-16s %10.1f calls/sec, %10.1f written/sec, call p50 %6d ns, p99 %8d ns, max %10d ns%s%n",
+        name, totalMessages / (elapsed / 1e9), totalMessages / (elapsedWritten / 1e9),
+        allLatencies[allLatencies.length / 2], allLatencies[(int) (allLatencies.length * 0.99)],
+        allLatencies[allLatencies.length - 1], dropped);
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.launcher.bootstrap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Tests for the {@link Log4jAsyncAppender}.
+ *
+ * @author Keith M. Hughes
+ */
+public class Log4jAsyncAppenderTest {
+
+  private Logger logger;
+  private CollectingAppender collectingAppender;
+  private Log4jAsyncAppender asyncAppender;
+
+  @Before
+  public void setup() {
+    logger = Logger.getLogger("interactivespaces.test.async");
+    logger.setAdditivity(false);
+    logger.setLevel(Level.DEBUG);
+
+    collectingAppender = new CollectingAppender();
+
+    asyncAppender = new Log4jAsyncAppender();
+    asyncAppender.setName("test");
+    asyncAppender.addAppender(collectingAppender);
+  }
+
+  @After
+  public void cleanup() {
+    collectingAppender.release();
+    asyncAppender.close();
+    logger.removeAllAppenders();
+  }
+
+  /**
+   * Test that all events are written in order once the appender is closed.
+   */
+  @Test
+  public void testAllEventsWritten() {
+    asyncAppender.setBatchSize(16);
+    asyncAppender.activateOptions();
+    logger.addAppender(asyncAppender);
+    collectingAppender.release();
+
+    for (int i = 0; i < 1000; i++) {
+      logger.info("message " + i);
+    }
+    asyncAppender.close();
+
+    List<LoggingEvent> events = collectingAppender.getEvents();
+    assertEquals(1000, events.size());
+    for (int i = 0; i < 1000; i++) {
+      assertEquals("message " + i, events.get(i).getRenderedMessage());
+    }
+    assertEquals(0, asyncAppender.getDroppedEventCount());
+  }
+
+  /**
+   * Test that events are dropped and reported when the buffer is full and all events can be dropped.
+   */
+  @Test
+  public void testDropAll() {
+    asyncAppender.setBufferSize(2);
+    asyncAppender.setOverflowPolicy("drop-all");
+    asyncAppender.activateOptions();
+    logger.addAppender(asyncAppender);
+
+    for (int i = 0; i < 10; i++) {
+      logger.error("message " + i);
+    }
+    long dropped = asyncAppender.getDroppedEventCount();
+    assertTrue(dropped >= 7);
+
+    collectingAppender.release();
+    asyncAppender.close();
+
+    List<LoggingEvent> events = collectingAppender.getEvents();
+    assertEquals(10 - dropped + 1, events.size());
+
+    LoggingEvent warning = null;
+    for (LoggingEvent event : events) {
+      if (event.getLevel() == Level.WARN) {
+        warning = event;
+      }
+    }
+    assertTrue(warning.getRenderedMessage().contains(Long.toString(dropped)));
+  }
+
+  /**
+   * Test that only debug events are dropped when the buffer is full and debug events can be dropped.
+   */
+  @Test
+  public void testDropDebug() {
+    asyncAppender.setBufferSize(1);
+    asyncAppender.setOverflowPolicy("drop-debug");
+    asyncAppender.activateOptions();
+    logger.addAppender(asyncAppender);
+
+    for (int i = 0; i < 5; i++) {
+      logger.debug("message " + i);
+    }
+    long dropped = asyncAppender.getDroppedEventCount();
+    assertTrue(dropped >= 3);
+
+    collectingAppender.release();
+    logger.info("kept");
+    asyncAppender.close();
+
+    List<LoggingEvent> events = collectingAppender.getEvents();
+    assertEquals("kept", events.get(events.size() - 1).getRenderedMessage());
+    assertEquals(dropped, asyncAppender.getDroppedEventCount());
+  }
+
+  /**
+   * An appender which collects events once it is released.
+   */
+  private static class CollectingAppender extends AppenderSkeleton {
+
+    /**
+     * The events appended.
+     */
+    private final List<LoggingEvent> events = Collections.synchronizedList(new ArrayList<LoggingEvent>());
+
+    /**
+     * The latch holding back appending.
+     */
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    @Override
+    protected void append(LoggingEvent event) {
+      try {
+        released.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+
+      events.add(event);
+    }
+
+    /**
+     * Let appending proceed.
+     */
+    public void release() {
+      released.countDown();
+    }
+
+    /**
+     * Get a copy of the events appended.
+     *
+     * @return the events
+     */
+    public List<LoggingEvent> getEvents() {
+      synchronized (events) {
+        return new ArrayList<LoggingEvent>(events);
+      }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public boolean requiresLayout() {
+      return false;
+    }
+  }
+}
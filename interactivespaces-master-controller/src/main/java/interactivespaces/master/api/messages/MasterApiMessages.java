@@ -564,6 +564,22 @@ public class MasterApiMessages {
    */
   public static final String MASTER_API_COMMAND_NAMEDSCRIPT_DELETE = MASTER_API_COMMAND_PREFIX_NAMEDSCRIPT + "/delete";
 
+  /**
+   * Prefix for master support commands.
+   */
+  public static final String MASTER_API_COMMAND_PREFIX_SUPPORT = "/admin/support";
+
+  /**
+   * Web socket command for getting the statistics of the repository caches.
+   */
+  public static final String MASTER_API_COMMAND_SUPPORT_REPOSITORY_CACHE_STATISTICS = MASTER_API_COMMAND_PREFIX_SUPPORT
+      + "/repository/cache/statistics";
+
+  /**
+   * Web socket command for getting the metrics of the master.
+   */
+  public static final String MASTER_API_COMMAND_SUPPORT_METRICS = MASTER_API_COMMAND_PREFIX_SUPPORT + "/metrics";
+
   /**
    * Parameter name for the ID of the entity in the Master API message.
    */
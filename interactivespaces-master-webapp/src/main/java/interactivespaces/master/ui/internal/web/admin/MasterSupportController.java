@@ -76,6 +76,18 @@ public class MasterSupportController extends BaseSpaceMasterController {
     return masterApiMasterSupportManager.importMasterDomainDescription();
   }
 
+  @RequestMapping(value = "/admin/support/repositoryCacheStatistics.json", method = RequestMethod.GET)
+  public @ResponseBody
+  Map<String, ? extends Object> repositoryCacheStatistics() {
+    return masterApiMasterSupportManager.getRepositoryCacheStatistics();
+  }
+
+  @RequestMapping(value = "/admin/support/metrics.json", method = RequestMethod.GET)
+  public @ResponseBody
+  Map<String, ? extends Object> metrics() {
+    return masterApiMasterSupportManager.getMetrics();
+  }
+
   /**
    * @param masterApiMasterSupportManager
    *          the masterApiMasterSupportManager to set
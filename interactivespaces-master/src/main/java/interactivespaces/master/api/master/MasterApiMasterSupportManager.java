@@ -40,4 +40,18 @@ public interface MasterApiMasterSupportManager {
    * @return the Master API response
    */
   Map<String, Object> importMasterDomainDescription();
+
+  /**
+   * Get the hit and miss statistics of the repository caches.
+   *
+   * @return the Master API response, the data is a map of repository name to the statistics of its caches
+   */
+  Map<String, Object> getRepositoryCacheStatistics();
+
+  /**
+   * Get the current values of the metrics recorded by the master.
+   *
+   * @return the Master API response, the data is a map of metric name to value
+   */
+  Map<String, Object> getMetrics();
 }
@@ -20,8 +20,9 @@ import interactivespaces.master.api.master.MasterApiMasterSupportManager;
 import interactivespaces.master.api.messages.MasterApiMessageSupport;
 import interactivespaces.master.api.messages.MasterApiMessages;
 import interactivespaces.master.server.services.MasterSupportManager;
-import interactivespaces.util.io.FileSupport;
-import interactivespaces.util.io.FileSupportImpl;
+import interactivespaces.master.server.services.internal.cache.CachingRepository;
+
+import com.google.common.collect.Maps;
 
 import java.io.File;
 import java.util.Map;
@@ -44,16 +45,14 @@ public class BasicMasterApiMasterSupportManager extends BaseMasterApiManager imp
   private MasterSupportManager masterSupportManager;
 
   /**
-   * The file support to use.
+   * The repositories which cache their entities, indexed by repository name.
    */
-  private final FileSupport fileSupport = FileSupportImpl.INSTANCE;
+  private Map<String, CachingRepository> cachingRepositories = Maps.newHashMap();
 
   @Override
   public Map<String, Object> getMasterDomainDescription() {
     try {
-      String description = masterSupportManager.getMasterDomainDescription();
-
-      fileSupport.writeFile(new File(MASTER_DOMAIN_FILE), description);
+      masterSupportManager.writeMasterDomainDescription(new File(MASTER_DOMAIN_FILE));
 
       return MasterApiMessageSupport.getSimpleSuccessResponse();
     } catch (Throwable e) {
@@ -66,9 +65,7 @@ public class BasicMasterApiMasterSupportManager extends BaseMasterApiManager imp
   @Override
   public Map<String, Object> importMasterDomainDescription() {
     try {
-      String description = fileSupport.readFile(new File(MASTER_DOMAIN_FILE));
-
-      masterSupportManager.importMasterDomainDescription(description);
+      masterSupportManager.importMasterDomainDescription(new File(MASTER_DOMAIN_FILE));
 
       return MasterApiMessageSupport.getSimpleSuccessResponse();
     } catch (Throwable e) {
@@ -78,6 +75,21 @@ public class BasicMasterApiMasterSupportManager extends BaseMasterApiManager imp
     }
   }
 
+  @Override
+  public Map<String, Object> getRepositoryCacheStatistics() {
+    Map<String, Object> data = Maps.newHashMap();
+    for (Map.Entry<String, CachingRepository> entry : cachingRepositories.entrySet()) {
+      data.put(entry.getKey(), entry.getValue().getCacheStatistics());
+    }
+
+    return MasterApiMessageSupport.getSuccessResponse(data);
+  }
+
+  @Override
+  public Map<String, Object> getMetrics() {
+    return MasterApiMessageSupport.getSuccessResponse(spaceEnvironment.getMetricsRegistry().getSnapshot());
+  }
+
   /**
    * @param masterSupportManager
    *          the masterSupportManager to set
@@ -85,4 +97,14 @@ public class BasicMasterApiMasterSupportManager extends BaseMasterApiManager imp
   public void setMasterSupportManager(MasterSupportManager masterSupportManager) {
     this.masterSupportManager = masterSupportManager;
   }
+
+  /**
+   * Set the repositories which cache their entities.
+   *
+   * @param cachingRepositories
+   *          the caching repositories, indexed by repository name
+   */
+  public void setCachingRepositories(Map<String, CachingRepository> cachingRepositories) {
+    this.cachingRepositories = cachingRepositories;
+  }
 }
@@ -22,6 +22,7 @@ import interactivespaces.activity.ActivityState;
 import interactivespaces.domain.basic.LiveActivity;
 import interactivespaces.master.api.master.MasterApiActivityManager;
 import interactivespaces.master.api.master.MasterApiAutomationManager;
+import interactivespaces.master.api.master.MasterApiMasterSupportManager;
 import interactivespaces.master.api.master.MasterApiSpaceControllerManager;
 import interactivespaces.master.api.master.MasterWebsocketManager;
 import interactivespaces.master.api.messages.MasterApiMessageSupport;
@@ -107,6 +108,11 @@ public class StandardMasterWebsocketManager extends BaseMasterApiManager impleme
    */
   private MasterApiAutomationManager masterApiAutomationManager;
 
+  /**
+   * The Master API manager for master support.
+   */
+  private MasterApiMasterSupportManager masterApiMasterSupportManager;
+
   /**
    * A mapping of command name to the handler for that command.
    */
@@ -772,6 +778,19 @@ public class StandardMasterWebsocketManager extends BaseMasterApiManager impleme
         return masterApiAutomationManager.deleteNamedScript(getEntityId(commandArgs));
       }
     });
+    registerMasterApiHandler(new MasterApiWebSocketCommandHandler(
+        MasterApiMessages.MASTER_API_COMMAND_SUPPORT_REPOSITORY_CACHE_STATISTICS) {
+      @Override
+      public Map<String, Object> execute(Map<String, Object> commandArgs) {
+        return masterApiMasterSupportManager.getRepositoryCacheStatistics();
+      }
+    });
+    registerMasterApiHandler(new MasterApiWebSocketCommandHandler(MasterApiMessages.MASTER_API_COMMAND_SUPPORT_METRICS) {
+      @Override
+      public Map<String, Object> execute(Map<String, Object> commandArgs) {
+        return masterApiMasterSupportManager.getMetrics();
+      }
+    });
   }
 
   @Override
@@ -1079,6 +1098,14 @@ public class StandardMasterWebsocketManager extends BaseMasterApiManager impleme
     this.masterApiAutomationManager = masterApiAutomationManager;
   }
 
+  /**
+   * @param masterApiMasterSupportManager
+   *          the master support manager to set
+   */
+  public void setMasterApiMasterSupportManager(MasterApiMasterSupportManager masterApiMasterSupportManager) {
+    this.masterApiMasterSupportManager = masterApiMasterSupportManager;
+  }
+
   /**
    * Command handler for a web socket command.
    *
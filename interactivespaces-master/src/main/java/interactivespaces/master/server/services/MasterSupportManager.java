@@ -16,6 +16,8 @@
 
 package interactivespaces.master.server.services;
 
+import java.io.File;
+
 /**
  * Manager for supporting master operations.
  *
@@ -47,4 +49,28 @@ public interface MasterSupportManager {
    *          the description to import
    */
   void importMasterDomainDescription(String description);
+
+  /**
+   * Write a description of the entire master domain to a file.
+   *
+   * <p>
+   * The description is streamed to the file, so this is preferred over {@link #getMasterDomainDescription()} for large
+   * domains.
+   *
+   * @param descriptionFile
+   *          the file to write the description to
+   */
+  void writeMasterDomainDescription(File descriptionFile);
+
+  /**
+   * Import a master domain description from a file.
+   *
+   * <p>
+   * The description is streamed from the file and imported in batches, so this is preferred over
+   * {@link #importMasterDomainDescription(String)} for large domains.
+   *
+   * @param descriptionFile
+   *          the file containing the description to import
+   */
+  void importMasterDomainDescription(File descriptionFile);
 }
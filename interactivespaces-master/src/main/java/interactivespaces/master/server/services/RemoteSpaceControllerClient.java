@@ -74,11 +74,22 @@ public interface RemoteSpaceControllerClient extends ManagedResource {
   /**
    * Request the status of a controller.
    *
+   * <p>
+   * Only the changes since the last status received from the controller are requested, if there is one.
+   *
    * @param controller
    *          the controller to get the status from
    */
   void requestStatus(ActiveSpaceController controller);
 
+  /**
+   * Request the full status of a controller, whether or not a status has been received from it before.
+   *
+   * @param controller
+   *          the controller to get the status from
+   */
+  void requestFullStatus(ActiveSpaceController controller);
+
   /**
    * Request the shut down of all activities running on a controller.
    *
@@ -20,9 +20,31 @@ import interactivespaces.master.server.services.ActivityRepository;
 import interactivespaces.master.server.services.AutomationRepository;
 import interactivespaces.master.server.services.MasterSupportManager;
 import interactivespaces.master.server.services.SpaceControllerRepository;
-import interactivespaces.master.server.services.internal.support.JdomMasterDomainDescriptionCreator;
-import interactivespaces.master.server.services.internal.support.JdomMasterDomainDescriptionImporter;
+import interactivespaces.master.server.services.internal.support.MasterDomainDescriptionProgressListener;
+import interactivespaces.master.server.services.internal.support.MasterDomainTransactionRunner;
+import interactivespaces.master.server.services.internal.support.StaxMasterDomainDescriptionCreator;
+import interactivespaces.master.server.services.internal.support.StaxMasterDomainDescriptionImporter;
 import interactivespaces.system.InteractiveSpacesEnvironment;
+import interactivespaces.util.io.FileSupport;
+import interactivespaces.util.io.FileSupportImpl;
+
+import com.google.common.base.Charsets;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
 
 /**
  * A basic implementation of the {@link MasterSupportManager}.
@@ -31,6 +53,13 @@ import interactivespaces.system.InteractiveSpacesEnvironment;
  */
 public class BasicMasterSupportManager implements MasterSupportManager {
 
+  /**
+   * Configuration property giving the number of entities saved in a single transaction when importing a master domain
+   * description.
+   */
+  public static final String CONFIGURATION_NAME_MASTER_DOMAIN_IMPORT_BATCH_SIZE =
+      "interactivespaces.master.domain.import.batch.size";
+
   /**
    * Repository for activity entities.
    */
@@ -51,6 +80,16 @@ public class BasicMasterSupportManager implements MasterSupportManager {
    */
   private InteractiveSpacesEnvironment spaceEnvironment;
 
+  /**
+   * Runs each batch of an import in a transaction, {@code null} if there is no transaction manager.
+   */
+  private MasterDomainTransactionRunner transactionRunner;
+
+  /**
+   * The file support to use.
+   */
+  private final FileSupport fileSupport = FileSupportImpl.INSTANCE;
+
   @Override
   public void startup() {
     // Nothing right now
@@ -63,19 +102,88 @@ public class BasicMasterSupportManager implements MasterSupportManager {
 
   @Override
   public String getMasterDomainDescription() {
-    JdomMasterDomainDescriptionCreator creator = new JdomMasterDomainDescriptionCreator();
+    StringWriter out = new StringWriter();
+    writeMasterDomainDescription(out);
 
-    return creator.newDescription(activityRepository, spaceControllerRepository, automationRepository);
+    return out.toString();
   }
 
   @Override
   public void importMasterDomainDescription(String description) {
-    JdomMasterDomainDescriptionImporter importer = new JdomMasterDomainDescriptionImporter();
+    importMasterDomainDescription(new StringReader(description));
+  }
+
+  @Override
+  public void writeMasterDomainDescription(File descriptionFile) {
+    Writer out = null;
+    try {
+      out =
+          new BufferedWriter(new OutputStreamWriter(fileSupport.newFileOutputStream(descriptionFile), Charsets.UTF_8));
+      writeMasterDomainDescription(out);
+    } finally {
+      fileSupport.close(out, true);
+    }
+  }
+
+  @Override
+  public void importMasterDomainDescription(File descriptionFile) {
+    Reader in = null;
+    try {
+      in = new BufferedReader(new InputStreamReader(fileSupport.newFileInputStream(descriptionFile), Charsets.UTF_8));
+      importMasterDomainDescription(in);
+    } finally {
+      fileSupport.close(in, false);
+    }
+  }
 
-    importer.importDescription(description, activityRepository, spaceControllerRepository, automationRepository,
+  /**
+   * Write a description of the entire master domain.
+   *
+   * @param out
+   *          where to write the description
+   */
+  private void writeMasterDomainDescription(Writer out) {
+    StaxMasterDomainDescriptionCreator creator =
+        new StaxMasterDomainDescriptionCreator(newProgressListener("Exported"));
+
+    creator.writeDescription(out, activityRepository, spaceControllerRepository, automationRepository);
+  }
+
+  /**
+   * Import a master domain description.
+   *
+   * @param in
+   *          where to read the description from
+   */
+  private void importMasterDomainDescription(Reader in) {
+    int batchSize =
+        spaceEnvironment.getSystemConfiguration().getPropertyInteger(CONFIGURATION_NAME_MASTER_DOMAIN_IMPORT_BATCH_SIZE,
+            StaxMasterDomainDescriptionImporter.BATCH_SIZE_DEFAULT);
+    StaxMasterDomainDescriptionImporter importer =
+        new StaxMasterDomainDescriptionImporter(batchSize, transactionRunner, newProgressListener("Imported"));
+
+    importer.importDescription(in, activityRepository, spaceControllerRepository, automationRepository,
         spaceEnvironment.getTimeProvider());
   }
 
+  /**
+   * Create a progress listener which logs the progress.
+   *
+   * @param operation
+   *          the operation being performed, used in the log message
+   *
+   * @return the progress listener
+   */
+  private MasterDomainDescriptionProgressListener newProgressListener(final String operation) {
+    return new MasterDomainDescriptionProgressListener() {
+      @Override
+      public void onProgress(String sectionName, int numberProcessed) {
+        spaceEnvironment.getLog().info(
+            String.format("%s %d entities in master domain section %s", operation, numberProcessed, sectionName));
+      }
+    };
+  }
+
   /**
    * @param activityRepository
    *          the activityRepository to set
@@ -107,4 +215,30 @@ public class BasicMasterSupportManager implements MasterSupportManager {
   public void setSpaceEnvironment(InteractiveSpacesEnvironment spaceEnvironment) {
     this.spaceEnvironment = spaceEnvironment;
   }
+
+  /**
+   * Set the transaction manager used to import master domain descriptions in batches.
+   *
+   * <p>
+   * Each batch gets a new transaction, even if the import is called inside a transaction, so that a batch is
+   * committed as soon as it is complete. Without a transaction manager each entity is saved in its own transaction.
+   *
+   * @param transactionManager
+   *          the transaction manager to set
+   */
+  public void setTransactionManager(PlatformTransactionManager transactionManager) {
+    final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    transactionRunner = new MasterDomainTransactionRunner() {
+      @Override
+      public void runInTransaction(final Runnable work) {
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+          @Override
+          protected void doInTransactionWithoutResult(TransactionStatus status) {
+            work.run();
+          }
+        });
+      }
+    };
+  }
 }
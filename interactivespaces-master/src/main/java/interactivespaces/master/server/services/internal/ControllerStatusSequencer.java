@@ -0,0 +1,293 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.master.server.services.internal;
+
+import com.google.common.collect.Maps;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Follows the sequence numbers of the status updates from space controllers so that the master can keep the status of
+ * a controller up to date from the changes alone.
+ *
+ * <p>
+ * A controller numbers every live activity status change and sends the changes since the status the master last saw.
+ * As long as every update starts where the previous one ended, the changes can be applied directly. If an update was
+ * lost, the master asks for one full status of the controller and continues from there.
+ *
+ * <p>
+ * Sequence numbers start over when a controller restarts, so every update also carries a session ID for the run of
+ * the controller.
+ *
+ * @author Keith M. Hughes
+ */
+public class ControllerStatusSequencer {
+
+  /**
+   * Default number of milliseconds to wait for a requested full status before asking again.
+   */
+  public static final long RESYNC_TIMEOUT_DEFAULT = 10000;
+
+  /**
+   * What to do with a status change update.
+   *
+   * @author Keith M. Hughes
+   */
+  public enum UpdateAction {
+
+    /**
+     * The changes follow on from the current status and should be applied.
+     */
+    APPLY,
+
+    /**
+     * The changes are already part of the current status, or a full status has been requested and is expected soon.
+     * The changes should be dropped.
+     */
+    IGNORE,
+
+    /**
+     * Changes have been missed. The changes should be dropped and a full status requested from the controller.
+     */
+    RESYNC
+  }
+
+  /**
+   * The position of each controller, keyed by controller UUID.
+   */
+  private final ConcurrentMap<String, ControllerPosition> positions = Maps.newConcurrentMap();
+
+  /**
+   * The number of milliseconds to wait for a requested full status before asking again.
+   */
+  private final long resyncTimeout;
+
+  /**
+   * Construct a sequencer with the default resync timeout.
+   */
+  public ControllerStatusSequencer() {
+    this(RESYNC_TIMEOUT_DEFAULT);
+  }
+
+  /**
+   * Construct a sequencer.
+   *
+   * @param resyncTimeout
+   *          the number of milliseconds to wait for a requested full status before asking again
+   */
+  public ControllerStatusSequencer(long resyncTimeout) {
+    this.resyncTimeout = resyncTimeout;
+  }
+
+  /**
+   * A full status has been received from a controller.
+   *
+   * @param controllerUuid
+   *          UUID of the controller
+   * @param sessionId
+   *          the session ID of the status
+   * @param sequenceNumber
+   *          the sequence number of the status
+   *
+   * @return {@code true} if the status should be applied, {@code false} if it is older than the current status
+   */
+  public boolean onFullStatus(String controllerUuid, long sessionId, long sequenceNumber) {
+    ControllerPosition position = getPosition(controllerUuid);
+    synchronized (position) {
+      if (position.known && position.sessionId == sessionId && sequenceNumber < position.sequenceNumber) {
+        return false;
+      }
+
+      position.known = true;
+      position.sessionId = sessionId;
+      position.sequenceNumber = sequenceNumber;
+      position.resyncRequestTime = 0;
+
+      return true;
+    }
+  }
+
+  /**
+   * A status change update has been received from a controller.
+   *
+   * @param controllerUuid
+   *          UUID of the controller
+   * @param sessionId
+   *          the session ID of the update
+   * @param baseSequenceNumber
+   *          the sequence number of the status the changes are relative to
+   * @param sequenceNumber
+   *          the sequence number of the last change in the update
+   *
+   * @return what to do with the update
+   */
+  public UpdateAction onDeltaStatus(String controllerUuid, long sessionId, long baseSequenceNumber,
+      long sequenceNumber) {
+    ControllerPosition position = getPosition(controllerUuid);
+    synchronized (position) {
+      if (position.known && position.sessionId == sessionId && baseSequenceNumber <= position.sequenceNumber) {
+        if (sequenceNumber <= position.sequenceNumber) {
+          return UpdateAction.IGNORE;
+        }
+
+        // The changes are the latest status of each live activity, so changes overlapping the current status can
+        // be applied again.
+        position.sequenceNumber = sequenceNumber;
+
+        return UpdateAction.APPLY;
+      }
+
+      long now = System.currentTimeMillis();
+      if (position.resyncRequestTime != 0 && now - position.resyncRequestTime < resyncTimeout) {
+        return UpdateAction.IGNORE;
+      }
+
+      position.resyncRequestTime = now;
+
+      return UpdateAction.RESYNC;
+    }
+  }
+
+  /**
+   * Get the session ID and sequence number of the current status of a controller.
+   *
+   * @param controllerUuid
+   *          UUID of the controller
+   *
+   * @return the current status, or {@code null} if there is no current status for the controller
+   */
+  public StatusPosition getCurrentStatus(String controllerUuid) {
+    ControllerPosition position = positions.get(controllerUuid);
+    if (position != null) {
+      synchronized (position) {
+        if (position.known) {
+          return new StatusPosition(position.sessionId, position.sequenceNumber);
+        }
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Forget the status of a controller, the next update from the controller must be a full status.
+   *
+   * @param controllerUuid
+   *          UUID of the controller
+   */
+  public void reset(String controllerUuid) {
+    positions.remove(controllerUuid);
+  }
+
+  /**
+   * Get the position of a controller, creating it if necessary.
+   *
+   * @param controllerUuid
+   *          UUID of the controller
+   *
+   * @return the position
+   */
+  private ControllerPosition getPosition(String controllerUuid) {
+    ControllerPosition position = positions.get(controllerUuid);
+    if (position == null) {
+      ControllerPosition newPosition = new ControllerPosition();
+      position = positions.putIfAbsent(controllerUuid, newPosition);
+      if (position == null) {
+        position = newPosition;
+      }
+    }
+
+    return position;
+  }
+
+  /**
+   * The session ID and sequence number of a controller status.
+   *
+   * @author Keith M. Hughes
+   */
+  public static class StatusPosition {
+
+    /**
+     * The session ID of the status.
+     */
+    private final long sessionId;
+
+    /**
+     * The sequence number of the status.
+     */
+    private final long sequenceNumber;
+
+    /**
+     * Construct a new status position.
+     *
+     * @param sessionId
+     *          the session ID of the status
+     * @param sequenceNumber
+     *          the sequence number of the status
+     */
+    public StatusPosition(long sessionId, long sequenceNumber) {
+      this.sessionId = sessionId;
+      this.sequenceNumber = sequenceNumber;
+    }
+
+    /**
+     * Get the session ID of the status.
+     *
+     * @return the session ID
+     */
+    public long getSessionId() {
+      return sessionId;
+    }
+
+    /**
+     * Get the sequence number of the status.
+     *
+     * @return the sequence number
+     */
+    public long getSequenceNumber() {
+      return sequenceNumber;
+    }
+  }
+
+  /**
+   * The current status position of a controller.
+   *
+   * @author Keith M. Hughes
+   */
+  private static class ControllerPosition {
+
+    /**
+     * {@code true} if a full status has been received from the controller.
+     */
+    private boolean known;
+
+    /**
+     * The session ID of the current status.
+     */
+    private long sessionId;
+
+    /**
+     * The sequence number of the current status.
+     */
+    private long sequenceNumber;
+
+    /**
+     * The time a full status was last requested, {@code 0} if no request is outstanding.
+     */
+    private long resyncRequestTime;
+  }
+}
@@ -142,7 +142,7 @@ public class StandardActiveSpaceControllerManager implements InternalActiveSpace
 
     // To make sure something is listening for the request.
     ActiveSpaceController activeSpaceController = getActiveSpaceController(spaceController);
-    remoteSpaceControllerClient.requestStatus(activeSpaceController);
+    remoteSpaceControllerClient.requestFullStatus(activeSpaceController);
   }
 
   @Override
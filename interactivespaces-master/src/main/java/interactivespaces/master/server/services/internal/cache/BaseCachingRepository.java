@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.master.server.services.internal.cache;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Support for repositories which cache their entities.
+ *
+ * @author Keith M. Hughes
+ */
+public abstract class BaseCachingRepository implements CachingRepository {
+
+  /**
+   * Run a cache invalidation now and, if there is a transaction in progress, again once the transaction completes.
+   *
+   * <p>
+   * Until the transaction commits other transactions still read the old entity from the database, so the second
+   * invalidation removes anything they put into the cache in the meantime.
+   *
+   * @param invalidation
+   *          the invalidation to run
+   */
+  protected void invalidate(final Runnable invalidation) {
+    invalidation.run();
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+        @Override
+        public void afterCompletion(int status) {
+          invalidation.run();
+        }
+      });
+    }
+  }
+}
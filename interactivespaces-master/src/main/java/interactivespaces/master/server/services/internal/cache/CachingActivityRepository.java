@@ -0,0 +1,427 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.master.server.services.internal.cache;
+
+import interactivespaces.domain.basic.Activity;
+import interactivespaces.domain.basic.ActivityConfiguration;
+import interactivespaces.domain.basic.ActivityDependency;
+import interactivespaces.domain.basic.ConfigurationParameter;
+import interactivespaces.domain.basic.LiveActivity;
+import interactivespaces.domain.basic.LiveActivityGroup;
+import interactivespaces.domain.basic.SpaceController;
+import interactivespaces.domain.basic.pojo.SimpleLiveActivity;
+import interactivespaces.domain.space.Space;
+import interactivespaces.expression.FilterExpression;
+import interactivespaces.master.server.services.ActivityRepository;
+
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An activity repository which caches activities and live activities read from another repository.
+ *
+ * <p>
+ * Activities are cached by ID, live activities by both ID and UUID. Entities are removed from the cache when they are
+ * saved or deleted through this repository. A live activity contains its activity and space controller, so saving or
+ * deleting either of them clears all cached live activities.
+ *
+ * <p>
+ * Cached entities are shared by all callers. Anyone modifying an entity must save it, or the modification will be
+ * seen by other callers until the entity leaves the cache.
+ *
+ * @author Keith M. Hughes
+ */
+public class CachingActivityRepository extends BaseCachingRepository implements ActivityRepository {
+
+  /**
+   * Cache name for activities by ID.
+   */
+  public static final String CACHE_NAME_ACTIVITY_BY_ID = "activityById";
+
+  /**
+   * Cache name for live activities by ID.
+   */
+  public static final String CACHE_NAME_LIVE_ACTIVITY_BY_ID = "liveActivityById";
+
+  /**
+   * Cache name for live activities by UUID.
+   */
+  public static final String CACHE_NAME_LIVE_ACTIVITY_BY_UUID = "liveActivityByUuid";
+
+  /**
+   * The repository being cached.
+   */
+  private ActivityRepository delegate;
+
+  /**
+   * Activities indexed by ID.
+   */
+  private final EntityCache<Activity> activitiesById = new EntityCache<Activity>();
+
+  /**
+   * Live activities indexed by ID.
+   */
+  private final EntityCache<LiveActivity> liveActivitiesById = new EntityCache<LiveActivity>();
+
+  /**
+   * Live activities indexed by UUID.
+   */
+  private final EntityCache<LiveActivity> liveActivitiesByUuid = new EntityCache<LiveActivity>();
+
+  /**
+   * Loads activities by ID.
+   */
+  private final EntityCache.EntityLoader<Activity> activityByIdLoader = new EntityCache.EntityLoader<Activity>() {
+    @Override
+    public Activity load(String id) {
+      return delegate.getActivityById(id);
+    }
+  };
+
+  /**
+   * Loads live activities by ID.
+   */
+  private final EntityCache.EntityLoader<LiveActivity> liveActivityByIdLoader =
+      new EntityCache.EntityLoader<LiveActivity>() {
+        @Override
+        public LiveActivity load(String id) {
+          return delegate.getLiveActivityById(id);
+        }
+      };
+
+  /**
+   * Loads live activities by UUID.
+   */
+  private final EntityCache.EntityLoader<LiveActivity> liveActivityByUuidLoader =
+      new EntityCache.EntityLoader<LiveActivity>() {
+        @Override
+        public LiveActivity load(String uuid) {
+          return delegate.getLiveActivityByUuid(uuid);
+        }
+      };
+
+  @Override
+  public Activity newActivity() {
+    return delegate.newActivity();
+  }
+
+  @Override
+  public ActivityDependency newActivityDependency() {
+    return delegate.newActivityDependency();
+  }
+
+  @Override
+  public ActivityConfiguration newActivityConfiguration() {
+    return delegate.newActivityConfiguration();
+  }
+
+  @Override
+  public ConfigurationParameter newActivityConfigurationParameter() {
+    return delegate.newActivityConfigurationParameter();
+  }
+
+  @Override
+  public long getNumberActivities() {
+    return delegate.getNumberActivities();
+  }
+
+  @Override
+  public List<Activity> getAllActivities() {
+    return delegate.getAllActivities();
+  }
+
+  @Override
+  public List<Activity> getActivities(FilterExpression filter) {
+    return delegate.getActivities(filter);
+  }
+
+  @Override
+  public Activity getActivityById(String id) {
+    return activitiesById.get(id, activityByIdLoader);
+  }
+
+  @Override
+  public Activity getActivityByNameAndVersion(String identifyingName, String version) {
+    return delegate.getActivityByNameAndVersion(identifyingName, version);
+  }
+
+  @Override
+  public Activity saveActivity(Activity activity) {
+    try {
+      return delegate.saveActivity(activity);
+    } finally {
+      invalidateActivity(activity);
+    }
+  }
+
+  @Override
+  public void deleteActivity(Activity activity) {
+    try {
+      // A cached activity may have been read in another transaction, so delete the one from this transaction.
+      Activity current = (activity.getId() != null) ? delegate.getActivityById(activity.getId()) : null;
+      delegate.deleteActivity((current != null) ? current : activity);
+    } finally {
+      invalidateActivity(activity);
+    }
+  }
+
+  @Override
+  public LiveActivity newLiveActivity() {
+    return delegate.newLiveActivity();
+  }
+
+  @Override
+  public LiveActivity newAndSaveLiveActivity(SimpleLiveActivity liveActivityTemplate) {
+    LiveActivity liveActivity = delegate.newAndSaveLiveActivity(liveActivityTemplate);
+    invalidateLiveActivity(liveActivity);
+
+    return liveActivity;
+  }
+
+  @Override
+  public List<LiveActivity> getAllLiveActivities() {
+    return delegate.getAllLiveActivities();
+  }
+
+  @Override
+  public List<LiveActivity> getLiveActivities(FilterExpression filter) {
+    return delegate.getLiveActivities(filter);
+  }
+
+  @Override
+  public LiveActivity getLiveActivityById(String id) {
+    return liveActivitiesById.get(id, liveActivityByIdLoader);
+  }
+
+  @Override
+  public List<LiveActivity> getLiveActivitiesByController(SpaceController controller) {
+    return delegate.getLiveActivitiesByController(controller);
+  }
+
+  @Override
+  public long getNumberLiveActivitiesByController(SpaceController controller) {
+    return delegate.getNumberLiveActivitiesByController(controller);
+  }
+
+  @Override
+  public List<LiveActivity> getLiveActivitiesByActivity(Activity activity) {
+    return delegate.getLiveActivitiesByActivity(activity);
+  }
+
+  @Override
+  public long getNumberLiveActivitiesByActivity(Activity activity) {
+    return delegate.getNumberLiveActivitiesByActivity(activity);
+  }
+
+  @Override
+  public LiveActivity getLiveActivityByUuid(String uuid) {
+    return liveActivitiesByUuid.get(uuid, liveActivityByUuidLoader);
+  }
+
+  @Override
+  public LiveActivity saveLiveActivity(LiveActivity liveActivity) {
+    try {
+      return delegate.saveLiveActivity(liveActivity);
+    } finally {
+      invalidateLiveActivity(liveActivity);
+    }
+  }
+
+  @Override
+  public void deleteLiveActivity(LiveActivity liveActivity) {
+    try {
+      // A cached live activity may have been read in another transaction, so delete the one from this transaction.
+      LiveActivity current = (liveActivity.getId() != null) ? delegate.getLiveActivityById(liveActivity.getId()) : null;
+      delegate.deleteLiveActivity((current != null) ? current : liveActivity);
+    } finally {
+      invalidateLiveActivity(liveActivity);
+    }
+  }
+
+  @Override
+  public LiveActivityGroup newLiveActivityGroup() {
+    return delegate.newLiveActivityGroup();
+  }
+
+  @Override
+  public List<LiveActivityGroup> getAllLiveActivityGroups() {
+    return delegate.getAllLiveActivityGroups();
+  }
+
+  @Override
+  public List<LiveActivityGroup> getLiveActivityGroups(FilterExpression filter) {
+    return delegate.getLiveActivityGroups(filter);
+  }
+
+  @Override
+  public LiveActivityGroup getLiveActivityGroupById(String id) {
+    return delegate.getLiveActivityGroupById(id);
+  }
+
+  @Override
+  public List<LiveActivityGroup> getLiveActivityGroupsByLiveActivity(LiveActivity liveActivity) {
+    return delegate.getLiveActivityGroupsByLiveActivity(liveActivity);
+  }
+
+  @Override
+  public long getNumberLiveActivityGroupsByLiveActivity(LiveActivity liveActivity) {
+    return delegate.getNumberLiveActivityGroupsByLiveActivity(liveActivity);
+  }
+
+  @Override
+  public LiveActivityGroup saveLiveActivityGroup(LiveActivityGroup liveActivityGroup) {
+    return delegate.saveLiveActivityGroup(liveActivityGroup);
+  }
+
+  @Override
+  public void deleteLiveActivityGroup(LiveActivityGroup liveActivityGroup) {
+    delegate.deleteLiveActivityGroup(liveActivityGroup);
+  }
+
+  @Override
+  public Space newSpace() {
+    return delegate.newSpace();
+  }
+
+  @Override
+  public List<Space> getAllSpaces() {
+    return delegate.getAllSpaces();
+  }
+
+  @Override
+  public List<Space> getSpaces(FilterExpression filter) {
+    return delegate.getSpaces(filter);
+  }
+
+  @Override
+  public Space getSpaceById(String id) {
+    return delegate.getSpaceById(id);
+  }
+
+  @Override
+  public List<Space> getSpacesByLiveActivityGroup(LiveActivityGroup liveActivityGroup) {
+    return delegate.getSpacesByLiveActivityGroup(liveActivityGroup);
+  }
+
+  @Override
+  public long getNumberSpacesByLiveActivityGroup(LiveActivityGroup liveActivityGroup) {
+    return delegate.getNumberSpacesByLiveActivityGroup(liveActivityGroup);
+  }
+
+  @Override
+  public List<Space> getSpacesBySubspace(Space subspace) {
+    return delegate.getSpacesBySubspace(subspace);
+  }
+
+  @Override
+  public long getNumberSpacesBySubspace(Space subspace) {
+    return delegate.getNumberSpacesBySubspace(subspace);
+  }
+
+  @Override
+  public Space saveSpace(Space space) {
+    return delegate.saveSpace(space);
+  }
+
+  @Override
+  public void deleteSpace(Space space) {
+    delegate.deleteSpace(space);
+  }
+
+  @Override
+  public Map<String, Map<String, Object>> getCacheStatistics() {
+    Map<String, Map<String, Object>> statistics = Maps.newHashMap();
+    statistics.put(CACHE_NAME_ACTIVITY_BY_ID, activitiesById.getStatistics());
+    statistics.put(CACHE_NAME_LIVE_ACTIVITY_BY_ID, liveActivitiesById.getStatistics());
+    statistics.put(CACHE_NAME_LIVE_ACTIVITY_BY_UUID, liveActivitiesByUuid.getStatistics());
+
+    return statistics;
+  }
+
+  @Override
+  public void invalidateCaches() {
+    invalidate(new Runnable() {
+      @Override
+      public void run() {
+        activitiesById.invalidateAll();
+        liveActivitiesById.invalidateAll();
+        liveActivitiesByUuid.invalidateAll();
+      }
+    });
+  }
+
+  /**
+   * Remove all live activities from the cache.
+   *
+   * <p>
+   * This is needed when an entity contained in live activities, like a space controller, changes.
+   */
+  public void invalidateLiveActivities() {
+    invalidate(new Runnable() {
+      @Override
+      public void run() {
+        liveActivitiesById.invalidateAll();
+        liveActivitiesByUuid.invalidateAll();
+      }
+    });
+  }
+
+  /**
+   * Remove an activity, and all live activities, from the cache.
+   *
+   * @param activity
+   *          the activity
+   */
+  private void invalidateActivity(final Activity activity) {
+    invalidate(new Runnable() {
+      @Override
+      public void run() {
+        activitiesById.invalidate(activity.getId());
+        liveActivitiesById.invalidateAll();
+        liveActivitiesByUuid.invalidateAll();
+      }
+    });
+  }
+
+  /**
+   * Remove a live activity from the cache.
+   *
+   * @param liveActivity
+   *          the live activity
+   */
+  private void invalidateLiveActivity(final LiveActivity liveActivity) {
+    invalidate(new Runnable() {
+      @Override
+      public void run() {
+        liveActivitiesById.invalidate(liveActivity.getId());
+        liveActivitiesByUuid.invalidate(liveActivity.getUuid());
+      }
+    });
+  }
+
+  /**
+   * Set the repository being cached.
+   *
+   * @param delegate
+   *          the repository being cached
+   */
+  public void setDelegate(ActivityRepository delegate) {
+    this.delegate = delegate;
+  }
+}
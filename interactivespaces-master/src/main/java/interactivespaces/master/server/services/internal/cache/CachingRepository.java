@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.master.server.services.internal.cache;
+
+import java.util.Map;
+
+/**
+ * A repository which caches its entities.
+ *
+ * @author Keith M. Hughes
+ */
+public interface CachingRepository {
+
+  /**
+   * Get the statistics for the caches of the repository.
+   *
+   * @return map of cache name to the statistics for that cache
+   */
+  Map<String, Map<String, Object>> getCacheStatistics();
+
+  /**
+   * Remove everything from the caches of the repository.
+   */
+  void invalidateCaches();
+}
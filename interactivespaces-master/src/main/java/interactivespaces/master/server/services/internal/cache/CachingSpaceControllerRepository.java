@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.master.server.services.internal.cache;
+
+import interactivespaces.domain.basic.ConfigurationParameter;
+import interactivespaces.domain.basic.SpaceController;
+import interactivespaces.domain.basic.SpaceControllerConfiguration;
+import interactivespaces.expression.FilterExpression;
+import interactivespaces.master.server.services.SpaceControllerRepository;
+
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A space controller repository which caches space controllers read from another repository.
+ *
+ * <p>
+ * Space controllers are cached by both ID and UUID, and are removed from the cache when they are saved or deleted
+ * through this repository. Live activities contain their space controller, so saving or deleting a space controller
+ * also clears the live activities cached by the activity repository, if it is caching.
+ *
+ * <p>
+ * Cached entities are shared by all callers. Anyone modifying an entity must save it, or the modification will be
+ * seen by other callers until the entity leaves the cache.
+ *
+ * @author Keith M. Hughes
+ */
+public class CachingSpaceControllerRepository extends BaseCachingRepository implements SpaceControllerRepository {
+
+  /**
+   * Cache name for space controllers by ID.
+   */
+  public static final String CACHE_NAME_SPACE_CONTROLLER_BY_ID = "spaceControllerById";
+
+  /**
+   * Cache name for space controllers by UUID.
+   */
+  public static final String CACHE_NAME_SPACE_CONTROLLER_BY_UUID = "spaceControllerByUuid";
+
+  /**
+   * The repository being cached.
+   */
+  private SpaceControllerRepository delegate;
+
+  /**
+   * The caching activity repository whose live activities contain the space controllers, can be {@code null}.
+   */
+  private CachingActivityRepository activityRepository;
+
+  /**
+   * Space controllers indexed by ID.
+   */
+  private final EntityCache<SpaceController> spaceControllersById = new EntityCache<SpaceController>();
+
+  /**
+   * Space controllers indexed by UUID.
+   */
+  private final EntityCache<SpaceController> spaceControllersByUuid = new EntityCache<SpaceController>();
+
+  /**
+   * Loads space controllers by ID.
+   */
+  private final EntityCache.EntityLoader<SpaceController> spaceControllerByIdLoader =
+      new EntityCache.EntityLoader<SpaceController>() {
+        @Override
+        public SpaceController load(String id) {
+          return delegate.getSpaceControllerById(id);
+        }
+      };
+
+  /**
+   * Loads space controllers by UUID.
+   */
+  private final EntityCache.EntityLoader<SpaceController> spaceControllerByUuidLoader =
+      new EntityCache.EntityLoader<SpaceController>() {
+        @Override
+        public SpaceController load(String uuid) {
+          return delegate.getSpaceControllerByUuid(uuid);
+        }
+      };
+
+  @Override
+  public SpaceController newSpaceController() {
+    return delegate.newSpaceController();
+  }
+
+  @Override
+  public SpaceController newSpaceController(SpaceController template) {
+    return delegate.newSpaceController(template);
+  }
+
+  @Override
+  public SpaceController newSpaceController(String uuid, SpaceController template) {
+    return delegate.newSpaceController(uuid, template);
+  }
+
+  @Override
+  public long getNumberSpaceControllers() {
+    return delegate.getNumberSpaceControllers();
+  }
+
+  @Override
+  public List<SpaceController> getAllSpaceControllers() {
+    return delegate.getAllSpaceControllers();
+  }
+
+  @Override
+  public List<SpaceController> getSpaceControllers(FilterExpression filter) {
+    return delegate.getSpaceControllers(filter);
+  }
+
+  @Override
+  public SpaceController getSpaceControllerById(String id) {
+    return spaceControllersById.get(id, spaceControllerByIdLoader);
+  }
+
+  @Override
+  public SpaceController getSpaceControllerByUuid(String uuid) {
+    return spaceControllersByUuid.get(uuid, spaceControllerByUuidLoader);
+  }
+
+  @Override
+  public SpaceController saveSpaceController(SpaceController controller) {
+    try {
+      return delegate.saveSpaceController(controller);
+    } finally {
+      invalidateSpaceController(controller);
+    }
+  }
+
+  @Override
+  public void deleteSpaceController(SpaceController controller) {
+    try {
+      // A cached controller may have been read in another transaction, so delete the one from this transaction.
+      SpaceController current =
+          (controller.getId() != null) ? delegate.getSpaceControllerById(controller.getId()) : null;
+      delegate.deleteSpaceController((current != null) ? current : controller);
+    } finally {
+      invalidateSpaceController(controller);
+    }
+  }
+
+  @Override
+  public SpaceControllerConfiguration newSpaceControllerConfiguration() {
+    return delegate.newSpaceControllerConfiguration();
+  }
+
+  @Override
+  public ConfigurationParameter newSpaceControllerConfigurationParameter() {
+    return delegate.newSpaceControllerConfigurationParameter();
+  }
+
+  @Override
+  public Map<String, Map<String, Object>> getCacheStatistics() {
+    Map<String, Map<String, Object>> statistics = Maps.newHashMap();
+    statistics.put(CACHE_NAME_SPACE_CONTROLLER_BY_ID, spaceControllersById.getStatistics());
+    statistics.put(CACHE_NAME_SPACE_CONTROLLER_BY_UUID, spaceControllersByUuid.getStatistics());
+
+    return statistics;
+  }
+
+  @Override
+  public void invalidateCaches() {
+    invalidate(new Runnable() {
+      @Override
+      public void run() {
+        spaceControllersById.invalidateAll();
+        spaceControllersByUuid.invalidateAll();
+      }
+    });
+  }
+
+  /**
+   * Remove a space controller, and all live activities, from the cache.
+   *
+   * @param controller
+   *          the space controller
+   */
+  private void invalidateSpaceController(final SpaceController controller) {
+    invalidate(new Runnable() {
+      @Override
+      public void run() {
+        spaceControllersById.invalidate(controller.getId());
+        spaceControllersByUuid.invalidate(controller.getUuid());
+      }
+    });
+
+    if (activityRepository != null) {
+      activityRepository.invalidateLiveActivities();
+    }
+  }
+
+  /**
+   * Set the repository being cached.
+   *
+   * @param delegate
+   *          the repository being cached
+   */
+  public void setDelegate(SpaceControllerRepository delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * Set the caching activity repository whose live activities contain the space controllers.
+   *
+   * @param activityRepository
+   *          the activity repository
+   */
+  public void setActivityRepository(CachingActivityRepository activityRepository) {
+    this.activityRepository = activityRepository;
+  }
+}
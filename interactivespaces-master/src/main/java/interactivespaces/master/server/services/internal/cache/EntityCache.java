@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.master.server.services.internal.cache;
+
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A read-through cache of repository entities keyed by a single index, such as the entity ID or UUID.
+ *
+ * <p>
+ * Only entities which exist are cached. A value loaded while the cache is being invalidated is not cached, so a read
+ * racing with a save can't put a stale entity back into the cache.
+ *
+ * @param <T>
+ *          the type of the entities
+ *
+ * @author Keith M. Hughes
+ */
+public class EntityCache<T> {
+
+  /**
+   * Statistics field for the number of entities in the cache.
+   */
+  public static final String STATISTICS_FIELD_SIZE = "size";
+
+  /**
+   * Statistics field for the number of lookups found in the cache.
+   */
+  public static final String STATISTICS_FIELD_HITS = "hits";
+
+  /**
+   * Statistics field for the number of lookups which went to the repository.
+   */
+  public static final String STATISTICS_FIELD_MISSES = "misses";
+
+  /**
+   * Statistics field for the fraction of lookups found in the cache.
+   */
+  public static final String STATISTICS_FIELD_HIT_RATE = "hitRate";
+
+  /**
+   * Loads entities which aren't in the cache.
+   *
+   * @param <T>
+   *          the type of the entities
+   *
+   * @author Keith M. Hughes
+   */
+  public interface EntityLoader<T> {
+
+    /**
+     * Load an entity.
+     *
+     * @param key
+     *          the key of the entity
+     *
+     * @return the entity, or {@code null} if there is no such entity
+     */
+    T load(String key);
+  }
+
+  /**
+   * The cached entities, indexed by their key.
+   */
+  private final ConcurrentMap<String, T> entities = Maps.newConcurrentMap();
+
+  /**
+   * Incremented every time the cache is invalidated.
+   */
+  private final AtomicLong generation = new AtomicLong();
+
+  /**
+   * The number of lookups found in the cache.
+   */
+  private final AtomicLong hits = new AtomicLong();
+
+  /**
+   * The number of lookups which needed the loader.
+   */
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Get an entity, loading it if it isn't in the cache.
+   *
+   * @param key
+   *          the key of the entity, can be {@code null}
+   * @param loader
+   *          the loader for the entity if it isn't in the cache
+   *
+   * @return the entity, or {@code null} if there is no such entity
+   */
+  public T get(String key, EntityLoader<T> loader) {
+    if (key == null) {
+      return loader.load(key);
+    }
+
+    T entity = entities.get(key);
+    if (entity != null) {
+      hits.incrementAndGet();
+      return entity;
+    }
+
+    misses.incrementAndGet();
+    long loadGeneration = generation.get();
+    entity = loader.load(key);
+    if (entity != null) {
+      entities.putIfAbsent(key, entity);
+
+      // If the cache was invalidated during the load the entity may be stale.
+      if (generation.get() != loadGeneration) {
+        entities.remove(key, entity);
+      }
+    }
+
+    return entity;
+  }
+
+  /**
+   * Remove an entity from the cache.
+   *
+   * @param key
+   *          the key of the entity, can be {@code null}
+   */
+  public void invalidate(String key) {
+    generation.incrementAndGet();
+    if (key != null) {
+      entities.remove(key);
+    }
+  }
+
+  /**
+   * Remove all entities from the cache.
+   */
+  public void invalidateAll() {
+    generation.incrementAndGet();
+    entities.clear();
+  }
+
+  /**
+   * Get the statistics for the cache.
+   *
+   * @return the statistics, using the {@code STATISTICS_FIELD_*} fields
+   */
+  public Map<String, Object> getStatistics() {
+    long numberHits = hits.get();
+    long numberMisses = misses.get();
+    long numberLookups = numberHits + numberMisses;
+
+    Map<String, Object> statistics = Maps.newHashMap();
+    statistics.put(STATISTICS_FIELD_SIZE, entities.size());
+    statistics.put(STATISTICS_FIELD_HITS, numberHits);
+    statistics.put(STATISTICS_FIELD_MISSES, numberMisses);
+    statistics.put(STATISTICS_FIELD_HIT_RATE, (numberLookups != 0) ? (double) numberHits / numberLookups : 0.0);
+
+    return statistics;
+  }
+}
@@ -35,6 +35,8 @@ import interactivespaces.master.server.services.ActiveLiveActivity;
 import interactivespaces.master.server.services.ActiveSpaceController;
 import interactivespaces.master.server.services.RemoteSpaceControllerClient;
 import interactivespaces.master.server.services.RemoteSpaceControllerClientListener;
+import interactivespaces.master.server.services.internal.ControllerStatusSequencer;
+import interactivespaces.master.server.services.internal.ControllerStatusSequencer.StatusPosition;
 import interactivespaces.master.server.services.internal.DataBundleState;
 import interactivespaces.master.server.services.internal.LiveActivityDeleteResult;
 import interactivespaces.master.server.services.internal.MasterDataBundleManager;
@@ -49,6 +51,8 @@ import interactivespaces_msgs.ContainerResourceCommitRequestMessage;
 import interactivespaces_msgs.ContainerResourceCommitResponseMessage;
 import interactivespaces_msgs.ContainerResourceQueryRequestMessage;
 import interactivespaces_msgs.ContainerResourceQueryResponseMessage;
+import interactivespaces_msgs.ControllerDeltaStatus;
+import interactivespaces_msgs.ControllerDeltaStatusRequest;
 import interactivespaces_msgs.ControllerFullStatus;
 import interactivespaces_msgs.ControllerRequest;
 import interactivespaces_msgs.ControllerStatus;
@@ -127,9 +131,9 @@ public class RosRemoteSpaceControllerClient implements RemoteSpaceControllerClie
   private RemoteActivityDeploymentManager remoteActivityDeploymentManager;
 
   /**
-   * Listener for all controller status message updates.
+   * Follows the sequence numbers of the controller status updates.
    */
-  private MessageListener<ControllerStatus> controllerStatusListener;
+  private final ControllerStatusSequencer statusSequencer = new ControllerStatusSequencer();
 
   /**
    * Logger for the controller.
@@ -171,6 +175,16 @@ public class RosRemoteSpaceControllerClient implements RemoteSpaceControllerClie
    */
   private MessageDeserializer<ControllerFullStatus> controllerFullStatusDeserializer;
 
+  /**
+   * ROS message deserializer for the delta controller status.
+   */
+  private MessageDeserializer<ControllerDeltaStatus> controllerDeltaStatusDeserializer;
+
+  /**
+   * ROS message serializer for the delta controller status request.
+   */
+  private MessageSerializer<ControllerDeltaStatusRequest> controllerDeltaStatusRequestSerializer;
+
   /**
    * ROS message serializer for the full controller status.
    */
@@ -226,6 +240,12 @@ public class RosRemoteSpaceControllerClient implements RemoteSpaceControllerClie
 
     controllerFullStatusDeserializer = messageSerializationFactory.newMessageDeserializer(ControllerFullStatus._TYPE);
 
+    controllerDeltaStatusDeserializer =
+        messageSerializationFactory.newMessageDeserializer(ControllerDeltaStatus._TYPE);
+
+    controllerDeltaStatusRequestSerializer =
+        messageSerializationFactory.newMessageSerializer(ControllerDeltaStatusRequest._TYPE);
+
     configurationRequestSerializer = messageSerializationFactory.newMessageSerializer(ConfigurationRequest._TYPE);
 
     containerResourceQueryRequestSerializer =
@@ -240,13 +260,6 @@ public class RosRemoteSpaceControllerClient implements RemoteSpaceControllerClie
     containerResourceCommitResponseDeserializer =
         messageSerializationFactory.newMessageDeserializer(ContainerResourceCommitResponseMessage._TYPE);
 
-    controllerStatusListener = new MessageListener<ControllerStatus>() {
-      @Override
-      public void onNewMessage(ControllerStatus status) {
-        handleRemoteControllerStatusUpdate(status);
-      }
-    };
-
     masterDataBundleManager.startup();
   }
 
@@ -270,6 +283,7 @@ public class RosRemoteSpaceControllerClient implements RemoteSpaceControllerClie
   @Override
   public void disconnect(ActiveSpaceController controller) {
     shutdownCommunicator(controller);
+    statusSequencer.reset(controller.getSpaceController().getUuid());
   }
 
   @Override
@@ -281,6 +295,23 @@ public class RosRemoteSpaceControllerClient implements RemoteSpaceControllerClie
 
   @Override
   public void requestStatus(ActiveSpaceController controller) {
+    StatusPosition currentStatus = statusSequencer.getCurrentStatus(controller.getSpaceController().getUuid());
+    if (currentStatus == null) {
+      requestFullStatus(controller);
+
+      return;
+    }
+
+    ControllerDeltaStatusRequest request = rosMessageFactory.newFromType(ControllerDeltaStatusRequest._TYPE);
+    request.setSessionId(currentStatus.getSessionId());
+    request.setSequenceNumber(currentStatus.getSequenceNumber());
+
+    sendControllerRequest(controller, ControllerRequest.OPERATION_CONTROLLER_DELTA_STATUS,
+        controllerDeltaStatusRequestSerializer.serialize(request));
+  }
+
+  @Override
+  public void requestFullStatus(ActiveSpaceController controller) {
     sendControllerRequest(controller, ControllerRequest.OPERATION_CONTROLLER_STATUS);
   }
 
@@ -522,10 +553,12 @@ public class RosRemoteSpaceControllerClient implements RemoteSpaceControllerClie
   /**
    * Handle controller status updates.
    *
+   * @param controller
+   *          the controller the update is from
    * @param status
    *          The status update.
    */
-  private void handleRemoteControllerStatusUpdate(ControllerStatus status) {
+  private void handleRemoteControllerStatusUpdate(ActiveSpaceController controller, ControllerStatus status) {
     switch (status.getStatus()) {
       case ControllerStatus.STATUS_CONTROLLER_HEARTBEAT:
         handleControllerHeartbeat(status);
@@ -538,6 +571,13 @@ public class RosRemoteSpaceControllerClient implements RemoteSpaceControllerClie
         handleControllerHeartbeat(status);
 
         ControllerFullStatus fullStatus = controllerFullStatusDeserializer.deserialize(status.getPayload());
+        if (!statusSequencer.onFullStatus(status.getControllerUuid(), fullStatus.getSessionId(),
+            fullStatus.getSequenceNumber())) {
+          log.info(String.format("Ignoring controller full status %s, older than the current status",
+              status.getControllerUuid()));
+
+          break;
+        }
 
         List<LiveActivityRuntimeStatus> liveActivityStatuses = fullStatus.getLiveActivityStatuses();
         if (log.isInfoEnabled()) {
@@ -564,6 +604,14 @@ public class RosRemoteSpaceControllerClient implements RemoteSpaceControllerClie
 
         break;
 
+      case ControllerStatus.STATUS_CONTROLLER_DELTA_STATUS:
+        // The controller will only send changes if it is alive.
+        handleControllerHeartbeat(status);
+
+        handleControllerDeltaStatus(controller, status);
+
+        break;
+
       case ControllerStatus.STATUS_CONTROLLER_ACTIVITY_INSTALL:
         LiveActivityDeployStatus deployStatus = liveActivityDeployStatusDeserializer.deserialize(status.getPayload());
 
@@ -640,6 +688,51 @@ public class RosRemoteSpaceControllerClient implements RemoteSpaceControllerClie
     remoteControllerClientListeners.signalSpaceControllerHeartbeat(status.getControllerUuid(), timestamp);
   }
 
+  /**
+   * Handle a controller delta status message.
+   *
+   * <p>
+   * The changes are only applied if they follow on from the current status of the controller. If changes were missed,
+   * a full status is requested instead.
+   *
+   * @param controller
+   *          the controller the status is from
+   * @param status
+   *          the status message containing the delta status
+   */
+  private void handleControllerDeltaStatus(ActiveSpaceController controller, ControllerStatus status) {
+    ControllerDeltaStatus deltaStatus = controllerDeltaStatusDeserializer.deserialize(status.getPayload());
+
+    ControllerStatusSequencer.UpdateAction action =
+        statusSequencer.onDeltaStatus(status.getControllerUuid(), deltaStatus.getSessionId(),
+            deltaStatus.getBaseSequenceNumber(), deltaStatus.getSequenceNumber());
+    switch (action) {
+      case APPLY:
+        for (LiveActivityRuntimeStatus liveActivityStatus : deltaStatus.getLiveActivityStatuses()) {
+          if (log.isDebugEnabled()) {
+            log.debug(String.format("Activity status %s, %d\n", liveActivityStatus.getUuid(),
+                liveActivityStatus.getStatus()));
+          }
+          handleRemoteLiveActivityStatusUpdate(liveActivityStatus);
+        }
+
+        break;
+
+      case RESYNC:
+        log.warn(String.format("Missed status changes from controller %s before sequence number %d, "
+            + "requesting full status", status.getControllerUuid(), deltaStatus.getBaseSequenceNumber()));
+        requestFullStatus(controller);
+
+        break;
+
+      default:
+        if (log.isDebugEnabled()) {
+          log.debug(String.format("Ignoring controller delta status %s, sequence numbers %d to %d",
+              status.getControllerUuid(), deltaStatus.getBaseSequenceNumber(), deltaStatus.getSequenceNumber()));
+        }
+    }
+  }
+
   /**
    * Handle activity status updates.
    *
@@ -758,6 +851,7 @@ public class RosRemoteSpaceControllerClient implements RemoteSpaceControllerClie
    *          the controller status
    */
   private void handleSpaceControllerShutdown(ControllerStatus status) {
+    statusSequencer.reset(status.getControllerUuid());
     remoteControllerClientListeners.signalSpaceControllerShutdown(status.getControllerUuid());
   }
 
@@ -793,7 +887,7 @@ public class RosRemoteSpaceControllerClient implements RemoteSpaceControllerClie
 
       if (communicator == null) {
         communicator = new SpaceControllerCommunicator(controller);
-        communicator.startup(masterRosContext.getMasterNode(), remoteNode, controllerStatusListener);
+        communicator.startup(masterRosContext.getMasterNode(), remoteNode, newControllerStatusListener(controller));
         controllerCommunicators.put(remoteNode, communicator);
 
       }
@@ -802,6 +896,23 @@ public class RosRemoteSpaceControllerClient implements RemoteSpaceControllerClie
     }
   }
 
+  /**
+   * Create a listener for the status message updates from a controller.
+   *
+   * @param controller
+   *          the controller
+   *
+   * @return the listener
+   */
+  private MessageListener<ControllerStatus> newControllerStatusListener(final ActiveSpaceController controller) {
+    return new MessageListener<ControllerStatus>() {
+      @Override
+      public void onNewMessage(ControllerStatus status) {
+        handleRemoteControllerStatusUpdate(controller, status);
+      }
+    };
+  }
+
   /**
    * Shutdown the communicator for a given controller.
    *
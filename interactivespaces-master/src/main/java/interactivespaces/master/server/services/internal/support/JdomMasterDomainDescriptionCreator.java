@@ -120,7 +120,7 @@ public class JdomMasterDomainDescriptionCreator implements MasterDomainDescripti
    *
    * @return the element for the controller
    */
-  private Element newSpaceControllerEntry(SpaceController controller) {
+  Element newSpaceControllerEntry(SpaceController controller) {
     Element controllerElement = new Element(ELEMENT_NAME_INDIVIDUAL_SPACE_CONTROLLER);
     controllerElement.setAttribute(ATTRIBUTE_NAME_ID, controller.getId())
         .addContent(new Element(ELEMENT_NAME_NAME).addContent(controller.getName()))
@@ -194,7 +194,7 @@ public class JdomMasterDomainDescriptionCreator implements MasterDomainDescripti
    *
    * @return the element for the activity
    */
-  private Element newActivityEntry(Activity activity) {
+  Element newActivityEntry(Activity activity) {
     Element activityElement = new Element(ELEMENT_NAME_INDIVIDUAL_ACTIVITY);
 
     activityElement.setAttribute(ATTRIBUTE_NAME_ID, activity.getId())
@@ -280,7 +280,7 @@ public class JdomMasterDomainDescriptionCreator implements MasterDomainDescripti
    *
    * @return the element for the activity
    */
-  private Element newLiveActivityEntry(LiveActivity liveActivity) {
+  Element newLiveActivityEntry(LiveActivity liveActivity) {
     Element liveActivityElement = new Element(ELEMENT_NAME_INDIVIDUAL_LIVE_ACTIVITY);
 
     liveActivityElement
@@ -361,7 +361,7 @@ public class JdomMasterDomainDescriptionCreator implements MasterDomainDescripti
    *
    * @return the element for the live activity group
    */
-  private Element newLiveActivityGroupEntry(LiveActivityGroup group) {
+  Element newLiveActivityGroupEntry(LiveActivityGroup group) {
     Element groupElement = new Element(ELEMENT_NAME_INDIVIDUAL_LIVE_ACTIVITY_GROUP);
 
     groupElement.setAttribute(ATTRIBUTE_NAME_ID, group.getId())
@@ -451,7 +451,7 @@ public class JdomMasterDomainDescriptionCreator implements MasterDomainDescripti
    *
    * @return the element for the space
    */
-  private Element newSpaceEntry(Space space) {
+  Element newSpaceEntry(Space space) {
     Element spaceElement = new Element(ELEMENT_NAME_INDIVIDUAL_SPACE);
 
     spaceElement.setAttribute(ATTRIBUTE_NAME_ID, space.getId())
@@ -531,7 +531,7 @@ public class JdomMasterDomainDescriptionCreator implements MasterDomainDescripti
    *
    * @return the XML element for the named script
    */
-  private Element newNamedScriptEntry(NamedScript script) {
+  Element newNamedScriptEntry(NamedScript script) {
     Element scriptElement = new Element(ELEMENT_NAME_INDIVIDUAL_NAMED_SCRIPT);
 
     scriptElement.setAttribute(ATTRIBUTE_NAME_ID, script.getId())
@@ -543,7 +543,7 @@ public class JdomMasterDomainDescriptionCreator implements MasterDomainDescripti
 
     Element scheduleElement =
         new Element(ELEMENT_NAME_NAMED_SCRIPT_SCHEDULE).addContent(new CDATA(script.getSchedule()));
-    scheduleElement.addContent(scheduleElement);
+    scriptElement.addContent(scheduleElement);
     scheduleElement.setAttribute(ATTRIBUTE_NAME_NAMED_SCRIPT_SCHEDULE_SCHEDULED, script.getScheduled() ? VALUE_TRUE
         : VALUE_FALSE);
 
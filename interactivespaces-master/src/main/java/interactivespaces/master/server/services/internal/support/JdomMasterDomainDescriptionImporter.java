@@ -113,6 +113,44 @@ public class JdomMasterDomainDescriptionImporter implements MasterDomainDescript
     getNamedScripts(rootElement, automationRepository);
   }
 
+  /**
+   * Import a single entity from one of the sections of a description.
+   *
+   * <p>
+   * References are resolved against the entities imported earlier by this importer, so the sections must be imported
+   * in the order they appear in a description. Entities from unknown sections are ignored.
+   *
+   * @param sectionName
+   *          the name of the section element containing the entity
+   * @param entityElement
+   *          the XML element for the entity
+   * @param activityRepository
+   *          the repository for activity entities
+   * @param controllerRepository
+   *          the repository for controller entities
+   * @param automationRepository
+   *          the repository for automation entities
+   * @param timeProvider
+   *          the time provider to use
+   */
+  void importEntity(String sectionName, Element entityElement, ActivityRepository activityRepository,
+      SpaceControllerRepository controllerRepository, AutomationRepository automationRepository,
+      TimeProvider timeProvider) {
+    if (ELEMENT_NAME_ROOT_SPACE_CONTROLLERS.equals(sectionName)) {
+      getSpaceController(entityElement, controllerRepository);
+    } else if (ELEMENT_NAME_ROOT_ACTIVITIES.equals(sectionName)) {
+      getActivity(entityElement, activityRepository, timeProvider);
+    } else if (ELEMENT_NAME_ROOT_LIVE_ACTIVITIES.equals(sectionName)) {
+      getLiveActivity(entityElement, activityRepository);
+    } else if (ELEMENT_NAME_ROOT_LIVE_ACTIVITY_GROUPS.equals(sectionName)) {
+      getLiveActivityGroup(entityElement, activityRepository);
+    } else if (ELEMENT_NAME_ROOT_SPACES.equals(sectionName)) {
+      getSpace(entityElement, activityRepository);
+    } else if (ELEMENT_NAME_ROOT_NAMED_SCRIPTS.equals(sectionName)) {
+      getNamedScript(entityElement, automationRepository);
+    }
+  }
+
   /**
    * Get the space controllers.
    *
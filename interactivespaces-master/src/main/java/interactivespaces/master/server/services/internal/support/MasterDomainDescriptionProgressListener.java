@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.master.server.services.internal.support;
+
+/**
+ * A listener for the progress of a master domain description import or export.
+ *
+ * @author Keith M. Hughes
+ */
+public interface MasterDomainDescriptionProgressListener {
+
+  /**
+   * More entities in a section of the description have been processed.
+   *
+   * @param sectionName
+   *          the name of the section element, e.g. {@link MasterDomainDescription#ELEMENT_NAME_ROOT_ACTIVITIES}
+   * @param numberProcessed
+   *          the total number of entities processed in the section so far
+   */
+  void onProgress(String sectionName, int numberProcessed);
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.master.server.services.internal.support;
+
+/**
+ * Runs a unit of master domain work inside a single transaction.
+ *
+ * @author Keith M. Hughes
+ */
+public interface MasterDomainTransactionRunner {
+
+  /**
+   * Run the work in a transaction, committing the transaction if the work completes and rolling it back if the work
+   * throws an exception.
+   *
+   * @param work
+   *          the work to run
+   */
+  void runInTransaction(Runnable work);
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.master.server.services.internal.support;
+
+import interactivespaces.InteractiveSpacesException;
+import interactivespaces.domain.basic.Activity;
+import interactivespaces.domain.basic.LiveActivity;
+import interactivespaces.domain.basic.LiveActivityGroup;
+import interactivespaces.domain.basic.SpaceController;
+import interactivespaces.domain.space.Space;
+import interactivespaces.domain.system.NamedScript;
+import interactivespaces.master.server.services.ActivityRepository;
+import interactivespaces.master.server.services.AutomationRepository;
+import interactivespaces.master.server.services.SpaceControllerRepository;
+
+import com.google.common.collect.Sets;
+
+import org.jdom2.Element;
+import org.jdom2.output.Format;
+import org.jdom2.output.StAXStreamOutputter;
+
+import java.io.Writer;
+import java.util.Set;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * A creator of the master domain description which streams the description to a writer rather than building it all
+ * in memory.
+ *
+ * <p>
+ * Only the element for the entity currently being written is held in memory. The description is the same as the one
+ * created by {@link JdomMasterDomainDescriptionCreator}.
+ *
+ * @author Keith M. Hughes
+ */
+public class StaxMasterDomainDescriptionCreator implements MasterDomainDescription {
+
+  /**
+   * The number of entities written in a section between progress reports.
+   */
+  public static final int PROGRESS_INTERVAL = 100;
+
+  /**
+   * The indentation for the section elements.
+   */
+  private static final String INDENT_SECTION = "\n  ";
+
+  /**
+   * The indentation for the entity elements.
+   */
+  private static final String INDENT_ENTITY = "\n    ";
+
+  /**
+   * Creates the elements for the individual entities.
+   */
+  private final JdomMasterDomainDescriptionCreator entityCreator = new JdomMasterDomainDescriptionCreator();
+
+  /**
+   * Writes the elements for the individual entities. The line separator indents the entity to its depth in the
+   * description.
+   */
+  private final StAXStreamOutputter entityOutputter = new StAXStreamOutputter(Format.getPrettyFormat()
+      .setLineSeparator(INDENT_ENTITY));
+
+  /**
+   * The listener for export progress, can be {@code null}.
+   */
+  private final MasterDomainDescriptionProgressListener progressListener;
+
+  /**
+   * The stream writer for the description currently being written.
+   */
+  private XMLStreamWriter writer;
+
+  /**
+   * The name of the section currently being written.
+   */
+  private String currentSectionName;
+
+  /**
+   * The number of entities written in the current section.
+   */
+  private int numberWritten;
+
+  /**
+   * Construct a new creator.
+   *
+   * @param progressListener
+   *          the listener for export progress, can be {@code null}
+   */
+  public StaxMasterDomainDescriptionCreator(MasterDomainDescriptionProgressListener progressListener) {
+    this.progressListener = progressListener;
+  }
+
+  /**
+   * Write a description of the entire space domain.
+   *
+   * @param out
+   *          where the description should be written, it will be flushed but not closed
+   * @param activityRepository
+   *          the repository for activity entities
+   * @param controllerRepository
+   *          the repository for controller entities
+   * @param automationRepository
+   *          the repository for automation entities
+   */
+  public synchronized void writeDescription(Writer out, ActivityRepository activityRepository,
+      SpaceControllerRepository controllerRepository, AutomationRepository automationRepository) {
+    try {
+      writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+      writer.writeStartDocument("UTF-8", "1.0");
+      writer.writeCharacters("\n");
+      writer.writeStartElement(ELEMENT_NAME_DESCRIPTION_ROOT_ELEMENT);
+
+      startSection(ELEMENT_NAME_ROOT_SPACE_CONTROLLERS);
+      for (SpaceController controller : controllerRepository.getAllSpaceControllers()) {
+        writeEntity(entityCreator.newSpaceControllerEntry(controller));
+      }
+      endSection();
+
+      startSection(ELEMENT_NAME_ROOT_ACTIVITIES);
+      for (Activity activity : activityRepository.getAllActivities()) {
+        writeEntity(entityCreator.newActivityEntry(activity));
+      }
+      endSection();
+
+      startSection(ELEMENT_NAME_ROOT_LIVE_ACTIVITIES);
+      for (LiveActivity liveActivity : activityRepository.getAllLiveActivities()) {
+        writeEntity(entityCreator.newLiveActivityEntry(liveActivity));
+      }
+      endSection();
+
+      startSection(ELEMENT_NAME_ROOT_LIVE_ACTIVITY_GROUPS);
+      for (LiveActivityGroup group : activityRepository.getAllLiveActivityGroups()) {
+        writeEntity(entityCreator.newLiveActivityGroupEntry(group));
+      }
+      endSection();
+
+      startSection(ELEMENT_NAME_ROOT_SPACES);
+      Set<String> spacesDone = Sets.newHashSet();
+      for (Space rootSpace : activityRepository.getAllSpaces()) {
+        walkSpace(spacesDone, rootSpace);
+      }
+      endSection();
+
+      startSection(ELEMENT_NAME_ROOT_NAMED_SCRIPTS);
+      for (NamedScript script : automationRepository.getAllNamedScripts()) {
+        writeEntity(entityCreator.newNamedScriptEntry(script));
+      }
+      endSection();
+
+      writer.writeCharacters("\n");
+      writer.writeEndElement();
+      writer.writeCharacters("\n");
+      writer.writeEndDocument();
+      writer.flush();
+    } catch (XMLStreamException e) {
+      throw new InteractiveSpacesException("Could not create domain model", e);
+    } finally {
+      if (writer != null) {
+        try {
+          writer.close();
+        } catch (XMLStreamException e) {
+          // Nothing to do, the underlying writer is owned by the caller.
+        }
+        writer = null;
+      }
+      currentSectionName = null;
+    }
+  }
+
+  /**
+   * Do a depth first walk of space so get everything that needs to be defined written out before it is used.
+   *
+   * @param spacesDone
+   *          IDs of the spaces which have been done
+   * @param space
+   *          the current space
+   *
+   * @throws XMLStreamException
+   *           the space could not be written
+   */
+  private void walkSpace(Set<String> spacesDone, Space space) throws XMLStreamException {
+    if (spacesDone.add(space.getId())) {
+      for (Space subspace : space.getSpaces()) {
+        walkSpace(spacesDone, subspace);
+      }
+
+      writeEntity(entityCreator.newSpaceEntry(space));
+    }
+  }
+
+  /**
+   * Start a new section of the description.
+   *
+   * @param sectionName
+   *          the name of the section element
+   *
+   * @throws XMLStreamException
+   *           the section could not be written
+   */
+  private void startSection(String sectionName) throws XMLStreamException {
+    writer.writeCharacters(INDENT_SECTION);
+    writer.writeStartElement(sectionName);
+
+    currentSectionName = sectionName;
+    numberWritten = 0;
+  }
+
+  /**
+   * Write an entity in the current section.
+   *
+   * @param entityElement
+   *          the XML element for the entity
+   *
+   * @throws XMLStreamException
+   *           the entity could not be written
+   */
+  private void writeEntity(Element entityElement) throws XMLStreamException {
+    writer.writeCharacters(INDENT_ENTITY);
+    entityOutputter.output(entityElement, writer);
+
+    numberWritten++;
+    if (progressListener != null && numberWritten % PROGRESS_INTERVAL == 0) {
+      progressListener.onProgress(currentSectionName, numberWritten);
+    }
+  }
+
+  /**
+   * End the current section of the description.
+   *
+   * @throws XMLStreamException
+   *           the section could not be written
+   */
+  private void endSection() throws XMLStreamException {
+    if (numberWritten > 0) {
+      writer.writeCharacters(INDENT_SECTION);
+    }
+    writer.writeEndElement();
+
+    if (progressListener != null && numberWritten % PROGRESS_INTERVAL != 0) {
+      progressListener.onProgress(currentSectionName, numberWritten);
+    }
+  }
+}
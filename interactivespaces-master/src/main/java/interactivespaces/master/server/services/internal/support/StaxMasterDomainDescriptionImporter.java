@@ -0,0 +1,304 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.master.server.services.internal.support;
+
+import interactivespaces.InteractiveSpacesException;
+import interactivespaces.SimpleInteractiveSpacesException;
+import interactivespaces.master.server.services.ActivityRepository;
+import interactivespaces.master.server.services.AutomationRepository;
+import interactivespaces.master.server.services.SpaceControllerRepository;
+import interactivespaces.time.TimeProvider;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+import org.jdom2.Element;
+import org.jdom2.JDOMException;
+import org.jdom2.input.StAXStreamBuilder;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * An importer of the master domain description which streams the description rather than reading it all into memory.
+ *
+ * <p>
+ * Only one entity element at a time is turned into a JDOM element. Entities are saved in batches, each batch inside
+ * a single transaction, so a large description neither needs a transaction per entity nor one giant transaction.
+ * References between entities are resolved with the in-memory maps of description IDs kept by a
+ * {@link JdomMasterDomainDescriptionImporter}.
+ *
+ * @author Keith M. Hughes
+ */
+public class StaxMasterDomainDescriptionImporter implements MasterDomainDescription {
+
+  /**
+   * The default number of entities saved in a single transaction.
+   */
+  public static final int BATCH_SIZE_DEFAULT = 200;
+
+  /**
+   * The names of the sections the importer understands. Any other sections are skipped.
+   */
+  private static final Set<String> SECTION_NAMES = ImmutableSet.of(ELEMENT_NAME_ROOT_SPACE_CONTROLLERS,
+      ELEMENT_NAME_ROOT_ACTIVITIES, ELEMENT_NAME_ROOT_LIVE_ACTIVITIES, ELEMENT_NAME_ROOT_LIVE_ACTIVITY_GROUPS,
+      ELEMENT_NAME_ROOT_SPACES, ELEMENT_NAME_ROOT_NAMED_SCRIPTS);
+
+  /**
+   * The number of entities saved in a single transaction.
+   */
+  private final int batchSize;
+
+  /**
+   * Runs each batch in a transaction, can be {@code null} if each save should be in its own transaction.
+   */
+  private final MasterDomainTransactionRunner transactionRunner;
+
+  /**
+   * The listener for import progress, can be {@code null}.
+   */
+  private final MasterDomainDescriptionProgressListener progressListener;
+
+  /**
+   * Builds JDOM elements for the individual entities.
+   */
+  private final StAXStreamBuilder elementBuilder = new StAXStreamBuilder();
+
+  /**
+   * The importer for the individual entities, it holds the maps for resolving references.
+   */
+  private final JdomMasterDomainDescriptionImporter entityImporter = new JdomMasterDomainDescriptionImporter();
+
+  /**
+   * Construct a new importer.
+   *
+   * @param batchSize
+   *          the number of entities to save in a single transaction
+   * @param transactionRunner
+   *          runs each batch in a transaction, can be {@code null} if each save should be in its own transaction
+   * @param progressListener
+   *          the listener for import progress, can be {@code null}
+   */
+  public StaxMasterDomainDescriptionImporter(int batchSize, MasterDomainTransactionRunner transactionRunner,
+      MasterDomainDescriptionProgressListener progressListener) {
+    this.batchSize = Math.max(1, batchSize);
+    this.transactionRunner = transactionRunner;
+    this.progressListener = progressListener;
+  }
+
+  /**
+   * Import a space domain description.
+   *
+   * @param description
+   *          reader for the description to import, it will not be closed
+   * @param activityRepository
+   *          the repository for activity entities
+   * @param controllerRepository
+   *          the repository for controller entities
+   * @param automationRepository
+   *          the repository for automation entities
+   * @param timeProvider
+   *          the time provider to use
+   */
+  public void importDescription(Reader description, ActivityRepository activityRepository,
+      SpaceControllerRepository controllerRepository, AutomationRepository automationRepository,
+      TimeProvider timeProvider) {
+    XMLStreamReader reader = null;
+    try {
+      reader = XMLInputFactory.newInstance().createXMLStreamReader(description);
+
+      if (reader.nextTag() != XMLStreamConstants.START_ELEMENT
+          || !ELEMENT_NAME_DESCRIPTION_ROOT_ELEMENT.equals(reader.getLocalName())) {
+        throw new SimpleInteractiveSpacesException(String.format("The description file doesn't have root element %s",
+            ELEMENT_NAME_DESCRIPTION_ROOT_ELEMENT));
+      }
+
+      reader.nextTag();
+      while (reader.getEventType() == XMLStreamConstants.START_ELEMENT) {
+        String sectionName = reader.getLocalName();
+        if (SECTION_NAMES.contains(sectionName)) {
+          importSection(reader, sectionName, activityRepository, controllerRepository, automationRepository,
+              timeProvider);
+        } else {
+          skipElement(reader);
+        }
+      }
+    } catch (XMLStreamException e) {
+      throw new InteractiveSpacesException("Could not read master domain description", e);
+    } catch (JDOMException e) {
+      throw new InteractiveSpacesException("Could not read master domain description", e);
+    } finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (XMLStreamException e) {
+          // Nothing to do, the underlying reader is owned by the caller.
+        }
+      }
+    }
+  }
+
+  /**
+   * Import all entities in a section.
+   *
+   * <p>
+   * On entry the reader is positioned at the start of the section element, on exit it is positioned at the next
+   * start or end tag after the section.
+   *
+   * @param reader
+   *          the reader for the description
+   * @param sectionName
+   *          the name of the section
+   * @param activityRepository
+   *          the repository for activity entities
+   * @param controllerRepository
+   *          the repository for controller entities
+   * @param automationRepository
+   *          the repository for automation entities
+   * @param timeProvider
+   *          the time provider to use
+   *
+   * @throws XMLStreamException
+   *           the description could not be read
+   * @throws JDOMException
+   *           an entity element could not be built
+   */
+  private void importSection(XMLStreamReader reader, String sectionName, ActivityRepository activityRepository,
+      SpaceControllerRepository controllerRepository, AutomationRepository automationRepository,
+      TimeProvider timeProvider) throws XMLStreamException, JDOMException {
+    List<Element> batch = Lists.newArrayListWithCapacity(batchSize);
+    int numberProcessed = 0;
+
+    reader.nextTag();
+    while (reader.getEventType() == XMLStreamConstants.START_ELEMENT) {
+      // Building the fragment leaves the reader on the event just after the entity's end tag.
+      batch.add((Element) elementBuilder.fragment(reader));
+      toTag(reader);
+
+      if (batch.size() == batchSize) {
+        numberProcessed =
+            importBatch(sectionName, batch, numberProcessed, activityRepository, controllerRepository,
+                automationRepository, timeProvider);
+      }
+    }
+    importBatch(sectionName, batch, numberProcessed, activityRepository, controllerRepository, automationRepository,
+        timeProvider);
+
+    // Move past the end of the section.
+    reader.nextTag();
+  }
+
+  /**
+   * Import a batch of entities in a single transaction and clear the batch.
+   *
+   * @param sectionName
+   *          the name of the section the entities are in
+   * @param batch
+   *          the XML elements for the entities
+   * @param numberProcessed
+   *          the number of entities in the section processed before this batch
+   * @param activityRepository
+   *          the repository for activity entities
+   * @param controllerRepository
+   *          the repository for controller entities
+   * @param automationRepository
+   *          the repository for automation entities
+   * @param timeProvider
+   *          the time provider to use
+   *
+   * @return the number of entities in the section processed, including this batch
+   */
+  private int importBatch(final String sectionName, final List<Element> batch, int numberProcessed,
+      final ActivityRepository activityRepository, final SpaceControllerRepository controllerRepository,
+      final AutomationRepository automationRepository, final TimeProvider timeProvider) {
+    if (batch.isEmpty()) {
+      return numberProcessed;
+    }
+
+    Runnable work = new Runnable() {
+      @Override
+      public void run() {
+        for (Element entityElement : batch) {
+          entityImporter.importEntity(sectionName, entityElement, activityRepository, controllerRepository,
+              automationRepository, timeProvider);
+        }
+      }
+    };
+    if (transactionRunner != null) {
+      transactionRunner.runInTransaction(work);
+    } else {
+      work.run();
+    }
+    int newNumberProcessed = numberProcessed + batch.size();
+    batch.clear();
+
+    if (progressListener != null) {
+      progressListener.onProgress(sectionName, newNumberProcessed);
+    }
+
+    return newNumberProcessed;
+  }
+
+  /**
+   * Skip an element and everything in it.
+   *
+   * <p>
+   * On entry the reader is positioned at the start of the element, on exit it is positioned at the next start or end
+   * tag after the element.
+   *
+   * @param reader
+   *          the reader
+   *
+   * @throws XMLStreamException
+   *           the description could not be read
+   */
+  private void skipElement(XMLStreamReader reader) throws XMLStreamException {
+    int depth = 1;
+    while (depth > 0) {
+      int eventType = reader.next();
+      if (eventType == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      } else if (eventType == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+    reader.next();
+    toTag(reader);
+  }
+
+  /**
+   * Move the reader forward until it is on a start or end tag, if it isn't on one already.
+   *
+   * @param reader
+   *          the reader
+   *
+   * @throws XMLStreamException
+   *           the description could not be read
+   */
+  private void toTag(XMLStreamReader reader) throws XMLStreamException {
+    int eventType = reader.getEventType();
+    while (eventType != XMLStreamConstants.START_ELEMENT && eventType != XMLStreamConstants.END_ELEMENT) {
+      eventType = reader.next();
+    }
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.master.server.services.internal;
+
+import interactivespaces.activity.ActivityState;
+import interactivespaces.master.server.services.BaseRemoteSpaceControllerClientListener;
+
+import com.google.common.collect.Maps;
+
+import org.apache.commons.logging.impl.SimpleLog;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A benchmark of master side controller status processing, comparing full status updates against sequence numbered
+ * delta status updates.
+ *
+ * <p>
+ * Each simulated controller changes some of its live activities between status requests from the master. With full
+ * status updates every status request reconciles every live activity on the controller. With delta status updates
+ * the changes are checked against the sequence number of the current status and only the live activities which
+ * changed since then are reconciled. Every controller is processed in its own thread, as it is by the ROS subscriber
+ * for the controller.
+ *
+ * <p>
+ * Run with optional arguments {@code controllers activities-per-controller status-requests changes-per-request}.
+ *
+ * @author Keith M. Hughes
+ */
+public class ControllerStatusProcessingBenchmark {
+
+  /**
+   * The activity states to cycle through.
+   */
+  private static final ActivityState[] STATES = { ActivityState.STARTUP_ATTEMPT, ActivityState.RUNNING,
+      ActivityState.ACTIVATE_ATTEMPT, ActivityState.ACTIVE, ActivityState.DEACTIVATE_ATTEMPT,
+      ActivityState.SHUTDOWN_ATTEMPT, ActivityState.READY };
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args
+   *          the optional controller count, activities per controller, status requests per controller and changes
+   *          between status requests
+   *
+   * @throws Exception
+   *           the benchmark failed
+   */
+  public static void main(String[] args) throws Exception {
+    int numberControllers = (args.length > 0) ? Integer.parseInt(args[0]) : 50;
+    int numberActivities = (args.length > 1) ? Integer.parseInt(args[1]) : 100;
+    int numberRequests = (args.length > 2) ? Integer.parseInt(args[2]) : 2000;
+    int numberChanges = (args.length > 3) ? Integer.parseInt(args[3]) : 2;
+
+    ControllerStatusProcessingBenchmark benchmark = new ControllerStatusProcessingBenchmark();
+    for (int i = 0; i < 2; i++) {
+      benchmark.run("full status", false, numberControllers, numberActivities, numberRequests, numberChanges);
+      benchmark.run("delta status", true, numberControllers, numberActivities, numberRequests, numberChanges);
+    }
+  }
+
+  /**
+   * Run the benchmark for one kind of status update and print the results.
+   *
+   * @param name
+   *          the name of the run
+   * @param delta
+   *          {@code true} if delta status updates should be used
+   * @param numberControllers
+   *          the number of controllers
+   * @param numberActivities
+   *          the number of live activities on each controller
+   * @param numberRequests
+   *          the number of status requests made of each controller
+   * @param numberChanges
+   *          the number of live activity changes between status requests
+   *
+   * @throws Exception
+   *           the run failed
+   */
+  public void run(String name, final boolean delta, int numberControllers, final int numberActivities,
+      final int numberRequests, final int numberChanges) throws Exception {
+    final ControllerStatusSequencer sequencer = new ControllerStatusSequencer();
+
+    final RemoteSpaceControllerClientListenerCollection listeners =
+        new RemoteSpaceControllerClientListenerCollection(new SimpleLog("benchmark"));
+    final Map<String, ActivityState> masterStates = Maps.newConcurrentMap();
+    final AtomicLong numberReconciled = new AtomicLong();
+    listeners.addListener(new BaseRemoteSpaceControllerClientListener() {
+      @Override
+      public void onLiveActivityRuntimeStateChange(String uuid, ActivityState state, String detail) {
+        masterStates.put(uuid, state);
+        numberReconciled.incrementAndGet();
+      }
+    });
+
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(numberControllers);
+    for (int c = 0; c < numberControllers; c++) {
+      final String controllerUuid = "controller" + c;
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            String[] activities = new String[numberActivities];
+            ActivityState[] states = new ActivityState[numberActivities];
+            for (int i = 0; i < numberActivities; i++) {
+              activities[i] = controllerUuid + "-activity" + i;
+              states[i] = ActivityState.READY;
+            }
+            long sequenceNumber = 0;
+            sequencer.onFullStatus(controllerUuid, 1, sequenceNumber);
+
+            start.await();
+            int next = 0;
+            for (int r = 0; r < numberRequests; r++) {
+              for (int i = 0; i < numberChanges; i++) {
+                int activity = next++ % numberActivities;
+                states[activity] = STATES[(r + i) % STATES.length];
+                sequenceNumber++;
+
+                if (!delta || sequencer.onDeltaStatus(controllerUuid, 1, sequenceNumber - 1,
+                    sequenceNumber) == ControllerStatusSequencer.UpdateAction.APPLY) {
+                  listeners.signalActivityStateChange(activities[activity], states[activity], null);
+                }
+              }
+
+              if (delta) {
+                // Every change has already been received, so the requested changes are empty.
+                sequencer.onDeltaStatus(controllerUuid, 1, sequenceNumber, sequenceNumber);
+              } else if (sequencer.onFullStatus(controllerUuid, 1, sequenceNumber)) {
+                for (int i = 0; i < numberActivities; i++) {
+                  listeners.signalActivityStateChange(activities[i], states[i], null);
+                }
+              }
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            done.countDown();
+          }
+        }
+      }).start();
+    }
+
+    long startTime = System.nanoTime();
+    start.countDown();
+    done.await();
+    long elapsed = System.nanoTime() - startTime;
+
+    long numberUpdates = (long) numberControllers * numberRequests * (numberChanges + 1);
+    System.out.format("%-14s %8d updates in %8.1f ms, %10.1f updates/sec, %10d live activities reconciled%n", name,
+        numberUpdates, elapsed / 1e6, numberUpdates / (elapsed / 1e9), numberReconciled.get());
+  }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.master.server.services.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import interactivespaces.master.server.services.internal.ControllerStatusSequencer.UpdateAction;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tests for the {@link ControllerStatusSequencer}.
+ *
+ * @author Keith M. Hughes
+ */
+public class ControllerStatusSequencerTest {
+
+  private static final String CONTROLLER = "controller";
+
+  private ControllerStatusSequencer sequencer;
+
+  @Before
+  public void setup() {
+    sequencer = new ControllerStatusSequencer();
+  }
+
+  /**
+   * Test that changes following on from the current status are applied.
+   */
+  @Test
+  public void testDeltasApplied() {
+    assertTrue(sequencer.onFullStatus(CONTROLLER, 1, 5));
+
+    assertEquals(UpdateAction.APPLY, sequencer.onDeltaStatus(CONTROLLER, 1, 5, 6));
+    assertEquals(UpdateAction.APPLY, sequencer.onDeltaStatus(CONTROLLER, 1, 6, 7));
+    assertEquals(7, sequencer.getCurrentStatus(CONTROLLER).getSequenceNumber());
+  }
+
+  /**
+   * Test that changes already part of the current status are ignored, and overlapping changes are applied.
+   */
+  @Test
+  public void testOldDeltasIgnored() {
+    sequencer.onFullStatus(CONTROLLER, 1, 5);
+
+    assertEquals(UpdateAction.IGNORE, sequencer.onDeltaStatus(CONTROLLER, 1, 4, 5));
+    assertEquals(UpdateAction.APPLY, sequencer.onDeltaStatus(CONTROLLER, 1, 3, 8));
+    assertEquals(8, sequencer.getCurrentStatus(CONTROLLER).getSequenceNumber());
+  }
+
+  /**
+   * Test that a gap requests a single full status, after which changes are applied again.
+   */
+  @Test
+  public void testGapResyncs() {
+    sequencer.onFullStatus(CONTROLLER, 1, 5);
+
+    assertEquals(UpdateAction.RESYNC, sequencer.onDeltaStatus(CONTROLLER, 1, 6, 7));
+    assertEquals(UpdateAction.IGNORE, sequencer.onDeltaStatus(CONTROLLER, 1, 7, 8));
+
+    assertTrue(sequencer.onFullStatus(CONTROLLER, 1, 8));
+    assertEquals(UpdateAction.APPLY, sequencer.onDeltaStatus(CONTROLLER, 1, 8, 9));
+  }
+
+  /**
+   * Test that a full status is requested again if the requested one doesn't arrive in time.
+   */
+  @Test
+  public void testResyncRepeatedAfterTimeout() {
+    sequencer = new ControllerStatusSequencer(0);
+    sequencer.onFullStatus(CONTROLLER, 1, 5);
+
+    assertEquals(UpdateAction.RESYNC, sequencer.onDeltaStatus(CONTROLLER, 1, 6, 7));
+    assertEquals(UpdateAction.RESYNC, sequencer.onDeltaStatus(CONTROLLER, 1, 7, 8));
+  }
+
+  /**
+   * Test that changes from an unknown controller or a new run of the controller request a full status.
+   */
+  @Test
+  public void testUnknownSessionResyncs() {
+    assertNull(sequencer.getCurrentStatus(CONTROLLER));
+    assertEquals(UpdateAction.RESYNC, sequencer.onDeltaStatus(CONTROLLER, 1, 0, 1));
+
+    sequencer.onFullStatus(CONTROLLER, 1, 5);
+    assertEquals(UpdateAction.RESYNC, sequencer.onDeltaStatus(CONTROLLER, 2, 0, 1));
+
+    assertTrue(sequencer.onFullStatus(CONTROLLER, 2, 1));
+    assertEquals(2, sequencer.getCurrentStatus(CONTROLLER).getSessionId());
+  }
+
+  /**
+   * Test that a full status older than the current status is not applied.
+   */
+  @Test
+  public void testStaleFullStatusIgnored() {
+    sequencer.onFullStatus(CONTROLLER, 1, 5);
+    sequencer.onDeltaStatus(CONTROLLER, 1, 5, 6);
+
+    assertFalse(sequencer.onFullStatus(CONTROLLER, 1, 5));
+    assertEquals(6, sequencer.getCurrentStatus(CONTROLLER).getSequenceNumber());
+  }
+
+  /**
+   * Test that a reset controller needs a full status.
+   */
+  @Test
+  public void testReset() {
+    sequencer.onFullStatus(CONTROLLER, 1, 5);
+    sequencer.reset(CONTROLLER);
+
+    assertNull(sequencer.getCurrentStatus(CONTROLLER));
+  }
+
+  /**
+   * Test that the master view of 50 controllers, each processed in its own thread and each losing some of its
+   * updates, ends up matching the controllers.
+   */
+  @Test
+  public void testFiftyControllers() throws Exception {
+    final int numberControllers = 50;
+    final int numberActivities = 40;
+    final int numberChanges = 2000;
+
+    ExecutorService executorService = Executors.newFixedThreadPool(numberControllers);
+    try {
+      List<Future<SimulatedController>> results = Lists.newArrayList();
+      for (int i = 0; i < numberControllers; i++) {
+        final SimulatedController controller = new SimulatedController("controller" + i, numberActivities, i);
+        results.add(executorService.submit(new Callable<SimulatedController>() {
+          @Override
+          public SimulatedController call() {
+            controller.sendFullStatus();
+            for (int j = 0; j < numberChanges; j++) {
+              controller.changeActivity();
+            }
+            controller.sendRequestedDelta();
+
+            return controller;
+          }
+        }));
+      }
+
+      for (Future<SimulatedController> result : results) {
+        SimulatedController controller = result.get();
+        assertEquals(controller.activityStates, controller.masterStates);
+        assertTrue(controller.numberResyncs > 0);
+        assertTrue(controller.numberResyncs <= controller.numberDropped);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  /**
+   * A controller sending its status changes to the sequencer, and the master's view of it.
+   *
+   * @author Keith M. Hughes
+   */
+  private class SimulatedController {
+
+    /**
+     * UUID of the controller.
+     */
+    private final String uuid;
+
+    /**
+     * Random numbers for changes and lost updates.
+     */
+    private final Random random;
+
+    /**
+     * The state of the activities on the controller.
+     */
+    private final Map<String, Integer> activityStates = Maps.newHashMap();
+
+    /**
+     * The state of the activities as seen by the master.
+     */
+    private final Map<String, Integer> masterStates = Maps.newHashMap();
+
+    /**
+     * The sequence number of the last change on the controller.
+     */
+    private long sequenceNumber;
+
+    /**
+     * The number of updates lost.
+     */
+    private int numberDropped;
+
+    /**
+     * The number of full statuses requested.
+     */
+    private int numberResyncs;
+
+    /**
+     * Construct a simulated controller.
+     *
+     * @param uuid
+     *          UUID of the controller
+     * @param numberActivities
+     *          the number of activities on the controller
+     * @param seed
+     *          the random seed
+     */
+    public SimulatedController(String uuid, int numberActivities, long seed) {
+      this.uuid = uuid;
+      this.random = new Random(seed);
+      for (int i = 0; i < numberActivities; i++) {
+        activityStates.put(uuid + "-activity" + i, 0);
+      }
+    }
+
+    /**
+     * Change a random activity and send the change, losing about one in a hundred.
+     */
+    public void changeActivity() {
+      List<String> activities = Lists.newArrayList(activityStates.keySet());
+      String activity = activities.get(random.nextInt(activities.size()));
+      activityStates.put(activity, random.nextInt(10));
+      sequenceNumber++;
+
+      if (random.nextInt(100) == 0) {
+        numberDropped++;
+        return;
+      }
+
+      Map<String, Integer> changes = Maps.newHashMap();
+      changes.put(activity, activityStates.get(activity));
+      sendDelta(sequenceNumber - 1, changes);
+    }
+
+    /**
+     * Send a delta status as if the master asked for the changes since its current status.
+     */
+    public void sendRequestedDelta() {
+      // The changes since any earlier status are contained in the complete current state.
+      sendDelta(sequencer.getCurrentStatus(uuid).getSequenceNumber(), activityStates);
+    }
+
+    /**
+     * Send a delta status to the sequencer, applying it to the master view if the sequencer says so.
+     *
+     * @param baseSequenceNumber
+     *          the sequence number the changes are relative to
+     * @param changes
+     *          the changes
+     */
+    private void sendDelta(long baseSequenceNumber, Map<String, Integer> changes) {
+      switch (sequencer.onDeltaStatus(uuid, 1, baseSequenceNumber, sequenceNumber)) {
+        case APPLY:
+          masterStates.putAll(changes);
+          break;
+
+        case RESYNC:
+          numberResyncs++;
+          sendFullStatus();
+          break;
+
+        default:
+      }
+    }
+
+    /**
+     * Send a full status to the sequencer, applying it to the master view if the sequencer says so.
+     */
+    public void sendFullStatus() {
+      if (sequencer.onFullStatus(uuid, 1, sequenceNumber)) {
+        masterStates.clear();
+        masterStates.putAll(activityStates);
+      }
+    }
+  }
+}
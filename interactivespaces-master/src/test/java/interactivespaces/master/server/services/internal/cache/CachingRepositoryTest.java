@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.master.server.services.internal.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import interactivespaces.domain.basic.LiveActivity;
+import interactivespaces.domain.basic.SpaceController;
+import interactivespaces.domain.basic.pojo.SimpleLiveActivity;
+import interactivespaces.domain.basic.pojo.SimpleSpaceController;
+import interactivespaces.master.server.services.ActivityRepository;
+import interactivespaces.master.server.services.SpaceControllerRepository;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+/**
+ * Tests for the {@link CachingActivityRepository} and {@link CachingSpaceControllerRepository}.
+ *
+ * @author Keith M. Hughes
+ */
+public class CachingRepositoryTest {
+
+  private ActivityRepository activityDelegate;
+
+  private SpaceControllerRepository controllerDelegate;
+
+  private CachingActivityRepository activityRepository;
+
+  private CachingSpaceControllerRepository controllerRepository;
+
+  private SimpleLiveActivity liveActivity;
+
+  private SimpleSpaceController controller;
+
+  @Before
+  public void setup() {
+    activityDelegate = mock(ActivityRepository.class);
+    controllerDelegate = mock(SpaceControllerRepository.class);
+
+    activityRepository = new CachingActivityRepository();
+    activityRepository.setDelegate(activityDelegate);
+
+    controllerRepository = new CachingSpaceControllerRepository();
+    controllerRepository.setDelegate(controllerDelegate);
+    controllerRepository.setActivityRepository(activityRepository);
+
+    controller = new SimpleSpaceController();
+    controller.setId("1");
+    controller.setUuid("controller-uuid");
+
+    liveActivity = new SimpleLiveActivity();
+    liveActivity.setId("2");
+    liveActivity.setUuid("live-activity-uuid");
+    liveActivity.setController(controller);
+
+    when(controllerDelegate.getSpaceControllerById("1")).thenReturn(controller);
+    when(controllerDelegate.getSpaceControllerByUuid("controller-uuid")).thenReturn(controller);
+    when(activityDelegate.getLiveActivityById("2")).thenReturn(liveActivity);
+    when(activityDelegate.getLiveActivityByUuid("live-activity-uuid")).thenReturn(liveActivity);
+  }
+
+  /**
+   * Test that repeated lookups are served from the cache and counted.
+   */
+  @Test
+  public void testReadThrough() {
+    for (int i = 0; i < 4; i++) {
+      assertSame(liveActivity, activityRepository.getLiveActivityByUuid("live-activity-uuid"));
+      assertSame(liveActivity, activityRepository.getLiveActivityById("2"));
+    }
+
+    verify(activityDelegate, times(1)).getLiveActivityByUuid("live-activity-uuid");
+    verify(activityDelegate, times(1)).getLiveActivityById("2");
+
+    Map<String, Object> statistics =
+        activityRepository.getCacheStatistics().get(CachingActivityRepository.CACHE_NAME_LIVE_ACTIVITY_BY_UUID);
+    assertEquals(3L, statistics.get(EntityCache.STATISTICS_FIELD_HITS));
+    assertEquals(1L, statistics.get(EntityCache.STATISTICS_FIELD_MISSES));
+    assertEquals(0.75, (Double) statistics.get(EntityCache.STATISTICS_FIELD_HIT_RATE), 0.0001);
+    assertEquals(1, statistics.get(EntityCache.STATISTICS_FIELD_SIZE));
+  }
+
+  /**
+   * Test that entities which don't exist aren't cached.
+   */
+  @Test
+  public void testMissingNotCached() {
+    assertNull(activityRepository.getLiveActivityByUuid("unknown"));
+    assertNull(activityRepository.getLiveActivityByUuid("unknown"));
+
+    verify(activityDelegate, times(2)).getLiveActivityByUuid("unknown");
+  }
+
+  /**
+   * Test that saving a live activity removes it from both indexes.
+   */
+  @Test
+  public void testSaveInvalidates() {
+    activityRepository.getLiveActivityByUuid("live-activity-uuid");
+    activityRepository.getLiveActivityById("2");
+
+    activityRepository.saveLiveActivity(liveActivity);
+
+    activityRepository.getLiveActivityByUuid("live-activity-uuid");
+    activityRepository.getLiveActivityById("2");
+
+    verify(activityDelegate, times(2)).getLiveActivityByUuid("live-activity-uuid");
+    verify(activityDelegate, times(2)).getLiveActivityById("2");
+  }
+
+  /**
+   * Test that saving a space controller removes it and the live activities containing it from the caches.
+   */
+  @Test
+  public void testControllerSaveInvalidatesLiveActivities() {
+    controllerRepository.getSpaceControllerByUuid("controller-uuid");
+    activityRepository.getLiveActivityByUuid("live-activity-uuid");
+
+    controllerRepository.saveSpaceController(controller);
+
+    controllerRepository.getSpaceControllerByUuid("controller-uuid");
+    activityRepository.getLiveActivityByUuid("live-activity-uuid");
+
+    verify(controllerDelegate, times(2)).getSpaceControllerByUuid("controller-uuid");
+    verify(activityDelegate, times(2)).getLiveActivityByUuid("live-activity-uuid");
+  }
+
+  /**
+   * Test that a delete uses the entity from the current transaction rather than the cached one.
+   */
+  @Test
+  public void testDeleteUsesCurrentEntity() {
+    SpaceController cached = controllerRepository.getSpaceControllerById("1");
+    SimpleSpaceController current = new SimpleSpaceController();
+    current.setId("1");
+    when(controllerDelegate.getSpaceControllerById("1")).thenReturn(current);
+
+    controllerRepository.deleteSpaceController(cached);
+
+    verify(controllerDelegate).deleteSpaceController(current);
+  }
+
+  /**
+   * Test that an entity loaded while the cache is invalidated isn't cached.
+   */
+  @Test
+  public void testInvalidationDuringLoad() {
+    EntityCache<LiveActivity> cache = new EntityCache<LiveActivity>();
+    final EntityCache<LiveActivity> cacheToInvalidate = cache;
+    EntityCache.EntityLoader<LiveActivity> loader = new EntityCache.EntityLoader<LiveActivity>() {
+      @Override
+      public LiveActivity load(String key) {
+        cacheToInvalidate.invalidate(key);
+        return liveActivity;
+      }
+    };
+
+    assertSame(liveActivity, cache.get("2", loader));
+    assertEquals(0, cache.getStatistics().get(EntityCache.STATISTICS_FIELD_SIZE));
+  }
+}
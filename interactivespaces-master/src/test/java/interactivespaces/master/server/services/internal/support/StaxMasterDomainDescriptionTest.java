@@ -0,0 +1,366 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.master.server.services.internal.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import interactivespaces.domain.basic.Activity;
+import interactivespaces.domain.basic.LiveActivity;
+import interactivespaces.domain.basic.LiveActivityGroup;
+import interactivespaces.domain.basic.SpaceController;
+import interactivespaces.domain.basic.pojo.SimpleActivity;
+import interactivespaces.domain.basic.pojo.SimpleLiveActivity;
+import interactivespaces.domain.basic.pojo.SimpleLiveActivityGroup;
+import interactivespaces.domain.basic.pojo.SimpleSpaceController;
+import interactivespaces.domain.space.Space;
+import interactivespaces.domain.system.NamedScript;
+import interactivespaces.master.server.services.ActivityRepository;
+import interactivespaces.master.server.services.AutomationRepository;
+import interactivespaces.master.server.services.SpaceControllerRepository;
+import interactivespaces.time.TimeProvider;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for the {@link StaxMasterDomainDescriptionCreator} and {@link StaxMasterDomainDescriptionImporter}.
+ *
+ * @author Keith M. Hughes
+ */
+public class StaxMasterDomainDescriptionTest {
+
+  private List<SpaceController> controllers;
+
+  private List<Activity> activities;
+
+  private List<LiveActivity> liveActivities;
+
+  private List<LiveActivityGroup> groups;
+
+  private ActivityRepository exportActivityRepository;
+
+  private SpaceControllerRepository exportControllerRepository;
+
+  private AutomationRepository exportAutomationRepository;
+
+  private ActivityRepository importActivityRepository;
+
+  private SpaceControllerRepository importControllerRepository;
+
+  private AutomationRepository importAutomationRepository;
+
+  private CountingTransactionRunner transactionRunner;
+
+  private RecordingProgressListener progressListener;
+
+  /**
+   * Saved entities, in the order they were saved.
+   */
+  private List<Object> saved;
+
+  /**
+   * The number of saves which happened outside of a transaction.
+   */
+  private int numberSavedOutsideTransaction;
+
+  @Before
+  public void setup() {
+    controllers = Lists.newArrayList();
+    for (int i = 0; i < 5; i++) {
+      SimpleSpaceController controller = new SimpleSpaceController();
+      controller.setId("c" + i);
+      controller.setUuid("controller-uuid-" + i);
+      controller.setName("controller " + i);
+      controller.setDescription("The controller " + i);
+      controller.setHostId("host" + i);
+      controllers.add(controller);
+    }
+
+    activities = Lists.newArrayList();
+    for (int i = 0; i < 4; i++) {
+      SimpleActivity activity = new SimpleActivity();
+      activity.setId("a" + i);
+      activity.setIdentifyingName("a.b.activity" + i);
+      activity.setVersion("1.0." + i);
+      activity.setName("activity " + i);
+      activity.setDescription("The activity " + i);
+      activities.add(activity);
+    }
+
+    liveActivities = Lists.newArrayList();
+    for (int i = 0; i < 7; i++) {
+      SimpleLiveActivity liveActivity = new SimpleLiveActivity();
+      liveActivity.setId("la" + i);
+      liveActivity.setUuid("live-activity-uuid-" + i);
+      liveActivity.setName("live activity " + i);
+      liveActivity.setDescription("The live activity " + i);
+      liveActivity.setController(controllers.get(i % controllers.size()));
+      liveActivity.setActivity(activities.get(i % activities.size()));
+      liveActivities.add(liveActivity);
+    }
+
+    groups = Lists.newArrayList();
+    SimpleLiveActivityGroup group = new SimpleLiveActivityGroup();
+    group.setId("g0");
+    group.setName("group");
+    group.setDescription("The group");
+    group.addLiveActivity(liveActivities.get(6));
+    group.addLiveActivity(liveActivities.get(2));
+    groups.add(group);
+
+    exportActivityRepository = mock(ActivityRepository.class);
+    exportControllerRepository = mock(SpaceControllerRepository.class);
+    exportAutomationRepository = mock(AutomationRepository.class);
+    when(exportControllerRepository.getAllSpaceControllers()).thenReturn(controllers);
+    when(exportActivityRepository.getAllActivities()).thenReturn(activities);
+    when(exportActivityRepository.getAllLiveActivities()).thenReturn(liveActivities);
+    when(exportActivityRepository.getAllLiveActivityGroups()).thenReturn(groups);
+    when(exportActivityRepository.getAllSpaces()).thenReturn(Lists.<Space> newArrayList());
+    when(exportAutomationRepository.getAllNamedScripts()).thenReturn(Lists.<NamedScript> newArrayList());
+
+    saved = Lists.newArrayList();
+    transactionRunner = new CountingTransactionRunner();
+    progressListener = new RecordingProgressListener();
+
+    importActivityRepository = mock(ActivityRepository.class);
+    importControllerRepository = mock(SpaceControllerRepository.class);
+    importAutomationRepository = mock(AutomationRepository.class);
+    when(importControllerRepository.newSpaceController()).thenAnswer(new Answer<SpaceController>() {
+      @Override
+      public SpaceController answer(InvocationOnMock invocation) {
+        return new SimpleSpaceController();
+      }
+    });
+    when(importActivityRepository.newActivity()).thenAnswer(new Answer<Activity>() {
+      @Override
+      public Activity answer(InvocationOnMock invocation) {
+        return new SimpleActivity();
+      }
+    });
+    when(importActivityRepository.newLiveActivity()).thenAnswer(new Answer<LiveActivity>() {
+      @Override
+      public LiveActivity answer(InvocationOnMock invocation) {
+        return new SimpleLiveActivity();
+      }
+    });
+    when(importActivityRepository.newLiveActivityGroup()).thenAnswer(new Answer<LiveActivityGroup>() {
+      @Override
+      public LiveActivityGroup answer(InvocationOnMock invocation) {
+        return new SimpleLiveActivityGroup();
+      }
+    });
+    when(importControllerRepository.saveSpaceController(any(SpaceController.class))).thenAnswer(
+        new SavingAnswer<SpaceController>());
+    when(importActivityRepository.saveActivity(any(Activity.class))).thenAnswer(new SavingAnswer<Activity>());
+    when(importActivityRepository.saveLiveActivity(any(LiveActivity.class))).thenAnswer(
+        new SavingAnswer<LiveActivity>());
+    when(importActivityRepository.saveLiveActivityGroup(any(LiveActivityGroup.class))).thenAnswer(
+        new SavingAnswer<LiveActivityGroup>());
+  }
+
+  /**
+   * Test that an exported description imports the same entities with their references resolved.
+   */
+  @Test
+  public void testRoundTrip() {
+    String description = export();
+
+    new StaxMasterDomainDescriptionImporter(3, transactionRunner, progressListener).importDescription(
+        new StringReader(description), importActivityRepository, importControllerRepository,
+        importAutomationRepository, mock(TimeProvider.class));
+
+    assertEquals(5 + 4 + 7 + 1, saved.size());
+    assertEquals(0, numberSavedOutsideTransaction);
+
+    // Batches of 3: 2 for the controllers, 2 for the activities, 3 for the live activities and 1 for the group.
+    assertEquals(8, transactionRunner.numberTransactions);
+
+    Map<String, SpaceController> importedControllers = Maps.newHashMap();
+    Map<String, Activity> importedActivities = Maps.newHashMap();
+    Map<String, LiveActivity> importedLiveActivities = Maps.newHashMap();
+    LiveActivityGroup importedGroup = null;
+    for (Object entity : saved) {
+      if (entity instanceof SpaceController) {
+        SpaceController controller = (SpaceController) entity;
+        importedControllers.put(controller.getUuid(), controller);
+      } else if (entity instanceof Activity) {
+        Activity activity = (Activity) entity;
+        importedActivities.put(activity.getIdentifyingName(), activity);
+      } else if (entity instanceof LiveActivity) {
+        LiveActivity liveActivity = (LiveActivity) entity;
+        importedLiveActivities.put(liveActivity.getUuid(), liveActivity);
+      } else {
+        importedGroup = (LiveActivityGroup) entity;
+      }
+    }
+
+    for (LiveActivity original : liveActivities) {
+      LiveActivity imported = importedLiveActivities.get(original.getUuid());
+      assertEquals(original.getName(), imported.getName());
+      assertSame(importedControllers.get(original.getController().getUuid()), imported.getController());
+      assertSame(importedActivities.get(original.getActivity().getIdentifyingName()), imported.getActivity());
+    }
+
+    assertEquals("group", importedGroup.getName());
+    assertEquals(2, importedGroup.getLiveActivities().size());
+    assertSame(importedLiveActivities.get("live-activity-uuid-6"), importedGroup.getLiveActivities().get(0)
+        .getActivity());
+    assertSame(importedLiveActivities.get("live-activity-uuid-2"), importedGroup.getLiveActivities().get(1)
+        .getActivity());
+
+    assertEquals(Lists.newArrayList(3, 5),
+        progressListener.progress.get(MasterDomainDescription.ELEMENT_NAME_ROOT_SPACE_CONTROLLERS));
+    assertEquals(Lists.newArrayList(3, 6, 7),
+        progressListener.progress.get(MasterDomainDescription.ELEMENT_NAME_ROOT_LIVE_ACTIVITIES));
+  }
+
+  /**
+   * Test that the non-streaming importer can read the streamed description.
+   */
+  @Test
+  public void testStreamedDescriptionReadable() {
+    new JdomMasterDomainDescriptionImporter().importDescription(export(), importActivityRepository,
+        importControllerRepository, importAutomationRepository, mock(TimeProvider.class));
+
+    assertEquals(5 + 4 + 7 + 1, saved.size());
+  }
+
+  /**
+   * Test that sections the importer doesn't know about are skipped.
+   */
+  @Test
+  public void testUnknownSectionSkipped() {
+    String description =
+        "<?xml version=\"1.0\"?><interactivespaces-master-domain-model><unknown><space-controller id=\"1\">"
+            + "<uuid>ignored</uuid></space-controller></unknown><space-controllers><space-controller id=\"2\">"
+            + "<uuid>used</uuid><name>controller</name></space-controller></space-controllers>"
+            + "</interactivespaces-master-domain-model>";
+
+    new StaxMasterDomainDescriptionImporter(10, null, null).importDescription(new StringReader(description),
+        importActivityRepository, importControllerRepository, importAutomationRepository, mock(TimeProvider.class));
+
+    assertEquals(1, saved.size());
+    assertEquals("used", ((SpaceController) saved.get(0)).getUuid());
+    assertEquals(1, numberSavedOutsideTransaction);
+  }
+
+  /**
+   * Export the description.
+   *
+   * @return the exported description
+   */
+  private String export() {
+    StringWriter out = new StringWriter();
+    new StaxMasterDomainDescriptionCreator(null).writeDescription(out, exportActivityRepository,
+        exportControllerRepository, exportAutomationRepository);
+
+    String description = out.toString();
+    assertTrue(description.contains("<live-activity-groups>"));
+
+    return description;
+  }
+
+  /**
+   * An answer for repository saves which records the saved entity.
+   *
+   * @param <T>
+   *          the type of the entity
+   *
+   * @author Keith M. Hughes
+   */
+  private class SavingAnswer<T> implements Answer<T> {
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T answer(InvocationOnMock invocation) {
+      Object entity = invocation.getArguments()[0];
+      saved.add(entity);
+      if (!transactionRunner.inTransaction) {
+        numberSavedOutsideTransaction++;
+      }
+
+      return (T) entity;
+    }
+  }
+
+  /**
+   * A transaction runner which counts its transactions.
+   *
+   * @author Keith M. Hughes
+   */
+  private static class CountingTransactionRunner implements MasterDomainTransactionRunner {
+
+    /**
+     * The number of transactions run.
+     */
+    private int numberTransactions;
+
+    /**
+     * {@code true} if a transaction is running.
+     */
+    private boolean inTransaction;
+
+    @Override
+    public void runInTransaction(Runnable work) {
+      numberTransactions++;
+      inTransaction = true;
+      try {
+        work.run();
+      } finally {
+        inTransaction = false;
+      }
+    }
+  }
+
+  /**
+   * A progress listener which records all progress reports.
+   *
+   * @author Keith M. Hughes
+   */
+  private static class RecordingProgressListener implements MasterDomainDescriptionProgressListener {
+
+    /**
+     * The progress reports, indexed by section name.
+     */
+    private final Map<String, List<Integer>> progress = Maps.newHashMap();
+
+    @Override
+    public void onProgress(String sectionName, int numberProcessed) {
+      List<Integer> sectionProgress = progress.get(sectionName);
+      if (sectionProgress == null) {
+        sectionProgress = Lists.newArrayList();
+        progress.put(sectionName, sectionProgress);
+      }
+      sectionProgress.add(numberProcessed);
+    }
+  }
+}
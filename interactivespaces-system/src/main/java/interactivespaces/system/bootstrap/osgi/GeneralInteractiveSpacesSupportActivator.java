@@ -37,6 +37,7 @@ import interactivespaces.system.resources.ContainerResourceManager;
 import interactivespaces.time.LocalTimeProvider;
 import interactivespaces.time.NtpTimeProvider;
 import interactivespaces.time.TimeProvider;
+import interactivespaces.util.metrics.StandardMetricsRegistry;
 import interactivespaces.util.resource.ManagedResource;
 import interactivespaces.util.resource.ManagedResources;
 
@@ -292,6 +293,12 @@ public class GeneralInteractiveSpacesSupportActivator implements BundleActivator
 
     setupSystemConfiguration(bundleContext, containerProperties);
 
+    if (spaceEnvironment.getSystemConfiguration().getPropertyBoolean(
+        InteractiveSpacesEnvironment.CONFIGURATION_METRICS_ENABLE,
+        InteractiveSpacesEnvironment.CONFIGURATION_VALUE_METRICS_ENABLE_DEFAULT)) {
+      spaceEnvironment.setMetricsRegistry(new StandardMetricsRegistry());
+    }
+
     timeProvider = getTimeProvider(containerProperties, loggingProvider.getLog());
     spaceEnvironment.setTimeProvider(timeProvider);
     timeProvider.startup();
@@ -24,6 +24,8 @@ import interactivespaces.system.InteractiveSpacesFilesystem;
 import interactivespaces.system.InternalInteractiveSpacesEnvironment;
 import interactivespaces.system.core.logging.LoggingProvider;
 import interactivespaces.time.TimeProvider;
+import interactivespaces.util.metrics.DisabledMetricsRegistry;
+import interactivespaces.util.metrics.MetricsRegistry;
 
 import com.google.common.collect.Maps;
 
@@ -68,6 +70,11 @@ public class RosOsgiInteractiveSpacesEnvironment implements InteractiveSpacesEnv
    */
   private TimeProvider timeProvider;
 
+  /**
+   * The metrics registry for everyone to use.
+   */
+  private MetricsRegistry metricsRegistry = DisabledMetricsRegistry.INSTANCE;
+
   /**
    * Values stored in the environment.
    */
@@ -123,6 +130,11 @@ public class RosOsgiInteractiveSpacesEnvironment implements InteractiveSpacesEnv
     return timeProvider;
   }
 
+  @Override
+  public MetricsRegistry getMetricsRegistry() {
+    return metricsRegistry;
+  }
+
   @Override
   public ServiceRegistry getServiceRegistry() {
     return serviceRegistry;
@@ -177,6 +189,11 @@ public class RosOsgiInteractiveSpacesEnvironment implements InteractiveSpacesEnv
     this.timeProvider = timeProvider;
   }
 
+  @Override
+  public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+    this.metricsRegistry = metricsRegistry;
+  }
+
   @Override
   public void setLoggingProvider(LoggingProvider loggingProvider) {
     this.loggingProvider = loggingProvider;
@@ -73,12 +73,14 @@ public class XmlRpcCommonsTransport extends XmlRpcHttpTransport {
    */
   public XmlRpcCommonsTransport(XmlRpcCommonsTransportFactory pFactory) {
     super(pFactory.getClient(), userAgent);
-    connectionManager = new SimpleHttpConnectionManager(true);
-    HttpConnectionManagerParams p = new HttpConnectionManagerParams();
-    p.setLinger(0);
-    connectionManager.setParams(p);
     HttpClient httpClient = pFactory.getHttpClient();
     if (httpClient == null) {
+      // Only a transport with its own client needs its own connection manager.
+      // A shared client keeps its connections open between requests.
+      connectionManager = new SimpleHttpConnectionManager(true);
+      HttpConnectionManagerParams p = new HttpConnectionManagerParams();
+      p.setLinger(0);
+      connectionManager.setParams(p);
       httpClient = newHttpClient();
     }
     client = httpClient;
@@ -24,6 +24,8 @@ import java.io.OutputStream;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
+import javax.xml.parsers.SAXParser;
+
 import org.apache.xmlrpc.XmlRpcException;
 import org.apache.xmlrpc.XmlRpcRequest;
 import org.apache.xmlrpc.common.XmlRpcStreamConfig;
@@ -178,9 +180,10 @@ public abstract class XmlRpcStreamTransport extends XmlRpcTransportImpl {
 
 	protected Object readResponse(XmlRpcStreamRequestConfig pConfig, InputStream pStream) throws XmlRpcException {
 		InputSource isource = new InputSource(pStream);
-		XMLReader xr = newXMLReader();
+		SAXParser parser = SAXParsers.acquireSAXParser();
 		XmlRpcResponseParser xp;
 		try {
+			XMLReader xr = parser.getXMLReader();
 			xp = new XmlRpcResponseParser(pConfig, getClient().getTypeFactory());
 			xr.setContentHandler(xp);
             xr.parse(isource);
@@ -188,6 +191,8 @@ public abstract class XmlRpcStreamTransport extends XmlRpcTransportImpl {
 			throw new XmlRpcClientException("Failed to parse server's response: " + e.getMessage(), e);
 		} catch (IOException e) {
 			throw new XmlRpcClientException("Failed to read server's response: " + e.getMessage(), e);
+		} finally {
+			SAXParsers.releaseSAXParser(parser);
 		}
 		if (xp.isSuccess()) {
 			return xp.getResult();
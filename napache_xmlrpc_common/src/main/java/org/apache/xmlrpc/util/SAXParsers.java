@@ -18,17 +18,30 @@
  */
 package org.apache.xmlrpc.util;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 
 import org.apache.xmlrpc.XmlRpcException;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
 
 
 /** Utility class for working with SAX parsers.
  */
 public class SAXParsers {
+	/** The maximum number of idle parsers kept for reuse.
+	 */
+	public static final int MAX_IDLE_PARSERS = 16;
+
+	private static final DefaultHandler EMPTY_HANDLER = new DefaultHandler();
+	private static final Queue<SAXParser> idleParsers = new ConcurrentLinkedQueue<SAXParser>();
+	private static final AtomicInteger numIdleParsers = new AtomicInteger();
 	private static SAXParserFactory spf;
 	static {
 		spf = SAXParserFactory.newInstance();
@@ -48,6 +61,50 @@ public class SAXParsers {
 		}
 	}
 
+	/** Returns a parser for a single request or response, reusing an idle
+	 * parser if there is one. Creating a parser is expensive compared to
+	 * parsing the short messages XML-RPC is mostly used for. The parser
+	 * must be handed back with {@link #releaseSAXParser(SAXParser)} once
+	 * parsing is done.
+	 */
+	public static SAXParser acquireSAXParser() throws XmlRpcException {
+		SAXParser parser = idleParsers.poll();
+		if (parser != null) {
+			numIdleParsers.decrementAndGet();
+			return parser;
+		}
+		try {
+			return spf.newSAXParser();
+		} catch (ParserConfigurationException e) {
+			throw new XmlRpcException("Unable to create XML parser: " + e.getMessage(), e);
+		} catch (SAXException e) {
+			throw new XmlRpcException("Unable to create XML parser: " + e.getMessage(), e);
+		}
+	}
+
+	/** Hands back a parser obtained from {@link #acquireSAXParser()}. The
+	 * parser is reset and kept for reuse, unless enough parsers are idle
+	 * already.
+	 */
+	public static void releaseSAXParser(SAXParser pParser) {
+		try {
+			pParser.reset();
+			XMLReader xr = pParser.getXMLReader();
+			xr.setContentHandler(EMPTY_HANDLER);
+			xr.setErrorHandler(EMPTY_HANDLER);
+		} catch (UnsupportedOperationException e) {
+			// The parser can't be reset, so it can't be reused.
+			return;
+		} catch (SAXException e) {
+			return;
+		}
+		if (numIdleParsers.incrementAndGet() <= MAX_IDLE_PARSERS) {
+			idleParsers.add(pParser);
+		} else {
+			numIdleParsers.decrementAndGet();
+		}
+	}
+
 	/**
 	 * Returns the SAX parser factory, which is used by Apache XML-RPC. You may
 	 * use this to configure the factory.
@@ -62,5 +119,8 @@ public class SAXParsers {
      */
 	public static void setSAXParserFactory(SAXParserFactory pFactory) {
         spf = pFactory;
+        while (idleParsers.poll() != null) {
+            numIdleParsers.decrementAndGet();
+        }
     }
 }
@@ -46,6 +46,8 @@ import java.util.List;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
+import javax.xml.parsers.SAXParser;
+
 /**
  * Extension of {@link XmlRpcServer} with support for reading requests from a
  * stream and writing the response to another stream.
@@ -59,9 +61,10 @@ public abstract class XmlRpcStreamServer extends XmlRpcServer implements XmlRpcS
   protected XmlRpcRequest getRequest(final XmlRpcStreamRequestConfig pConfig, InputStream pStream)
       throws XmlRpcException {
     final XmlRpcRequestParser parser = new XmlRpcRequestParser(pConfig, getTypeFactory());
-    final XMLReader xr = SAXParsers.newXMLReader();
-    xr.setContentHandler(parser);
+    final SAXParser saxParser = SAXParsers.acquireSAXParser();
     try {
+      XMLReader xr = saxParser.getXMLReader();
+      xr.setContentHandler(parser);
       xr.parse(new InputSource(pStream));
     } catch (SAXException e) {
       Exception ex = e.getException();
@@ -71,6 +74,8 @@ public abstract class XmlRpcStreamServer extends XmlRpcServer implements XmlRpcS
       throw new XmlRpcException("Failed to parse XML-RPC request: " + e.getMessage(), e);
     } catch (IOException e) {
       throw new XmlRpcException("Failed to read XML-RPC request: " + e.getMessage(), e);
+    } finally {
+      SAXParsers.releaseSAXParser(saxParser);
     }
     final List params = parser.getParams();
     return new XmlRpcRequest() {
@@ -206,6 +206,15 @@ public class CircularBlockingDeque<T> implements Iterable<T> {
     return length == 0;
   }
 
+  /**
+   * @return the number of entries in the queue
+   */
+  public int size() {
+    synchronized (mutex) {
+      return length;
+    }
+  }
+
   /**
    * Returns an iterator over the queue.
    * <p>
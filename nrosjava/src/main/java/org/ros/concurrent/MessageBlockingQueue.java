@@ -63,4 +63,11 @@ public interface MessageBlockingQueue<T> {
    * @return {@code true} if empty
    */
   boolean isEmpty();
+
+  /**
+   * Get the number of items in the queue.
+   *
+   * @return the number of items
+   */
+  int size();
 }
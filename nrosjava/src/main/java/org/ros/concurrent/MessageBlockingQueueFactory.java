@@ -61,6 +61,11 @@ public class MessageBlockingQueueFactory {
         public boolean isEmpty() {
           return deque.isEmpty();
         }
+
+        @Override
+        public int size() {
+          return deque.size();
+        }
       };
     } else {
       return new MessageBlockingQueue<T>() {
@@ -86,6 +91,11 @@ public class MessageBlockingQueueFactory {
         public boolean isEmpty() {
           return queue.isEmpty();
         }
+
+        @Override
+        public int size() {
+          return queue.size();
+        }
       };
     }
   }
@@ -29,6 +29,7 @@ import org.ros.internal.message.service.ServiceDescription;
 import org.ros.internal.message.topic.TopicDescription;
 import org.ros.internal.node.client.MasterClient;
 import org.ros.internal.node.client.Registrar;
+import org.ros.internal.node.client.XmlRpcConnectionPool;
 import org.ros.internal.node.parameter.DefaultParameterTree;
 import org.ros.internal.node.parameter.ParameterManager;
 import org.ros.internal.node.response.Response;
@@ -65,6 +66,7 @@ import org.ros.node.topic.DefaultPublisherListener;
 import org.ros.node.topic.DefaultSubscriberListener;
 import org.ros.node.topic.Publisher;
 import org.ros.node.topic.Subscriber;
+import org.ros.node.topic.TransportHints;
 import org.ros.time.ClockTopicTimeProvider;
 import org.ros.time.TimeProvider;
 
@@ -74,6 +76,7 @@ import java.util.Collection;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The default implementation of a {@link Node}.
@@ -100,6 +103,7 @@ public class DefaultNode implements ConnectedNode {
   private final ScheduledExecutorService scheduledExecutorService;
   private final URI masterUri;
   private final MasterClient masterClient;
+  private final AtomicBoolean connectionPoolAcquired = new AtomicBoolean(true);
   private final TopicParticipantManager topicParticipantManager;
   private final ServiceManager serviceManager;
   private final ParameterManager parameterManager;
@@ -132,6 +136,7 @@ public class DefaultNode implements ConnectedNode {
     this.nodeListeners.addAll(nodeListeners);
     this.scheduledExecutorService = scheduledExecutorService;
     masterUri = nodeConfiguration.getMasterUri();
+    XmlRpcConnectionPool.getDefault().acquire();
     masterClient = new MasterClient(masterUri);
     topicParticipantManager = new TopicParticipantManager();
     serviceManager = new ServiceManager();
@@ -275,17 +280,30 @@ public class DefaultNode implements ConnectedNode {
 
   @Override
   public <T> Subscriber<T> newSubscriber(GraphName topicName, String messageType) {
+    return newSubscriber(topicName, messageType, new TransportHints());
+  }
+
+  @Override
+  public <T> Subscriber<T> newSubscriber(String topicName, String messageType) {
+    return newSubscriber(GraphName.of(topicName), messageType);
+  }
+
+  @Override
+  public <T> Subscriber<T> newSubscriber(GraphName topicName, String messageType,
+      TransportHints transportHints) {
     GraphName resolvedTopicName = resolveName(topicName);
     TopicDescription topicDescription = nodeConfiguration.getTopicDescriptionFactory().newFromType(messageType);
     TopicDeclaration topicDeclaration = TopicDeclaration.newFromTopicName(resolvedTopicName, topicDescription);
     MessageDeserializer<T> deserializer = newMessageDeserializer(messageType);
-    Subscriber<T> subscriber = subscriberFactory.newOrExisting(topicDeclaration, deserializer);
+    Subscriber<T> subscriber =
+        subscriberFactory.newOrExisting(topicDeclaration, deserializer, transportHints);
     return subscriber;
   }
 
   @Override
-  public <T> Subscriber<T> newSubscriber(String topicName, String messageType) {
-    return newSubscriber(GraphName.of(topicName), messageType);
+  public <T> Subscriber<T> newSubscriber(String topicName, String messageType,
+      TransportHints transportHints) {
+    return newSubscriber(GraphName.of(topicName), messageType, transportHints);
   }
 
   @Override
@@ -416,6 +434,9 @@ public class DefaultNode implements ConnectedNode {
     parameterManager.shutdown();
     registrar.shutdown();
     slaveServer.shutdown();
+    if (connectionPoolAcquired.compareAndSet(true, false)) {
+      XmlRpcConnectionPool.getDefault().release();
+    }
     signalOnShutdownComplete();
     nodeListeners.shutdown();
   }
@@ -17,14 +17,10 @@
 package org.ros.internal.node.client;
 
 import org.apache.xmlrpc.client.XmlRpcClient;
-import org.apache.xmlrpc.client.XmlRpcClientConfigImpl;
-import org.apache.xmlrpc.client.XmlRpcCommonsTransportFactory;
-import org.ros.exception.RosRuntimeException;
 import org.ros.internal.node.server.XmlRpcServer;
 import org.ros.internal.node.xmlrpc.XmlRpcClientFactory;
 import org.ros.internal.node.xmlrpc.XmlRpcEndpoint;
 
-import java.net.MalformedURLException;
 import java.net.URI;
 
 /**
@@ -37,10 +33,6 @@ import java.net.URI;
  */
 abstract class Client<T extends XmlRpcEndpoint> {
 
-  // TODO(damonkohler): This should be pulled out into a user configurable
-  // strategy.
-  private static final int CONNECTION_TIMEOUT = 60 * 1000; // 60 seconds
-  private static final int REPLY_TIMEOUT = 60 * 1000; // 60 seconds
   private static final int XMLRPC_TIMEOUT = 10 * 1000; // 10 seconds
 
   private final URI uri;
@@ -54,25 +46,59 @@ abstract class Client<T extends XmlRpcEndpoint> {
    *          the class literal for the XML-RPC interface
    */
   public Client(URI uri, Class<T> interfaceClass) {
+    this(uri, interfaceClass, XMLRPC_TIMEOUT);
+  }
+
+  /**
+   * @param uri
+   *          the {@link URI} to connect to
+   * @param interfaceClass
+   *          the class literal for the XML-RPC interface
+   * @param connectionPool
+   *          the pool of connections to use, or {@code null} if every call
+   *          should open its own connection
+   */
+  public Client(URI uri, Class<T> interfaceClass, XmlRpcConnectionPool connectionPool) {
+    this(uri, interfaceClass, XMLRPC_TIMEOUT, connectionPool);
+  }
+
+  /**
+   * @param uri
+   *          the {@link URI} to connect to
+   * @param interfaceClass
+   *          the class literal for the XML-RPC interface
+   * @param timeout
+   *          how long to wait for a call to complete, in milliseconds
+   */
+  public Client(URI uri, Class<T> interfaceClass, int timeout) {
+    this(uri, interfaceClass, timeout, XmlRpcConnectionPool.getDefault());
+  }
+
+  /**
+   * @param uri
+   *          the {@link URI} to connect to
+   * @param interfaceClass
+   *          the class literal for the XML-RPC interface
+   * @param timeout
+   *          how long to wait for a call to complete, in milliseconds
+   * @param connectionPool
+   *          the pool of connections to use, or {@code null} if every call
+   *          should open its own connection
+   */
+  public Client(URI uri, Class<T> interfaceClass, int timeout,
+      XmlRpcConnectionPool connectionPool) {
     this.uri = uri;
-    XmlRpcClientConfigImpl config = new XmlRpcClientConfigImpl();
-    try {
-      config.setServerURL(uri.toURL());
-    } catch (MalformedURLException e) {
-      throw new RosRuntimeException(e);
+    XmlRpcClient client;
+    if (connectionPool != null) {
+      client = connectionPool.getClient(uri);
+    } else {
+      client = XmlRpcConnectionPool.newXmlRpcClient(uri, null);
     }
-    config.setConnectionTimeout(CONNECTION_TIMEOUT);
-    config.setReplyTimeout(REPLY_TIMEOUT);
-
-    XmlRpcClient client = new XmlRpcClient();
-    client.setTransportFactory(new XmlRpcCommonsTransportFactory(client));
-    client.setConfig(config);
 
     XmlRpcClientFactory<T> factory = new XmlRpcClientFactory<T>(client);
     xmlRpcEndpoint =
         interfaceClass.cast(factory.newInstance(getClass().getClassLoader(), interfaceClass, "",
-            XMLRPC_TIMEOUT));
-
+            timeout));
   }
 
   /**
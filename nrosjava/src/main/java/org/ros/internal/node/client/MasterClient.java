@@ -60,6 +60,20 @@ public class MasterClient extends Client<MasterXmlRpcEndpoint> {
     super(uri, MasterXmlRpcEndpoint.class);
   }
 
+  /**
+   * Create a new {@link MasterClient} connected to the specified
+   * {@link MasterServer} URI.
+   *
+   * @param uri
+   *          the {@link URI} of the {@link MasterServer} to connect to
+   * @param connectionPool
+   *          the pool of connections to use, or {@code null} if every call
+   *          should open its own connection
+   */
+  public MasterClient(URI uri, XmlRpcConnectionPool connectionPool) {
+    super(uri, MasterXmlRpcEndpoint.class, connectionPool);
+  }
+
   /**
    * Registers the given {@link ServiceServer}.
    *
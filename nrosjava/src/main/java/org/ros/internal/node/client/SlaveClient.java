@@ -24,9 +24,12 @@ import org.ros.internal.node.response.Response;
 import org.ros.internal.node.response.TopicListResultFactory;
 import org.ros.internal.node.response.UriResultFactory;
 import org.ros.internal.node.response.VoidResultFactory;
+import org.ros.internal.node.topic.IntraProcessPublisherRegistry;
 import org.ros.internal.node.topic.TopicDeclaration;
 import org.ros.internal.node.xmlrpc.SlaveXmlRpcEndpoint;
 import org.ros.internal.transport.ProtocolDescription;
+import org.ros.internal.transport.ProtocolNames;
+import org.ros.internal.transport.udp.UdpRosRequest;
 import org.ros.namespace.GraphName;
 
 import java.net.URI;
@@ -46,6 +49,19 @@ public class SlaveClient extends Client<SlaveXmlRpcEndpoint> {
     this.nodeName = nodeName;
   }
 
+  /**
+   * @param nodeName
+   *          the name of the node making the calls
+   * @param uri
+   *          the {@link URI} of the slave to connect to
+   * @param timeout
+   *          how long to wait for a call to complete, in milliseconds
+   */
+  public SlaveClient(GraphName nodeName, URI uri, int timeout) {
+    super(uri, SlaveXmlRpcEndpoint.class, timeout);
+    this.nodeName = nodeName;
+  }
+
   public List<Object> getBusStats() {
     throw new UnsupportedOperationException();
   }
@@ -119,9 +135,50 @@ public class SlaveClient extends Client<SlaveXmlRpcEndpoint> {
         new VoidResultFactory());
   }
 
+  /**
+   * Request a topic from the slave.
+   * <p>
+   * Each protocol is sent as its own list, in the order given. The
+   * intra-process protocol carries the ID of this process so the slave can
+   * tell whether it is in the same process.
+   *
+   * @param topic
+   *          the topic to request
+   * @param requestedProtocols
+   *          the protocol names, in order of preference
+   *
+   * @return the protocol selected by the slave
+   */
   public Response<ProtocolDescription> requestTopic(GraphName topic, Collection<String> requestedProtocols) {
+    return requestTopic(topic, requestedProtocols, null);
+  }
+
+  /**
+   * @param topic
+   *          the topic to request
+   * @param requestedProtocols
+   *          the protocols to request, in order of preference
+   * @param udpRosRequest
+   *          the parameters for {@link ProtocolNames#UDPROS}, or {@code null}
+   *          to leave UDPROS out of the request
+   * @return the protocol selected by the publisher
+   */
+  public Response<ProtocolDescription> requestTopic(GraphName topic,
+      Collection<String> requestedProtocols, UdpRosRequest udpRosRequest) {
+    List<Object> protocols = Lists.newArrayList();
+    for (String protocol : requestedProtocols) {
+      if (ProtocolNames.INTRAPROCESS.equals(protocol)) {
+        protocols.add(new Object[] { protocol, IntraProcessPublisherRegistry.PROCESS_ID });
+      } else if (ProtocolNames.UDPROS.equals(protocol)) {
+        if (udpRosRequest != null) {
+          protocols.add(udpRosRequest.toProtocolParameters());
+        }
+      } else {
+        protocols.add(new Object[] { protocol });
+      }
+    }
     return Response.fromListChecked(
-        xmlRpcEndpoint.requestTopic(nodeName.toString(), topic.toString(),
-            new Object[][] { requestedProtocols.toArray() }), new ProtocolDescriptionResultFactory());
+        xmlRpcEndpoint.requestTopic(nodeName.toString(), topic.toString(), protocols.toArray()),
+        new ProtocolDescriptionResultFactory());
   }
 }
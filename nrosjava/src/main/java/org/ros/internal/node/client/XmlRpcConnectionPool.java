@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ros.internal.node.client;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+import org.apache.xmlrpc.client.XmlRpcClient;
+import org.apache.xmlrpc.client.XmlRpcClientConfigImpl;
+import org.apache.xmlrpc.client.XmlRpcCommonsTransportFactory;
+import org.ros.exception.RosRuntimeException;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+
+/**
+ * Keeps XML-RPC connections to remote servers open between calls, so that
+ * {@link Client}s talking to the same server share connections instead of
+ * opening one per call.
+ * <p>
+ * Connections are pooled per remote host and port. Each host gets at most
+ * {@link #DEFAULT_MAX_CONNECTIONS_PER_HOST} connections, calls beyond that wait
+ * for a connection to be released. While the pool is in use, connections
+ * which have been idle for {@link #DEFAULT_IDLE_TIMEOUT} milliseconds are
+ * closed by a background thread.
+ * <p>
+ * The pool is in use between a call to {@link #acquire()} and the matching
+ * call to {@link #release()}. When the last user releases the pool the
+ * background thread stops and all idle connections are closed, but the pool
+ * can still be used and acquired again.
+ * <p>
+ * All clients share the pool returned by {@link #getDefault()}. Nodes and the
+ * master server acquire it for as long as they run.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class XmlRpcConnectionPool {
+
+  /**
+   * The default maximum number of connections to a single host.
+   */
+  public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 8;
+
+  /**
+   * The default maximum number of connections to all hosts.
+   */
+  public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 256;
+
+  /**
+   * The default time in milliseconds after which idle connections are closed.
+   */
+  public static final long DEFAULT_IDLE_TIMEOUT = 30 * 1000;
+
+  /**
+   * The maximum number of remote URIs {@link XmlRpcClient}s are kept for.
+   */
+  private static final int MAX_CACHED_CLIENTS = 1024;
+
+  // TODO(damonkohler): This should be pulled out into a user configurable
+  // strategy.
+  private static final int CONNECTION_TIMEOUT = 60 * 1000; // 60 seconds
+  private static final int REPLY_TIMEOUT = 60 * 1000; // 60 seconds
+
+  private static final XmlRpcConnectionPool DEFAULT = new XmlRpcConnectionPool(
+      DEFAULT_MAX_CONNECTIONS_PER_HOST, DEFAULT_MAX_TOTAL_CONNECTIONS, DEFAULT_IDLE_TIMEOUT);
+
+  /**
+   * @return the pool shared by all {@link Client}s
+   */
+  public static XmlRpcConnectionPool getDefault() {
+    return DEFAULT;
+  }
+
+  private final MultiThreadedHttpConnectionManager connectionManager;
+  private final HttpClient httpClient;
+  private final long idleTimeout;
+  private final LoadingCache<URI, XmlRpcClient> clients;
+
+  /**
+   * The thread closing idle connections, {@code null} if the pool is not in
+   * use.
+   */
+  private IdleConnectionTimeoutThread idleConnectionTimeoutThread;
+
+  /**
+   * The number of users which have acquired the pool and not released it.
+   */
+  private int users;
+
+  /**
+   * @param maxConnectionsPerHost
+   *          the maximum number of connections to a single host
+   * @param maxTotalConnections
+   *          the maximum number of connections to all hosts
+   * @param idleTimeout
+   *          the time in milliseconds after which idle connections are closed
+   */
+  public XmlRpcConnectionPool(int maxConnectionsPerHost, int maxTotalConnections,
+      long idleTimeout) {
+    connectionManager = new MultiThreadedHttpConnectionManager();
+    HttpConnectionManagerParams params = connectionManager.getParams();
+    params.setDefaultMaxConnectionsPerHost(maxConnectionsPerHost);
+    params.setMaxTotalConnections(maxTotalConnections);
+    params.setConnectionTimeout(CONNECTION_TIMEOUT);
+    params.setSoTimeout(REPLY_TIMEOUT);
+    params.setStaleCheckingEnabled(true);
+    params.setTcpNoDelay(true);
+    httpClient = new HttpClient(connectionManager);
+    httpClient.getParams().setConnectionManagerTimeout(CONNECTION_TIMEOUT);
+
+    this.idleTimeout = idleTimeout;
+
+    clients =
+        CacheBuilder.newBuilder().maximumSize(MAX_CACHED_CLIENTS)
+            .build(new CacheLoader<URI, XmlRpcClient>() {
+              @Override
+              public XmlRpcClient load(URI uri) {
+                return newXmlRpcClient(uri, httpClient);
+              }
+            });
+  }
+
+  /**
+   * Get the XML-RPC client for a remote server. The client uses the pooled
+   * connections of this pool.
+   *
+   * @param uri
+   *          the {@link URI} of the remote server
+   * @return the client
+   */
+  public XmlRpcClient getClient(URI uri) {
+    return clients.getUnchecked(uri);
+  }
+
+  /**
+   * @return the number of connections currently open
+   */
+  public int getNumberConnections() {
+    return connectionManager.getConnectionsInPool();
+  }
+
+  /**
+   * Start using the pool. Idle connections are closed in the background until
+   * every call to this method has been matched by a call to {@link #release()}.
+   */
+  public synchronized void acquire() {
+    if (users++ == 0) {
+      idleConnectionTimeoutThread = new IdleConnectionTimeoutThread();
+      idleConnectionTimeoutThread.setName("XmlRpcIdleConnectionTimeout");
+      idleConnectionTimeoutThread.setDaemon(true);
+      idleConnectionTimeoutThread.setConnectionTimeout(idleTimeout);
+      idleConnectionTimeoutThread.setTimeoutInterval(Math.max(1000, idleTimeout / 2));
+      idleConnectionTimeoutThread.addConnectionManager(connectionManager);
+      idleConnectionTimeoutThread.start();
+    }
+  }
+
+  /**
+   * Stop using the pool. When the last user releases the pool, the background
+   * thread stops and all idle connections are closed.
+   */
+  public synchronized void release() {
+    if (users == 0) {
+      return;
+    }
+
+    if (--users == 0) {
+      stopIdleConnectionTimeoutThread();
+      connectionManager.closeIdleConnections(0);
+      connectionManager.deleteClosedConnections();
+    }
+  }
+
+  /**
+   * Is the background thread closing idle connections running?
+   *
+   * @return {@code true} if the pool is in use and the thread is running
+   */
+  synchronized boolean isIdleConnectionTimeoutRunning() {
+    return idleConnectionTimeoutThread != null;
+  }
+
+  /**
+   * Close all connections. The pool must not be used afterwards.
+   */
+  public synchronized void shutdown() {
+    stopIdleConnectionTimeoutThread();
+    users = 0;
+    clients.invalidateAll();
+    connectionManager.shutdown();
+  }
+
+  /**
+   * Stop the background thread closing idle connections, if it is running.
+   */
+  private void stopIdleConnectionTimeoutThread() {
+    if (idleConnectionTimeoutThread != null) {
+      idleConnectionTimeoutThread.shutdown();
+      idleConnectionTimeoutThread = null;
+    }
+  }
+
+  /**
+   * Create an XML-RPC client for a remote server.
+   *
+   * @param uri
+   *          the {@link URI} of the remote server
+   * @param httpClient
+   *          the HTTP client to make calls with, or {@code null} if every call
+   *          should open its own connection
+   * @return the client
+   */
+  static XmlRpcClient newXmlRpcClient(URI uri, HttpClient httpClient) {
+    XmlRpcClientConfigImpl config = new XmlRpcClientConfigImpl();
+    try {
+      config.setServerURL(uri.toURL());
+    } catch (MalformedURLException e) {
+      throw new RosRuntimeException(e);
+    }
+    config.setConnectionTimeout(CONNECTION_TIMEOUT);
+    config.setReplyTimeout(REPLY_TIMEOUT);
+
+    XmlRpcClient client = new XmlRpcClient();
+    XmlRpcCommonsTransportFactory transportFactory = new XmlRpcCommonsTransportFactory(client);
+    transportFactory.setHttpClient(httpClient);
+    client.setTransportFactory(transportFactory);
+    client.setConfig(config);
+
+    return client;
+  }
+}
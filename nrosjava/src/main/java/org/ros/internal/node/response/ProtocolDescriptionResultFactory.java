@@ -19,9 +19,11 @@ package org.ros.internal.node.response;
 import com.google.common.base.Preconditions;
 
 import org.ros.address.AdvertiseAddress;
+import org.ros.internal.transport.IntraProcessProtocolDescription;
 import org.ros.internal.transport.ProtocolDescription;
 import org.ros.internal.transport.ProtocolNames;
 import org.ros.internal.transport.tcp.TcpRosProtocolDescription;
+import org.ros.internal.transport.udp.UdpRosProtocolDescription;
 
 import java.util.Arrays;
 import java.util.List;
@@ -34,10 +36,24 @@ public class ProtocolDescriptionResultFactory implements ResultFactory<ProtocolD
   @Override
   public ProtocolDescription newFromValue(Object value) {
     List<Object> protocolParameters = Arrays.asList((Object[]) value);
-    Preconditions.checkState(protocolParameters.size() == 3);
-    Preconditions.checkState(protocolParameters.get(0).equals(ProtocolNames.TCPROS));
+    Object protocolName = protocolParameters.get(0);
+    Preconditions.checkState(protocolName.equals(ProtocolNames.TCPROS)
+        || protocolName.equals(ProtocolNames.INTRAPROCESS)
+        || protocolName.equals(ProtocolNames.UDPROS));
+    if (protocolName.equals(ProtocolNames.UDPROS)) {
+      Preconditions.checkState(protocolParameters.size() == 6);
+    } else {
+      Preconditions.checkState(protocolParameters.size() == 3);
+    }
     AdvertiseAddress address = new AdvertiseAddress((String) protocolParameters.get(1));
     address.setStaticPort((Integer) protocolParameters.get(2));
+    if (protocolName.equals(ProtocolNames.UDPROS)) {
+      return new UdpRosProtocolDescription(address, (Integer) protocolParameters.get(3),
+          (Integer) protocolParameters.get(4), (byte[]) protocolParameters.get(5));
+    }
+    if (protocolName.equals(ProtocolNames.INTRAPROCESS)) {
+      return new IntraProcessProtocolDescription(address);
+    }
     return new TcpRosProtocolDescription(address);
   }
 }
@@ -18,6 +18,7 @@ package org.ros.internal.node.server;
 
 import com.google.common.collect.Lists;
 
+import org.jboss.netty.buffer.ChannelBuffer;
 import org.ros.address.AdvertiseAddress;
 import org.ros.address.BindAddress;
 import org.ros.internal.node.client.MasterClient;
@@ -28,13 +29,21 @@ import org.ros.internal.node.topic.DefaultSubscriber;
 import org.ros.internal.node.topic.PublisherIdentifier;
 import org.ros.internal.node.topic.SubscriberIdentifier;
 import org.ros.internal.node.topic.TopicDeclaration;
+import org.ros.internal.node.topic.TopicIdentifier;
 import org.ros.internal.node.topic.TopicParticipantManager;
 import org.ros.internal.node.xmlrpc.SlaveXmlRpcEndpointImpl;
 import org.ros.internal.system.Process;
+import org.ros.internal.transport.ConnectionHeader;
+import org.ros.internal.transport.ConnectionHeaderFields;
+import org.ros.internal.transport.IntraProcessProtocolDescription;
 import org.ros.internal.transport.ProtocolDescription;
 import org.ros.internal.transport.ProtocolNames;
 import org.ros.internal.transport.tcp.TcpRosProtocolDescription;
 import org.ros.internal.transport.tcp.TcpRosServer;
+import org.ros.internal.transport.udp.UdpRosProtocolDescription;
+import org.ros.internal.transport.udp.UdpRosPublisherConnection;
+import org.ros.internal.transport.udp.UdpRosRequest;
+import org.ros.internal.transport.udp.UdpRosServer;
 import org.ros.namespace.GraphName;
 
 import java.net.URI;
@@ -52,6 +61,7 @@ public class SlaveServer extends XmlRpcServer {
   private final TopicParticipantManager topicParticipantManager;
   private final ParameterManager parameterManager;
   private final TcpRosServer tcpRosServer;
+  private final UdpRosServer udpRosServer;
 
   public SlaveServer(GraphName nodeName, BindAddress tcpRosBindAddress,
       AdvertiseAddress tcpRosAdvertiseAddress, BindAddress xmlRpcBindAddress,
@@ -66,6 +76,9 @@ public class SlaveServer extends XmlRpcServer {
     this.tcpRosServer =
         new TcpRosServer(tcpRosBindAddress, tcpRosAdvertiseAddress, topicParticipantManager,
             serviceManager, executorService);
+    this.udpRosServer =
+        new UdpRosServer(tcpRosBindAddress, new AdvertiseAddress(tcpRosAdvertiseAddress.getHost()),
+            executorService);
   }
 
   public AdvertiseAddress getTcpRosAdvertiseAddress() {
@@ -81,6 +94,7 @@ public class SlaveServer extends XmlRpcServer {
     super.start(org.ros.internal.node.xmlrpc.SlaveXmlRpcEndpointImpl.class,
         new SlaveXmlRpcEndpointImpl(this));
     tcpRosServer.start();
+    udpRosServer.start();
   }
 
   // TODO(damonkohler): This should also shut down the Node.
@@ -88,6 +102,7 @@ public class SlaveServer extends XmlRpcServer {
   public void shutdown() {
     super.shutdown();
     tcpRosServer.shutdown();
+    udpRosServer.shutdown();
   }
 
   public List<Object> getBusStats(String callerId) {
@@ -178,6 +193,27 @@ public class SlaveServer extends XmlRpcServer {
 
   public ProtocolDescription requestTopic(String topicName, Collection<String> protocols)
       throws ServerException {
+    return requestTopic(topicName, protocols, null);
+  }
+
+  /**
+   * Select the protocol a subscriber will use to connect to the publisher of a
+   * topic.
+   *
+   * @param topicName
+   *          the name of the topic
+   * @param protocols
+   *          the protocols the subscriber supports, in order of preference
+   * @param udpRosRequest
+   *          the UDPROS parameters of the subscriber, or {@code null} if the
+   *          subscriber can't use UDPROS
+   * @return the description of the selected protocol
+   * @throws ServerException
+   *           there is no publisher for the topic or none of the protocols are
+   *           supported
+   */
+  public ProtocolDescription requestTopic(String topicName, Collection<String> protocols,
+      UdpRosRequest udpRosRequest) throws ServerException {
     // TODO(damonkohler): Use NameResolver.
     // Canonicalize topic name.
     GraphName graphName = GraphName.of(topicName).toGlobal();
@@ -185,6 +221,21 @@ public class SlaveServer extends XmlRpcServer {
       throw new ServerException("No publishers for topic: " + graphName);
     }
     for (String protocol : protocols) {
+      if (protocol.equals(ProtocolNames.INTRAPROCESS)) {
+        try {
+          return new IntraProcessProtocolDescription(tcpRosServer.getAdvertiseAddress());
+        } catch (Exception e) {
+          throw new ServerException(e);
+        }
+      }
+      if (protocol.equals(ProtocolNames.UDPROS) && udpRosRequest != null) {
+        try {
+          return newUdpRosConnection(topicParticipantManager.getPublisher(graphName),
+              udpRosRequest);
+        } catch (Exception e) {
+          throw new ServerException(e);
+        }
+      }
       if (protocol.equals(ProtocolNames.TCPROS)) {
         try {
           return new TcpRosProtocolDescription(tcpRosServer.getAdvertiseAddress());
@@ -196,6 +247,33 @@ public class SlaveServer extends XmlRpcServer {
     throw new ServerException("No supported protocols specified.");
   }
 
+  /**
+   * Connect a UDPROS subscriber to a publisher.
+   * <p>
+   * UDPROS has no handshake on the data connection, so the connection headers
+   * are exchanged as part of the topic request instead.
+   *
+   * @param publisher
+   *          the publisher
+   * @param udpRosRequest
+   *          the request of the subscriber
+   * @return the description of the new connection
+   */
+  private ProtocolDescription newUdpRosConnection(DefaultPublisher<?> publisher,
+      UdpRosRequest udpRosRequest) {
+    ConnectionHeader incomingConnectionHeader = udpRosRequest.getConnectionHeader();
+    ChannelBuffer outgoingBuffer = publisher.finishHandshake(incomingConnectionHeader);
+    byte[] outgoingHeader = new byte[outgoingBuffer.readableBytes()];
+    outgoingBuffer.readBytes(outgoingHeader);
+    UdpRosPublisherConnection connection =
+        udpRosServer.newConnection(udpRosRequest.getAddress(), udpRosRequest.getMaxDatagramSize());
+    String nodeName = incomingConnectionHeader.getField(ConnectionHeaderFields.CALLER_ID);
+    publisher.addUdpSubscriber(new SubscriberIdentifier(NodeIdentifier.forName(nodeName),
+        new TopicIdentifier(publisher.getTopicName())), connection);
+    return new UdpRosProtocolDescription(udpRosServer.getAdvertiseAddress(),
+        connection.getConnectionId(), connection.getMaxDatagramSize(), outgoingHeader);
+  }
+
   /**
    * @return a {@link NodeIdentifier} for this {@link SlaveServer}
    */
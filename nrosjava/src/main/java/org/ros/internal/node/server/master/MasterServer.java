@@ -18,11 +18,13 @@ package org.ros.internal.node.server.master;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 import org.apache.commons.logging.Log;
 import org.ros.address.AdvertiseAddress;
 import org.ros.address.BindAddress;
 import org.ros.internal.node.client.SlaveClient;
+import org.ros.internal.node.client.XmlRpcConnectionPool;
 import org.ros.internal.node.server.NodeIdentifier;
 import org.ros.internal.node.server.SlaveServer;
 import org.ros.internal.node.server.XmlRpcServer;
@@ -39,7 +41,9 @@ import org.ros.node.topic.Subscriber;
 import java.net.URI;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The {@link MasterServer} provides naming and registration services to the
@@ -79,15 +83,50 @@ public class MasterServer extends XmlRpcServer implements MasterRegistrationList
    */
   private static final GraphName MASTER_NODE_NAME = GraphName.of("/master");
 
+  /**
+   * How long the master waits for a {@link SlaveServer} to answer a call, in
+   * milliseconds.
+   */
+  public static final int SLAVE_CALL_TIMEOUT = 5 * 1000;
+
   /**
    * The manager for handling master registration information.
    */
   private final MasterRegistrationManagerImpl masterRegistrationManager;
 
+  /**
+   * Sends publisher updates to subscribers without blocking registrations.
+   */
+  private final PublisherUpdateNotifier publisherUpdateNotifier;
+
+  /**
+   * {@code true} while the server holds the default XML-RPC connection pool.
+   */
+  private final AtomicBoolean connectionPoolAcquired = new AtomicBoolean();
+
+  /**
+   * Clients for contacting subscriber slaves, keyed by slave URI.
+   */
+  private final ConcurrentMap<URI, SlaveClient> subscriberSlaveClients = Maps.newConcurrentMap();
+
+  /**
+   * The executor service for the server.
+   */
+  private final ScheduledExecutorService executorService;
+
   public MasterServer(BindAddress bindAddress, AdvertiseAddress advertiseAddress,
       ScheduledExecutorService executorService) {
     super(bindAddress, advertiseAddress, executorService);
+    this.executorService = executorService;
     masterRegistrationManager = new MasterRegistrationManagerImpl(this);
+    publisherUpdateNotifier =
+        new PublisherUpdateNotifier(new PublisherUpdateNotifier.PublisherUpdateSender() {
+          @Override
+          public void sendPublisherUpdate(URI subscriberSlaveUri, GraphName topicName,
+              List<URI> publisherUris) {
+            contactSubscriberForPublisherUpdate(subscriberSlaveUri, topicName, publisherUris);
+          }
+        }, executorService);
   }
 
   /**
@@ -96,9 +135,32 @@ public class MasterServer extends XmlRpcServer implements MasterRegistrationList
   public void start() {
     log.debug("Starting master server.");
 
+    if (connectionPoolAcquired.compareAndSet(false, true)) {
+      XmlRpcConnectionPool.getDefault().acquire();
+    }
     super.start(MasterXmlRpcEndpointImpl.class, new MasterXmlRpcEndpointImpl(this));
   }
 
+  @Override
+  public void shutdown() {
+    publisherUpdateNotifier.shutdown();
+
+    super.shutdown();
+    if (connectionPoolAcquired.compareAndSet(true, false)) {
+      XmlRpcConnectionPool.getDefault().release();
+    }
+  }
+
+  /**
+   * Get the notifier which sends publisher updates to subscribers.
+   *
+   * @return the notifier
+   */
+  @VisibleForTesting
+  PublisherUpdateNotifier getPublisherUpdateNotifier() {
+    return publisherUpdateNotifier;
+  }
+
   /**
    * Register a service with the master.
    *
@@ -185,7 +247,12 @@ public class MasterServer extends XmlRpcServer implements MasterRegistrationList
       log.debug(String.format("Unregistering subscriber for %s on node %s.", topicName, nodeName));
     }
     synchronized (masterRegistrationManager) {
-      return masterRegistrationManager.unregisterSubscriber(nodeName, topicName);
+      NodeRegistrationInfo nodeInfo = masterRegistrationManager.getNodeRegistrationInfo(nodeName);
+      boolean unregistered = masterRegistrationManager.unregisterSubscriber(nodeName, topicName);
+      if (unregistered && nodeInfo != null) {
+        publisherUpdateNotifier.cancel(nodeInfo.getNodeSlaveUri(), topicName);
+      }
+      return unregistered;
     }
   }
 
@@ -232,6 +299,11 @@ public class MasterServer extends XmlRpcServer implements MasterRegistrationList
    * Something has happened to the publishers for a topic. Tell every subscriber
    * about the current set of publishers.
    *
+   * <p>
+   * The updates are only queued here and are sent asynchronously, so this can
+   * be called while holding the registration lock. Queuing under the lock
+   * keeps the updates for each subscriber in registration order.
+   *
    * @param topicInfo
    *          the topic information for the update
    * @param subscriberSlaveUris
@@ -248,13 +320,17 @@ public class MasterServer extends XmlRpcServer implements MasterRegistrationList
 
     GraphName topicName = topicInfo.getTopicName();
     for (URI subscriberSlaveUri : subscriberSlaveUris) {
-      contactSubscriberForPublisherUpdate(subscriberSlaveUri, topicName, publisherUris);
+      publisherUpdateNotifier.publisherUpdate(subscriberSlaveUri, topicName, publisherUris);
     }
   }
 
   /**
    * Contact a subscriber and send it a publisher update.
    *
+   * <p>
+   * This is called by the {@link PublisherUpdateNotifier} and blocks until the
+   * subscriber answers or the call times out.
+   *
    * @param subscriberSlaveUri
    *          the slave URI of the subscriber to contact
    * @param topicName
@@ -265,8 +341,22 @@ public class MasterServer extends XmlRpcServer implements MasterRegistrationList
   @VisibleForTesting
   protected void contactSubscriberForPublisherUpdate(URI subscriberSlaveUri, GraphName topicName,
       List<URI> publisherUris) {
-    SlaveClient client = new SlaveClient(MASTER_NODE_NAME, subscriberSlaveUri);
-    client.publisherUpdate(topicName, publisherUris);
+    SlaveClient client = subscriberSlaveClients.get(subscriberSlaveUri);
+    if (client == null) {
+      client = new SlaveClient(MASTER_NODE_NAME, subscriberSlaveUri, SLAVE_CALL_TIMEOUT);
+      SlaveClient existing = subscriberSlaveClients.putIfAbsent(subscriberSlaveUri, client);
+      if (existing != null) {
+        client = existing;
+      }
+    }
+
+    try {
+      client.publisherUpdate(topicName, publisherUris);
+    } catch (RuntimeException e) {
+      // The slave may have gone away, so don't keep a client for it.
+      subscriberSlaveClients.remove(subscriberSlaveUri, client);
+      throw e;
+    }
   }
 
   /**
@@ -283,7 +373,22 @@ public class MasterServer extends XmlRpcServer implements MasterRegistrationList
       log.debug(String.format("Unregistering publisher for %s on %s.", topicName, nodeName));
     }
     synchronized (masterRegistrationManager) {
-      return masterRegistrationManager.unregisterPublisher(nodeName, topicName);
+      boolean unregistered = masterRegistrationManager.unregisterPublisher(nodeName, topicName);
+
+      if (unregistered) {
+        TopicRegistrationInfo topicInfo =
+            masterRegistrationManager.getTopicRegistrationInfo(topicName);
+        if (topicInfo != null && topicInfo.hasSubscribers()) {
+          List<URI> subscriberSlaveUris = Lists.newArrayList();
+          for (NodeRegistrationInfo subscriberNodeInfo : topicInfo.getSubscribers()) {
+            subscriberSlaveUris.add(subscriberNodeInfo.getNodeSlaveUri());
+          }
+
+          publisherUpdate(topicInfo, subscriberSlaveUris);
+        }
+      }
+
+      return unregistered;
     }
   }
 
@@ -481,7 +586,21 @@ public class MasterServer extends XmlRpcServer implements MasterRegistrationList
           nodeInfo.getNodeName(), nodeInfo.getNodeSlaveUri()));
     }
 
-    SlaveClient client = new SlaveClient(MASTER_NODE_NAME, nodeInfo.getNodeSlaveUri());
-    client.shutdown("Replaced by new slave");
+    // This is called with the registration lock held, so the old node must not
+    // be contacted in this thread.
+    final URI nodeSlaveUri = nodeInfo.getNodeSlaveUri();
+    publisherUpdateNotifier.cancel(nodeSlaveUri);
+    executorService.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          SlaveClient client = new SlaveClient(MASTER_NODE_NAME, nodeSlaveUri, SLAVE_CALL_TIMEOUT);
+          client.shutdown("Replaced by new slave");
+        } catch (Exception e) {
+          log.warn(String.format("Could not shut down replaced node with slave URI %s",
+              nodeSlaveUri), e);
+        }
+      }
+    });
   }
 }
@@ -0,0 +1,404 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ros.internal.node.server.master;
+
+import com.google.common.collect.Maps;
+
+import org.apache.commons.logging.Log;
+import org.ros.log.RosLogFactory;
+import org.ros.namespace.GraphName;
+
+import java.net.URI;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends publisher updates to subscriber slaves asynchronously.
+ *
+ * <p>
+ * Every subscriber slave has its own queue of pending updates which is drained
+ * by at most one task at a time, so the updates for a slave are sent in order
+ * and a slow or dead slave only delays its own updates. An update for a topic
+ * replaces any update for the same topic which has not been sent yet, since
+ * only the latest set of publishers matters. Failed updates are retried with a
+ * growing delay and dropped after too many attempts.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class PublisherUpdateNotifier {
+
+  /**
+   * Sends a single publisher update to a slave.
+   *
+   * @author khughes@google.com (Keith M. Hughes)
+   */
+  public interface PublisherUpdateSender {
+
+    /**
+     * Send a publisher update.
+     *
+     * @param subscriberSlaveUri
+     *          the slave URI of the subscriber to contact
+     * @param topicName
+     *          the name of the topic whose publishers are being updated
+     * @param publisherUris
+     *          the slave URIs of all publishers of the topic
+     *
+     * @throws Exception
+     *           the update could not be sent
+     */
+    void sendPublisherUpdate(URI subscriberSlaveUri, GraphName topicName, List<URI> publisherUris)
+        throws Exception;
+  }
+
+  /**
+   * The default number of attempts to send an update.
+   */
+  public static final int SEND_ATTEMPTS_DEFAULT = 4;
+
+  /**
+   * The default delay before the first retry of an update, in milliseconds.
+   * Later retries double the delay.
+   */
+  public static final long RETRY_DELAY_DEFAULT = 500;
+
+  private static final Log log = RosLogFactory.getLog(PublisherUpdateNotifier.class);
+
+  /**
+   * The sender for updates.
+   */
+  private final PublisherUpdateSender sender;
+
+  /**
+   * The executor service for sending updates.
+   */
+  private final ScheduledExecutorService executorService;
+
+  /**
+   * The queues for all subscribers with pending updates, keyed by slave URI.
+   */
+  private final ConcurrentMap<URI, SubscriberQueue> subscriberQueues = Maps.newConcurrentMap();
+
+  /**
+   * The number of attempts to send an update.
+   */
+  private volatile int sendAttempts = SEND_ATTEMPTS_DEFAULT;
+
+  /**
+   * The delay before the first retry of an update, in milliseconds.
+   */
+  private volatile long retryDelay = RETRY_DELAY_DEFAULT;
+
+  /**
+   * {@code true} if the notifier has been shut down.
+   */
+  private volatile boolean shutdown;
+
+  /**
+   * @param sender
+   *          the sender for updates
+   * @param executorService
+   *          the executor service for sending updates
+   */
+  public PublisherUpdateNotifier(PublisherUpdateSender sender,
+      ScheduledExecutorService executorService) {
+    this.sender = sender;
+    this.executorService = executorService;
+  }
+
+  /**
+   * Set how failed updates are retried.
+   *
+   * @param sendAttempts
+   *          the number of attempts to send an update
+   * @param retryDelay
+   *          the delay before the first retry, later retries double the delay
+   * @param unit
+   *          the time unit for the delay
+   */
+  public void setRetryPolicy(int sendAttempts, long retryDelay, TimeUnit unit) {
+    this.sendAttempts = sendAttempts;
+    this.retryDelay = unit.toMillis(retryDelay);
+  }
+
+  /**
+   * Queue a publisher update for a subscriber.
+   *
+   * <p>
+   * This method does not block on the subscriber.
+   *
+   * @param subscriberSlaveUri
+   *          the slave URI of the subscriber
+   * @param topicName
+   *          the name of the topic whose publishers are being updated
+   * @param publisherUris
+   *          the slave URIs of all publishers of the topic
+   */
+  public void publisherUpdate(URI subscriberSlaveUri, GraphName topicName, List<URI> publisherUris) {
+    if (shutdown) {
+      return;
+    }
+
+    while (true) {
+      SubscriberQueue queue = subscriberQueues.get(subscriberSlaveUri);
+      if (queue == null) {
+        queue = new SubscriberQueue(subscriberSlaveUri);
+        SubscriberQueue existing = subscriberQueues.putIfAbsent(subscriberSlaveUri, queue);
+        if (existing != null) {
+          queue = existing;
+        }
+      }
+
+      if (queue.add(topicName, publisherUris)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Drop all pending updates for a subscriber, for instance because its node
+   * has been replaced.
+   *
+   * <p>
+   * An update which is being sent when this is called still completes, but it
+   * is not retried.
+   *
+   * @param subscriberSlaveUri
+   *          the slave URI of the subscriber
+   */
+  public void cancel(URI subscriberSlaveUri) {
+    SubscriberQueue queue = subscriberQueues.remove(subscriberSlaveUri);
+    if (queue != null) {
+      queue.cancel();
+    }
+  }
+
+  /**
+   * Drop the pending update for a single topic of a subscriber, for instance
+   * because the subscriber has unregistered from the topic.
+   *
+   * @param subscriberSlaveUri
+   *          the slave URI of the subscriber
+   * @param topicName
+   *          the name of the topic
+   */
+  public void cancel(URI subscriberSlaveUri, GraphName topicName) {
+    SubscriberQueue queue = subscriberQueues.get(subscriberSlaveUri);
+    if (queue != null) {
+      queue.cancel(topicName);
+    }
+  }
+
+  /**
+   * Get the number of updates which have not been sent yet.
+   *
+   * @return the number of pending updates
+   */
+  public int getNumberPendingUpdates() {
+    int pending = 0;
+    for (SubscriberQueue queue : subscriberQueues.values()) {
+      pending += queue.getNumberPendingUpdates();
+    }
+
+    return pending;
+  }
+
+  /**
+   * Shut the notifier down, dropping all pending updates.
+   */
+  public void shutdown() {
+    shutdown = true;
+    subscriberQueues.clear();
+  }
+
+  /**
+   * The pending updates for a single subscriber slave.
+   *
+   * @author khughes@google.com (Keith M. Hughes)
+   */
+  private class SubscriberQueue implements Runnable {
+
+    /**
+     * The slave URI of the subscriber.
+     */
+    private final URI subscriberSlaveUri;
+
+    /**
+     * The pending updates, in the order they should be sent.
+     */
+    private final Map<GraphName, List<URI>> pendingUpdates = Maps.newLinkedHashMap();
+
+    /**
+     * The number of failed attempts for the update at the head of the queue.
+     */
+    private int failedAttempts;
+
+    /**
+     * {@code true} if a task is sending updates for the queue, or waiting to
+     * retry.
+     */
+    private boolean active;
+
+    /**
+     * {@code true} if the queue has been removed from the notifier and can
+     * take no more updates.
+     */
+    private boolean closed;
+
+    /**
+     * @param subscriberSlaveUri
+     *          the slave URI of the subscriber
+     */
+    public SubscriberQueue(URI subscriberSlaveUri) {
+      this.subscriberSlaveUri = subscriberSlaveUri;
+    }
+
+    /**
+     * Add an update to the queue, replacing any pending update for the topic.
+     *
+     * @param topicName
+     *          the topic name
+     * @param publisherUris
+     *          the publisher URIs
+     *
+     * @return {@code false} if the queue is closed and the update was not added
+     */
+    public synchronized boolean add(GraphName topicName, List<URI> publisherUris) {
+      if (closed) {
+        return false;
+      }
+
+      // Only a new update for the topic being retried gets a fresh set of
+      // attempts, otherwise updates for other topics would keep a dead slave
+      // retrying forever.
+      if (isHead(topicName)) {
+        failedAttempts = 0;
+      }
+      pendingUpdates.put(topicName, publisherUris);
+      if (!active) {
+        active = true;
+        executorService.execute(this);
+      }
+
+      return true;
+    }
+
+    /**
+     * Drop all pending updates and take no more.
+     */
+    public synchronized void cancel() {
+      closed = true;
+      pendingUpdates.clear();
+      failedAttempts = 0;
+    }
+
+    /**
+     * Drop the pending update for a topic.
+     *
+     * @param topicName
+     *          the topic name
+     */
+    public synchronized void cancel(GraphName topicName) {
+      if (isHead(topicName)) {
+        failedAttempts = 0;
+      }
+      pendingUpdates.remove(topicName);
+    }
+
+    /**
+     * Get the number of pending updates.
+     *
+     * @return the number of pending updates
+     */
+    public synchronized int getNumberPendingUpdates() {
+      return pendingUpdates.size();
+    }
+
+    /**
+     * Is a topic at the head of the queue?
+     *
+     * @param topicName
+     *          the topic name
+     *
+     * @return {@code true} if the update for the topic is the next to be sent
+     */
+    private boolean isHead(GraphName topicName) {
+      return !pendingUpdates.isEmpty()
+          && pendingUpdates.keySet().iterator().next().equals(topicName);
+    }
+
+    @Override
+    public void run() {
+      while (!shutdown) {
+        GraphName topicName;
+        List<URI> publisherUris;
+        synchronized (this) {
+          Iterator<Map.Entry<GraphName, List<URI>>> entries = pendingUpdates.entrySet().iterator();
+          if (!entries.hasNext()) {
+            active = false;
+            closed = true;
+            subscriberQueues.remove(subscriberSlaveUri, this);
+            return;
+          }
+
+          Map.Entry<GraphName, List<URI>> entry = entries.next();
+          topicName = entry.getKey();
+          publisherUris = entry.getValue();
+        }
+
+        Exception failure = null;
+        try {
+          sender.sendPublisherUpdate(subscriberSlaveUri, topicName, publisherUris);
+        } catch (Exception e) {
+          failure = e;
+        }
+
+        synchronized (this) {
+          // A newer update for the topic may have arrived while sending, in
+          // which case it replaces the head of the queue and must still be
+          // sent. The update may also have been cancelled.
+          boolean superseded = pendingUpdates.get(topicName) != publisherUris;
+          if (failure == null || superseded) {
+            if (!superseded) {
+              pendingUpdates.remove(topicName);
+            }
+            failedAttempts = 0;
+          } else if (++failedAttempts >= sendAttempts) {
+            log.error(String.format(
+                "Dropping publisher update for topic %s to subscriber %s after %d attempts",
+                topicName, subscriberSlaveUri, failedAttempts), failure);
+            pendingUpdates.remove(topicName);
+            failedAttempts = 0;
+          } else {
+            long delay = retryDelay << (failedAttempts - 1);
+            if (log.isWarnEnabled()) {
+              log.warn(String.format(
+                  "Publisher update for topic %s to subscriber %s failed, retrying in %d ms: %s",
+                  topicName, subscriberSlaveUri, delay, failure));
+            }
+            executorService.schedule(this, delay, TimeUnit.MILLISECONDS);
+            return;
+          }
+        }
+      }
+    }
+  }
+}
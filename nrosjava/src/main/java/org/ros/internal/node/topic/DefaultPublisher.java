@@ -26,7 +26,9 @@ import org.ros.concurrent.SignalRunnable;
 import org.ros.internal.node.server.NodeIdentifier;
 import org.ros.internal.transport.ConnectionHeader;
 import org.ros.internal.transport.ConnectionHeaderFields;
+import org.ros.internal.transport.queue.IncomingMessageQueue;
 import org.ros.internal.transport.queue.OutgoingMessageQueue;
+import org.ros.internal.transport.udp.UdpRosPublisherConnection;
 import org.ros.log.RosLogFactory;
 import org.ros.message.MessageFactory;
 import org.ros.message.MessageSerializer;
@@ -35,6 +37,8 @@ import org.ros.node.topic.Publisher;
 import org.ros.node.topic.PublisherListener;
 import org.ros.node.topic.Subscriber;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -59,6 +63,12 @@ public class DefaultPublisher<T> extends DefaultTopicParticipant implements Publ
    * Queue of all messages being published by this {@link Publisher}.
    */
   private final OutgoingMessageQueue<T> outgoingMessageQueue;
+
+  /**
+   * Queues of all {@link Subscriber}s in this process which receive messages
+   * directly from this {@link Publisher}.
+   */
+  private final List<IncomingMessageQueue<T>> intraProcessSubscribers;
   private final ListenerGroup<PublisherListener<T>> listeners;
   private final NodeIdentifier nodeIdentifier;
   private final MessageFactory messageFactory;
@@ -69,6 +79,7 @@ public class DefaultPublisher<T> extends DefaultTopicParticipant implements Publ
     this.nodeIdentifier = nodeIdentifier;
     this.messageFactory = messageFactory;
     outgoingMessageQueue = new OutgoingMessageQueue<T>(serializer, executorService);
+    intraProcessSubscribers = new CopyOnWriteArrayList<IncomingMessageQueue<T>>();
     listeners = new ListenerGroup<PublisherListener<T>>(executorService);
     listeners.add(new DefaultPublisherListener<T>() {
       @Override
@@ -107,6 +118,7 @@ public class DefaultPublisher<T> extends DefaultTopicParticipant implements Publ
   public void shutdown(long timeout, TimeUnit unit) {
     signalOnShutdown(timeout, unit);
     outgoingMessageQueue.shutdown();
+    intraProcessSubscribers.clear();
     listeners.shutdown();
   }
 
@@ -125,12 +137,18 @@ public class DefaultPublisher<T> extends DefaultTopicParticipant implements Publ
 
   @Override
   public boolean hasSubscribers() {
-    return outgoingMessageQueue.getNumberOfChannels() > 0;
+    return getNumberOfSubscribers() > 0;
   }
 
   @Override
   public int getNumberOfSubscribers() {
-    return outgoingMessageQueue.getNumberOfChannels();
+    return outgoingMessageQueue.getNumberOfChannels()
+        + outgoingMessageQueue.getNumberOfDatagramConnections() + intraProcessSubscribers.size();
+  }
+
+  @Override
+  public int getNumberOfQueuedMessages() {
+    return outgoingMessageQueue.getNumberOfQueuedMessages();
   }
 
   @Override
@@ -144,6 +162,9 @@ public class DefaultPublisher<T> extends DefaultTopicParticipant implements Publ
       log.debug(String.format("Publishing message %s on topic %s.", message, getTopicName()));
     }
     outgoingMessageQueue.add(message);
+    for (IncomingMessageQueue<T> intraProcessSubscriber : intraProcessSubscribers) {
+      intraProcessSubscriber.receive(message);
+    }
   }
 
   /**
@@ -194,6 +215,84 @@ public class DefaultPublisher<T> extends DefaultTopicParticipant implements Publ
     signalOnNewSubscriber(subscriberIdentifer);
   }
 
+  /**
+   * Add a {@link Subscriber} which receives messages as UDPROS datagrams.
+   *
+   * @param subscriberIdentifier
+   *          the {@link SubscriberIdentifier} of the new subscriber
+   * @param connection
+   *          the UDPROS connection to the {@link Subscriber}
+   */
+  public void addUdpSubscriber(SubscriberIdentifier subscriberIdentifier,
+      UdpRosPublisherConnection connection) {
+    if (log.isDebugEnabled()) {
+      log.debug(String.format("Adding UDPROS subscriber %s connection %s to publisher %s.",
+          subscriberIdentifier, connection, this));
+    }
+    outgoingMessageQueue.addDatagramConnection(connection);
+    signalOnNewSubscriber(subscriberIdentifier);
+  }
+
+  /**
+   * Add a {@link Subscriber} in this process which will be handed published
+   * messages directly, without serialization.
+   * <p>
+   * Subscribers receive the very message instances which are published, so a
+   * message must not be modified once it has been published.
+   *
+   * @param subscriberIdentifier
+   *          the {@link SubscriberIdentifier} of the new subscriber
+   * @param subscriberTopicDeclaration
+   *          the {@link TopicDeclaration} of the new subscriber
+   * @param incomingMessageQueue
+   *          the queue of the subscriber
+   * @return {@code true} if the subscriber was added, {@code false} if its
+   *         message type does not match exactly and it must connect over the
+   *         network instead
+   */
+  @SuppressWarnings("unchecked")
+  public boolean addIntraProcessSubscriber(SubscriberIdentifier subscriberIdentifier,
+      TopicDeclaration subscriberTopicDeclaration, IncomingMessageQueue<?> incomingMessageQueue) {
+    ConnectionHeader incomingHeader = subscriberTopicDeclaration.toConnectionHeader();
+    ConnectionHeader topicDefinitionHeader = getTopicDeclarationHeader();
+    // Wildcard subscribers expect the serialized form, so they can't share
+    // message instances.
+    if (!incomingHeader.getField(ConnectionHeaderFields.TYPE).equals(
+        topicDefinitionHeader.getField(ConnectionHeaderFields.TYPE))
+        || !incomingHeader.getField(ConnectionHeaderFields.MD5_CHECKSUM).equals(
+            topicDefinitionHeader.getField(ConnectionHeaderFields.MD5_CHECKSUM))) {
+      return false;
+    }
+
+    IncomingMessageQueue<T> queue = (IncomingMessageQueue<T>) incomingMessageQueue;
+    if (log.isDebugEnabled()) {
+      log.debug(String.format("Adding intra-process subscriber %s to publisher %s.",
+          subscriberIdentifier, this));
+    }
+    if (getLatchMode()) {
+      queue.setLatchMode(true);
+      T latchedMessage = outgoingMessageQueue.getLatchedMessage();
+      if (latchedMessage != null) {
+        queue.receive(latchedMessage);
+      }
+    }
+    intraProcessSubscribers.add(queue);
+    signalOnNewSubscriber(subscriberIdentifier);
+
+    return true;
+  }
+
+  /**
+   * Remove a {@link Subscriber} which was added with
+   * {@link #addIntraProcessSubscriber(SubscriberIdentifier, TopicDeclaration, IncomingMessageQueue)}.
+   *
+   * @param incomingMessageQueue
+   *          the queue of the subscriber
+   */
+  public void removeIntraProcessSubscriber(IncomingMessageQueue<?> incomingMessageQueue) {
+    intraProcessSubscribers.remove(incomingMessageQueue);
+  }
+
   @Override
   public void addListener(PublisherListener<T> listener) {
     listeners.add(listener);
@@ -20,12 +20,19 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Sets;
 
 import org.apache.commons.logging.Log;
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.ros.concurrent.ListenerGroup;
 import org.ros.concurrent.SignalRunnable;
 import org.ros.internal.node.server.NodeIdentifier;
+import org.ros.internal.transport.ConnectionHeader;
+import org.ros.internal.transport.ConnectionHeaderFields;
 import org.ros.internal.transport.ProtocolNames;
+import org.ros.internal.transport.queue.IncomingMessageBufferPool;
 import org.ros.internal.transport.queue.IncomingMessageQueue;
 import org.ros.internal.transport.tcp.TcpRosClientManager;
+import org.ros.internal.transport.udp.UdpRosClient;
+import org.ros.internal.transport.udp.UdpRosClientManager;
+import org.ros.internal.transport.udp.UdpRosProtocolDescription;
 import org.ros.log.RosLogFactory;
 import org.ros.message.MessageDeserializer;
 import org.ros.message.MessageListener;
@@ -33,8 +40,10 @@ import org.ros.node.topic.DefaultSubscriberListener;
 import org.ros.node.topic.Publisher;
 import org.ros.node.topic.Subscriber;
 import org.ros.node.topic.SubscriberListener;
+import org.ros.node.topic.TransportHints;
 
 import java.net.InetSocketAddress;
+import java.nio.ByteOrder;
 import java.util.Collection;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
@@ -62,7 +71,16 @@ public class DefaultSubscriber<T> extends DefaultTopicParticipant implements Sub
   private final ScheduledExecutorService executorService;
   private final IncomingMessageQueue<T> incomingMessageQueue;
   private final Set<PublisherIdentifier> knownPublishers;
+
+  /**
+   * Publishers in this process which hand their messages directly to this
+   * subscriber.
+   */
+  private final Set<DefaultPublisher<?>> intraProcessPublishers;
   private final TcpRosClientManager tcpClientManager;
+  private final IncomingMessageBufferPool bufferPool;
+  private final UdpRosClientManager udpClientManager;
+  private final TransportHints transportHints;
   private final Object mutex;
 
   /**
@@ -79,22 +97,38 @@ public class DefaultSubscriber<T> extends DefaultTopicParticipant implements Sub
   public static <S> DefaultSubscriber<S> newDefault(NodeIdentifier nodeIdentifier,
       TopicDeclaration description, ScheduledExecutorService executorService,
       MessageDeserializer<S> deserializer) {
-    return new DefaultSubscriber<S>(nodeIdentifier, description, deserializer, executorService);
+    return newDefault(nodeIdentifier, description, executorService, deserializer,
+        new TransportHints());
+  }
+
+  public static <S> DefaultSubscriber<S> newDefault(NodeIdentifier nodeIdentifier,
+      TopicDeclaration description, ScheduledExecutorService executorService,
+      MessageDeserializer<S> deserializer, TransportHints transportHints) {
+    return new DefaultSubscriber<S>(nodeIdentifier, description, deserializer, executorService,
+        transportHints);
   }
 
   private DefaultSubscriber(NodeIdentifier nodeIdentifier, TopicDeclaration topicDeclaration,
-      MessageDeserializer<T> deserializer, ScheduledExecutorService executorService) {
+      MessageDeserializer<T> deserializer, ScheduledExecutorService executorService,
+      TransportHints transportHints) {
     super(topicDeclaration);
     this.nodeIdentifier = nodeIdentifier;
     this.executorService = executorService;
+    this.transportHints = transportHints;
     incomingMessageQueue = new IncomingMessageQueue<T>(deserializer, executorService);
     knownPublishers = Sets.newHashSet();
-    tcpClientManager = new TcpRosClientManager(executorService);
+    intraProcessPublishers = Sets.newHashSet();
+    bufferPool = new IncomingMessageBufferPool(transportHints.isRecyclingBuffers());
+    tcpClientManager = new TcpRosClientManager(executorService, bufferPool);
     mutex = new Object();
     SubscriberHandshakeHandler<T> subscriberHandshakeHandler =
         new SubscriberHandshakeHandler<T>(toDeclaration().toConnectionHeader(),
             incomingMessageQueue, executorService);
     tcpClientManager.addNamedChannelHandler(subscriberHandshakeHandler);
+    // UDPROS headers are exchanged when the topic is requested, so datagrams
+    // go straight to the queue.
+    udpClientManager = new UdpRosClientManager(executorService);
+    udpClientManager.addNamedChannelHandler(incomingMessageQueue.getMessageReceiver());
     subscriberListeners = new ListenerGroup<SubscriberListener<T>>(executorService);
     subscriberListeners.add(new DefaultSubscriberListener<T>() {
       @Override
@@ -133,6 +167,20 @@ public class DefaultSubscriber<T> extends DefaultTopicParticipant implements Sub
     return ProtocolNames.SUPPORTED;
   }
 
+  /**
+   * @return how this {@link Subscriber} would like to receive messages
+   */
+  public TransportHints getTransportHints() {
+    return transportHints;
+  }
+
+  /**
+   * @return the pool incoming TCPROS messages are decoded into
+   */
+  public IncomingMessageBufferPool getBufferPool() {
+    return bufferPool;
+  }
+
   @Override
   public boolean getLatchMode() {
     return incomingMessageQueue.getLatchMode();
@@ -166,6 +214,87 @@ public class DefaultSubscriber<T> extends DefaultTopicParticipant implements Sub
     }
   }
 
+  /**
+   * Add a {@link Publisher} which selected the intra-process protocol.
+   * <p>
+   * If the {@link Publisher} can't deliver its messages directly, for instance
+   * because it has been shut down in the meantime, this falls back to
+   * connecting over TCPROS.
+   *
+   * @param publisherIdentifier
+   *          the {@link PublisherIdentifier} of the {@link Publisher}
+   * @param address
+   *          the TCPROS address of the {@link Publisher}
+   */
+  public void addIntraProcessPublisher(PublisherIdentifier publisherIdentifier,
+      InetSocketAddress address) {
+    synchronized (mutex) {
+      if (knownPublishers.contains(publisherIdentifier)) {
+        return;
+      }
+      DefaultPublisher<?> publisher = IntraProcessPublisherRegistry.getPublisher(publisherIdentifier);
+      if (publisher != null
+          && publisher.addIntraProcessSubscriber(toIdentifier(), getTopicDeclaration(),
+              incomingMessageQueue)) {
+        intraProcessPublishers.add(publisher);
+        knownPublishers.add(publisherIdentifier);
+        signalOnNewPublisher(publisherIdentifier);
+      } else {
+        addPublisher(publisherIdentifier, address);
+      }
+    }
+  }
+
+  /**
+   * Create a UDPROS client which a {@link Publisher} can be asked to send its
+   * messages to.
+   *
+   * @return the new client, not yet connected to a {@link Publisher}
+   */
+  public UdpRosClient newUdpRosClient() {
+    return udpClientManager.newClient(transportHints.getMaxDatagramSize());
+  }
+
+  /**
+   * Close a UDPROS client created with {@link #newUdpRosClient()}, for
+   * instance because the {@link Publisher} chose another protocol.
+   *
+   * @param udpRosClient
+   *          the client
+   */
+  public void shutdownUdpRosClient(UdpRosClient udpRosClient) {
+    udpClientManager.shutdownClient(udpRosClient);
+  }
+
+  /**
+   * Add a {@link Publisher} which selected UDPROS.
+   *
+   * @param publisherIdentifier
+   *          the {@link PublisherIdentifier} of the {@link Publisher}
+   * @param udpRosClient
+   *          the client the {@link Publisher} was asked to send to
+   * @param protocolDescription
+   *          the UDPROS connection the {@link Publisher} created
+   */
+  public void addUdpPublisher(PublisherIdentifier publisherIdentifier,
+      UdpRosClient udpRosClient, UdpRosProtocolDescription protocolDescription) {
+    synchronized (mutex) {
+      if (knownPublishers.contains(publisherIdentifier)) {
+        shutdownUdpRosClient(udpRosClient);
+        return;
+      }
+      ConnectionHeader incomingConnectionHeader =
+          ConnectionHeader.decode(ChannelBuffers.wrappedBuffer(ByteOrder.LITTLE_ENDIAN,
+              protocolDescription.getHeader()));
+      if ("1".equals(incomingConnectionHeader.getField(ConnectionHeaderFields.LATCHING))) {
+        incomingMessageQueue.setLatchMode(true);
+      }
+      udpRosClient.connect(protocolDescription.getConnectionId(), protocolDescription.getAddress());
+      knownPublishers.add(publisherIdentifier);
+      signalOnNewPublisher(publisherIdentifier);
+    }
+  }
+
   /**
    * Updates the list of {@link Publisher}s for the topic that this
    * {@link Subscriber} is interested in.
@@ -184,8 +313,15 @@ public class DefaultSubscriber<T> extends DefaultTopicParticipant implements Sub
   @Override
   public void shutdown(long timeout, TimeUnit unit) {
     signalOnShutdown(timeout, unit);
+    synchronized (mutex) {
+      for (DefaultPublisher<?> publisher : intraProcessPublishers) {
+        publisher.removeIntraProcessSubscriber(incomingMessageQueue);
+      }
+      intraProcessPublishers.clear();
+    }
     incomingMessageQueue.shutdown();
     tcpClientManager.shutdown();
+    udpClientManager.shutdown();
     subscriberListeners.shutdown();
   }
 
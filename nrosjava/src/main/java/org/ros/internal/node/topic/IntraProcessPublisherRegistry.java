@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ros.internal.node.topic;
+
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps track of every {@link DefaultPublisher} in the JVM so that subscribers
+ * in the same JVM can attach to them directly.
+ * <p>
+ * A subscriber offers the {@link #PROCESS_ID} along with the intra-process
+ * protocol when requesting a topic. The publisher's slave only selects the
+ * intra-process protocol when the ID matches its own, which means the
+ * publisher is in this registry.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class IntraProcessPublisherRegistry {
+
+  /**
+   * An ID which is unique to this JVM.
+   */
+  public static final String PROCESS_ID = UUID.randomUUID().toString();
+
+  /**
+   * All registered publishers, indexed by their identifier.
+   */
+  private static final Map<PublisherIdentifier, DefaultPublisher<?>> PUBLISHERS = Maps
+      .newConcurrentMap();
+
+  /**
+   * Add a publisher to the registry.
+   *
+   * @param publisher
+   *          the publisher to add
+   */
+  public static void addPublisher(DefaultPublisher<?> publisher) {
+    PUBLISHERS.put(publisher.getIdentifier(), publisher);
+  }
+
+  /**
+   * Remove a publisher from the registry.
+   *
+   * @param publisher
+   *          the publisher to remove
+   */
+  public static void removePublisher(DefaultPublisher<?> publisher) {
+    PUBLISHERS.remove(publisher.getIdentifier());
+  }
+
+  /**
+   * @param publisherIdentifier
+   *          the identifier of the publisher
+   * @return the publisher, or {@code null} if the publisher is not in this JVM
+   */
+  public static DefaultPublisher<?> getPublisher(PublisherIdentifier publisherIdentifier) {
+    return PUBLISHERS.get(publisherIdentifier);
+  }
+
+  private IntraProcessPublisherRegistry() {
+    // Static methods only.
+  }
+}
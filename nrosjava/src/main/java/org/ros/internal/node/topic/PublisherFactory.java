@@ -83,9 +83,11 @@ public class PublisherFactory {
           @Override
           public void onShutdown(Publisher<T> publisher) {
             topicParticipantManager.removePublisher((DefaultPublisher<T>) publisher);
+            IntraProcessPublisherRegistry.removePublisher((DefaultPublisher<T>) publisher);
           }
         });
         topicParticipantManager.addPublisher(publisher);
+        IntraProcessPublisherRegistry.addPublisher(publisher);
         return publisher;
       }
     }
@@ -21,6 +21,7 @@ import org.ros.message.MessageDeserializer;
 import org.ros.namespace.GraphName;
 import org.ros.node.topic.DefaultSubscriberListener;
 import org.ros.node.topic.Subscriber;
+import org.ros.node.topic.TransportHints;
 
 import java.util.concurrent.ScheduledExecutorService;
 
@@ -57,9 +58,28 @@ public class SubscriberFactory {
    *          the {@link MessageDeserializer} to use for incoming messages
    * @return a new or cached {@link Subscriber} instance
    */
-  @SuppressWarnings("unchecked")
   public <T> Subscriber<T> newOrExisting(TopicDeclaration topicDeclaration,
       MessageDeserializer<T> messageDeserializer) {
+    return newOrExisting(topicDeclaration, messageDeserializer, new TransportHints());
+  }
+
+  /**
+   * Gets or creates a {@link Subscriber} instance. The {@link TransportHints}
+   * are only used if a new {@link Subscriber} is created.
+   *
+   * @param <T>
+   *          the message type associated with the new {@link Subscriber}
+   * @param topicDeclaration
+   *          {@link TopicDeclaration} that is subscribed to
+   * @param messageDeserializer
+   *          the {@link MessageDeserializer} to use for incoming messages
+   * @param transportHints
+   *          how the new {@link Subscriber} would like to receive messages
+   * @return a new or cached {@link Subscriber} instance
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Subscriber<T> newOrExisting(TopicDeclaration topicDeclaration,
+      MessageDeserializer<T> messageDeserializer, TransportHints transportHints) {
     synchronized (mutex) {
       GraphName topicName = topicDeclaration.getName();
       if (topicParticipantManager.hasSubscriber(topicName)) {
@@ -67,7 +87,7 @@ public class SubscriberFactory {
       } else {
         DefaultSubscriber<T> subscriber =
             DefaultSubscriber.newDefault(nodeIdentifier, topicDeclaration, executorService,
-                messageDeserializer);
+                messageDeserializer, transportHints);
         subscriber.addSubscriberListener(new DefaultSubscriberListener<T>() {
           @Override
           public void onNewPublisher(Subscriber<T> subscriber,
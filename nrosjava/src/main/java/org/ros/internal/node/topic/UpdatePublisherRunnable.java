@@ -16,6 +16,8 @@
 
 package org.ros.internal.node.topic;
 
+import com.google.common.collect.Lists;
+
 import org.apache.commons.logging.Log;
 import org.ros.exception.RemoteException;
 import org.ros.internal.node.client.SlaveClient;
@@ -25,9 +27,16 @@ import org.ros.internal.node.server.SlaveServer;
 import org.ros.internal.node.xmlrpc.XmlRpcTimeoutException;
 import org.ros.internal.transport.ProtocolDescription;
 import org.ros.internal.transport.ProtocolNames;
+import org.ros.internal.transport.udp.UdpRosClient;
+import org.ros.internal.transport.udp.UdpRosProtocolDescription;
+import org.ros.internal.transport.udp.UdpRosRequest;
 import org.ros.log.RosLogFactory;
 import org.ros.node.topic.Publisher;
 import org.ros.node.topic.Subscriber;
+import org.ros.node.topic.TransportHints;
+
+import java.net.InetSocketAddress;
+import java.util.List;
 
 /**
  * A {@link Runnable} which is used whenever new publishers are being added to a
@@ -62,14 +71,33 @@ class UpdatePublisherRunnable<MessageType> implements Runnable {
   @Override
   public void run() {
     SlaveClient slaveClient;
+    UdpRosClient udpRosClient = null;
     try {
       slaveClient = new SlaveClient(nodeIdentifier.getName(), publisherIdentifier.getNodeUri());
-      Response<ProtocolDescription> response =
-          slaveClient.requestTopic(subscriber.getTopicName(), ProtocolNames.SUPPORTED);
+      TransportHints transportHints = subscriber.getTransportHints();
+      List<String> requestedProtocols = getRequestedProtocols(transportHints);
+      Response<ProtocolDescription> response;
+      if (transportHints.isUdpPreferred()) {
+        udpRosClient = subscriber.newUdpRosClient();
+        UdpRosRequest udpRosRequest =
+            new UdpRosRequest(subscriber.toDeclaration().toConnectionHeader(),
+                new InetSocketAddress(nodeIdentifier.getUri().getHost(), udpRosClient.getPort()),
+                udpRosClient.getMaxDatagramSize());
+        response =
+            slaveClient.requestTopic(subscriber.getTopicName(), requestedProtocols, udpRosRequest);
+      } else {
+        response = slaveClient.requestTopic(subscriber.getTopicName(), requestedProtocols);
+      }
       // TODO(kwc): all of this logic really belongs in a protocol handler
       // registry.
       ProtocolDescription selected = response.getResult();
-      if (ProtocolNames.SUPPORTED.contains(selected.getName())) {
+      if (ProtocolNames.UDPROS.equals(selected.getName()) && udpRosClient != null) {
+        subscriber.addUdpPublisher(publisherIdentifier, udpRosClient,
+            (UdpRosProtocolDescription) selected);
+        udpRosClient = null;
+      } else if (ProtocolNames.INTRAPROCESS.equals(selected.getName())) {
+        subscriber.addIntraProcessPublisher(publisherIdentifier, selected.getAddress());
+      } else if (ProtocolNames.SUPPORTED.contains(selected.getName())) {
         subscriber.addPublisher(publisherIdentifier, selected.getAddress());
       } else {
         log.error("Publisher returned unsupported protocol selection: " + response);
@@ -87,6 +115,33 @@ class UpdatePublisherRunnable<MessageType> implements Runnable {
       // This is happening whenever the node attempts to connect to a stale
       // publisher (i.e. a publisher that is no longer online).
       log.error(e);
+    } finally {
+      // The client is only kept if the publisher selected UDPROS.
+      if (udpRosClient != null) {
+        subscriber.shutdownUdpRosClient(udpRosClient);
+      }
+    }
+  }
+
+  /**
+   * Get the protocols to offer to the {@link Publisher}, in order of
+   * preference. The intra-process protocol is only offered if the
+   * {@link Subscriber} asked for it, and is only selected by a
+   * {@link Publisher} in the same process.
+   *
+   * @param transportHints
+   *          the transport hints of the {@link Subscriber}
+   * @return the protocols to offer
+   */
+  static List<String> getRequestedProtocols(TransportHints transportHints) {
+    List<String> protocols = Lists.newArrayList();
+    if (transportHints.isIntraProcessAllowed()) {
+      protocols.add(ProtocolNames.INTRAPROCESS);
+    }
+    if (transportHints.isUdpPreferred()) {
+      protocols.add(ProtocolNames.UDPROS);
     }
+    protocols.add(ProtocolNames.TCPROS);
+    return protocols;
   }
 }
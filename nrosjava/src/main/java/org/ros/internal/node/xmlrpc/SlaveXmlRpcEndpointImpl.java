@@ -26,7 +26,10 @@ import org.ros.internal.node.server.ServerException;
 import org.ros.internal.node.server.SlaveServer;
 import org.ros.internal.node.topic.DefaultPublisher;
 import org.ros.internal.node.topic.DefaultSubscriber;
+import org.ros.internal.node.topic.IntraProcessPublisherRegistry;
 import org.ros.internal.transport.ProtocolDescription;
+import org.ros.internal.transport.ProtocolNames;
+import org.ros.internal.transport.udp.UdpRosRequest;
 import org.ros.log.RosLogFactory;
 import org.ros.namespace.GraphName;
 
@@ -184,13 +187,31 @@ public class SlaveXmlRpcEndpointImpl implements SlaveXmlRpcEndpoint {
 
   @Override
   public List<Object> requestTopic(String callerId, String topic, Object[] protocols) {
-    Set<String> requestedProtocols = Sets.newHashSet();
+    Set<String> requestedProtocols = Sets.newLinkedHashSet();
+    UdpRosRequest udpRosRequest = null;
     for (int i = 0; i < protocols.length; i++) {
-      requestedProtocols.add((String) ((Object[]) protocols[i])[0]);
+      Object[] protocolParameters = (Object[]) protocols[i];
+      String protocolName = (String) protocolParameters[0];
+      // The intra-process protocol is only possible if the caller is in this
+      // process.
+      if (ProtocolNames.INTRAPROCESS.equals(protocolName)
+          && (protocolParameters.length < 2 || !IntraProcessPublisherRegistry.PROCESS_ID
+              .equals(protocolParameters[1]))) {
+        continue;
+      }
+      // UDPROS without valid parameters can't be selected by the slave.
+      if (ProtocolNames.UDPROS.equals(protocolName)) {
+        udpRosRequest = UdpRosRequest.newFromProtocolParameters(protocolParameters);
+      }
+      requestedProtocols.add(protocolName);
     }
     ProtocolDescription protocol;
     try {
-      protocol = slave.requestTopic(topic, requestedProtocols);
+      if (udpRosRequest != null) {
+        protocol = slave.requestTopic(topic, requestedProtocols, udpRosRequest);
+      } else {
+        protocol = slave.requestTopic(topic, requestedProtocols);
+      }
     } catch (ServerException e) {
       return Response.newError(e.getMessage(), null).toList();
     }
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ros.internal.transport;
+
+import org.ros.address.AdvertiseAddress;
+
+/**
+ * Describes an intra-process connection to a publisher.
+ * <p>
+ * The address is the publisher's TCPROS server so that a subscriber which
+ * cannot attach directly to the publisher can still connect over TCPROS.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class IntraProcessProtocolDescription extends ProtocolDescription {
+
+  public IntraProcessProtocolDescription(AdvertiseAddress address) {
+    super(ProtocolNames.INTRAPROCESS, address);
+  }
+}
@@ -27,5 +27,11 @@ public interface ProtocolNames {
 
   public static final String TCPROS = "TCPROS";
   public static final String UDPROS = "UDPROS";
+
+  /**
+   * Messages are handed directly to a subscriber in the same process without
+   * being serialized. Only offered between nodes which share a JVM.
+   */
+  public static final String INTRAPROCESS = "INTRAPROCESS";
   public static final Collection<String> SUPPORTED = Sets.newHashSet(TCPROS);
 }
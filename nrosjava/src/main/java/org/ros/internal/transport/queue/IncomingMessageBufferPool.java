@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ros.internal.transport.queue;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import java.nio.ByteOrder;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocates the buffers incoming messages are decoded into.
+ * <p>
+ * Buffers are handed out as {@link PooledChannelBuffer}s, which the
+ * {@link MessageReceiver} passes on to its {@link MessageDispatcher} without
+ * copying. The dispatcher releases a buffer once every listener has consumed
+ * the message.
+ * <p>
+ * If recycling is enabled, released buffers are kept in power of two size
+ * classes and reused for later messages. Messages deserialized from a buffer
+ * can share its memory, for instance for {@code uint8[]} fields, so with
+ * recycling such messages are only valid until the listener they were handed
+ * to returns. Without recycling released buffers are left to the garbage
+ * collector.
+ * <p>
+ * The pool also counts its allocations, so the effect of recycling can be
+ * measured.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class IncomingMessageBufferPool {
+
+  /**
+   * The smallest buffer capacity, as a power of two.
+   */
+  private static final int MINIMUM_SIZE_CLASS = 8;
+
+  /**
+   * The largest pooled buffer capacity, as a power of two. Larger buffers are
+   * allocated for each message.
+   */
+  private static final int MAXIMUM_SIZE_CLASS = 24;
+
+  /**
+   * The default number of free buffers kept for each size class.
+   */
+  public static final int DEFAULT_BUFFERS_PER_SIZE_CLASS = 16;
+
+  private final boolean recycling;
+  private final int buffersPerSizeClass;
+  private final Queue<PooledChannelBuffer>[] freeBuffers;
+  private final AtomicInteger[] numberFreeBuffers;
+
+  private final AtomicLong numberAllocations;
+  private final AtomicLong numberBytesAllocated;
+  private final AtomicLong numberAcquisitions;
+  private final AtomicLong numberBytesAcquired;
+  private final AtomicLong numberRecycled;
+
+  /**
+   * @param recycling
+   *          {@code true} if released buffers should be reused
+   */
+  public IncomingMessageBufferPool(boolean recycling) {
+    this(recycling, DEFAULT_BUFFERS_PER_SIZE_CLASS);
+  }
+
+  /**
+   * @param recycling
+   *          {@code true} if released buffers should be reused
+   * @param buffersPerSizeClass
+   *          the maximum number of free buffers kept for each size class
+   */
+  @SuppressWarnings("unchecked")
+  public IncomingMessageBufferPool(boolean recycling, int buffersPerSizeClass) {
+    this.recycling = recycling;
+    this.buffersPerSizeClass = buffersPerSizeClass;
+    int numberSizeClasses = MAXIMUM_SIZE_CLASS - MINIMUM_SIZE_CLASS + 1;
+    freeBuffers = new Queue[numberSizeClasses];
+    numberFreeBuffers = new AtomicInteger[numberSizeClasses];
+    for (int i = 0; i < numberSizeClasses; i++) {
+      freeBuffers[i] = new ConcurrentLinkedQueue<PooledChannelBuffer>();
+      numberFreeBuffers[i] = new AtomicInteger();
+    }
+    numberAllocations = new AtomicLong();
+    numberBytesAllocated = new AtomicLong();
+    numberAcquisitions = new AtomicLong();
+    numberBytesAcquired = new AtomicLong();
+    numberRecycled = new AtomicLong();
+  }
+
+  /**
+   * Get an empty buffer with a reference count of one.
+   * <p>
+   * Only buffers up to 16 MB are pooled, larger requests get a plain buffer
+   * which is not reference counted.
+   *
+   * @param size
+   *          the number of bytes the buffer must be able to hold
+   * @return the buffer
+   */
+  public ChannelBuffer acquire(int size) {
+    numberAcquisitions.incrementAndGet();
+    numberBytesAcquired.addAndGet(size);
+
+    int sizeClass = getSizeClass(size);
+    if (sizeClass > MAXIMUM_SIZE_CLASS) {
+      recordAllocation(size);
+      return ChannelBuffers.buffer(ByteOrder.LITTLE_ENDIAN, size);
+    }
+
+    int index = sizeClass - MINIMUM_SIZE_CLASS;
+    PooledChannelBuffer buffer = freeBuffers[index].poll();
+    if (buffer != null) {
+      numberFreeBuffers[index].decrementAndGet();
+    } else {
+      int capacity = 1 << sizeClass;
+      recordAllocation(capacity);
+      buffer = new PooledChannelBuffer(this, capacity);
+    }
+    buffer.reset();
+
+    return buffer;
+  }
+
+  /**
+   * @return {@code true} if released buffers are reused
+   */
+  public boolean isRecycling() {
+    return recycling;
+  }
+
+  /**
+   * @return the number of buffers which have been allocated
+   */
+  public long getNumberAllocations() {
+    return numberAllocations.get();
+  }
+
+  /**
+   * @return the total capacity of all buffers which have been allocated
+   */
+  public long getNumberBytesAllocated() {
+    return numberBytesAllocated.get();
+  }
+
+  /**
+   * @return the number of buffers which have been handed out
+   */
+  public long getNumberAcquisitions() {
+    return numberAcquisitions.get();
+  }
+
+  /**
+   * @return the total number of bytes which have been asked for
+   */
+  public long getNumberBytesAcquired() {
+    return numberBytesAcquired.get();
+  }
+
+  /**
+   * @return the number of released buffers which were kept for reuse
+   */
+  public long getNumberRecycled() {
+    return numberRecycled.get();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("IncomingMessageBufferPool<recycling=%s, acquisitions=%d (%d bytes),"
+        + " allocations=%d (%d bytes), recycled=%d>", recycling, getNumberAcquisitions(),
+        getNumberBytesAcquired(), getNumberAllocations(), getNumberBytesAllocated(),
+        getNumberRecycled());
+  }
+
+  /**
+   * Take back a buffer whose last reference was released.
+   *
+   * @param buffer
+   *          the buffer
+   */
+  void recycle(PooledChannelBuffer buffer) {
+    if (!recycling) {
+      return;
+    }
+    int index = getSizeClass(buffer.capacity()) - MINIMUM_SIZE_CLASS;
+    if (numberFreeBuffers[index].incrementAndGet() <= buffersPerSizeClass) {
+      freeBuffers[index].add(buffer);
+      numberRecycled.incrementAndGet();
+    } else {
+      numberFreeBuffers[index].decrementAndGet();
+    }
+  }
+
+  private void recordAllocation(int capacity) {
+    numberAllocations.incrementAndGet();
+    numberBytesAllocated.addAndGet(capacity);
+  }
+
+  /**
+   * @param size
+   *          a buffer size
+   * @return the smallest power of two which can hold the size, but no smaller
+   *         than the minimum size class
+   */
+  private static int getSizeClass(int size) {
+    if (size <= 1 << MINIMUM_SIZE_CLASS) {
+      return MINIMUM_SIZE_CLASS;
+    }
+    return 32 - Integer.numberOfLeadingZeros(size - 1);
+  }
+}
@@ -40,11 +40,12 @@ public class IncomingMessageQueue<T> {
    */
   private static final int DEQUE_CAPACITY = 512;
 
+  private final MessageBlockingQueue<LazyMessage<T>> lazyMessages;
   private final MessageReceiver<T> messageReceiver;
   private final MessageDispatcher<T> messageDispatcher;
 
   public IncomingMessageQueue(MessageDeserializer<T> deserializer, ExecutorService executorService) {
-    MessageBlockingQueue<LazyMessage<T>> lazyMessages =
+    lazyMessages =
         MessageBlockingQueueFactory.newMessageBlockingQueue(DEQUE_CAPACITY, false);
     messageReceiver = new MessageReceiver<T>(lazyMessages, deserializer);
     messageDispatcher = new MessageDispatcher<T>(lazyMessages, executorService);
@@ -72,6 +73,23 @@ public class IncomingMessageQueue<T> {
     messageDispatcher.addListener(messageListener, queueCapacity);
   }
 
+  /**
+   * Add an already deserialized message to the queue.
+   * <p>
+   * This is used by publishers in the same process, which hand over their
+   * messages without serializing them. This blocks if the queue is full.
+   *
+   * @param message
+   *          the message to add
+   */
+  public void receive(T message) {
+    try {
+      lazyMessages.put(new LazyMessage<T>(message));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   /**
    * Shut the queue down.
    */
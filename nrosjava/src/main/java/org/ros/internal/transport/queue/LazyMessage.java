@@ -16,8 +16,6 @@
 
 package org.ros.internal.transport.queue;
 
-import com.google.common.annotations.VisibleForTesting;
-
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.ros.message.MessageDeserializer;
 
@@ -25,6 +23,10 @@ import org.ros.message.MessageDeserializer;
  * Lazily deserializes a message on the first call to {@link #get()} and caches
  * the result.
  * <p>
+ * If the buffer comes from an {@link IncomingMessageBufferPool}, every party
+ * which will use the message takes a reference with {@link #retain(int)} and
+ * gives it up with {@link #release()} when done.
+ * <p>
  * This class is thread-safe.
  *
  * @author damonkohler@google.com (Damon Kohler)
@@ -52,12 +54,38 @@ public class LazyMessage<T> {
     mutex = new Object();
   }
 
-  @VisibleForTesting
+  /**
+   * @param message
+   *          the already deserialized message
+   */
   LazyMessage(T message) {
     this(null, null);
     this.message = message;
   }
 
+  /**
+   * Add references to the underlying buffer. Does nothing if the buffer is not
+   * pooled.
+   *
+   * @param count
+   *          the number of references to add
+   */
+  public void retain(int count) {
+    if (buffer instanceof PooledChannelBuffer) {
+      ((PooledChannelBuffer) buffer).retain(count);
+    }
+  }
+
+  /**
+   * Drop a reference to the underlying buffer. Does nothing if the buffer is
+   * not pooled.
+   */
+  public void release() {
+    if (buffer instanceof PooledChannelBuffer) {
+      ((PooledChannelBuffer) buffer).release();
+    }
+  }
+
   /**
    * @return the deserialized message
    */
@@ -28,6 +28,13 @@ import org.ros.message.MessageListener;
 import java.util.concurrent.ExecutorService;
 
 /**
+ * Dispatches incoming messages to all {@link MessageListener}s.
+ * <p>
+ * The dispatcher owns one reference to the most recent message, for latching,
+ * and takes one more for each listener signalled with it. A listener's
+ * reference is released once it has handled the message, so pooled buffers
+ * are recycled as soon as every listener has consumed them.
+ *
  * @author damonkohler@google.com (Damon Kohler)
  *
  * @param <T>
@@ -73,6 +80,7 @@ public class MessageDispatcher<T> extends CancellableLoop {
       EventDispatcher<MessageListener<T>> eventDispatcher =
           messageListeners.add(messageListener, limit);
       if (latchMode && latchedMessage != null) {
+        latchedMessage.retain(1);
         eventDispatcher.signal(newSignalRunnable(latchedMessage));
       }
     }
@@ -90,7 +98,11 @@ public class MessageDispatcher<T> extends CancellableLoop {
     return new SignalRunnable<MessageListener<T>>() {
       @Override
       public void run(MessageListener<T> messageListener) {
-        messageListener.onNewMessage(lazyMessage.get());
+        try {
+          messageListener.onNewMessage(lazyMessage.get());
+        } finally {
+          lazyMessage.release();
+        }
       }
     };
   }
@@ -115,7 +127,12 @@ public class MessageDispatcher<T> extends CancellableLoop {
   public void loop() throws InterruptedException {
     LazyMessage<T> lazyMessage = lazyMessages.take();
     synchronized (mutex) {
+      if (latchedMessage != null) {
+        latchedMessage.release();
+      }
+      // The reference taken over from the queue is kept for latching.
       latchedMessage = lazyMessage;
+      latchedMessage.retain(messageListeners.size());
       // if (log.isDebugEnabled()) {
       // log.debug("Dispatching message: " + latchedMessage.get());
       // }
@@ -55,9 +55,15 @@ public class MessageReceiver<T> extends AbstractNamedChannelHandler {
     if (log.isDebugEnabled()) {
       log.debug(String.format("Received %d byte message.", buffer.readableBytes()));
     }
-    // We have to make a defensive copy of the buffer here because Netty does
-    // not guarantee that the returned ChannelBuffer will not be reused.
-    lazyMessages.put(new LazyMessage<T>(buffer.copy(), deserializer));
+    if (buffer instanceof PooledChannelBuffer) {
+      // The frame decoder hands over its reference to the pooled buffer, so it
+      // can be used without a copy.
+      lazyMessages.put(new LazyMessage<T>(buffer, deserializer));
+    } else {
+      // We have to make a defensive copy of the buffer here because Netty does
+      // not guarantee that the returned ChannelBuffer will not be reused.
+      lazyMessages.put(new LazyMessage<T>(buffer.copy(), deserializer));
+    }
     super.messageReceived(ctx, e);
   }
 }
\ No newline at end of file
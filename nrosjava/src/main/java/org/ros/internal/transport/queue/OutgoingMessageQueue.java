@@ -30,9 +30,12 @@ import org.ros.concurrent.MessageBlockingQueue;
 import org.ros.concurrent.MessageBlockingQueueFactory;
 import org.ros.internal.message.MessageBufferPool;
 import org.ros.internal.message.MessageBuffers;
+import org.ros.internal.transport.udp.UdpRosPublisherConnection;
 import org.ros.log.RosLogFactory;
 import org.ros.message.MessageSerializer;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 
 /**
@@ -47,6 +50,7 @@ public class OutgoingMessageQueue<T> {
   private final MessageSerializer<T> serializer;
   private final MessageBlockingQueue<T> deque;
   private final ChannelGroup channelGroup;
+  private final List<UdpRosPublisherConnection> datagramConnections;
   private final Writer writer;
   private final MessageBufferPool messageBufferPool;
   private final ChannelBuffer latchedBuffer;
@@ -65,8 +69,16 @@ public class OutgoingMessageQueue<T> {
     @Override
     public void loop() throws InterruptedException {
       T message = deque.take();
+      if (channelGroup.isEmpty() && datagramConnections.isEmpty()) {
+        // Nobody is connected over the network, for instance when all
+        // subscribers are in this process, so don't bother serializing.
+        return;
+      }
       final ChannelBuffer buffer = messageBufferPool.acquire();
       serializer.serialize(message, buffer);
+      // Datagrams are copied out of the buffer, so this has to happen before
+      // the buffer can be returned to the pool.
+      writeDatagrams(buffer);
       if (log.isDebugEnabled()) {
         log.debug(String.format("Writing %d bytes to %d channels.", buffer.readableBytes(),
             channelGroup.size()));
@@ -88,6 +100,7 @@ public class OutgoingMessageQueue<T> {
     this.serializer = serializer;
     deque = MessageBlockingQueueFactory.newMessageBlockingQueue(DEQUE_CAPACITY, false);
     channelGroup = new DefaultChannelGroup();
+    datagramConnections = new CopyOnWriteArrayList<UdpRosPublisherConnection>();
     writer = new Writer();
     messageBufferPool = new MessageBufferPool();
     latchedBuffer = MessageBuffers.dynamicBuffer();
@@ -123,12 +136,25 @@ public class OutgoingMessageQueue<T> {
     }
   }
 
+  /**
+   * @return the last message added to the queue, or {@code null} if none
+   */
+  public T getLatchedMessage() {
+    synchronized (mutex) {
+      return latchedMessage;
+    }
+  }
+
   /**
    * Stop writing messages and close all outgoing connections.
    */
   public void shutdown() {
     writer.cancel();
     channelGroup.close().awaitUninterruptibly();
+    for (UdpRosPublisherConnection connection : datagramConnections) {
+      connection.close();
+    }
+    datagramConnections.clear();
   }
 
   /**
@@ -156,6 +182,63 @@ public class OutgoingMessageQueue<T> {
     }
   }
 
+  /**
+   * @param connection
+   *          a UDPROS connection which will be sent all messages added to
+   *          this queue from now on
+   */
+  public void addDatagramConnection(UdpRosPublisherConnection connection) {
+    if (!writer.isRunning()) {
+      log.warn("Failed to add datagram connection. Cannot add connections after shutdown.");
+      return;
+    }
+    if (latchMode && latchedMessage != null) {
+      synchronized (mutex) {
+        ChannelBuffer buffer = MessageBuffers.dynamicBuffer();
+        serializer.serialize(latchedMessage, buffer);
+        connection.write(buffer);
+      }
+    }
+    datagramConnections.add(connection);
+  }
+
+  /**
+   * @return the number of open UDPROS connections of this queue
+   */
+  public int getNumberOfDatagramConnections() {
+    int count = 0;
+    for (UdpRosPublisherConnection connection : datagramConnections) {
+      if (!connection.isClosed()) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Write a serialized message to all UDPROS connections, forgetting any which
+   * have been closed.
+   *
+   * @param buffer
+   *          the serialized message
+   */
+  private void writeDatagrams(ChannelBuffer buffer) {
+    for (UdpRosPublisherConnection connection : datagramConnections) {
+      if (connection.isClosed()) {
+        datagramConnections.remove(connection);
+      } else {
+        connection.write(buffer);
+      }
+    }
+  }
+
+  /**
+   * @return the number of messages waiting to be written
+   */
+  public int getNumberOfQueuedMessages() {
+    return deque.size();
+  }
+
   /**
    * @return the number of {@link Channel}s which have been added to this queue
    */
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ros.internal.transport.queue;
+
+import com.google.common.base.Preconditions;
+
+import org.jboss.netty.buffer.LittleEndianHeapChannelBuffer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link org.jboss.netty.buffer.ChannelBuffer} from an
+ * {@link IncomingMessageBufferPool} whose lifetime is tracked by a reference
+ * count.
+ * <p>
+ * A new buffer has a reference count of one. Once the count drops to zero the
+ * buffer is handed back to its pool and must no longer be used, nor must any
+ * slice or duplicate of it.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class PooledChannelBuffer extends LittleEndianHeapChannelBuffer {
+
+  private final IncomingMessageBufferPool pool;
+  private final AtomicInteger referenceCount;
+
+  /**
+   * @param pool
+   *          the pool the buffer belongs to
+   * @param capacity
+   *          the capacity of the buffer
+   */
+  PooledChannelBuffer(IncomingMessageBufferPool pool, int capacity) {
+    super(capacity);
+    this.pool = pool;
+    referenceCount = new AtomicInteger();
+  }
+
+  /**
+   * Add references to the buffer.
+   *
+   * @param count
+   *          the number of references to add
+   */
+  public void retain(int count) {
+    Preconditions.checkArgument(count >= 0);
+    int previous = referenceCount.getAndAdd(count);
+    Preconditions.checkState(previous > 0, "Buffer has already been released");
+  }
+
+  /**
+   * Drop a reference to the buffer, handing it back to its pool if this was
+   * the last one.
+   */
+  public void release() {
+    int remaining = referenceCount.decrementAndGet();
+    Preconditions.checkState(remaining >= 0, "Buffer has already been released");
+    if (remaining == 0) {
+      pool.recycle(this);
+    }
+  }
+
+  /**
+   * @return the number of references to the buffer
+   */
+  public int getReferenceCount() {
+    return referenceCount.get();
+  }
+
+  /**
+   * Prepare the buffer for a new owner.
+   */
+  void reset() {
+    clear();
+    referenceCount.set(1);
+  }
+}
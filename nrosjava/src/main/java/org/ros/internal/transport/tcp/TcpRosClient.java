@@ -34,6 +34,7 @@ import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
 import org.jboss.netty.channel.socket.nio.NioWorkerPool;
 import org.jboss.netty.util.HashedWheelTimer;
 import org.ros.exception.RosRuntimeException;
+import org.ros.internal.transport.queue.IncomingMessageBufferPool;
 import org.ros.log.RosLogFactory;
 
 import java.net.SocketAddress;
@@ -58,12 +59,24 @@ public class TcpRosClient {
   private final ChannelBufferFactory channelBufferFactory;
   private final ClientBootstrap bootstrap;
   private final List<NamedChannelHandler> namedChannelHandlers;
+  private final IncomingMessageBufferPool bufferPool;
 
   private Channel channel;
   private HashedWheelTimer nettyTimer;
 
   public TcpRosClient(ChannelGroup channelGroup, HashedWheelTimer nettyTimer, Executor executor) {
+    this(channelGroup, nettyTimer, executor, null);
+  }
+
+  /**
+   * @param bufferPool
+   *          the pool incoming frames are decoded into, or {@code null} if
+   *          each frame should get a new buffer
+   */
+  public TcpRosClient(ChannelGroup channelGroup, HashedWheelTimer nettyTimer, Executor executor,
+      IncomingMessageBufferPool bufferPool) {
     this.channelGroup = channelGroup;
+    this.bufferPool = bufferPool;
     this.nettyTimer = nettyTimer;
     channelFactory =
         new NioClientSocketChannelFactory(new NioClientBossPool(executor, 1), new NioWorkerPool(executor, Runtime
@@ -93,7 +106,7 @@ public class TcpRosClient {
   }
 
   public void connect(String connectionName, SocketAddress socketAddress) {
-    TcpRosClientPipelineFactory tcpClientPipelineFactory = new TcpRosClientPipelineFactory(channelGroup) {
+    TcpRosClientPipelineFactory tcpClientPipelineFactory = new TcpRosClientPipelineFactory(channelGroup, bufferPool) {
       @Override
       public ChannelPipeline getPipeline() {
         ChannelPipeline pipeline = super.getPipeline();
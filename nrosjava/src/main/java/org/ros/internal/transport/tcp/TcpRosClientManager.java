@@ -22,6 +22,7 @@ import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.group.ChannelGroup;
 import org.jboss.netty.channel.group.DefaultChannelGroup;
 import org.jboss.netty.util.HashedWheelTimer;
+import org.ros.internal.transport.queue.IncomingMessageBufferPool;
 
 import java.net.SocketAddress;
 import java.util.Collection;
@@ -38,9 +39,22 @@ public class TcpRosClientManager {
   private final List<NamedChannelHandler> namedChannelHandlers;
   private final Executor executor;
   private final HashedWheelTimer nettyTimer;
+  private final IncomingMessageBufferPool bufferPool;
 
   public TcpRosClientManager(Executor executor) {
+    this(executor, null);
+  }
+
+  /**
+   * @param executor
+   *          the executor for the client threads
+   * @param bufferPool
+   *          the pool incoming frames are decoded into, or {@code null} if
+   *          each frame should get a new buffer
+   */
+  public TcpRosClientManager(Executor executor, IncomingMessageBufferPool bufferPool) {
     this.executor = executor;
+    this.bufferPool = bufferPool;
 
     // TODO(keith): Get this into a global place so it is shared across the VM
     nettyTimer = new HashedWheelTimer();
@@ -70,7 +84,7 @@ public class TcpRosClientManager {
    * @return a new {@link TcpRosClient}
    */
   public TcpRosClient connect(String connectionName, SocketAddress socketAddress) {
-    TcpRosClient tcpClient = new TcpRosClient(channelGroup, nettyTimer, executor);
+    TcpRosClient tcpClient = new TcpRosClient(channelGroup, nettyTimer, executor, bufferPool);
     tcpClient.addAllNamedChannelHandlers(namedChannelHandlers);
     tcpClient.connect(connectionName, socketAddress);
     tcpClients.add(tcpClient);
@@ -20,6 +20,7 @@ import org.jboss.netty.channel.ChannelPipeline;
 import org.jboss.netty.channel.group.ChannelGroup;
 import org.jboss.netty.handler.codec.frame.LengthFieldBasedFrameDecoder;
 import org.jboss.netty.handler.codec.frame.LengthFieldPrepender;
+import org.ros.internal.transport.queue.IncomingMessageBufferPool;
 
 /**
  * @author damonkohler@google.com (Damon Kohler)
@@ -29,16 +30,35 @@ public class TcpRosClientPipelineFactory extends ConnectionTrackingChannelPipeli
   public static final String LENGTH_FIELD_BASED_FRAME_DECODER = "LengthFieldBasedFrameDecoder";
   public static final String LENGTH_FIELD_PREPENDER = "LengthFieldPrepender";
 
+  private final IncomingMessageBufferPool bufferPool;
+
   public TcpRosClientPipelineFactory(ChannelGroup channelGroup) {
+    this(channelGroup, null);
+  }
+
+  /**
+   * @param channelGroup
+   *          the group new channels are added to
+   * @param bufferPool
+   *          the pool incoming frames are decoded into, or {@code null} if
+   *          each frame should get a new buffer
+   */
+  public TcpRosClientPipelineFactory(ChannelGroup channelGroup,
+      IncomingMessageBufferPool bufferPool) {
     super(channelGroup);
+    this.bufferPool = bufferPool;
   }
 
   @Override
   public ChannelPipeline getPipeline() {
     ChannelPipeline pipeline = super.getPipeline();
     pipeline.addLast(LENGTH_FIELD_PREPENDER, new LengthFieldPrepender(4));
-    pipeline.addLast(LENGTH_FIELD_BASED_FRAME_DECODER, new LengthFieldBasedFrameDecoder(
-        Integer.MAX_VALUE, 0, 4, 0, 4));
+    if (bufferPool != null) {
+      pipeline.addLast(LENGTH_FIELD_BASED_FRAME_DECODER, new TcpRosFrameDecoder(bufferPool));
+    } else {
+      pipeline.addLast(LENGTH_FIELD_BASED_FRAME_DECODER, new LengthFieldBasedFrameDecoder(
+          Integer.MAX_VALUE, 0, 4, 0, 4));
+    }
     return pipeline;
   }
 }
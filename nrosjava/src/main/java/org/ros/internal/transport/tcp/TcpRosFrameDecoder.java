@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ros.internal.transport.tcp;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.frame.LengthFieldBasedFrameDecoder;
+import org.ros.internal.transport.queue.IncomingMessageBufferPool;
+
+/**
+ * Splits the incoming TCPROS stream into frames, decoding each frame into a
+ * buffer from an {@link IncomingMessageBufferPool}.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class TcpRosFrameDecoder extends LengthFieldBasedFrameDecoder {
+
+  private final IncomingMessageBufferPool bufferPool;
+
+  /**
+   * @param bufferPool
+   *          the pool to take frame buffers from
+   */
+  public TcpRosFrameDecoder(IncomingMessageBufferPool bufferPool) {
+    super(Integer.MAX_VALUE, 0, 4, 0, 4);
+    this.bufferPool = bufferPool;
+  }
+
+  @Override
+  protected ChannelBuffer extractFrame(ChannelBuffer buffer, int index, int length) {
+    ChannelBuffer frame = bufferPool.acquire(length);
+    frame.writeBytes(buffer, index, length);
+    return frame;
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ros.internal.transport.udp;
+
+import org.jboss.netty.bootstrap.ConnectionlessBootstrap;
+import org.jboss.netty.buffer.HeapChannelBufferFactory;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.FixedReceiveBufferSizePredictorFactory;
+import org.jboss.netty.channel.socket.DatagramChannelFactory;
+import org.ros.internal.transport.tcp.NamedChannelHandler;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteOrder;
+import java.util.List;
+
+/**
+ * The subscriber end of a UDPROS connection to a single publisher.
+ * <p>
+ * The client binds its own datagram channel before the topic is requested, so
+ * that its port can be sent to the publisher. Reassembled messages are passed
+ * to the {@link NamedChannelHandler}s of the client.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class UdpRosClient {
+
+  /**
+   * The size of the socket receive buffer. Bursts of fragments from large
+   * messages are lost if this is too small.
+   */
+  public static final int RECEIVE_BUFFER_SIZE = 4 * 1024 * 1024;
+
+  private final UdpRosReassembler reassembler;
+  private final int maxDatagramSize;
+  private final Channel channel;
+
+  /**
+   * The address of the publisher, {@code null} until connected.
+   */
+  private volatile InetSocketAddress publisherAddress;
+
+  /**
+   * The ID of the connection, only valid once connected.
+   */
+  private volatile int connectionId;
+
+  /**
+   * @param channelFactory
+   *          the factory for the datagram channel
+   * @param bindAddress
+   *          the address to bind the datagram channel to
+   * @param maxDatagramSize
+   *          the maximum size of a datagram, including the header
+   * @param namedChannelHandlers
+   *          the handlers for reassembled messages
+   */
+  UdpRosClient(DatagramChannelFactory channelFactory, InetSocketAddress bindAddress,
+      int maxDatagramSize, List<NamedChannelHandler> namedChannelHandlers) {
+    this.maxDatagramSize = maxDatagramSize;
+    reassembler = new UdpRosReassembler();
+    ConnectionlessBootstrap bootstrap = new ConnectionlessBootstrap(channelFactory);
+    bootstrap.setOption("bufferFactory", new HeapChannelBufferFactory(ByteOrder.LITTLE_ENDIAN));
+    bootstrap.setOption("receiveBufferSizePredictorFactory",
+        new FixedReceiveBufferSizePredictorFactory(maxDatagramSize));
+    bootstrap.setOption("receiveBufferSize", RECEIVE_BUFFER_SIZE);
+    ChannelPipeline pipeline = bootstrap.getPipeline();
+    pipeline.addLast(reassembler.getName(), reassembler);
+    for (NamedChannelHandler namedChannelHandler : namedChannelHandlers) {
+      pipeline.addLast(namedChannelHandler.getName(), namedChannelHandler);
+    }
+    channel = bootstrap.bind(bindAddress);
+  }
+
+  /**
+   * Tell the client which connection the publisher assigned to it.
+   *
+   * @param connectionId
+   *          the ID of the connection
+   * @param publisherAddress
+   *          the UDPROS address of the publisher
+   */
+  public void connect(int connectionId, InetSocketAddress publisherAddress) {
+    this.connectionId = connectionId;
+    this.publisherAddress = publisherAddress;
+    reassembler.setConnectionId(connectionId);
+  }
+
+  /**
+   * @return the port datagrams are received on
+   */
+  public int getPort() {
+    return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+  }
+
+  /**
+   * @return the maximum size of a datagram, including the header
+   */
+  public int getMaxDatagramSize() {
+    return maxDatagramSize;
+  }
+
+  /**
+   * @return the reassembler, which has the receive statistics
+   */
+  public UdpRosReassembler getReassembler() {
+    return reassembler;
+  }
+
+  /**
+   * Tell the publisher the connection is still wanted. Nothing is sent if the
+   * client is not connected.
+   */
+  public void sendKeepalive() {
+    InetSocketAddress address = publisherAddress;
+    if (address != null && channel.isOpen()) {
+      channel.write(UdpRosDatagrams.newPingDatagram(connectionId), address);
+    }
+  }
+
+  /**
+   * Close the client. If it is connected, the publisher is told to stop
+   * sending.
+   */
+  public void shutdown() {
+    if (publisherAddress != null && channel.isOpen()) {
+      channel.write(UdpRosDatagrams.newErrorDatagram(connectionId), publisherAddress)
+          .awaitUninterruptibly();
+    }
+    channel.close().awaitUninterruptibly();
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ros.internal.transport.udp;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import org.jboss.netty.channel.socket.nio.NioDatagramChannelFactory;
+import org.ros.internal.transport.tcp.NamedChannelHandler;
+
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates and keeps track of the {@link UdpRosClient}s of a subscriber.
+ * <p>
+ * All clients share one datagram channel factory, which is only created when
+ * the first client is. Every connected client sends a keep alive to its
+ * publisher periodically, so the publisher can close connections to
+ * subscribers which have gone away without saying so.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class UdpRosClientManager {
+
+  /**
+   * The default time between keep alives, in milliseconds.
+   */
+  public static final long DEFAULT_KEEPALIVE_INTERVAL = 10000;
+
+  private final ScheduledExecutorService executorService;
+
+  /**
+   * The time between keep alives, in milliseconds.
+   */
+  private final long keepaliveInterval;
+  private final Collection<UdpRosClient> udpClients;
+  private final List<NamedChannelHandler> namedChannelHandlers;
+
+  private NioDatagramChannelFactory channelFactory;
+
+  /**
+   * The future for the periodic keep alives, {@code null} until the first
+   * client is created.
+   */
+  private ScheduledFuture<?> keepaliveFuture;
+
+  public UdpRosClientManager(ScheduledExecutorService executorService) {
+    this(executorService, DEFAULT_KEEPALIVE_INTERVAL);
+  }
+
+  /**
+   * @param executorService
+   *          the executor service for the datagram channels and keep alives
+   * @param keepaliveInterval
+   *          the time between keep alives, in milliseconds
+   */
+  public UdpRosClientManager(ScheduledExecutorService executorService, long keepaliveInterval) {
+    Preconditions.checkArgument(keepaliveInterval > 0, "The keep alive interval must be positive");
+    this.executorService = executorService;
+    this.keepaliveInterval = keepaliveInterval;
+    udpClients = Lists.newCopyOnWriteArrayList();
+    namedChannelHandlers = Lists.newArrayList();
+  }
+
+  public void addNamedChannelHandler(NamedChannelHandler namedChannelHandler) {
+    namedChannelHandlers.add(namedChannelHandler);
+  }
+
+  /**
+   * Create a new client which receives on an ephemeral port.
+   *
+   * @param maxDatagramSize
+   *          the maximum size of a datagram, including the header
+   * @return the new client
+   */
+  public synchronized UdpRosClient newClient(int maxDatagramSize) {
+    if (channelFactory == null) {
+      channelFactory = new NioDatagramChannelFactory(executorService, 1);
+      keepaliveFuture = executorService.scheduleAtFixedRate(new Runnable() {
+        @Override
+        public void run() {
+          for (UdpRosClient client : udpClients) {
+            client.sendKeepalive();
+          }
+        }
+      }, keepaliveInterval, keepaliveInterval, TimeUnit.MILLISECONDS);
+    }
+    UdpRosClient udpClient =
+        new UdpRosClient(channelFactory, new InetSocketAddress(0), maxDatagramSize,
+            namedChannelHandlers);
+    udpClients.add(udpClient);
+    return udpClient;
+  }
+
+  /**
+   * Shut down a client which is no longer needed.
+   *
+   * @param udpClient
+   *          the client
+   */
+  public void shutdownClient(UdpRosClient udpClient) {
+    udpClients.remove(udpClient);
+    udpClient.shutdown();
+  }
+
+  public synchronized void shutdown() {
+    if (keepaliveFuture != null) {
+      keepaliveFuture.cancel(false);
+      keepaliveFuture = null;
+    }
+    for (UdpRosClient client : udpClients) {
+      client.shutdown();
+    }
+    udpClients.clear();
+
+    if (channelFactory != null) {
+      channelFactory.shutdown();
+      channelFactory = null;
+    }
+  }
+}
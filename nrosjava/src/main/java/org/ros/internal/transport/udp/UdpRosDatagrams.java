@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ros.internal.transport.udp;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import java.nio.ByteOrder;
+import java.util.List;
+
+/**
+ * Constants and helpers for the UDPROS datagram format.
+ * <p>
+ * Every datagram starts with an 8 byte little endian header: the connection ID
+ * (4 bytes), the opcode (1 byte), the message ID (1 byte) and the block number
+ * (2 bytes). The first datagram of a message has the opcode
+ * {@link #OPCODE_DATA0} and its block number is the total number of datagrams
+ * in the message. Every following datagram has the opcode
+ * {@link #OPCODE_DATAN} and its block number is its index in the message.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class UdpRosDatagrams {
+
+  /**
+   * The number of bytes in a datagram header.
+   */
+  public static final int HEADER_LENGTH = 8;
+
+  /**
+   * Opcode for the first datagram of a message.
+   */
+  public static final int OPCODE_DATA0 = 0;
+
+  /**
+   * Opcode for the remaining datagrams of a message.
+   */
+  public static final int OPCODE_DATAN = 1;
+
+  /**
+   * Opcode for a keep alive.
+   */
+  public static final int OPCODE_PING = 2;
+
+  /**
+   * Opcode for an error, which closes the connection.
+   */
+  public static final int OPCODE_ERR = 3;
+
+  /**
+   * The default maximum size of a datagram, including the header.
+   */
+  public static final int DEFAULT_MAX_DATAGRAM_SIZE = 1500;
+
+  /**
+   * The largest datagram that can be sent over UDP.
+   */
+  public static final int MAXIMUM_DATAGRAM_SIZE = 65507;
+
+  /**
+   * The largest number of datagrams a message can be split into.
+   */
+  public static final int MAXIMUM_BLOCKS = 0xffff;
+
+  /**
+   * Split a serialized message into datagrams.
+   *
+   * @param message
+   *          the serialized message, its readable bytes are not consumed
+   * @param connectionId
+   *          the ID of the connection
+   * @param messageId
+   *          the ID of the message, only the low 8 bits are used
+   * @param maxDatagramSize
+   *          the maximum size of each datagram, including the header
+   * @return the datagrams, in order
+   */
+  public static List<ChannelBuffer> fragment(ChannelBuffer message, int connectionId,
+      int messageId, int maxDatagramSize) {
+    int payloadSize = maxDatagramSize - HEADER_LENGTH;
+    Preconditions.checkArgument(payloadSize > 0, "Datagram size too small: " + maxDatagramSize);
+    int length = message.readableBytes();
+    int numberBlocks = Math.max(1, (length + payloadSize - 1) / payloadSize);
+    Preconditions.checkArgument(numberBlocks <= MAXIMUM_BLOCKS, String.format(
+        "Message of %d bytes is too large for datagrams of %d bytes", length, maxDatagramSize));
+
+    List<ChannelBuffer> datagrams = Lists.newArrayListWithCapacity(numberBlocks);
+    int offset = message.readerIndex();
+    for (int block = 0; block < numberBlocks; block++) {
+      int size = Math.min(payloadSize, length - block * payloadSize);
+      ChannelBuffer datagram = ChannelBuffers.buffer(ByteOrder.LITTLE_ENDIAN, HEADER_LENGTH + size);
+      writeHeader(datagram, connectionId, (block == 0) ? OPCODE_DATA0 : OPCODE_DATAN, messageId,
+          (block == 0) ? numberBlocks : block);
+      datagram.writeBytes(message, offset, size);
+      offset += size;
+      datagrams.add(datagram);
+    }
+
+    return datagrams;
+  }
+
+  /**
+   * Create the datagram which tells the other end a connection is closed.
+   *
+   * @param connectionId
+   *          the ID of the connection
+   * @return the datagram
+   */
+  public static ChannelBuffer newErrorDatagram(int connectionId) {
+    ChannelBuffer datagram = ChannelBuffers.buffer(ByteOrder.LITTLE_ENDIAN, HEADER_LENGTH);
+    writeHeader(datagram, connectionId, OPCODE_ERR, 0, 0);
+    return datagram;
+  }
+
+  /**
+   * Create the datagram which tells the other end a connection is still
+   * wanted.
+   *
+   * @param connectionId
+   *          the ID of the connection
+   * @return the datagram
+   */
+  public static ChannelBuffer newPingDatagram(int connectionId) {
+    ChannelBuffer datagram = ChannelBuffers.buffer(ByteOrder.LITTLE_ENDIAN, HEADER_LENGTH);
+    writeHeader(datagram, connectionId, OPCODE_PING, 0, 0);
+    return datagram;
+  }
+
+  /**
+   * Get the connection ID from a datagram without consuming it.
+   *
+   * @param datagram
+   *          the datagram
+   * @return the connection ID
+   */
+  public static int getConnectionId(ChannelBuffer datagram) {
+    return (int) getLittleEndian(datagram, datagram.readerIndex(), 4);
+  }
+
+  /**
+   * Get the opcode from a datagram without consuming it.
+   *
+   * @param datagram
+   *          the datagram
+   * @return the opcode
+   */
+  public static int getOpcode(ChannelBuffer datagram) {
+    return datagram.getUnsignedByte(datagram.readerIndex() + 4);
+  }
+
+  /**
+   * Get the message ID from a datagram without consuming it.
+   *
+   * @param datagram
+   *          the datagram
+   * @return the message ID
+   */
+  public static int getMessageId(ChannelBuffer datagram) {
+    return datagram.getUnsignedByte(datagram.readerIndex() + 5);
+  }
+
+  /**
+   * Get the block number from a datagram without consuming it.
+   *
+   * @param datagram
+   *          the datagram
+   * @return the block number
+   */
+  public static int getBlock(ChannelBuffer datagram) {
+    return (int) getLittleEndian(datagram, datagram.readerIndex() + 6, 2);
+  }
+
+  private static void writeHeader(ChannelBuffer datagram, int connectionId, int opcode,
+      int messageId, int block) {
+    datagram.writeInt(connectionId);
+    datagram.writeByte(opcode);
+    datagram.writeByte(messageId);
+    datagram.writeShort(block);
+  }
+
+  /**
+   * Read a little endian unsigned value from a buffer, whatever the byte order
+   * of the buffer.
+   */
+  private static long getLittleEndian(ChannelBuffer buffer, int index, int length) {
+    long value = 0;
+    for (int i = length - 1; i >= 0; i--) {
+      value = (value << 8) | buffer.getUnsignedByte(index + i);
+    }
+    return value;
+  }
+
+  private UdpRosDatagrams() {
+    // Static methods only.
+  }
+}
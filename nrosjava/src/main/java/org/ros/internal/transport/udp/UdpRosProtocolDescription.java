@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ros.internal.transport.udp;
+
+import org.ros.address.AdvertiseAddress;
+import org.ros.internal.transport.ProtocolDescription;
+import org.ros.internal.transport.ProtocolNames;
+
+import java.util.List;
+
+/**
+ * Describes a UDPROS connection set up by a publisher.
+ * <p>
+ * On the wire this is {@code [UDPROS, host, port, connectionId,
+ * maxDatagramSize, header]}, where the address is the publisher's
+ * {@link UdpRosServer} and the header is the publisher's encoded connection
+ * header.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class UdpRosProtocolDescription extends ProtocolDescription {
+
+  private final int connectionId;
+  private final int maxDatagramSize;
+  private final byte[] header;
+
+  public UdpRosProtocolDescription(AdvertiseAddress address, int connectionId,
+      int maxDatagramSize, byte[] header) {
+    super(ProtocolNames.UDPROS, address);
+    this.connectionId = connectionId;
+    this.maxDatagramSize = maxDatagramSize;
+    this.header = header;
+  }
+
+  public int getConnectionId() {
+    return connectionId;
+  }
+
+  public int getMaxDatagramSize() {
+    return maxDatagramSize;
+  }
+
+  public byte[] getHeader() {
+    return header;
+  }
+
+  @Override
+  public List<Object> toList() {
+    List<Object> list = super.toList();
+    list.add(connectionId);
+    list.add(maxDatagramSize);
+    list.add(header);
+    return list;
+  }
+}
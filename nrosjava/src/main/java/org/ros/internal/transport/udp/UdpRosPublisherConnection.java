@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ros.internal.transport.udp;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+
+import java.net.InetSocketAddress;
+
+/**
+ * The publisher end of a UDPROS connection to a single subscriber.
+ * <p>
+ * Messages are written as datagrams from the datagram channel of the
+ * {@link UdpRosServer} to the address the subscriber gave when it requested
+ * the topic.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class UdpRosPublisherConnection {
+
+  /**
+   * The ID of the connection.
+   */
+  private final int connectionId;
+
+  /**
+   * The datagram channel to write on.
+   */
+  private final Channel channel;
+
+  /**
+   * The address of the subscriber.
+   */
+  private final InetSocketAddress subscriberAddress;
+
+  /**
+   * The maximum size of a datagram, including the header.
+   */
+  private final int maxDatagramSize;
+
+  /**
+   * The server which created the connection.
+   */
+  private final UdpRosServer server;
+
+  /**
+   * The ID of the next message.
+   */
+  private int messageId;
+
+  /**
+   * {@code true} if the connection has been closed.
+   */
+  private volatile boolean closed;
+
+  /**
+   * The time the subscriber was last heard from, in milliseconds since the
+   * epoch.
+   */
+  private volatile long lastHeardTime;
+
+  /**
+   * @param connectionId
+   *          the ID of the connection
+   * @param channel
+   *          the datagram channel to write on
+   * @param subscriberAddress
+   *          the address of the subscriber
+   * @param maxDatagramSize
+   *          the maximum size of a datagram, including the header
+   * @param server
+   *          the server which created the connection
+   */
+  UdpRosPublisherConnection(int connectionId, Channel channel,
+      InetSocketAddress subscriberAddress, int maxDatagramSize, UdpRosServer server) {
+    this.connectionId = connectionId;
+    this.channel = channel;
+    this.subscriberAddress = subscriberAddress;
+    this.maxDatagramSize = maxDatagramSize;
+    this.server = server;
+    lastHeardTime = System.currentTimeMillis();
+  }
+
+  /**
+   * Write a serialized message to the subscriber.
+   * <p>
+   * The readable bytes of the message are not consumed, so the same buffer can
+   * be written to several connections.
+   *
+   * @param message
+   *          the serialized message
+   */
+  public void write(ChannelBuffer message) {
+    if (closed) {
+      return;
+    }
+    int id;
+    synchronized (this) {
+      id = messageId;
+      messageId = (messageId + 1) & 0xff;
+    }
+    for (ChannelBuffer datagram : UdpRosDatagrams.fragment(message, connectionId, id,
+        maxDatagramSize)) {
+      channel.write(datagram, subscriberAddress);
+    }
+  }
+
+  /**
+   * Close the connection. Nothing more will be written.
+   */
+  public void close() {
+    closed = true;
+    server.removeConnection(this);
+  }
+
+  /**
+   * Record that the subscriber has been heard from.
+   */
+  void touch() {
+    lastHeardTime = System.currentTimeMillis();
+  }
+
+  /**
+   * @return the time the subscriber was last heard from, in milliseconds since
+   *         the epoch
+   */
+  public long getLastHeardTime() {
+    return lastHeardTime;
+  }
+
+  /**
+   * @return {@code true} if the connection has been closed
+   */
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * @return the ID of the connection
+   */
+  public int getConnectionId() {
+    return connectionId;
+  }
+
+  /**
+   * @return the maximum size of a datagram, including the header
+   */
+  public int getMaxDatagramSize() {
+    return maxDatagramSize;
+  }
+
+  /**
+   * @return the address of the subscriber
+   */
+  public InetSocketAddress getSubscriberAddress() {
+    return subscriberAddress;
+  }
+
+  /**
+   * Could a datagram have been sent by the subscriber of this connection?
+   * <p>
+   * Only the port is compared. The subscriber's socket is bound to the
+   * wildcard address, so the source address the kernel picks can differ from
+   * the host the subscriber advertised, for example on hosts with several
+   * interfaces or when a hostname resolves to 127.0.1.1.
+   *
+   * @param remoteAddress
+   *          the source address of the datagram
+   * @return {@code true} if the datagram came from the subscriber's port
+   */
+  boolean isFromSubscriber(Object remoteAddress) {
+    return remoteAddress instanceof InetSocketAddress
+        && ((InetSocketAddress) remoteAddress).getPort() == subscriberAddress.getPort();
+  }
+
+  @Override
+  public String toString() {
+    return "UdpRosPublisherConnection<" + connectionId + ", " + subscriberAddress + ">";
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ros.internal.transport.udp;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.MessageEvent;
+import org.ros.internal.transport.tcp.AbstractNamedChannelHandler;
+
+/**
+ * Reassembles UDPROS datagrams into messages and passes complete messages up
+ * the pipeline.
+ * <p>
+ * Only one message is reassembled at a time. If the first datagram of a new
+ * message arrives before the current message is complete, the current message
+ * is dropped. Datagrams which arrive out of order with respect to the first
+ * datagram of their message are discarded, so a message is either delivered
+ * whole or not at all.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class UdpRosReassembler extends AbstractNamedChannelHandler {
+
+  /**
+   * Connection ID which matches any connection.
+   */
+  public static final int ANY_CONNECTION = -1;
+
+  /**
+   * The connection datagrams must belong to.
+   */
+  private volatile int connectionId = ANY_CONNECTION;
+
+  /**
+   * The ID of the message being reassembled.
+   */
+  private int messageId;
+
+  /**
+   * The payloads of the message being reassembled, {@code null} if no message
+   * is being reassembled.
+   */
+  private ChannelBuffer[] blocks;
+
+  /**
+   * The number of blocks of the current message which have arrived.
+   */
+  private int numberBlocksReceived;
+
+  /**
+   * The number of datagrams received.
+   */
+  private long numberDatagrams;
+
+  /**
+   * The number of complete messages.
+   */
+  private long numberMessages;
+
+  /**
+   * The number of messages which were dropped because some of their datagrams
+   * never arrived.
+   */
+  private long numberDroppedMessages;
+
+  @Override
+  public String getName() {
+    return "UdpRosReassembler";
+  }
+
+  /**
+   * Only accept datagrams for a particular connection.
+   *
+   * @param connectionId
+   *          the connection ID, or {@link #ANY_CONNECTION}
+   */
+  public void setConnectionId(int connectionId) {
+    this.connectionId = connectionId;
+  }
+
+  @Override
+  public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+    ChannelBuffer message = receive((ChannelBuffer) e.getMessage());
+    if (message != null) {
+      Channels.fireMessageReceived(ctx, message, e.getRemoteAddress());
+    }
+  }
+
+  /**
+   * Add a datagram to the message being reassembled.
+   *
+   * @param datagram
+   *          the datagram
+   * @return the complete message, or {@code null} if there is no complete
+   *         message yet
+   */
+  public synchronized ChannelBuffer receive(ChannelBuffer datagram) {
+    if (datagram.readableBytes() < UdpRosDatagrams.HEADER_LENGTH) {
+      return null;
+    }
+    int expectedConnectionId = connectionId;
+    if (expectedConnectionId != ANY_CONNECTION
+        && UdpRosDatagrams.getConnectionId(datagram) != expectedConnectionId) {
+      return null;
+    }
+    numberDatagrams++;
+
+    int datagramMessageId = UdpRosDatagrams.getMessageId(datagram);
+    int block = UdpRosDatagrams.getBlock(datagram);
+    ChannelBuffer payload =
+        datagram.slice(datagram.readerIndex() + UdpRosDatagrams.HEADER_LENGTH,
+            datagram.readableBytes() - UdpRosDatagrams.HEADER_LENGTH);
+
+    switch (UdpRosDatagrams.getOpcode(datagram)) {
+      case UdpRosDatagrams.OPCODE_DATA0:
+        if (blocks != null) {
+          numberDroppedMessages++;
+          blocks = null;
+        }
+        if (block == 1) {
+          numberMessages++;
+          return payload;
+        }
+        if (block > 1) {
+          blocks = new ChannelBuffer[block];
+          blocks[0] = payload;
+          numberBlocksReceived = 1;
+          messageId = datagramMessageId;
+        }
+        return null;
+
+      case UdpRosDatagrams.OPCODE_DATAN:
+        if (blocks == null || datagramMessageId != messageId || block >= blocks.length
+            || blocks[block] != null) {
+          return null;
+        }
+        blocks[block] = payload;
+        numberBlocksReceived++;
+        if (numberBlocksReceived < blocks.length) {
+          return null;
+        }
+        ChannelBuffer message = ChannelBuffers.wrappedBuffer(blocks);
+        blocks = null;
+        numberMessages++;
+        return message;
+
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * @return the number of datagrams received for the connection
+   */
+  public synchronized long getNumberDatagrams() {
+    return numberDatagrams;
+  }
+
+  /**
+   * @return the number of complete messages received
+   */
+  public synchronized long getNumberMessages() {
+    return numberMessages;
+  }
+
+  /**
+   * @return the number of messages dropped because they were incomplete
+   */
+  public synchronized long getNumberDroppedMessages() {
+    return numberDroppedMessages;
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ros.internal.transport.udp;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.ros.internal.transport.ConnectionHeader;
+import org.ros.internal.transport.ProtocolNames;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteOrder;
+
+/**
+ * The parameters a subscriber sends when it asks a publisher for a UDPROS
+ * connection.
+ * <p>
+ * On the wire this is {@code [UDPROS, header, host, port, maxDatagramSize]},
+ * where the header is the subscriber's encoded connection header.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class UdpRosRequest {
+
+  /**
+   * The number of protocol parameters, including the protocol name.
+   */
+  public static final int NUMBER_PARAMETERS = 5;
+
+  private final ConnectionHeader connectionHeader;
+  private final InetSocketAddress address;
+  private final int maxDatagramSize;
+
+  /**
+   * Parse a request from its protocol parameters.
+   *
+   * @param protocolParameters
+   *          the protocol parameters, starting with the protocol name
+   * @return the request, or {@code null} if the parameters are not a valid
+   *         request
+   */
+  public static UdpRosRequest newFromProtocolParameters(Object[] protocolParameters) {
+    if (protocolParameters.length < NUMBER_PARAMETERS || !(protocolParameters[1] instanceof byte[])
+        || !(protocolParameters[2] instanceof String)
+        || !(protocolParameters[3] instanceof Integer)
+        || !(protocolParameters[4] instanceof Integer)) {
+      return null;
+    }
+    ConnectionHeader connectionHeader =
+        ConnectionHeader.decode(ChannelBuffers.wrappedBuffer(ByteOrder.LITTLE_ENDIAN,
+            (byte[]) protocolParameters[1]));
+    InetSocketAddress address =
+        new InetSocketAddress((String) protocolParameters[2], (Integer) protocolParameters[3]);
+    return new UdpRosRequest(connectionHeader, address, (Integer) protocolParameters[4]);
+  }
+
+  public UdpRosRequest(ConnectionHeader connectionHeader, InetSocketAddress address,
+      int maxDatagramSize) {
+    this.connectionHeader = connectionHeader;
+    this.address = address;
+    this.maxDatagramSize = maxDatagramSize;
+  }
+
+  /**
+   * @return the protocol parameters of this request, starting with the
+   *         protocol name
+   */
+  public Object[] toProtocolParameters() {
+    ChannelBuffer buffer = connectionHeader.encode();
+    byte[] header = new byte[buffer.readableBytes()];
+    buffer.readBytes(header);
+    return new Object[] { ProtocolNames.UDPROS, header, address.getHostString(), address.getPort(),
+        maxDatagramSize };
+  }
+
+  /**
+   * @return the connection header of the subscriber
+   */
+  public ConnectionHeader getConnectionHeader() {
+    return connectionHeader;
+  }
+
+  /**
+   * @return the address the subscriber receives datagrams on
+   */
+  public InetSocketAddress getAddress() {
+    return address;
+  }
+
+  /**
+   * @return the maximum size of a datagram the subscriber accepts
+   */
+  public int getMaxDatagramSize() {
+    return maxDatagramSize;
+  }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ros.internal.transport.udp;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+
+import org.apache.commons.logging.Log;
+import org.jboss.netty.bootstrap.ConnectionlessBootstrap;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.HeapChannelBufferFactory;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.FixedReceiveBufferSizePredictorFactory;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelHandler;
+import org.jboss.netty.channel.socket.nio.NioDatagramChannelFactory;
+import org.ros.address.AdvertiseAddress;
+import org.ros.address.BindAddress;
+import org.ros.log.RosLogFactory;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteOrder;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The datagram endpoint publishers use for UDPROS connections.
+ * <p>
+ * All UDPROS connections of a node are written from the one datagram channel
+ * of this server. The channel also receives {@link UdpRosDatagrams#OPCODE_ERR}
+ * datagrams from subscribers which close their end of a connection, and
+ * {@link UdpRosDatagrams#OPCODE_PING} datagrams from subscribers which still
+ * want their connection. A connection whose subscriber has not been heard from
+ * within the idle timeout is closed, so subscribers which die without sending
+ * an error datagram are not written to forever.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class UdpRosServer {
+
+  private static final Log log = RosLogFactory.getLog(UdpRosServer.class);
+
+  /**
+   * The default time a connection can go without hearing from its subscriber
+   * before it is closed, in milliseconds. This is several
+   * {@link UdpRosClientManager#DEFAULT_KEEPALIVE_INTERVAL} periods, so a few
+   * lost pings do not close a connection.
+   */
+  public static final long DEFAULT_IDLE_TIMEOUT = 30000;
+
+  private final BindAddress bindAddress;
+  private final AdvertiseAddress advertiseAddress;
+  private final ScheduledExecutorService executorService;
+
+  /**
+   * The time a connection can go without hearing from its subscriber before it
+   * is closed, in milliseconds.
+   */
+  private final long idleTimeout;
+
+  /**
+   * All open connections, indexed by their ID.
+   */
+  private final Map<Integer, UdpRosPublisherConnection> connections;
+
+  /**
+   * The source of connection IDs.
+   */
+  private final AtomicInteger nextConnectionId;
+
+  private NioDatagramChannelFactory channelFactory;
+  private Channel channel;
+
+  /**
+   * The future for the periodic check for idle connections.
+   */
+  private ScheduledFuture<?> idleCheckFuture;
+
+  /**
+   * @param bindAddress
+   *          the address to bind to, only the host is used
+   * @param advertiseAddress
+   *          the address to advertise, its port is set once the server is
+   *          started
+   * @param executorService
+   *          the executor service for the datagram channel
+   */
+  public UdpRosServer(BindAddress bindAddress, AdvertiseAddress advertiseAddress,
+      ScheduledExecutorService executorService) {
+    this(bindAddress, advertiseAddress, executorService, DEFAULT_IDLE_TIMEOUT);
+  }
+
+  /**
+   * @param bindAddress
+   *          the address to bind to, only the host is used
+   * @param advertiseAddress
+   *          the address to advertise, its port is set once the server is
+   *          started
+   * @param executorService
+   *          the executor service for the datagram channel and the idle check
+   * @param idleTimeout
+   *          the time a connection can go without hearing from its subscriber
+   *          before it is closed, in milliseconds
+   */
+  public UdpRosServer(BindAddress bindAddress, AdvertiseAddress advertiseAddress,
+      ScheduledExecutorService executorService, long idleTimeout) {
+    Preconditions.checkArgument(idleTimeout > 0, "The idle timeout must be positive");
+    this.bindAddress = bindAddress;
+    this.advertiseAddress = advertiseAddress;
+    this.executorService = executorService;
+    this.idleTimeout = idleTimeout;
+    connections = Maps.newConcurrentMap();
+    nextConnectionId = new AtomicInteger();
+  }
+
+  public void start() {
+    Preconditions.checkState(channel == null);
+    channelFactory = new NioDatagramChannelFactory(executorService, 1);
+    ConnectionlessBootstrap bootstrap = new ConnectionlessBootstrap(channelFactory);
+    bootstrap.setOption("bufferFactory", new HeapChannelBufferFactory(ByteOrder.LITTLE_ENDIAN));
+    bootstrap.setOption("receiveBufferSizePredictorFactory",
+        new FixedReceiveBufferSizePredictorFactory(UdpRosDatagrams.HEADER_LENGTH));
+    bootstrap.getPipeline().addLast("ErrorHandler", new SimpleChannelHandler() {
+      @Override
+      public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+        handleDatagram((ChannelBuffer) e.getMessage(), e.getRemoteAddress());
+      }
+    });
+    channel =
+        bootstrap.bind(new InetSocketAddress(bindAddress.toInetSocketAddress().getAddress(), 0));
+    advertiseAddress.setPortCallable(new Callable<Integer>() {
+      @Override
+      public Integer call() throws Exception {
+        return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+      }
+    });
+    if (log.isDebugEnabled()) {
+      log.debug(String.format("Bound to: %s, Advertising: %s", channel.getLocalAddress(),
+          advertiseAddress));
+    }
+    long idleCheckPeriod = Math.max(1, idleTimeout / 2);
+    idleCheckFuture = executorService.scheduleAtFixedRate(new Runnable() {
+      @Override
+      public void run() {
+        closeIdleConnections();
+      }
+    }, idleCheckPeriod, idleCheckPeriod, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Close all connections and the datagram channel.
+   * <p>
+   * Calling this method more than once has no effect.
+   */
+  public void shutdown() {
+    if (idleCheckFuture != null) {
+      idleCheckFuture.cancel(false);
+      idleCheckFuture = null;
+    }
+    for (UdpRosPublisherConnection connection : connections.values()) {
+      connection.close();
+    }
+    if (channel != null) {
+      channel.close().awaitUninterruptibly();
+      channel = null;
+    }
+    if (channelFactory != null) {
+      channelFactory.shutdown();
+      channelFactory = null;
+    }
+  }
+
+  /**
+   * Create a new connection to a subscriber.
+   *
+   * @param subscriberAddress
+   *          the address the subscriber receives datagrams on
+   * @param maxDatagramSize
+   *          the maximum datagram size the subscriber accepts
+   * @return the new connection
+   */
+  public UdpRosPublisherConnection newConnection(InetSocketAddress subscriberAddress,
+      int maxDatagramSize) {
+    Preconditions.checkState(channel != null, "UDPROS server not started");
+    int size =
+        Math.max(UdpRosDatagrams.HEADER_LENGTH + 1,
+            Math.min(maxDatagramSize, UdpRosDatagrams.MAXIMUM_DATAGRAM_SIZE));
+    UdpRosPublisherConnection connection =
+        new UdpRosPublisherConnection(nextConnectionId.incrementAndGet(), channel,
+            subscriberAddress, size, this);
+    connections.put(connection.getConnectionId(), connection);
+    return connection;
+  }
+
+  /**
+   * @return the advertise-able address of this server
+   */
+  public AdvertiseAddress getAdvertiseAddress() {
+    return advertiseAddress;
+  }
+
+  /**
+   * @return the number of open connections
+   */
+  public int getNumberOfConnections() {
+    return connections.size();
+  }
+
+  /**
+   * Forget about a closed connection.
+   *
+   * @param connection
+   *          the connection
+   */
+  void removeConnection(UdpRosPublisherConnection connection) {
+    connections.remove(connection.getConnectionId());
+  }
+
+  /**
+   * Close all connections whose subscriber has not been heard from within the
+   * idle timeout.
+   */
+  private void closeIdleConnections() {
+    long oldestAllowed = System.currentTimeMillis() - idleTimeout;
+    for (UdpRosPublisherConnection connection : connections.values()) {
+      if (connection.getLastHeardTime() < oldestAllowed) {
+        log.warn("Closing idle " + connection);
+        connection.close();
+      }
+    }
+  }
+
+  /**
+   * Handle a datagram sent by a subscriber.
+   *
+   * @param datagram
+   *          the datagram
+   * @param remoteAddress
+   *          the address of the sender
+   */
+  private void handleDatagram(ChannelBuffer datagram, Object remoteAddress) {
+    if (datagram.readableBytes() < UdpRosDatagrams.HEADER_LENGTH) {
+      return;
+    }
+    UdpRosPublisherConnection connection =
+        connections.get(UdpRosDatagrams.getConnectionId(datagram));
+    // Only the subscriber itself can keep alive or close its connection.
+    if (connection == null || !connection.isFromSubscriber(remoteAddress)) {
+      return;
+    }
+    int opcode = UdpRosDatagrams.getOpcode(datagram);
+    if (opcode == UdpRosDatagrams.OPCODE_PING) {
+      connection.touch();
+    } else if (opcode == UdpRosDatagrams.OPCODE_ERR) {
+      if (log.isDebugEnabled()) {
+        log.debug("Subscriber closed " + connection);
+      }
+      connection.close();
+    }
+  }
+}
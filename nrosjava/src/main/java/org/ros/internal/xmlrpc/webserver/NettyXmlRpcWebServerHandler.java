@@ -18,7 +18,9 @@ package org.ros.internal.xmlrpc.webserver;
 
 import static org.jboss.netty.handler.codec.http.HttpHeaders.isKeepAlive;
 import static org.jboss.netty.handler.codec.http.HttpHeaders.setContentLength;
+import static org.jboss.netty.handler.codec.http.HttpHeaders.Names.CONNECTION;
 import static org.jboss.netty.handler.codec.http.HttpHeaders.Names.CONTENT_TYPE;
+import static org.jboss.netty.handler.codec.http.HttpHeaders.Values.KEEP_ALIVE;
 import static org.jboss.netty.handler.codec.http.HttpMethod.POST;
 import static org.jboss.netty.handler.codec.http.HttpResponseStatus.FORBIDDEN;
 import static org.jboss.netty.handler.codec.http.HttpVersion.HTTP_1_1;
@@ -130,16 +132,24 @@ public class NettyXmlRpcWebServerHandler extends SimpleChannelUpstreamHandler {
    */
   public void sendHttpResponse(ChannelHandlerContext ctx, HttpRequest req, HttpResponse res) {
     // Generate an error page if response status code is not OK (200).
-    if (res.getStatus().getCode() != HttpResponseStatus.OK.getCode()) {
+    boolean ok = res.getStatus().getCode() == HttpResponseStatus.OK.getCode();
+    if (!ok) {
       res.setContent(ChannelBuffers.copiedBuffer(res.getStatus().toString(), CharsetUtil.UTF_8));
-      setContentLength(res, res.getContent().readableBytes());
+    }
+
+    // The content length lets clients find the end of the response without the
+    // connection being closed, so the connection can be reused for the next
+    // request.
+    setContentLength(res, res.getContent().readableBytes());
+    boolean keepAlive = ok && isKeepAlive(req);
+    if (keepAlive && !req.getProtocolVersion().isKeepAliveDefault()) {
+      res.setHeader(CONNECTION, KEEP_ALIVE);
     }
 
     // Send the response and close the connection if necessary.
     ChannelFuture f = ctx.getChannel().write(res);
 
-    if (!isKeepAlive(req) || res.getStatus().getCode() != HttpResponseStatus.OK.getCode()
-        || req.getMethod() == POST) {
+    if (!keepAlive) {
       f.addListener(ChannelFutureListener.CLOSE);
     }
   }
@@ -86,6 +86,14 @@ public interface Publisher<T> extends TopicParticipant {
    */
   int getNumberOfSubscribers();
 
+  /**
+   * Get the number of published messages which have not yet been written to
+   * the network.
+   *
+   * @return the number of messages waiting to be written
+   */
+  int getNumberOfQueuedMessages();
+
   /**
    * Shuts down and unregisters the {@link Publisher}. Shutdown is delayed by at
    * most the specified timeout to allow
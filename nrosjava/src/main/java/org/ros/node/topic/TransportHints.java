@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ros.node.topic;
+
+import org.ros.internal.transport.udp.UdpRosDatagrams;
+
+/**
+ * Hints on how a {@link Subscriber} would like to receive its messages.
+ * <p>
+ * By default messages are received over TCPROS. Topics with high rate messages
+ * where the occasional lost message doesn't matter, such as sensor streams,
+ * can ask for UDPROS instead, for example
+ * {@code new TransportHints().udp().maxDatagramSize(8192)}. Publishers which
+ * don't support UDPROS fall back to TCPROS.
+ * <p>
+ * TCPROS messages are decoded into pooled buffers. Subscribers whose listeners
+ * don't hold on to messages, or anything taken from them, after returning can
+ * ask for those buffers to be recycled with {@link #recycleBuffers()}.
+ * <p>
+ * Subscribers can also accept messages from publishers in the same process
+ * without serialization with {@link #intraProcess()}.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class TransportHints {
+
+  private boolean udp;
+  private int maxDatagramSize;
+  private boolean recycleBuffers;
+  private boolean intraProcess;
+
+  public TransportHints() {
+    udp = false;
+    maxDatagramSize = UdpRosDatagrams.DEFAULT_MAX_DATAGRAM_SIZE;
+    recycleBuffers = false;
+    intraProcess = false;
+  }
+
+  /**
+   * Prefer UDPROS over TCPROS.
+   *
+   * @return this {@link TransportHints}
+   */
+  public TransportHints udp() {
+    udp = true;
+    return this;
+  }
+
+  /**
+   * Set the largest datagram which will be sent when using UDPROS. Messages
+   * larger than this are fragmented.
+   *
+   * @param maxDatagramSize
+   *          the maximum size of a datagram in bytes, including the UDPROS
+   *          header
+   * @return this {@link TransportHints}
+   */
+  public TransportHints maxDatagramSize(int maxDatagramSize) {
+    this.maxDatagramSize = maxDatagramSize;
+    return this;
+  }
+
+  /**
+   * Reuse the buffers of incoming messages once every listener has handled
+   * them.
+   * <p>
+   * Deserialized messages can share memory with their buffer, for instance
+   * for {@code uint8[]} fields, so a message is only valid until the listener
+   * it was handed to returns.
+   *
+   * @return this {@link TransportHints}
+   */
+  public TransportHints recycleBuffers() {
+    recycleBuffers = true;
+    return this;
+  }
+
+  /**
+   * Receive messages from publishers in the same process directly, without
+   * serializing them. Publishers in other processes are still connected to
+   * over the network.
+   * <p>
+   * The listeners are handed the very message instance that was published,
+   * shared with every other intra-process subscriber, so they must not modify
+   * it. A publisher also waits for room in the queue of a subscriber which
+   * has fallen behind rather than dropping its messages.
+   *
+   * @return this {@link TransportHints}
+   */
+  public TransportHints intraProcess() {
+    intraProcess = true;
+    return this;
+  }
+
+  /**
+   * @return {@code true} if UDPROS is preferred over TCPROS
+   */
+  public boolean isUdpPreferred() {
+    return udp;
+  }
+
+  /**
+   * @return the maximum size of a UDPROS datagram in bytes
+   */
+  public int getMaxDatagramSize() {
+    return maxDatagramSize;
+  }
+
+  /**
+   * @return {@code true} if the buffers of incoming messages are reused
+   */
+  public boolean isRecyclingBuffers() {
+    return recycleBuffers;
+  }
+
+  /**
+   * @return {@code true} if messages from publishers in the same process are
+   *         received without serialization
+   */
+  public boolean isIntraProcessAllowed() {
+    return intraProcess;
+  }
+
+  @Override
+  public String toString() {
+    return "TransportHints<" + (udp ? "UDPROS, " + maxDatagramSize : "TCPROS")
+        + (recycleBuffers ? ", recycling" : "") + (intraProcess ? ", intra-process" : "") + ">";
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ros.internal.node.client;
+
+import org.ros.address.AdvertiseAddress;
+import org.ros.address.BindAddress;
+import org.ros.concurrent.DefaultScheduledExecutorService;
+import org.ros.internal.message.topic.TopicDescription;
+import org.ros.internal.node.server.NodeIdentifier;
+import org.ros.internal.node.server.master.MasterServer;
+import org.ros.internal.node.topic.PublisherDeclaration;
+import org.ros.internal.node.topic.TopicDeclaration;
+import org.ros.namespace.GraphName;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A harness which measures how many publisher registrations per second a
+ * master can take, as happens when many nodes register at once after a
+ * restart.
+ * <p>
+ * Every registration is made by a new {@link MasterClient}, once with clients
+ * which open a connection per call and once with clients sharing an
+ * {@link XmlRpcConnectionPool}.
+ * <p>
+ * Run with optional arguments {@code threads registrations-per-thread}.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class MasterRegistrationBenchmark {
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args
+   *          the optional number of registering threads and the number of
+   *          registrations each thread makes
+   *
+   * @throws Exception
+   *           the benchmark failed
+   */
+  public static void main(String[] args) throws Exception {
+    int numberThreads = (args.length > 0) ? Integer.parseInt(args[0]) : 16;
+    int registrationsPerThread = (args.length > 1) ? Integer.parseInt(args[1]) : 250;
+
+    ScheduledExecutorService executorService = new DefaultScheduledExecutorService();
+    MasterServer masterServer =
+        new MasterServer(BindAddress.newPrivate(), AdvertiseAddress.newPrivate(), executorService);
+    masterServer.start();
+    XmlRpcConnectionPool connectionPool =
+        new XmlRpcConnectionPool(XmlRpcConnectionPool.DEFAULT_MAX_CONNECTIONS_PER_HOST,
+            XmlRpcConnectionPool.DEFAULT_MAX_TOTAL_CONNECTIONS,
+            XmlRpcConnectionPool.DEFAULT_IDLE_TIMEOUT);
+    try {
+      MasterRegistrationBenchmark benchmark =
+          new MasterRegistrationBenchmark(masterServer, numberThreads, registrationsPerThread);
+      benchmark.run("warmup unpooled", null);
+      benchmark.run("warmup pooled", connectionPool);
+      benchmark.run("unpooled", null);
+      benchmark.run("pooled", connectionPool);
+      System.out.format("%d pooled connections open\n", connectionPool.getNumberConnections());
+    } finally {
+      connectionPool.shutdown();
+      masterServer.shutdown();
+      executorService.shutdown();
+    }
+  }
+
+  /**
+   * The master to register with.
+   */
+  private final MasterServer masterServer;
+
+  /**
+   * The number of threads registering at the same time.
+   */
+  private final int numberThreads;
+
+  /**
+   * The number of registrations each thread makes.
+   */
+  private final int registrationsPerThread;
+
+  /**
+   * Distinguishes the publishers of different runs.
+   */
+  private final AtomicLong publisherIds = new AtomicLong();
+
+  /**
+   * Construct a new benchmark.
+   *
+   * @param masterServer
+   *          the master to register with
+   * @param numberThreads
+   *          the number of threads registering at the same time
+   * @param registrationsPerThread
+   *          the number of registrations each thread makes
+   */
+  public MasterRegistrationBenchmark(MasterServer masterServer, int numberThreads,
+      int registrationsPerThread) {
+    this.masterServer = masterServer;
+    this.numberThreads = numberThreads;
+    this.registrationsPerThread = registrationsPerThread;
+  }
+
+  /**
+   * Make the registrations and report the results.
+   *
+   * @param name
+   *          the name of the run
+   * @param connectionPool
+   *          the pool the clients share, or {@code null} for a connection per
+   *          call
+   *
+   * @throws Exception
+   *           the run failed
+   */
+  public void run(String name, final XmlRpcConnectionPool connectionPool) throws Exception {
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(numberThreads);
+    final AtomicLong numberFailed = new AtomicLong();
+    final AtomicLong maximumLatency = new AtomicLong();
+    for (int i = 0; i < numberThreads; i++) {
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+            for (int j = 0; j < registrationsPerThread; j++) {
+              long callStart = System.nanoTime();
+              try {
+                MasterClient masterClient =
+                    new MasterClient(masterServer.getUri(), connectionPool);
+                if (!masterClient.registerPublisher(newPublisherDeclaration()).isSuccess()) {
+                  numberFailed.incrementAndGet();
+                }
+              } catch (RuntimeException e) {
+                numberFailed.incrementAndGet();
+              }
+              long latency = System.nanoTime() - callStart;
+              synchronized (maximumLatency) {
+                maximumLatency.set(Math.max(maximumLatency.get(), latency));
+              }
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            done.countDown();
+          }
+        }
+      }, "MasterRegistration-" + i).start();
+    }
+
+    long startTime = System.nanoTime();
+    start.countDown();
+    done.await();
+    long elapsed = System.nanoTime() - startTime;
+
+    long numberRegistrations = (long) numberThreads * registrationsPerThread;
+    System.out.format("%-16s %d registrations in %.1f ms, %.0f per second, %d failed,"
+        + " max latency %.1f ms\n", name, numberRegistrations, elapsed / 1e6, numberRegistrations
+        / (elapsed / 1e9), numberFailed.get(), maximumLatency.get() / 1e6);
+  }
+
+  /**
+   * @return a declaration for a publisher which hasn't been registered yet
+   */
+  private PublisherDeclaration newPublisherDeclaration() {
+    long id = publisherIds.incrementAndGet();
+    NodeIdentifier nodeIdentifier =
+        NodeIdentifier.forNameAndUri("/node" + id, "http://localhost:" + (1024 + id % 60000));
+    TopicDeclaration topicDeclaration =
+        TopicDeclaration.newFromTopicName(GraphName.of("/topic" + id % 100), new TopicDescription(
+            "std_msgs/String", "", "992ce8a1687cec8c8bd883ec73ca41d1"));
+    return PublisherDeclaration.newFromNodeIdentifier(nodeIdentifier, topicDeclaration);
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ros.internal.node.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.address.AdvertiseAddress;
+import org.ros.address.BindAddress;
+import org.ros.concurrent.DefaultScheduledExecutorService;
+import org.ros.internal.message.topic.TopicDescription;
+import org.ros.internal.node.response.Response;
+import org.ros.internal.node.server.NodeIdentifier;
+import org.ros.internal.node.server.master.MasterServer;
+import org.ros.internal.node.topic.PublisherDeclaration;
+import org.ros.internal.node.topic.TopicDeclaration;
+import org.ros.namespace.GraphName;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class XmlRpcConnectionPoolTest {
+
+  private ScheduledExecutorService executorService;
+  private MasterServer masterServer;
+  private XmlRpcConnectionPool connectionPool;
+
+  @Before
+  public void setUp() {
+    executorService = new DefaultScheduledExecutorService();
+    masterServer =
+        new MasterServer(BindAddress.newPrivate(), AdvertiseAddress.newPrivate(), executorService);
+    masterServer.start();
+    connectionPool = new XmlRpcConnectionPool(2, 16, XmlRpcConnectionPool.DEFAULT_IDLE_TIMEOUT);
+  }
+
+  @After
+  public void tearDown() {
+    connectionPool.shutdown();
+    masterServer.shutdown();
+    executorService.shutdown();
+  }
+
+  @Test
+  public void testClientSharedPerUri() {
+    URI uri = masterServer.getUri();
+    assertSame(connectionPool.getClient(uri), connectionPool.getClient(uri));
+  }
+
+  @Test
+  public void testConnectionReused() {
+    for (int i = 0; i < 10; i++) {
+      MasterClient masterClient = new MasterClient(masterServer.getUri(), connectionPool);
+      Response<List<URI>> response = masterClient.registerPublisher(newPublisherDeclaration(i));
+      assertTrue(response.isSuccess());
+    }
+    assertEquals(1, connectionPool.getNumberConnections());
+  }
+
+  @Test
+  public void testIdleConnectionsClosedOnLastRelease() {
+    MasterClient masterClient = new MasterClient(masterServer.getUri(), connectionPool);
+    assertFalse(connectionPool.isIdleConnectionTimeoutRunning());
+
+    connectionPool.acquire();
+    connectionPool.acquire();
+    assertTrue(connectionPool.isIdleConnectionTimeoutRunning());
+    assertTrue(masterClient.registerPublisher(newPublisherDeclaration(0)).isSuccess());
+    assertEquals(1, connectionPool.getNumberConnections());
+
+    connectionPool.release();
+    assertTrue(connectionPool.isIdleConnectionTimeoutRunning());
+    assertEquals(1, connectionPool.getNumberConnections());
+
+    connectionPool.release();
+    assertFalse(connectionPool.isIdleConnectionTimeoutRunning());
+    assertEquals(0, connectionPool.getNumberConnections());
+
+    // The pool is still usable once released.
+    assertTrue(masterClient.registerPublisher(newPublisherDeclaration(1)).isSuccess());
+    assertEquals(1, connectionPool.getNumberConnections());
+  }
+
+  private PublisherDeclaration newPublisherDeclaration(int index) {
+    NodeIdentifier nodeIdentifier =
+        NodeIdentifier.forNameAndUri("/node" + index, "http://localhost:" + (20000 + index));
+    TopicDeclaration topicDeclaration =
+        TopicDeclaration.newFromTopicName(GraphName.of("/topic" + index), new TopicDescription(
+            "std_msgs/String", "", "992ce8a1687cec8c8bd883ec73ca41d1"));
+    return PublisherDeclaration.newFromNodeIdentifier(nodeIdentifier, topicDeclaration);
+  }
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ros.internal.node.server.master;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.address.AdvertiseAddress;
+import org.ros.address.BindAddress;
+import org.ros.concurrent.DefaultScheduledExecutorService;
+import org.ros.namespace.GraphName;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests for the {@link PublisherUpdateNotifier} and its use by the
+ * {@link MasterServer}.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class PublisherUpdateNotifierTest {
+
+  private ScheduledExecutorService executorService;
+
+  @Before
+  public void setup() {
+    executorService = new DefaultScheduledExecutorService();
+  }
+
+  @After
+  public void cleanup() {
+    executorService.shutdownNow();
+  }
+
+  /**
+   * Updates for a topic which are queued while an update is being sent are
+   * coalesced into the latest one.
+   */
+  @Test
+  public void testCoalescing() throws Exception {
+    final CountDownLatch sending = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final List<List<URI>> sent = Lists.newCopyOnWriteArrayList();
+    PublisherUpdateNotifier notifier =
+        new PublisherUpdateNotifier(new PublisherUpdateNotifier.PublisherUpdateSender() {
+          @Override
+          public void sendPublisherUpdate(URI subscriberSlaveUri, GraphName topicName,
+              List<URI> publisherUris) throws Exception {
+            sending.countDown();
+            release.await();
+            sent.add(publisherUris);
+          }
+        }, executorService);
+
+    URI subscriber = new URI("http://subscriber:1234");
+    GraphName topic = GraphName.of("/topic");
+    notifier.publisherUpdate(subscriber, topic, uris(1));
+    assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+    notifier.publisherUpdate(subscriber, topic, uris(2));
+    notifier.publisherUpdate(subscriber, topic, uris(3));
+    notifier.publisherUpdate(subscriber, topic, uris(4));
+    assertEquals(1, notifier.getNumberPendingUpdates());
+
+    release.countDown();
+    awaitNoPendingUpdates(notifier);
+
+    assertEquals(Lists.newArrayList(uris(1), uris(4)), sent);
+  }
+
+  /**
+   * Failed updates are retried, and dropped after too many attempts.
+   */
+  @Test
+  public void testRetry() throws Exception {
+    final AtomicInteger attempts = new AtomicInteger();
+    final CountDownLatch delivered = new CountDownLatch(1);
+    PublisherUpdateNotifier notifier =
+        new PublisherUpdateNotifier(new PublisherUpdateNotifier.PublisherUpdateSender() {
+          @Override
+          public void sendPublisherUpdate(URI subscriberSlaveUri, GraphName topicName,
+              List<URI> publisherUris) throws Exception {
+            if (attempts.incrementAndGet() < 3 || subscriberSlaveUri.getPort() == 666) {
+              throw new RuntimeException("Slave not answering");
+            }
+            delivered.countDown();
+          }
+        }, executorService);
+    notifier.setRetryPolicy(4, 1, TimeUnit.MILLISECONDS);
+
+    notifier.publisherUpdate(new URI("http://subscriber:1234"), GraphName.of("/topic"), uris(1));
+    assertTrue(delivered.await(5, TimeUnit.SECONDS));
+    assertEquals(3, attempts.get());
+
+    attempts.set(10);
+    notifier.publisherUpdate(new URI("http://dead:666"), GraphName.of("/topic"), uris(1));
+    awaitNoPendingUpdates(notifier);
+    assertEquals(14, attempts.get());
+  }
+
+  /**
+   * Updates for other topics do not reset the attempts for a failing update, so
+   * a dead subscriber is not retried forever.
+   */
+  @Test
+  public void testRetryNotResetByOtherTopics() throws Exception {
+    final URI subscriber = new URI("http://dead:666");
+    final GraphName failingTopic = GraphName.of("/failing");
+    final GraphName otherTopic = GraphName.of("/other");
+    final AtomicInteger attempts = new AtomicInteger();
+    final AtomicReference<PublisherUpdateNotifier> notifierReference =
+        new AtomicReference<PublisherUpdateNotifier>();
+    PublisherUpdateNotifier notifier =
+        new PublisherUpdateNotifier(new PublisherUpdateNotifier.PublisherUpdateSender() {
+          @Override
+          public void sendPublisherUpdate(URI subscriberSlaveUri, GraphName topicName,
+              List<URI> publisherUris) throws Exception {
+            if (topicName.equals(failingTopic)) {
+              notifierReference.get().publisherUpdate(subscriber, otherTopic,
+                  uris(attempts.incrementAndGet()));
+              throw new RuntimeException("Slave not answering");
+            }
+          }
+        }, executorService);
+    notifierReference.set(notifier);
+    notifier.setRetryPolicy(4, 1, TimeUnit.MILLISECONDS);
+
+    notifier.publisherUpdate(subscriber, failingTopic, uris(1));
+    notifier.publisherUpdate(subscriber, otherTopic, uris(1));
+    awaitNoPendingUpdates(notifier);
+
+    assertEquals(4, attempts.get());
+  }
+
+  /**
+   * Cancelled updates are not sent.
+   */
+  @Test
+  public void testCancel() throws Exception {
+    final CountDownLatch sending = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final List<GraphName> sent = Lists.newCopyOnWriteArrayList();
+    PublisherUpdateNotifier notifier =
+        new PublisherUpdateNotifier(new PublisherUpdateNotifier.PublisherUpdateSender() {
+          @Override
+          public void sendPublisherUpdate(URI subscriberSlaveUri, GraphName topicName,
+              List<URI> publisherUris) throws Exception {
+            sending.countDown();
+            release.await();
+            sent.add(topicName);
+          }
+        }, executorService);
+
+    URI subscriber = new URI("http://subscriber:1234");
+    GraphName first = GraphName.of("/first");
+    GraphName second = GraphName.of("/second");
+    GraphName third = GraphName.of("/third");
+    notifier.publisherUpdate(subscriber, first, uris(1));
+    assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+    notifier.publisherUpdate(subscriber, first, uris(2));
+    notifier.publisherUpdate(subscriber, second, uris(1));
+    notifier.publisherUpdate(subscriber, third, uris(1));
+    notifier.cancel(subscriber, second);
+    assertEquals(2, notifier.getNumberPendingUpdates());
+
+    notifier.cancel(subscriber);
+    assertEquals(0, notifier.getNumberPendingUpdates());
+
+    release.countDown();
+    awaitNoPendingUpdates(notifier);
+    Thread.sleep(100);
+
+    assertEquals(Lists.newArrayList(first), sent);
+  }
+
+  /**
+   * Unregistering a subscriber drops its pending updates for the topic.
+   */
+  @Test
+  public void testUnregisterSubscriberCancelsUpdates() throws Exception {
+    final CountDownLatch sending = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger sent = new AtomicInteger();
+    URI subscriber = new URI("http://subscriber:1234");
+    GraphName topic = GraphName.of("/topic");
+    MasterServer masterServer =
+        new MasterServer(BindAddress.newPrivate(), AdvertiseAddress.newPrivate(), executorService) {
+          @Override
+          protected void contactSubscriberForPublisherUpdate(URI subscriberSlaveUri,
+              GraphName topicName, List<URI> publisherUris) {
+            sending.countDown();
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            sent.incrementAndGet();
+          }
+        };
+
+    try {
+      masterServer.registerSubscriber(GraphName.of("/subscriber"), subscriber, topic,
+          "std_msgs/String");
+      masterServer.registerPublisher(GraphName.of("/publisher1"),
+          new URI("http://publisher1:1234"), topic, "std_msgs/String");
+      assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+      masterServer.registerPublisher(GraphName.of("/publisher2"),
+          new URI("http://publisher2:1234"), topic, "std_msgs/String");
+      PublisherUpdateNotifier notifier = masterServer.getPublisherUpdateNotifier();
+      assertEquals(1, notifier.getNumberPendingUpdates());
+
+      masterServer.unregisterSubscriber(GraphName.of("/subscriber"), topic);
+      assertEquals(0, notifier.getNumberPendingUpdates());
+
+      release.countDown();
+      Thread.sleep(100);
+      assertEquals(1, sent.get());
+    } finally {
+      masterServer.getPublisherUpdateNotifier().shutdown();
+    }
+  }
+
+  /**
+   * Registering thousands of topics does not wait on a slow subscriber, and
+   * the other subscribers still get all their updates.
+   */
+  @Test
+  public void testSlowSubscriberDoesNotBlockRegistration() throws Exception {
+    final int numberTopics = 2000;
+    final URI slowSubscriber = new URI("http://slow:1234");
+    URI fastSubscriber = new URI("http://fast:1234");
+    URI publisher = new URI("http://publisher:1234");
+
+    final Map<GraphName, List<URI>> fastUpdates = Maps.newConcurrentMap();
+    final CountDownLatch fastDone = new CountDownLatch(numberTopics);
+    MasterServer masterServer =
+        new MasterServer(BindAddress.newPrivate(), AdvertiseAddress.newPrivate(), executorService) {
+          @Override
+          protected void contactSubscriberForPublisherUpdate(URI subscriberSlaveUri,
+              GraphName topicName, List<URI> publisherUris) {
+            if (subscriberSlaveUri.equals(slowSubscriber)) {
+              try {
+                Thread.sleep(1000);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            } else if (fastUpdates.put(topicName, publisherUris) == null) {
+              fastDone.countDown();
+            }
+          }
+        };
+
+    try {
+      for (int i = 0; i < numberTopics; i++) {
+        GraphName topic = GraphName.of("/topic" + i);
+        masterServer.registerSubscriber(GraphName.of("/slow"), slowSubscriber, topic, "std_msgs/String");
+        masterServer.registerSubscriber(GraphName.of("/fast"), fastSubscriber, topic, "std_msgs/String");
+      }
+
+      long start = System.currentTimeMillis();
+      for (int i = 0; i < numberTopics; i++) {
+        masterServer.registerPublisher(GraphName.of("/publisher"), publisher,
+            GraphName.of("/topic" + i), "std_msgs/String");
+      }
+      long registrationTime = System.currentTimeMillis() - start;
+
+      // Sending to the slow subscriber synchronously would take more than half
+      // an hour.
+      assertTrue("Registration took " + registrationTime + " ms", registrationTime < 5000);
+
+      assertTrue(fastDone.await(10, TimeUnit.SECONDS));
+      assertEquals(Lists.newArrayList(publisher), fastUpdates.get(GraphName.of("/topic0")));
+    } finally {
+      masterServer.getPublisherUpdateNotifier().shutdown();
+    }
+  }
+
+  /**
+   * Wait for a notifier to have sent all its updates.
+   *
+   * @param notifier
+   *          the notifier
+   */
+  private void awaitNoPendingUpdates(PublisherUpdateNotifier notifier) throws Exception {
+    long end = System.currentTimeMillis() + 5000;
+    while (notifier.getNumberPendingUpdates() > 0 && System.currentTimeMillis() < end) {
+      Thread.sleep(10);
+    }
+    assertEquals(0, notifier.getNumberPendingUpdates());
+  }
+
+  /**
+   * Create a list of publisher URIs.
+   *
+   * @param number
+   *          the number of URIs
+   *
+   * @return the URIs
+   */
+  private List<URI> uris(int number) throws Exception {
+    List<URI> uris = Lists.newArrayList();
+    for (int i = 0; i < number; i++) {
+      uris.add(new URI("http://publisher" + i + ":1234"));
+    }
+    return uris;
+  }
+}
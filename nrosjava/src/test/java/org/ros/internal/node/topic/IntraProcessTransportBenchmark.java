@@ -0,0 +1,321 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ros.internal.node.topic;
+
+import org.jboss.netty.bootstrap.ServerBootstrap;
+import org.jboss.netty.buffer.HeapChannelBufferFactory;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.SimpleChannelHandler;
+import org.jboss.netty.channel.group.DefaultChannelGroup;
+import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
+import org.ros.concurrent.DefaultScheduledExecutorService;
+import org.ros.internal.message.topic.TopicDescription;
+import org.ros.internal.node.server.NodeIdentifier;
+import org.ros.internal.node.service.ServiceManager;
+import org.ros.internal.transport.queue.IncomingMessageQueue;
+import org.ros.internal.transport.queue.OutgoingMessageQueue;
+import org.ros.internal.transport.tcp.TcpRosClientManager;
+import org.ros.internal.transport.tcp.TcpRosServerPipelineFactory;
+import org.ros.message.MessageListener;
+import org.ros.namespace.GraphName;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.InetSocketAddress;
+import java.nio.ByteOrder;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A benchmark comparing the intra-process transport with TCPROS over the
+ * loopback interface.
+ * <p>
+ * Messages are sent one at a time, each only after the previous one has been
+ * received, so the time between publishing and receiving a message is the
+ * latency of the transport. The CPU time used by the whole process is also
+ * reported.
+ * <p>
+ * Run with optional arguments {@code message-size number-of-messages}.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class IntraProcessTransportBenchmark {
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args
+   *          the optional message size in bytes and number of messages
+   *
+   * @throws Exception
+   *           the benchmark failed
+   */
+  public static void main(String[] args) throws Exception {
+    int messageSize = (args.length > 0) ? Integer.parseInt(args[0]) : 1024;
+    int numberMessages = (args.length > 1) ? Integer.parseInt(args[1]) : 20000;
+
+    IntraProcessTransportBenchmark benchmark =
+        new IntraProcessTransportBenchmark(messageSize, numberMessages);
+    try {
+      // Run everything twice so the second results are after warmup.
+      for (int i = 0; i < 2; i++) {
+        benchmark.runTcpRos();
+        benchmark.runIntraProcess();
+      }
+    } finally {
+      benchmark.shutdown();
+    }
+  }
+
+  /**
+   * The size of each message in bytes.
+   */
+  private final int messageSize;
+
+  /**
+   * The number of messages to send for each run.
+   */
+  private final int numberMessages;
+
+  /**
+   * The executor service for all queues.
+   */
+  private final ScheduledExecutorService executorService;
+
+  /**
+   * Hands received messages back to the sending thread.
+   */
+  private final SynchronousQueue<byte[]> receivedMessages;
+
+  /**
+   * Construct a new benchmark.
+   *
+   * @param messageSize
+   *          the size of each message in bytes
+   * @param numberMessages
+   *          the number of messages to send for each run
+   */
+  public IntraProcessTransportBenchmark(int messageSize, int numberMessages) {
+    this.messageSize = messageSize;
+    this.numberMessages = numberMessages;
+    executorService = new DefaultScheduledExecutorService();
+    receivedMessages = new SynchronousQueue<byte[]>();
+  }
+
+  /**
+   * Send messages through an {@link OutgoingMessageQueue} connected to an
+   * {@link IncomingMessageQueue} over loopback TCP.
+   *
+   * @throws Exception
+   *           the run failed
+   */
+  public void runTcpRos() throws Exception {
+    final OutgoingMessageQueue<byte[]> outgoingMessageQueue =
+        new OutgoingMessageQueue<byte[]>(new IntraProcessTransportTest.BytesSerializer(),
+            executorService);
+    IncomingMessageQueue<byte[]> incomingMessageQueue = newIncomingMessageQueue();
+
+    final CountDownLatch connected = new CountDownLatch(1);
+    ExecutorService serverExecutorService = Executors.newCachedThreadPool();
+    ServerBootstrap bootstrap =
+        new ServerBootstrap(new NioServerSocketChannelFactory(serverExecutorService,
+            serverExecutorService));
+    bootstrap.setOption("child.bufferFactory", new HeapChannelBufferFactory(
+        ByteOrder.LITTLE_ENDIAN));
+    bootstrap.setOption("child.tcpNoDelay", true);
+    bootstrap.setPipelineFactory(new TcpRosServerPipelineFactory(new DefaultChannelGroup(),
+        new TopicParticipantManager(), new ServiceManager()) {
+      @Override
+      public ChannelPipeline getPipeline() {
+        ChannelPipeline pipeline = super.getPipeline();
+        // Only the message transfer is of interest, not the handshake.
+        pipeline.remove(TcpRosServerPipelineFactory.HANDSHAKE_HANDLER);
+        pipeline.addLast("BenchmarkHandler", new SimpleChannelHandler() {
+          @Override
+          public void channelConnected(ChannelHandlerContext ctx, ChannelStateEvent e)
+              throws Exception {
+            outgoingMessageQueue.addChannel(e.getChannel());
+            connected.countDown();
+            super.channelConnected(ctx, e);
+          }
+        });
+        return pipeline;
+      }
+    });
+    Channel serverChannel = bootstrap.bind(new InetSocketAddress("127.0.0.1", 0));
+
+    TcpRosClientManager clientManager = new TcpRosClientManager(executorService);
+    clientManager.addNamedChannelHandler(incomingMessageQueue.getMessageReceiver());
+    clientManager.connect("benchmark", serverChannel.getLocalAddress());
+    connected.await(5, TimeUnit.SECONDS);
+
+    try {
+      run("TCPROS", new Publishable() {
+        @Override
+        public void publish(byte[] message) {
+          outgoingMessageQueue.add(message);
+        }
+      });
+    } finally {
+      clientManager.shutdown();
+      outgoingMessageQueue.shutdown();
+      incomingMessageQueue.shutdown();
+      serverChannel.close().awaitUninterruptibly();
+      bootstrap.releaseExternalResources();
+    }
+  }
+
+  /**
+   * Send messages from a {@link DefaultPublisher} directly to an
+   * {@link IncomingMessageQueue}.
+   *
+   * @throws Exception
+   *           the run failed
+   */
+  public void runIntraProcess() throws Exception {
+    TopicDeclaration topicDeclaration =
+        TopicDeclaration.newFromTopicName(GraphName.of("/benchmark"), new TopicDescription(
+            "benchmark_msgs/Bytes", "", "0123456789abcdef"));
+    final DefaultPublisher<byte[]> publisher =
+        new DefaultPublisher<byte[]>(NodeIdentifier.forNameAndUri("/publisher",
+            "http://localhost:1234"), topicDeclaration,
+            new IntraProcessTransportTest.BytesSerializer(), null, executorService);
+    IncomingMessageQueue<byte[]> incomingMessageQueue = newIncomingMessageQueue();
+    publisher.addIntraProcessSubscriber(new SubscriberIdentifier(NodeIdentifier.forNameAndUri(
+        "/subscriber", "http://localhost:5678"), topicDeclaration.getIdentifier()),
+        topicDeclaration, incomingMessageQueue);
+
+    try {
+      run("Intra-process", new Publishable() {
+        @Override
+        public void publish(byte[] message) {
+          publisher.publish(message);
+        }
+      });
+    } finally {
+      publisher.shutdown(0, TimeUnit.SECONDS);
+      incomingMessageQueue.shutdown();
+    }
+  }
+
+  /**
+   * Shut the benchmark down.
+   */
+  public void shutdown() {
+    executorService.shutdown();
+  }
+
+  /**
+   * Send all messages one at a time and report the results.
+   *
+   * @param name
+   *          the name of the transport
+   * @param publishable
+   *          sends a message
+   *
+   * @throws Exception
+   *           the run failed
+   */
+  private void run(String name, Publishable publishable) throws Exception {
+    OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+    long startCpu = getProcessCpuTime(osBean);
+    long startTime = System.nanoTime();
+
+    long totalLatency = 0;
+    long maximumLatency = 0;
+    int numberReceived = 0;
+    for (int i = 0; i < numberMessages; i++) {
+      byte[] message = new byte[messageSize];
+      long sent = System.nanoTime();
+      publishable.publish(message);
+      if (receivedMessages.poll(5, TimeUnit.SECONDS) == null) {
+        break;
+      }
+      long latency = System.nanoTime() - sent;
+      totalLatency += latency;
+      maximumLatency = Math.max(maximumLatency, latency);
+      numberReceived++;
+    }
+
+    long elapsed = System.nanoTime() - startTime;
+    long cpu = getProcessCpuTime(osBean) - startCpu;
+
+    System.out.format("%-14s %d/%d messages of %d bytes in %d ms, mean latency %.1f us,"
+        + " max latency %.1f us, CPU %s\n", name, numberReceived, numberMessages, messageSize,
+        TimeUnit.NANOSECONDS.toMillis(elapsed), (numberReceived > 0) ? totalLatency
+            / numberReceived / 1000.0 : 0.0, maximumLatency / 1000.0,
+        (cpu >= 0) ? String.format("%d ms", TimeUnit.NANOSECONDS.toMillis(cpu)) : "unavailable");
+  }
+
+  /**
+   * Create a queue which hands its messages to {@link #receivedMessages}.
+   *
+   * @return the queue
+   */
+  private IncomingMessageQueue<byte[]> newIncomingMessageQueue() {
+    IncomingMessageQueue<byte[]> incomingMessageQueue =
+        new IncomingMessageQueue<byte[]>(new IntraProcessTransportTest.BytesSerializer(),
+            executorService);
+    incomingMessageQueue.addListener(new MessageListener<byte[]>() {
+      @Override
+      public void onNewMessage(byte[] message) {
+        try {
+          receivedMessages.put(message);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }, 1);
+
+    return incomingMessageQueue;
+  }
+
+  /**
+   * Get the CPU time used by the process.
+   *
+   * @param osBean
+   *          the operating system bean
+   *
+   * @return the CPU time in nanoseconds, or {@code -1} if not available
+   */
+  private long getProcessCpuTime(OperatingSystemMXBean osBean) {
+    if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
+      return ((com.sun.management.OperatingSystemMXBean) osBean).getProcessCpuTime();
+    }
+
+    return -1;
+  }
+
+  /**
+   * Sends a message over a transport.
+   */
+  private interface Publishable {
+
+    /**
+     * @param message
+     *          the message to send
+     */
+    void publish(byte[] message);
+  }
+}
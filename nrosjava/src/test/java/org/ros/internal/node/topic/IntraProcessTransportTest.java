@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ros.internal.node.topic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Lists;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.concurrent.DefaultScheduledExecutorService;
+import org.ros.internal.message.topic.TopicDescription;
+import org.ros.internal.node.server.NodeIdentifier;
+import org.ros.internal.transport.ProtocolNames;
+import org.ros.internal.transport.queue.IncomingMessageQueue;
+import org.ros.message.MessageDeserializer;
+import org.ros.message.MessageListener;
+import org.ros.message.MessageSerializer;
+import org.ros.namespace.GraphName;
+import org.ros.node.topic.TransportHints;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for handing messages from a {@link DefaultPublisher} directly to a
+ * subscriber in the same process.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class IntraProcessTransportTest {
+
+  private static final String MESSAGE_TYPE = "test_msgs/Bytes";
+
+  private static final String MD5_CHECKSUM = "0123456789abcdef";
+
+  private ScheduledExecutorService executorService;
+
+  private DefaultPublisher<byte[]> publisher;
+
+  private IncomingMessageQueue<byte[]> incomingMessageQueue;
+
+  private BlockingQueue<byte[]> received;
+
+  @Before
+  public void setup() {
+    executorService = new DefaultScheduledExecutorService();
+    publisher =
+        new DefaultPublisher<byte[]>(NodeIdentifier.forNameAndUri("/publisher",
+            "http://localhost:1234"), newTopicDeclaration(MESSAGE_TYPE), new BytesSerializer(),
+            null, executorService);
+    incomingMessageQueue = new IncomingMessageQueue<byte[]>(new BytesSerializer(), executorService);
+    received = new LinkedBlockingQueue<byte[]>();
+    incomingMessageQueue.addListener(new MessageListener<byte[]>() {
+      @Override
+      public void onNewMessage(byte[] message) {
+        received.add(message);
+      }
+    }, 10);
+  }
+
+  @After
+  public void cleanup() {
+    publisher.shutdown(0, TimeUnit.SECONDS);
+    incomingMessageQueue.shutdown();
+    executorService.shutdown();
+  }
+
+  /**
+   * Test that a subscriber receives the very instance which was published.
+   */
+  @Test
+  public void testMessageHandedOver() throws Exception {
+    assertTrue(publisher.addIntraProcessSubscriber(newSubscriberIdentifier(),
+        newTopicDeclaration(MESSAGE_TYPE), incomingMessageQueue));
+    assertEquals(1, publisher.getNumberOfSubscribers());
+
+    byte[] message = new byte[] { 1, 2, 3 };
+    publisher.publish(message);
+
+    assertSame(message, received.poll(3, TimeUnit.SECONDS));
+  }
+
+  /**
+   * Test that a subscriber for a different message type is refused.
+   */
+  @Test
+  public void testOtherMessageTypeRefused() throws Exception {
+    assertFalse(publisher.addIntraProcessSubscriber(newSubscriberIdentifier(),
+        newTopicDeclaration("test_msgs/OtherBytes"), incomingMessageQueue));
+    assertFalse(publisher.hasSubscribers());
+  }
+
+  /**
+   * Test that a new subscriber to a latched publisher gets the last message.
+   */
+  @Test
+  public void testLatchedMessage() throws Exception {
+    publisher.setLatchMode(true);
+    byte[] message = new byte[] { 4, 5, 6 };
+    publisher.publish(message);
+
+    publisher.addIntraProcessSubscriber(newSubscriberIdentifier(),
+        newTopicDeclaration(MESSAGE_TYPE), incomingMessageQueue);
+
+    assertSame(message, received.poll(3, TimeUnit.SECONDS));
+    assertTrue(incomingMessageQueue.getLatchMode());
+  }
+
+  /**
+   * Test that a removed subscriber no longer receives messages.
+   */
+  @Test
+  public void testSubscriberRemoved() throws Exception {
+    publisher.addIntraProcessSubscriber(newSubscriberIdentifier(),
+        newTopicDeclaration(MESSAGE_TYPE), incomingMessageQueue);
+    publisher.removeIntraProcessSubscriber(incomingMessageQueue);
+
+    publisher.publish(new byte[] { 7 });
+
+    assertEquals(null, received.poll(200, TimeUnit.MILLISECONDS));
+    assertFalse(publisher.hasSubscribers());
+  }
+
+  /**
+   * Test that the intra-process protocol is only requested when the
+   * subscriber asks for it.
+   */
+  @Test
+  public void testIntraProcessOptIn() {
+    assertEquals(Lists.newArrayList(ProtocolNames.TCPROS),
+        UpdatePublisherRunnable.getRequestedProtocols(new TransportHints()));
+    assertEquals(Lists.newArrayList(ProtocolNames.UDPROS, ProtocolNames.TCPROS),
+        UpdatePublisherRunnable.getRequestedProtocols(new TransportHints().udp()));
+    assertEquals(Lists.newArrayList(ProtocolNames.INTRAPROCESS, ProtocolNames.TCPROS),
+        UpdatePublisherRunnable.getRequestedProtocols(new TransportHints().intraProcess()));
+    assertEquals(
+        Lists.newArrayList(ProtocolNames.INTRAPROCESS, ProtocolNames.UDPROS, ProtocolNames.TCPROS),
+        UpdatePublisherRunnable.getRequestedProtocols(new TransportHints().intraProcess().udp()));
+  }
+
+  private TopicDeclaration newTopicDeclaration(String messageType) {
+    return TopicDeclaration.newFromTopicName(GraphName.of("/foo"), new TopicDescription(
+        messageType, "", MD5_CHECKSUM));
+  }
+
+  private SubscriberIdentifier newSubscriberIdentifier() {
+    return new SubscriberIdentifier(NodeIdentifier.forNameAndUri("/subscriber",
+        "http://localhost:5678"), new TopicIdentifier(GraphName.of("/foo")));
+  }
+
+  /**
+   * Serializes messages which are just an array of bytes.
+   */
+  static class BytesSerializer implements MessageSerializer<byte[]>, MessageDeserializer<byte[]> {
+
+    @Override
+    public ChannelBuffer serialize(byte[] message) {
+      return ChannelBuffers.wrappedBuffer(message);
+    }
+
+    @Override
+    public void serialize(byte[] message, ChannelBuffer buffer) {
+      buffer.writeBytes(message);
+    }
+
+    @Override
+    public byte[] deserialize(ChannelBuffer buffer) {
+      byte[] message = new byte[buffer.readableBytes()];
+      buffer.readBytes(message);
+      return message;
+    }
+  }
+}
@@ -30,10 +30,17 @@ import org.ros.internal.node.response.StatusCode;
 import org.ros.internal.node.server.ServerException;
 import org.ros.internal.node.server.SlaveServer;
 import org.ros.internal.node.topic.DefaultPublisher;
+import org.ros.internal.node.topic.IntraProcessPublisherRegistry;
+import org.ros.internal.transport.ConnectionHeader;
+import org.ros.internal.transport.ConnectionHeaderFields;
+import org.ros.internal.transport.IntraProcessProtocolDescription;
 import org.ros.internal.transport.ProtocolNames;
 import org.ros.internal.transport.tcp.TcpRosProtocolDescription;
+import org.ros.internal.transport.udp.UdpRosProtocolDescription;
+import org.ros.internal.transport.udp.UdpRosRequest;
 import org.ros.namespace.GraphName;
 
+import java.net.InetSocketAddress;
 import java.util.List;
 
 /**
@@ -83,6 +90,65 @@ public class SlaveImplTest {
     assertEquals(response.get(2), protocol.toList());
   }
 
+  @Test
+  public void testRequestTopicIntraProcess() throws ServerException {
+    SlaveServer mockSlave = mock(SlaveServer.class);
+    AdvertiseAddress address = AdvertiseAddress.newPrivate();
+    address.setStaticPort(1234);
+    IntraProcessProtocolDescription protocol = new IntraProcessProtocolDescription(address);
+    when(
+        mockSlave.requestTopic(Matchers.<String>any(),
+            Matchers.eq(Sets.newHashSet(ProtocolNames.INTRAPROCESS, ProtocolNames.TCPROS)))).thenReturn(protocol);
+    SlaveXmlRpcEndpointImpl slave = new SlaveXmlRpcEndpointImpl(mockSlave);
+    Object[][] protocols =
+        new Object[][] { { ProtocolNames.INTRAPROCESS, IntraProcessPublisherRegistry.PROCESS_ID },
+            { ProtocolNames.TCPROS } };
+    List<Object> response = slave.requestTopic("/foo", "/bar", protocols);
+    assertEquals(response.get(0), StatusCode.SUCCESS.toInt());
+    assertEquals(response.get(2), protocol.toList());
+  }
+
+  @Test
+  public void testRequestTopicIntraProcessOtherProcess() throws ServerException {
+    SlaveServer mockSlave = mock(SlaveServer.class);
+    AdvertiseAddress address = AdvertiseAddress.newPrivate();
+    address.setStaticPort(1234);
+    TcpRosProtocolDescription protocol = new TcpRosProtocolDescription(address);
+    when(
+        mockSlave.requestTopic(Matchers.<String>any(),
+            Matchers.eq(Sets.newHashSet(ProtocolNames.TCPROS)))).thenReturn(protocol);
+    SlaveXmlRpcEndpointImpl slave = new SlaveXmlRpcEndpointImpl(mockSlave);
+    Object[][] protocols =
+        new Object[][] { { ProtocolNames.INTRAPROCESS, "some other process" },
+            { ProtocolNames.TCPROS } };
+    List<Object> response = slave.requestTopic("/foo", "/bar", protocols);
+    assertEquals(response.get(0), StatusCode.SUCCESS.toInt());
+    assertEquals(response.get(2), protocol.toList());
+  }
+
+  @Test
+  public void testRequestTopicUdpRos() throws ServerException {
+    SlaveServer mockSlave = mock(SlaveServer.class);
+    AdvertiseAddress address = AdvertiseAddress.newPrivate();
+    address.setStaticPort(1234);
+    UdpRosProtocolDescription protocol =
+        new UdpRosProtocolDescription(address, 1, 1500, new byte[] { 1, 2, 3 });
+    when(
+        mockSlave.requestTopic(Matchers.<String>any(),
+            Matchers.eq(Sets.newHashSet(ProtocolNames.UDPROS, ProtocolNames.TCPROS)),
+            Matchers.<UdpRosRequest>any())).thenReturn(protocol);
+    SlaveXmlRpcEndpointImpl slave = new SlaveXmlRpcEndpointImpl(mockSlave);
+    ConnectionHeader header = new ConnectionHeader();
+    header.addField(ConnectionHeaderFields.CALLER_ID, "/foo");
+    UdpRosRequest request =
+        new UdpRosRequest(header, new InetSocketAddress("localhost", 4321), 1500);
+    Object[] protocols = new Object[] { request.toProtocolParameters(),
+        new Object[] { ProtocolNames.TCPROS } };
+    List<Object> response = slave.requestTopic("/foo", "/bar", protocols);
+    assertEquals(response.get(0), StatusCode.SUCCESS.toInt());
+    assertEquals(response.get(2), protocol.toList());
+  }
+
   @Test
   public void testGetPid() {
     SlaveServer mockSlave = mock(SlaveServer.class);
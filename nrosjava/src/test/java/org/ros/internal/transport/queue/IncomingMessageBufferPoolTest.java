@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ros.internal.transport.queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.concurrent.DefaultScheduledExecutorService;
+import org.ros.concurrent.MessageBlockingQueue;
+import org.ros.concurrent.MessageBlockingQueueFactory;
+import org.ros.message.MessageDeserializer;
+import org.ros.message.MessageListener;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class IncomingMessageBufferPoolTest {
+
+  private ExecutorService executorService;
+
+  @Before
+  public void before() {
+    executorService = new DefaultScheduledExecutorService();
+  }
+
+  @After
+  public void after() {
+    executorService.shutdown();
+  }
+
+  @Test
+  public void testSizeClasses() {
+    IncomingMessageBufferPool pool = new IncomingMessageBufferPool(true);
+    assertEquals(256, pool.acquire(1).capacity());
+    assertEquals(256, pool.acquire(256).capacity());
+    assertEquals(512, pool.acquire(257).capacity());
+    assertEquals(1 << 24, pool.acquire(1 << 24).capacity());
+
+    ChannelBuffer huge = pool.acquire((1 << 24) + 1);
+    assertFalse(huge instanceof PooledChannelBuffer);
+    assertEquals((1 << 24) + 1, huge.capacity());
+    assertEquals(5, pool.getNumberAllocations());
+  }
+
+  @Test
+  public void testRecycling() {
+    IncomingMessageBufferPool pool = new IncomingMessageBufferPool(true);
+    PooledChannelBuffer buffer = (PooledChannelBuffer) pool.acquire(100);
+    buffer.writeInt(42);
+    buffer.retain(1);
+    buffer.release();
+    assertNotSame(buffer, pool.acquire(100));
+
+    buffer.release();
+    assertEquals(0, buffer.getReferenceCount());
+    assertEquals(1, pool.getNumberRecycled());
+    PooledChannelBuffer reused = (PooledChannelBuffer) pool.acquire(200);
+    assertSame(buffer, reused);
+    assertEquals(1, reused.getReferenceCount());
+    assertEquals(0, reused.readableBytes());
+    assertEquals(2, pool.getNumberAllocations());
+    assertEquals(3, pool.getNumberAcquisitions());
+  }
+
+  @Test
+  public void testNoRecycling() {
+    IncomingMessageBufferPool pool = new IncomingMessageBufferPool(false);
+    PooledChannelBuffer buffer = (PooledChannelBuffer) pool.acquire(100);
+    buffer.release();
+    assertNotSame(buffer, pool.acquire(100));
+    assertEquals(0, pool.getNumberRecycled());
+    assertEquals(2, pool.getNumberAllocations());
+  }
+
+  @Test
+  public void testFreeListBounded() {
+    IncomingMessageBufferPool pool = new IncomingMessageBufferPool(true, 1);
+    PooledChannelBuffer buffer1 = (PooledChannelBuffer) pool.acquire(100);
+    PooledChannelBuffer buffer2 = (PooledChannelBuffer) pool.acquire(100);
+    buffer1.release();
+    buffer2.release();
+    assertEquals(1, pool.getNumberRecycled());
+  }
+
+  @Test
+  public void testReleaseTooOften() {
+    IncomingMessageBufferPool pool = new IncomingMessageBufferPool(true);
+    PooledChannelBuffer buffer = (PooledChannelBuffer) pool.acquire(100);
+    buffer.release();
+    try {
+      buffer.release();
+      fail();
+    } catch (IllegalStateException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testReleasedAfterAllListeners() throws InterruptedException {
+    IncomingMessageBufferPool pool = new IncomingMessageBufferPool(true);
+    MessageBlockingQueue<LazyMessage<Integer>> lazyMessages =
+        MessageBlockingQueueFactory.newMessageBlockingQueue(8, false);
+    MessageDeserializer<Integer> deserializer = new MessageDeserializer<Integer>() {
+      @Override
+      public Integer deserialize(ChannelBuffer buffer) {
+        return buffer.readInt();
+      }
+    };
+    MessageDispatcher<Integer> messageDispatcher =
+        new MessageDispatcher<Integer>(lazyMessages, executorService);
+    final CountDownLatch latch = new CountDownLatch(4);
+    for (int i = 0; i < 2; i++) {
+      messageDispatcher.addListener(new MessageListener<Integer>() {
+        @Override
+        public void onNewMessage(Integer message) {
+          latch.countDown();
+        }
+      }, 8);
+    }
+    executorService.execute(messageDispatcher);
+
+    PooledChannelBuffer first = (PooledChannelBuffer) pool.acquire(4);
+    first.writeInt(1);
+    lazyMessages.put(new LazyMessage<Integer>(first, deserializer));
+    // Only the latched reference should remain once both listeners are done.
+    assertTrue(waitForReferenceCount(first, 1));
+    assertEquals(0, pool.getNumberRecycled());
+
+    PooledChannelBuffer second = (PooledChannelBuffer) pool.acquire(4);
+    second.writeInt(2);
+    lazyMessages.put(new LazyMessage<Integer>(second, deserializer));
+    assertTrue(latch.await(1, TimeUnit.SECONDS));
+    assertTrue(waitForReferenceCount(first, 0));
+    assertTrue(waitForReferenceCount(second, 1));
+    assertEquals(1, pool.getNumberRecycled());
+
+    messageDispatcher.cancel();
+  }
+
+  private boolean waitForReferenceCount(PooledChannelBuffer buffer, int referenceCount)
+      throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 1000;
+    while (buffer.getReferenceCount() != referenceCount) {
+      if (System.currentTimeMillis() > deadline) {
+        return false;
+      }
+      Thread.sleep(1);
+    }
+    return true;
+  }
+}
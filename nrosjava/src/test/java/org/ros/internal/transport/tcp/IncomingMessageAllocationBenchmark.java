@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ros.internal.transport.tcp;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.ros.concurrent.DefaultScheduledExecutorService;
+import org.ros.internal.transport.queue.IncomingMessageBufferPool;
+import org.ros.internal.transport.queue.IncomingMessageQueue;
+import org.ros.message.MessageDeserializer;
+import org.ros.message.MessageListener;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A harness which streams TCPROS frames over the loopback interface into a
+ * subscriber's incoming message queue and reports how much memory the JVM
+ * allocated per message.
+ * <p>
+ * Each run is made without a buffer pool, where every frame is decoded into a
+ * new buffer and then copied again by the message receiver, with a pool which
+ * doesn't recycle, and with a recycling pool. The sender keeps at most
+ * {@link #WINDOW} messages in flight, as a publisher would with a subscriber
+ * which keeps up.
+ * <p>
+ * Allocations are measured with the per thread allocation counters of the
+ * HotSpot {@code ThreadMXBean} summed over all live threads, so they include
+ * the sending thread and the listener threads.
+ * <p>
+ * Run with optional arguments {@code message-size number-of-messages}.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class IncomingMessageAllocationBenchmark {
+
+  /**
+   * The maximum number of messages sent but not yet handled by the listener.
+   */
+  private static final int WINDOW = 8;
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args
+   *          the optional message size in bytes and number of messages per run
+   *
+   * @throws Exception
+   *           the benchmark failed
+   */
+  public static void main(String[] args) throws Exception {
+    int messageSize = (args.length > 0) ? Integer.parseInt(args[0]) : 64 * 1024;
+    int numberMessages = (args.length > 1) ? Integer.parseInt(args[1]) : 5000;
+
+    IncomingMessageAllocationBenchmark benchmark =
+        new IncomingMessageAllocationBenchmark(messageSize, numberMessages);
+    try {
+      for (int i = 0; i < 2; i++) {
+        String prefix = (i == 0) ? "warmup " : "";
+        benchmark.run(prefix + "copy", null);
+        benchmark.run(prefix + "pooled", new IncomingMessageBufferPool(false));
+        benchmark.run(prefix + "recycled", new IncomingMessageBufferPool(true));
+      }
+    } finally {
+      benchmark.shutdown();
+    }
+  }
+
+  /**
+   * The size of each message in bytes.
+   */
+  private final int messageSize;
+
+  /**
+   * The number of messages sent in each run.
+   */
+  private final int numberMessages;
+
+  /**
+   * The executor service for the transport.
+   */
+  private final ScheduledExecutorService executorService;
+
+  /**
+   * Construct a new benchmark.
+   *
+   * @param messageSize
+   *          the size of each message in bytes
+   * @param numberMessages
+   *          the number of messages sent in each run
+   */
+  public IncomingMessageAllocationBenchmark(int messageSize, int numberMessages) {
+    this.messageSize = messageSize;
+    this.numberMessages = numberMessages;
+    executorService = new DefaultScheduledExecutorService();
+  }
+
+  /**
+   * Stream the messages and report the results.
+   *
+   * @param name
+   *          the name of the run
+   * @param bufferPool
+   *          the pool to decode frames into, or {@code null} for none
+   *
+   * @throws Exception
+   *           the run failed
+   */
+  public void run(String name, IncomingMessageBufferPool bufferPool) throws Exception {
+    final ServerSocket serverSocket = new ServerSocket(0);
+    final Semaphore window = new Semaphore(WINDOW);
+    Thread sender = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          Socket socket = serverSocket.accept();
+          OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024);
+          byte[] length =
+              new byte[] { (byte) messageSize, (byte) (messageSize >> 8),
+                  (byte) (messageSize >> 16), (byte) (messageSize >> 24) };
+          byte[] payload = new byte[messageSize];
+          for (int i = 0; i < numberMessages; i++) {
+            window.acquire();
+            payload[0] = (byte) i;
+            out.write(length);
+            out.write(payload);
+            out.flush();
+          }
+        } catch (Exception e) {
+          e.printStackTrace();
+        }
+      }
+    }, "IncomingMessageAllocationSender");
+    sender.start();
+
+    IncomingMessageQueue<ChannelBuffer> incomingMessageQueue =
+        new IncomingMessageQueue<ChannelBuffer>(new BufferDeserializer(), executorService);
+    final CountDownLatch received = new CountDownLatch(numberMessages);
+    final AtomicLong checksum = new AtomicLong();
+    incomingMessageQueue.addListener(new MessageListener<ChannelBuffer>() {
+      @Override
+      public void onNewMessage(ChannelBuffer message) {
+        checksum.addAndGet(message.getByte(message.readerIndex()));
+        received.countDown();
+        window.release();
+      }
+    }, 2 * WINDOW);
+    TcpRosClientManager clientManager = new TcpRosClientManager(executorService, bufferPool);
+    clientManager.addNamedChannelHandler(incomingMessageQueue.getMessageReceiver());
+
+    long allocatedBefore = getAllocatedBytes();
+    long start = System.nanoTime();
+    try {
+      clientManager.connect(name, serverSocket.getLocalSocketAddress());
+      if (!received.await(60, TimeUnit.SECONDS)) {
+        System.out.format("%-16s timed out with %d messages outstanding\n", name,
+            received.getCount());
+      }
+    } finally {
+      long elapsed = System.nanoTime() - start;
+      long allocated = getAllocatedBytes() - allocatedBefore;
+      sender.join();
+      clientManager.shutdown();
+      incomingMessageQueue.shutdown();
+      serverSocket.close();
+
+      System.out.format("%-16s %.1f ms, %.1f MB allocated, %.0f bytes per %d byte message%s\n",
+          name, elapsed / 1e6, allocated / (1024.0 * 1024.0), (double) allocated
+              / numberMessages, messageSize, (bufferPool != null) ? ", " + bufferPool : "");
+    }
+  }
+
+  /**
+   * Shut the benchmark down.
+   */
+  public void shutdown() {
+    executorService.shutdown();
+  }
+
+  /**
+   * @return the number of bytes allocated so far by all live threads
+   */
+  private long getAllocatedBytes() {
+    com.sun.management.ThreadMXBean threadMxBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long total = 0;
+    for (long allocated : threadMxBean.getThreadAllocatedBytes(threadMxBean.getAllThreadIds())) {
+      if (allocated > 0) {
+        total += allocated;
+      }
+    }
+
+    return total;
+  }
+
+  /**
+   * Hands out message buffers as they are.
+   */
+  private static class BufferDeserializer implements MessageDeserializer<ChannelBuffer> {
+
+    @Override
+    public ChannelBuffer deserialize(ChannelBuffer buffer) {
+      return buffer;
+    }
+  }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ros.internal.transport.udp;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.ros.address.AdvertiseAddress;
+import org.ros.address.BindAddress;
+import org.ros.concurrent.DefaultScheduledExecutorService;
+import org.ros.internal.transport.queue.IncomingMessageQueue;
+import org.ros.internal.transport.queue.OutgoingMessageQueue;
+import org.ros.message.MessageDeserializer;
+import org.ros.message.MessageListener;
+import org.ros.message.MessageSerializer;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteOrder;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A harness which sends a fixed rate stream of messages over UDPROS on the
+ * loopback interface and reports the jitter and loss of the stream, first on
+ * an idle machine and then while other threads keep the CPUs busy.
+ * <p>
+ * Every message carries a sequence number and the time it was published.
+ * Jitter is the smoothed variation of the transit time between consecutive
+ * messages, calculated as in RFC 3550. Messages are lost either because the
+ * socket dropped some of their datagrams, in which case the reassembler counts
+ * them as dropped, or because the receiving queue fell behind.
+ * <p>
+ * Run with optional arguments
+ * {@code message-size rate-in-hz seconds load-threads max-datagram-size}.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class UdpRosLoopbackBenchmark {
+
+  /**
+   * The size of the sequence number and timestamp at the start of a message.
+   */
+  private static final int MESSAGE_HEADER_SIZE = 16;
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args
+   *          the optional message size in bytes, message rate, run length in
+   *          seconds, number of load threads and maximum datagram size
+   *
+   * @throws Exception
+   *           the benchmark failed
+   */
+  public static void main(String[] args) throws Exception {
+    int messageSize = (args.length > 0) ? Integer.parseInt(args[0]) : 16 * 1024;
+    int rate = (args.length > 1) ? Integer.parseInt(args[1]) : 500;
+    int seconds = (args.length > 2) ? Integer.parseInt(args[2]) : 5;
+    int loadThreads =
+        (args.length > 3) ? Integer.parseInt(args[3]) : Runtime.getRuntime()
+            .availableProcessors() * 2;
+    int maxDatagramSize =
+        (args.length > 4) ? Integer.parseInt(args[4]) : UdpRosDatagrams.DEFAULT_MAX_DATAGRAM_SIZE;
+
+    UdpRosLoopbackBenchmark benchmark =
+        new UdpRosLoopbackBenchmark(Math.max(MESSAGE_HEADER_SIZE, messageSize), rate,
+            maxDatagramSize);
+    try {
+      benchmark.run("warmup", seconds, 0);
+      benchmark.run("idle", seconds, 0);
+      benchmark.run(String.format("%d load threads", loadThreads), seconds, loadThreads);
+    } finally {
+      benchmark.shutdown();
+    }
+  }
+
+  /**
+   * The size of each message in bytes.
+   */
+  private final int messageSize;
+
+  /**
+   * The number of messages to send per second.
+   */
+  private final int rate;
+
+  /**
+   * The maximum datagram size of the connection.
+   */
+  private final int maxDatagramSize;
+
+  /**
+   * The executor service for the transport.
+   */
+  private final ScheduledExecutorService executorService;
+
+  /**
+   * Construct a new benchmark.
+   *
+   * @param messageSize
+   *          the size of each message in bytes
+   * @param rate
+   *          the number of messages to send per second
+   * @param maxDatagramSize
+   *          the maximum datagram size of the connection
+   */
+  public UdpRosLoopbackBenchmark(int messageSize, int rate, int maxDatagramSize) {
+    this.messageSize = messageSize;
+    this.rate = rate;
+    this.maxDatagramSize = maxDatagramSize;
+    executorService = new DefaultScheduledExecutorService();
+  }
+
+  /**
+   * Send a stream of messages and report the results.
+   *
+   * @param name
+   *          the name of the run
+   * @param seconds
+   *          how long to send for
+   * @param loadThreads
+   *          the number of threads to keep busy while sending
+   *
+   * @throws Exception
+   *           the run failed
+   */
+  public void run(String name, int seconds, int loadThreads) throws Exception {
+    UdpRosServer server =
+        new UdpRosServer(BindAddress.newPrivate(), AdvertiseAddress.newPrivate(), executorService);
+    server.start();
+    OutgoingMessageQueue<ChannelBuffer> outgoingMessageQueue =
+        new OutgoingMessageQueue<ChannelBuffer>(new BufferSerializer(), executorService);
+    IncomingMessageQueue<ChannelBuffer> incomingMessageQueue =
+        new IncomingMessageQueue<ChannelBuffer>(new BufferSerializer(), executorService);
+    StreamStatistics statistics = new StreamStatistics();
+    incomingMessageQueue.addListener(statistics, 1024);
+    UdpRosClientManager clientManager = new UdpRosClientManager(executorService);
+    clientManager.addNamedChannelHandler(incomingMessageQueue.getMessageReceiver());
+
+    UdpRosClient client = clientManager.newClient(maxDatagramSize);
+    UdpRosPublisherConnection connection =
+        server.newConnection(new InetSocketAddress("127.0.0.1", client.getPort()),
+            client.getMaxDatagramSize());
+    client.connect(connection.getConnectionId(), server.getAdvertiseAddress()
+        .toInetSocketAddress());
+    outgoingMessageQueue.addDatagramConnection(connection);
+
+    AtomicBoolean loadRunning = new AtomicBoolean(true);
+    Thread[] load = startLoad(loadThreads, loadRunning);
+    long numberSent = 0;
+    try {
+      long period = TimeUnit.SECONDS.toNanos(1) / rate;
+      long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+      long next = System.nanoTime();
+      while (next < end) {
+        LockSupport.parkNanos(next - System.nanoTime());
+        ChannelBuffer message = ChannelBuffers.buffer(ByteOrder.LITTLE_ENDIAN, messageSize);
+        message.writeLong(numberSent);
+        message.writeLong(System.nanoTime());
+        message.writerIndex(messageSize);
+        outgoingMessageQueue.add(message);
+        numberSent++;
+        next += period;
+      }
+
+      // Let the last messages arrive.
+      Thread.sleep(500);
+    } finally {
+      loadRunning.set(false);
+      for (Thread thread : load) {
+        thread.join();
+      }
+      clientManager.shutdown();
+      outgoingMessageQueue.shutdown();
+      incomingMessageQueue.shutdown();
+      server.shutdown();
+    }
+
+    UdpRosReassembler reassembler = client.getReassembler();
+    statistics.report(name, numberSent, reassembler.getNumberDroppedMessages());
+  }
+
+  /**
+   * Shut the benchmark down.
+   */
+  public void shutdown() {
+    executorService.shutdown();
+  }
+
+  /**
+   * Start threads which keep the CPUs busy.
+   *
+   * @param numberThreads
+   *          the number of threads to start
+   * @param running
+   *          the threads stop once this is {@code false}
+   *
+   * @return the threads
+   */
+  private Thread[] startLoad(int numberThreads, final AtomicBoolean running) {
+    Thread[] threads = new Thread[numberThreads];
+    for (int i = 0; i < numberThreads; i++) {
+      threads[i] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          double value = 1.0;
+          while (running.get()) {
+            for (int j = 0; j < 100000; j++) {
+              value = Math.sqrt(value + j);
+            }
+          }
+          if (value < 0) {
+            System.out.println(value);
+          }
+        }
+      }, "UdpRosLoad-" + i);
+      threads[i].start();
+    }
+
+    return threads;
+  }
+
+  /**
+   * Serializes messages which are already serialized.
+   */
+  private static class BufferSerializer implements MessageSerializer<ChannelBuffer>,
+      MessageDeserializer<ChannelBuffer> {
+
+    @Override
+    public ChannelBuffer serialize(ChannelBuffer message) {
+      return message.duplicate();
+    }
+
+    @Override
+    public void serialize(ChannelBuffer message, ChannelBuffer buffer) {
+      buffer.writeBytes(message, message.readerIndex(), message.readableBytes());
+    }
+
+    @Override
+    public ChannelBuffer deserialize(ChannelBuffer buffer) {
+      return buffer;
+    }
+  }
+
+  /**
+   * Collects the statistics of a received stream of messages.
+   */
+  private static class StreamStatistics implements MessageListener<ChannelBuffer> {
+
+    private long numberReceived;
+    private long numberOutOfOrder;
+    private long lastSequence = -1;
+    private long lastTransit = -1;
+    private double jitter;
+    private double maximumJitter;
+    private long totalTransit;
+    private long maximumTransit;
+
+    @Override
+    public synchronized void onNewMessage(ChannelBuffer message) {
+      long arrival = System.nanoTime();
+      long sequence = message.getLong(message.readerIndex());
+      long transit = arrival - message.getLong(message.readerIndex() + 8);
+
+      numberReceived++;
+      if (sequence < lastSequence) {
+        numberOutOfOrder++;
+      }
+      lastSequence = sequence;
+      if (lastTransit >= 0) {
+        jitter += (Math.abs(transit - lastTransit) - jitter) / 16.0;
+        maximumJitter = Math.max(maximumJitter, jitter);
+      }
+      lastTransit = transit;
+      totalTransit += transit;
+      maximumTransit = Math.max(maximumTransit, transit);
+    }
+
+    /**
+     * Print the statistics.
+     *
+     * @param name
+     *          the name of the run
+     * @param numberSent
+     *          the number of messages sent
+     * @param numberDropped
+     *          the number of messages dropped by the reassembler
+     */
+    public synchronized void report(String name, long numberSent, long numberDropped) {
+      System.out.format("%-16s %d/%d received, %.2f%% lost (%d incomplete), %d out of order,"
+          + " mean latency %.1f us, max latency %.1f us, jitter %.1f us, max jitter %.1f us\n",
+          name, numberReceived, numberSent, (numberSent > 0) ? 100.0
+              * (numberSent - numberReceived) / numberSent : 0.0, numberDropped,
+          numberOutOfOrder, (numberReceived > 0) ? totalTransit / numberReceived / 1000.0 : 0.0,
+          maximumTransit / 1000.0, jitter / 1000.0, maximumJitter / 1000.0);
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ros.internal.transport.udp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteOrder;
+import java.util.List;
+
+/**
+ * Tests for fragmenting messages into UDPROS datagrams and reassembling them.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class UdpRosReassemblerTest {
+
+  private static final int CONNECTION_ID = 42;
+
+  private static final int DATAGRAM_SIZE = 108;
+
+  private UdpRosReassembler reassembler;
+
+  @Before
+  public void setup() {
+    reassembler = new UdpRosReassembler();
+    reassembler.setConnectionId(CONNECTION_ID);
+  }
+
+  @Test
+  public void testFragmentHeaders() {
+    List<ChannelBuffer> datagrams =
+        UdpRosDatagrams.fragment(newMessage(250), CONNECTION_ID, 7, DATAGRAM_SIZE);
+
+    assertEquals(3, datagrams.size());
+    assertEquals(UdpRosDatagrams.OPCODE_DATA0, UdpRosDatagrams.getOpcode(datagrams.get(0)));
+    assertEquals(3, UdpRosDatagrams.getBlock(datagrams.get(0)));
+    assertEquals(UdpRosDatagrams.OPCODE_DATAN, UdpRosDatagrams.getOpcode(datagrams.get(2)));
+    assertEquals(2, UdpRosDatagrams.getBlock(datagrams.get(2)));
+    for (ChannelBuffer datagram : datagrams) {
+      assertEquals(CONNECTION_ID, UdpRosDatagrams.getConnectionId(datagram));
+      assertEquals(7, UdpRosDatagrams.getMessageId(datagram));
+    }
+    assertEquals(UdpRosDatagrams.HEADER_LENGTH + 50, datagrams.get(2).readableBytes());
+  }
+
+  @Test
+  public void testReassemble() {
+    ChannelBuffer message = newMessage(1000);
+    List<ChannelBuffer> datagrams =
+        UdpRosDatagrams.fragment(message, CONNECTION_ID, 1, DATAGRAM_SIZE);
+
+    ChannelBuffer result = null;
+    for (ChannelBuffer datagram : datagrams) {
+      assertNull(result);
+      result = reassembler.receive(datagram);
+    }
+
+    assertEquals(message, result);
+    assertEquals(1, reassembler.getNumberMessages());
+    assertEquals(0, reassembler.getNumberDroppedMessages());
+  }
+
+  @Test
+  public void testSingleDatagram() {
+    ChannelBuffer message = newMessage(10);
+    List<ChannelBuffer> datagrams =
+        UdpRosDatagrams.fragment(message, CONNECTION_ID, 1, DATAGRAM_SIZE);
+
+    assertEquals(1, datagrams.size());
+    assertEquals(message, reassembler.receive(datagrams.get(0)));
+  }
+
+  @Test
+  public void testLostDatagramDropsMessage() {
+    List<ChannelBuffer> first =
+        UdpRosDatagrams.fragment(newMessage(300), CONNECTION_ID, 1, DATAGRAM_SIZE);
+    ChannelBuffer message = newMessage(200);
+    List<ChannelBuffer> second =
+        UdpRosDatagrams.fragment(message, CONNECTION_ID, 2, DATAGRAM_SIZE);
+
+    assertNull(reassembler.receive(first.get(0)));
+    assertNull(reassembler.receive(first.get(2)));
+    // The start of the next message gives up on the incomplete one.
+    assertNull(reassembler.receive(second.get(0)));
+    // A late block of the old message must not end up in the new one.
+    assertNull(reassembler.receive(first.get(1)));
+    assertEquals(message, reassembler.receive(second.get(1)));
+
+    assertEquals(1, reassembler.getNumberMessages());
+    assertEquals(1, reassembler.getNumberDroppedMessages());
+  }
+
+  @Test
+  public void testOtherConnectionIgnored() {
+    List<ChannelBuffer> datagrams =
+        UdpRosDatagrams.fragment(newMessage(10), CONNECTION_ID + 1, 1, DATAGRAM_SIZE);
+
+    assertNull(reassembler.receive(datagrams.get(0)));
+    assertEquals(0, reassembler.getNumberDatagrams());
+  }
+
+  private ChannelBuffer newMessage(int size) {
+    ChannelBuffer message = ChannelBuffers.buffer(ByteOrder.LITTLE_ENDIAN, size);
+    for (int i = 0; i < size; i++) {
+      message.writeByte(i);
+    }
+    return message;
+  }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ros.internal.transport.udp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.address.AdvertiseAddress;
+import org.ros.address.BindAddress;
+import org.ros.concurrent.DefaultScheduledExecutorService;
+import org.ros.internal.transport.queue.IncomingMessageQueue;
+import org.ros.internal.transport.queue.OutgoingMessageQueue;
+import org.ros.message.MessageDeserializer;
+import org.ros.message.MessageListener;
+import org.ros.message.MessageSerializer;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteOrder;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for sending messages from a {@link UdpRosServer} to a
+ * {@link UdpRosClient} over the loopback interface.
+ *
+ * @author khughes@google.com (Keith M. Hughes)
+ */
+public class UdpRosTransportTest {
+
+  private ScheduledExecutorService executorService;
+
+  private UdpRosServer server;
+
+  private UdpRosClientManager clientManager;
+
+  private IncomingMessageQueue<ChannelBuffer> incomingMessageQueue;
+
+  private BlockingQueue<ChannelBuffer> received;
+
+  @Before
+  public void setup() {
+    executorService = new DefaultScheduledExecutorService();
+    server =
+        new UdpRosServer(BindAddress.newPrivate(), AdvertiseAddress.newPrivate(), executorService);
+    server.start();
+
+    received = new LinkedBlockingQueue<ChannelBuffer>();
+    incomingMessageQueue =
+        new IncomingMessageQueue<ChannelBuffer>(new MessageDeserializer<ChannelBuffer>() {
+          @Override
+          public ChannelBuffer deserialize(ChannelBuffer buffer) {
+            return buffer;
+          }
+        }, executorService);
+    incomingMessageQueue.addListener(new MessageListener<ChannelBuffer>() {
+      @Override
+      public void onNewMessage(ChannelBuffer message) {
+        received.add(message);
+      }
+    }, 16);
+
+    clientManager = new UdpRosClientManager(executorService);
+    clientManager.addNamedChannelHandler(incomingMessageQueue.getMessageReceiver());
+  }
+
+  @After
+  public void tearDown() {
+    clientManager.shutdown();
+    server.shutdown();
+    incomingMessageQueue.shutdown();
+    executorService.shutdown();
+  }
+
+  @Test
+  public void testFragmentedMessage() throws InterruptedException {
+    UdpRosClient client = clientManager.newClient(UdpRosDatagrams.DEFAULT_MAX_DATAGRAM_SIZE);
+    UdpRosPublisherConnection connection = connect(client);
+
+    ChannelBuffer message = ChannelBuffers.buffer(ByteOrder.LITTLE_ENDIAN, 10000);
+    for (int i = 0; i < message.capacity(); i++) {
+      message.writeByte(i * 31);
+    }
+    connection.write(message);
+    connection.write(message);
+
+    assertEquals(message, received.poll(5, TimeUnit.SECONDS));
+    assertEquals(message, received.poll(5, TimeUnit.SECONDS));
+    assertEquals(2, client.getReassembler().getNumberMessages());
+    assertEquals(2 * 7, client.getReassembler().getNumberDatagrams());
+  }
+
+  @Test
+  public void testOutgoingMessageQueue() throws InterruptedException {
+    OutgoingMessageQueue<ChannelBuffer> outgoingMessageQueue =
+        new OutgoingMessageQueue<ChannelBuffer>(new MessageSerializer<ChannelBuffer>() {
+          @Override
+          public ChannelBuffer serialize(ChannelBuffer message) {
+            return message.duplicate();
+          }
+
+          @Override
+          public void serialize(ChannelBuffer message, ChannelBuffer buffer) {
+            buffer.writeBytes(message, message.readerIndex(), message.readableBytes());
+          }
+        }, executorService);
+    try {
+      UdpRosClient client = clientManager.newClient(UdpRosDatagrams.DEFAULT_MAX_DATAGRAM_SIZE);
+      UdpRosPublisherConnection connection = connect(client);
+      // Connections are refused until the writer loop of the queue has started.
+      for (int i = 0; i < 100 && outgoingMessageQueue.getNumberOfDatagramConnections() == 0; i++) {
+        outgoingMessageQueue.addDatagramConnection(connection);
+        if (outgoingMessageQueue.getNumberOfDatagramConnections() == 0) {
+          Thread.sleep(10);
+        }
+      }
+      assertEquals(1, outgoingMessageQueue.getNumberOfDatagramConnections());
+
+      ChannelBuffer message = ChannelBuffers.wrappedBuffer(new byte[] { 1, 2, 3, 4 });
+      outgoingMessageQueue.add(message);
+
+      assertEquals(message, received.poll(5, TimeUnit.SECONDS));
+    } finally {
+      outgoingMessageQueue.shutdown();
+    }
+  }
+
+  @Test
+  public void testClientShutdownClosesConnection() throws InterruptedException {
+    UdpRosClient client = clientManager.newClient(UdpRosDatagrams.DEFAULT_MAX_DATAGRAM_SIZE);
+    UdpRosPublisherConnection connection = connect(client);
+    assertEquals(1, server.getNumberOfConnections());
+
+    clientManager.shutdownClient(client);
+
+    for (int i = 0; i < 100 && !connection.isClosed(); i++) {
+      Thread.sleep(50);
+    }
+    assertTrue(connection.isClosed());
+    assertEquals(0, server.getNumberOfConnections());
+  }
+
+  @Test
+  public void testIdleConnectionClosed() throws InterruptedException {
+    UdpRosServer idleServer =
+        new UdpRosServer(BindAddress.newPrivate(), AdvertiseAddress.newPrivate(), executorService,
+            200);
+    UdpRosClientManager pingingClientManager = new UdpRosClientManager(executorService, 50);
+    pingingClientManager.addNamedChannelHandler(incomingMessageQueue.getMessageReceiver());
+    idleServer.start();
+    try {
+      // This client is never told its connection, so it never sends a keep
+      // alive, just like a subscriber which has died.
+      UdpRosClient silentClient =
+          clientManager.newClient(UdpRosDatagrams.DEFAULT_MAX_DATAGRAM_SIZE);
+      UdpRosPublisherConnection silentConnection =
+          idleServer.newConnection(new InetSocketAddress("127.0.0.1", silentClient.getPort()),
+              silentClient.getMaxDatagramSize());
+
+      UdpRosClient pingingClient =
+          pingingClientManager.newClient(UdpRosDatagrams.DEFAULT_MAX_DATAGRAM_SIZE);
+      UdpRosPublisherConnection pingingConnection =
+          idleServer.newConnection(new InetSocketAddress("127.0.0.1", pingingClient.getPort()),
+              pingingClient.getMaxDatagramSize());
+      pingingClient.connect(pingingConnection.getConnectionId(), idleServer.getAdvertiseAddress()
+          .toInetSocketAddress());
+
+      for (int i = 0; i < 100 && !silentConnection.isClosed(); i++) {
+        Thread.sleep(50);
+      }
+      Thread.sleep(400);
+
+      assertTrue(silentConnection.isClosed());
+      assertFalse(pingingConnection.isClosed());
+      assertEquals(1, idleServer.getNumberOfConnections());
+    } finally {
+      pingingClientManager.shutdown();
+      idleServer.shutdown();
+    }
+  }
+
+  @Test
+  public void testKeepAliveFromOtherSourceAddress() throws InterruptedException {
+    UdpRosServer idleServer =
+        new UdpRosServer(BindAddress.newPrivate(), AdvertiseAddress.newPrivate(), executorService,
+            200);
+    UdpRosClientManager pingingClientManager = new UdpRosClientManager(executorService, 50);
+    pingingClientManager.addNamedChannelHandler(incomingMessageQueue.getMessageReceiver());
+    idleServer.start();
+    try {
+      // The subscriber advertises 127.0.0.2, but its keep alives to the
+      // server on 127.0.0.1 are sent from 127.0.0.1.
+      UdpRosClient pingingClient =
+          pingingClientManager.newClient(UdpRosDatagrams.DEFAULT_MAX_DATAGRAM_SIZE);
+      UdpRosPublisherConnection pingingConnection =
+          idleServer.newConnection(new InetSocketAddress("127.0.0.2", pingingClient.getPort()),
+              pingingClient.getMaxDatagramSize());
+      pingingClient.connect(pingingConnection.getConnectionId(), idleServer.getAdvertiseAddress()
+          .toInetSocketAddress());
+
+      Thread.sleep(800);
+      assertFalse(pingingConnection.isClosed());
+    } finally {
+      pingingClientManager.shutdown();
+      idleServer.shutdown();
+    }
+  }
+
+  @Test
+  public void testCloseFromOtherSourceAddress() throws InterruptedException {
+    UdpRosClient client = clientManager.newClient(UdpRosDatagrams.DEFAULT_MAX_DATAGRAM_SIZE);
+    UdpRosPublisherConnection connection =
+        server.newConnection(new InetSocketAddress("127.0.0.2", client.getPort()),
+            client.getMaxDatagramSize());
+    client.connect(connection.getConnectionId(), server.getAdvertiseAddress()
+        .toInetSocketAddress());
+
+    clientManager.shutdownClient(client);
+
+    for (int i = 0; i < 100 && !connection.isClosed(); i++) {
+      Thread.sleep(50);
+    }
+    assertTrue(connection.isClosed());
+  }
+
+  private UdpRosPublisherConnection connect(UdpRosClient client) {
+    UdpRosPublisherConnection connection =
+        server.newConnection(new InetSocketAddress("127.0.0.1", client.getPort()),
+            client.getMaxDatagramSize());
+    client.connect(connection.getConnectionId(), server.getAdvertiseAddress()
+        .toInetSocketAddress());
+    return connection;
+  }
+}
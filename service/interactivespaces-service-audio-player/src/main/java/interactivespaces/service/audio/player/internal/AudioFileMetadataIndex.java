@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.service.audio.player.internal;
+
+import interactivespaces.InteractiveSpacesException;
+import interactivespaces.service.audio.player.AudioTrackMetadata;
+import interactivespaces.service.audio.player.SimpleAudioTrack;
+import interactivespaces.util.data.json.JsonMapper;
+import interactivespaces.util.data.json.StandardJsonMapper;
+import interactivespaces.util.io.FileSupport;
+import interactivespaces.util.io.FileSupportImpl;
+
+import com.google.common.collect.Maps;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index of the metadata of audio files, so files only need to be parsed again when they change.
+ *
+ * <p>
+ * Entries are keyed by the absolute path of the file, and are only used while the size and modification time of the
+ * file are the same as when the entry was made. The index can be saved to a JSON file. The index is only a cache, so
+ * an index file which cannot be read is ignored and rebuilt.
+ *
+ * @author Keith M. Hughes
+ */
+public class AudioFileMetadataIndex {
+
+  /**
+   * Index entry field for the size of the file.
+   */
+  public static final String ENTRY_FIELD_SIZE = "size";
+
+  /**
+   * Index entry field for the modification time of the file.
+   */
+  public static final String ENTRY_FIELD_MODIFIED = "modified";
+
+  /**
+   * Index entry field for the track ID.
+   */
+  public static final String ENTRY_FIELD_ID = "id";
+
+  /**
+   * Index entry field for the track title.
+   */
+  public static final String ENTRY_FIELD_TITLE = "title";
+
+  /**
+   * Index entry field for the track artist.
+   */
+  public static final String ENTRY_FIELD_ARTIST = "artist";
+
+  /**
+   * Index entry field for the track album.
+   */
+  public static final String ENTRY_FIELD_ALBUM = "album";
+
+  /**
+   * File extension for the temporary file the index is written to before replacing the index file.
+   */
+  private static final String FILE_EXTENSION_TEMPORARY = ".tmp";
+
+  /**
+   * The JSON mapper.
+   */
+  private static final JsonMapper MAPPER = StandardJsonMapper.INSTANCE;
+
+  /**
+   * The file the index is saved in, can be {@code null} if the index is not saved.
+   */
+  private final File indexFile;
+
+  /**
+   * The index entries, indexed by file path.
+   */
+  private final Map<String, Object> entries = Maps.newHashMap();
+
+  /**
+   * {@code true} if the index has changed since it was loaded or saved.
+   */
+  private boolean changed;
+
+  /**
+   * The file support to use.
+   */
+  private final FileSupport fileSupport = FileSupportImpl.INSTANCE;
+
+  /**
+   * Construct a new index.
+   *
+   * @param indexFile
+   *          the file the index is saved in, can be {@code null} if the index should not be saved
+   */
+  public AudioFileMetadataIndex(File indexFile) {
+    this.indexFile = indexFile;
+  }
+
+  /**
+   * Load the index from its file, if there is one.
+   */
+  public void load() {
+    entries.clear();
+    changed = false;
+
+    if (indexFile == null || !fileSupport.exists(indexFile)) {
+      return;
+    }
+
+    try {
+      entries.putAll(MAPPER.parseObject(fileSupport.readFile(indexFile)));
+    } catch (Exception e) {
+      // Every file will be parsed again.
+      entries.clear();
+      changed = true;
+    }
+  }
+
+  /**
+   * Save the index to its file, if there is one and the index has changed.
+   */
+  public void save() {
+    if (indexFile == null || !changed) {
+      return;
+    }
+
+    File temporaryFile = fileSupport.newFile(indexFile.getParentFile(), indexFile.getName() + FILE_EXTENSION_TEMPORARY);
+    fileSupport.writeFile(temporaryFile, MAPPER.toString(entries));
+    fileSupport.delete(indexFile);
+    if (!fileSupport.rename(temporaryFile, indexFile)) {
+      throw new InteractiveSpacesException(String.format("Could not save audio metadata index %s",
+          indexFile.getAbsolutePath()));
+    }
+
+    changed = false;
+  }
+
+  /**
+   * Get the metadata for a file, if the file has not changed since it was indexed.
+   *
+   * @param file
+   *          the file
+   *
+   * @return the metadata, or {@code null} if the file is not in the index or has changed
+   */
+  public AudioTrackMetadata getMetadata(File file) {
+    Map<String, Object> entry = getCurrentEntry(file);
+    if (entry == null) {
+      return null;
+    }
+
+    return new SimpleAudioTrack((String) entry.get(ENTRY_FIELD_ID), (String) entry.get(ENTRY_FIELD_TITLE),
+        (String) entry.get(ENTRY_FIELD_ARTIST), (String) entry.get(ENTRY_FIELD_ALBUM));
+  }
+
+  /**
+   * Is the index entry for a file current?
+   *
+   * @param file
+   *          the file
+   *
+   * @return {@code true} if the file is in the index and has not changed since it was indexed
+   */
+  public boolean isCurrent(File file) {
+    return getCurrentEntry(file) != null;
+  }
+
+  /**
+   * Add the metadata for a file, replacing any it had.
+   *
+   * @param file
+   *          the file
+   * @param metadata
+   *          the metadata for the file
+   */
+  public void put(File file, AudioTrackMetadata metadata) {
+    Map<String, Object> entry = Maps.newHashMap();
+    entry.put(ENTRY_FIELD_SIZE, file.length());
+    entry.put(ENTRY_FIELD_MODIFIED, file.lastModified());
+    entry.put(ENTRY_FIELD_ID, metadata.getId());
+    entry.put(ENTRY_FIELD_TITLE, metadata.getTitle());
+    entry.put(ENTRY_FIELD_ARTIST, metadata.getArtist());
+    entry.put(ENTRY_FIELD_ALBUM, metadata.getAlbum());
+
+    entries.put(file.getAbsolutePath(), entry);
+    changed = true;
+  }
+
+  /**
+   * Remove all files from the index except for the given files.
+   *
+   * @param paths
+   *          the absolute paths of the files to keep
+   */
+  public void retainAll(Set<String> paths) {
+    changed |= entries.keySet().retainAll(paths);
+  }
+
+  /**
+   * Get the number of files in the index.
+   *
+   * @return the number of files
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Get the index entry for a file, if the file has not changed since it was indexed.
+   *
+   * @param file
+   *          the file
+   *
+   * @return the entry, or {@code null} if the file is not in the index or has changed
+   */
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> getCurrentEntry(File file) {
+    Object entry = entries.get(file.getAbsolutePath());
+    if (!(entry instanceof Map)) {
+      return null;
+    }
+
+    Map<String, Object> entryMap = (Map<String, Object>) entry;
+    Object size = entryMap.get(ENTRY_FIELD_SIZE);
+    Object modified = entryMap.get(ENTRY_FIELD_MODIFIED);
+    if (!(size instanceof Number) || !(modified instanceof Number)
+        || ((Number) size).longValue() != file.length() || ((Number) modified).longValue() != file.lastModified()) {
+      return null;
+    }
+
+    return entryMap;
+  }
+}
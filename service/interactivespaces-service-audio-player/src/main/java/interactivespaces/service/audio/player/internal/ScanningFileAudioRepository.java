@@ -24,10 +24,18 @@ import interactivespaces.service.audio.player.FilePlayableAudioTrack;
 import interactivespaces.service.audio.player.SimpleAudioTrack;
 import interactivespaces.service.audio.player.support.InMemoryAudioRepository;
 
+import com.google.common.collect.Maps;
+
+import org.apache.commons.logging.Log;
 import org.farng.mp3.MP3File;
 
 import java.io.File;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * An {@link AudioRepository} which just picks up all tracks from scanning
@@ -36,6 +44,11 @@ import java.util.Collection;
  * <p>
  * At the moment this only handles MP3 files.
  *
+ * <p>
+ * The metadata of the files is kept in an {@link AudioFileMetadataIndex}, so a file is only parsed again if its size
+ * or modification time changes. If an index file is given the index is kept between runs. The directories can also be
+ * scanned again periodically to pick up added, changed and removed files.
+ *
  * @author Keith M. Hughes
  */
 public class ScanningFileAudioRepository extends InMemoryAudioRepository {
@@ -50,6 +63,41 @@ public class ScanningFileAudioRepository extends InMemoryAudioRepository {
    */
   private Collection<File> repositoryBases;
 
+  /**
+   * The file the metadata index is kept in, can be {@code null}.
+   */
+  private File indexFile;
+
+  /**
+   * The executor service for rescans, can be {@code null}.
+   */
+  private ScheduledExecutorService executorService;
+
+  /**
+   * How often to rescan the repositories, in milliseconds.
+   */
+  private long updateCheckInterval;
+
+  /**
+   * The logger for rescans, can be {@code null}.
+   */
+  private Log log;
+
+  /**
+   * The metadata index.
+   */
+  private AudioFileMetadataIndex index;
+
+  /**
+   * The IDs of the tracks in the repository, indexed by the absolute path of the track file.
+   */
+  private final Map<String, String> trackIds = Maps.newHashMap();
+
+  /**
+   * The future for the rescans, {@code null} if there are none.
+   */
+  private ScheduledFuture<?> updateCheckFuture;
+
   /**
    * Set all repository bases for this repository.
    *
@@ -60,20 +108,93 @@ public class ScanningFileAudioRepository extends InMemoryAudioRepository {
     this.repositoryBases = repositoryBases;
   }
 
+  /**
+   * Set the file to keep the metadata index in between runs.
+   *
+   * @param indexFile
+   *          the index file, can be {@code null} if the index should not be kept
+   */
+  public void setIndexFile(File indexFile) {
+    this.indexFile = indexFile;
+  }
+
+  /**
+   * Rescan the repositories periodically for added, changed and removed files.
+   *
+   * @param executorService
+   *          the executor service to rescan with
+   * @param updateCheckInterval
+   *          how often to rescan, in milliseconds
+   * @param log
+   *          the logger for rescan errors
+   */
+  public void setUpdateChecks(ScheduledExecutorService executorService, long updateCheckInterval, Log log) {
+    this.executorService = executorService;
+    this.updateCheckInterval = updateCheckInterval;
+    this.log = log;
+  }
+
   @Override
   public void onStartup() {
+    index = new AudioFileMetadataIndex(indexFile);
+    index.load();
+
     scanRepositories();
+
+    if (executorService != null && updateCheckInterval > 0) {
+      updateCheckFuture = executorService.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            scanRepositories();
+          } catch (Exception e) {
+            // Exceptions would stop future rescans.
+            if (log != null) {
+              log.error("Error while rescanning audio repository", e);
+            }
+          }
+        }
+      }, updateCheckInterval, updateCheckInterval, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Override
+  public void onShutdown() {
+    if (updateCheckFuture != null) {
+      updateCheckFuture.cancel(false);
+      updateCheckFuture = null;
+    }
   }
 
   /**
-   * Scan all base repositories.
+   * Scan all base repositories, updating the tracks for files which were added, changed or removed since the last
+   * scan.
    */
-  private void scanRepositories() {
+  private synchronized void scanRepositories() {
+    Map<String, File> files = Maps.newHashMap();
     for (File repositoryBase : repositoryBases) {
       if (repositoryBase.isDirectory()) {
-        scanRepositoryDir(repositoryBase);
+        scanRepositoryDir(repositoryBase, files);
+      }
+    }
+
+    Iterator<Map.Entry<String, String>> trackIdIterator = trackIds.entrySet().iterator();
+    while (trackIdIterator.hasNext()) {
+      Map.Entry<String, String> trackId = trackIdIterator.next();
+      if (!files.containsKey(trackId.getKey())) {
+        removeMusicFile(trackId.getKey(), trackId.getValue());
+        trackIdIterator.remove();
+      }
+    }
+
+    for (Map.Entry<String, File> file : files.entrySet()) {
+      if (!trackIds.containsKey(file.getKey()) || !index.isCurrent(file.getValue())) {
+        addMusicFile(file.getValue());
       }
     }
+
+    index.retainAll(files.keySet());
+    index.save();
   }
 
   /**
@@ -81,15 +202,17 @@ public class ScanningFileAudioRepository extends InMemoryAudioRepository {
    *
    * @param repositoryDir
    *          the repository directory to scan
+   * @param files
+   *          the music files found, indexed by absolute path
    */
-  private void scanRepositoryDir(File repositoryDir) {
-    File[] files = repositoryDir.listFiles();
-    if (files != null) {
-      for (File file : files) {
+  private void scanRepositoryDir(File repositoryDir, Map<String, File> files) {
+    File[] contents = repositoryDir.listFiles();
+    if (contents != null) {
+      for (File file : contents) {
         if (file.isDirectory()) {
-          scanRepositoryDir(file);
+          scanRepositoryDir(file, files);
         } else if (isMusicFile(file)) {
-          addMusicFile(file);
+          files.put(file.getAbsolutePath(), file);
         }
       }
     }
@@ -108,7 +231,10 @@ public class ScanningFileAudioRepository extends InMemoryAudioRepository {
   }
 
   /**
-   * Add a music file to the repository.
+   * Add a music file to the repository, replacing the track for the file if there was one.
+   *
+   * <p>
+   * The file is only parsed if the index does not have current metadata for it.
    *
    * @param file
    *          the music file to add
@@ -118,11 +244,40 @@ public class ScanningFileAudioRepository extends InMemoryAudioRepository {
       throw new SimpleInteractiveSpacesException(String.format("Cannot read music file %s", file.getAbsolutePath()));
     }
 
-    AudioTrackMetadata track = new SimpleAudioTrack();
-    track.setId(generateTrackId(file));
-    getMusicMetadata(file, track);
+    AudioTrackMetadata track = index.getMetadata(file);
+    if (track == null) {
+      track = new SimpleAudioTrack();
+      track.setId(generateTrackId(file));
+      getMusicMetadata(file, track);
+      index.put(file, track);
+    }
+
+    String path = file.getAbsolutePath();
+    String oldId = trackIds.get(path);
+    if (oldId != null && !oldId.equals(track.getId())) {
+      removeMusicFile(path, oldId);
+    }
 
     addTrack(new FilePlayableAudioTrack(track, file));
+    trackIds.put(path, track.getId());
+  }
+
+  /**
+   * Remove the track for a music file from the repository.
+   *
+   * <p>
+   * The track is left alone if another file with the same track ID has replaced it.
+   *
+   * @param path
+   *          the absolute path of the music file
+   * @param id
+   *          the ID of the track for the file
+   */
+  private void removeMusicFile(String path, String id) {
+    FilePlayableAudioTrack track = getPlayableTrack(id);
+    if (track != null && track.getFile().getAbsolutePath().equals(path)) {
+      removeTrack(id);
+    }
   }
 
   /**
@@ -141,12 +296,15 @@ public class ScanningFileAudioRepository extends InMemoryAudioRepository {
   /**
    * Get the metadata for the music file.
    *
+   * <p>
+   * This is only called for files which are not current in the metadata index.
+   *
    * @param file
    *          the music file to extract the data from
    * @param track
    *          the track object getting the metadata
    */
-  private void getMusicMetadata(File file, AudioTrackMetadata track) {
+  protected void getMusicMetadata(File file, AudioTrackMetadata track) {
     try {
       MP3File metadata = new MP3File(file);
 
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.service.audio.player.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import interactivespaces.service.audio.player.AudioTrackMetadata;
+import interactivespaces.service.audio.player.SimpleAudioTrack;
+import interactivespaces.util.io.FileSupport;
+import interactivespaces.util.io.FileSupportImpl;
+
+import com.google.common.collect.Sets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+/**
+ * Tests for the {@link AudioFileMetadataIndex}.
+ *
+ * @author Keith M. Hughes
+ */
+public class AudioFileMetadataIndexTest {
+
+  private final FileSupport fileSupport = FileSupportImpl.INSTANCE;
+
+  private File baseDir;
+
+  private File indexFile;
+
+  private File musicFile;
+
+  @Before
+  public void setup() {
+    baseDir = fileSupport.createTempDirectory(new File(System.getProperty("java.io.tmpdir")), "audioindex");
+    indexFile = new File(baseDir, "index.json");
+    musicFile = new File(baseDir, "track.mp3");
+    fileSupport.writeFile(musicFile, "music");
+  }
+
+  @After
+  public void cleanup() {
+    fileSupport.deleteDirectoryContents(baseDir);
+    fileSupport.delete(baseDir);
+  }
+
+  /**
+   * Test that metadata put in the index is found while the file is unchanged.
+   */
+  @Test
+  public void testPut() {
+    AudioFileMetadataIndex index = new AudioFileMetadataIndex(null);
+    assertNull(index.getMetadata(musicFile));
+    assertFalse(index.isCurrent(musicFile));
+
+    index.put(musicFile, new SimpleAudioTrack("track", "title", "artist", "album"));
+
+    assertTrue(index.isCurrent(musicFile));
+    assertMetadata(index.getMetadata(musicFile));
+  }
+
+  /**
+   * Test that a file which changed after it was indexed is not current.
+   */
+  @Test
+  public void testChangedFile() {
+    AudioFileMetadataIndex index = new AudioFileMetadataIndex(null);
+    index.put(musicFile, new SimpleAudioTrack("track", "title", "artist", "album"));
+
+    fileSupport.writeFile(musicFile, "different music");
+
+    assertFalse(index.isCurrent(musicFile));
+    assertNull(index.getMetadata(musicFile));
+  }
+
+  /**
+   * Test that a saved index is loaded by a new index.
+   */
+  @Test
+  public void testSaveAndLoad() {
+    AudioFileMetadataIndex index = new AudioFileMetadataIndex(indexFile);
+    index.load();
+    index.put(musicFile, new SimpleAudioTrack("track", "title", "artist", "album"));
+    index.save();
+    assertTrue(indexFile.exists());
+
+    AudioFileMetadataIndex loadedIndex = new AudioFileMetadataIndex(indexFile);
+    loadedIndex.load();
+    assertEquals(1, loadedIndex.size());
+    assertMetadata(loadedIndex.getMetadata(musicFile));
+  }
+
+  /**
+   * Test that an index file which cannot be read gives an empty index.
+   */
+  @Test
+  public void testCorruptIndexFile() {
+    fileSupport.writeFile(indexFile, "{ not json");
+
+    AudioFileMetadataIndex index = new AudioFileMetadataIndex(indexFile);
+    index.load();
+    assertEquals(0, index.size());
+
+    index.save();
+    index.load();
+    assertEquals(0, index.size());
+  }
+
+  /**
+   * Test that files which are no longer present can be removed from the index.
+   */
+  @Test
+  public void testRetainAll() {
+    File otherFile = new File(baseDir, "other.mp3");
+    fileSupport.writeFile(otherFile, "other music");
+
+    AudioFileMetadataIndex index = new AudioFileMetadataIndex(null);
+    index.put(musicFile, new SimpleAudioTrack("track", "title", "artist", "album"));
+    index.put(otherFile, new SimpleAudioTrack("other", "title", "artist", "album"));
+
+    index.retainAll(Sets.newHashSet(musicFile.getAbsolutePath()));
+
+    assertEquals(1, index.size());
+    assertTrue(index.isCurrent(musicFile));
+    assertFalse(index.isCurrent(otherFile));
+  }
+
+  /**
+   * Check the metadata of the music file.
+   *
+   * @param metadata
+   *          the metadata
+   */
+  private void assertMetadata(AudioTrackMetadata metadata) {
+    assertEquals("track", metadata.getId());
+    assertEquals("title", metadata.getTitle());
+    assertEquals("artist", metadata.getArtist());
+    assertEquals("album", metadata.getAlbum());
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.service.audio.player.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import interactivespaces.service.audio.player.AudioTrackMetadata;
+import interactivespaces.service.audio.player.FilePlayableAudioTrack;
+import interactivespaces.util.io.FileSupport;
+import interactivespaces.util.io.FileSupportImpl;
+
+import com.google.common.collect.Lists;
+
+import org.apache.commons.logging.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for the {@link ScanningFileAudioRepository}.
+ *
+ * @author Keith M. Hughes
+ */
+public class ScanningFileAudioRepositoryTest {
+
+  private final FileSupport fileSupport = FileSupportImpl.INSTANCE;
+
+  private File baseDir;
+
+  private File musicDir;
+
+  private File indexFile;
+
+  /**
+   * The files whose metadata was parsed, in order.
+   */
+  private List<File> parsedFiles;
+
+  @Before
+  public void setup() {
+    baseDir = fileSupport.createTempDirectory(new File(System.getProperty("java.io.tmpdir")), "audiorepository");
+    musicDir = new File(baseDir, "music");
+    fileSupport.directoryExists(musicDir);
+    indexFile = new File(baseDir, "index.json");
+    parsedFiles = Lists.newArrayList();
+  }
+
+  @After
+  public void cleanup() {
+    fileSupport.deleteDirectoryContents(baseDir);
+    fileSupport.delete(baseDir);
+  }
+
+  /**
+   * Test that a rescan picks up added, changed and removed files, and only parses the added and changed ones.
+   */
+  @Test
+  public void testRescan() {
+    writeMusicFile("a", "first a");
+    writeMusicFile("b", "first b");
+    fileSupport.writeFile(new File(musicDir, "notes.txt"), "not music");
+
+    ScheduledExecutorService executorService = Mockito.mock(ScheduledExecutorService.class);
+    ScanningFileAudioRepository repository = newRepository();
+    repository.setUpdateChecks(executorService, 1000, Mockito.mock(Log.class));
+    repository.startup();
+
+    ArgumentCaptor<Runnable> rescan = ArgumentCaptor.forClass(Runnable.class);
+    Mockito.verify(executorService).scheduleWithFixedDelay(rescan.capture(), Mockito.eq(1000L),
+        Mockito.eq(1000L), Mockito.eq(TimeUnit.MILLISECONDS));
+
+    assertEquals(2, repository.getAllPlayableTracks().size());
+    assertEquals("first a", repository.getTrackMetadata("a").getTitle());
+    assertEquals(2, parsedFiles.size());
+
+    parsedFiles.clear();
+    writeMusicFile("a", "second version of a");
+    fileSupport.delete(new File(musicDir, "b.mp3"));
+    writeMusicFile("c", "first c");
+    rescan.getValue().run();
+
+    assertEquals(2, repository.getAllPlayableTracks().size());
+    assertEquals("second version of a", repository.getTrackMetadata("a").getTitle());
+    assertNull(repository.getTrackMetadata("b"));
+    assertEquals("first c", repository.getTrackMetadata("c").getTitle());
+    assertEquals(Lists.newArrayList(new File(musicDir, "a.mp3"), new File(musicDir, "c.mp3")),
+        sortedParsedFiles());
+
+    parsedFiles.clear();
+    rescan.getValue().run();
+    assertEquals(0, parsedFiles.size());
+
+    repository.shutdown();
+  }
+
+  /**
+   * Test that a restarted repository takes the metadata of unchanged files from the index.
+   */
+  @Test
+  public void testIndexReusedOnRestart() {
+    writeMusicFile("a", "first a");
+    writeMusicFile("b", "first b");
+
+    ScanningFileAudioRepository repository = newRepository();
+    repository.startup();
+    repository.shutdown();
+    assertEquals(2, parsedFiles.size());
+
+    parsedFiles.clear();
+    writeMusicFile("b", "second version of b");
+
+    repository = newRepository();
+    repository.startup();
+
+    assertEquals(Lists.newArrayList(new File(musicDir, "b.mp3")), parsedFiles);
+    assertEquals("first a", repository.getTrackMetadata("a").getTitle());
+    assertEquals("second version of b", repository.getTrackMetadata("b").getTitle());
+
+    FilePlayableAudioTrack track = repository.getPlayableTrack("a");
+    assertEquals(new File(musicDir, "a.mp3").getAbsolutePath(), track.getFile().getAbsolutePath());
+
+    repository.shutdown();
+  }
+
+  /**
+   * Create a repository for the music directory which takes the title of a track from the contents of its file.
+   *
+   * @return the repository
+   */
+  private ScanningFileAudioRepository newRepository() {
+    ScanningFileAudioRepository repository = new ScanningFileAudioRepository() {
+      @Override
+      protected void getMusicMetadata(File file, AudioTrackMetadata track) {
+        parsedFiles.add(file);
+        track.setTitle(fileSupport.readFile(file).trim());
+      }
+    };
+    repository.setRepositoryBases(Lists.newArrayList(musicDir));
+    repository.setIndexFile(indexFile);
+
+    return repository;
+  }
+
+  /**
+   * Write a music file.
+   *
+   * @param name
+   *          the name of the file, without extension
+   * @param contents
+   *          the contents of the file
+   */
+  private void writeMusicFile(String name, String contents) {
+    fileSupport.writeFile(new File(musicDir, name + ".mp3"), contents);
+  }
+
+  /**
+   * Get the parsed files sorted by name.
+   *
+   * @return the sorted files
+   */
+  private List<File> sortedParsedFiles() {
+    List<File> files = Lists.newArrayList(parsedFiles);
+    Collections.sort(files);
+
+    return files;
+  }
+}
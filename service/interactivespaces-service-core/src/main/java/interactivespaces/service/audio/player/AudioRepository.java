@@ -54,4 +54,34 @@ public interface AudioRepository extends ManagedResource {
    * @return the track, or {@code null} if there is no track with the ID
    */
   FilePlayableAudioTrack getPlayableTrack(String id);
+
+  /**
+   * Get all tracks by an artist. Case is ignored.
+   *
+   * @param artist
+   *          the artist
+   *
+   * @return the tracks by the artist, empty if there are none
+   */
+  Collection<FilePlayableAudioTrack> getTracksByArtist(String artist);
+
+  /**
+   * Get all tracks on an album. Case is ignored.
+   *
+   * @param album
+   *          the album
+   *
+   * @return the tracks on the album, empty if there are none
+   */
+  Collection<FilePlayableAudioTrack> getTracksByAlbum(String album);
+
+  /**
+   * Get all tracks whose title starts with a prefix. Case is ignored.
+   *
+   * @param prefix
+   *          the prefix of the title
+   *
+   * @return the tracks whose title starts with the prefix, empty if there are none
+   */
+  Collection<FilePlayableAudioTrack> getTracksByTitlePrefix(String prefix);
 }
@@ -8,10 +8,15 @@ import interactivespaces.service.audio.player.AudioTrackMetadata;
 import interactivespaces.service.audio.player.FilePlayableAudioTrack;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.TreeMultimap;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -20,6 +25,9 @@ import java.util.Map;
  * <p>
  * The {@link #startup()} and {@link #shutdown()} do nothing.
  *
+ * <p>
+ * Tracks are indexed by artist, album and title, so queries do not look at every track. Queries ignore case.
+ *
  * @author Keith M. Hughes
  */
 public class InMemoryAudioRepository implements AudioRepository {
@@ -29,6 +37,21 @@ public class InMemoryAudioRepository implements AudioRepository {
    */
   private final Map<String, FilePlayableAudioTrack> tracks = Maps.newHashMap();
 
+  /**
+   * Map of lower case artist to the IDs of tracks by the artist.
+   */
+  private final SetMultimap<String, String> artistIndex = HashMultimap.create();
+
+  /**
+   * Map of lower case album to the IDs of tracks on the album.
+   */
+  private final SetMultimap<String, String> albumIndex = HashMultimap.create();
+
+  /**
+   * Map of lower case title to the IDs of tracks with the title, sorted by title for prefix searches.
+   */
+  private final TreeMultimap<String, String> titleIndex = TreeMultimap.create();
+
   @Override
   public void startup() {
     onStartup();
@@ -70,23 +93,138 @@ public class InMemoryAudioRepository implements AudioRepository {
   }
 
   @Override
-  public FilePlayableAudioTrack getPlayableTrack(String id) {
+  public synchronized FilePlayableAudioTrack getPlayableTrack(String id) {
     return tracks.get(id);
   }
 
   @Override
-  public Collection<FilePlayableAudioTrack> getAllPlayableTracks() {
+  public synchronized Collection<FilePlayableAudioTrack> getAllPlayableTracks() {
     return Lists.newArrayList(tracks.values());
   }
 
+  @Override
+  public synchronized Collection<FilePlayableAudioTrack> getTracksByArtist(String artist) {
+    return getTracks(artistIndex.get(toIndexKey(artist)));
+  }
+
+  @Override
+  public synchronized Collection<FilePlayableAudioTrack> getTracksByAlbum(String album) {
+    return getTracks(albumIndex.get(toIndexKey(album)));
+  }
+
+  @Override
+  public synchronized Collection<FilePlayableAudioTrack> getTracksByTitlePrefix(String prefix) {
+    String key = toIndexKey(prefix);
+    if (key == null) {
+      return Lists.newArrayList();
+    }
+
+    // Every title starting with the prefix sorts between the prefix and the prefix followed by the last character.
+    List<FilePlayableAudioTrack> result = Lists.newArrayList();
+    for (Collection<String> ids : titleIndex.asMap().subMap(key, key + Character.MAX_VALUE).values()) {
+      result.addAll(getTracks(ids));
+    }
+
+    return result;
+  }
+
   /**
-   * Add in a new track.
+   * Add in a new track, replacing any track with the same ID.
    *
    * @param track
    *        the track to add
    */
   @VisibleForTesting
-  public void addTrack(FilePlayableAudioTrack track) {
-    tracks.put(track.getMetadata().getId(), track);
+  public synchronized void addTrack(FilePlayableAudioTrack track) {
+    AudioTrackMetadata metadata = track.getMetadata();
+    removeTrack(metadata.getId());
+
+    tracks.put(metadata.getId(), track);
+    addToIndex(artistIndex, metadata.getArtist(), metadata.getId());
+    addToIndex(albumIndex, metadata.getAlbum(), metadata.getId());
+    addToIndex(titleIndex, metadata.getTitle(), metadata.getId());
+  }
+
+  /**
+   * Remove a track.
+   *
+   * @param id
+   *          the ID of the track
+   *
+   * @return the track removed, or {@code null} if there was no track with the ID
+   */
+  public synchronized FilePlayableAudioTrack removeTrack(String id) {
+    FilePlayableAudioTrack track = tracks.remove(id);
+    if (track != null) {
+      AudioTrackMetadata metadata = track.getMetadata();
+      removeFromIndex(artistIndex, metadata.getArtist(), id);
+      removeFromIndex(albumIndex, metadata.getAlbum(), id);
+      removeFromIndex(titleIndex, metadata.getTitle(), id);
+    }
+
+    return track;
+  }
+
+  /**
+   * Get the tracks for a collection of track IDs.
+   *
+   * @param ids
+   *          the track IDs
+   *
+   * @return the tracks
+   */
+  private List<FilePlayableAudioTrack> getTracks(Collection<String> ids) {
+    List<FilePlayableAudioTrack> result = Lists.newArrayList();
+    for (String id : ids) {
+      result.add(tracks.get(id));
+    }
+
+    return result;
+  }
+
+  /**
+   * Add a track to an index.
+   *
+   * @param index
+   *          the index
+   * @param value
+   *          the value the track is indexed by, can be {@code null}
+   * @param id
+   *          the ID of the track
+   */
+  private void addToIndex(SetMultimap<String, String> index, String value, String id) {
+    String key = toIndexKey(value);
+    if (key != null) {
+      index.put(key, id);
+    }
+  }
+
+  /**
+   * Remove a track from an index.
+   *
+   * @param index
+   *          the index
+   * @param value
+   *          the value the track is indexed by, can be {@code null}
+   * @param id
+   *          the ID of the track
+   */
+  private void removeFromIndex(SetMultimap<String, String> index, String value, String id) {
+    String key = toIndexKey(value);
+    if (key != null) {
+      index.remove(key, id);
+    }
+  }
+
+  /**
+   * Get the index key for a value.
+   *
+   * @param value
+   *          the value, can be {@code null}
+   *
+   * @return the key, or {@code null} if the value was {@code null}
+   */
+  private String toIndexKey(String value) {
+    return value != null ? value.toLowerCase(Locale.ROOT) : null;
   }
 }
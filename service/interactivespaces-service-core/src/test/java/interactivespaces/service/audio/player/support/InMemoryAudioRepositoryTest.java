@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.service.audio.player.support;
+
+import interactivespaces.service.audio.player.FilePlayableAudioTrack;
+import interactivespaces.service.audio.player.SimpleAudioTrack;
+
+import com.google.common.collect.Sets;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Tests for the {@link InMemoryAudioRepository}.
+ *
+ * @author Keith M. Hughes
+ */
+public class InMemoryAudioRepositoryTest {
+
+  private InMemoryAudioRepository repository;
+
+  @Before
+  public void setup() {
+    repository = new InMemoryAudioRepository();
+    repository.addTrack(newTrack("1", "Blue Monday", "New Order", "Substance"));
+    repository.addTrack(newTrack("2", "Bizarre Love Triangle", "New Order", "Brotherhood"));
+    repository.addTrack(newTrack("3", "Blue Moon", "Billie Holiday", null));
+    repository.addTrack(newTrack("4", null, null, null));
+  }
+
+  /**
+   * Test queries by artist and album, ignoring case.
+   */
+  @Test
+  public void testArtistAndAlbum() {
+    Assert.assertEquals(Sets.newHashSet("1", "2"), getIds(repository.getTracksByArtist("new order")));
+    Assert.assertEquals(Sets.newHashSet("3"), getIds(repository.getTracksByArtist("Billie Holiday")));
+    Assert.assertEquals(Sets.newHashSet("2"), getIds(repository.getTracksByAlbum("BROTHERHOOD")));
+    Assert.assertTrue(repository.getTracksByArtist("Joy Division").isEmpty());
+    Assert.assertTrue(repository.getTracksByAlbum(null).isEmpty());
+  }
+
+  /**
+   * Test queries by title prefix.
+   */
+  @Test
+  public void testTitlePrefix() {
+    Assert.assertEquals(Sets.newHashSet("1", "3"), getIds(repository.getTracksByTitlePrefix("blue")));
+    Assert.assertEquals(Sets.newHashSet("1", "2", "3"), getIds(repository.getTracksByTitlePrefix("B")));
+    Assert.assertEquals(Sets.newHashSet("1", "2", "3"), getIds(repository.getTracksByTitlePrefix("")));
+    Assert.assertTrue(repository.getTracksByTitlePrefix("Blue Mondays").isEmpty());
+  }
+
+  /**
+   * Test that replaced and removed tracks leave the indexes.
+   */
+  @Test
+  public void testReplaceAndRemove() {
+    repository.addTrack(newTrack("1", "Temptation", "New Order", "Substance"));
+    Assert.assertEquals(Sets.newHashSet("3"), getIds(repository.getTracksByTitlePrefix("blue")));
+    Assert.assertEquals(Sets.newHashSet("1"), getIds(repository.getTracksByTitlePrefix("temp")));
+
+    Assert.assertNotNull(repository.removeTrack("2"));
+    Assert.assertNull(repository.removeTrack("2"));
+    Assert.assertNull(repository.getPlayableTrack("2"));
+    Assert.assertEquals(Sets.newHashSet("1"), getIds(repository.getTracksByArtist("New Order")));
+    Assert.assertEquals(3, repository.getAllPlayableTracks().size());
+  }
+
+  /**
+   * Create a new track.
+   *
+   * @param id
+   *          the track ID
+   * @param title
+   *          the title
+   * @param artist
+   *          the artist
+   * @param album
+   *          the album
+   *
+   * @return the track
+   */
+  private FilePlayableAudioTrack newTrack(String id, String title, String artist, String album) {
+    return new FilePlayableAudioTrack(new SimpleAudioTrack(id, title, artist, album), new File(id + ".mp3"));
+  }
+
+  /**
+   * Get the IDs of tracks.
+   *
+   * @param tracks
+   *          the tracks
+   *
+   * @return the IDs of the tracks
+   */
+  private Set<String> getIds(Collection<FilePlayableAudioTrack> tracks) {
+    Set<String> ids = Sets.newHashSet();
+    for (FilePlayableAudioTrack track : tracks) {
+      ids.add(track.getMetadata().getId());
+    }
+
+    return ids;
+  }
+}
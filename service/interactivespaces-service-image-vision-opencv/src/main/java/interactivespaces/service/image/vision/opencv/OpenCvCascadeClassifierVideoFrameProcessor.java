@@ -61,6 +61,11 @@ public class OpenCvCascadeClassifierVideoFrameProcessor extends BaseVideoFramePr
    */
   private final Log log;
 
+  /**
+   * The detections from the classifier, reused for every frame.
+   */
+  private final MatOfRect classifierDetections = new MatOfRect();
+
   /**
    * Construct a listener with the given classifier.
    *
@@ -99,7 +104,6 @@ public class OpenCvCascadeClassifierVideoFrameProcessor extends BaseVideoFramePr
 
   @Override
   public Mat onNewVideoFrame(Mat frame) {
-    MatOfRect classifierDetections = new MatOfRect();
     classifier.detectMultiScale(frame, classifierDetections);
 
     List<Rectangle2> eventData = Lists.newArrayList();
@@ -120,6 +124,11 @@ public class OpenCvCascadeClassifierVideoFrameProcessor extends BaseVideoFramePr
     return frame;
   }
 
+  @Override
+  public void shutdown() {
+    classifierDetections.release();
+  }
+
   /**
    * Send the detection events to the listeners.
    *
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.service.image.vision.opencv;
+
+import interactivespaces.service.image.video.VideoFrameAllocator;
+
+import org.opencv.core.Mat;
+
+/**
+ * A {@link VideoFrameAllocator} for OpenCV matrices.
+ *
+ * <p>
+ * A copy reuses the native buffer of the destination whenever it has the same size and type as the source.
+ *
+ * @author Keith M. Hughes
+ */
+public class OpenCvMatFrameAllocator implements VideoFrameAllocator<Mat> {
+
+  @Override
+  public Mat newFrame() {
+    return new Mat();
+  }
+
+  @Override
+  public Mat copyFrame(Mat source, Mat destination) {
+    source.copyTo(destination);
+
+    return destination;
+  }
+
+  @Override
+  public void disposeFrame(Mat frame) {
+    frame.release();
+  }
+}
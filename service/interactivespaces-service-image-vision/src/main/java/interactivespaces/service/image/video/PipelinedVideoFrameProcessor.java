@@ -0,0 +1,442 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.service.image.video;
+
+import interactivespaces.InteractiveSpacesException;
+import interactivespaces.SimpleInteractiveSpacesException;
+
+import com.google.common.collect.Lists;
+
+import org.apache.commons.logging.Log;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A video frame processor that runs a sequence of video frame processors as a pipeline, each stage in its own thread.
+ *
+ * <p>
+ * Stages hand frames to each other through bounded queues. If a stage falls behind, the oldest frame waiting for it is
+ * skipped so that the stage always works on the most recent frame available.
+ *
+ * <p>
+ * The pipeline works on a copy of each incoming frame taken from its frame pool, so the caller keeps ownership of the
+ * frame it passes in and {@link #onNewVideoFrame(Object)} returns that frame unchanged. Frames returned by a stage
+ * belong to the pipeline and are released to the pool once the last stage is done with them or they are skipped.
+ *
+ * @param <T>
+ *          the type for the video frame
+ *
+ * @author Keith M. Hughes
+ */
+public class PipelinedVideoFrameProcessor<T> implements VideoFrameProcessor<T> {
+
+  /**
+   * The default number of frames which can wait for a stage.
+   */
+  public static final int QUEUE_CAPACITY_DEFAULT = 1;
+
+  /**
+   * The default time to wait for a stage thread to stop, in milliseconds.
+   */
+  public static final long STAGE_STOP_TIMEOUT_DEFAULT = 5000;
+
+  /**
+   * The stages of the pipeline, in order.
+   */
+  private final List<Stage> stages = Lists.newArrayList();
+
+  /**
+   * The pool for frames in the pipeline.
+   */
+  private final VideoFramePool<T> framePool;
+
+  /**
+   * The executor service for the stage threads.
+   */
+  private final ExecutorService executorService;
+
+  /**
+   * Logger for the processor.
+   */
+  private final Log log;
+
+  /**
+   * The number of frames which can wait for a stage.
+   */
+  private int queueCapacity = QUEUE_CAPACITY_DEFAULT;
+
+  /**
+   * The time to wait for a stage thread to stop, in milliseconds.
+   */
+  private long stageStopTimeout = STAGE_STOP_TIMEOUT_DEFAULT;
+
+  /**
+   * {@code true} if the pipeline is running.
+   */
+  private volatile boolean running;
+
+  /**
+   * The number of frames which made it through all stages.
+   */
+  private final AtomicLong numberFramesCompleted = new AtomicLong();
+
+  /**
+   * Construct a new pipeline.
+   *
+   * @param framePool
+   *          the pool for frames in the pipeline
+   * @param executorService
+   *          the executor service for the stage threads
+   * @param log
+   *          the logger to use
+   */
+  public PipelinedVideoFrameProcessor(VideoFramePool<T> framePool, ExecutorService executorService, Log log) {
+    this.framePool = framePool;
+    this.executorService = executorService;
+    this.log = log;
+  }
+
+  /**
+   * Add a new stage to the end of the pipeline.
+   *
+   * @param processor
+   *          the processor for the stage
+   */
+  public synchronized void addStage(VideoFrameProcessor<T> processor) {
+    if (running) {
+      throw new SimpleInteractiveSpacesException("Cannot add a stage to a running video pipeline");
+    }
+
+    stages.add(new Stage(processor));
+  }
+
+  /**
+   * Set the number of frames which can wait for a stage.
+   *
+   * <p>
+   * Must be called before the pipeline is started.
+   *
+   * @param queueCapacity
+   *          the number of frames which can wait for a stage
+   */
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+
+  /**
+   * Set the time to wait for a stage thread to stop when the pipeline is shut down.
+   *
+   * @param stageStopTimeout
+   *          the time to wait, in milliseconds
+   */
+  public void setStageStopTimeout(long stageStopTimeout) {
+    this.stageStopTimeout = stageStopTimeout;
+  }
+
+  @Override
+  public synchronized void startup() {
+    List<Stage> stagesStarted = Lists.newArrayList();
+    try {
+      for (Stage stage : stages) {
+        stage.processor.startup();
+        stagesStarted.add(stage);
+      }
+    } catch (Exception e) {
+      log.error("Could not start pipelined video processor");
+
+      shutdownStages(stagesStarted);
+
+      throw new InteractiveSpacesException("Could not start pipelined video processor", e);
+    }
+
+    for (int i = 0; i < stages.size(); i++) {
+      Stage stage = stages.get(i);
+      stage.start((i + 1 < stages.size()) ? stages.get(i + 1) : null);
+    }
+
+    running = true;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>
+   * A stage processor is only shut down once its thread has stopped, so a processor never has its resources released
+   * while it is still working on a frame. A processor whose thread does not stop in time is not shut down at all.
+   */
+  @Override
+  public synchronized void shutdown() {
+    running = false;
+
+    for (Stage stage : stages) {
+      stage.stop();
+    }
+
+    List<Stage> stagesStopped = Lists.newArrayList();
+    for (Stage stage : stages) {
+      if (stage.awaitStopped()) {
+        stagesStopped.add(stage);
+      } else {
+        log.error("Pipelined video processor stage did not stop, leaving its processor running");
+      }
+    }
+
+    // Only drained once every thread has stopped, otherwise an earlier stage could hand off a frame after the drain.
+    for (Stage stage : stages) {
+      stage.releaseWaitingFrames();
+    }
+
+    shutdownStages(stagesStopped);
+  }
+
+  @Override
+  public T onNewVideoFrame(T frame) {
+    if (running && !stages.isEmpty()) {
+      stages.get(0).handOff(framePool.acquireCopy(frame));
+    }
+
+    return frame;
+  }
+
+  /**
+   * Get the number of frames which made it through all stages.
+   *
+   * @return the number of completed frames
+   */
+  public long getNumberFramesCompleted() {
+    return numberFramesCompleted.get();
+  }
+
+  /**
+   * Get the number of frames skipped because a stage fell behind.
+   *
+   * @return the number of skipped frames
+   */
+  public long getNumberFramesSkipped() {
+    long skipped = 0;
+    for (Stage stage : stages) {
+      skipped += stage.numberFramesSkipped.get();
+    }
+
+    return skipped;
+  }
+
+  /**
+   * Shutdown the processors for the stages given.
+   *
+   * @param stagesToShutdown
+   *          the stages to shut down
+   */
+  private void shutdownStages(List<Stage> stagesToShutdown) {
+    for (Stage stage : stagesToShutdown) {
+      try {
+        stage.processor.shutdown();
+      } catch (Exception e) {
+        log.error("Error while shutting down pipelined video processor stage", e);
+      }
+    }
+  }
+
+  /**
+   * A stage in the pipeline.
+   *
+   * @author Keith M. Hughes
+   */
+  private class Stage implements Runnable {
+
+    /**
+     * The processor for the stage.
+     */
+    private final VideoFrameProcessor<T> processor;
+
+    /**
+     * The frames waiting for the stage.
+     */
+    private BlockingQueue<T> queue;
+
+    /**
+     * The next stage, {@code null} if this is the last stage.
+     */
+    private Stage next;
+
+    /**
+     * The future for the stage thread.
+     */
+    private Future<?> future;
+
+    /**
+     * {@code true} once the stage thread has started, or once the stage was stopped before it could.
+     */
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    /**
+     * Counted down once the stage thread has stopped, or when the stage was stopped before it could start.
+     */
+    private CountDownLatch stopped;
+
+    /**
+     * {@code true} once the stage has been told to stop.
+     */
+    private volatile boolean stopRequested;
+
+    /**
+     * The number of frames skipped because the stage fell behind.
+     */
+    private final AtomicLong numberFramesSkipped = new AtomicLong();
+
+    /**
+     * Construct a new stage.
+     *
+     * @param processor
+     *          the processor for the stage
+     */
+    public Stage(VideoFrameProcessor<T> processor) {
+      this.processor = processor;
+    }
+
+    /**
+     * Start the thread for the stage.
+     *
+     * @param next
+     *          the next stage, {@code null} if this is the last stage
+     */
+    public void start(Stage next) {
+      this.next = next;
+      queue = new ArrayBlockingQueue<T>(Math.max(1, queueCapacity));
+      started.set(false);
+      stopRequested = false;
+      stopped = new CountDownLatch(1);
+      future = executorService.submit(this);
+    }
+
+    /**
+     * Tell the thread for the stage to stop. Use {@link #awaitStopped()} to wait for it to stop.
+     */
+    public void stop() {
+      stopRequested = true;
+      if (future != null) {
+        future.cancel(true);
+        future = null;
+      }
+
+      if (started.compareAndSet(false, true)) {
+        // The thread never started and now never will.
+        stopped.countDown();
+      }
+    }
+
+    /**
+     * Wait for the thread for the stage to stop.
+     *
+     * @return {@code true} if the thread stopped, or was never started
+     */
+    public boolean awaitStopped() {
+      if (stopped == null) {
+        return true;
+      }
+
+      try {
+        return stopped.await(stageStopTimeout, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+
+    /**
+     * Release all frames waiting for the stage back to the frame pool.
+     */
+    public void releaseWaitingFrames() {
+      if (queue == null) {
+        return;
+      }
+
+      T frame;
+      while ((frame = queue.poll()) != null) {
+        framePool.release(frame);
+      }
+    }
+
+    /**
+     * Give the stage a new frame, skipping the oldest waiting frame if the stage has fallen behind.
+     *
+     * @param frame
+     *          the frame
+     */
+    public void handOff(T frame) {
+      while (!queue.offer(frame)) {
+        T skipped = queue.poll();
+        if (skipped != null) {
+          framePool.release(skipped);
+          numberFramesSkipped.incrementAndGet();
+        }
+      }
+
+      if (stopRequested) {
+        // The frame may have arrived after the pipeline drained the queue.
+        releaseWaitingFrames();
+      }
+    }
+
+    @Override
+    public void run() {
+      if (!started.compareAndSet(false, true)) {
+        return;
+      }
+
+      try {
+        // A processor may swallow the interrupt, so the stop request is checked as well.
+        while (!stopRequested && !Thread.currentThread().isInterrupted()) {
+          T frame = queue.take();
+
+          T result = null;
+          try {
+            result = processor.onNewVideoFrame(frame);
+          } catch (Exception e) {
+            log.error("Error in pipelined video processor stage", e);
+          }
+
+          if (result != frame) {
+            framePool.release(frame);
+          }
+          if (result != null) {
+            if (next == null) {
+              numberFramesCompleted.incrementAndGet();
+              framePool.release(result);
+            } else if (running) {
+              next.handOff(result);
+            } else {
+              framePool.release(result);
+            }
+          }
+        }
+      } catch (InterruptedException e) {
+        // The pipeline has been shut down.
+      } finally {
+        stopped.countDown();
+      }
+    }
+  }
+}
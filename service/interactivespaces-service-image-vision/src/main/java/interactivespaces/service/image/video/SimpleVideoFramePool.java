@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.service.image.video;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link VideoFramePool} which holds a bounded number of free frames.
+ *
+ * <p>
+ * Frames released when the pool is full are disposed of.
+ *
+ * @param <T>
+ *          the type of video frame
+ *
+ * @author Keith M. Hughes
+ */
+public class SimpleVideoFramePool<T> implements VideoFramePool<T> {
+
+  /**
+   * The allocator for frames.
+   */
+  private final VideoFrameAllocator<T> allocator;
+
+  /**
+   * The maximum number of free frames held by the pool.
+   */
+  private final int maximumSize;
+
+  /**
+   * The free frames.
+   */
+  private final Queue<T> freeFrames = new ConcurrentLinkedQueue<T>();
+
+  /**
+   * The number of free frames.
+   */
+  private final AtomicInteger numberFreeFrames = new AtomicInteger();
+
+  /**
+   * The number of frames the pool has allocated.
+   */
+  private final AtomicLong numberFramesAllocated = new AtomicLong();
+
+  /**
+   * Construct a new pool.
+   *
+   * @param allocator
+   *          the allocator for frames
+   * @param maximumSize
+   *          the maximum number of free frames held by the pool
+   */
+  public SimpleVideoFramePool(VideoFrameAllocator<T> allocator, int maximumSize) {
+    this.allocator = allocator;
+    this.maximumSize = maximumSize;
+  }
+
+  @Override
+  public T acquire() {
+    T frame = freeFrames.poll();
+    if (frame != null) {
+      numberFreeFrames.decrementAndGet();
+    } else {
+      frame = allocator.newFrame();
+      numberFramesAllocated.incrementAndGet();
+    }
+
+    return frame;
+  }
+
+  @Override
+  public T acquireCopy(T source) {
+    T frame = acquire();
+    T copy = allocator.copyFrame(source, frame);
+    if (copy != frame) {
+      release(frame);
+    }
+
+    return copy;
+  }
+
+  @Override
+  public void release(T frame) {
+    if (numberFreeFrames.incrementAndGet() <= maximumSize) {
+      freeFrames.add(frame);
+    } else {
+      numberFreeFrames.decrementAndGet();
+      allocator.disposeFrame(frame);
+    }
+  }
+
+  @Override
+  public void clear() {
+    T frame;
+    while ((frame = freeFrames.poll()) != null) {
+      numberFreeFrames.decrementAndGet();
+      allocator.disposeFrame(frame);
+    }
+  }
+
+  /**
+   * Get the number of frames the pool has allocated.
+   *
+   * @return the number of frames allocated
+   */
+  public long getNumberFramesAllocated() {
+    return numberFramesAllocated.get();
+  }
+
+  /**
+   * Get the number of free frames in the pool.
+   *
+   * @return the number of free frames
+   */
+  public int getNumberFreeFrames() {
+    return numberFreeFrames.get();
+  }
+}
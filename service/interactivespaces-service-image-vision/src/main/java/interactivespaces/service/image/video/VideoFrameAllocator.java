@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.service.image.video;
+
+/**
+ * Allocates, copies, and disposes of video frames for a {@link VideoFramePool}.
+ *
+ * @param <T>
+ *          the type of video frame
+ *
+ * @author Keith M. Hughes
+ */
+public interface VideoFrameAllocator<T> {
+
+  /**
+   * Create a new, empty frame.
+   *
+   * @return the new frame
+   */
+  T newFrame();
+
+  /**
+   * Copy the contents of one frame into another.
+   *
+   * @param source
+   *          the frame to copy
+   * @param destination
+   *          the frame to copy into
+   *
+   * @return the copy, which is the destination unless the destination could not hold the source
+   */
+  T copyFrame(T source, T destination);
+
+  /**
+   * Dispose of a frame which is no longer needed.
+   *
+   * @param frame
+   *          the frame to dispose of
+   */
+  void disposeFrame(T frame);
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.service.image.video;
+
+/**
+ * A pool of video frames so that frame buffers can be reused rather than allocated for every frame.
+ *
+ * <p>
+ * Pools are safe to use from multiple threads.
+ *
+ * @param <T>
+ *          the type of video frame
+ *
+ * @author Keith M. Hughes
+ */
+public interface VideoFramePool<T> {
+
+  /**
+   * Get a frame from the pool.
+   *
+   * <p>
+   * The contents of the frame are undefined.
+   *
+   * @return the frame
+   */
+  T acquire();
+
+  /**
+   * Get a frame from the pool which is a copy of another frame.
+   *
+   * @param source
+   *          the frame to copy
+   *
+   * @return the copy
+   */
+  T acquireCopy(T source);
+
+  /**
+   * Return a frame to the pool.
+   *
+   * <p>
+   * The frame must not be used by the caller after it is released.
+   *
+   * @param frame
+   *          the frame to return
+   */
+  void release(T frame);
+
+  /**
+   * Dispose of all frames currently in the pool.
+   */
+  void clear();
+}
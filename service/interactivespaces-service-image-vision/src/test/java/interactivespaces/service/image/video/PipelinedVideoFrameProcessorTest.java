@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.service.image.video;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import org.apache.commons.logging.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tests for the {@link PipelinedVideoFrameProcessor}.
+ *
+ * @author Keith M. Hughes
+ */
+public class PipelinedVideoFrameProcessorTest {
+
+  private ExecutorService executorService;
+
+  private SimpleVideoFramePool<int[]> framePool;
+
+  private PipelinedVideoFrameProcessor<int[]> pipeline;
+
+  @Before
+  public void setup() {
+    executorService = Executors.newCachedThreadPool();
+    framePool = new SimpleVideoFramePool<int[]>(new IntArrayFrameAllocator(), 8);
+    pipeline = new PipelinedVideoFrameProcessor<int[]>(framePool, executorService, mock(Log.class));
+  }
+
+  @After
+  public void cleanup() {
+    pipeline.shutdown();
+    executorService.shutdownNow();
+  }
+
+  /**
+   * Test that frames go through every stage in order and that frame buffers are reused.
+   */
+  @Test
+  public void testFramesProcessedInOrder() throws Exception {
+    final int numberFrames = 100;
+    final CountDownLatch done = new CountDownLatch(numberFrames);
+    final int[] lastFrameNumber = new int[] { -1 };
+
+    pipeline.setQueueCapacity(numberFrames);
+    pipeline.addStage(new BaseVideoFrameProcessor<int[]>() {
+      @Override
+      public int[] onNewVideoFrame(int[] frame) {
+        frame[1] = frame[0] * 2;
+        return frame;
+      }
+    });
+    pipeline.addStage(new BaseVideoFrameProcessor<int[]>() {
+      @Override
+      public int[] onNewVideoFrame(int[] frame) {
+        assertEquals(frame[0] * 2, frame[1]);
+        assertTrue(frame[0] > lastFrameNumber[0]);
+        lastFrameNumber[0] = frame[0];
+        done.countDown();
+        return frame;
+      }
+    });
+    pipeline.startup();
+
+    int[] source = new int[2];
+    for (int i = 0; i < numberFrames; i++) {
+      source[0] = i;
+      source[1] = 0;
+      assertTrue(source == pipeline.onNewVideoFrame(source));
+    }
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(numberFrames, pipeline.getNumberFramesCompleted());
+    assertEquals(0, pipeline.getNumberFramesSkipped());
+    assertEquals(numberFrames - 1, lastFrameNumber[0]);
+  }
+
+  /**
+   * Test that frames are skipped when a stage falls behind and that the newest frame is kept.
+   */
+  @Test
+  public void testSlowStageSkipsFrames() throws Exception {
+    final CountDownLatch blocked = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch lastFrame = new CountDownLatch(1);
+    final int numberFrames = 20;
+
+    pipeline.addStage(new BaseVideoFrameProcessor<int[]>() {
+      @Override
+      public int[] onNewVideoFrame(int[] frame) {
+        if (frame[0] == 0) {
+          blocked.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        } else if (frame[0] == numberFrames - 1) {
+          lastFrame.countDown();
+        }
+        return frame;
+      }
+    });
+    pipeline.startup();
+
+    int[] source = new int[2];
+    pipeline.onNewVideoFrame(source);
+    assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+    for (int i = 1; i < numberFrames; i++) {
+      source[0] = i;
+      pipeline.onNewVideoFrame(source);
+    }
+    release.countDown();
+
+    assertTrue(lastFrame.await(5, TimeUnit.SECONDS));
+    assertEquals(numberFrames - 2, pipeline.getNumberFramesSkipped());
+    assertTrue(framePool.getNumberFramesAllocated() <= 3);
+  }
+
+  /**
+   * Test that a stage processor is only shut down once its thread has stopped and that all frames go back to the pool.
+   */
+  @Test
+  public void testShutdownWaitsForStages() throws Exception {
+    final CountDownLatch busy = new CountDownLatch(1);
+    final AtomicBoolean processing = new AtomicBoolean();
+    final AtomicBoolean shutdownWhileProcessing = new AtomicBoolean();
+
+    pipeline.addStage(new BaseVideoFrameProcessor<int[]>() {
+      @Override
+      public int[] onNewVideoFrame(int[] frame) {
+        processing.set(true);
+        busy.countDown();
+        // Ignore interrupts, like native code would.
+        long end = System.currentTimeMillis() + 200;
+        while (System.currentTimeMillis() < end) {
+          Thread.yield();
+        }
+        processing.set(false);
+        return frame;
+      }
+
+      @Override
+      public void shutdown() {
+        shutdownWhileProcessing.set(processing.get());
+      }
+    });
+    pipeline.startup();
+
+    int[] source = new int[2];
+    pipeline.onNewVideoFrame(source);
+    assertTrue(busy.await(5, TimeUnit.SECONDS));
+    pipeline.onNewVideoFrame(source);
+
+    pipeline.shutdown();
+
+    assertFalse(shutdownWhileProcessing.get());
+    assertEquals(framePool.getNumberFramesAllocated(), framePool.getNumberFreeFrames());
+  }
+
+  /**
+   * An allocator for frames which are integer arrays.
+   *
+   * @author Keith M. Hughes
+   */
+  private static class IntArrayFrameAllocator implements VideoFrameAllocator<int[]> {
+
+    @Override
+    public int[] newFrame() {
+      return new int[2];
+    }
+
+    @Override
+    public int[] copyFrame(int[] source, int[] destination) {
+      System.arraycopy(source, 0, destination, 0, source.length);
+      return destination;
+    }
+
+    @Override
+    public void disposeFrame(int[] frame) {
+      // Nothing to do.
+    }
+  }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.service.image.video;
+
+import org.apache.commons.logging.impl.SimpleLog;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A benchmark comparing the {@link CompositeVideoFrameProcessor} and the {@link PipelinedVideoFrameProcessor} on
+ * synthetic frames, so no camera is needed.
+ *
+ * <p>
+ * A simulated camera produces frames at a fixed rate. Each frame goes through a detection stage and a rendering stage,
+ * which both do a fixed amount of work over every pixel. The composite runs both stages in the camera thread, the
+ * pipeline runs each in its own thread.
+ *
+ * <p>
+ * Run with optional arguments {@code frames-per-second width height passes-per-stage seconds}.
+ *
+ * @author Keith M. Hughes
+ */
+public class VideoPipelineBenchmark {
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args
+   *          the optional camera frame rate, frame width, frame height, work passes per stage, and run time
+   *
+   * @throws Exception
+   *           the benchmark failed
+   */
+  public static void main(String[] args) throws Exception {
+    int framesPerSecond = (args.length > 0) ? Integer.parseInt(args[0]) : 60;
+    int width = (args.length > 1) ? Integer.parseInt(args[1]) : 640;
+    int height = (args.length > 2) ? Integer.parseInt(args[2]) : 480;
+    int passes = (args.length > 3) ? Integer.parseInt(args[3]) : 8;
+    int seconds = (args.length > 4) ? Integer.parseInt(args[4]) : 5;
+
+    VideoPipelineBenchmark benchmark = new VideoPipelineBenchmark(framesPerSecond, width * height * 3, passes, seconds);
+    benchmark.runComposite();
+    benchmark.runPipelined();
+  }
+
+  /**
+   * The simulated camera frame rate.
+   */
+  private final int framesPerSecond;
+
+  /**
+   * The number of bytes in a frame.
+   */
+  private final int frameSize;
+
+  /**
+   * The number of passes over the frame for each stage.
+   */
+  private final int passes;
+
+  /**
+   * How long to run each benchmark, in seconds.
+   */
+  private final int seconds;
+
+  /**
+   * A sink for the results of the work, so it is not optimized away.
+   */
+  private volatile long sink;
+
+  /**
+   * Construct a new benchmark.
+   *
+   * @param framesPerSecond
+   *          the simulated camera frame rate
+   * @param frameSize
+   *          the number of bytes in a frame
+   * @param passes
+   *          the number of passes over the frame for each stage
+   * @param seconds
+   *          how long to run each benchmark, in seconds
+   */
+  public VideoPipelineBenchmark(int framesPerSecond, int frameSize, int passes, int seconds) {
+    this.framesPerSecond = framesPerSecond;
+    this.frameSize = frameSize;
+    this.passes = passes;
+    this.seconds = seconds;
+  }
+
+  /**
+   * Run the benchmark for the sequential composite processor.
+   */
+  public void runComposite() {
+    AtomicLong completed = new AtomicLong();
+    CompositeVideoFrameProcessor<byte[]> composite = new CompositeVideoFrameProcessor<byte[]>(new SimpleLog("bench"));
+    composite.addComponent(newWorkStage(null));
+    composite.addComponent(newWorkStage(completed));
+    composite.startup();
+
+    long frames = runCamera(composite);
+    composite.shutdown();
+
+    report("composite", frames, completed.get(), 0, 0);
+  }
+
+  /**
+   * Run the benchmark for the pipelined processor.
+   *
+   * @throws InterruptedException
+   *           the benchmark was interrupted
+   */
+  public void runPipelined() throws InterruptedException {
+    ExecutorService executorService = Executors.newCachedThreadPool();
+    SimpleVideoFramePool<byte[]> framePool = new SimpleVideoFramePool<byte[]>(new ByteArrayFrameAllocator(), 4);
+
+    AtomicLong completed = new AtomicLong();
+    PipelinedVideoFrameProcessor<byte[]> pipeline =
+        new PipelinedVideoFrameProcessor<byte[]>(framePool, executorService, new SimpleLog("bench"));
+    pipeline.addStage(newWorkStage(null));
+    pipeline.addStage(newWorkStage(completed));
+    pipeline.startup();
+
+    long frames = runCamera(pipeline);
+    pipeline.shutdown();
+    executorService.shutdownNow();
+    executorService.awaitTermination(1, TimeUnit.SECONDS);
+
+    report("pipelined", frames, completed.get(), pipeline.getNumberFramesSkipped(),
+        framePool.getNumberFramesAllocated());
+  }
+
+  /**
+   * Run the simulated camera for the benchmark time.
+   *
+   * @param processor
+   *          the processor to give frames to
+   *
+   * @return the number of frames the camera produced
+   */
+  private long runCamera(VideoFrameProcessor<byte[]> processor) {
+    byte[] frame = new byte[frameSize];
+    long framePeriod = TimeUnit.SECONDS.toNanos(1) / framesPerSecond;
+    long start = System.nanoTime();
+    long end = start + TimeUnit.SECONDS.toNanos(seconds);
+    long nextFrame = start;
+    long frames = 0;
+    while (System.nanoTime() < end) {
+      long now = System.nanoTime();
+      if (now < nextFrame) {
+        try {
+          TimeUnit.NANOSECONDS.sleep(nextFrame - now);
+        } catch (InterruptedException e) {
+          break;
+        }
+      }
+      nextFrame = Math.max(nextFrame + framePeriod, System.nanoTime());
+
+      frame[(int) (frames % frameSize)] = (byte) frames;
+      processor.onNewVideoFrame(frame);
+      frames++;
+    }
+
+    return frames;
+  }
+
+  /**
+   * Create a stage which does a fixed amount of work on every pixel.
+   *
+   * @param completed
+   *          counter for frames through the stage, can be {@code null}
+   *
+   * @return the stage
+   */
+  private VideoFrameProcessor<byte[]> newWorkStage(final AtomicLong completed) {
+    return new BaseVideoFrameProcessor<byte[]>() {
+      @Override
+      public byte[] onNewVideoFrame(byte[] frame) {
+        long sum = 0;
+        for (int pass = 0; pass < passes; pass++) {
+          for (int i = 0; i < frame.length; i++) {
+            sum = sum * 31 + frame[i];
+          }
+        }
+        sink = sum;
+
+        if (completed != null) {
+          completed.incrementAndGet();
+        }
+
+        return frame;
+      }
+    };
+  }
+
+  /**
+   * Print the results of a run.
+   *
+   * @param name
+   *          the name of the run
+   * @param frames
+   *          the number of frames the camera produced
+   * @param completed
+   *          the number of frames which made it through all stages
+   * @param skipped
+   *          the number of frames skipped
+   * @param allocated
+   *          the number of frame buffers allocated
+   */
+  private void report(String name, long frames, long completed, long skipped, long allocated) {
+    System.out.format("%-10s camera %6.1f fps, processed %6.1f fps, skipped %d, buffers allocated %d%n", name,
+        (double) frames / seconds, (double) completed / seconds, skipped, allocated);
+  }
+
+  /**
+   * An allocator for frames which are byte arrays.
+   *
+   * @author Keith M. Hughes
+   */
+  private class ByteArrayFrameAllocator implements VideoFrameAllocator<byte[]> {
+
+    @Override
+    public byte[] newFrame() {
+      return new byte[frameSize];
+    }
+
+    @Override
+    public byte[] copyFrame(byte[] source, byte[] destination) {
+      System.arraycopy(source, 0, destination, 0, source.length);
+      return destination;
+    }
+
+    @Override
+    public void disposeFrame(byte[] frame) {
+      // Nothing to do.
+    }
+  }
+}
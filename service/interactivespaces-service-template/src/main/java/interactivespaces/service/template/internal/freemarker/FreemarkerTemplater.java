@@ -22,39 +22,130 @@ import interactivespaces.service.template.Templater;
 import interactivespaces.util.io.FileSupport;
 import interactivespaces.util.io.FileSupportImpl;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+
+import freemarker.cache.MruCacheStorage;
 import freemarker.template.Configuration;
 import freemarker.template.DefaultObjectWrapperBuilder;
 import freemarker.template.Template;
 import freemarker.template.Version;
 
+import org.apache.commons.logging.Log;
+
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileFilter;
 import java.io.FileWriter;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A templater using Freemarker.
  *
+ * <p>
+ * Compiled templates are kept in a bounded cache which is read without locking, so templates can be rendered from many
+ * threads at once. The template directory can be checked for changes in the background, any change empties the cache
+ * so the changed templates are compiled again on next use. Rendering never checks the template files itself.
+ *
+ * <p>
+ * A templater made with {@link #FreemarkerTemplater(File)} has no cache of its own and leaves Freemarker to check the
+ * template files for changes when they are used, with Freemarker's default delay.
+ *
  * @author Keith M. Hughes
  */
 public class FreemarkerTemplater implements Templater {
 
+  /**
+   * The default maximum number of compiled templates to keep.
+   */
+  public static final int CACHE_SIZE_DEFAULT = 256;
+
   /**
    * The version of freemarker to use.
    */
   private static final Version FREEMARKER_VERSION = Configuration.VERSION_2_3_22;
 
+  /**
+   * The template update delay given to Freemarker, in seconds. Freemarker should never check templates itself.
+   */
+  private static final int FREEMARKER_TEMPLATE_UPDATE_DELAY_NEVER = Integer.MAX_VALUE;
+
+  /**
+   * The filter for template files.
+   */
+  private static final FileFilter TEMPLATE_FILE_FILTER = new FileFilter() {
+    @Override
+    public boolean accept(File file) {
+      return file.isFile();
+    }
+  };
+
   /**
    * The directory containing the templates.
    */
   private final File templateDirectory;
 
+  /**
+   * The maximum number of compiled templates to keep.
+   */
+  private final int cacheSize;
+
+  /**
+   * {@code true} if all templates should be compiled when the templater starts.
+   */
+  private final boolean precompile;
+
+  /**
+   * How often to check the template directory for changes, in milliseconds. {@code 0} or less never checks.
+   */
+  private final long updateCheckInterval;
+
+  /**
+   * The executor service for change checks, can be {@code null} if there are no change checks.
+   */
+  private final ScheduledExecutorService executorService;
+
+  /**
+   * {@code true} if Freemarker checks the template files for changes itself, and the templater has no cache of its own.
+   */
+  private final boolean freemarkerUpdateChecks;
+
+  /**
+   * The logger to use, can be {@code null}.
+   */
+  private final Log log;
+
   /**
    * The configuration used by Freemarker.
    */
-  private Configuration freemarkerConfig;
+  private volatile Configuration freemarkerConfig;
+
+  /**
+   * The compiled templates, indexed by template name.
+   */
+  private volatile Cache<String, Template> templateCache;
+
+  /**
+   * Incremented every time the template cache is emptied.
+   */
+  private final AtomicLong cacheGeneration = new AtomicLong();
+
+  /**
+   * The modification times of the template files at the last change check, indexed by file path.
+   */
+  private Map<String, Long> templateModificationTimes;
+
+  /**
+   * The future for the change checks, {@code null} if no checks are being made.
+   */
+  private ScheduledFuture<?> updateCheckFuture;
 
   /**
    * The file support to use.
@@ -62,52 +153,231 @@ public class FreemarkerTemplater implements Templater {
   private final FileSupport fileSupport = FileSupportImpl.INSTANCE;
 
   /**
-   * Construct a new Freemarker templater.
+   * Construct a new Freemarker templater which leaves Freemarker to cache templates and check them for changes.
    *
    * @param templateDirectory
    *          the directory containing the templates
    */
   public FreemarkerTemplater(File templateDirectory) {
+    this(templateDirectory, CACHE_SIZE_DEFAULT, false, 0, null, null, true);
+  }
+
+  /**
+   * Construct a new Freemarker templater.
+   *
+   * @param templateDirectory
+   *          the directory containing the templates
+   * @param cacheSize
+   *          the maximum number of compiled templates to keep
+   * @param precompile
+   *          {@code true} if all templates should be compiled when the templater starts
+   * @param updateCheckInterval
+   *          how often to check the template directory for changes, in milliseconds, {@code 0} or less to never check
+   * @param executorService
+   *          the executor service for change checks, can be {@code null} if there are no change checks
+   * @param log
+   *          the logger to use, can be {@code null}
+   */
+  public FreemarkerTemplater(File templateDirectory, int cacheSize, boolean precompile, long updateCheckInterval,
+      ScheduledExecutorService executorService, Log log) {
+    this(templateDirectory, cacheSize, precompile, updateCheckInterval, executorService, log, false);
+  }
+
+  /**
+   * Construct a new Freemarker templater.
+   *
+   * @param templateDirectory
+   *          the directory containing the templates
+   * @param cacheSize
+   *          the maximum number of compiled templates to keep
+   * @param precompile
+   *          {@code true} if all templates should be compiled when the templater starts
+   * @param updateCheckInterval
+   *          how often to check the template directory for changes, in milliseconds, {@code 0} or less to never check
+   * @param executorService
+   *          the executor service for change checks, can be {@code null} if there are no change checks
+   * @param log
+   *          the logger to use, can be {@code null}
+   * @param freemarkerUpdateChecks
+   *          {@code true} if Freemarker should check the template files for changes itself and the templater should
+   *          have no cache of its own
+   */
+  private FreemarkerTemplater(File templateDirectory, int cacheSize, boolean precompile, long updateCheckInterval,
+      ScheduledExecutorService executorService, Log log, boolean freemarkerUpdateChecks) {
+    this.freemarkerUpdateChecks = freemarkerUpdateChecks;
     this.templateDirectory = templateDirectory;
+    this.cacheSize = cacheSize;
+    this.precompile = precompile;
+    this.updateCheckInterval = updateCheckInterval;
+    this.executorService = executorService;
+    this.log = log;
   }
 
   @Override
   public synchronized void startup() {
     try {
       DefaultObjectWrapperBuilder objectWrapperBuilder = new DefaultObjectWrapperBuilder(FREEMARKER_VERSION);
-      freemarkerConfig = new Configuration(FREEMARKER_VERSION);
-      freemarkerConfig.setDirectoryForTemplateLoading(templateDirectory);
+      Configuration config = new Configuration(FREEMARKER_VERSION);
+      config.setDirectoryForTemplateLoading(templateDirectory);
       // Specify how templates will see the data-model. This is an
       // advanced topic... but just use this:
-      freemarkerConfig.setObjectWrapper(objectWrapperBuilder.build());
+      config.setObjectWrapper(objectWrapperBuilder.build());
+
+      if (!freemarkerUpdateChecks) {
+        // Freemarker's own cache is still used for included templates. Changes are found by the change checks.
+        config.setCacheStorage(new MruCacheStorage(cacheSize, 0));
+        config.setTemplateUpdateDelay(FREEMARKER_TEMPLATE_UPDATE_DELAY_NEVER);
+      }
+
+      templateCache = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+      freemarkerConfig = config;
     } catch (Exception e) {
       freemarkerConfig = null;
       throw new InteractiveSpacesException("Cannot initialize Freemarker templater", e);
     }
+
+    if (precompile) {
+      precompileTemplates();
+    }
+
+    if (updateCheckInterval > 0 && executorService != null) {
+      templateModificationTimes = getTemplateModificationTimes();
+      updateCheckFuture = executorService.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          checkForTemplateChanges();
+        }
+      }, updateCheckInterval, updateCheckInterval, TimeUnit.MILLISECONDS);
+    }
   }
 
   @Override
   public synchronized void shutdown() {
+    if (updateCheckFuture != null) {
+      updateCheckFuture.cancel(false);
+      updateCheckFuture = null;
+    }
+
     freemarkerConfig = null;
+    templateCache = null;
   }
 
   /**
-   * Get the configuration to use, and also check that the system has been started.
-   *
-   * @return freemarker configuration
+   * Check to see that the template system has been properly initialized.
    */
-  private synchronized Configuration getConfiguration() {
-    checkInitialized();
-    return freemarkerConfig;
+  private void checkInitialized() {
+    if (freemarkerConfig == null) {
+      throw new SimpleInteractiveSpacesException("Templater has not been started");
+    }
   }
 
   /**
-   * Check to see that the template system has been properly initialized.
+   * Get a compiled template, compiling it if it is not in the cache.
+   *
+   * @param templateName
+   *          the name of the template
+   *
+   * @return the compiled template
+   *
+   * @throws Exception
+   *           the template could not be found or compiled
    */
-  private void checkInitialized() {
-    if (freemarkerConfig == null) {
+  private Template getTemplate(String templateName) throws Exception {
+    Configuration config = freemarkerConfig;
+    Cache<String, Template> cache = templateCache;
+    if (config == null || cache == null) {
       throw new SimpleInteractiveSpacesException("Templater has not been started");
     }
+
+    if (freemarkerUpdateChecks) {
+      return config.getTemplate(templateName);
+    }
+
+    Template template = cache.getIfPresent(templateName);
+    if (template == null) {
+      // Two threads can compile the same template at once, the last one in the cache wins.
+      long loadGeneration = cacheGeneration.get();
+      template = config.getTemplate(templateName);
+      cache.put(templateName, template);
+
+      // If the cache was emptied during the compile the template may be from the old file.
+      if (cacheGeneration.get() != loadGeneration) {
+        cache.asMap().remove(templateName, template);
+      }
+    }
+
+    return template;
+  }
+
+  /**
+   * Compile all templates in the template directory, up to the cache size.
+   */
+  private void precompileTemplates() {
+    int count = 0;
+    for (File file : fileSupport.collectFiles(templateDirectory, TEMPLATE_FILE_FILTER, true)) {
+      if (count++ >= cacheSize) {
+        if (log != null) {
+          log.warn(String.format("Only %d templates precompiled in %s, the cache is full", cacheSize,
+              templateDirectory.getAbsolutePath()));
+        }
+        break;
+      }
+
+      String templateName = templateDirectory.toURI().relativize(file.toURI()).getPath();
+      try {
+        getTemplate(templateName);
+      } catch (Exception e) {
+        freemarkerConfig = null;
+        templateCache = null;
+        throw new InteractiveSpacesException(String.format("Could not precompile template %s", templateName), e);
+      }
+    }
+  }
+
+  /**
+   * Check the template directory for changes, emptying the cache if there were any.
+   */
+  private void checkForTemplateChanges() {
+    try {
+      Map<String, Long> modificationTimes = getTemplateModificationTimes();
+      if (modificationTimes.equals(templateModificationTimes)) {
+        return;
+      }
+      templateModificationTimes = modificationTimes;
+
+      Configuration config = freemarkerConfig;
+      Cache<String, Template> cache = templateCache;
+      if (config != null && cache != null) {
+        cacheGeneration.incrementAndGet();
+        config.clearTemplateCache();
+        cache.invalidateAll();
+
+        if (log != null) {
+          log.info(String.format("Templates changed in %s, template cache cleared",
+              templateDirectory.getAbsolutePath()));
+        }
+      }
+    } catch (Exception e) {
+      // Exceptions would stop future checks.
+      if (log != null) {
+        log.error(String.format("Could not check templates in %s for changes", templateDirectory.getAbsolutePath()),
+            e);
+      }
+    }
+  }
+
+  /**
+   * Get the modification times of all files in the template directory.
+   *
+   * @return the modification times, indexed by file path
+   */
+  private Map<String, Long> getTemplateModificationTimes() {
+    Map<String, Long> modificationTimes = Maps.newHashMap();
+    for (File file : fileSupport.collectFiles(templateDirectory, TEMPLATE_FILE_FILTER, true)) {
+      modificationTimes.put(file.getPath(), file.lastModified());
+    }
+
+    return modificationTimes;
   }
 
   @Override
@@ -117,7 +387,7 @@ public class FreemarkerTemplater implements Templater {
     Writer out = new OutputStreamWriter(baos);
     boolean noException = true;
     try {
-      Template template = getConfiguration().getTemplate(templateName);
+      Template template = getTemplate(templateName);
 
       template.process(data, out);
     } catch (Exception e) {
@@ -136,7 +406,7 @@ public class FreemarkerTemplater implements Templater {
     Writer out = null;
     boolean noException = true;
     try {
-      Template template = getConfiguration().getTemplate(templateName);
+      Template template = getTemplate(templateName);
       out = new FileWriter(outputFile);
       template.process(data, out);
     } catch (Exception e) {
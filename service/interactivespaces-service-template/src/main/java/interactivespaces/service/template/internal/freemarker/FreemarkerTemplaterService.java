@@ -16,6 +16,7 @@
 
 package interactivespaces.service.template.internal.freemarker;
 
+import interactivespaces.configuration.Configuration;
 import interactivespaces.service.BaseSupportedService;
 import interactivespaces.service.template.Templater;
 import interactivespaces.service.template.TemplaterService;
@@ -29,6 +30,33 @@ import java.io.File;
  */
 public class FreemarkerTemplaterService extends BaseSupportedService implements TemplaterService {
 
+  /**
+   * Configuration property for the maximum number of compiled templates each templater keeps.
+   */
+  public static final String CONFIGURATION_TEMPLATER_CACHE_SIZE = "space.service.templater.freemarker.cache.size";
+
+  /**
+   * Configuration property for whether templaters compile all of their templates when they start.
+   */
+  public static final String CONFIGURATION_TEMPLATER_PRECOMPILE = "space.service.templater.freemarker.precompile";
+
+  /**
+   * Default value for {@link #CONFIGURATION_TEMPLATER_PRECOMPILE}.
+   */
+  public static final boolean CONFIGURATION_DEFAULT_TEMPLATER_PRECOMPILE = false;
+
+  /**
+   * Configuration property for how often templaters check their templates for changes, in milliseconds. {@code 0}
+   * never checks.
+   */
+  public static final String CONFIGURATION_TEMPLATER_UPDATE_CHECK_INTERVAL =
+      "space.service.templater.freemarker.update.check.interval";
+
+  /**
+   * Default value for {@link #CONFIGURATION_TEMPLATER_UPDATE_CHECK_INTERVAL}, in milliseconds.
+   */
+  public static final long CONFIGURATION_DEFAULT_TEMPLATER_UPDATE_CHECK_INTERVAL = 5000;
+
   @Override
   public String getName() {
     return TemplaterService.SERVICE_NAME;
@@ -36,6 +64,17 @@ public class FreemarkerTemplaterService extends BaseSupportedService implements
 
   @Override
   public Templater newTemplater(File templateDirectory) {
-    return new FreemarkerTemplater(templateDirectory);
+    Configuration configuration = getSpaceEnvironment().getSystemConfiguration();
+    int cacheSize =
+        configuration.getPropertyInteger(CONFIGURATION_TEMPLATER_CACHE_SIZE, FreemarkerTemplater.CACHE_SIZE_DEFAULT);
+    boolean precompile =
+        configuration.getPropertyBoolean(CONFIGURATION_TEMPLATER_PRECOMPILE,
+            CONFIGURATION_DEFAULT_TEMPLATER_PRECOMPILE);
+    long updateCheckInterval =
+        configuration.getPropertyLong(CONFIGURATION_TEMPLATER_UPDATE_CHECK_INTERVAL,
+            CONFIGURATION_DEFAULT_TEMPLATER_UPDATE_CHECK_INTERVAL);
+
+    return new FreemarkerTemplater(templateDirectory, cacheSize, precompile, updateCheckInterval,
+        getSpaceEnvironment().getExecutorService(), getSpaceEnvironment().getLog());
   }
 }
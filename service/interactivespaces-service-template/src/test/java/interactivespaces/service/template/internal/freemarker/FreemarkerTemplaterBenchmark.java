@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.service.template.internal.freemarker;
+
+import interactivespaces.util.io.FileSupport;
+import interactivespaces.util.io.FileSupportImpl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A benchmark comparing renders per second of the {@link FreemarkerTemplater} with a templater which looks up every
+ * template through a synchronized method, as the templater did before it had its own cache.
+ *
+ * <p>
+ * Each thread repeatedly renders a small page, the pattern of an activity rendering HTML for each web request.
+ *
+ * <p>
+ * Run with optional arguments {@code threads renders-per-thread}.
+ *
+ * @author Keith M. Hughes
+ */
+public class FreemarkerTemplaterBenchmark {
+
+  /**
+   * The name of the template rendered.
+   */
+  private static final String TEMPLATE_NAME = "page.ftl";
+
+  /**
+   * The template rendered.
+   */
+  private static final String TEMPLATE_CONTENT = "<html><head><title>${title}</title></head><body><ul>\n"
+      + "<#list items as item><li>${item}</li>\n</#list></ul></body></html>\n";
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args
+   *          the optional thread count and renders per thread
+   *
+   * @throws Exception
+   *           the benchmark failed
+   */
+  public static void main(String[] args) throws Exception {
+    int numThreads = (args.length > 0) ? Integer.parseInt(args[0]) : 8;
+    int numRenders = (args.length > 1) ? Integer.parseInt(args[1]) : 20000;
+
+    FileSupport fileSupport = FileSupportImpl.INSTANCE;
+    File baseDir = fileSupport.createTempDirectory(new File(System.getProperty("java.io.tmpdir")), "templatebench");
+    try {
+      fileSupport.writeFile(new File(baseDir, TEMPLATE_NAME), TEMPLATE_CONTENT);
+
+      Map<String, Object> data = Maps.newHashMap();
+      data.put("title", "Benchmark");
+      List<String> items = Lists.newArrayList();
+      for (int i = 0; i < 10; i++) {
+        items.add("item " + i);
+      }
+      data.put("items", items);
+
+      FreemarkerTemplaterBenchmark benchmark = new FreemarkerTemplaterBenchmark();
+
+      final SynchronizedRenderer synchronizedRenderer = new SynchronizedRenderer(baseDir);
+      final FreemarkerTemplater templater =
+          new FreemarkerTemplater(baseDir, FreemarkerTemplater.CACHE_SIZE_DEFAULT, false, 0, null, null);
+      templater.startup();
+      try {
+        Renderer cachedRenderer = new Renderer() {
+          @Override
+          public String render(Map<String, Object> data) throws Exception {
+            return templater.instantiateTemplate(TEMPLATE_NAME, data);
+          }
+        };
+
+        for (int threads = 1; threads <= numThreads; threads *= 2) {
+          benchmark.run("synchronized", synchronizedRenderer, data, threads, numRenders);
+          benchmark.run("cached", cachedRenderer, data, threads, numRenders);
+        }
+      } finally {
+        templater.shutdown();
+      }
+    } finally {
+      fileSupport.deleteDirectoryContents(baseDir);
+      fileSupport.delete(baseDir);
+    }
+  }
+
+  /**
+   * Run the benchmark against a single renderer and print the results.
+   *
+   * @param name
+   *          the name of the run
+   * @param renderer
+   *          the renderer to use
+   * @param data
+   *          the data for the template
+   * @param numThreads
+   *          the number of threads rendering
+   * @param numRenders
+   *          the number of renders each thread makes
+   *
+   * @throws Exception
+   *           the run failed
+   */
+  public void run(String name, final Renderer renderer, final Map<String, Object> data, int numThreads,
+      final int numRenders) throws Exception {
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(numThreads);
+    for (int t = 0; t < numThreads; t++) {
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+            for (int i = 0; i < numRenders; i++) {
+              renderer.render(data);
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } catch (Exception e) {
+            e.printStackTrace();
+          } finally {
+            done.countDown();
+          }
+        }
+      }).start();
+    }
+
+    long startTime = System.nanoTime();
+    start.countDown();
+    done.await();
+    long elapsed = System.nanoTime() - startTime;
+
+    long totalRenders = (long) numThreads * numRenders;
+    System.out.format("%-14s %3d threads %9d renders in %8.1f ms, %11.1f renders/sec%n", name, numThreads,
+        totalRenders, elapsed / 1e6, totalRenders / (elapsed / 1e9));
+  }
+
+  /**
+   * Something which renders the benchmark template.
+   *
+   * @author Keith M. Hughes
+   */
+  private interface Renderer {
+
+    /**
+     * Render the template.
+     *
+     * @param data
+     *          the data for the template
+     *
+     * @return the rendered template
+     *
+     * @throws Exception
+     *           the template could not be rendered
+     */
+    String render(Map<String, Object> data) throws Exception;
+  }
+
+  /**
+   * A renderer which gets the template from Freemarker through a synchronized method for every render.
+   *
+   * @author Keith M. Hughes
+   */
+  private static class SynchronizedRenderer implements Renderer {
+
+    /**
+     * The Freemarker configuration.
+     */
+    private final Configuration freemarkerConfig;
+
+    /**
+     * Construct a new renderer.
+     *
+     * @param templateDirectory
+     *          the directory containing the templates
+     *
+     * @throws Exception
+     *           the renderer could not be set up
+     */
+    public SynchronizedRenderer(File templateDirectory) throws Exception {
+      freemarkerConfig = new Configuration(Configuration.VERSION_2_3_22);
+      freemarkerConfig.setDirectoryForTemplateLoading(templateDirectory);
+    }
+
+    /**
+     * Get the configuration.
+     *
+     * @return the configuration
+     */
+    private synchronized Configuration getConfiguration() {
+      return freemarkerConfig;
+    }
+
+    @Override
+    public String render(Map<String, Object> data) throws Exception {
+      Template template = getConfiguration().getTemplate(TEMPLATE_NAME);
+      StringWriter writer = new StringWriter();
+      template.process(data, writer);
+
+      return writer.toString();
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.service.template.internal.freemarker;
+
+import static org.junit.Assert.assertEquals;
+
+import interactivespaces.util.io.FileSupport;
+import interactivespaces.util.io.FileSupportImpl;
+
+import com.google.common.collect.Maps;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Tests for the {@link FreemarkerTemplater}.
+ *
+ * @author Keith M. Hughes
+ */
+public class FreemarkerTemplaterTest {
+
+  private final FileSupport fileSupport = FileSupportImpl.INSTANCE;
+
+  private File baseDir;
+
+  private ScheduledExecutorService executorService;
+
+  private Map<String, Object> data;
+
+  @Before
+  public void setup() {
+    baseDir = fileSupport.createTempDirectory(new File(System.getProperty("java.io.tmpdir")), "templater");
+    executorService = Executors.newSingleThreadScheduledExecutor();
+    data = Maps.newHashMap();
+    data.put("name", "world");
+  }
+
+  @After
+  public void cleanup() {
+    executorService.shutdownNow();
+    fileSupport.deleteDirectoryContents(baseDir);
+    fileSupport.delete(baseDir);
+  }
+
+  /**
+   * Test that a changed template file is read again once the change check empties the cache.
+   */
+  @Test
+  public void testChangedTemplateReread() throws Exception {
+    File templateFile = new File(baseDir, "page.ftl");
+    fileSupport.writeFile(templateFile, "Hello ${name}");
+
+    FreemarkerTemplater templater =
+        new FreemarkerTemplater(baseDir, FreemarkerTemplater.CACHE_SIZE_DEFAULT, true, 50, executorService, null);
+    templater.startup();
+    try {
+      assertEquals("Hello world", templater.instantiateTemplate("page.ftl", data));
+
+      fileSupport.writeFile(templateFile, "Goodbye ${name}");
+      // File systems with coarse modification times might not see the change otherwise.
+      templateFile.setLastModified(templateFile.lastModified() + 2000);
+
+      String result = templater.instantiateTemplate("page.ftl", data);
+      for (int i = 0; i < 100 && !"Goodbye world".equals(result); i++) {
+        Thread.sleep(50);
+        result = templater.instantiateTemplate("page.ftl", data);
+      }
+      assertEquals("Goodbye world", result);
+    } finally {
+      templater.shutdown();
+    }
+  }
+
+  /**
+   * Test that a templater which never checks for changes keeps rendering the template it compiled.
+   */
+  @Test
+  public void testNoChangeChecks() throws Exception {
+    File templateFile = new File(baseDir, "page.ftl");
+    fileSupport.writeFile(templateFile, "Hello ${name}");
+
+    FreemarkerTemplater templater =
+        new FreemarkerTemplater(baseDir, FreemarkerTemplater.CACHE_SIZE_DEFAULT, false, 0, null, null);
+    templater.startup();
+    try {
+      assertEquals("Hello world", templater.instantiateTemplate("page.ftl", data));
+
+      fileSupport.writeFile(templateFile, "Goodbye ${name}");
+      templateFile.setLastModified(templateFile.lastModified() + 2000);
+
+      assertEquals("Hello world", templater.instantiateTemplate("page.ftl", data));
+    } finally {
+      templater.shutdown();
+    }
+  }
+}
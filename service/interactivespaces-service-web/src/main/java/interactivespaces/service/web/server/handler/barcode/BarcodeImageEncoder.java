@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.service.web.server.handler.barcode;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a barcode bit matrix as an image.
+ *
+ * @author Keith M. Hughes
+ */
+public interface BarcodeImageEncoder {
+
+  /**
+   * Get the MIME type of the images written.
+   *
+   * @return the MIME type
+   */
+  String getContentType();
+
+  /**
+   * Write a bit matrix as an image. Set bits are black, clear bits white, one pixel per bit.
+   *
+   * @param matrix
+   *          the bit matrix
+   * @param out
+   *          the stream to write the image to
+   *
+   * @throws IOException
+   *           the image could not be written
+   */
+  void encode(BitMatrix matrix, OutputStream out) throws IOException;
+}
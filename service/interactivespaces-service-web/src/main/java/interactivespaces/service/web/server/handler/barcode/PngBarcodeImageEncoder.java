@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.service.web.server.handler.barcode;
+
+import com.google.common.base.Charsets;
+import com.google.zxing.common.BitMatrix;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * A barcode image encoder writing 1 bit grayscale PNG images straight from the bit matrix.
+ *
+ * <p>
+ * No intermediate image is created, each row of the matrix is packed 8 pixels to a byte and compressed.
+ *
+ * @author Keith M. Hughes
+ */
+public class PngBarcodeImageEncoder implements BarcodeImageEncoder {
+
+  /**
+   * The MIME type for PNG images.
+   */
+  public static final String MIME_TYPE_IMAGE_PNG = "image/png";
+
+  /**
+   * The signature which starts every PNG file.
+   */
+  private static final byte[] PNG_SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+
+  /**
+   * The PNG bit depth used.
+   */
+  private static final int PNG_BIT_DEPTH = 1;
+
+  /**
+   * The PNG color type for grayscale.
+   */
+  private static final int PNG_COLOR_TYPE_GRAYSCALE = 0;
+
+  /**
+   * The PNG row filter for no filtering.
+   */
+  private static final int PNG_FILTER_NONE = 0;
+
+  @Override
+  public String getContentType() {
+    return MIME_TYPE_IMAGE_PNG;
+  }
+
+  @Override
+  public void encode(BitMatrix matrix, OutputStream out) throws IOException {
+    int width = matrix.getWidth();
+    int height = matrix.getHeight();
+
+    DataOutputStream dataOut = new DataOutputStream(out);
+    dataOut.write(PNG_SIGNATURE);
+
+    ByteArrayOutputStream header = new ByteArrayOutputStream();
+    DataOutputStream headerOut = new DataOutputStream(header);
+    headerOut.writeInt(width);
+    headerOut.writeInt(height);
+    headerOut.writeByte(PNG_BIT_DEPTH);
+    headerOut.writeByte(PNG_COLOR_TYPE_GRAYSCALE);
+    // Compression, filter, and interlace methods.
+    headerOut.writeByte(0);
+    headerOut.writeByte(0);
+    headerOut.writeByte(0);
+    writeChunk(dataOut, "IHDR", header.toByteArray());
+
+    ByteArrayOutputStream data = new ByteArrayOutputStream();
+    Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    try {
+      DeflaterOutputStream deflaterOut = new DeflaterOutputStream(data, deflater);
+      byte[] row = new byte[1 + (width + 7) / 8];
+      row[0] = PNG_FILTER_NONE;
+      for (int y = 0; y < height; y++) {
+        for (int i = 1; i < row.length; i++) {
+          row[i] = 0;
+        }
+        // A gray level of 1 is white, so set bits of the matrix are clear bits of the image.
+        for (int x = 0; x < width; x++) {
+          if (!matrix.get(x, y)) {
+            row[1 + (x >> 3)] |= 0x80 >> (x & 7);
+          }
+        }
+        deflaterOut.write(row);
+      }
+      deflaterOut.finish();
+    } finally {
+      deflater.end();
+    }
+    writeChunk(dataOut, "IDAT", data.toByteArray());
+
+    writeChunk(dataOut, "IEND", new byte[0]);
+    dataOut.flush();
+  }
+
+  /**
+   * Write a PNG chunk.
+   *
+   * @param out
+   *          the stream to write to
+   * @param type
+   *          the chunk type
+   * @param data
+   *          the chunk data
+   *
+   * @throws IOException
+   *           the chunk could not be written
+   */
+  private void writeChunk(DataOutputStream out, String type, byte[] data) throws IOException {
+    byte[] typeBytes = type.getBytes(Charsets.US_ASCII);
+
+    CRC32 crc = new CRC32();
+    crc.update(typeBytes);
+    crc.update(data);
+
+    out.writeInt(data.length);
+    out.write(typeBytes);
+    out.write(data);
+    out.writeInt((int) crc.getValue());
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.service.web.server.handler.barcode;
+
+import com.google.common.base.Charsets;
+import com.google.zxing.common.BitMatrix;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * A barcode image encoder writing SVG images.
+ *
+ * <p>
+ * The black areas are written as a single path. Runs of black pixels in a row become rectangles, which are stretched
+ * down over following rows which are the same, so a scaled barcode stays small.
+ *
+ * @author Keith M. Hughes
+ */
+public class SvgBarcodeImageEncoder implements BarcodeImageEncoder {
+
+  /**
+   * The MIME type for SVG images.
+   */
+  public static final String MIME_TYPE_IMAGE_SVG = "image/svg+xml";
+
+  @Override
+  public String getContentType() {
+    return MIME_TYPE_IMAGE_SVG;
+  }
+
+  @Override
+  public void encode(BitMatrix matrix, OutputStream out) throws IOException {
+    int width = matrix.getWidth();
+    int height = matrix.getHeight();
+
+    Writer writer = new OutputStreamWriter(out, Charsets.UTF_8);
+    writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+    writer.write(String.format("<svg xmlns=\"http://www.w3.org/2000/svg\" version=\"1.1\" width=\"%d\" height=\"%d\" "
+        + "viewBox=\"0 0 %d %d\" shape-rendering=\"crispEdges\">\n", width, height, width, height));
+    writer.write("<rect width=\"100%\" height=\"100%\" fill=\"#fff\"/>\n");
+    writer.write("<path fill=\"#000\" d=\"");
+
+    int y = 0;
+    while (y < height) {
+      int rows = 1;
+      while (y + rows < height && isSameRow(matrix, y, y + rows)) {
+        rows++;
+      }
+
+      int x = 0;
+      while (x < width) {
+        if (matrix.get(x, y)) {
+          int start = x;
+          while (x < width && matrix.get(x, y)) {
+            x++;
+          }
+          writer.write(String.format("M%d %dh%dv%dh-%dz", start, y, x - start, rows, x - start));
+        } else {
+          x++;
+        }
+      }
+
+      y += rows;
+    }
+
+    writer.write("\"/>\n</svg>\n");
+    writer.flush();
+  }
+
+  /**
+   * Are two rows of a matrix the same?
+   *
+   * @param matrix
+   *          the matrix
+   * @param row1
+   *          the first row
+   * @param row2
+   *          the second row
+   *
+   * @return {@code true} if the rows are the same
+   */
+  private boolean isSameRow(BitMatrix matrix, int row1, int row2) {
+    for (int x = 0; x < matrix.getWidth(); x++) {
+      if (matrix.get(x, row1) != matrix.get(x, row2)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+}
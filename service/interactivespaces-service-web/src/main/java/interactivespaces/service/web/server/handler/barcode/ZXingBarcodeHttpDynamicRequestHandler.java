@@ -16,27 +16,39 @@
 
 package interactivespaces.service.web.server.handler.barcode;
 
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.hash.Hashing;
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.EncodeHintType;
 import com.google.zxing.MultiFormatWriter;
 import com.google.zxing.Writer;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 
 import interactivespaces.InteractiveSpacesException;
+import interactivespaces.service.web.HttpResponseCode;
 import interactivespaces.service.web.server.HttpDynamicRequestHandler;
 import interactivespaces.service.web.server.HttpRequest;
 import interactivespaces.service.web.server.HttpResponse;
+import interactivespaces.util.web.CommonMimeTypes;
 
-import java.nio.ByteBuffer;
-import java.nio.CharBuffer;
-import java.nio.charset.Charset;
-import java.nio.charset.CharsetEncoder;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.Hashtable;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * A barcode HTTP request handler based on zxing.
  *
+ * <p>
+ * The barcode format, image type, and size can be given as query parameters. Rendered barcodes are kept in a least
+ * recently used cache keyed by their content and parameters. Responses carry an {@code ETag}, and a request whose
+ * {@code If-None-Match} header matches gets a {@code 304 Not Modified} without a body.
+ *
  * @author Keith M. Hughes
  */
 public class ZXingBarcodeHttpDynamicRequestHandler implements HttpDynamicRequestHandler {
@@ -46,6 +58,107 @@ public class ZXingBarcodeHttpDynamicRequestHandler implements HttpDynamicRequest
    */
   public static final String QUERY_PARAMETER_NAME_CONTENT = "content";
 
+  /**
+   * Query string parameter name for the barcode format, one of the zxing {@link BarcodeFormat} names.
+   */
+  public static final String QUERY_PARAMETER_NAME_FORMAT = "format";
+
+  /**
+   * Query string parameter name for the image type, {@link #IMAGE_TYPE_PNG} or {@link #IMAGE_TYPE_SVG}.
+   */
+  public static final String QUERY_PARAMETER_NAME_TYPE = "type";
+
+  /**
+   * Query string parameter name for the width of the barcode in pixels.
+   */
+  public static final String QUERY_PARAMETER_NAME_WIDTH = "width";
+
+  /**
+   * Query string parameter name for the height of the barcode in pixels.
+   */
+  public static final String QUERY_PARAMETER_NAME_HEIGHT = "height";
+
+  /**
+   * Image type for PNG images.
+   */
+  public static final String IMAGE_TYPE_PNG = "png";
+
+  /**
+   * Image type for SVG images.
+   */
+  public static final String IMAGE_TYPE_SVG = "svg";
+
+  /**
+   * The default barcode format.
+   */
+  public static final BarcodeFormat FORMAT_DEFAULT = BarcodeFormat.QR_CODE;
+
+  /**
+   * The default width and height of a barcode, in pixels.
+   */
+  public static final int SIZE_DEFAULT = 100;
+
+  /**
+   * The largest width or height of a barcode, in pixels.
+   */
+  public static final int SIZE_MAX = 4096;
+
+  /**
+   * The default number of rendered barcodes cached.
+   */
+  public static final int CACHE_SIZE_DEFAULT = 64;
+
+  /**
+   * The response header for the entity tag.
+   */
+  public static final String HEADER_NAME_ETAG = "ETag";
+
+  /**
+   * The request header for the entity tags the client already has.
+   */
+  public static final String HEADER_NAME_IF_NONE_MATCH = "If-None-Match";
+
+  /**
+   * The response header for caching directives.
+   */
+  public static final String HEADER_NAME_CACHE_CONTROL = "Cache-Control";
+
+  /**
+   * The caching directive for responses. The content of a URL can change, so clients must always check the entity
+   * tag.
+   */
+  public static final String CACHE_CONTROL_NO_CACHE = "no-cache";
+
+  /**
+   * The encoders for each image type.
+   */
+  private final Map<String, BarcodeImageEncoder> imageEncoders = Maps.newHashMap();
+
+  /**
+   * The rendered barcodes, keyed by their content and parameters.
+   */
+  private final Cache<String, RenderedBarcode> cache;
+
+  /**
+   * Construct a handler with the default cache size.
+   */
+  public ZXingBarcodeHttpDynamicRequestHandler() {
+    this(CACHE_SIZE_DEFAULT);
+  }
+
+  /**
+   * Construct a handler.
+   *
+   * @param cacheSize
+   *          the number of rendered barcodes to cache
+   */
+  public ZXingBarcodeHttpDynamicRequestHandler(int cacheSize) {
+    cache = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+
+    imageEncoders.put(IMAGE_TYPE_PNG, new PngBarcodeImageEncoder());
+    imageEncoders.put(IMAGE_TYPE_SVG, new SvgBarcodeImageEncoder());
+  }
+
   @Override
   public void handle(HttpRequest request, HttpResponse response) {
     String barcodeContent = getBarcodeContent(request);
@@ -54,30 +167,62 @@ public class ZXingBarcodeHttpDynamicRequestHandler implements HttpDynamicRequest
           "No content for barcode generator for URL %s", request.getUri()));
     }
 
-    try {
-      Charset charset = Charset.forName("UTF-8");
-      CharsetEncoder encoder = charset.newEncoder();
-      byte[] b = null;
-      // Convert a string to UTF-8 bytes in a ByteBuffer
-      ByteBuffer bbuf = encoder.encode(CharBuffer.wrap(barcodeContent));
-      b = bbuf.array();
+    Map<String, String> parameters = request.getUriQueryParameters();
+
+    BarcodeFormat format = FORMAT_DEFAULT;
+    String formatParameter = parameters.get(QUERY_PARAMETER_NAME_FORMAT);
+    if (formatParameter != null) {
+      try {
+        format = BarcodeFormat.valueOf(formatParameter.toUpperCase(Locale.ENGLISH));
+      } catch (IllegalArgumentException e) {
+        sendBadRequest(response, String.format("Unknown barcode format %s", formatParameter));
+        return;
+      }
+    }
+
+    String imageType = parameters.get(QUERY_PARAMETER_NAME_TYPE);
+    imageType = (imageType != null) ? imageType.toLowerCase(Locale.ENGLISH) : IMAGE_TYPE_PNG;
+    BarcodeImageEncoder imageEncoder = imageEncoders.get(imageType);
+    if (imageEncoder == null) {
+      sendBadRequest(response, String.format("Unknown image type %s", imageType));
+      return;
+    }
 
-      String data = new String(b, "UTF-8");
-      // get a byte matrix for the data
-      BitMatrix matrix = null;
-      int h = 100;
-      int w = 100;
-      Writer writer = new MultiFormatWriter();
+    int width = getSize(parameters.get(QUERY_PARAMETER_NAME_WIDTH));
+    int height = getSize(parameters.get(QUERY_PARAMETER_NAME_HEIGHT));
+    if (width < 0 || height < 0) {
+      sendBadRequest(response, String.format("Barcode width and height must be from 1 to %d", SIZE_MAX));
+      return;
+    }
 
-      Hashtable<EncodeHintType, String> hints = new Hashtable<EncodeHintType, String>(2);
-      hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
-      matrix = writer.encode(data, BarcodeFormat.QR_CODE, w, h, hints);
+    String key = String.format("%s:%s:%d:%d:%s", format, imageType, width, height, barcodeContent);
+    RenderedBarcode barcode = cache.getIfPresent(key);
+    if (barcode == null) {
+      try {
+        barcode = renderBarcode(barcodeContent, format, imageEncoder, width, height);
+      } catch (IllegalArgumentException e) {
+        // Thrown by the zxing writers for formats they cannot write and content the format cannot hold.
+        sendBadRequest(response, e.getMessage());
+        return;
+      } catch (Exception e) {
+        throw new InteractiveSpacesException("Unable to generate barcode message", e);
+      }
+      cache.put(key, barcode);
+    }
 
-      MatrixToImageWriter.writeToStream(matrix, "PNG", response.getOutputStream());
-    } catch (Exception e) {
-      throw new InteractiveSpacesException("Unable to generate barcode message", e);
+    response.addContentHeader(HEADER_NAME_ETAG, barcode.getEtag());
+    response.addContentHeader(HEADER_NAME_CACHE_CONTROL, CACHE_CONTROL_NO_CACHE);
+    if (isNotModified(request, barcode.getEtag())) {
+      response.setResponseCode(HttpResponseCode.NOT_MODIFIED);
+      return;
     }
 
+    try {
+      response.setContentType(barcode.getContentType());
+      response.getOutputStream().write(barcode.getImage());
+    } catch (IOException e) {
+      throw new InteractiveSpacesException("Unable to write barcode", e);
+    }
   }
 
   /**
@@ -100,4 +245,183 @@ public class ZXingBarcodeHttpDynamicRequestHandler implements HttpDynamicRequest
 
     return barcodeContent;
   }
+
+  /**
+   * Clear the cache of rendered barcodes.
+   */
+  public void clearCache() {
+    cache.invalidateAll();
+  }
+
+  /**
+   * Render a barcode.
+   *
+   * @param barcodeContent
+   *          the content of the barcode
+   * @param format
+   *          the barcode format
+   * @param imageEncoder
+   *          the encoder for the image
+   * @param width
+   *          the width of the barcode in pixels
+   * @param height
+   *          the height of the barcode in pixels
+   *
+   * @return the rendered barcode
+   *
+   * @throws Exception
+   *           the barcode could not be rendered
+   */
+  private RenderedBarcode renderBarcode(String barcodeContent, BarcodeFormat format,
+      BarcodeImageEncoder imageEncoder, int width, int height) throws Exception {
+    Writer writer = new MultiFormatWriter();
+
+    Hashtable<EncodeHintType, String> hints = new Hashtable<EncodeHintType, String>(2);
+    hints.put(EncodeHintType.CHARACTER_SET, Charsets.UTF_8.name());
+    BitMatrix matrix = writer.encode(barcodeContent, format, width, height, hints);
+
+    ByteArrayOutputStream image = new ByteArrayOutputStream();
+    imageEncoder.encode(matrix, image);
+
+    return new RenderedBarcode(image.toByteArray(), imageEncoder.getContentType());
+  }
+
+  /**
+   * Get a barcode dimension from a query parameter.
+   *
+   * @param parameter
+   *          the query parameter, can be {@code null}
+   *
+   * @return the dimension, or {@code -1} if the parameter was not valid
+   */
+  private int getSize(String parameter) {
+    if (parameter == null) {
+      return SIZE_DEFAULT;
+    }
+
+    try {
+      int size = Integer.parseInt(parameter.trim());
+      return (size > 0 && size <= SIZE_MAX) ? size : -1;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Does the client already have the barcode?
+   *
+   * @param request
+   *          the HTTP request
+   * @param etag
+   *          the entity tag of the barcode
+   *
+   * @return {@code true} if the request has an {@code If-None-Match} header which matches the entity tag
+   */
+  private boolean isNotModified(HttpRequest request, String etag) {
+    Multimap<String, String> headers = request.getHeaders();
+    if (headers == null) {
+      return false;
+    }
+
+    // Header names are case insensitive, and not every client sends the canonical name.
+    for (Map.Entry<String, String> header : headers.entries()) {
+      if (!HEADER_NAME_IF_NONE_MATCH.equalsIgnoreCase(header.getKey())) {
+        continue;
+      }
+
+      for (String candidate : header.getValue().split(",")) {
+        String tag = candidate.trim();
+        if (tag.startsWith("W/")) {
+          tag = tag.substring(2);
+        }
+        if (tag.equals("*") || tag.equals(etag)) {
+          return true;
+        }
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Send a bad request response.
+   *
+   * @param response
+   *          the HTTP response
+   * @param message
+   *          the message for the client
+   */
+  private void sendBadRequest(HttpResponse response, String message) {
+    response.setResponseCode(HttpResponseCode.BAD_REQUEST);
+    response.setContentType(CommonMimeTypes.MIME_TYPE_TEXT_PLAIN);
+    try {
+      response.getOutputStream().write(String.valueOf(message).getBytes(Charsets.UTF_8));
+    } catch (IOException e) {
+      throw new InteractiveSpacesException("Unable to write barcode error", e);
+    }
+  }
+
+  /**
+   * A rendered barcode image.
+   *
+   * @author Keith M. Hughes
+   */
+  private static class RenderedBarcode {
+
+    /**
+     * The image.
+     */
+    private final byte[] image;
+
+    /**
+     * The MIME type of the image.
+     */
+    private final String contentType;
+
+    /**
+     * The entity tag of the image.
+     */
+    private final String etag;
+
+    /**
+     * Construct a rendered barcode.
+     *
+     * @param image
+     *          the image
+     * @param contentType
+     *          the MIME type of the image
+     */
+    public RenderedBarcode(byte[] image, String contentType) {
+      this.image = image;
+      this.contentType = contentType;
+      this.etag = "\"" + Hashing.murmur3_128().hashBytes(image) + "\"";
+    }
+
+    /**
+     * Get the image.
+     *
+     * @return the image
+     */
+    public byte[] getImage() {
+      return image;
+    }
+
+    /**
+     * Get the MIME type of the image.
+     *
+     * @return the MIME type
+     */
+    public String getContentType() {
+      return contentType;
+    }
+
+    /**
+     * Get the entity tag of the image.
+     *
+     * @return the entity tag, including the quotes
+     */
+    public String getEtag() {
+      return etag;
+    }
+  }
 }
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2015 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package interactivespaces.service.web.server.handler.barcode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import interactivespaces.service.web.HttpResponseCode;
+import interactivespaces.service.web.server.HttpRequest;
+import interactivespaces.service.web.server.HttpResponse;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.zxing.common.BitMatrix;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Tests for the {@link ZXingBarcodeHttpDynamicRequestHandler} and its image encoders.
+ *
+ * @author Keith M. Hughes
+ */
+public class ZXingBarcodeHttpDynamicRequestHandlerTest {
+
+  private ZXingBarcodeHttpDynamicRequestHandler handler;
+
+  private Map<String, String> parameters;
+
+  private HttpRequest request;
+
+  @Before
+  public void setup() {
+    handler = new ZXingBarcodeHttpDynamicRequestHandler();
+
+    parameters = Maps.newHashMap();
+    parameters.put(ZXingBarcodeHttpDynamicRequestHandler.QUERY_PARAMETER_NAME_CONTENT, "http://example.com/kiosk");
+
+    request = Mockito.mock(HttpRequest.class);
+    Mockito.when(request.getUriQueryParameters()).thenReturn(parameters);
+  }
+
+  /**
+   * Test that the PNG encoder writes the same pixels as the bit matrix.
+   */
+  @Test
+  public void testPngEncoder() throws Exception {
+    BitMatrix matrix = new BitMatrix(13, 5);
+    matrix.set(0, 0);
+    matrix.set(7, 1);
+    matrix.set(8, 1);
+    matrix.set(12, 4);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new PngBarcodeImageEncoder().encode(matrix, out);
+
+    BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals(13, image.getWidth());
+    assertEquals(5, image.getHeight());
+    for (int y = 0; y < 5; y++) {
+      for (int x = 0; x < 13; x++) {
+        int expected = matrix.get(x, y) ? 0x000000 : 0xffffff;
+        assertEquals(String.format("Pixel %d,%d", x, y), expected, image.getRGB(x, y) & 0xffffff);
+      }
+    }
+  }
+
+  /**
+   * Test that the SVG encoder merges runs which repeat over rows.
+   */
+  @Test
+  public void testSvgEncoder() throws Exception {
+    BitMatrix matrix = new BitMatrix(4, 3);
+    matrix.set(1, 0);
+    matrix.set(2, 0);
+    matrix.set(1, 1);
+    matrix.set(2, 1);
+    matrix.set(3, 2);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new SvgBarcodeImageEncoder().encode(matrix, out);
+
+    assertTrue(new String(out.toByteArray(), Charsets.UTF_8).contains("d=\"M1 0h2v2h-2zM3 2h1v1h-1z\""));
+  }
+
+  /**
+   * Test that a request with the entity tag of the barcode gets a not modified response.
+   */
+  @Test
+  public void testNotModified() throws Exception {
+    assertNotModified(ZXingBarcodeHttpDynamicRequestHandler.HEADER_NAME_IF_NONE_MATCH);
+  }
+
+  /**
+   * Test that the {@code If-None-Match} header is found whatever the case of its name.
+   */
+  @Test
+  public void testNotModifiedHeaderNameCase() throws Exception {
+    assertNotModified("if-none-match");
+  }
+
+  /**
+   * Assert that a request with the entity tag of the barcode gets a not modified response.
+   *
+   * @param headerName
+   *          the name to send the {@code If-None-Match} header with
+   */
+  private void assertNotModified(String headerName) throws Exception {
+    HttpResponse response = newResponse();
+    handler.handle(request, response);
+
+    ArgumentCaptor<String> etag = ArgumentCaptor.forClass(String.class);
+    Mockito.verify(response).addContentHeader(
+        Mockito.eq(ZXingBarcodeHttpDynamicRequestHandler.HEADER_NAME_ETAG), etag.capture());
+    Mockito.verify(response).setContentType(PngBarcodeImageEncoder.MIME_TYPE_IMAGE_PNG);
+
+    Multimap<String, String> headers = HashMultimap.create();
+    headers.put(headerName, "\"other\", " + etag.getValue());
+    Mockito.when(request.getHeaders()).thenReturn(headers);
+    HttpResponse notModifiedResponse = newResponse();
+    handler.handle(request, notModifiedResponse);
+
+    Mockito.verify(notModifiedResponse).setResponseCode(HttpResponseCode.NOT_MODIFIED);
+    Mockito.verify(notModifiedResponse, Mockito.never()).getOutputStream();
+  }
+
+  /**
+   * Test that bad parameters get a bad request response.
+   */
+  @Test
+  public void testBadRequest() throws Exception {
+    parameters.put(ZXingBarcodeHttpDynamicRequestHandler.QUERY_PARAMETER_NAME_FORMAT, "nonsense");
+    HttpResponse response = newResponse();
+    handler.handle(request, response);
+    Mockito.verify(response).setResponseCode(HttpResponseCode.BAD_REQUEST);
+
+    parameters.remove(ZXingBarcodeHttpDynamicRequestHandler.QUERY_PARAMETER_NAME_FORMAT);
+    parameters.put(ZXingBarcodeHttpDynamicRequestHandler.QUERY_PARAMETER_NAME_WIDTH, "100000");
+    response = newResponse();
+    handler.handle(request, response);
+    Mockito.verify(response).setResponseCode(HttpResponseCode.BAD_REQUEST);
+  }
+
+  /**
+   * Create a mock response which has an output stream.
+   *
+   * @return the response
+   */
+  private HttpResponse newResponse() {
+    HttpResponse response = Mockito.mock(HttpResponse.class);
+    Mockito.when(response.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+
+    return response;
+  }
+}